@@ -0,0 +1,106 @@
+/* BoxingBenchmark.java -- Measures the boxing caches.
+   Copyright (C) 2026 Free Software Foundation, Inc.
+
+This file is part of GNU Classpath examples.
+
+GNU Classpath is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; either version 2, or (at your option)
+any later version.
+
+GNU Classpath is distributed in the hope that it will be useful, but
+WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with GNU Classpath; see the file COPYING.  If not, write to the
+Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+02110-1301 USA. */
+
+package gnu.classpath.examples.lang;
+
+import java.util.Random;
+
+/**
+ * Boxes a stream of small ids, as code that keeps ids in collections
+ * does, and prints the time per value and the heap retained by the
+ * boxes.  Run it once as it is and once with, for example,
+ * <code>-Dgnu.java.lang.Integer.cache.high=4095</code> and
+ * <code>-Dgnu.java.lang.Long.cache.high=4095</code> to see how much
+ * allocation a larger cache saves; add
+ * <code>-Dgnu.java.lang.Integer.cache.lazy=true</code> to fill the cache
+ * only as values are used.  The optional arguments are the number of
+ * values, one million by default, and the number of distinct ids, 4096
+ * by default.
+ */
+public class BoxingBenchmark
+{
+  private static final int ROUNDS = 5;
+
+  public static void main(String[] args)
+  {
+    int n = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+    int ids = args.length > 1 ? Integer.parseInt(args[1]) : 4096;
+
+    Random random = new Random(42);
+    int[] values = new int[n];
+    for (int i = 0; i < n; i++)
+      values[i] = random.nextInt(ids);
+
+    System.out.println(n + " values, " + ids + " ids, Integer cache up to "
+                       + System.getProperty("gnu.java.lang.Integer.cache.high",
+                                            "127"));
+    long intTime = Long.MAX_VALUE;
+    long longTime = Long.MAX_VALUE;
+    long intHeap = 0;
+    long longHeap = 0;
+    for (int r = 0; r < ROUNDS; r++)
+      {
+        long before = usedHeap();
+        long t0 = System.nanoTime();
+        Integer[] ints = new Integer[n];
+        for (int i = 0; i < n; i++)
+          ints[i] = Integer.valueOf(values[i]);
+        long t1 = System.nanoTime();
+        intTime = Math.min(intTime, t1 - t0);
+        intHeap = usedHeap() - before;
+        check(ints[n - 1].intValue());
+        ints = null;
+
+        before = usedHeap();
+        t0 = System.nanoTime();
+        Long[] longs = new Long[n];
+        for (int i = 0; i < n; i++)
+          longs[i] = Long.valueOf(values[i]);
+        t1 = System.nanoTime();
+        longTime = Math.min(longTime, t1 - t0);
+        longHeap = usedHeap() - before;
+        check((int) longs[n - 1].longValue());
+      }
+    System.out.println("  Integer.valueOf " + intTime / n + " ns/value, "
+                       + intHeap / 1024 + " KB");
+    System.out.println("  Long.valueOf    " + longTime / n + " ns/value, "
+                       + longHeap / 1024 + " KB");
+  }
+
+  /**
+   * Returns the heap in use after a few garbage collections.
+   */
+  private static long usedHeap()
+  {
+    Runtime runtime = Runtime.getRuntime();
+    for (int i = 0; i < 3; i++)
+      System.gc();
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+
+  /**
+   * Uses the results, so that the work cannot be optimized away.
+   */
+  private static void check(int value)
+  {
+    if (value < 0)
+      System.out.println("?");
+  }
+}
@@ -0,0 +1,173 @@
+/* StringBenchmark.java -- Measures String memory and throughput.
+   Copyright (C) 2026 Free Software Foundation, Inc.
+
+This file is part of GNU Classpath examples.
+
+GNU Classpath is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; either version 2, or (at your option)
+any later version.
+
+GNU Classpath is distributed in the hope that it will be useful, but
+WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with GNU Classpath; see the file COPYING.  If not, write to the
+Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+02110-1301 USA. */
+
+package gnu.classpath.examples.lang;
+
+import java.io.UnsupportedEncodingException;
+import java.util.HashMap;
+import java.util.Random;
+
+/**
+ * Runs the String operations of typical text handling -- decoding
+ * UTF-8 input, building lines, hashing and comparing keys, searching
+ * and encoding output -- on ASCII log lines and on lines with Greek
+ * text, and prints the time per string for each and the heap retained
+ * by the decoded strings.  Compare a VM that keeps Latin-1 Strings in
+ * bytes, which is chosen by <code>VMString.compactStrings()</code>, with
+ * one that does not: the ASCII lines should take about half the memory,
+ * and the Greek ones the same.  The optional argument is the number of
+ * lines, 200000 by default.
+ */
+public class StringBenchmark
+{
+  private static final int ROUNDS = 5;
+
+  private static final String[] LEVELS = { "INFO", "WARN", "DEBUG", "ERROR" };
+
+  private static final String[] WORDS = {
+    "request", "user", "session", "GET", "/index.html", "status=200",
+    "cache", "miss", "{\"id\":", "\"name\":", "timeout", "retry"
+  };
+
+  private static final String[] GREEK = {
+    "\u03b1\u03af\u03c4\u03b7\u03bc\u03b1",
+    "\u03c7\u03c1\u03ae\u03c3\u03c4\u03b7\u03c2",
+    "\u03c3\u03c6\u03ac\u03bb\u03bc\u03b1", "\u03bb\u03ae\u03be\u03b7"
+  };
+
+  private static int sink;
+
+  public static void main(String[] args) throws UnsupportedEncodingException
+  {
+    int n = args.length > 0 ? Integer.parseInt(args[0]) : 200000;
+    run("ascii", lines(n, WORDS));
+    String[] mixed = new String[WORDS.length + GREEK.length];
+    System.arraycopy(WORDS, 0, mixed, 0, WORDS.length);
+    System.arraycopy(GREEK, 0, mixed, WORDS.length, GREEK.length);
+    run("greek", lines(n, mixed));
+  }
+
+  /**
+   * Returns N log lines made of the given words, encoded in UTF-8.
+   */
+  private static byte[][] lines(int n, String[] words)
+    throws UnsupportedEncodingException
+  {
+    Random random = new Random(42);
+    byte[][] lines = new byte[n][];
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < n; i++)
+      {
+        sb.setLength(0);
+        sb.append(LEVELS[random.nextInt(LEVELS.length)]).append(' ');
+        int count = 4 + random.nextInt(8);
+        for (int j = 0; j < count; j++)
+          sb.append(words[random.nextInt(words.length)]).append(' ');
+        sb.append(random.nextInt(100000));
+        lines[i] = sb.toString().getBytes("UTF-8");
+      }
+    return lines;
+  }
+
+  private static void run(String name, byte[][] input)
+    throws UnsupportedEncodingException
+  {
+    int n = input.length;
+    long decode = Long.MAX_VALUE;
+    long build = Long.MAX_VALUE;
+    long hash = Long.MAX_VALUE;
+    long search = Long.MAX_VALUE;
+    long encode = Long.MAX_VALUE;
+    long heap = 0;
+    for (int r = 0; r < ROUNDS; r++)
+      {
+        long before = usedHeap();
+        long t0 = System.nanoTime();
+        String[] strings = new String[n];
+        for (int i = 0; i < n; i++)
+          strings[i] = new String(input[i], "UTF-8");
+        long t1 = System.nanoTime();
+        decode = Math.min(decode, t1 - t0);
+        heap = usedHeap() - before;
+
+        t0 = System.nanoTime();
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < n; i++)
+          {
+            sb.setLength(0);
+            sb.append('[').append(i).append("] ").append(strings[i]);
+            sink += sb.toString().length();
+          }
+        t1 = System.nanoTime();
+        build = Math.min(build, t1 - t0);
+
+        t0 = System.nanoTime();
+        HashMap<String,Integer> counts = new HashMap<String,Integer>();
+        for (int i = 0; i < n; i++)
+          {
+            String level = strings[i].substring(0, strings[i].indexOf(' '));
+            Integer count = counts.get(level);
+            counts.put(level, Integer.valueOf(count == null
+                                              ? 1 : count.intValue() + 1));
+            sink += strings[i].hashCode();
+          }
+        t1 = System.nanoTime();
+        hash = Math.min(hash, t1 - t0);
+
+        t0 = System.nanoTime();
+        for (int i = 0; i < n; i++)
+          {
+            if (strings[i].indexOf("status=") >= 0)
+              sink++;
+            if (strings[i].startsWith("ERROR"))
+              sink++;
+            if (i > 0 && strings[i].compareTo(strings[i - 1]) > 0)
+              sink++;
+          }
+        t1 = System.nanoTime();
+        search = Math.min(search, t1 - t0);
+
+        t0 = System.nanoTime();
+        for (int i = 0; i < n; i++)
+          sink += strings[i].getBytes("UTF-8").length;
+        t1 = System.nanoTime();
+        encode = Math.min(encode, t1 - t0);
+      }
+    System.out.println(name + ": " + n + " lines, " + heap / 1024
+                       + " KB retained");
+    System.out.println("  decode " + decode / n + " ns/line, build "
+                       + build / n + " ns/line, hash " + hash / n
+                       + " ns/line, search " + search / n
+                       + " ns/line, encode " + encode / n + " ns/line");
+    if (sink == 42)
+      System.out.println("?");
+  }
+
+  /**
+   * Returns the heap in use after a few garbage collections.
+   */
+  private static long usedHeap()
+  {
+    Runtime runtime = Runtime.getRuntime();
+    for (int i = 0; i < 3; i++)
+      System.gc();
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+}
@@ -0,0 +1,93 @@
+/* BigIntegerBenchmark.java -- Times arithmetic on large BigIntegers.
+   Copyright (C) 2026 Free Software Foundation, Inc.
+
+This file is part of GNU Classpath examples.
+
+GNU Classpath is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; either version 2, or (at your option)
+any later version.
+
+GNU Classpath is distributed in the hope that it will be useful, but
+WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with GNU Classpath; see the file COPYING.  If not, write to the
+Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+02110-1301 USA. */
+
+package gnu.classpath.examples.math;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+/**
+ * Times {@link BigInteger#multiply}, {@link BigInteger#divide},
+ * {@link BigInteger#toString()} and {@link BigInteger#BigInteger(String)}
+ * for numbers from a thousand to a million bits, which is where
+ * Karatsuba, Toom-Cook and FFT multiplication and the recursive division
+ * and radix conversion take over from the schoolbook methods.  Every
+ * result is checked against the others.  The optional argument is the
+ * largest size in bits, 1048576 by default.
+ */
+public class BigIntegerBenchmark
+{
+  private static final int ROUNDS = 3;
+
+  public static void main(String[] args)
+  {
+    int max = args.length > 0 ? Integer.parseInt(args[0]) : 1 << 20;
+    Random random = new Random(42);
+    for (int bits = 1024; bits <= max; bits *= 4)
+      {
+        BigInteger x = new BigInteger(bits, random).setBit(bits - 1);
+        BigInteger y = new BigInteger(bits, random).setBit(bits - 1);
+        int n = Math.max(1, (1 << 24) / bits / 16);
+
+        long mulTime = Long.MAX_VALUE;
+        long divTime = Long.MAX_VALUE;
+        long toStringTime = Long.MAX_VALUE;
+        long parseTime = Long.MAX_VALUE;
+        for (int r = 0; r < ROUNDS; r++)
+          {
+            BigInteger product = null;
+            long t0 = System.nanoTime();
+            for (int i = 0; i < n; i++)
+              product = x.multiply(y);
+            long t1 = System.nanoTime();
+            mulTime = Math.min(mulTime, t1 - t0);
+
+            BigInteger dividend = product.add(y.shiftRight(1));
+            BigInteger quotient = null;
+            t0 = System.nanoTime();
+            for (int i = 0; i < n; i++)
+              quotient = dividend.divide(y);
+            t1 = System.nanoTime();
+            divTime = Math.min(divTime, t1 - t0);
+
+            String s = null;
+            t0 = System.nanoTime();
+            for (int i = 0; i < n; i++)
+              s = product.toString();
+            t1 = System.nanoTime();
+            toStringTime = Math.min(toStringTime, t1 - t0);
+
+            BigInteger parsed = null;
+            t0 = System.nanoTime();
+            for (int i = 0; i < n; i++)
+              parsed = new BigInteger(s);
+            t1 = System.nanoTime();
+            parseTime = Math.min(parseTime, t1 - t0);
+
+            if (! quotient.equals(x) || ! parsed.equals(product))
+              System.out.println("  wrong result");
+          }
+        System.out.println(bits + " bits: multiply " + mulTime / n / 1000
+                           + " us, divide " + divTime / n / 1000
+                           + " us, toString " + toStringTime / n / 1000
+                           + " us, parse " + parseTime / n / 1000 + " us");
+      }
+  }
+}
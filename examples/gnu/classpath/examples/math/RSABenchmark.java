@@ -0,0 +1,81 @@
+/* RSABenchmark.java -- Times RSA signing and verification.
+   Copyright (C) 2026 Free Software Foundation, Inc.
+
+This file is part of GNU Classpath examples.
+
+GNU Classpath is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; either version 2, or (at your option)
+any later version.
+
+GNU Classpath is distributed in the hope that it will be useful, but
+WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with GNU Classpath; see the file COPYING.  If not, write to the
+Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+02110-1301 USA. */
+
+package gnu.classpath.examples.math;
+
+import gnu.java.security.sig.rsa.RSA;
+
+import java.math.BigInteger;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.interfaces.RSAPublicKey;
+import java.util.Random;
+
+/**
+ * Times the RSA private and public key operations of
+ * {@link RSA#sign} and {@link RSA#verify}, which are almost all
+ * {@link BigInteger#modPow}, for 2048 and 4096 bit keys.  The private
+ * key operation uses the Chinese remainder theorem and blinding, the
+ * public one the exponent 65537.  The optional argument is the number
+ * of signatures per key size, 20 by default.
+ */
+public class RSABenchmark
+{
+  private static final int ROUNDS = 3;
+
+  public static void main(String[] args) throws Exception
+  {
+    int n = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+    int[] sizes = { 2048, 4096 };
+    Random random = new Random(42);
+    for (int s = 0; s < sizes.length; s++)
+      {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(sizes[s]);
+        KeyPair pair = generator.generateKeyPair();
+        BigInteger modulus = ((RSAPublicKey) pair.getPublic()).getModulus();
+        BigInteger message = new BigInteger(sizes[s] - 1, random);
+
+        long signTime = Long.MAX_VALUE;
+        long verifyTime = Long.MAX_VALUE;
+        for (int r = 0; r < ROUNDS; r++)
+          {
+            BigInteger signature = null;
+            long t0 = System.nanoTime();
+            for (int i = 0; i < n; i++)
+              signature = RSA.sign(pair.getPrivate(), message);
+            long t1 = System.nanoTime();
+            signTime = Math.min(signTime, t1 - t0);
+
+            BigInteger check = null;
+            t0 = System.nanoTime();
+            for (int i = 0; i < n; i++)
+              check = RSA.verify(pair.getPublic(), signature);
+            t1 = System.nanoTime();
+            verifyTime = Math.min(verifyTime, t1 - t0);
+            if (! check.equals(message) || signature.compareTo(modulus) >= 0)
+              System.out.println("  wrong result");
+          }
+        System.out.println(sizes[s] + " bit RSA: sign "
+                           + signTime / n / 1000 + " us, verify "
+                           + verifyTime / n / 1000 + " us");
+      }
+  }
+}
@@ -0,0 +1,225 @@
+/* SSLEngineBenchmark.java -- Times the record layer of SSLEngine.
+   Copyright (C) 2026 Free Software Foundation, Inc.
+
+This file is part of GNU Classpath examples.
+
+GNU Classpath is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; either version 2, or (at your option)
+any later version.
+
+GNU Classpath is distributed in the hope that it will be useful, but
+WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with GNU Classpath; see the file COPYING.  If not, write to the
+Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+02110-1301 USA. */
+
+package gnu.classpath.examples.net;
+
+import java.io.FileInputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.security.KeyStore;
+import java.util.Enumeration;
+
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLEngineResult;
+import javax.net.ssl.TrustManagerFactory;
+
+/**
+ * Measures how many megabytes per second an {@link SSLEngine} wraps and
+ * unwraps once the handshake is over, and how many bytes it allocates
+ * per record, for an AES-GCM, a ChaCha20-Poly1305 and an AES-CBC suite.
+ * A client and a server engine talk to each other in memory, so only
+ * the record layer is timed.  The allocations are only counted on VMs
+ * whose thread bean can report them.
+ *
+ * The arguments are a key store holding an RSA key and its certificate,
+ * such as one made with <code>keytool -genkeypair -keyalg RSA</code>,
+ * its password, and optionally the size of the records in bytes, 16384
+ * by default.
+ */
+public class SSLEngineBenchmark
+{
+  private static final int ROUNDS = 3;
+
+  private static final String[] SUITES = {
+    "TLS_RSA_WITH_AES_128_GCM_SHA256",
+    "TLS_DHE_RSA_WITH_CHACHA20_POLY1305_SHA256",
+    "TLS_RSA_WITH_AES_128_CBC_SHA"
+  };
+
+  public static void main(String[] args) throws Exception
+  {
+    if (args.length < 2)
+      {
+        System.err.println("usage: SSLEngineBenchmark keystore password"
+                           + " [record-size]");
+        System.exit(1);
+      }
+    char[] password = args[1].toCharArray();
+    int size = args.length > 2 ? Integer.parseInt(args[2]) : 16384;
+    KeyStore keyStore = KeyStore.getInstance(KeyStore.getDefaultType());
+    FileInputStream in = new FileInputStream(args[0]);
+    keyStore.load(in, password);
+    in.close();
+    KeyManagerFactory kmf
+      = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+    kmf.init(keyStore, password);
+    // Trust the certificates of our own keys, so both ends can use them.
+    KeyStore trustStore = KeyStore.getInstance(KeyStore.getDefaultType());
+    trustStore.load(null, null);
+    for (Enumeration aliases = keyStore.aliases(); aliases.hasMoreElements(); )
+      {
+        String alias = (String) aliases.nextElement();
+        if (keyStore.isKeyEntry(alias))
+          trustStore.setCertificateEntry(alias, keyStore.getCertificate(alias));
+      }
+    TrustManagerFactory tmf
+      = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+    tmf.init(trustStore);
+    SSLContext context = SSLContext.getInstance("TLSv1.2");
+    context.init(kmf.getKeyManagers(), tmf.getTrustManagers(), null);
+
+    int n = Math.max(1, (64 << 20) / size);
+    for (int s = 0; s < SUITES.length; s++)
+      {
+        SSLEngine client = context.createSSLEngine("localhost", 443);
+        SSLEngine server = context.createSSLEngine();
+        client.setUseClientMode(true);
+        server.setUseClientMode(false);
+        client.setEnabledCipherSuites(new String[] { SUITES[s] });
+        server.setEnabledCipherSuites(new String[] { SUITES[s] });
+
+        int packetSize = client.getSession().getPacketBufferSize();
+        int appSize = client.getSession().getApplicationBufferSize();
+        ByteBuffer src = ByteBuffer.allocate(size);
+        ByteBuffer net = ByteBuffer.allocate(Math.max(packetSize, size + 2048));
+        ByteBuffer dst = ByteBuffer.allocate(Math.max(appSize, size));
+        handshake(client, server, net, dst);
+
+        long wrapTime = Long.MAX_VALUE;
+        long unwrapTime = Long.MAX_VALUE;
+        long allocated = -1;
+        for (int r = 0; r < ROUNDS; r++)
+          {
+            long wrapped = 0;
+            long unwrapped = 0;
+            long bytes = allocatedBytes();
+            for (int i = 0; i < n; i++)
+              {
+                src.clear();
+                net.clear();
+                long t0 = System.nanoTime();
+                while (src.hasRemaining())
+                  client.wrap(src, net);
+                long t1 = System.nanoTime();
+                net.flip();
+                dst.clear();
+                while (net.hasRemaining())
+                  server.unwrap(net, dst);
+                long t2 = System.nanoTime();
+                wrapped += t1 - t0;
+                unwrapped += t2 - t1;
+                if (dst.position() != size)
+                  throw new Error("lost data: " + dst.position());
+              }
+            if (bytes >= 0)
+              allocated = (allocatedBytes() - bytes) / n;
+            wrapTime = Math.min(wrapTime, wrapped);
+            unwrapTime = Math.min(unwrapTime, unwrapped);
+          }
+        System.out.println(SUITES[s] + ": wrap "
+                           + rate(n * (long) size, wrapTime)
+                           + " MB/s, unwrap "
+                           + rate(n * (long) size, unwrapTime) + " MB/s, "
+                           + (allocated >= 0 ? allocated + " bytes" : "n/a")
+                           + " allocated per record");
+      }
+  }
+
+  /**
+   * Runs the handshake between the two engines, each writing its records
+   * into a buffer that the other one reads.
+   */
+  private static void handshake(SSLEngine client, SSLEngine server,
+                                ByteBuffer net, ByteBuffer dst)
+    throws Exception
+  {
+    ByteBuffer empty = ByteBuffer.allocate(0);
+    ByteBuffer back = ByteBuffer.allocate(net.capacity());
+    ByteBuffer reply = ByteBuffer.allocate(dst.capacity());
+    net.clear();
+    back.clear();
+    client.beginHandshake();
+    server.beginHandshake();
+    for (int i = 0; i < 1000; i++)
+      {
+        if (done(client) && done(server))
+          return;
+        client.wrap(empty, net);
+        runTasks(client);
+        server.wrap(empty, back);
+        runTasks(server);
+        net.flip();
+        back.flip();
+        dst.clear();
+        server.unwrap(net, dst);
+        runTasks(server);
+        reply.clear();
+        client.unwrap(back, reply);
+        runTasks(client);
+        net.compact();
+        back.compact();
+      }
+    throw new Error("the handshake did not finish");
+  }
+
+  private static boolean done(SSLEngine engine)
+  {
+    SSLEngineResult.HandshakeStatus status = engine.getHandshakeStatus();
+    return status == SSLEngineResult.HandshakeStatus.NOT_HANDSHAKING
+      || status == SSLEngineResult.HandshakeStatus.FINISHED;
+  }
+
+  private static void runTasks(SSLEngine engine)
+  {
+    Runnable task;
+    while ((task = engine.getDelegatedTask()) != null)
+      task.run();
+  }
+
+  /**
+   * Returns the number of bytes this thread has allocated, or -1 if the
+   * VM cannot tell.
+   */
+  private static long allocatedBytes()
+  {
+    try
+      {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        Method m = Class.forName("com.sun.management.ThreadMXBean")
+          .getMethod("getThreadAllocatedBytes", new Class[] { long.class });
+        Object bytes = m.invoke(bean, new Object[] {
+            Long.valueOf(Thread.currentThread().getId()) });
+        return ((Long) bytes).longValue();
+      }
+    catch (Exception e)
+      {
+        return -1;
+      }
+  }
+
+  private static long rate(long bytes, long nanos)
+  {
+    return bytes * 1000 / Math.max(1, nanos);
+  }
+}
@@ -0,0 +1,158 @@
+/* MatcherBenchmark.java -- Measures time and garbage per Matcher.find().
+   Copyright (C) 2026 Free Software Foundation, Inc.
+
+This file is part of GNU Classpath examples.
+
+GNU Classpath is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; either version 2, or (at your option)
+any later version.
+
+GNU Classpath is distributed in the hope that it will be useful, but
+WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with GNU Classpath; see the file COPYING.  If not, write to the
+Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+02110-1301 USA. */
+
+package gnu.classpath.examples.regex;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Runs {@link Matcher#find()} loops over many lines of text, the way a
+ * grep-like program does, with one matcher per pattern that is
+ * {@link Matcher#reset(CharSequence) reset} for every line.  For each
+ * pattern it prints the time and the number of bytes allocated per line,
+ * which should be close to zero once the matcher has warmed up.
+ *
+ * <p>The bytes are counted with the per-thread allocation counter that
+ * some virtual machines offer through their {@link ThreadMXBean}.  Where
+ * there is none, the growth of the heap is reported instead, which is
+ * only meaningful if no garbage collection happened during the run.
+ * The optional argument is the number of lines, 100000 by default.
+ */
+public class MatcherBenchmark
+{
+  private static final int ROUNDS = 5;
+
+  private static final String[] PATTERNS =
+    { "ERROR.*timeout", "timeout", "[0-9]+ms", "(\\w+)=(\\d+)", "^ERROR" };
+
+  private static final String[] WORDS =
+    { "INFO", "request", "id=42", "user=7", "took", "15ms", "ok", "GET",
+      "/index.html", "ERROR", "connection", "timeout", "retry" };
+
+  private static Method allocatedBytes;
+  private static ThreadMXBean threads;
+
+  public static void main(String[] args)
+  {
+    int n = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+
+    Random random = new Random(42);
+    String[] lines = new String[n];
+    for (int i = 0; i < n; i++)
+      {
+        StringBuffer line = new StringBuffer();
+        int words = 4 + random.nextInt(8);
+        for (int j = 0; j < words; j++)
+          {
+            if (j > 0)
+              line.append(' ');
+            line.append(WORDS[random.nextInt(WORDS.length)]);
+          }
+        lines[i] = line.toString();
+      }
+
+    threads = ManagementFactory.getThreadMXBean();
+    try
+      {
+        Class c = Class.forName("com.sun.management.ThreadMXBean");
+        if (c.isInstance(threads))
+          allocatedBytes = c.getMethod("getThreadAllocatedBytes",
+                                       new Class[] { long.class });
+        if (allocatedBytes != null && allocated() < 0)
+          allocatedBytes = null;
+      }
+    catch (Exception e)
+      {
+        allocatedBytes = null;
+      }
+
+    System.out.println(n + " lines, nanoseconds and "
+                       + (allocatedBytes != null ? "bytes allocated"
+                          : "bytes of heap growth")
+                       + " per line");
+    for (int p = 0; p < PATTERNS.length; p++)
+      run(PATTERNS[p], lines);
+  }
+
+  private static void run(String regex, String[] lines)
+  {
+    Matcher m = Pattern.compile(regex).matcher("");
+    long bestTime = Long.MAX_VALUE;
+    long bestBytes = Long.MAX_VALUE;
+    int found = 0;
+    for (int r = 0; r < ROUNDS; r++)
+      {
+        found = 0;
+        long b0 = allocated();
+        long t0 = System.nanoTime();
+        for (int i = 0; i < lines.length; i++)
+          {
+            m.reset(lines[i]);
+            while (m.find())
+              found += m.end() - m.start();
+          }
+        long t1 = System.nanoTime();
+        long b1 = allocated();
+        bestTime = Math.min(bestTime, t1 - t0);
+        bestBytes = Math.min(bestBytes, b1 - b0);
+      }
+
+    StringBuffer line = new StringBuffer("  ");
+    line.append(regex);
+    while (line.length() < 20)
+      line.append(' ');
+    String ns = Long.toString(bestTime / lines.length);
+    for (int k = ns.length(); k < 8; k++)
+      line.append(' ');
+    line.append(ns);
+    String bytes = Long.toString(Math.max(bestBytes, 0) / lines.length);
+    for (int k = bytes.length(); k < 8; k++)
+      line.append(' ');
+    line.append(bytes);
+    System.out.println(line + (found == 0 ? " ?" : ""));
+  }
+
+  /**
+   * Returns the number of bytes allocated by this thread so far, or the
+   * size of the used heap if that cannot be found out.
+   */
+  private static long allocated()
+  {
+    if (allocatedBytes != null)
+      {
+        try
+          {
+            Object[] id = { new Long(Thread.currentThread().getId()) };
+            return ((Long) allocatedBytes.invoke(threads, id)).longValue();
+          }
+        catch (Exception e)
+          {
+            allocatedBytes = null;
+          }
+      }
+    Runtime runtime = Runtime.getRuntime();
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+}
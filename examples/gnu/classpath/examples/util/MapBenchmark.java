@@ -0,0 +1,156 @@
+/* MapBenchmark.java -- Compares the speed of hash map implementations.
+   Copyright (C) 2026 Free Software Foundation, Inc.
+
+This file is part of GNU Classpath examples.
+
+GNU Classpath is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; either version 2, or (at your option)
+any later version.
+
+GNU Classpath is distributed in the hope that it will be useful, but
+WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with GNU Classpath; see the file COPYING.  If not, write to the
+Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+02110-1301 USA. */
+
+package gnu.classpath.examples.util;
+
+import gnu.java.util.OpenHashMap;
+
+import java.util.HashMap;
+import java.util.Hashtable;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Times insertion, successful and failed lookups, iteration and removal
+ * on {@link OpenHashMap}, {@link HashMap}, {@link Hashtable} and
+ * {@link LinkedHashMap}, for Integer and String keys.  The keys are
+ * looked up and removed in a different order than they were inserted, so
+ * that a table which happens to keep consecutive keys next to each other
+ * is not favoured.  The optional argument is the number of mappings, one
+ * million by default.
+ */
+public class MapBenchmark
+{
+  private static final int ROUNDS = 10;
+
+  private static final String[] NAMES =
+    { "OpenHashMap", "HashMap", "Hashtable", "LinkedHashMap" };
+
+  public static void main(String[] args)
+  {
+    int n = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+
+    Random random = new Random(42);
+    Object[] ints = new Object[n];
+    Object[] missingInts = new Object[n];
+    Object[] strings = new Object[n];
+    Object[] missingStrings = new Object[n];
+    for (int i = 0; i < n; i++)
+      {
+        ints[i] = new Integer(random.nextInt() & ~1);
+        missingInts[i] = new Integer(random.nextInt() | 1);
+        strings[i] = "key" + i;
+        missingStrings[i] = "nokey" + i;
+      }
+
+    System.out.println(n + " mappings, nanoseconds per operation "
+                       + "(put, get, miss, iterate, remove)");
+    run("Integer", ints, shuffle(ints, random), missingInts);
+    run("String", strings, shuffle(strings, random), missingStrings);
+  }
+
+  private static Object[] shuffle(Object[] keys, Random random)
+  {
+    Object[] copy = (Object[]) keys.clone();
+    for (int i = copy.length - 1; i > 0; i--)
+      {
+        int j = random.nextInt(i + 1);
+        Object o = copy[i];
+        copy[i] = copy[j];
+        copy[j] = o;
+      }
+    return copy;
+  }
+
+  private static void run(String label, Object[] keys, Object[] probes,
+                          Object[] missing)
+  {
+    System.out.println(label + " keys:");
+    for (int m = 0; m < NAMES.length; m++)
+      {
+        long[] best = new long[5];
+        for (int j = 0; j < best.length; j++)
+          best[j] = Long.MAX_VALUE;
+        int check = 0;
+        for (int r = 0; r < ROUNDS; r++)
+          {
+            Map<Object, Object> map = create(m);
+            long t0 = System.nanoTime();
+            for (int i = 0; i < keys.length; i++)
+              map.put(keys[i], keys[i]);
+            long t1 = System.nanoTime();
+            for (int i = 0; i < probes.length; i++)
+              if (map.get(probes[i]) != null)
+                check++;
+            long t2 = System.nanoTime();
+            for (int i = 0; i < missing.length; i++)
+              if (map.get(missing[i]) != null)
+                check++;
+            long t3 = System.nanoTime();
+            Iterator<Map.Entry<Object, Object>> it
+              = map.entrySet().iterator();
+            while (it.hasNext())
+              if (it.next().getValue() != null)
+                check++;
+            long t4 = System.nanoTime();
+            for (int i = 0; i < probes.length; i++)
+              map.remove(probes[i]);
+            long t5 = System.nanoTime();
+            if (! map.isEmpty())
+              throw new IllegalStateException(NAMES[m] + " not empty");
+
+            best[0] = Math.min(best[0], t1 - t0);
+            best[1] = Math.min(best[1], t2 - t1);
+            best[2] = Math.min(best[2], t3 - t2);
+            best[3] = Math.min(best[3], t4 - t3);
+            best[4] = Math.min(best[4], t5 - t4);
+          }
+        StringBuffer line = new StringBuffer("  ");
+        line.append(NAMES[m]);
+        while (line.length() < 18)
+          line.append(' ');
+        for (int j = 0; j < best.length; j++)
+          {
+            String ns = Long.toString(best[j] / keys.length);
+            for (int k = ns.length(); k < 8; k++)
+              line.append(' ');
+            line.append(ns);
+          }
+        System.out.println(line + (check == 0 ? " ?" : ""));
+      }
+  }
+
+  private static Map<Object, Object> create(int which)
+  {
+    switch (which)
+      {
+      case 0:
+        return new OpenHashMap<Object, Object>();
+      case 1:
+        return new HashMap<Object, Object>();
+      case 2:
+        return new Hashtable<Object, Object>();
+      default:
+        return new LinkedHashMap<Object, Object>();
+      }
+  }
+}
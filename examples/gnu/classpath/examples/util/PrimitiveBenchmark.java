@@ -0,0 +1,126 @@
+/* PrimitiveBenchmark.java -- Compares boxed and primitive collections.
+   Copyright (C) 2026 Free Software Foundation, Inc.
+
+This file is part of GNU Classpath examples.
+
+GNU Classpath is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; either version 2, or (at your option)
+any later version.
+
+GNU Classpath is distributed in the hope that it will be useful, but
+WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with GNU Classpath; see the file COPYING.  If not, write to the
+Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+02110-1301 USA. */
+
+package gnu.classpath.examples.util;
+
+import gnu.java.util.primitive.IntArrayList;
+import gnu.java.util.primitive.IntLongHashMap;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Aggregates a stream of (id, amount) samples, as a metrics collector
+ * would, once into a <code>HashMap&lt;Integer, Long&gt;</code> plus an
+ * <code>ArrayList&lt;Integer&gt;</code> of the ids seen, and once into an
+ * {@link IntLongHashMap} plus an {@link IntArrayList}.  It prints the time
+ * per sample and the heap retained by each pair of collections.  The
+ * optional arguments are the number of samples, one million by default,
+ * and the number of distinct ids, 100000 by default.
+ */
+public class PrimitiveBenchmark
+{
+  private static final int ROUNDS = 5;
+
+  public static void main(String[] args)
+  {
+    int n = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+    int ids = args.length > 1 ? Integer.parseInt(args[1]) : 100000;
+
+    Random random = new Random(42);
+    int[] keys = new int[n];
+    long[] amounts = new long[n];
+    for (int i = 0; i < n; i++)
+      {
+        keys[i] = random.nextInt(ids) * 7919;
+        amounts[i] = random.nextInt(1000);
+      }
+
+    System.out.println(n + " samples, " + ids + " ids");
+    long boxedTime = Long.MAX_VALUE;
+    long primitiveTime = Long.MAX_VALUE;
+    long boxedHeap = 0;
+    long primitiveHeap = 0;
+    for (int r = 0; r < ROUNDS; r++)
+      {
+        long before = usedHeap();
+        long t0 = System.nanoTime();
+        Map<Integer, Long> totals = new HashMap<Integer, Long>();
+        List<Integer> seen = new ArrayList<Integer>();
+        for (int i = 0; i < n; i++)
+          {
+            Integer key = Integer.valueOf(keys[i]);
+            Long total = totals.get(key);
+            totals.put(key, Long.valueOf(total == null ? amounts[i]
+                                         : total.longValue() + amounts[i]));
+            seen.add(key);
+          }
+        long t1 = System.nanoTime();
+        boxedTime = Math.min(boxedTime, t1 - t0);
+        boxedHeap = usedHeap() - before;
+        check(totals.size() + seen.size(), totals.get(Integer.valueOf(0)));
+        totals = null;
+        seen = null;
+
+        before = usedHeap();
+        t0 = System.nanoTime();
+        IntLongHashMap ptotals = new IntLongHashMap();
+        IntArrayList pseen = new IntArrayList();
+        for (int i = 0; i < n; i++)
+          {
+            ptotals.addTo(keys[i], amounts[i]);
+            pseen.add(keys[i]);
+          }
+        t1 = System.nanoTime();
+        primitiveTime = Math.min(primitiveTime, t1 - t0);
+        primitiveHeap = usedHeap() - before;
+        check(ptotals.size() + pseen.size(), Long.valueOf(ptotals.get(0)));
+      }
+    System.out.println("  HashMap + ArrayList           "
+                       + boxedTime / n + " ns/sample, "
+                       + boxedHeap / 1024 + " KB");
+    System.out.println("  IntLongHashMap + IntArrayList "
+                       + primitiveTime / n + " ns/sample, "
+                       + primitiveHeap / 1024 + " KB");
+  }
+
+  /**
+   * Returns the heap in use after a few garbage collections.
+   */
+  private static long usedHeap()
+  {
+    Runtime runtime = Runtime.getRuntime();
+    for (int i = 0; i < 3; i++)
+      System.gc();
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+
+  /**
+   * Uses the results, so that the work cannot be optimized away.
+   */
+  private static void check(int size, Long total)
+  {
+    if (size == 0 && total != null)
+      System.out.println("?");
+  }
+}
@@ -0,0 +1,118 @@
+/* Benchmark.java -- Measures Deflater and Inflater throughput.
+   Copyright (C) 2026 Free Software Foundation, Inc.
+
+This file is part of GNU Classpath examples.
+
+GNU Classpath is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; either version 2, or (at your option)
+any later version.
+
+GNU Classpath is distributed in the hope that it will be useful, but
+WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with GNU Classpath; see the file COPYING.  If not, write to the
+Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+02110-1301 USA. */
+
+package gnu.classpath.examples.zip;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compresses and decompresses the files named on the command line and
+ * prints the throughput for each compression level.  Run it once as is
+ * and once with -Dgnu.java.util.zip.native=false to compare the zlib
+ * engine with the pure Java one.
+ */
+public class Benchmark
+{
+  private static final int ROUNDS = 10;
+
+  public static void main(String[] args)
+    throws IOException, DataFormatException
+  {
+    if (args.length == 0)
+      {
+        System.err.println("usage: Benchmark file...");
+        System.exit(1);
+      }
+
+    ByteArrayOutputStream corpus = new ByteArrayOutputStream();
+    byte[] buf = new byte[65536];
+    for (int i = 0; i < args.length; i++)
+      {
+        InputStream in = new FileInputStream(args[i]);
+        int n;
+        while ((n = in.read(buf)) > 0)
+          corpus.write(buf, 0, n);
+        in.close();
+      }
+    byte[] data = corpus.toByteArray();
+
+    int[] levels = { Deflater.BEST_SPEED, Deflater.DEFAULT_COMPRESSION,
+                     Deflater.BEST_COMPRESSION };
+    for (int i = 0; i < levels.length; i++)
+      {
+        byte[] compressed = deflate(data, levels[i]);
+        long start = System.nanoTime();
+        for (int r = 0; r < ROUNDS; r++)
+          deflate(data, levels[i]);
+        long deflateTime = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int r = 0; r < ROUNDS; r++)
+          inflate(compressed, data.length);
+        long inflateTime = System.nanoTime() - start;
+
+        System.out.println("level " + levels[i] + ": "
+                           + data.length + " -> " + compressed.length
+                           + " bytes, deflate "
+                           + rate(data.length, deflateTime)
+                           + " MB/s, inflate "
+                           + rate(data.length, inflateTime) + " MB/s");
+      }
+  }
+
+  private static long rate(int length, long nanos)
+  {
+    return (long) length * ROUNDS * 1000 / Math.max(nanos, 1);
+  }
+
+  private static byte[] deflate(byte[] data, int level)
+  {
+    Deflater def = new Deflater(level);
+    def.setInput(data);
+    def.finish();
+    ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 2);
+    byte[] buf = new byte[65536];
+    while (! def.finished())
+      out.write(buf, 0, def.deflate(buf));
+    def.end();
+    return out.toByteArray();
+  }
+
+  private static void inflate(byte[] data, int length)
+    throws DataFormatException
+  {
+    Inflater inf = new Inflater();
+    inf.setInput(data);
+    byte[] buf = new byte[65536];
+    int total = 0;
+    while (! inf.finished())
+      total += inf.inflate(buf);
+    inf.end();
+    if (total != length)
+      throw new DataFormatException("inflated " + total + " bytes, expected "
+                                    + length);
+  }
+}
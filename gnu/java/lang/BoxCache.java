@@ -0,0 +1,199 @@
+/* BoxCache.java -- Cache of boxed values above the required range
+   Copyright (C) 2026 Free Software Foundation, Inc.
+
+This file is part of GNU Classpath.
+
+GNU Classpath is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; either version 2, or (at your option)
+any later version.
+
+GNU Classpath is distributed in the hope that it will be useful, but
+WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with GNU Classpath; see the file COPYING.  If not, write to the
+Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+02110-1301 USA.
+
+Linking this library statically or dynamically with other modules is
+making a combined work based on this library.  Thus, the terms and
+conditions of the GNU General Public License cover the whole
+combination.
+
+As a special exception, the copyright holders of this library give you
+permission to link this library with independent modules to produce an
+executable, regardless of the license terms of these independent
+modules, and to copy and distribute the resulting executable under
+terms of your choice, provided that you also meet, for each linked
+independent module, the terms and conditions of the license of that
+module.  An independent module is a module which is not derived from
+or based on this library.  If you modify this library, you may extend
+this exception to your version of the library, but you are not
+obligated to do so.  If you do not wish to do so, delete this
+exception statement from your version. */
+
+package gnu.java.lang;
+
+import gnu.classpath.SystemProperties;
+
+/**
+ * Holds the boxed values that {@link Integer#valueOf(int)},
+ * {@link Long#valueOf(long)}, {@link Short#valueOf(short)} and
+ * {@link Character#valueOf(char)} return above the range they must
+ * cache.  The upper bound is read once, from the system property
+ * <code>gnu.java.lang.<i>Type</i>.cache.high</code>, for example
+ * <code>gnu.java.lang.Integer.cache.high=4095</code>.  Without it
+ * nothing is cached here.
+ * <p>
+ * The values are kept in chunks of 256 which are only allocated when one
+ * of their values is first used.  By default the owner fills the whole
+ * range when the cache is created; if
+ * <code>gnu.java.lang.<i>Type</i>.cache.lazy</code> is
+ * <code>true</code> it is filled as values are boxed instead, so that a
+ * large, sparsely used range costs only what is used.
+ * <p>
+ * Filling the cache takes no lock.  Two threads that box the same value
+ * at the same time may each create and store an object, and one of the
+ * stores may be lost; the boxes are immutable and their values are final
+ * fields, so either object is a correct result and only a little memory
+ * is wasted.
+ *
+ * @param <T> the box type
+ */
+public final class BoxCache<T>
+{
+  /**
+   * The number of values in a chunk is 1 &lt;&lt; CHUNK_BITS.
+   */
+  private static final int CHUNK_BITS = 8;
+
+  /**
+   * Masks the index of a value within its chunk.
+   */
+  private static final int CHUNK_MASK = (1 << CHUNK_BITS) - 1;
+
+  /**
+   * The largest number of values that may be cached here, so that the
+   * table of chunks stays small even when it is lazily filled.
+   */
+  private static final int MAX_SIZE = 1 << 24;
+
+  /**
+   * The first value held by this cache.
+   */
+  private final int low;
+
+  /**
+   * The last value held by this cache, or low - 1 if it is empty.
+   */
+  private final int high;
+
+  /**
+   * Whether the owner should fill the cache as values are boxed.
+   */
+  private final boolean lazy;
+
+  /**
+   * The chunks of boxes, indexed by (value - low) &gt;&gt;&gt; CHUNK_BITS.
+   */
+  private final Object[][] chunks;
+
+  /**
+   * Creates a cache for values from <code>low</code> to the bound given
+   * by the system property of <code>type</code>, but not above
+   * <code>limit</code>.  A missing, malformed or too small bound leaves
+   * the cache empty.
+   *
+   * @param type the simple name of the box class, such as "Integer"
+   * @param low the first value to cache
+   * @param limit the largest value the box type can hold
+   */
+  public BoxCache(String type, int low, int limit)
+  {
+    this.low = low;
+    int high = low - 1;
+    String prop = "gnu.java.lang." + type + ".cache.";
+    String value = SystemProperties.getProperty(prop + "high");
+    if (value != null)
+      {
+        try
+          {
+            high = Integer.parseInt(value.trim());
+          }
+        catch (NumberFormatException e)
+          {
+            // Ignore it and cache nothing.
+          }
+        if (high < low - 1)
+          high = low - 1;
+        if (high > limit)
+          high = limit;
+        if (high - low >= MAX_SIZE)
+          high = low + MAX_SIZE - 1;
+      }
+    this.high = high;
+    lazy = "true".equals(SystemProperties.getProperty(prop + "lazy"));
+    chunks = new Object[((high - low) >> CHUNK_BITS) + 1][];
+  }
+
+  /**
+   * Returns the last value held by this cache.  It is one less than
+   * the first value if the cache is empty.
+   *
+   * @return the upper bound of the cache
+   */
+  public int getHigh()
+  {
+    return high;
+  }
+
+  /**
+   * Returns true if the owner should box values as they are asked for
+   * rather than filling the whole range up front.
+   *
+   * @return true if the cache is filled lazily
+   */
+  public boolean isLazy()
+  {
+    return lazy;
+  }
+
+  /**
+   * Returns the box stored for a value, or null if there is none yet.
+   *
+   * @param value a value from the first value up to {@link #getHigh()}
+   * @return the cached box, or null
+   */
+  @SuppressWarnings("unchecked")
+  public T get(int value)
+  {
+    int index = value - low;
+    Object[] chunk = chunks[index >>> CHUNK_BITS];
+    if (chunk == null)
+      return null;
+    return (T) chunk[index & CHUNK_MASK];
+  }
+
+  /**
+   * Stores the box for a value.
+   *
+   * @param value a value from the first value up to {@link #getHigh()}
+   * @param box the box holding <code>value</code>
+   * @return <code>box</code>
+   */
+  public T put(int value, T box)
+  {
+    int index = value - low;
+    Object[] chunk = chunks[index >>> CHUNK_BITS];
+    if (chunk == null)
+      {
+        chunk = new Object[CHUNK_MASK + 1];
+        chunks[index >>> CHUNK_BITS] = chunk;
+      }
+    chunk[index & CHUNK_MASK] = box;
+    return box;
+  }
+}
@@ -0,0 +1,408 @@
+/* InternTable.java -- Concurrent table of weakly held canonical strings
+   Copyright (C) 2026 Free Software Foundation, Inc.
+
+This file is part of GNU Classpath.
+
+GNU Classpath is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; either version 2, or (at your option)
+any later version.
+
+GNU Classpath is distributed in the hope that it will be useful, but
+WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with GNU Classpath; see the file COPYING.  If not, write to the
+Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+02110-1301 USA.
+
+Linking this library statically or dynamically with other modules is
+making a combined work based on this library.  Thus, the terms and
+conditions of the GNU General Public License cover the whole
+combination.
+
+As a special exception, the copyright holders of this library give you
+permission to link this library with independent modules to produce an
+executable, regardless of the license terms of these independent
+modules, and to copy and distribute the resulting executable under
+terms of your choice, provided that you also meet, for each linked
+independent module, the terms and conditions of the license of that
+module.  An independent module is a module which is not derived from
+or based on this library.  If you modify this library, you may extend
+this exception to your version of the library, but you are not
+obligated to do so.  If you do not wish to do so, delete this
+exception statement from your version. */
+package gnu.java.lang;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+
+/**
+ * A thread-safe table of canonical strings, as used by
+ * {@link String#intern()}.  The strings are held through weak references,
+ * so that a string which is only referenced by the table can be garbage
+ * collected.
+ * <p>
+ * The table is split into stripes, each of which is a small hash table
+ * with its own lock.  Looking up a string which is already in the table
+ * takes no lock at all; only adding a string locks the one stripe it
+ * belongs to.  Entries whose strings have been collected are removed the
+ * next time something is added to their stripe.
+ * <p>
+ * The table can count lookups and hits, see {@link #setCounting(boolean)}.
+ * Counting is off by default, so that a lookup writes no shared memory.
+ * The counters are kept per stripe and are not synchronized, so they may
+ * miss a few counts when many threads intern strings at once.
+ */
+public final class InternTable
+{
+
+  /**
+   * The greatest number of stripes.
+   */
+  private static final int MAX_STRIPES = 1 << 12;
+
+  /**
+   * The number of stripes of a table created without a concurrency
+   * level.
+   */
+  private static final int DEFAULT_STRIPES = 64;
+
+  /**
+   * The initial number of buckets in each stripe, a power of two.
+   */
+  private static final int INITIAL_CAPACITY = 16;
+
+  /**
+   * The table behind <code>String.intern()</code>, created on first use.
+   */
+  private static InternTable strings;
+
+  /**
+   * The stripes; their number is a power of two.
+   */
+  private final Stripe[] stripes;
+
+  /**
+   * The number of stripes minus one.
+   */
+  private final int stripeMask;
+
+  /**
+   * Whether lookups and hits are counted.
+   */
+  private volatile boolean counting;
+
+  /**
+   * Creates a table with a fixed number of stripes.  This does not ask
+   * the Runtime for the number of processors, as the table behind
+   * <code>String.intern()</code> may be needed while the Runtime is
+   * still being initialized.
+   */
+  public InternTable()
+  {
+    this(DEFAULT_STRIPES);
+  }
+
+  /**
+   * Creates a table with about as many stripes as threads are expected
+   * to add strings at the same time.
+   *
+   * @param concurrencyLevel the expected number of concurrent writers
+   * @throws IllegalArgumentException if concurrencyLevel is not positive
+   */
+  public InternTable(int concurrencyLevel)
+  {
+    if (concurrencyLevel <= 0)
+      throw new IllegalArgumentException("concurrencyLevel: "
+                                         + concurrencyLevel);
+    int n = 1;
+    while (n < concurrencyLevel && n < MAX_STRIPES)
+      n <<= 1;
+    stripes = new Stripe[n];
+    for (int i = 0; i < n; i++)
+      stripes[i] = new Stripe();
+    stripeMask = n - 1;
+  }
+
+  /**
+   * Returns the table which the reference implementation of
+   * <code>String.intern()</code> uses.  A virtual machine with its own
+   * way of interning strings may leave this table empty.
+   *
+   * @return the table of interned strings
+   */
+  public static synchronized InternTable getStringTable()
+  {
+    if (strings == null)
+      strings = new InternTable();
+    return strings;
+  }
+
+  /**
+   * Returns the string in the table which is equal to the given one.  If
+   * there is none, the given string is added and returned.
+   *
+   * @param str the string to look up
+   * @return the canonical string equal to str
+   * @throws NullPointerException if str is null
+   */
+  public String intern(String str)
+  {
+    int hash = str.hashCode();
+    Stripe stripe = stripes[((hash * 0x9e3779b9) >>> 16) & stripeMask];
+    boolean counted = counting;
+    if (counted)
+      stripe.lookups++;
+    Entry[] table = stripe.table;
+    for (Entry e = table[hash & (table.length - 1)]; e != null; e = e.next)
+      {
+        if (e.hash == hash)
+          {
+            String s = e.get();
+            if (s != null && s.equals(str))
+              {
+                if (counted)
+                  stripe.hits++;
+                return s;
+              }
+          }
+      }
+    return stripe.add(str, hash, counted);
+  }
+
+  /**
+   * Returns the number of strings in the table.  Strings which have been
+   * garbage collected may still be counted.
+   *
+   * @return the number of strings
+   */
+  public int size()
+  {
+    int size = 0;
+    for (int i = 0; i < stripes.length; i++)
+      synchronized (stripes[i])
+        {
+          size += stripes[i].count;
+        }
+    return size;
+  }
+
+  /**
+   * Returns the number of stripes the table is split into.
+   *
+   * @return the number of stripes
+   */
+  public int getStripeCount()
+  {
+    return stripes.length;
+  }
+
+  /**
+   * Turns the counting of lookups and hits on or off.  The counts made
+   * so far are kept.
+   *
+   * @param on true to count lookups and hits
+   */
+  public void setCounting(boolean on)
+  {
+    counting = on;
+  }
+
+  /**
+   * Tells whether lookups and hits are counted.
+   *
+   * @return true if counting is on
+   */
+  public boolean isCounting()
+  {
+    return counting;
+  }
+
+  /**
+   * Returns how many times {@link #intern(String)} has been called
+   * while counting was on.
+   *
+   * @return the number of lookups
+   */
+  public long getLookupCount()
+  {
+    long n = 0;
+    for (int i = 0; i < stripes.length; i++)
+      n += stripes[i].lookups;
+    return n;
+  }
+
+  /**
+   * Returns how many times {@link #intern(String)} found the string
+   * already in the table while counting was on.
+   *
+   * @return the number of hits
+   */
+  public long getHitCount()
+  {
+    long n = 0;
+    for (int i = 0; i < stripes.length; i++)
+      n += stripes[i].hits;
+    return n;
+  }
+
+  /**
+   * Returns the share of lookups which found the string in the table.
+   *
+   * @return the hit rate between 0 and 1, or 0 if nothing was looked up
+   */
+  public double getHitRate()
+  {
+    long lookups = getLookupCount();
+    return lookups == 0 ? 0 : (double) getHitCount() / lookups;
+  }
+
+  /**
+   * An entry of a hash chain.  The chains are never changed once they are
+   * reachable from a stripe's table, except that new entries are put in
+   * front; removing an entry copies the entries before it.  That way a
+   * reader needs no lock.
+   */
+  private static final class Entry
+    extends WeakReference<String>
+  {
+    final int hash;
+    final Entry next;
+
+    Entry(String str, int hash, Entry next, ReferenceQueue<String> queue)
+    {
+      super(str, queue);
+      this.hash = hash;
+      this.next = next;
+    }
+  }
+
+  /**
+   * One part of the table.  Changes are made while holding the lock of
+   * the stripe and are published by writing {@link #table} again, which
+   * is volatile.
+   */
+  private static final class Stripe
+  {
+    volatile Entry[] table = new Entry[INITIAL_CAPACITY];
+
+    /**
+     * The number of entries in the chains.
+     */
+    int count;
+
+    /**
+     * Receives the entries whose strings have been collected.
+     */
+    final ReferenceQueue<String> queue = new ReferenceQueue<String>();
+
+    long lookups;
+
+    long hits;
+
+    /**
+     * Adds a string which was not found without locking, unless another
+     * thread added an equal string in the meantime.
+     */
+    synchronized String add(String str, int hash, boolean counted)
+    {
+      expungeStaleEntries();
+      Entry[] tab = table;
+      int index = hash & (tab.length - 1);
+      Entry first = tab[index];
+      for (Entry e = first; e != null; e = e.next)
+        {
+          if (e.hash == hash)
+            {
+              String s = e.get();
+              if (s != null && s.equals(str))
+                {
+                  if (counted)
+                    hits++;
+                  return s;
+                }
+            }
+        }
+      tab[index] = new Entry(str, hash, first, queue);
+      if (++count > tab.length - (tab.length >> 2))
+        tab = rehash(tab);
+      table = tab;
+      return str;
+    }
+
+    /**
+     * Removes the entries whose strings have been collected.
+     */
+    private void expungeStaleEntries()
+    {
+      Entry[] tab = table;
+      boolean changed = false;
+      Object ref;
+      while ((ref = queue.poll()) != null)
+        {
+          Entry stale = (Entry) ref;
+          int index = stale.hash & (tab.length - 1);
+          Entry first = tab[index];
+          for (Entry e = first; e != null; e = e.next)
+            {
+              if (e == stale)
+                {
+                  tab[index] = unlink(first, stale);
+                  changed = true;
+                  break;
+                }
+            }
+        }
+      if (changed)
+        table = tab;
+    }
+
+    /**
+     * Returns a chain without the given entry, copying the entries in
+     * front of it.  Entries whose strings have been collected are dropped
+     * while copying.
+     */
+    private Entry unlink(Entry first, Entry stale)
+    {
+      Entry head = stale.next;
+      count--;
+      for (Entry e = first; e != stale; e = e.next)
+        {
+          String s = e.get();
+          if (s != null)
+            head = new Entry(s, e.hash, head, queue);
+          else
+            count--;
+        }
+      return head;
+    }
+
+    /**
+     * Moves the entries into a table twice as big, dropping the ones
+     * whose strings have been collected.
+     */
+    private Entry[] rehash(Entry[] old)
+    {
+      Entry[] tab = new Entry[old.length << 1];
+      int mask = tab.length - 1;
+      int n = 0;
+      for (int i = 0; i < old.length; i++)
+        for (Entry e = old[i]; e != null; e = e.next)
+          {
+            String s = e.get();
+            if (s != null)
+              {
+                int index = e.hash & mask;
+                tab[index] = new Entry(s, e.hash, tab[index], queue);
+                n++;
+              }
+          }
+      count = n;
+      return tab;
+    }
+  }
+
+}
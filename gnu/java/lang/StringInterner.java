@@ -0,0 +1,242 @@
+/* StringInterner.java -- Bounded cache for sharing equal strings
+   Copyright (C) 2026 Free Software Foundation, Inc.
+
+This file is part of GNU Classpath.
+
+GNU Classpath is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; either version 2, or (at your option)
+any later version.
+
+GNU Classpath is distributed in the hope that it will be useful, but
+WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with GNU Classpath; see the file COPYING.  If not, write to the
+Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+02110-1301 USA.
+
+Linking this library statically or dynamically with other modules is
+making a combined work based on this library.  Thus, the terms and
+conditions of the GNU General Public License cover the whole
+combination.
+
+As a special exception, the copyright holders of this library give you
+permission to link this library with independent modules to produce an
+executable, regardless of the license terms of these independent
+modules, and to copy and distribute the resulting executable under
+terms of your choice, provided that you also meet, for each linked
+independent module, the terms and conditions of the license of that
+module.  An independent module is a module which is not derived from
+or based on this library.  If you modify this library, you may extend
+this exception to your version of the library, but you are not
+obligated to do so.  If you do not wish to do so, delete this
+exception statement from your version. */
+package gnu.java.lang;
+
+/**
+ * A bounded cache which lets equal strings share one instance, for
+ * example the element names read by a parser.  Unlike
+ * {@link String#intern()} it does not promise that equal strings become
+ * identical: it holds at most a fixed number of strings and forgets the
+ * least recently used of two strings which compete for the same place.
+ * It never grows and it takes no lock, so it is cheap enough to be
+ * consulted for every name read.
+ * <p>
+ * An instance may be shared between threads.  Threads which intern at
+ * the same time may overwrite each other's entries or counts, but an
+ * intern method always returns a string equal to its argument.
+ */
+public final class StringInterner
+{
+
+  /**
+   * The greatest number of strings held.
+   */
+  private static final int MAX_CAPACITY = 1 << 30;
+
+  /**
+   * The strings, in sets of two.  The first of a set is the one used
+   * last.
+   */
+  private final String[] slots;
+
+  /**
+   * The number of sets minus one.
+   */
+  private final int setMask;
+
+  private long lookups;
+
+  private long hits;
+
+  /**
+   * Creates an interner which holds at least the given number of
+   * strings.  The size is rounded up to a power of two.
+   *
+   * @param maxSize the number of strings to hold
+   * @throws IllegalArgumentException if maxSize is not positive
+   */
+  public StringInterner(int maxSize)
+  {
+    if (maxSize <= 0)
+      throw new IllegalArgumentException("maxSize: " + maxSize);
+    int n = 2;
+    while (n < maxSize && n < MAX_CAPACITY)
+      n <<= 1;
+    slots = new String[n];
+    setMask = (n >> 1) - 1;
+  }
+
+  /**
+   * Returns a string equal to the given one, which is the same instance
+   * as the one returned by earlier calls if it is still held.
+   *
+   * @param str the string
+   * @return a string equal to str
+   * @throws NullPointerException if str is null
+   */
+  public String intern(String str)
+  {
+    int hash = str.hashCode();
+    int i = indexFor(hash);
+    String[] s = slots;
+    lookups++;
+    String first = s[i];
+    if (first != null && first.hashCode() == hash && first.equals(str))
+      {
+        hits++;
+        return first;
+      }
+    String second = s[i + 1];
+    if (second != null && second.hashCode() == hash && second.equals(str))
+      {
+        hits++;
+        s[i + 1] = first;
+        s[i] = second;
+        return second;
+      }
+    s[i + 1] = first;
+    s[i] = str;
+    return str;
+  }
+
+  /**
+   * Returns a string with the given characters.  No string is created if
+   * an equal one is held.
+   *
+   * @param chars the characters
+   * @param offset the index of the first character
+   * @param count the number of characters
+   * @return a string with the characters
+   * @throws NullPointerException if chars is null
+   * @throws IndexOutOfBoundsException if offset or count are out of range
+   */
+  public String intern(char[] chars, int offset, int count)
+  {
+    if (offset < 0 || count < 0 || offset > chars.length - count)
+      throw new IndexOutOfBoundsException("offset: " + offset
+                                          + ", count: " + count);
+    int hash = 0;
+    for (int j = offset, end = offset + count; j < end; j++)
+      hash = 31 * hash + chars[j];
+    int i = indexFor(hash);
+    String[] s = slots;
+    lookups++;
+    String first = s[i];
+    if (first != null && matches(first, hash, chars, offset, count))
+      {
+        hits++;
+        return first;
+      }
+    String second = s[i + 1];
+    if (second != null && matches(second, hash, chars, offset, count))
+      {
+        hits++;
+        s[i + 1] = first;
+        s[i] = second;
+        return second;
+      }
+    String str = new String(chars, offset, count);
+    s[i + 1] = first;
+    s[i] = str;
+    return str;
+  }
+
+  /**
+   * Forgets all strings.  The counters are kept.
+   */
+  public void clear()
+  {
+    String[] s = slots;
+    for (int i = 0; i < s.length; i++)
+      s[i] = null;
+  }
+
+  /**
+   * Returns the greatest number of strings this interner holds.
+   *
+   * @return the capacity
+   */
+  public int getCapacity()
+  {
+    return slots.length;
+  }
+
+  /**
+   * Returns how many times a string has been looked up.
+   *
+   * @return the number of lookups
+   */
+  public long getLookupCount()
+  {
+    return lookups;
+  }
+
+  /**
+   * Returns how many lookups returned a string which was already held.
+   *
+   * @return the number of hits
+   */
+  public long getHitCount()
+  {
+    return hits;
+  }
+
+  /**
+   * Returns the share of lookups which returned a string already held.
+   *
+   * @return the hit rate between 0 and 1, or 0 if nothing was looked up
+   */
+  public double getHitRate()
+  {
+    long n = lookups;
+    return n == 0 ? 0 : (double) hits / n;
+  }
+
+  /**
+   * Returns the index of the first slot of the set for a hash code.
+   */
+  private int indexFor(int hash)
+  {
+    int h = hash * 0x9e3779b9;
+    return ((h ^ (h >>> 16)) & setMask) << 1;
+  }
+
+  /**
+   * Checks whether a string has the given hash code and characters.
+   */
+  private static boolean matches(String str, int hash, char[] chars,
+                                 int offset, int count)
+  {
+    if (str.hashCode() != hash || str.length() != count)
+      return false;
+    for (int i = 0; i < count; i++)
+      if (str.charAt(i) != chars[offset + i])
+        return false;
+    return true;
+  }
+
+}
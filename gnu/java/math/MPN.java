@@ -131,19 +131,63 @@ public class MPN
     return (int) carry;
   }
 
+  /** Below this many words in the shorter operand, mul uses the
+   * schoolbook method. */
+  private static final int KARATSUBA_THRESHOLD = 48;
+
+  /** From this many words in the shorter operand, mul uses Toom-3
+   * instead of Karatsuba. */
+  private static final int TOOM3_THRESHOLD = 160;
+
+  /** From this many words in the shorter operand, mul uses a number
+   * theoretic transform. */
+  private static final int FFT_THRESHOLD = 6000;
+
   /**
    * Multiply x[0:xlen-1] and y[0:ylen-1], and
    * write the result to dest[0:xlen+ylen-1].
    * The destination has to have space for xlen+ylen words,
    * even if the result might be one limb smaller.
-   * This function requires that xlen >= ylen.
    * The destination must be distinct from either input operands.
    * All operands are unsigned.
+   * Depending on the size of the shorter operand this uses the
+   * schoolbook method, Karatsuba, Toom-3 or a number theoretic
+   * transform; x and y may be the same array, which is faster for
+   * the larger methods.
    * This function is basically the same gmp's mpn_mul. */
 
   public static void mul (int[] dest,
                           int[] x, int xlen,
                           int[] y, int ylen)
+  {
+    if (xlen < ylen)
+      {
+        int[] t = x;  x = y;  y = t;
+        int tlen = xlen;  xlen = ylen;  ylen = tlen;
+      }
+    if (ylen < KARATSUBA_THRESHOLD)
+      {
+        if (x == y && xlen == ylen)
+          sqr (dest, x, xlen);
+        else
+          mul_basecase (dest, x, xlen, y, ylen);
+      }
+    else if (ylen <= (xlen + 1) >> 1)
+      mul_unbalanced (dest, x, xlen, y, ylen);
+    else if (ylen >= FFT_THRESHOLD && xlen + ylen <= FFT_MAX_SIZE)
+      mul_fft (dest, x, xlen, y, ylen);
+    else if (ylen >= TOOM3_THRESHOLD && ylen > 2 * ((xlen + 2) / 3))
+      mul_toom3 (dest, x, xlen, y, ylen);
+    else
+      mul_karatsuba (dest, x, xlen, y, ylen);
+  }
+
+  /** The schoolbook multiplication behind mul.
+   * Requires ylen &gt;= 1. */
+
+  private static void mul_basecase (int[] dest,
+                                    int[] x, int xlen,
+                                    int[] y, int ylen)
   {
     dest[xlen] = MPN.mul_1 (dest, x, xlen, y[0]);
 
@@ -162,6 +206,625 @@ public class MPN
       }
   }
 
+  /** Multiply x[0:xlen-1] by a y[0:ylen-1] of about half its length or
+   * less, as xlen/ylen balanced products of y with pieces of x.
+   * This is what gmp's mpn_mul does for such operands. */
+
+  private static void mul_unbalanced (int[] dest,
+                                      int[] x, int xlen,
+                                      int[] y, int ylen)
+  {
+    int[] piece = new int[ylen];
+    int[] prod = new int[2 * ylen];
+    for (int i = xlen + ylen;  --i >= 0; )
+      dest[i] = 0;
+    for (int off = 0;  off < xlen;  off += ylen)
+      {
+        int len = Math.min (ylen, xlen - off);
+        System.arraycopy (x, off, piece, 0, len);
+        mul (prod, piece, len, y, ylen);
+        add_at (dest, off, xlen + ylen, prod, len + ylen);
+      }
+  }
+
+  /** Karatsuba multiplication: with x = x1*B + x0 and y = y1*B + y0,
+   * where B = 2**(32*k) and k is half of xlen, the product is
+   * x1*y1*B*B + (x1*y1 + x0*y0 - (x0-x1)*(y0-y1))*B + x0*y0,
+   * which takes three half size multiplications instead of four.
+   * Requires xlen &gt;= ylen &gt; (xlen+1)/2. */
+
+  private static void mul_karatsuba (int[] dest,
+                                     int[] x, int xlen,
+                                     int[] y, int ylen)
+  {
+    int k = (xlen + 1) >> 1;
+    int x1len = xlen - k;
+    int y1len = ylen - k;
+    boolean square = x == y && xlen == ylen;
+
+    // The high halves, padded to k words.
+    int[] x1 = new int[k];
+    System.arraycopy (x, k, x1, 0, x1len);
+    int[] y1 = x1;
+    if (! square)
+      {
+        y1 = new int[k];
+        System.arraycopy (y, k, y1, 0, y1len);
+      }
+
+    // dx = |x0 - x1| and dy = |y0 - y1|.
+    int[] dx = new int[k];
+    boolean xneg = sub_abs (dx, x, x1, k);
+    int[] dy = dx;
+    boolean yneg = xneg;
+    if (! square)
+      {
+        dy = new int[k];
+        yneg = sub_abs (dy, y, y1, k);
+      }
+
+    int n = xlen + ylen;
+    mul (dest, x, k, square ? x : y, k);
+    int[] high = new int[x1len + y1len];
+    mul (high, x1, x1len, y1, y1len);
+    System.arraycopy (high, 0, dest, 2 * k, x1len + y1len);
+    int[] diff = new int[2 * k];
+    mul (diff, dx, k, dy, k);
+
+    // middle = x0*y0 + x1*y1 - (x0-x1)*(y0-y1), which is not negative.
+    int[] middle = new int[2 * k + 1];
+    System.arraycopy (dest, 0, middle, 0, 2 * k);
+    add_at (middle, 0, 2 * k + 1, high, x1len + y1len);
+    if (xneg == yneg)
+      sub_at (middle, 0, 2 * k + 1, diff, 2 * k);
+    else
+      add_at (middle, 0, 2 * k + 1, diff, 2 * k);
+    add_at (dest, k, n, middle, Math.min (2 * k + 1, n - k));
+  }
+
+  /** Toom-3 multiplication: x and y are split into three parts of k
+   * words, seen as polynomials of degree 2 in B = 2**(32*k), and their
+   * product of degree 4 is interpolated from its values at 0, 1, -1,
+   * -2 and infinity.  That takes five multiplications of a third of
+   * the size.  The evaluation and interpolation sequence is the one of
+   * Bodrato and Zanoni, "Integer and Polynomial Multiplication: Towards
+   * Optimal Toom-Cook Matrices", ISSAC 2007.  The signed values are
+   * kept in two's complement with a fixed number of words.
+   * Requires xlen &gt;= ylen &gt; 2*k, where k = (xlen+2)/3. */
+
+  private static void mul_toom3 (int[] dest,
+                                 int[] x, int xlen,
+                                 int[] y, int ylen)
+  {
+    int k = (xlen + 2) / 3;
+    boolean square = x == y && xlen == ylen;
+
+    // Evaluate x at 1, -1 and -2; the values need k+1 words and a
+    // sign word.
+    int w = k + 2;
+    int[] xp1 = new int[w];
+    int[] xm1 = new int[w];
+    int[] xm2 = new int[w];
+    toom3_evaluate (x, xlen, k, xp1, xm1, xm2);
+    int[] yp1 = xp1;
+    int[] ym1 = xm1;
+    int[] ym2 = xm2;
+    if (! square)
+      {
+        yp1 = new int[w];
+        ym1 = new int[w];
+        ym2 = new int[w];
+        toom3_evaluate (y, ylen, k, yp1, ym1, ym2);
+      }
+
+    // The products, which are less than 25*2**(64*k) in absolute value.
+    int rw = 2 * k + 2;
+    int[] r0 = new int[rw];
+    mul (r0, x, k, square ? x : y, k);
+    int[] r4 = new int[rw];
+    int[] x2 = new int[xlen - 2 * k];
+    System.arraycopy (x, 2 * k, x2, 0, xlen - 2 * k);
+    int[] y2 = x2;
+    if (! square)
+      {
+        y2 = new int[ylen - 2 * k];
+        System.arraycopy (y, 2 * k, y2, 0, ylen - 2 * k);
+      }
+    mul (r4, x2, xlen - 2 * k, y2, ylen - 2 * k);
+    int[] r1 = toom3_mul (xp1, yp1, k, rw);
+    int[] r2 = toom3_mul (xm1, ym1, k, rw);
+    int[] r3 = toom3_mul (xm2, ym2, k, rw);
+
+    // Interpolate the coefficients r0..r4 of the product.
+    sub_n (r3, r3, r1, rw);
+    divexact_by3 (r3, rw);                  // r3 = (r(-2) - r(1))/3
+    sub_n (r1, r1, r2, rw);
+    shift_right_signed (r1, rw);            // r1 = (r(1) - r(-1))/2
+    sub_n (r2, r2, r0, rw);                 // r2 = r(-1) - r(0)
+    sub_n (r3, r2, r3, rw);
+    shift_right_signed (r3, rw);
+    add_n (r3, r3, r4, rw);
+    add_n (r3, r3, r4, rw);                 // r3 = (r2 - r3)/2 + 2*r(inf)
+    add_n (r2, r2, r1, rw);
+    sub_n (r2, r2, r4, rw);                 // r2 = r2 + r1 - r(inf)
+    sub_n (r1, r1, r3, rw);                 // r1 = r1 - r3
+
+    int n = xlen + ylen;
+    for (int i = n;  --i >= 0; )
+      dest[i] = 0;
+    int[][] r = { r0, r1, r2, r3, r4 };
+    for (int i = 0;  i < 5 && i * k < n;  i++)
+      add_at (dest, i * k, n, r[i], Math.min (rw, n - i * k));
+  }
+
+  /** Set p1, m1 and m2 to the values at 1, -1 and -2 of the polynomial
+   * x[2*k:xlen-1]*t**2 + x[k:2*k-1]*t + x[0:k-1], in two's complement
+   * with k+2 words. */
+
+  private static void toom3_evaluate (int[] x, int xlen, int k,
+                                      int[] p1, int[] m1, int[] m2)
+  {
+    int w = k + 2;
+    int[] x1 = new int[w];
+    System.arraycopy (x, k, x1, 0, k);
+    int[] x2 = new int[w];
+    System.arraycopy (x, 2 * k, x2, 0, xlen - 2 * k);
+    System.arraycopy (x, 0, p1, 0, k);
+    add_n (p1, p1, x2, w);                  // x0 + x2
+    sub_n (m1, p1, x1, w);                  // x0 - x1 + x2
+    add_n (p1, p1, x1, w);                  // x0 + x1 + x2
+    add_n (m2, m1, x2, w);
+    add_n (m2, m2, m2, w);
+    System.arraycopy (x, 0, x1, 0, k);
+    for (int i = k;  i < w;  i++)
+      x1[i] = 0;
+    sub_n (m2, m2, x1, w);                  // x0 - 2*x1 + 4*x2
+  }
+
+  /** Multiply two values in two's complement with k+2 words, of which
+   * the absolute values fit in k+1 words, and return the product in
+   * two's complement with rw words. */
+
+  private static int[] toom3_mul (int[] a, int[] b, int k, int rw)
+  {
+    int w = k + 2;
+    boolean aneg = a[w - 1] < 0;
+    boolean bneg = b[w - 1] < 0;
+    boolean square = a == b;
+    if (aneg)
+      a = negate_copy (a, w);
+    if (bneg)
+      b = square ? a : negate_copy (b, w);
+    int[] prod = new int[rw];
+    mul (prod, a, k + 1, b, k + 1);
+    if (aneg != bneg)
+      {
+        int[] zero = new int[rw];
+        sub_n (prod, zero, prod, rw);
+      }
+    return prod;
+  }
+
+  /** Return the negation of the two's complement value x[0:len-1]. */
+
+  private static int[] negate_copy (int[] x, int len)
+  {
+    int[] result = new int[len];
+    sub_n (result, result, x, len);
+    return result;
+  }
+
+  /** Shift the two's complement value x[0:len-1] one bit to the right,
+   * copying the sign bit. */
+
+  private static void shift_right_signed (int[] x, int len)
+  {
+    for (int i = 0;  i < len - 1;  i++)
+      x[i] = (x[i] >>> 1) | (x[i+1] << 31);
+    x[len-1] >>= 1;
+  }
+
+  /** Divide x[0:len-1] by 3, assuming the division is exact.  Works for
+   * unsigned and two's complement values, by multiplying each word by
+   * the inverse of 3 modulo 2**32.
+   * This is basically the same as gmp's mpn_divexact_by3. */
+
+  private static void divexact_by3 (int[] x, int len)
+  {
+    final int INVERSE_3 = 0xaaaaaaab;
+    long borrow = 0;
+    for (int i = 0;  i < len;  i++)
+      {
+        long s = ((long) x[i] & 0xffffffffL) - borrow;
+        int q = (int) s * INVERSE_3;
+        x[i] = q;
+        // 3*q == s modulo 2**32; the rest is borrowed from the next word.
+        borrow = (((long) q & 0xffffffffL) * 3 - s) >>> 32;
+      }
+  }
+
+  /** Set dest[0:len-1] to |x[0:len-1] - y[0:len-1]|.
+   * @return true if x &lt; y */
+
+  private static boolean sub_abs (int[] dest, int[] x, int[] y, int len)
+  {
+    if (cmp (x, y, len) >= 0)
+      {
+        sub_n (dest, x, y, len);
+        return false;
+      }
+    sub_n (dest, y, x, len);
+    return true;
+  }
+
+  /** Add x[0:xlen-1] to dest[off:dlen-1], carrying up to dlen.
+   * @return the carry out of dest[dlen-1] */
+
+  private static int add_at (int[] dest, int off, int dlen, int[] x, int xlen)
+  {
+    long carry = 0;
+    int i = 0;
+    for ( ;  i < xlen;  i++)
+      {
+        carry += ((long) dest[off+i] & 0xffffffffL)
+          + ((long) x[i] & 0xffffffffL);
+        dest[off+i] = (int) carry;
+        carry >>>= 32;
+      }
+    for (i += off;  carry != 0 && i < dlen;  i++)
+      {
+        carry += (long) dest[i] & 0xffffffffL;
+        dest[i] = (int) carry;
+        carry >>>= 32;
+      }
+    return (int) carry;
+  }
+
+  /** Subtract x[0:xlen-1] from dest[off:dlen-1], borrowing up to dlen.
+   * @return the borrow out of dest[dlen-1] */
+
+  private static int sub_at (int[] dest, int off, int dlen, int[] x, int xlen)
+  {
+    long borrow = 0;
+    int i = 0;
+    for ( ;  i < xlen;  i++)
+      {
+        borrow += ((long) dest[off+i] & 0xffffffffL)
+          - ((long) x[i] & 0xffffffffL);
+        dest[off+i] = (int) borrow;
+        borrow >>= 32;
+      }
+    for (i += off;  borrow != 0 && i < dlen;  i++)
+      {
+        borrow += (long) dest[i] & 0xffffffffL;
+        dest[i] = (int) borrow;
+        borrow >>= 32;
+      }
+    return (int) -borrow;
+  }
+
+  /* The primes for mul_fft.  Each is c*2**e+1 with 2**25 dividing
+   * p-1, so that there are roots of unity for transforms of up to
+   * 2**25 points, and the product of the three is about 2**92.6, more
+   * than the 2**88 a coefficient of the convolution of two operands of
+   * up to 2**24 words can reach. */
+  private static final int[] FFT_PRIMES = { 2013265921, 1811939329, 2113929217 };
+  private static final int[] FFT_GENERATORS = { 31, 13, 5 };
+
+  /** The largest xlen+ylen mul_fft can handle. */
+  private static final int FFT_MAX_SIZE = 1 << 25;
+
+  /** Multiply with number theoretic transforms: the words of x and y
+   * are convolved modulo three primes with the same transforms, and
+   * the Chinese remainder theorem gives the exact coefficients, which
+   * are then added up with carries.  This is O(n log n) multiplications
+   * of single words.
+   * Requires xlen + ylen &lt;= FFT_MAX_SIZE. */
+
+  private static void mul_fft (int[] dest,
+                               int[] x, int xlen,
+                               int[] y, int ylen)
+  {
+    boolean square = x == y && xlen == ylen;
+    int n = xlen + ylen;
+    int size = 1;
+    while (size < n - 1)
+      size <<= 1;
+
+    int[][] conv = new int[3][];
+    for (int i = 0;  i < 3;  i++)
+      {
+        int p = FFT_PRIMES[i];
+        long w = pow_mod (FFT_GENERATORS[i], (p - 1) / size, p);
+        int[] roots = fft_roots (w, size, p);
+        int[] a = fft_load (x, xlen, size, p);
+        fft_forward (a, size, roots, p);
+        int[] b = a;
+        if (! square)
+          {
+            b = fft_load (y, ylen, size, p);
+            fft_forward (b, size, roots, p);
+          }
+        long scale = pow_mod (size, p - 2, p);
+        for (int j = 0;  j < size;  j++)
+          a[j] = (int) ((long) a[j] * b[j] % p * scale % p);
+        fft_inverse (a, size, fft_roots (pow_mod (w, p - 2, p), size, p), p);
+        conv[i] = a;
+      }
+
+    // Combine the residues with Garner's method:
+    // c = a1 + a2*P1 + a3*P1*P2, and add c*2**(32*j) to the result.
+    long p1 = FFT_PRIMES[0];
+    long p2 = FFT_PRIMES[1];
+    long p3 = FFT_PRIMES[2];
+    long inv12 = pow_mod (p1 % p2, p2 - 2, p2);
+    long inv123 = pow_mod (p1 * p2 % p3, p3 - 2, p3);
+    long p12 = p1 * p2;
+    long p12lo = p12 & 0xffffffffL;
+    long p12hi = p12 >>> 32;
+    int[] c1 = conv[0];
+    int[] c2 = conv[1];
+    int[] c3 = conv[2];
+    long acc0 = 0;
+    long acc1 = 0;
+    long acc2 = 0;
+    for (int j = 0;  j < n;  j++)
+      {
+        if (j < n - 1)
+          {
+            long a1 = c1[j];
+            long a2 = (c2[j] - a1 % p2 + p2) % p2 * inv12 % p2;
+            long t = (c3[j] - a1 % p3 + p3) % p3;
+            t = (t - a2 * (p1 % p3) % p3 + p3) % p3;
+            long a3 = t * inv123 % p3;
+
+            // c = (a1 + a2*p1) + a3*p12lo + a3*p12hi*2**32
+            long low = a2 * p1 + a1;
+            long mid = a3 * p12lo;
+            long high = a3 * p12hi;
+            long sum = (low & 0xffffffffL) + (mid & 0xffffffffL);
+            acc0 += sum & 0xffffffffL;
+            sum = (sum >>> 32) + (low >>> 32) + (mid >>> 32)
+              + (high & 0xffffffffL);
+            acc1 += sum & 0xffffffffL;
+            acc2 += (sum >>> 32) + (high >>> 32);
+          }
+        dest[j] = (int) acc0;
+        acc0 = acc1 + (acc0 >>> 32);
+        acc1 = acc2;
+        acc2 = 0;
+      }
+  }
+
+  /** Return a copy of x[0:len-1] reduced modulo p, padded to size. */
+
+  private static int[] fft_load (int[] x, int len, int size, int p)
+  {
+    int[] a = new int[size];
+    for (int i = 0;  i < len;  i++)
+      a[i] = (int) (((long) x[i] & 0xffffffffL) % p);
+    return a;
+  }
+
+  /** Return w**0 .. w**(size/2-1) modulo p. */
+
+  private static int[] fft_roots (long w, int size, int p)
+  {
+    int[] roots = new int[Math.max (size >> 1, 1)];
+    long r = 1;
+    for (int i = 0;  i < roots.length;  i++)
+      {
+        roots[i] = (int) r;
+        r = r * w % p;
+      }
+    return roots;
+  }
+
+  /** Transform a[0:size-1] in place with decimation in frequency, which
+   * leaves the result in bit reversed order. */
+
+  private static void fft_forward (int[] a, int size, int[] roots, int p)
+  {
+    for (int len = size;  len >= 2;  len >>= 1)
+      {
+        int half = len >> 1;
+        int step = size / len;
+        for (int start = 0;  start < size;  start += len)
+          for (int j = 0;  j < half;  j++)
+            {
+              int u = a[start+j];
+              int v = a[start+j+half];
+              int sum = u + v - p;
+              int diff = u - v;
+              a[start+j] = sum < 0 ? sum + p : sum;
+              a[start+j+half] = (int) ((long) (diff < 0 ? diff + p : diff)
+                                       * roots[j * step] % p);
+            }
+      }
+  }
+
+  /** Undo fft_forward, without dividing by size, with decimation in time
+   * on bit reversed input.  roots holds the inverse roots of unity. */
+
+  private static void fft_inverse (int[] a, int size, int[] roots, int p)
+  {
+    for (int len = 2;  len <= size;  len <<= 1)
+      {
+        int half = len >> 1;
+        int step = size / len;
+        for (int start = 0;  start < size;  start += len)
+          for (int j = 0;  j < half;  j++)
+            {
+              int u = a[start+j];
+              int v = (int) ((long) a[start+j+half] * roots[j * step] % p);
+              int sum = u + v - p;
+              int diff = u - v;
+              a[start+j] = sum < 0 ? sum + p : sum;
+              a[start+j+half] = diff < 0 ? diff + p : diff;
+            }
+      }
+  }
+
+  /** Return b**e modulo p. */
+
+  private static long pow_mod (long b, long e, long p)
+  {
+    long result = 1;
+    b %= p;
+    while (e > 0)
+      {
+        if ((e & 1) != 0)
+          result = result * b % p;
+        b = b * b % p;
+        e >>= 1;
+      }
+    return result;
+  }
+
+  /** Square x[0:len-1] and write the result to dest[0:2*len-1].
+   * Each cross product x[i]*x[j] is only computed once, so this
+   * takes about half the multiplications of the schoolbook method.
+   * Large squares are left to mul.
+   * The destination must be distinct from x.
+   * All operands are unsigned.
+   * This function is basically the same as gmp's mpn_sqr. */
+
+  public static void sqr (int[] dest, int[] x, int len)
+  {
+    if (len >= KARATSUBA_THRESHOLD)
+      {
+        mul (dest, x, len, x, len);
+        return;
+      }
+
+    for (int i = 2 * len;  --i >= 0; )
+      dest[i] = 0;
+
+    // Sum the products x[i]*x[j] for i < j.
+    for (int i = 0;  i < len - 1;  i++)
+      {
+        long xword = (long) x[i] & 0xffffffffL;
+        long carry = 0;
+        for (int j = i + 1;  j < len;  j++)
+          {
+            carry += ((long) x[j] & 0xffffffffL) * xword
+              + ((long) dest[i+j] & 0xffffffffL);
+            dest[i+j] = (int) carry;
+            carry >>>= 32;
+          }
+        dest[i+len] = (int) carry;
+      }
+
+    // Double them; the sum is less than x*x/2, so no bit is lost.
+    int high = 0;
+    for (int i = 0;  i < 2 * len;  i++)
+      {
+        int word = dest[i];
+        dest[i] = (word << 1) | high;
+        high = word >>> 31;
+      }
+
+    // Add the squares x[i]*x[i].
+    long carry = 0;
+    for (int i = 0;  i < len;  i++)
+      {
+        long xword = (long) x[i] & 0xffffffffL;
+        long square = xword * xword;
+        carry += (square & 0xffffffffL) + ((long) dest[2*i] & 0xffffffffL);
+        dest[2*i] = (int) carry;
+        carry >>>= 32;
+        carry += (square >>> 32) + ((long) dest[2*i+1] & 0xffffffffL);
+        dest[2*i+1] = (int) carry;
+        carry >>>= 32;
+      }
+  }
+
+  /** Return the inverse of -x modulo 2**32, which is the constant
+   * that Montgomery reduction (see redc) needs for an odd modulus
+   * whose least significant word is x.
+   * Assumes x is odd. */
+
+  public static int mont_inverse (int x)
+  {
+    // x*x == 1 mod 8, so x is its own inverse modulo 2**3.  Each
+    // Newton step doubles the number of correct bits.
+    int inv = x;
+    inv *= 2 - x * inv;
+    inv *= 2 - x * inv;
+    inv *= 2 - x * inv;
+    inv *= 2 - x * inv;
+    return -inv;
+  }
+
+  /** Montgomery reduction: with R = 2**(32*len), set dest[0:len-1] to
+   * t[0:2*len-1] / R modulo m[0:len-1].
+   * Assumes m is odd, minv == mont_inverse (m[0]) and t < m*R.
+   * The result is less than m.  t is overwritten, and dest must be
+   * distinct from t and m.
+   * This is the REDC algorithm of Montgomery, "Modular Multiplication
+   * Without Trial Division", Math. Comp. 44 (1985). */
+
+  public static void redc (int[] dest, int[] t, int[] m, int len, int minv)
+  {
+    // The carry out of t[i+len] belongs in t[i+len+1], which is the
+    // word the next step adds its carry to; it is kept in high instead
+    // of being propagated.
+    int high = 0;
+    for (int i = 0;  i < len;  i++)
+      {
+        // Adding q*m*2**(32*i) clears t[i].
+        long q = (long) (t[i] * minv) & 0xffffffffL;
+        long carry = 0;
+        for (int j = 0;  j < len;  j++)
+          {
+            carry += ((long) m[j] & 0xffffffffL) * q
+              + ((long) t[i+j] & 0xffffffffL);
+            t[i+j] = (int) carry;
+            carry >>>= 32;
+          }
+        carry += ((long) t[i+len] & 0xffffffffL) + ((long) high & 0xffffffffL);
+        t[i+len] = (int) carry;
+        high = (int) (carry >>> 32);
+      }
+
+    // t[len:2*len-1] plus high * R is less than 2*m.
+    int i = len;
+    if (high == 0)
+      while (--i >= 0 && t[len+i] == m[i])
+        ;
+    if (high != 0 || i < 0
+        || (t[len+i] ^ 0x80000000) > (m[i] ^ 0x80000000))
+      {
+        long borrow = 0;
+        for (int j = 0;  j < len;  j++)
+          {
+            borrow += ((long) t[len+j] & 0xffffffffL)
+              - ((long) m[j] & 0xffffffffL);
+            dest[j] = (int) borrow;
+            borrow >>= 32;
+          }
+      }
+    else
+      System.arraycopy (t, len, dest, 0, len);
+  }
+
+  /** Montgomery multiplication: with R = 2**(32*len), set dest[0:len-1]
+   * to x[0:len-1] * y[0:len-1] / R modulo m[0:len-1], using
+   * t[0:2*len-1] as scratch space.
+   * Assumes x and y are less than m, m is odd and
+   * minv == mont_inverse (m[0]).
+   * dest may be the same array as x or y. */
+
+  public static void mont_mul (int[] dest, int[] x, int[] y, int[] m, int len,
+                               int minv, int[] t)
+  {
+    if (x == y)
+      sqr (t, x, len);
+    else
+      mul (t, x, len, y, len);
+    redc (dest, t, m, len, minv);
+  }
+
   /* Divide (unsigned long) N by (unsigned int) D.
    * Returns (remainder << 32)+(unsigned int)(quotient).
    * Assumes (unsigned int)(N>>32) < (unsigned int)D.
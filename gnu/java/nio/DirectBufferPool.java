@@ -0,0 +1,198 @@
+/* DirectBufferPool.java -- thread-local cache of direct byte buffers
+   Copyright (C) 2026 Free Software Foundation, Inc.
+
+This file is part of GNU Classpath.
+
+GNU Classpath is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; either version 2, or (at your option)
+any later version.
+
+GNU Classpath is distributed in the hope that it will be useful, but
+WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with GNU Classpath; see the file COPYING.  If not, write to the
+Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+02110-1301 USA.
+
+Linking this library statically or dynamically with other modules is
+making a combined work based on this library.  Thus, the terms and
+conditions of the GNU General Public License cover the whole
+combination.
+
+As a special exception, the copyright holders of this library give you
+permission to link this library with independent modules to produce an
+executable, regardless of the license terms of these independent
+modules, and to copy and distribute the resulting executable under
+terms of your choice, provided that you also meet, for each linked
+independent module, the terms and conditions of the license of that
+module.  An independent module is a module which is not derived from
+or based on this library.  If you modify this library, you may extend
+this exception to your version of the library, but you are not
+obligated to do so.  If you do not wish to do so, delete this
+exception statement from your version. */
+
+
+package gnu.java.nio;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A per-thread cache of direct byte buffers, in power-of-two size
+ * classes from {@link #MIN_SIZE} to {@link #MAX_CACHED_SIZE} bytes.
+ * The channel implementations use it for the native copies of heap
+ * buffers passed to read and write; applications may use it for their
+ * own temporary direct buffers.
+ *
+ * <p>A buffer obtained with {@link #acquire(int)} must not be used
+ * after it was handed back with {@link #release(ByteBuffer)}, and must
+ * not be released twice.  Buffers are only cached for the thread that
+ * releases them, so no locking is needed; each thread keeps at most
+ * {@link #BUFFERS_PER_CLASS} buffers of each size.</p>
+ *
+ * <p>Hit and miss counts are available from {@link #getHitCount()} and
+ * {@link #getMissCount()}, and through the platform MBean server as
+ * {@link DirectBufferPoolMXBean} <code>gnu.java.nio:type=DirectBufferPool</code>.</p>
+ */
+public final class DirectBufferPool
+{
+  /** The object name of the pool's management bean. */
+  public static final String MXBEAN_NAME = "gnu.java.nio:type=DirectBufferPool";
+
+  /** The capacity of the smallest size class. */
+  public static final int MIN_SIZE = 4096;
+
+  /** The capacity of the largest size class; larger buffers aren't cached. */
+  public static final int MAX_CACHED_SIZE = 256 * 1024;
+
+  /** The number of buffers of each size class kept per thread. */
+  public static final int BUFFERS_PER_CLASS = 2;
+
+  private static final int MIN_SHIFT = 12;
+  private static final int CLASSES = 7;
+
+  private static final ThreadLocal<ByteBuffer[][]> cache
+    = new ThreadLocal<ByteBuffer[][]>()
+    {
+      protected ByteBuffer[][] initialValue()
+      {
+        return new ByteBuffer[CLASSES][BUFFERS_PER_CLASS];
+      }
+    };
+
+  private static final AtomicLong hits = new AtomicLong();
+  private static final AtomicLong misses = new AtomicLong();
+
+  private DirectBufferPool()
+  {
+  }
+
+  /**
+   * Return a big-endian direct buffer with position zero and a limit
+   * of SIZE bytes; its capacity may be larger.  The buffer's contents
+   * are undefined.
+   *
+   * @param size The number of bytes needed.
+   * @return A direct buffer with at least SIZE bytes remaining.
+   * @throws IllegalArgumentException If SIZE is negative.
+   */
+  public static ByteBuffer acquire(int size)
+  {
+    if (size < 0)
+      throw new IllegalArgumentException("size: " + size);
+    int cls = sizeClass(size);
+    if (cls < 0)
+      {
+        misses.incrementAndGet();
+        return ByteBuffer.allocateDirect(size);
+      }
+    ByteBuffer[] slots = cache.get()[cls];
+    for (int i = 0; i < slots.length; i++)
+      {
+        ByteBuffer buf = slots[i];
+        if (buf != null)
+          {
+            slots[i] = null;
+            hits.incrementAndGet();
+            buf.clear();
+            buf.limit(size);
+            buf.order(ByteOrder.BIG_ENDIAN);
+            return buf;
+          }
+      }
+    misses.incrementAndGet();
+    ByteBuffer buf = ByteBuffer.allocateDirect(1 << (cls + MIN_SHIFT));
+    buf.limit(size);
+    return buf;
+  }
+
+  /**
+   * Hand a buffer obtained from {@link #acquire(int)} back to the cache
+   * of the current thread.  Buffers that don't fit a size class, or
+   * that find their size class full, are left to the garbage collector.
+   *
+   * @param buf The buffer to release, or null.
+   */
+  public static void release(ByteBuffer buf)
+  {
+    if (buf == null || !buf.isDirect() || buf.isReadOnly())
+      return;
+    int cap = buf.capacity();
+    if ((cap & (cap - 1)) != 0)
+      return;
+    int cls = sizeClass(cap);
+    if (cls < 0 || (1 << (cls + MIN_SHIFT)) != cap)
+      return;
+    ByteBuffer[] slots = cache.get()[cls];
+    for (int i = 0; i < slots.length; i++)
+      {
+        if (slots[i] == buf)
+          return;
+        if (slots[i] == null)
+          {
+            slots[i] = buf;
+            return;
+          }
+      }
+  }
+
+  /**
+   * Return the number of {@link #acquire(int)} calls that were served
+   * from a cache.
+   *
+   * @return The hit count.
+   */
+  public static long getHitCount()
+  {
+    return hits.get();
+  }
+
+  /**
+   * Return the number of {@link #acquire(int)} calls that allocated a
+   * new direct buffer.
+   *
+   * @return The miss count.
+   */
+  public static long getMissCount()
+  {
+    return misses.get();
+  }
+
+  /**
+   * Return the size class index for a request of SIZE bytes, or -1 if
+   * such buffers are not cached.
+   */
+  private static int sizeClass(int size)
+  {
+    if (size > MAX_CACHED_SIZE)
+      return -1;
+    if (size <= MIN_SIZE)
+      return 0;
+    return 32 - Integer.numberOfLeadingZeros(size - 1) - MIN_SHIFT;
+  }
+}
@@ -38,7 +38,6 @@ exception statement from your version. */
 
 package gnu.java.nio;
 
-import java.io.IOException;
 import java.nio.channels.CancelledKeyException;
 import java.nio.channels.SelectableChannel;
 import java.nio.channels.SelectionKey;
@@ -53,11 +52,17 @@ public class EpollSelectionKeyImpl extends AbstractSelectionKey
   final int fd;
   private final EpollSelectorImpl selector;
   private final SelectableChannel channel;
-  int interestOps;
+  volatile int interestOps;
   int selectedOps;
   int key;
-  boolean valid;
-  boolean cancelled;
+  volatile boolean valid;
+
+  /**
+   * The interest set the kernel knows about, or -1 if the descriptor
+   * has not been added to the epoll set yet.  Only used by the
+   * selecting thread.
+   */
+  int registeredOps;
 
   EpollSelectionKeyImpl(EpollSelectorImpl selector,
                         SelectableChannel channel, int fd)
@@ -88,19 +93,12 @@ public class EpollSelectionKeyImpl extends AbstractSelectionKey
    */
   public SelectionKey interestOps(int ops)
   {
-    if (cancelled)
+    if (!isValid())
       throw new CancelledKeyException();
     if ((ops & ~(channel.validOps())) != 0)
       throw new IllegalArgumentException("unsupported channel ops");
-    try
-      {
-        selector.epoll_modify(this, ops);
-        interestOps = ops;
-      }
-    catch (IOException ioe)
-      {
-        throw new IllegalArgumentException(ioe);
-      }
+    interestOps = ops;
+    selector.interestOpsChanged(this);
     return this;
   }
 
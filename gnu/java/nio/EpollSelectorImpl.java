@@ -39,25 +39,37 @@ exception statement from your version. */
 package gnu.java.nio;
 
 import gnu.classpath.Configuration;
+import gnu.classpath.SystemProperties;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
-import java.nio.channels.SelectableChannel;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.Selector;
 import java.nio.channels.spi.AbstractSelectableChannel;
 import java.nio.channels.spi.AbstractSelector;
 import java.nio.channels.spi.SelectorProvider;
-import java.util.Collections;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 /**
  * An implementation of {@link Selector} that uses the epoll event
  * notification mechanism on GNU/Linux.
  *
+ * <p>Registrations and interest set changes made by other threads are
+ * queued without taking any lock, and are handed to the kernel in one
+ * batch at the start of the next selection operation; as the {@link
+ * Selector} specification allows, they do not affect a selection that
+ * is already in progress.  Keys are found by native file descriptor
+ * through a plain array, so no boxing or hashing is done per event.</p>
+ *
+ * <p>Setting the system property
+ * <code>gnu.java.nio.epoll.edgeTriggered</code> to <code>true</code>
+ * registers descriptors in edge-triggered mode.  A channel is then only
+ * selected again once it has become ready anew, so callers must read
+ * or write until the operation would block.</p>
+ *
  * @author Casey Marshall (csm@gnu.org)
  */
 public class EpollSelectorImpl extends AbstractSelector
@@ -71,17 +83,40 @@ public class EpollSelectorImpl extends AbstractSelector
   private static final int OP_READ    = SelectionKey.OP_READ;
   private static final int OP_WRITE   = SelectionKey.OP_WRITE;
 
+  private static final String EDGE_TRIGGERED
+    = "gnu.java.nio.epoll.edgeTriggered";
+
+  /** Whether descriptors are registered with EPOLLET. */
+  private static final boolean edgeTriggered;
+
   /** our epoll file descriptor. */
   private int epoll_fd;
 
-  private final HashMap keys;
-  private Set selectedKeys;
+  /**
+   * The registered keys, indexed by native file descriptor.  Only the
+   * selecting thread changes this table, holding <code>keysLock</code>
+   * so that {@link #keys()} sees a consistent view.
+   */
+  private EpollSelectionKeyImpl[] fdTable;
+  private int keyCount;
+  private final Object keysLock = new Object();
+
+  /** Serializes selection operations. */
+  private final Object selectLock = new Object();
+
+  /**
+   * Keys that were registered, or whose interest set changed, since
+   * the last selection operation.
+   */
+  private final ConcurrentLinkedQueue<EpollSelectionKeyImpl> updates;
+
+  private final HashSet<SelectionKey> selectedKeys;
   private Thread waitingThread;
   private ByteBuffer events;
 
+  private static final int INITIAL_TABLE_SIZE = 64;
   private static final int INITIAL_CAPACITY;
-  private static final int MAX_DOUBLING_CAPACITY;
-  private static final int CAPACITY_INCREMENT;
+  private static final int MAX_CAPACITY;
 
   static
   {
@@ -94,8 +129,10 @@ public class EpollSelectorImpl extends AbstractSelector
       sizeof_struct_epoll_event = -1;
 
     INITIAL_CAPACITY = 64 * sizeof_struct_epoll_event;
-    MAX_DOUBLING_CAPACITY = 1024 * sizeof_struct_epoll_event;
-    CAPACITY_INCREMENT = 128 * sizeof_struct_epoll_event;
+    MAX_CAPACITY = 8192 * sizeof_struct_epoll_event;
+
+    edgeTriggered = "true".equalsIgnoreCase
+      (SystemProperties.getProperty(EDGE_TRIGGERED));
   }
 
   public EpollSelectorImpl(SelectorProvider provider)
@@ -103,17 +140,33 @@ public class EpollSelectorImpl extends AbstractSelector
   {
     super(provider);
     epoll_fd = epoll_create(DEFAULT_EPOLL_SIZE);
-    keys = new HashMap();
-    selectedKeys = null;
+    fdTable = new EpollSelectionKeyImpl[INITIAL_TABLE_SIZE];
+    updates = new ConcurrentLinkedQueue<EpollSelectionKeyImpl>();
+    selectedKeys = new HashSet<SelectionKey>();
     events = ByteBuffer.allocateDirect(INITIAL_CAPACITY);
   }
 
   /* (non-Javadoc)
    * @see java.nio.channels.Selector#keys()
    */
-  public Set keys()
+  public Set<SelectionKey> keys()
   {
-    return new HashSet(keys.values());
+    HashSet<SelectionKey> result = new HashSet<SelectionKey>();
+    synchronized (keysLock)
+      {
+        for (int i = 0; i < fdTable.length; i++)
+          if (fdTable[i] != null)
+            result.add(fdTable[i]);
+      }
+    // Include registrations the selecting thread hasn't seen yet.
+    for (Iterator<EpollSelectionKeyImpl> it = updates.iterator();
+         it.hasNext(); )
+      {
+        EpollSelectionKeyImpl key = it.next();
+        if (key.valid)
+          result.add(key);
+      }
+    return result;
   }
 
   /* (non-Javadoc)
@@ -138,44 +191,22 @@ public class EpollSelectorImpl extends AbstractSelector
 
   private int doSelect(int timeout) throws IOException
   {
-    synchronized (keys)
-    {
-      Set cancelledKeys = cancelledKeys();
-      synchronized (cancelledKeys)
+    synchronized (selectLock)
       {
-        for (Iterator it = cancelledKeys.iterator(); it.hasNext(); )
-          {
-            EpollSelectionKeyImpl key = (EpollSelectionKeyImpl) it.next();
-            epoll_delete(epoll_fd, key.fd);
-            key.valid = false;
-            keys.remove(Integer.valueOf(key.fd));
-            it.remove();
-            deregister(key);
-          }
-
-        // Clear out closed channels. The fds are removed from the epoll
-        // fd when closed, so there is no need to remove them manually.
-        for (Iterator it = keys.values().iterator(); it.hasNext(); )
-          {
-            EpollSelectionKeyImpl key = (EpollSelectionKeyImpl) it.next();
-            SelectableChannel ch = key.channel();
-            if (ch instanceof VMChannelOwner)
-              {
-                if (!((VMChannelOwner) ch).getVMChannel().getState().isValid())
-                  it.remove();
-              }
-          }
+        processCancelledKeys();
+        processUpdates();
 
         // Don't bother if we have nothing to select.
-        if (keys.isEmpty())
+        if (keyCount == 0)
           return 0;
 
+        int maxEvents = events.capacity() / sizeof_struct_epoll_event;
         int ret;
         try
           {
             begin();
             waitingThread = Thread.currentThread();
-            ret = epoll_wait(epoll_fd, events, keys.size(), timeout);
+            ret = epoll_wait(epoll_fd, events, maxEvents, timeout);
           }
         finally
           {
@@ -184,35 +215,147 @@ public class EpollSelectorImpl extends AbstractSelector
             end();
           }
 
-        HashSet s = new HashSet(ret);
+        selectedKeys.clear();
+        EpollSelectionKeyImpl[] table = fdTable;
         for (int i = 0; i < ret; i++)
           {
-            events.position(i * sizeof_struct_epoll_event);
-            ByteBuffer b = events.slice();
-            int fd = selected_fd(b);
-            EpollSelectionKeyImpl key
-              = (EpollSelectionKeyImpl) keys.get(Integer.valueOf(fd));
-            if (key == null)
-              throw new IOException("fd was selected, but no key found");
-            key.selectedOps = selected_ops(b) & key.interestOps;
-            s.add(key);
+            int fd = selected_fd(events, i);
+            EpollSelectionKeyImpl key = fd < table.length ? table[fd] : null;
+            // The key may have been cancelled while we were waiting.
+            if (key == null || !key.isValid())
+              continue;
+            key.selectedOps = selected_ops(events, i) & key.interestOps;
+            selectedKeys.add(key);
           }
 
-        reallocateBuffer();
+        // A full buffer means more events may have been pending; make
+        // room for them next time.
+        if (ret == maxEvents && events.capacity() < MAX_CAPACITY)
+          events = ByteBuffer.allocateDirect(events.capacity() << 1);
 
-        selectedKeys = s;
         return ret;
       }
-    }
+  }
+
+  /**
+   * Remove the cancelled keys from the epoll set and from our table.
+   */
+  private void processCancelledKeys() throws IOException
+  {
+    Set<SelectionKey> cancelledKeys = cancelledKeys();
+    synchronized (cancelledKeys)
+      {
+        if (cancelledKeys.isEmpty())
+          return;
+        for (Iterator<SelectionKey> it = cancelledKeys.iterator();
+             it.hasNext(); )
+          {
+            EpollSelectionKeyImpl key = (EpollSelectionKeyImpl) it.next();
+            if (key.registeredOps >= 0)
+              {
+                epoll_delete(epoll_fd, key.fd);
+                removeKey(key);
+              }
+            key.valid = false;
+            it.remove();
+            deregister(key);
+          }
+      }
+  }
+
+  /**
+   * Hand queued registrations and interest set changes to the kernel.
+   * A key the kernel refuses is cancelled and deregistered at once.
+   */
+  private void processUpdates() throws IOException
+  {
+    boolean failed = false;
+    EpollSelectionKeyImpl key;
+    while ((key = updates.poll()) != null)
+      {
+        if (!key.valid || !key.isValid())
+          continue;
+        int ops = key.interestOps;
+        if (ops == key.registeredOps)
+          continue;
+        try
+          {
+            if (key.registeredOps < 0)
+              {
+                epoll_add(epoll_fd, key.fd, ops, edgeTriggered);
+                addKey(key);
+              }
+            else
+              epoll_modify(epoll_fd, key.fd, ops, edgeTriggered);
+            key.registeredOps = ops;
+          }
+        catch (IOException ioe)
+          {
+            // The descriptor was closed after the key was queued, and may
+            // already belong to another channel; drop the key from our
+            // table, and cancel it so that it leaves its channel too.
+            removeKey(key);
+            key.registeredOps = -1;
+            key.valid = false;
+            key.cancel();
+            failed = true;
+          }
+      }
+    if (failed)
+      processCancelledKeys();
+  }
+
+  private void addKey(EpollSelectionKeyImpl key)
+  {
+    synchronized (keysLock)
+      {
+        int fd = key.fd;
+        if (fd >= fdTable.length)
+          {
+            int size = Math.max(fd + 1, fdTable.length << 1);
+            EpollSelectionKeyImpl[] table = new EpollSelectionKeyImpl[size];
+            System.arraycopy(fdTable, 0, table, 0, fdTable.length);
+            fdTable = table;
+          }
+        EpollSelectionKeyImpl old = fdTable[fd];
+        if (old == null)
+          keyCount++;
+        else
+          {
+            // A stale key for a closed channel whose descriptor was reused.
+            old.valid = false;
+            old.registeredOps = -1;
+          }
+        fdTable[fd] = key;
+      }
+  }
+
+  private void removeKey(EpollSelectionKeyImpl key)
+  {
+    synchronized (keysLock)
+      {
+        if (key.fd < fdTable.length && fdTable[key.fd] == key)
+          {
+            fdTable[key.fd] = null;
+            keyCount--;
+          }
+      }
+  }
+
+  /**
+   * Queue a change of the interest set of KEY; called by {@link
+   * EpollSelectionKeyImpl#interestOps(int)} from any thread.
+   */
+  void interestOpsChanged(EpollSelectionKeyImpl key)
+  {
+    updates.add(key);
   }
 
   /* (non-Javadoc)
    * @see java.nio.channels.Selector#selectedKeys()
    */
-  public Set selectedKeys()
+  public Set<SelectionKey> selectedKeys()
   {
-    if (selectedKeys == null)
-      return Collections.EMPTY_SET;
     return selectedKeys;
   }
 
@@ -255,29 +398,23 @@ public class EpollSelectorImpl extends AbstractSelector
   {
     if (!(ch instanceof VMChannelOwner))
       throw new IllegalArgumentException("unsupported channel type");
+    if ((ops & ~(ch.validOps())) != 0)
+      throw new IllegalArgumentException("invalid ops for channel");
 
     VMChannel channel = ((VMChannelOwner) ch).getVMChannel();
     try
       {
         int native_fd = channel.getState().getNativeFD();
-        synchronized (keys)
-        {
-          if (keys.containsKey(Integer.valueOf(native_fd)))
-            throw new IllegalArgumentException("channel already registered");
-          EpollSelectionKeyImpl result =
-            new EpollSelectionKeyImpl(this, ch, native_fd);
-          if ((ops & ~(ch.validOps())) != 0)
-            throw new IllegalArgumentException("invalid ops for channel");
-          result.interestOps = ops;
-          result.selectedOps = 0;
-          result.valid = true;
-          result.attach(att);
-          result.key = System.identityHashCode(result);
-          epoll_add(epoll_fd, result.fd, ops);
-          keys.put(Integer.valueOf(native_fd), result);
-          reallocateBuffer();
-          return result;
-        }
+        EpollSelectionKeyImpl result =
+          new EpollSelectionKeyImpl(this, ch, native_fd);
+        result.interestOps = ops;
+        result.registeredOps = -1;
+        result.selectedOps = 0;
+        result.valid = true;
+        result.attach(att);
+        result.key = System.identityHashCode(result);
+        updates.add(result);
+        return result;
       }
     catch (IOException ioe)
       {
@@ -285,34 +422,6 @@ public class EpollSelectorImpl extends AbstractSelector
       }
   }
 
-  private void reallocateBuffer()
-  {
-    // Ensure we have enough space for all potential events that may be
-    // returned.
-    if (events.capacity() < keys.size() * sizeof_struct_epoll_event)
-      {
-        int cap = events.capacity();
-        if (cap < MAX_DOUBLING_CAPACITY)
-          cap <<= 1;
-        else
-          cap += CAPACITY_INCREMENT;
-        events = ByteBuffer.allocateDirect(cap);
-      }
-    // Ensure that the events buffer is not too large, given the number of
-    // events registered.
-    else if (events.capacity() > keys.size() * sizeof_struct_epoll_event * 2 + 1
-             && events.capacity() > INITIAL_CAPACITY)
-      {
-        int cap = events.capacity() >>> 1;
-        events = ByteBuffer.allocateDirect(cap);
-      }
-  }
-
-  void epoll_modify(EpollSelectionKeyImpl key, int ops) throws IOException
-  {
-    epoll_modify(epoll_fd, key.fd, ops);
-  }
-
   /**
    * Tell if epoll is supported by this system, and support was compiled in.
    *
@@ -344,8 +453,9 @@ public class EpollSelectorImpl extends AbstractSelector
    * @param efd The epoll file descriptor.
    * @param fd  The file descriptor to add (or modify).
    * @param ops The interest opts.
+   * @param edge Whether to use edge-triggered notification.
    */
-  private static native void epoll_add(int efd, int fd, int ops)
+  private static native void epoll_add(int efd, int fd, int ops, boolean edge)
     throws IOException;
 
   /**
@@ -354,9 +464,11 @@ public class EpollSelectorImpl extends AbstractSelector
    * @param efd The epoll file descriptor.
    * @param fd  The file descriptor to modify.
    * @param ops The ops.
+   * @param edge Whether to use edge-triggered notification.
    * @throws IOException
    */
-  private static native void epoll_modify(int efd, int fd, int ops)
+  private static native void epoll_modify(int efd, int fd, int ops,
+                                          boolean edge)
     throws IOException;
 
   /**
@@ -384,16 +496,18 @@ public class EpollSelectorImpl extends AbstractSelector
   /**
    * Fetch the fd value from a selected struct epoll_event.
    *
-   * @param struct The direct buffer holding the struct.
+   * @param state The direct buffer holding the selected structs.
+   * @param index The index of the struct in `state'.
    * @return The fd value.
    */
-  private static native int selected_fd(ByteBuffer struct);
+  private static native int selected_fd(ByteBuffer state, int index);
 
   /**
    * Fetch the enabled operations from a selected struct epoll_event.
    *
-   * @param struct The direct buffer holding the struct.
+   * @param state The direct buffer holding the selected structs.
+   * @param index The index of the struct in `state'.
    * @return The selected operations.
    */
-  private static native int selected_ops(ByteBuffer struct);
+  private static native int selected_ops(ByteBuffer state, int index);
 }
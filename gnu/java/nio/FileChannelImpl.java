@@ -48,6 +48,7 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.MappedByteBuffer;
+import java.nio.channels.Channel;
 import java.nio.channels.ClosedChannelException;
 import java.nio.channels.FileChannel;
 import java.nio.channels.FileLock;
@@ -64,6 +65,7 @@ import java.nio.channels.WritableByteChannel;
  * Upon a Input/Output/RandomAccessFile object.
  */
 public final class FileChannelImpl extends FileChannel
+  implements VMChannelOwner
 {
   // These are mode values for open().
   public static final int READ   = 1;
@@ -190,6 +192,11 @@ public final class FileChannelImpl extends FileChannel
     return ch.available();
   }
 
+  public VMChannel getVMChannel()
+  {
+    return ch;
+  }
+
   private long implPosition() throws IOException
   {
     return ch.position();
@@ -262,6 +269,12 @@ public final class FileChannelImpl extends FileChannel
   public long read (ByteBuffer[] dsts, int offset, int length)
     throws IOException
   {
+    if ((offset < 0)
+        || (offset > dsts.length)
+        || (length < 0)
+        || (length > (dsts.length - offset)))
+      throw new IndexOutOfBoundsException();
+
     return ch.readScattering(dsts, offset, length);
   }
 
@@ -301,6 +314,12 @@ public final class FileChannelImpl extends FileChannel
   public long write(ByteBuffer[] srcs, int offset, int length)
     throws IOException
   {
+    if ((offset < 0)
+        || (offset > srcs.length)
+        || (length < 0)
+        || (length > (srcs.length - offset)))
+      throw new IndexOutOfBoundsException();
+
     return ch.writeGathering(srcs, offset, length);
   }
 
@@ -343,6 +362,39 @@ public final class FileChannelImpl extends FileChannel
     ch.flush(metaData);
   }
 
+  /**
+   * Return the native channel of OTHER if data can be moved between it
+   * and this file by the kernel, without a copy through a buffer, or
+   * null if the data has to be copied.  Channels that are closed, not
+   * connected or opened in an incompatible mode are left to the
+   * copying code, which reports the problem with the usual exception.
+   */
+  private static VMChannel directChannel(Channel other, boolean writing)
+  {
+    if (!(other instanceof VMChannelOwner) || !other.isOpen())
+      return null;
+    if (other instanceof FileChannelImpl)
+      {
+        int otherMode = ((FileChannelImpl) other).mode;
+        if (writing
+            ? (otherMode & (WRITE | APPEND)) != WRITE
+            : (otherMode & READ) == 0)
+          return null;
+      }
+    else if (other instanceof SocketChannelImpl)
+      {
+        if (!((SocketChannelImpl) other).isConnected())
+          return null;
+      }
+    else if (other instanceof DatagramChannelImpl)
+      {
+        if (!((DatagramChannelImpl) other).isConnected())
+          return null;
+      }
+    VMChannel vmch = ((VMChannelOwner) other).getVMChannel();
+    return vmch.getState().isValid() ? vmch : null;
+  }
+
   // like transferTo, but with a count of less than 2Gbytes
   private int smallTransferTo (long position, int count,
                                WritableByteChannel target)
@@ -379,9 +431,27 @@ public final class FileChannelImpl extends FileChannel
     if ((mode & READ) == 0)
        throw new NonReadableChannelException ();
 
-    final int pageSize = 65536;
     long total = 0;
 
+    // Try sendfile/splice first, if the target has a file descriptor.
+    VMChannel targetCh = directChannel (target, true);
+    if (targetCh != null)
+      {
+        while (count > 0)
+          {
+            long transferred = ch.transferTo (position, count, targetCh);
+            if (transferred < 0)
+              break; // not supported; copy the rest below
+            if (transferred == 0)
+              return total;
+            total += transferred;
+            position += transferred;
+            count -= transferred;
+          }
+      }
+
+    final int pageSize = 65536;
+
     while (count > 0)
       {
         int transferred
@@ -442,9 +512,28 @@ public final class FileChannelImpl extends FileChannel
     if ((mode & WRITE) == 0)
        throw new NonWritableChannelException ();
 
-    final int pageSize = 65536;
     long total = 0;
 
+    // Try copy_file_range/splice first, if the source has a file
+    // descriptor.
+    VMChannel srcCh = directChannel (src, false);
+    if (srcCh != null)
+      {
+        while (count > 0)
+          {
+            long transferred = ch.transferFrom (srcCh, position, count);
+            if (transferred < 0)
+              break; // not supported; copy the rest below
+            if (transferred == 0)
+              return total;
+            total += transferred;
+            position += transferred;
+            count -= transferred;
+          }
+      }
+
+    final int pageSize = 65536;
+
     while (count > 0)
       {
         int transferred = smallTransferFrom (src, position,
@@ -0,0 +1,660 @@
+/* SelectorReactor.java -- spread selectable channels over selector threads
+   Copyright (C) 2026 Free Software Foundation, Inc.
+
+This file is part of GNU Classpath.
+
+GNU Classpath is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; either version 2, or (at your option)
+any later version.
+
+GNU Classpath is distributed in the hope that it will be useful, but
+WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with GNU Classpath; see the file COPYING.  If not, write to the
+Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+02110-1301 USA.
+
+Linking this library statically or dynamically with other modules is
+making a combined work based on this library.  Thus, the terms and
+conditions of the GNU General Public License cover the whole
+combination.
+
+As a special exception, the copyright holders of this library give you
+permission to link this library with independent modules to produce an
+executable, regardless of the license terms of these independent
+modules, and to copy and distribute the resulting executable under
+terms of your choice, provided that you also meet, for each linked
+independent module, the terms and conditions of the license of that
+module.  An independent module is a module which is not derived from
+or based on this library.  If you modify this library, you may extend
+this exception to your version of the library, but you are not
+obligated to do so.  If you do not wish to do so, delete this
+exception statement from your version. */
+
+
+package gnu.java.nio;
+
+import java.io.IOException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.channels.spi.SelectorProvider;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs a fixed number of selectors, each on its own thread, and spreads
+ * the channels given to it over them.  By default there is one selector
+ * per available processor.
+ *
+ * <p>A channel is handed to a selector thread, which registers it
+ * itself, so registration never waits for a selection operation in
+ * progress.  Channels are assigned round-robin, or, if requested, to
+ * the selector with the fewest registered keys.  All events of a
+ * channel are then delivered to its {@link Handler} on the thread that
+ * owns its selector.</p>
+ *
+ * <p>{@link #accept(ServerSocketChannel, AcceptHandler)} starts a
+ * thread that accepts connections on a server socket channel and hands
+ * each new connection to one of the selector threads.</p>
+ *
+ * <p>Errors that a handler can't see, such as a selector failing, are
+ * passed to the uncaught exception handler of the thread they happen
+ * on, which keeps running if it can.  A selector thread that can't
+ * go on closes its channels and is given no new ones.</p>
+ *
+ * <p>The selectors come from the default {@link SelectorProvider},
+ * which is normally an {@link EpollSelectorImpl} on GNU/Linux.</p>
+ */
+public final class SelectorReactor
+{
+  /**
+   * Receives the events of a channel registered with a reactor.
+   */
+  public interface Handler
+  {
+    /**
+     * Called on the selector thread of KEY when some of the operations
+     * in its interest set are ready.  If this method throws an
+     * exception, the key is cancelled and its channel is closed.
+     *
+     * @param key The selected key.
+     * @throws IOException If handling the event fails.
+     */
+    void ready(SelectionKey key) throws IOException;
+  }
+
+  /**
+   * Receives the connections accepted by an accept thread.
+   */
+  public interface AcceptHandler
+  {
+    /**
+     * Called on the accept thread for each new, non-blocking connection.
+     *
+     * @param channel The accepted connection.
+     * @return The handler for the events of the connection, which is
+     *  registered for reading; or null, to close the connection.
+     * @throws IOException If setting up the connection fails; the
+     *  connection is closed.
+     */
+    Handler accepted(SocketChannel channel) throws IOException;
+  }
+
+  /** How often, in milliseconds, a worker recounts its keys. */
+  private static final long LOAD_SAMPLE_INTERVAL = 1000;
+
+  /**
+   * The shortest and longest pause, in milliseconds, of an accept thread
+   * after accepting fails, e.g. because it ran out of file descriptors.
+   */
+  private static final long MIN_ACCEPT_BACKOFF = 10;
+  private static final long MAX_ACCEPT_BACKOFF = 1000;
+
+  /**
+   * How often, in milliseconds, an accept thread checks that its server
+   * channel is still open, since closing it does not wake the selector.
+   */
+  private static final long ACCEPT_POLL_INTERVAL = 1000;
+
+  private final Worker[] workers;
+  private final boolean balanceByLoad;
+  private final AtomicInteger next = new AtomicInteger();
+  private final ArrayList<Acceptor> acceptors = new ArrayList<Acceptor>();
+  private volatile boolean running;
+  private boolean started;
+
+  /**
+   * Create a reactor with one selector per available processor, which
+   * assigns channels round-robin.
+   *
+   * @throws IOException If opening a selector fails.
+   */
+  public SelectorReactor() throws IOException
+  {
+    this(Runtime.getRuntime().availableProcessors(), false);
+  }
+
+  /**
+   * Create a reactor.
+   *
+   * @param count The number of selectors and selector threads.
+   * @param balanceByLoad True to assign each new channel to the selector
+   *  with the fewest keys; false to assign channels round-robin.
+   * @throws IOException If opening a selector fails.
+   * @throws IllegalArgumentException If COUNT is not positive.
+   */
+  public SelectorReactor(int count, boolean balanceByLoad)
+    throws IOException
+  {
+    if (count <= 0)
+      throw new IllegalArgumentException("count: " + count);
+    this.balanceByLoad = balanceByLoad;
+    workers = new Worker[count];
+    SelectorProvider provider = SelectorProvider.provider();
+    try
+      {
+        for (int i = 0; i < count; i++)
+          workers[i] = new Worker(provider.openSelector(), i);
+      }
+    catch (IOException ioe)
+      {
+        for (int i = 0; i < count && workers[i] != null; i++)
+          workers[i].selector.close();
+        throw ioe;
+      }
+  }
+
+  /**
+   * Start the selector threads.
+   *
+   * @throws IllegalStateException If the reactor was already started.
+   */
+  public synchronized void start()
+  {
+    if (started)
+      throw new IllegalStateException("already started");
+    started = true;
+    running = true;
+    for (int i = 0; i < workers.length; i++)
+      workers[i].thread.start();
+  }
+
+  /**
+   * Stop the accept and selector threads and close the selectors.  The
+   * registered channels are not closed.  The threads are woken up, not
+   * interrupted, so that no channel is closed by an interrupt.
+   */
+  public synchronized void shutdown()
+  {
+    running = false;
+    for (Iterator<Acceptor> it = acceptors.iterator(); it.hasNext(); )
+      it.next().wakeup();
+    acceptors.clear();
+    for (int i = 0; i < workers.length; i++)
+      workers[i].wakeup();
+  }
+
+  /**
+   * Return the number of selectors of this reactor.
+   *
+   * @return The number of selector threads.
+   */
+  public int getSelectorCount()
+  {
+    return workers.length;
+  }
+
+  /**
+   * Register a channel with one of the selectors.  The channel is put
+   * in non-blocking mode, and is registered by the selector thread
+   * shortly after this method returns.
+   *
+   * @param channel The channel to register.
+   * @param ops The interest set.
+   * @param handler The handler for the events of CHANNEL.
+   * @throws IOException If the channel can't be put in non-blocking mode.
+   * @throws ClosedChannelException If the channel is closed.
+   * @throws IllegalArgumentException If OPS is not valid for CHANNEL.
+   * @throws IllegalStateException If the reactor is not running, or
+   *  none of its selector threads is left.
+   */
+  public void register(SelectableChannel channel, int ops, Handler handler)
+    throws IOException
+  {
+    if (handler == null)
+      throw new NullPointerException();
+    if ((ops & ~channel.validOps()) != 0)
+      throw new IllegalArgumentException("invalid ops for channel");
+    if (!channel.isOpen())
+      throw new ClosedChannelException();
+    if (!running)
+      throw new IllegalStateException("reactor not running");
+    channel.configureBlocking(false);
+    chooseWorker().add(new Registration(channel, ops, handler));
+  }
+
+  /**
+   * Start a thread that accepts connections on SERVER and registers
+   * each of them for reading with one of the selectors.  The thread
+   * ends when SERVER is closed or the reactor is shut down; SERVER is
+   * left open.
+   *
+   * @param server A bound server socket channel; it is put in
+   *  non-blocking mode and registered with a selector of the thread.
+   * @param handler The handler called for each accepted connection.
+   * @throws IOException If SERVER can't be put in non-blocking mode or
+   *  the selector can't be opened.
+   * @throws IllegalStateException If the reactor is not running.
+   */
+  public synchronized void accept(ServerSocketChannel server,
+                                  AcceptHandler handler)
+    throws IOException
+  {
+    if (!running)
+      throw new IllegalStateException("reactor not running");
+    Selector selector = SelectorProvider.provider().openSelector();
+    try
+      {
+        server.configureBlocking(false);
+        server.register(selector, SelectionKey.OP_ACCEPT);
+      }
+    catch (IOException ioe)
+      {
+        selector.close();
+        throw ioe;
+      }
+    Acceptor a = new Acceptor(server, handler, selector,
+                              "SelectorReactor-accept-" + acceptors.size());
+    acceptors.add(a);
+    a.thread.start();
+  }
+
+  private Worker chooseWorker()
+  {
+    if (!balanceByLoad)
+      {
+        for (int n = 0; n < workers.length; n++)
+          {
+            int i = next.getAndIncrement() % workers.length;
+            Worker w = workers[i < 0 ? i + workers.length : i];
+            if (w.alive)
+              return w;
+          }
+        throw new IllegalStateException("no selector thread left");
+      }
+    Worker best = null;
+    for (int i = 0; i < workers.length; i++)
+      if (workers[i].alive
+          && (best == null || workers[i].load.get() < best.load.get()))
+        best = workers[i];
+    if (best == null)
+      throw new IllegalStateException("no selector thread left");
+    return best;
+  }
+
+  /**
+   * Pass an error that no handler can see to the uncaught exception
+   * handler of the current thread, without ending the thread.
+   */
+  static void report(Throwable t)
+  {
+    Thread current = Thread.currentThread();
+    current.getUncaughtExceptionHandler().uncaughtException(current, t);
+  }
+
+  static void closeQuietly(SelectableChannel channel)
+  {
+    try
+      {
+        channel.close();
+      }
+    catch (IOException ignored)
+      {
+      }
+  }
+
+  /**
+   * A thread accepting connections on a server socket channel.  It
+   * waits in a selector of its own, so that shutdown() can wake it up
+   * without interrupting it.
+   */
+  private final class Acceptor implements Runnable
+  {
+    final ServerSocketChannel server;
+    final AcceptHandler handler;
+    final Selector selector;
+    final Thread thread;
+
+    Acceptor(ServerSocketChannel server, AcceptHandler handler,
+             Selector selector, String name)
+    {
+      this.server = server;
+      this.handler = handler;
+      this.selector = selector;
+      thread = new Thread(this, name);
+      thread.setDaemon(true);
+    }
+
+    void wakeup()
+    {
+      selector.wakeup();
+      synchronized (this)
+        {
+          notifyAll();
+        }
+    }
+
+    public void run()
+    {
+      long backoff = 0;
+      try
+        {
+          while (running && server.isOpen())
+            {
+              if (backoff > 0)
+                pause(backoff);
+              SocketChannel client;
+              try
+                {
+                  selector.select(ACCEPT_POLL_INTERVAL);
+                  selector.selectedKeys().clear();
+                  client = server.accept();
+                  backoff = 0;
+                }
+              catch (IOException ioe)
+                {
+                  if (!running || !server.isOpen())
+                    break;
+                  // Report the first of a run of failures, then try again
+                  // less and less often until accepting works again.
+                  if (backoff == 0)
+                    report(ioe);
+                  backoff = Math.min(Math.max(backoff * 2, MIN_ACCEPT_BACKOFF),
+                                     MAX_ACCEPT_BACKOFF);
+                  continue;
+                }
+              if (client != null && !handle(client))
+                break;
+            }
+        }
+      catch (ClosedSelectorException cse)
+        {
+        }
+      catch (RuntimeException re)
+        {
+          report(re);
+        }
+      finally
+        {
+          try
+            {
+              selector.close();
+            }
+          catch (IOException ignored)
+            {
+            }
+        }
+    }
+
+    /**
+     * Hand a new connection to a selector thread.  Return false if there
+     * is none left.
+     */
+    private boolean handle(SocketChannel client)
+    {
+      boolean registered = false;
+      try
+        {
+          client.configureBlocking(false);
+          Handler h = handler.accepted(client);
+          if (h != null && running)
+            {
+              chooseWorker().add(new Registration(client,
+                                                  SelectionKey.OP_READ, h));
+              registered = true;
+            }
+        }
+      catch (IOException ioe)
+        {
+          // Drop this connection, keep accepting.
+        }
+      catch (IllegalStateException ise)
+        {
+          report(ise);
+          return false;
+        }
+      finally
+        {
+          if (!registered)
+            closeQuietly(client);
+        }
+      return true;
+    }
+
+    private synchronized void pause(long millis)
+    {
+      if (!running)
+        return;
+      try
+        {
+          wait(millis);
+        }
+      catch (InterruptedException ie)
+        {
+        }
+    }
+  }
+
+  /**
+   * A channel waiting to be registered by a selector thread.
+   */
+  private static final class Registration
+  {
+    final SelectableChannel channel;
+    final int ops;
+    final Handler handler;
+
+    Registration(SelectableChannel channel, int ops, Handler handler)
+    {
+      this.channel = channel;
+      this.ops = ops;
+      this.handler = handler;
+    }
+  }
+
+  /**
+   * A selector and the thread running it.
+   */
+  private final class Worker implements Runnable
+  {
+    final Selector selector;
+    final Thread thread;
+    final ConcurrentLinkedQueue<Registration> pending
+      = new ConcurrentLinkedQueue<Registration>();
+
+    /** Approximate number of keys registered with the selector. */
+    final AtomicInteger load = new AtomicInteger();
+
+    /** False once the thread has stopped for an error. */
+    volatile boolean alive = true;
+    private long lastSample;
+
+    Worker(Selector selector, int index)
+    {
+      this.selector = selector;
+      thread = new Thread(this, "SelectorReactor-" + index);
+      thread.setDaemon(true);
+    }
+
+    void add(Registration r)
+    {
+      load.incrementAndGet();
+      pending.add(r);
+      wakeup();
+      // If the thread stopped meanwhile, nobody else will take it.
+      if (!alive)
+        closePending();
+    }
+
+    void wakeup()
+    {
+      selector.wakeup();
+      // The selector returns at once while it has no keys, so an idle
+      // worker waits on its queue instead.
+      synchronized (pending)
+        {
+          pending.notify();
+        }
+    }
+
+    public void run()
+    {
+      try
+        {
+          while (running)
+            {
+              int n = selector.select();
+              registerPending();
+              if (n > 0)
+                dispatch();
+              else if (pending.isEmpty() && selector.keys().isEmpty())
+                idle();
+              sampleLoad();
+            }
+        }
+      catch (ClosedSelectorException cse)
+        {
+        }
+      catch (Throwable t)
+        {
+          // The selector itself failed, or something we did not expect;
+          // stop taking channels, and close the ones we have, which
+          // would otherwise never see another event.
+          alive = false;
+          report(t);
+          closePending();
+          try
+            {
+              for (Iterator<SelectionKey> it = selector.keys().iterator();
+                   it.hasNext(); )
+                closeQuietly(it.next().channel());
+            }
+          catch (ClosedSelectorException cse)
+            {
+            }
+        }
+      finally
+        {
+          alive = false;
+          try
+            {
+              selector.close();
+            }
+          catch (IOException ignored)
+            {
+            }
+        }
+    }
+
+    private void registerPending()
+    {
+      Registration r;
+      while ((r = pending.poll()) != null)
+        {
+          try
+            {
+              r.channel.register(selector, r.ops, r.handler);
+            }
+          catch (ClosedChannelException cce)
+            {
+              load.decrementAndGet();
+            }
+          catch (RuntimeException re)
+            {
+              // E.g. the channel was put back in blocking mode.
+              load.decrementAndGet();
+              closeQuietly(r.channel);
+              report(re);
+            }
+        }
+    }
+
+    private void closePending()
+    {
+      Registration r;
+      while ((r = pending.poll()) != null)
+        {
+          load.decrementAndGet();
+          closeQuietly(r.channel);
+        }
+    }
+
+    private void dispatch()
+    {
+      for (Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+           it.hasNext(); )
+        {
+          SelectionKey key = it.next();
+          it.remove();
+          if (!key.isValid())
+            continue;
+          try
+            {
+              ((Handler) key.attachment()).ready(key);
+            }
+          catch (IOException ioe)
+            {
+              key.cancel();
+              closeQuietly(key.channel());
+            }
+          catch (RuntimeException re)
+            {
+              key.cancel();
+              closeQuietly(key.channel());
+              report(re);
+            }
+        }
+    }
+
+    private void idle()
+    {
+      synchronized (pending)
+        {
+          if (running && pending.isEmpty())
+            {
+              try
+                {
+                  pending.wait(LOAD_SAMPLE_INTERVAL);
+                }
+              catch (InterruptedException ie)
+                {
+                  // Woken up by wakeup().
+                }
+            }
+        }
+    }
+
+    private void sampleLoad()
+    {
+      if (!balanceByLoad)
+        return;
+      long now = System.currentTimeMillis();
+      if (now - lastSample >= LOAD_SAMPLE_INTERVAL)
+        {
+          lastSample = now;
+          load.set(selector.keys().size() + pending.size());
+        }
+    }
+  }
+}
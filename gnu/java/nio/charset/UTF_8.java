@@ -220,10 +220,11 @@ final class UTF_8 extends Charset
 
     protected CoderResult encodeLoop (CharBuffer in, ByteBuffer out)
     {
+      if (in.hasArray () && out.hasArray ())
+        encodeAscii (in, out);
       int inPos = in.position();
       try
         {
-          // TODO: Optimize this in the case in.hasArray() / out.hasArray()
           while (in.hasRemaining ())
           {
             int remaining = out.remaining ();
@@ -307,5 +308,29 @@ final class UTF_8 extends Charset
           in.position (inPos);
         }
     }
+
+    /**
+     * Copies the run of ASCII characters at the start of IN into OUT,
+     * as far as OUT has room, one byte each.  Most text handed to the
+     * encoder is all ASCII, so this saves a get and a put per character
+     * in the common case; the loop in encodeLoop takes over at the first
+     * other character.
+     */
+    private static void encodeAscii (CharBuffer in, ByteBuffer out)
+    {
+      char[] inArray = in.array ();
+      byte[] outArray = out.array ();
+      int inStart = in.arrayOffset () + in.position ();
+      int outStart = out.arrayOffset () + out.position ();
+      int n = Math.min (in.remaining (), out.remaining ());
+      int i = 0;
+      while (i < n && inArray[inStart + i] <= 0x7F)
+        {
+          outArray[outStart + i] = (byte) inArray[inStart + i];
+          i++;
+        }
+      in.position (in.position () + i);
+      out.position (out.position () + i);
+    }
   }
 }
@@ -67,6 +67,8 @@ public final class Properties
 
   public static final String DO_RSA_BLINDING = "gnu.crypto.with.rsa.blinding";
 
+  public static final String CONSTANT_TIME_AES = "gnu.crypto.with.constant.time.aes";
+
   private static final String TRUE = Boolean.TRUE.toString();
 
   private static final String FALSE = Boolean.FALSE.toString();
@@ -81,6 +83,8 @@ public final class Properties
 
   private boolean doRSABlinding = true;
 
+  private boolean constantTimeAES = false;
+
   /** Trivial constructor to enforce Singleton pattern. */
   private Properties()
   {
@@ -144,6 +148,9 @@ public final class Properties
     else if (key.equals(DO_RSA_BLINDING)
              && (value.equalsIgnoreCase(TRUE) || value.equalsIgnoreCase(FALSE)))
       setDoRSABlinding(Boolean.valueOf(value).booleanValue());
+    else if (key.equals(CONSTANT_TIME_AES)
+             && (value.equalsIgnoreCase(TRUE) || value.equalsIgnoreCase(FALSE)))
+      setConstantTimeAES(Boolean.valueOf(value).booleanValue());
     else
       props.put(key, value);
   }
@@ -203,6 +210,24 @@ public final class Properties
     return instance().doRSABlinding;
   }
 
+  /**
+   * A convenience method that returns, as a boolean, the library global
+   * configuration property indicating if AES with 128-bit blocks uses, or
+   * not, a bitsliced implementation which, unlike the default table driven
+   * one, does not leak the key through cache timing.
+   *
+   * @return <code>true</code> if AES keys set up from now on use the
+   *         constant-time implementation. Returns <code>false</code> if they
+   *         use the faster table driven one.
+   */
+  public static final synchronized boolean useConstantTimeAES()
+  {
+    SecurityManager sm = System.getSecurityManager();
+    if (sm != null)
+      sm.checkPermission(new PropertyPermission(CONSTANT_TIME_AES, "read"));
+    return instance().constantTimeAES;
+  }
+
   /**
    * A convenience method to set the global property for reproducibility of the
    * default PRNG bit stream output.
@@ -252,6 +277,22 @@ public final class Properties
     props.put(DO_RSA_BLINDING, String.valueOf(value));
   }
 
+  /**
+   * A convenience method to set the global property for using the
+   * constant-time implementation of AES.
+   *
+   * @param value if <code>true</code> then AES keys set up from now on will
+   *          use the bitsliced, constant-time implementation.
+   */
+  public static final synchronized void setConstantTimeAES(final boolean value)
+  {
+    SecurityManager sm = System.getSecurityManager();
+    if (sm != null)
+      sm.checkPermission(new PropertyPermission(CONSTANT_TIME_AES, "write"));
+    instance().constantTimeAES = value;
+    props.put(CONSTANT_TIME_AES, String.valueOf(value));
+  }
+
   private static final synchronized Properties instance()
   {
     if (singleton == null)
@@ -265,6 +306,7 @@ public final class Properties
     props.put(REPRODUCIBLE_PRNG, (reproducible ? "true" : "false"));
     props.put(CHECK_WEAK_KEYS, (checkForWeakKeys ? "true" : "false"));
     props.put(DO_RSA_BLINDING, (doRSABlinding ? "true" : "false"));
+    props.put(CONSTANT_TIME_AES, (constantTimeAES ? "true" : "false"));
     // 1. allow site-wide override by reading a properties file
     String propFile = null;
     try
@@ -308,10 +350,12 @@ public final class Properties
     handleBooleanProperty(REPRODUCIBLE_PRNG);
     handleBooleanProperty(CHECK_WEAK_KEYS);
     handleBooleanProperty(DO_RSA_BLINDING);
+    handleBooleanProperty(CONSTANT_TIME_AES);
     // re-sync the 'known' properties
     reproducible = Boolean.valueOf((String) props.get(REPRODUCIBLE_PRNG)).booleanValue();
     checkForWeakKeys = Boolean.valueOf((String) props.get(CHECK_WEAK_KEYS)).booleanValue();
     doRSABlinding = Boolean.valueOf((String) props.get(DO_RSA_BLINDING)).booleanValue();
+    constantTimeAES = Boolean.valueOf((String) props.get(CONSTANT_TIME_AES)).booleanValue();
     // This does not change.
     props.put(VERSION, Registry.VERSION_STRING);
   }
@@ -165,6 +165,12 @@ public interface Registry
   /** Authenticated-Encrypted mode. */
   String EAX_MODE = "eax";
 
+  /** Galois/Counter Mode (NIST), an authenticated-encrypted mode. */
+  String GCM_MODE = "gcm";
+
+  /** ChaCha20 with the Poly1305 authenticator (RFC 8439). */
+  String CHACHA20_POLY1305 = "chacha20-poly1305";
+
   // Padding scheme names and synonyms........................................
 
   /** PKCS#5 padding scheme. */
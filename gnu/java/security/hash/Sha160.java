@@ -81,6 +81,9 @@ public class Sha160
   /** 160-bit interim result. */
   private int h0, h1, h2, h3, h4;
 
+  /** Receives the result of each call to sha from transform. */
+  private final int[] state = new int[5];
+
   /** Trivial 0-arguments constructor. */
   public Sha160()
   {
@@ -108,7 +111,9 @@ public class Sha160
   public static final int[] G(int hh0, int hh1, int hh2, int hh3, int hh4,
                               byte[] in, int offset)
   {
-    return sha(hh0, hh1, hh2, hh3, hh4, in, offset);
+    int[] result = new int[5];
+    sha(hh0, hh1, hh2, hh3, hh4, in, offset, result);
+    return result;
   }
 
   public Object clone()
@@ -118,12 +123,12 @@ public class Sha160
 
   protected void transform(byte[] in, int offset)
   {
-    int[] result = sha(h0, h1, h2, h3, h4, in, offset);
-    h0 = result[0];
-    h1 = result[1];
-    h2 = result[2];
-    h3 = result[3];
-    h4 = result[4];
+    sha(h0, h1, h2, h3, h4, in, offset, state);
+    h0 = state[0];
+    h1 = state[1];
+    h2 = state[2];
+    h3 = state[3];
+    h4 = state[4];
   }
 
   protected byte[] padBuffer()
@@ -180,9 +185,9 @@ public class Sha160
     return valid.booleanValue();
   }
 
-  private static synchronized final int[] sha(int hh0, int hh1, int hh2,
-                                              int hh3, int hh4, byte[] in,
-                                              int offset)
+  private static synchronized final void sha(int hh0, int hh1, int hh2,
+                                             int hh3, int hh4, byte[] in,
+                                             int offset, int[] result)
   {
     int A = hh0;
     int B = hh1;
@@ -236,6 +241,10 @@ public class Sha160
         B = A;
         A = T;
       }
-    return new int[] { hh0 + A, hh1 + B, hh2 + C, hh3 + D, hh4 + E };
+    result[0] = hh0 + A;
+    result[1] = hh1 + B;
+    result[2] = hh2 + C;
+    result[3] = hh3 + D;
+    result[4] = hh4 + E;
   }
 }
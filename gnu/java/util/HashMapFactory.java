@@ -0,0 +1,121 @@
+/* HashMapFactory -- creates general purpose hash maps
+   Copyright (C) 2026 Free Software Foundation, Inc.
+
+This file is part of GNU Classpath.
+
+GNU Classpath is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; either version 2, or (at your option)
+any later version.
+
+GNU Classpath is distributed in the hope that it will be useful, but
+WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with GNU Classpath; see the file COPYING.  If not, write to the
+Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+02110-1301 USA.
+
+Linking this library statically or dynamically with other modules is
+making a combined work based on this library.  Thus, the terms and
+conditions of the GNU General Public License cover the whole
+combination.
+
+As a special exception, the copyright holders of this library give you
+permission to link this library with independent modules to produce an
+executable, regardless of the license terms of these independent
+modules, and to copy and distribute the resulting executable under
+terms of your choice, provided that you also meet, for each linked
+independent module, the terms and conditions of the license of that
+module.  An independent module is a module which is not derived from
+or based on this library.  If you modify this library, you may extend
+this exception to your version of the library, but you are not
+obligated to do so.  If you do not wish to do so, delete this
+exception statement from your version. */
+
+
+
+package gnu.java.util;
+
+import gnu.classpath.SystemProperties;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Creates the hash maps used by code that does not care which
+ * implementation it gets, as long as it behaves like
+ * {@link java.util.HashMap}.  By default these are {@link OpenHashMap}s.
+ * Setting the system property <code>gnu.java.util.openhash</code> to
+ * <code>false</code> makes the factory return plain
+ * <code>java.util.HashMap</code>s instead, which is useful to compare
+ * the two or to rule out the open addressing map when chasing a bug.
+ *
+ * <p>Neither implementation guarantees an iteration order, so callers
+ * that need one should use a <code>LinkedHashMap</code> or a
+ * <code>TreeMap</code> directly.
+ *
+ * @see OpenHashMap
+ */
+public final class HashMapFactory
+{
+  /**
+   * Whether the factory returns open addressing maps.
+   */
+  private static final boolean OPEN
+    = ! "false".equals(SystemProperties.getProperty("gnu.java.util.openhash"));
+
+  /**
+   * This class is not instantiable.
+   */
+  private HashMapFactory()
+  {
+  }
+
+  /**
+   * Returns a new, empty hash map with the default capacity.
+   *
+   * @return the new map
+   */
+  public static <K, V> Map<K, V> newHashMap()
+  {
+    if (OPEN)
+      return new OpenHashMap<K, V>();
+    return new HashMap<K, V>();
+  }
+
+  /**
+   * Returns a new, empty hash map that can hold the given number of
+   * mappings without being resized.
+   *
+   * @param expectedSize the number of mappings to make room for
+   * @return the new map
+   * @throws IllegalArgumentException if expectedSize &lt; 0
+   */
+  public static <K, V> Map<K, V> newHashMap(int expectedSize)
+  {
+    if (OPEN)
+      return new OpenHashMap<K, V>(expectedSize);
+    if (expectedSize < 0)
+      throw new IllegalArgumentException("Illegal Capacity: "
+                                         + expectedSize);
+    // HashMap takes a number of buckets, filled to 0.75 before resizing.
+    return new HashMap<K, V>(expectedSize + expectedSize / 3 + 1);
+  }
+
+  /**
+   * Returns a new hash map with the same mappings as the given map.
+   *
+   * @param m the map to copy
+   * @return the new map
+   * @throws NullPointerException if m is null
+   */
+  public static <K, V> Map<K, V> newHashMap(Map<? extends K, ? extends V> m)
+  {
+    if (OPEN)
+      return new OpenHashMap<K, V>(m);
+    return new HashMap<K, V>(m);
+  }
+}
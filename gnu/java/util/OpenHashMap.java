@@ -0,0 +1,996 @@
+/* OpenHashMap -- a hash map using open addressing with linear probing
+   Copyright (C) 2026 Free Software Foundation, Inc.
+
+This file is part of GNU Classpath.
+
+GNU Classpath is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; either version 2, or (at your option)
+any later version.
+
+GNU Classpath is distributed in the hope that it will be useful, but
+WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with GNU Classpath; see the file COPYING.  If not, write to the
+Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+02110-1301 USA.
+
+Linking this library statically or dynamically with other modules is
+making a combined work based on this library.  Thus, the terms and
+conditions of the GNU General Public License cover the whole
+combination.
+
+As a special exception, the copyright holders of this library give you
+permission to link this library with independent modules to produce an
+executable, regardless of the license terms of these independent
+modules, and to copy and distribute the resulting executable under
+terms of your choice, provided that you also meet, for each linked
+independent module, the terms and conditions of the license of that
+module.  An independent module is a module which is not derived from
+or based on this library.  If you modify this library, you may extend
+this exception to your version of the library, but you are not
+obligated to do so.  If you do not wish to do so, delete this
+exception statement from your version. */
+
+
+package gnu.java.util;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.AbstractCollection;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * A hash map that stores its mappings directly in one array instead of
+ * in chains of entry objects.  Keys and values are kept side by side in
+ * the array, a key at an even index and its value right after it, so a
+ * successful lookup usually touches a single cache line and a put does
+ * not allocate at all.
+ *
+ * <p>Collisions are resolved by linear probing.  The hash code of a key
+ * is scrambled by multiplying with the golden ratio (Fibonacci hashing),
+ * which spreads the poor hash codes of small integers and strings with
+ * common prefixes over the table.  Removal shifts the following entries
+ * of the probe sequence back into the hole, so the table never contains
+ * deleted markers and lookups do not degrade after many removals.
+ *
+ * <p>The table is doubled whenever it becomes more than
+ * {@link #DEFAULT_LOAD_FACTOR} full.  That is lower than the default load
+ * factor of {@link java.util.HashMap}, because linear probing needs free
+ * slots to keep probe sequences short, but since there are no entry
+ * objects the map still uses less memory than a chained table of the
+ * same size.
+ *
+ * <p>Like <code>HashMap</code>, this map permits null keys and values,
+ * is not synchronized, and its iterators are fail-fast: if the map is
+ * structurally modified after an iterator was created, other than
+ * through the iterator's own <code>remove</code> method, the iterator
+ * throws a {@link ConcurrentModificationException}.  The iteration order
+ * is unspecified.  The entries handed out by the entry set iterator
+ * remain usable after the map changes: an entry whose mapping was
+ * removed keeps the last value it saw.
+ *
+ * <p>Use {@link HashMapFactory} rather than creating instances directly
+ * if the choice of implementation should stay configurable.
+ *
+ * @see java.util.HashMap
+ * @see HashMapFactory
+ */
+public class OpenHashMap<K, V> extends AbstractMap<K, V>
+  implements Map<K, V>, Cloneable, Serializable
+{
+  private static final long serialVersionUID = 6040262620950437395L;
+
+  /**
+   * The default capacity, in mappings, of a new map.
+   */
+  static final int DEFAULT_CAPACITY = 16;
+
+  /**
+   * The fraction of slots that may be used before the table is doubled.
+   */
+  public static final float DEFAULT_LOAD_FACTOR = 0.5f;
+
+  /**
+   * The largest number of slots the table can have; the array then
+   * holds 2<sup>30</sup> objects.
+   */
+  private static final int MAXIMUM_CAPACITY = 1 << 29;
+
+  /**
+   * The multiplier used for Fibonacci hashing, 2<sup>32</sup> divided by
+   * the golden ratio.
+   */
+  private static final int PHI = 0x9e3779b9;
+
+  /**
+   * Stands in for the null key in the table, where null marks a free
+   * slot.
+   */
+  private static final Object NULL_KEY = new Object();
+
+  /**
+   * The maximum number of mappings before the table is resized.
+   *
+   * @serial the threshold for rehashing
+   */
+  private int threshold;
+
+  /**
+   * The load factor of this map.
+   *
+   * @serial the load factor
+   */
+  final float loadFactor;
+
+  /**
+   * The keys and values, interleaved.  Slot <code>i</code> has its key
+   * at <code>2 * i</code> and its value at <code>2 * i + 1</code>.
+   */
+  private transient Object[] table;
+
+  /**
+   * The scrambled hash codes of the keys, one per slot.  Comparing these
+   * first avoids most calls to <code>equals</code> on a collision, and
+   * lets removal and resizing find the home slot of a key without
+   * calling <code>hashCode</code> again.
+   */
+  private transient int[] hashes;
+
+  /**
+   * Number of bits to shift the scrambled hash right by to get a slot
+   * index: 32 minus the base-2 logarithm of the number of slots.
+   */
+  private transient int shift;
+
+  /**
+   * The number of mappings in this map.
+   */
+  private transient int size;
+
+  /**
+   * Counts the structural modifications, for the fail-fast iterators.
+   */
+  transient int modCount;
+
+  /**
+   * The cached set of entries, created on demand.
+   */
+  private transient Set<Map.Entry<K, V>> entries;
+
+  /**
+   * The cached key set, created on demand.  This map cannot use the
+   * field in AbstractMap because that one is package-private.
+   */
+  private transient Set<K> keySet;
+
+  /**
+   * The cached value collection, created on demand.
+   */
+  private transient Collection<V> valueCollection;
+
+  /**
+   * Construct a new map with the default capacity (16) and load factor
+   * (0.5).
+   */
+  public OpenHashMap()
+  {
+    this(DEFAULT_CAPACITY, DEFAULT_LOAD_FACTOR);
+  }
+
+  /**
+   * Construct a new map that can hold the given number of mappings
+   * without being resized, with the default load factor (0.5).
+   *
+   * @param initialCapacity the number of mappings to make room for
+   * @throws IllegalArgumentException if initialCapacity &lt; 0
+   */
+  public OpenHashMap(int initialCapacity)
+  {
+    this(initialCapacity, DEFAULT_LOAD_FACTOR);
+  }
+
+  /**
+   * Construct a new map that can hold the given number of mappings
+   * without being resized, with the given load factor.
+   *
+   * @param initialCapacity the number of mappings to make room for
+   * @param loadFactor the fraction of slots in use that triggers a
+   *        resize, between 0 and 1 exclusive
+   * @throws IllegalArgumentException if initialCapacity &lt; 0, or if
+   *         loadFactor is not strictly between 0 and 1
+   */
+  public OpenHashMap(int initialCapacity, float loadFactor)
+  {
+    if (initialCapacity < 0)
+      throw new IllegalArgumentException("Illegal Capacity: "
+                                         + initialCapacity);
+    if (! (loadFactor > 0 && loadFactor < 1))
+      throw new IllegalArgumentException("Illegal Load: " + loadFactor);
+    this.loadFactor = loadFactor;
+    allocate(slotsFor(initialCapacity));
+  }
+
+  /**
+   * Construct a new map with the same mappings as the given map, and
+   * the default load factor (0.5).
+   *
+   * @param m the map to copy
+   * @throws NullPointerException if m is null
+   */
+  public OpenHashMap(Map<? extends K, ? extends V> m)
+  {
+    this(Math.max(m.size(), DEFAULT_CAPACITY), DEFAULT_LOAD_FACTOR);
+    putAll(m);
+  }
+
+  /**
+   * Returns the number of mappings in this map.
+   *
+   * @return the size
+   */
+  public int size()
+  {
+    return size;
+  }
+
+  /**
+   * Returns true if there are no mappings in this map.
+   *
+   * @return <code>size() == 0</code>
+   */
+  public boolean isEmpty()
+  {
+    return size == 0;
+  }
+
+  /**
+   * Return the value to which the key is mapped, or null if there is no
+   * mapping.  A return of null does not tell whether the key is mapped
+   * to null; use {@link #containsKey(Object)} for that.
+   *
+   * @param key the key to look up
+   * @return the value the key maps to, or null
+   */
+  public V get(Object key)
+  {
+    int i = find(key);
+    return i < 0 ? null : (V) table[i + 1];
+  }
+
+  /**
+   * Returns true if the supplied object <code>equals()</code> a key in
+   * this map.
+   *
+   * @param key the key to search for
+   * @return true if the key is in the table
+   */
+  public boolean containsKey(Object key)
+  {
+    return find(key) >= 0;
+  }
+
+  /**
+   * Returns true if this map contains a value <code>o</code> such that
+   * <code>o.equals(value)</code>.  This scans the whole table.
+   *
+   * @param value the value to search for
+   * @return true if at least one key maps to the value
+   */
+  public boolean containsValue(Object value)
+  {
+    Object[] tab = table;
+    for (int i = 0; i < tab.length; i += 2)
+      if (tab[i] != null && equals(value, tab[i + 1]))
+        return true;
+    return false;
+  }
+
+  /**
+   * Puts the supplied value into the map, mapped by the supplied key.
+   * The value can be retrieved by <code>get()</code>ing the key.  An
+   * existing mapping of the key is replaced.
+   *
+   * @param key the key used to locate the value
+   * @param value the value to be stored
+   * @return the prior mapping of the key, or null if there was none
+   */
+  public V put(K key, V value)
+  {
+    Object k = key == null ? NULL_KEY : key;
+    int h = hash(k);
+    Object[] tab = table;
+    int mask = tab.length - 1;
+    int i = slot(h);
+    Object cur;
+    while ((cur = tab[i]) != null)
+      {
+        if (cur == k || (hashes[i >> 1] == h && cur.equals(k)))
+          {
+            V old = (V) tab[i + 1];
+            tab[i + 1] = value;
+            return old;
+          }
+        i = (i + 2) & mask;
+      }
+
+    modCount++;
+    if (size >= threshold)
+      {
+        // Two array elements per slot, so this doubles the slot count.
+        rehash(tab.length);
+        tab = table;
+        mask = tab.length - 1;
+        i = slot(h);
+        while (tab[i] != null)
+          i = (i + 2) & mask;
+      }
+    tab[i] = k;
+    tab[i + 1] = value;
+    hashes[i >> 1] = h;
+    size++;
+    return null;
+  }
+
+  /**
+   * Copies all elements of the given map into this map.  The table is
+   * grown once up front when the other map is large.
+   *
+   * @param m the map to be added
+   * @throws NullPointerException if m is null
+   */
+  public void putAll(Map<? extends K, ? extends V> m)
+  {
+    int needed = size + m.size();
+    if (needed > threshold)
+      {
+        int slots = slotsFor(needed);
+        if (slots > table.length >> 1)
+          rehash(slots);
+      }
+    super.putAll(m);
+  }
+
+  /**
+   * Removes from the map and returns the value which is mapped by the
+   * supplied key.  If the key maps to nothing, then the map remains
+   * unchanged, and null is returned.  A return of null does not tell
+   * whether the key was mapped to null.
+   *
+   * @param key the key used to locate the value to remove
+   * @return whatever the key mapped to, if present
+   */
+  public V remove(Object key)
+  {
+    int i = find(key);
+    if (i < 0)
+      return null;
+    V old = (V) table[i + 1];
+    removeAt(i);
+    return old;
+  }
+
+  /**
+   * Clears the map so that it has no keys.  The capacity is kept.
+   */
+  public void clear()
+  {
+    if (size != 0)
+      {
+        modCount++;
+        Object[] tab = table;
+        for (int i = 0; i < tab.length; i++)
+          tab[i] = null;
+        size = 0;
+      }
+  }
+
+  /**
+   * Returns a shallow clone of this map.  The keys and values are not
+   * cloned.
+   *
+   * @return the clone
+   */
+  public Object clone()
+  {
+    OpenHashMap<K, V> copy = null;
+    try
+      {
+        copy = (OpenHashMap<K, V>) super.clone();
+      }
+    catch (CloneNotSupportedException x)
+      {
+        // This is impossible.
+      }
+    copy.table = (Object[]) table.clone();
+    copy.hashes = (int[]) hashes.clone();
+    copy.entries = null;
+    copy.keySet = null;
+    copy.valueCollection = null;
+    copy.modCount = 0;
+    return copy;
+  }
+
+  /**
+   * Returns a "set view" of this map's keys.  The set is backed by the
+   * map, so changes in one show up in the other.  The set supports
+   * element removal, but not element addition.
+   *
+   * @return a set view of the keys
+   */
+  public Set<K> keySet()
+  {
+    if (keySet == null)
+      keySet = new AbstractSet<K>()
+        {
+          public int size()
+          {
+            return size;
+          }
+
+          public Iterator<K> iterator()
+          {
+            return new OpenIterator<K>(KEYS);
+          }
+
+          public void clear()
+          {
+            OpenHashMap.this.clear();
+          }
+
+          public boolean contains(Object o)
+          {
+            return containsKey(o);
+          }
+
+          public boolean remove(Object o)
+          {
+            int i = find(o);
+            if (i < 0)
+              return false;
+            removeAt(i);
+            return true;
+          }
+        };
+    return keySet;
+  }
+
+  /**
+   * Returns a "collection view" of this map's values.  The collection
+   * is backed by the map, so changes in one show up in the other.  The
+   * collection supports element removal, but not element addition.
+   *
+   * @return a collection view of the values
+   */
+  public Collection<V> values()
+  {
+    if (valueCollection == null)
+      valueCollection = new AbstractCollection<V>()
+        {
+          public int size()
+          {
+            return size;
+          }
+
+          public Iterator<V> iterator()
+          {
+            return new OpenIterator<V>(VALUES);
+          }
+
+          public void clear()
+          {
+            OpenHashMap.this.clear();
+          }
+
+          public boolean contains(Object o)
+          {
+            return containsValue(o);
+          }
+        };
+    return valueCollection;
+  }
+
+  /**
+   * Returns a "set view" of this map's entries.  The set is backed by
+   * the map, so changes in one show up in the other.  The set supports
+   * element removal, but not element addition.  Each
+   * <code>Map.Entry</code> supports <code>setValue</code>, which writes
+   * through to the map as long as the key is still mapped.
+   *
+   * @return a set view of the entries
+   */
+  public Set<Map.Entry<K, V>> entrySet()
+  {
+    if (entries == null)
+      entries = new AbstractSet<Map.Entry<K, V>>()
+        {
+          public int size()
+          {
+            return size;
+          }
+
+          public Iterator<Map.Entry<K, V>> iterator()
+          {
+            return new OpenIterator<Map.Entry<K, V>>(ENTRIES);
+          }
+
+          public void clear()
+          {
+            OpenHashMap.this.clear();
+          }
+
+          public boolean contains(Object o)
+          {
+            return entryIndex(o) >= 0;
+          }
+
+          public boolean remove(Object o)
+          {
+            int i = entryIndex(o);
+            if (i < 0)
+              return false;
+            removeAt(i);
+            return true;
+          }
+        };
+    return entries;
+  }
+
+  /**
+   * Returns the table index of the key, or -1 if it is not mapped.
+   *
+   * @param key the key to look up, may be null
+   * @return the index of the key in the table, or -1
+   */
+  private int find(Object key)
+  {
+    Object k = key == null ? NULL_KEY : key;
+    int h = hash(k);
+    Object[] tab = table;
+    int mask = tab.length - 1;
+    int i = slot(h);
+    Object cur;
+    while ((cur = tab[i]) != null)
+      {
+        if (cur == k || (hashes[i >> 1] == h && cur.equals(k)))
+          return i;
+        i = (i + 2) & mask;
+      }
+    return -1;
+  }
+
+  /**
+   * Returns the table index of the mapping that equals the given entry,
+   * or -1 if there is none.
+   *
+   * @param o the entry to look up
+   * @return the index of the matching key in the table, or -1
+   */
+  int entryIndex(Object o)
+  {
+    if (! (o instanceof Map.Entry))
+      return -1;
+    Map.Entry e = (Map.Entry) o;
+    int i = find(e.getKey());
+    if (i < 0 || ! equals(e.getValue(), table[i + 1]))
+      return -1;
+    return i;
+  }
+
+  /**
+   * Returns the scrambled hash code of a key.
+   *
+   * @param k the key, not null
+   * @return the hash code multiplied by {@link #PHI}
+   */
+  private static int hash(Object k)
+  {
+    return k.hashCode() * PHI;
+  }
+
+  /**
+   * Returns the table index of the home slot for a scrambled hash code.
+   * The upper bits of the product with {@link #PHI} depend on all bits
+   * of the hash code, so they are the ones used.
+   *
+   * @param h the scrambled hash code
+   * @return an even index into the table
+   */
+  private int slot(int h)
+  {
+    return (h >>> shift) << 1;
+  }
+
+  /**
+   * Removes the mapping at the given table index and moves the entries
+   * that follow it in the same cluster back, so that each remains
+   * reachable from its home slot.  Entries before the hole never move,
+   * which the iterator relies upon.
+   *
+   * @param hole the index of the key to remove
+   */
+  void removeAt(int hole)
+  {
+    modCount++;
+    size--;
+    Object[] tab = table;
+    int[] hs = hashes;
+    int mask = tab.length - 1;
+    int i = (hole + 2) & mask;
+    Object k;
+    while ((k = tab[i]) != null)
+      {
+        int home = slot(hs[i >> 1]);
+        // Move the entry unless its home lies cyclically in (hole, i].
+        if (hole <= i ? (home <= hole || home > i)
+                      : (home <= hole && home > i))
+          {
+            tab[hole] = k;
+            tab[hole + 1] = tab[i + 1];
+            hs[hole >> 1] = hs[i >> 1];
+            hole = i;
+          }
+        i = (i + 2) & mask;
+      }
+    tab[hole] = null;
+    tab[hole + 1] = null;
+  }
+
+  /**
+   * Returns the number of slots needed to hold the given number of
+   * mappings at this map's load factor: a power of two, at least 4.
+   *
+   * @param mappings the number of mappings
+   * @return the number of slots
+   */
+  private int slotsFor(int mappings)
+  {
+    long wanted = (long) Math.ceil(mappings / (double) loadFactor);
+    int slots = 4;
+    while (slots < wanted && slots < MAXIMUM_CAPACITY)
+      slots <<= 1;
+    return slots;
+  }
+
+  /**
+   * Creates an empty table with the given number of slots.
+   *
+   * @param slots the number of slots, a power of two
+   */
+  private void allocate(int slots)
+  {
+    table = new Object[slots << 1];
+    hashes = new int[slots];
+    shift = Integer.numberOfLeadingZeros(slots) + 1;
+    threshold = slots == MAXIMUM_CAPACITY ? slots - 1
+                : Math.max((int) (slots * loadFactor), 1);
+  }
+
+  /**
+   * Moves all mappings into a table with the given number of slots.  A
+   * map that cannot grow any more fills up until only one slot is left
+   * free, which keeps every probe sequence finite.
+   *
+   * @param slots the new number of slots, a power of two
+   * @throws IllegalStateException if the map is completely full
+   */
+  private void rehash(int slots)
+  {
+    if (slots > MAXIMUM_CAPACITY)
+      {
+        if (size >= MAXIMUM_CAPACITY - 1)
+          throw new IllegalStateException("OpenHashMap is full");
+        threshold = MAXIMUM_CAPACITY - 1;
+        return;
+      }
+    Object[] old = table;
+    int[] oldHashes = hashes;
+    allocate(slots);
+    Object[] tab = table;
+    int[] hs = hashes;
+    int mask = tab.length - 1;
+    for (int j = 0; j < old.length; j += 2)
+      {
+        Object k = old[j];
+        if (k != null)
+          {
+            int h = oldHashes[j >> 1];
+            int i = slot(h);
+            while (tab[i] != null)
+              i = (i + 2) & mask;
+            tab[i] = k;
+            tab[i + 1] = old[j + 1];
+            hs[i >> 1] = h;
+          }
+      }
+  }
+
+  /**
+   * Compares two objects, either of which may be null.
+   */
+  static boolean equals(Object o1, Object o2)
+  {
+    return o1 == o2 || (o1 != null && o1.equals(o2));
+  }
+
+  /**
+   * Serializes this object to the given stream.
+   *
+   * @param s the stream to write to
+   * @throws IOException if the underlying stream fails
+   * @serialData the <i>capacity</i>(int) that is the number of slots in
+   *             the table and the <i>size</i>(int) of the map are
+   *             emitted first.  They are followed by size entries,
+   *             each consisting of a key (Object) and a value (Object).
+   */
+  private void writeObject(ObjectOutputStream s) throws IOException
+  {
+    // Write the threshold and loadFactor fields.
+    s.defaultWriteObject();
+
+    Object[] tab = table;
+    s.writeInt(tab.length >> 1);
+    s.writeInt(size);
+    for (int i = 0; i < tab.length; i += 2)
+      if (tab[i] != null)
+        {
+          s.writeObject(tab[i] == NULL_KEY ? null : tab[i]);
+          s.writeObject(tab[i + 1]);
+        }
+  }
+
+  /**
+   * Deserializes this object from the given stream.
+   *
+   * @param s the stream to read from
+   * @throws ClassNotFoundException if the underlying stream fails
+   * @throws IOException if the underlying stream fails
+   * @serialData the <i>capacity</i>(int) that is the number of slots in
+   *             the table and the <i>size</i>(int) of the map are
+   *             emitted first.  They are followed by size entries,
+   *             each consisting of a key (Object) and a value (Object).
+   */
+  private void readObject(ObjectInputStream s)
+    throws IOException, ClassNotFoundException
+  {
+    // Read the threshold and loadFactor fields.
+    s.defaultReadObject();
+
+    int slots = s.readInt();
+    int len = s.readInt();
+    // Do not trust the stream to give a sane capacity.
+    allocate(Math.max(slotsFor(len), Math.min(Integer.highestOneBit(slots),
+                                              MAXIMUM_CAPACITY)));
+    while (len-- > 0)
+      {
+        K key = (K) s.readObject();
+        put(key, (V) s.readObject());
+      }
+  }
+
+  /** Iterator type for keys. */
+  private static final int KEYS = 0;
+
+  /** Iterator type for values. */
+  private static final int VALUES = 1;
+
+  /** Iterator type for entries. */
+  private static final int ENTRIES = 2;
+
+  /**
+   * Iterates over the table, giving keys, values or entries.
+   *
+   * <p>The iteration starts just after a free slot, so that no cluster
+   * wraps around the end of the iteration, and walks the table upwards.
+   * Removing the current entry only moves entries that come later in
+   * its cluster, and only backwards, possibly into the hole itself; the
+   * iterator therefore looks at the same slot again after a removal and
+   * neither skips nor repeats an entry.
+   */
+  private final class OpenIterator<T> implements Iterator<T>
+  {
+    /**
+     * The type of this Iterator: {@link #KEYS}, {@link #VALUES},
+     * or {@link #ENTRIES}.
+     */
+    private final int type;
+
+    /**
+     * The number of modifications to the backing map that we know about.
+     */
+    private int knownMod = modCount;
+
+    /** The number of entries not yet returned. */
+    private int remaining = size;
+
+    /** The table index at which the iteration started. */
+    private final int start;
+
+    /** The offset from start of the next slot to look at. */
+    private int next;
+
+    /** The table index of the last entry returned, or -1. */
+    private int last = -1;
+
+    /**
+     * Construct a new OpenIterator with the supplied type.
+     *
+     * @param type {@link #KEYS}, {@link #VALUES}, or {@link #ENTRIES}
+     */
+    OpenIterator(int type)
+    {
+      this.type = type;
+      Object[] tab = table;
+      int i = 0;
+      if (size != 0)
+        while (tab[i] != null)
+          i += 2;
+      start = i;
+    }
+
+    /**
+     * Returns true if the Iterator has more elements.
+     *
+     * @return true if there are more elements
+     */
+    public boolean hasNext()
+    {
+      return remaining > 0;
+    }
+
+    /**
+     * Returns the next element in the Iterator's sequential view.
+     *
+     * @return the next element
+     * @throws ConcurrentModificationException if the map was modified
+     * @throws NoSuchElementException if there is none
+     */
+    public T next()
+    {
+      if (knownMod != modCount)
+        throw new ConcurrentModificationException();
+      if (remaining == 0)
+        throw new NoSuchElementException();
+      Object[] tab = table;
+      int mask = tab.length - 1;
+      int i;
+      do
+        {
+          i = (start + next) & mask;
+          next += 2;
+        }
+      while (tab[i] == null);
+      remaining--;
+      last = i;
+
+      if (type == VALUES)
+        return (T) tab[i + 1];
+      Object k = tab[i];
+      if (k == NULL_KEY)
+        k = null;
+      if (type == KEYS)
+        return (T) k;
+      return (T) new Entry(i, k);
+    }
+
+    /**
+     * Removes from the backing map the last element which was fetched
+     * with the <code>next()</code> method.
+     *
+     * @throws ConcurrentModificationException if the map was modified
+     * @throws IllegalStateException if called when there is no last element
+     */
+    public void remove()
+    {
+      if (knownMod != modCount)
+        throw new ConcurrentModificationException();
+      if (last < 0)
+        throw new IllegalStateException();
+      removeAt(last);
+      // A later entry of the cluster may have moved into the hole.
+      next -= 2;
+      last = -1;
+      knownMod++;
+    }
+  }
+
+  /**
+   * An entry handed out by the entry set iterator.  It reads and writes
+   * the value directly in the table.  A removal may shift the mapping to
+   * another slot, and a resize moves every mapping, so after a
+   * structural modification the entry finds its key again; once the key
+   * is gone, the entry keeps the last value it saw.
+   */
+  private final class Entry implements Map.Entry<K, V>
+  {
+    /** The table index of the key, or -1 once the key was removed. */
+    private int index;
+
+    /** The key, with null in place of {@link #NULL_KEY}. */
+    private final Object key;
+
+    /** The last value seen in the table. */
+    private Object value;
+
+    /** The value of the modification count when index was found. */
+    private int knownMod = modCount;
+
+    Entry(int index, Object key)
+    {
+      this.index = index;
+      this.key = key;
+      this.value = table[index + 1];
+    }
+
+    public K getKey()
+    {
+      return (K) key;
+    }
+
+    public V getValue()
+    {
+      if (locate())
+        value = table[index + 1];
+      return (V) value;
+    }
+
+    public V setValue(V value)
+    {
+      V old = getValue();
+      if (index >= 0)
+        table[index + 1] = value;
+      this.value = value;
+      return old;
+    }
+
+    /**
+     * Looks the key up again if the map was structurally modified since
+     * its index was found.
+     *
+     * @return true if the key is still mapped, at {@link #index}
+     */
+    private boolean locate()
+    {
+      if (knownMod != modCount)
+        {
+          knownMod = modCount;
+          if (index >= 0)
+            index = find(key);
+        }
+      return index >= 0;
+    }
+
+    public boolean equals(Object o)
+    {
+      if (! (o instanceof Map.Entry))
+        return false;
+      Map.Entry e = (Map.Entry) o;
+      return OpenHashMap.equals(key, e.getKey())
+        && OpenHashMap.equals(getValue(), e.getValue());
+    }
+
+    public int hashCode()
+    {
+      Object v = getValue();
+      return (key == null ? 0 : key.hashCode())
+        ^ (v == null ? 0 : v.hashCode());
+    }
+
+    public String toString()
+    {
+      return key + "=" + getValue();
+    }
+  }
+}
@@ -0,0 +1,640 @@
+/* DoubleArrayList.java -- A resizable array of double values
+   Copyright (C) 2026 Free Software Foundation, Inc.
+
+This file is part of GNU Classpath.
+
+GNU Classpath is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; either version 2, or (at your option)
+any later version.
+
+GNU Classpath is distributed in the hope that it will be useful, but
+WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with GNU Classpath; see the file COPYING.  If not, write to the
+Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+02110-1301 USA.
+
+Linking this library statically or dynamically with other modules is
+making a combined work based on this library.  Thus, the terms and
+conditions of the GNU General Public License cover the whole
+combination.
+
+As a special exception, the copyright holders of this library give you
+permission to link this library with independent modules to produce an
+executable, regardless of the license terms of these independent
+modules, and to copy and distribute the resulting executable under
+terms of your choice, provided that you also meet, for each linked
+independent module, the terms and conditions of the license of that
+module.  An independent module is a module which is not derived from
+or based on this library.  If you modify this library, you may extend
+this exception to your version of the library, but you are not
+obligated to do so.  If you do not wish to do so, delete this
+exception statement from your version. */
+
+package gnu.java.util.primitive;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+
+/**
+ * A resizable array of <code>double</code> values, like an
+ * <code>ArrayList&lt;Double&gt;</code> without the boxes: each element
+ * takes 8 bytes of a single array instead of a reference to a
+ * separate object.
+ *
+ * <p>{@link #asList()} gives a <code>List&lt;Double&gt;</code> view for
+ * code that works with the collections framework.  Like
+ * <code>ArrayList</code>, this list is not synchronized, and its
+ * iterators are fail-fast.
+ */
+public class DoubleArrayList
+  implements RandomAccess, Cloneable
+{
+  /**
+   * The default capacity of a new list.
+   */
+  private static final int DEFAULT_CAPACITY = 10;
+
+  /**
+   * The elements, in [0, size).
+   */
+  private double[] data;
+
+  /**
+   * The number of elements.
+   */
+  private int size;
+
+  /**
+   * Counts the structural modifications, for the fail-fast iterators.
+   */
+  private int modCount;
+
+  /**
+   * The cached boxed view, created on demand.
+   */
+  private List<Double> view;
+
+  /**
+   * Construct a new, empty list with the default capacity (10).
+   */
+  public DoubleArrayList()
+  {
+    this(DEFAULT_CAPACITY);
+  }
+
+  /**
+   * Construct a new, empty list with the given capacity.
+   *
+   * @param capacity the number of elements to make room for
+   * @throws IllegalArgumentException if capacity &lt; 0
+   */
+  public DoubleArrayList(int capacity)
+  {
+    if (capacity < 0)
+      throw new IllegalArgumentException("Illegal Capacity: " + capacity);
+    data = new double[capacity];
+  }
+
+  /**
+   * Construct a new list holding a copy of the values of an array.
+   *
+   * @param values the initial elements
+   * @throws NullPointerException if values is null
+   */
+  public DoubleArrayList(double[] values)
+  {
+    data = (double[]) values.clone();
+    size = values.length;
+  }
+
+  /**
+   * Returns the number of elements in this list.
+   *
+   * @return the list size
+   */
+  public int size()
+  {
+    return size;
+  }
+
+  /**
+   * Checks if the list is empty.
+   *
+   * @return true if there are no elements
+   */
+  public boolean isEmpty()
+  {
+    return size == 0;
+  }
+
+  /**
+   * Guarantees that this list will have at least enough capacity to
+   * hold minCapacity elements, growing it to max(current * 2,
+   * minCapacity) if needed.
+   *
+   * @param minCapacity the minimum guaranteed capacity
+   */
+  public void ensureCapacity(int minCapacity)
+  {
+    int current = data.length;
+    if (minCapacity > current)
+      data = Arrays.copyOf(data, Math.max(current * 2, minCapacity));
+  }
+
+  /**
+   * Trims the capacity of this list to its size.
+   */
+  public void trimToSize()
+  {
+    if (size != data.length)
+      data = Arrays.copyOf(data, size);
+  }
+
+  /**
+   * Retrieves the element at the given index.
+   *
+   * @param index the index of the element
+   * @return the element at that index
+   * @throws IndexOutOfBoundsException if index &lt; 0 || index &gt;= size()
+   */
+  public double get(int index)
+  {
+    checkBoundExclusive(index);
+    return data[index];
+  }
+
+  /**
+   * Sets the element at the given index.
+   *
+   * @param index the index of the element
+   * @param value the new value
+   * @return the element previously at that index
+   * @throws IndexOutOfBoundsException if index &lt; 0 || index &gt;= size()
+   */
+  public double set(int index, double value)
+  {
+    checkBoundExclusive(index);
+    double old = data[index];
+    data[index] = value;
+    return old;
+  }
+
+  /**
+   * Appends a value to the end of this list.
+   *
+   * @param value the value to append
+   */
+  public void add(double value)
+  {
+    modCount++;
+    if (size == data.length)
+      ensureCapacity(size + 1);
+    data[size++] = value;
+  }
+
+  /**
+   * Inserts a value at the given index, shifting the following elements
+   * up.
+   *
+   * @param index the index at which to insert
+   * @param value the value to insert
+   * @throws IndexOutOfBoundsException if index &lt; 0 || index &gt; size()
+   */
+  public void add(int index, double value)
+  {
+    checkBoundInclusive(index);
+    modCount++;
+    if (size == data.length)
+      ensureCapacity(size + 1);
+    if (index != size)
+      System.arraycopy(data, index, data, index + 1, size - index);
+    data[index] = value;
+    size++;
+  }
+
+  /**
+   * Appends the values of an array to the end of this list.
+   *
+   * @param values the values to append
+   */
+  public void addAll(double[] values)
+  {
+    addAll(values, 0, values.length);
+  }
+
+  /**
+   * Appends a range of an array to the end of this list.
+   *
+   * @param values the array
+   * @param offset the index of the first value to append
+   * @param count the number of values to append
+   * @throws IndexOutOfBoundsException if the range is not in the array
+   */
+  public void addAll(double[] values, int offset, int count)
+  {
+    if (offset < 0 || count < 0 || offset > values.length - count)
+      throw new IndexOutOfBoundsException("Offset: " + offset + ", Count: "
+                                          + count + ", Length: "
+                                          + values.length);
+    modCount++;
+    if (size + count > data.length)
+      ensureCapacity(size + count);
+    System.arraycopy(values, offset, data, size, count);
+    size += count;
+  }
+
+  /**
+   * Appends the elements of another list to the end of this list.
+   *
+   * @param list the list whose elements to append
+   */
+  public void addAll(DoubleArrayList list)
+  {
+    addAll(list.data, 0, list.size);
+  }
+
+  /**
+   * Removes the element at the given index, shifting the following
+   * elements down.
+   *
+   * @param index the index of the element to remove
+   * @return the removed element
+   * @throws IndexOutOfBoundsException if index &lt; 0 || index &gt;= size()
+   */
+  public double removeAt(int index)
+  {
+    checkBoundExclusive(index);
+    double old = data[index];
+    modCount++;
+    if (index != --size)
+      System.arraycopy(data, index + 1, data, index, size - index);
+    return old;
+  }
+
+  /**
+   * Removes the elements in [fromIndex, toIndex), shifting the following
+   * elements down.
+   *
+   * @param fromIndex the first index to remove (inclusive)
+   * @param toIndex the last index to remove (exclusive)
+   * @throws IndexOutOfBoundsException if the range is not in the list
+   */
+  public void removeRange(int fromIndex, int toIndex)
+  {
+    if (fromIndex < 0 || toIndex > size || fromIndex > toIndex)
+      throw new IndexOutOfBoundsException("From Index: " + fromIndex
+                                          + ", To Index: " + toIndex
+                                          + ", Size: " + size);
+    if (fromIndex != toIndex)
+      {
+        modCount++;
+        System.arraycopy(data, toIndex, data, fromIndex, size - toIndex);
+        size -= toIndex - fromIndex;
+      }
+  }
+
+  /**
+   * Removes all elements from this list.  The capacity is kept.
+   */
+  public void clear()
+  {
+    if (size > 0)
+      {
+        modCount++;
+        size = 0;
+      }
+  }
+
+  /**
+   * Returns the lowest index at which the value occurs, or -1.
+   *
+   * <p>Values are compared like {@link Double#equals}, so NaN is found
+   * and 0.0 and -0.0 are different.
+   *
+   * @param value the value to search for
+   * @return the index of the first occurrence, or -1
+   */
+  public int indexOf(double value)
+  {
+    for (int i = 0; i < size; i++)
+      if (Double.doubleToLongBits(data[i]) == Double.doubleToLongBits(value))
+        return i;
+    return -1;
+  }
+
+  /**
+   * Returns the highest index at which the value occurs, or -1.
+   *
+   * @param value the value to search for
+   * @return the index of the last occurrence, or -1
+   */
+  public int lastIndexOf(double value)
+  {
+    for (int i = size - 1; i >= 0; i--)
+      if (Double.doubleToLongBits(data[i]) == Double.doubleToLongBits(value))
+        return i;
+    return -1;
+  }
+
+  /**
+   * Returns true if the value occurs in this list.
+   *
+   * @param value the value to search for
+   * @return <code>indexOf(value) != -1</code>
+   */
+  public boolean contains(double value)
+  {
+    return indexOf(value) != -1;
+  }
+
+  /**
+   * Sorts the elements into ascending order, as by
+   * {@link Arrays#sort(double[])}.
+   */
+  public void sort()
+  {
+    Arrays.sort(data, 0, size);
+  }
+
+  /**
+   * Returns the elements of this list in a new array.
+   *
+   * @return the elements
+   */
+  public double[] toArray()
+  {
+    return Arrays.copyOf(data, size);
+  }
+
+  /**
+   * Returns an iterator over the elements of this list.  It supports
+   * removal.
+   *
+   * @return an iterator
+   */
+  public DoubleIterator iterator()
+  {
+    return new DoubleIterator()
+      {
+        private int knownMod = modCount;
+        private int pos;
+        private int last = -1;
+
+        public boolean hasNext()
+        {
+          return pos < size;
+        }
+
+        public double next()
+        {
+          if (knownMod != modCount)
+            throw new ConcurrentModificationException();
+          if (pos >= size)
+            throw new NoSuchElementException();
+          last = pos;
+          return data[pos++];
+        }
+
+        public void remove()
+        {
+          if (knownMod != modCount)
+            throw new ConcurrentModificationException();
+          if (last < 0)
+            throw new IllegalStateException();
+          removeAt(last);
+          pos = last;
+          last = -1;
+          knownMod = modCount;
+        }
+      };
+  }
+
+  /**
+   * Returns a view of this list as a <code>List&lt;Double&gt;</code>.  The
+   * view is backed by this list, so changes in one show up in the other,
+   * and it supports all optional operations except storing null.  Its
+   * methods box and unbox the elements.
+   *
+   * @return the list view
+   */
+  public List<Double> asList()
+  {
+    if (view == null)
+      view = new BoxedList();
+    return view;
+  }
+
+  /**
+   * Returns true if the object is a DoubleArrayList with the same elements
+   * in the same order.
+   *
+   * <p>Values are compared like {@link Double#equals}, so NaN is found
+   * and 0.0 and -0.0 are different.
+   *
+   * @param o the object to compare with
+   * @return true if the lists are equal
+   */
+  public boolean equals(Object o)
+  {
+    if (o == this)
+      return true;
+    if (! (o instanceof DoubleArrayList))
+      return false;
+    DoubleArrayList l = (DoubleArrayList) o;
+    if (l.size != size)
+      return false;
+    for (int i = 0; i < size; i++)
+      if (Double.doubleToLongBits(data[i])
+          != Double.doubleToLongBits(l.data[i]))
+        return false;
+    return true;
+  }
+
+  /**
+   * Returns the hash code of this list, which is the same as that of
+   * <code>asList()</code>.
+   *
+   * @return the hash code
+   */
+  public int hashCode()
+  {
+    int h = 1;
+    for (int i = 0; i < size; i++)
+      {
+        long bits = Double.doubleToLongBits(data[i]);
+        h = 31 * h + (int) (bits ^ (bits >>> 32));
+      }
+    return h;
+  }
+
+  /**
+   * Returns a string such as <code>[1, 2, 3]</code>.
+   *
+   * @return a string representation of this list
+   */
+  public String toString()
+  {
+    StringBuilder sb = new StringBuilder("[");
+    for (int i = 0; i < size; i++)
+      {
+        if (i > 0)
+          sb.append(", ");
+        sb.append(data[i]);
+      }
+    return sb.append(']').toString();
+  }
+
+  /**
+   * Returns a copy of this list.
+   *
+   * @return the clone
+   */
+  public Object clone()
+  {
+    DoubleArrayList copy = null;
+    try
+      {
+        copy = (DoubleArrayList) super.clone();
+      }
+    catch (CloneNotSupportedException x)
+      {
+        // This is impossible.
+      }
+    copy.data = (double[]) data.clone();
+    copy.view = null;
+    copy.modCount = 0;
+    return copy;
+  }
+
+  /**
+   * Checks that the index is in the range of possible elements (inclusive).
+   *
+   * @param index the index to check
+   * @throws IndexOutOfBoundsException if index &gt; size
+   */
+  private void checkBoundInclusive(int index)
+  {
+    if (index < 0 || index > size)
+      raiseBoundsError(index);
+  }
+
+  /**
+   * Checks that the index is in the range of existing elements (exclusive).
+   *
+   * @param index the index to check
+   * @throws IndexOutOfBoundsException if index &gt;= size
+   */
+  private void checkBoundExclusive(int index)
+  {
+    // Unlike ArrayList, the array may hold stale values past size, so a
+    // negative index has to be caught here as well.
+    if (index < 0 || index >= size)
+      raiseBoundsError(index);
+  }
+
+  /**
+   * Raise the IndexOutOfBoundsException.
+   *
+   * @param index the index of the access
+   * @throws IndexOutOfBoundsException unconditionally
+   */
+  private void raiseBoundsError(int index)
+  {
+    throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+  }
+
+  /**
+   * The view returned by {@link #asList()}.  Its iterator wraps
+   * {@link #iterator()}, so that it notices changes made to the
+   * outer list.
+   */
+  private final class BoxedList
+    extends AbstractList<Double>
+    implements RandomAccess
+  {
+    public int size()
+    {
+      return size;
+    }
+
+    public Double get(int index)
+    {
+      return Double.valueOf(DoubleArrayList.this.get(index));
+    }
+
+    public Double set(int index, Double value)
+    {
+      double old = DoubleArrayList.this.set(index, value.doubleValue());
+      return Double.valueOf(old);
+    }
+
+    public void add(int index, Double value)
+    {
+      DoubleArrayList.this.add(index, value.doubleValue());
+    }
+
+    public Double remove(int index)
+    {
+      return Double.valueOf(removeAt(index));
+    }
+
+    public int indexOf(Object o)
+    {
+      return o instanceof Double
+        ? DoubleArrayList.this.indexOf(((Double) o).doubleValue()) : -1;
+    }
+
+    public int lastIndexOf(Object o)
+    {
+      return o instanceof Double
+        ? DoubleArrayList.this.lastIndexOf(((Double) o).doubleValue()) : -1;
+    }
+
+    public boolean contains(Object o)
+    {
+      return indexOf(o) != -1;
+    }
+
+    public void clear()
+    {
+      DoubleArrayList.this.clear();
+    }
+
+    protected void removeRange(int fromIndex, int toIndex)
+    {
+      DoubleArrayList.this.removeRange(fromIndex, toIndex);
+    }
+
+    public Iterator<Double> iterator()
+    {
+      final DoubleIterator it = DoubleArrayList.this.iterator();
+      return new Iterator<Double>()
+        {
+          public boolean hasNext()
+          {
+            return it.hasNext();
+          }
+
+          public Double next()
+          {
+            return Double.valueOf(it.next());
+          }
+
+          public void remove()
+          {
+            it.remove();
+          }
+        };
+    }
+  }
+}
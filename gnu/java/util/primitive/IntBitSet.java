@@ -0,0 +1,382 @@
+/* IntBitSet.java -- A set of small non-negative int values
+   Copyright (C) 2026 Free Software Foundation, Inc.
+
+This file is part of GNU Classpath.
+
+GNU Classpath is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; either version 2, or (at your option)
+any later version.
+
+GNU Classpath is distributed in the hope that it will be useful, but
+WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with GNU Classpath; see the file COPYING.  If not, write to the
+Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+02110-1301 USA.
+
+Linking this library statically or dynamically with other modules is
+making a combined work based on this library.  Thus, the terms and
+conditions of the GNU General Public License cover the whole
+combination.
+
+As a special exception, the copyright holders of this library give you
+permission to link this library with independent modules to produce an
+executable, regardless of the license terms of these independent
+modules, and to copy and distribute the resulting executable under
+terms of your choice, provided that you also meet, for each linked
+independent module, the terms and conditions of the license of that
+module.  An independent module is a module which is not derived from
+or based on this library.  If you modify this library, you may extend
+this exception to your version of the library, but you are not
+obligated to do so.  If you do not wish to do so, delete this
+exception statement from your version. */
+
+package gnu.java.util.primitive;
+
+import java.util.AbstractSet;
+import java.util.BitSet;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * A set of non-negative <code>int</code> values kept as the bits of a
+ * {@link BitSet}.  It takes one bit per possible value up to the largest
+ * one, so it suits dense values such as indexes or small identifiers,
+ * where it is much smaller and faster than a hash set.  The values are
+ * iterated in ascending order.
+ *
+ * <p>{@link #asSet()} gives a <code>Set&lt;Integer&gt;</code> view for
+ * code that works with the collections framework.  Like the collections
+ * in <code>java.util</code>, this set is not synchronized, and its
+ * iterators are fail-fast.
+ */
+public class IntBitSet
+  implements Cloneable
+{
+  /**
+   * The values in the set.
+   */
+  private BitSet bits;
+
+  /**
+   * The number of values in the set, which BitSet would have to count.
+   */
+  private int size;
+
+  /**
+   * Counts the structural modifications, for the fail-fast iterators.
+   */
+  private int modCount;
+
+  /**
+   * The cached boxed view, created on demand.
+   */
+  private Set<Integer> view;
+
+  /**
+   * Construct a new, empty set.
+   */
+  public IntBitSet()
+  {
+    bits = new BitSet();
+  }
+
+  /**
+   * Construct a new, empty set with room for the values below the
+   * given bound.
+   *
+   * @param bound the values to make room for, exclusive
+   * @throws NegativeArraySizeException if bound &lt; 0
+   */
+  public IntBitSet(int bound)
+  {
+    bits = new BitSet(bound);
+  }
+
+  /**
+   * Returns the number of values in this set.
+   *
+   * @return the size
+   */
+  public int size()
+  {
+    return size;
+  }
+
+  /**
+   * Returns true if there are no values in this set.
+   *
+   * @return <code>size() == 0</code>
+   */
+  public boolean isEmpty()
+  {
+    return size == 0;
+  }
+
+  /**
+   * Returns true if the value is in this set.
+   *
+   * @param value the value to look for
+   * @return true if the set contains it; always false if value &lt; 0
+   */
+  public boolean contains(int value)
+  {
+    return value >= 0 && bits.get(value);
+  }
+
+  /**
+   * Adds a value to this set.
+   *
+   * @param value the value to add
+   * @return true if the set did not contain it already
+   * @throws IllegalArgumentException if value &lt; 0
+   */
+  public boolean add(int value)
+  {
+    if (value < 0)
+      throw new IllegalArgumentException("Negative value: " + value);
+    if (bits.get(value))
+      return false;
+    bits.set(value);
+    size++;
+    modCount++;
+    return true;
+  }
+
+  /**
+   * Removes a value from this set.
+   *
+   * @param value the value to remove
+   * @return true if the set contained it
+   */
+  public boolean remove(int value)
+  {
+    if (! contains(value))
+      return false;
+    bits.clear(value);
+    size--;
+    modCount++;
+    return true;
+  }
+
+  /**
+   * Removes all values from this set.
+   */
+  public void clear()
+  {
+    if (size != 0)
+      {
+        bits.clear();
+        size = 0;
+        modCount++;
+      }
+  }
+
+  /**
+   * Returns the smallest value in this set that is at least the given
+   * one, or -1 if there is none.
+   *
+   * @param from the value to start from
+   * @return the next value, or -1
+   * @throws IndexOutOfBoundsException if from &lt; 0
+   */
+  public int nextValue(int from)
+  {
+    return bits.nextSetBit(from);
+  }
+
+  /**
+   * Returns the values in this set in ascending order.
+   *
+   * @return a new array of the values
+   */
+  public int[] toArray()
+  {
+    int[] a = new int[size];
+    int n = 0;
+    for (int i = bits.nextSetBit(0); i >= 0; i = bits.nextSetBit(i + 1))
+      a[n++] = i;
+    return a;
+  }
+
+  /**
+   * Returns the values in this set as a new BitSet.
+   *
+   * @return a copy of the bits
+   */
+  public BitSet toBitSet()
+  {
+    return (BitSet) bits.clone();
+  }
+
+  /**
+   * Returns an iterator over the values in this set in ascending order.
+   * It supports removal.
+   *
+   * @return an iterator
+   */
+  public IntIterator iterator()
+  {
+    return new IntIterator()
+      {
+        private int knownMod = modCount;
+        private int next = bits.nextSetBit(0);
+        private int last = -1;
+
+        public boolean hasNext()
+        {
+          return next >= 0;
+        }
+
+        public int next()
+        {
+          if (knownMod != modCount)
+            throw new ConcurrentModificationException();
+          if (next < 0)
+            throw new NoSuchElementException();
+          last = next;
+          next = bits.nextSetBit(next + 1);
+          return last;
+        }
+
+        public void remove()
+        {
+          if (knownMod != modCount)
+            throw new ConcurrentModificationException();
+          if (last < 0)
+            throw new IllegalStateException();
+          IntBitSet.this.remove(last);
+          last = -1;
+          knownMod = modCount;
+        }
+      };
+  }
+
+  /**
+   * Returns a view of this set as a <code>Set&lt;Integer&gt;</code>.  The
+   * view is backed by this set, so changes in one show up in the other,
+   * and it supports adding and removing elements.  Its methods box and
+   * unbox the values.
+   *
+   * @return the set view
+   */
+  public Set<Integer> asSet()
+  {
+    if (view == null)
+      view = new AbstractSet<Integer>()
+        {
+          public int size()
+          {
+            return size;
+          }
+
+          public Iterator<Integer> iterator()
+          {
+            final IntIterator it = IntBitSet.this.iterator();
+            return new Iterator<Integer>()
+              {
+                public boolean hasNext()
+                {
+                  return it.hasNext();
+                }
+
+                public Integer next()
+                {
+                  return Integer.valueOf(it.next());
+                }
+
+                public void remove()
+                {
+                  it.remove();
+                }
+              };
+          }
+
+          public boolean contains(Object o)
+          {
+            return o instanceof Integer
+              && IntBitSet.this.contains(((Integer) o).intValue());
+          }
+
+          public boolean add(Integer value)
+          {
+            return IntBitSet.this.add(value.intValue());
+          }
+
+          public boolean remove(Object o)
+          {
+            return o instanceof Integer
+              && IntBitSet.this.remove(((Integer) o).intValue());
+          }
+
+          public void clear()
+          {
+            IntBitSet.this.clear();
+          }
+        };
+    return view;
+  }
+
+  /**
+   * Returns true if the object is an IntBitSet with the same values.
+   *
+   * @param o the object to compare with
+   * @return true if the sets are equal
+   */
+  public boolean equals(Object o)
+  {
+    return o instanceof IntBitSet && ((IntBitSet) o).bits.equals(bits);
+  }
+
+  /**
+   * Returns the hash code of this set, which is the same as that of
+   * <code>asSet()</code>.
+   *
+   * @return the sum of the values
+   */
+  public int hashCode()
+  {
+    int h = 0;
+    for (int i = bits.nextSetBit(0); i >= 0; i = bits.nextSetBit(i + 1))
+      h += i;
+    return h;
+  }
+
+  /**
+   * Returns a string such as <code>[1, 2, 3]</code>.
+   *
+   * @return a string representation of this set
+   */
+  public String toString()
+  {
+    return bits.toString().replace('{', '[').replace('}', ']');
+  }
+
+  /**
+   * Returns a copy of this set.
+   *
+   * @return the clone
+   */
+  public Object clone()
+  {
+    IntBitSet copy = null;
+    try
+      {
+        copy = (IntBitSet) super.clone();
+      }
+    catch (CloneNotSupportedException x)
+      {
+        // This is impossible.
+      }
+    copy.bits = (BitSet) bits.clone();
+    copy.view = null;
+    copy.modCount = 0;
+    return copy;
+  }
+}
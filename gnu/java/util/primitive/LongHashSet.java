@@ -0,0 +1,690 @@
+/* LongHashSet.java -- A hash set of long values
+   Copyright (C) 2026 Free Software Foundation, Inc.
+
+This file is part of GNU Classpath.
+
+GNU Classpath is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; either version 2, or (at your option)
+any later version.
+
+GNU Classpath is distributed in the hope that it will be useful, but
+WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with GNU Classpath; see the file COPYING.  If not, write to the
+Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+02110-1301 USA.
+
+Linking this library statically or dynamically with other modules is
+making a combined work based on this library.  Thus, the terms and
+conditions of the GNU General Public License cover the whole
+combination.
+
+As a special exception, the copyright holders of this library give you
+permission to link this library with independent modules to produce an
+executable, regardless of the license terms of these independent
+modules, and to copy and distribute the resulting executable under
+terms of your choice, provided that you also meet, for each linked
+independent module, the terms and conditions of the license of that
+module.  An independent module is a module which is not derived from
+or based on this library.  If you modify this library, you may extend
+this exception to your version of the library, but you are not
+obligated to do so.  If you do not wish to do so, delete this
+exception statement from your version. */
+
+package gnu.java.util.primitive;
+
+import java.util.AbstractSet;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * A hash set of <code>long</code> values that does not box them.  The
+ * elements are kept in a single array, so adding an element allocates
+ * nothing unless the table has to grow.
+ *
+ * <p>The table works like the one of {@link gnu.java.util.OpenHashMap}:
+ * collisions are resolved by linear probing, the values are scrambled
+ * by Fibonacci hashing, and removal moves the following elements of the
+ * probe sequence back instead of leaving deleted markers.  0 marks a
+ * free slot, so whether the set contains 0 is kept in a separate field.
+ *
+ * <p>{@link #asSet()} gives a <code>Set&lt;Long&gt;</code> view for
+ * code that works with the collections framework.  Like the collections
+ * in <code>java.util</code>, this set is not synchronized, and its
+ * iterators are fail-fast.
+ */
+public class LongHashSet
+  implements Cloneable
+{
+  /**
+   * The default capacity, in elements, of a new set.
+   */
+  private static final int DEFAULT_CAPACITY = 16;
+
+  /**
+   * The fraction of slots that may be used before the table is doubled.
+   */
+  public static final float DEFAULT_LOAD_FACTOR = 0.5f;
+
+  /**
+   * The largest number of slots the table can have.
+   */
+  private static final int MAXIMUM_CAPACITY = 1 << 30;
+
+  /**
+   * The multiplier used for Fibonacci hashing,
+   * 2<sup>64</sup> divided by the golden ratio.
+   */
+  private static final long PHI = 0x9e3779b97f4a7c15L;
+
+  /**
+   * The load factor of this set.
+   */
+  private final float loadFactor;
+
+  /**
+   * The elements in the table; 0 marks a free slot.
+   */
+  private long[] elements;
+
+  /**
+   * Number of bits to shift the scrambled value right by to get a slot
+   * index.
+   */
+  private int shift;
+
+  /**
+   * The number of elements in the table, not counting 0.
+   */
+  private int used;
+
+  /**
+   * The number of elements in the table before it is resized.
+   */
+  private int threshold;
+
+  /**
+   * True if 0 is in the set.
+   */
+  private boolean containsZero;
+
+  /**
+   * Counts the structural modifications, for the fail-fast iterators.
+   */
+  private int modCount;
+
+  /**
+   * The cached boxed view, created on demand.
+   */
+  private Set<Long> view;
+
+  /**
+   * Construct a new set with the default capacity (16) and load factor
+   * (0.5).
+   */
+  public LongHashSet()
+  {
+    this(DEFAULT_CAPACITY, DEFAULT_LOAD_FACTOR);
+  }
+
+  /**
+   * Construct a new set that can hold the given number of elements
+   * without being resized, with the default load factor (0.5).
+   *
+   * @param initialCapacity the number of elements to make room for
+   * @throws IllegalArgumentException if initialCapacity &lt; 0
+   */
+  public LongHashSet(int initialCapacity)
+  {
+    this(initialCapacity, DEFAULT_LOAD_FACTOR);
+  }
+
+  /**
+   * Construct a new set that can hold the given number of elements
+   * without being resized, with the given load factor.
+   *
+   * @param initialCapacity the number of elements to make room for
+   * @param loadFactor the fraction of slots in use that triggers a
+   *        resize, between 0 and 1 exclusive
+   * @throws IllegalArgumentException if initialCapacity &lt; 0, or if
+   *         loadFactor is not strictly between 0 and 1
+   */
+  public LongHashSet(int initialCapacity, float loadFactor)
+  {
+    if (initialCapacity < 0)
+      throw new IllegalArgumentException("Illegal Capacity: "
+                                         + initialCapacity);
+    if (! (loadFactor > 0 && loadFactor < 1))
+      throw new IllegalArgumentException("Illegal Load: " + loadFactor);
+    this.loadFactor = loadFactor;
+    allocate(slotsFor(initialCapacity));
+  }
+
+  /**
+   * Returns the number of elements in this set.
+   *
+   * @return the size
+   */
+  public int size()
+  {
+    return used + (containsZero ? 1 : 0);
+  }
+
+  /**
+   * Returns true if there are no elements in this set.
+   *
+   * @return <code>size() == 0</code>
+   */
+  public boolean isEmpty()
+  {
+    return size() == 0;
+  }
+
+  /**
+   * Returns true if the value is in this set.
+   *
+   * @param value the value to look for
+   * @return true if the set contains it
+   */
+  public boolean contains(long value)
+  {
+    if (value == 0)
+      return containsZero;
+    return find(value) >= 0;
+  }
+
+  /**
+   * Adds a value to this set.
+   *
+   * @param value the value to add
+   * @return true if the set did not contain it already
+   */
+  public boolean add(long value)
+  {
+    if (value == 0)
+      {
+        if (containsZero)
+          return false;
+        containsZero = true;
+        modCount++;
+        return true;
+      }
+    long[] es = elements;
+    int mask = es.length - 1;
+    int i = slot(value);
+    long e;
+    while ((e = es[i]) != 0)
+      {
+        if (e == value)
+          return false;
+        i = (i + 1) & mask;
+      }
+    modCount++;
+    if (used >= threshold)
+      {
+        rehash(es.length << 1);
+        i = freeSlot(value);
+      }
+    elements[i] = value;
+    used++;
+    return true;
+  }
+
+  /**
+   * Adds all the values of an array to this set.
+   *
+   * @param values the values to add
+   * @return true if the set changed
+   */
+  public boolean addAll(long[] values)
+  {
+    ensureCapacity(used + values.length);
+    boolean changed = false;
+    for (int i = 0; i < values.length; i++)
+      changed |= add(values[i]);
+    return changed;
+  }
+
+  /**
+   * Removes a value from this set.
+   *
+   * @param value the value to remove
+   * @return true if the set contained it
+   */
+  public boolean remove(long value)
+  {
+    if (value == 0)
+      {
+        if (! containsZero)
+          return false;
+        containsZero = false;
+        modCount++;
+        return true;
+      }
+    int i = find(value);
+    if (i < 0)
+      return false;
+    removeAt(i);
+    return true;
+  }
+
+  /**
+   * Removes all values from this set.  The capacity is kept.
+   */
+  public void clear()
+  {
+    if (size() != 0)
+      {
+        modCount++;
+        java.util.Arrays.fill(elements, 0);
+        used = 0;
+        containsZero = false;
+      }
+  }
+
+  /**
+   * Makes sure that the set can hold the given number of elements
+   * without being resized.
+   *
+   * @param capacity the number of elements
+   */
+  public void ensureCapacity(int capacity)
+  {
+    if (capacity > threshold)
+      {
+        int slots = slotsFor(capacity);
+        if (slots > elements.length)
+          rehash(slots);
+      }
+  }
+
+  /**
+   * Returns the values in this set, in no particular order.
+   *
+   * @return a new array of the values
+   */
+  public long[] toArray()
+  {
+    long[] a = new long[size()];
+    int n = 0;
+    if (containsZero)
+      a[n++] = 0;
+    long[] es = elements;
+    for (int i = 0; i < es.length; i++)
+      if (es[i] != 0)
+        a[n++] = es[i];
+    return a;
+  }
+
+  /**
+   * Returns an iterator over the values in this set, in no particular
+   * order.  The iterator supports removal.
+   *
+   * @return an iterator
+   */
+  public LongIterator iterator()
+  {
+    return new SetIterator();
+  }
+
+  /**
+   * Returns true if the object is a LongHashSet with the same values.
+   *
+   * @param o the object to compare with
+   * @return true if the sets are equal
+   */
+  public boolean equals(Object o)
+  {
+    if (o == this)
+      return true;
+    if (! (o instanceof LongHashSet))
+      return false;
+    LongHashSet s = (LongHashSet) o;
+    if (s.size() != size() || s.containsZero != containsZero)
+      return false;
+    long[] es = elements;
+    for (int i = 0; i < es.length; i++)
+      if (es[i] != 0 && s.find(es[i]) < 0)
+        return false;
+    return true;
+  }
+
+  /**
+   * Returns the hash code of this set, which is the same as that of
+   * <code>asSet()</code>.
+   *
+   * @return the sum of the hash codes of the values
+   */
+  public int hashCode()
+  {
+    int h = 0;
+    long[] es = elements;
+    for (int i = 0; i < es.length; i++)
+      {
+        long key = es[i];
+        h += (int) (key ^ (key >>> 32));
+      }
+    return h;
+  }
+
+  /**
+   * Returns a string such as <code>[1, 2, 3]</code>.
+   *
+   * @return a string representation of this set
+   */
+  public String toString()
+  {
+    StringBuilder sb = new StringBuilder("[");
+    LongIterator it = iterator();
+    while (it.hasNext())
+      {
+        sb.append(it.next());
+        if (it.hasNext())
+          sb.append(", ");
+      }
+    return sb.append(']').toString();
+  }
+
+  /**
+   * Returns a copy of this set.
+   *
+   * @return the clone
+   */
+  public Object clone()
+  {
+    LongHashSet copy = null;
+    try
+      {
+        copy = (LongHashSet) super.clone();
+      }
+    catch (CloneNotSupportedException x)
+      {
+        // This is impossible.
+      }
+    copy.elements = (long[]) elements.clone();
+    copy.view = null;
+    copy.modCount = 0;
+    return copy;
+  }
+
+  /**
+   * Returns a view of this set as a <code>Set&lt;Long&gt;</code>.  The
+   * view is backed by this set, so changes in one show up in the other,
+   * and it supports adding and removing elements.  Its methods box and
+   * unbox the values.
+   *
+   * @return the set view
+   */
+  public Set<Long> asSet()
+  {
+    if (view == null)
+      view = new AbstractSet<Long>()
+        {
+          public int size()
+          {
+            return LongHashSet.this.size();
+          }
+
+          public Iterator<Long> iterator()
+          {
+            final LongIterator it = LongHashSet.this.iterator();
+            return new Iterator<Long>()
+              {
+                public boolean hasNext()
+                {
+                  return it.hasNext();
+                }
+
+                public Long next()
+                {
+                  return Long.valueOf(it.next());
+                }
+
+                public void remove()
+                {
+                  it.remove();
+                }
+              };
+          }
+
+          public boolean contains(Object o)
+          {
+            return o instanceof Long
+              && LongHashSet.this.contains(((Long) o).longValue());
+          }
+
+          public boolean add(Long value)
+          {
+            return LongHashSet.this.add(value.longValue());
+          }
+
+          public boolean remove(Object o)
+          {
+            return o instanceof Long
+              && LongHashSet.this.remove(((Long) o).longValue());
+          }
+
+          public void clear()
+          {
+            LongHashSet.this.clear();
+          }
+        };
+    return view;
+  }
+
+  /**
+   * Returns the slot of a value other than 0, or -1 if it is not in the
+   * table.
+   */
+  private int find(long key)
+  {
+    long[] ks = elements;
+    int mask = ks.length - 1;
+    int i = slot(key);
+    long cur;
+    while ((cur = ks[i]) != 0)
+      {
+        if (cur == key)
+          return i;
+        i = (i + 1) & mask;
+      }
+    return -1;
+  }
+
+  /**
+   * Returns the home slot of a value.  The upper bits of the product
+   * with {@link #PHI} depend on all bits of the value, so they are the
+   * ones used.
+   */
+  private int slot(long key)
+  {
+    return (int) ((key * PHI) >>> shift);
+  }
+
+  /**
+   * Returns the first free slot in the probe sequence of a value.
+   */
+  private int freeSlot(long key)
+  {
+    long[] ks = elements;
+    int mask = ks.length - 1;
+    int i = slot(key);
+    while (ks[i] != 0)
+      i = (i + 1) & mask;
+    return i;
+  }
+
+  /**
+   * Removes the element in the given slot and moves the elements that
+   * follow it in the same cluster back, so that each remains reachable
+   * from its home slot.  Entries before the hole never move, which the
+   * iterators rely upon.
+   *
+   * @param hole the slot to empty
+   */
+  private void removeAt(int hole)
+  {
+    modCount++;
+    used--;
+    long[] ks = elements;
+    int mask = ks.length - 1;
+    int i = (hole + 1) & mask;
+    long key;
+    while ((key = ks[i]) != 0)
+      {
+        int home = slot(key);
+        // Move the entry unless its home lies cyclically in (hole, i].
+        if (hole <= i ? (home <= hole || home > i)
+                      : (home <= hole && home > i))
+          {
+            ks[hole] = key;
+            hole = i;
+          }
+        i = (i + 1) & mask;
+      }
+    ks[hole] = 0;
+  }
+
+  /**
+   * Returns the number of slots needed to hold the given number of
+   * elements at this set's load factor: a power of two, at least 4.
+   */
+  private int slotsFor(int count)
+  {
+    long wanted = (long) Math.ceil(count / (double) loadFactor);
+    int slots = 4;
+    while (slots < wanted && slots < MAXIMUM_CAPACITY)
+      slots <<= 1;
+    return slots;
+  }
+
+  /**
+   * Creates an empty table with the given number of slots.
+   */
+  private void allocate(int slots)
+  {
+    elements = new long[slots];
+    shift = Integer.numberOfLeadingZeros(slots) + 33;
+    threshold = slots == MAXIMUM_CAPACITY ? slots - 1
+                : Math.max((int) (slots * loadFactor), 1);
+  }
+
+  /**
+   * Moves all elements into a table with the given number of slots.  A
+   * table that cannot grow any more fills up until only one slot is
+   * left free, which keeps every probe sequence finite.
+   *
+   * @throws IllegalStateException if the table is completely full
+   */
+  private void rehash(int slots)
+  {
+    if (slots > MAXIMUM_CAPACITY)
+      {
+        if (used >= MAXIMUM_CAPACITY - 1)
+          throw new IllegalStateException("LongHashSet is full");
+        threshold = MAXIMUM_CAPACITY - 1;
+        return;
+      }
+    long[] old = elements;
+    allocate(slots);
+    for (int j = 0; j < old.length; j++)
+      {
+        long key = old[j];
+        if (key != 0)
+          {
+            int i = freeSlot(key);
+            elements[i] = key;
+          }
+      }
+  }
+
+  /**
+   * Iterates over the values.
+   *
+   * <p>0 comes first if it is in the set.  The table is then walked
+   * upwards from just after a free slot, so that no cluster wraps around
+   * the end of the iteration.  Removing the current element only moves
+   * elements that come later in its cluster, and only backwards, possibly
+   * into the hole itself; the iterator therefore looks at the same slot
+   * again after a removal and neither skips nor repeats an element.
+   */
+  private final class SetIterator implements LongIterator
+  {
+    private int knownMod = modCount;
+    private int remaining = size();
+
+    /** True until 0 has been considered. */
+    private boolean zeroPending = containsZero;
+
+    private final int start;
+    private int next;
+
+    /** The slot of the last element returned, -2 for 0, or -1. */
+    private int last = -1;
+
+    SetIterator()
+    {
+      long[] es = elements;
+      int i = 0;
+      if (used != 0)
+        while (es[i] != 0)
+          i++;
+      start = i;
+    }
+
+    public boolean hasNext()
+    {
+      return remaining > 0;
+    }
+
+    public long next()
+    {
+      if (knownMod != modCount)
+        throw new ConcurrentModificationException();
+      if (remaining == 0)
+        throw new NoSuchElementException();
+      remaining--;
+      if (zeroPending)
+        {
+          zeroPending = false;
+          last = -2;
+          return 0;
+        }
+      long[] es = elements;
+      int mask = es.length - 1;
+      int i;
+      do
+        i = (start + next++) & mask;
+      while (es[i] == 0);
+      last = i;
+      return es[i];
+    }
+
+    public void remove()
+    {
+      if (knownMod != modCount)
+        throw new ConcurrentModificationException();
+      if (last == -1)
+        throw new IllegalStateException();
+      if (last == -2)
+        {
+          containsZero = false;
+          modCount++;
+        }
+      else
+        {
+          removeAt(last);
+          // A later element of the cluster may have moved into the hole.
+          next--;
+        }
+      last = -1;
+      knownMod = modCount;
+    }
+  }
+}
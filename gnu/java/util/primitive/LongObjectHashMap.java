@@ -0,0 +1,940 @@
+/* LongObjectHashMap.java -- A hash map from long keys to object values
+   Copyright (C) 2026 Free Software Foundation, Inc.
+
+This file is part of GNU Classpath.
+
+GNU Classpath is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; either version 2, or (at your option)
+any later version.
+
+GNU Classpath is distributed in the hope that it will be useful, but
+WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with GNU Classpath; see the file COPYING.  If not, write to the
+Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+02110-1301 USA.
+
+Linking this library statically or dynamically with other modules is
+making a combined work based on this library.  Thus, the terms and
+conditions of the GNU General Public License cover the whole
+combination.
+
+As a special exception, the copyright holders of this library give you
+permission to link this library with independent modules to produce an
+executable, regardless of the license terms of these independent
+modules, and to copy and distribute the resulting executable under
+terms of your choice, provided that you also meet, for each linked
+independent module, the terms and conditions of the license of that
+module.  An independent module is a module which is not derived from
+or based on this library.  If you modify this library, you may extend
+this exception to your version of the library, but you are not
+obligated to do so.  If you do not wish to do so, delete this
+exception statement from your version. */
+
+package gnu.java.util.primitive;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * A hash map from <code>long</code> keys to object values
+ * that does not box the keys.  The keys and values are kept in two
+ * parallel arrays, so a put allocates nothing unless the table has to
+ * grow, and there are no entry objects.
+ *
+ * <p>The table works like the one of {@link gnu.java.util.OpenHashMap}:
+ * collisions are resolved by linear probing, the keys are scrambled by
+ * Fibonacci hashing, and removal moves the following entries of the
+ * probe sequence back instead of leaving deleted markers.  The key 0
+ * marks a free slot, so a mapping of 0 itself is kept in separate
+ * fields.
+ *
+ * <p>Looking up a key that is not mapped returns null; use
+ * {@link #containsKey} to tell that apart from a mapping to null.
+ *
+ * <p>{@link #cursor()} walks the mappings without allocating, and
+ * {@link #asMap()} gives a <code>Map&lt;Long, V&gt;</code> view
+ * for code that works with the collections framework.  Like the maps in
+ * <code>java.util</code>, this map is not synchronized, and its cursors
+ * and iterators are fail-fast.
+ */
+public class LongObjectHashMap<V>
+  implements Cloneable
+{
+  /**
+   * The default capacity, in mappings, of a new map.
+   */
+  private static final int DEFAULT_CAPACITY = 16;
+
+  /**
+   * The fraction of slots that may be used before the table is doubled.
+   */
+  public static final float DEFAULT_LOAD_FACTOR = 0.5f;
+
+  /**
+   * The largest number of slots the table can have.
+   */
+  private static final int MAXIMUM_CAPACITY = 1 << 30;
+
+  /**
+   * The multiplier used for Fibonacci hashing,
+   * 2<sup>64</sup> divided by the golden ratio.
+   */
+  private static final long PHI = 0x9e3779b97f4a7c15L;
+
+  /**
+   * The load factor of this map.
+   */
+  private final float loadFactor;
+
+  /**
+   * The keys in the table; 0 marks a free slot.
+   */
+  private long[] keys;
+
+  /**
+   * The values, at the same index as their keys.
+   */
+  private Object[] values;
+
+  /**
+   * Number of bits to shift the scrambled key right by to get a slot
+   * index.
+   */
+  private int shift;
+
+  /**
+   * The number of mappings in the table, not counting the key 0.
+   */
+  private int used;
+
+  /**
+   * The number of mappings in the table before it is resized.
+   */
+  private int threshold;
+
+  /**
+   * True if the key 0 is mapped.
+   */
+  private boolean hasZeroKey;
+
+  /**
+   * The value of the key 0.
+   */
+  private V zeroValue;
+
+  /**
+   * Counts the structural modifications, for the fail-fast iterators.
+   */
+  private int modCount;
+
+  /**
+   * The cached boxed view, created on demand.
+   */
+  private Map<Long, V> view;
+
+  /**
+   * Construct a new map with the default capacity (16) and load factor
+   * (0.5).
+   */
+  public LongObjectHashMap()
+  {
+    this(DEFAULT_CAPACITY, DEFAULT_LOAD_FACTOR);
+  }
+
+  /**
+   * Construct a new map that can hold the given number of mappings
+   * without being resized, with the default load factor (0.5).
+   *
+   * @param initialCapacity the number of mappings to make room for
+   * @throws IllegalArgumentException if initialCapacity &lt; 0
+   */
+  public LongObjectHashMap(int initialCapacity)
+  {
+    this(initialCapacity, DEFAULT_LOAD_FACTOR);
+  }
+
+  /**
+   * Construct a new map that can hold the given number of mappings
+   * without being resized, with the given load factor.
+   *
+   * @param initialCapacity the number of mappings to make room for
+   * @param loadFactor the fraction of slots in use that triggers a
+   *        resize, between 0 and 1 exclusive
+   * @throws IllegalArgumentException if initialCapacity &lt; 0, or if
+   *         loadFactor is not strictly between 0 and 1
+   */
+  public LongObjectHashMap(int initialCapacity, float loadFactor)
+  {
+    if (initialCapacity < 0)
+      throw new IllegalArgumentException("Illegal Capacity: "
+                                         + initialCapacity);
+    if (! (loadFactor > 0 && loadFactor < 1))
+      throw new IllegalArgumentException("Illegal Load: " + loadFactor);
+    this.loadFactor = loadFactor;
+    allocate(slotsFor(initialCapacity));
+  }
+
+  /**
+   * Returns the number of mappings in this map.
+   *
+   * @return the size
+   */
+  public int size()
+  {
+    return used + (hasZeroKey ? 1 : 0);
+  }
+
+  /**
+   * Returns true if there are no mappings in this map.
+   *
+   * @return <code>size() == 0</code>
+   */
+  public boolean isEmpty()
+  {
+    return size() == 0;
+  }
+
+  /**
+   * Returns true if the key is mapped.
+   *
+   * @param key the key to look up
+   * @return true if the key is mapped
+   */
+  public boolean containsKey(long key)
+  {
+    if (key == 0)
+      return hasZeroKey;
+    return find(key) >= 0;
+  }
+
+  /**
+   * Returns true if some key maps to the value.  This scans the whole
+   * table.
+   *
+   * @param value the value to search for
+   * @return true if at least one key maps to the value
+   */
+  public boolean containsValue(V value)
+  {
+    if (hasZeroKey && equals(zeroValue, value))
+      return true;
+    long[] ks = keys;
+    for (int i = 0; i < ks.length; i++)
+      if (ks[i] != 0 && equals((V) values[i], value))
+        return true;
+    return false;
+  }
+
+  /**
+   * Returns the value of a key, or null if it is not mapped.
+   *
+   * @param key the key to look up
+   * @return the value, or null
+   */
+  public V get(long key)
+  {
+    return get(key, null);
+  }
+
+  /**
+   * Returns the value of a key, or the given default if it is not mapped.
+   *
+   * @param key the key to look up
+   * @param defaultValue what to return if the key is not mapped
+   * @return the value, or defaultValue
+   */
+  public V get(long key, V defaultValue)
+  {
+    if (key == 0)
+      return hasZeroKey ? zeroValue : defaultValue;
+    int i = find(key);
+    return i < 0 ? defaultValue : (V) values[i];
+  }
+
+  /**
+   * Maps a key to a value, replacing any previous mapping of the key.
+   *
+   * @param key the key
+   * @param value the value
+   * @return the previous value of the key, or null if it was not mapped
+   */
+  public V put(long key, V value)
+  {
+    if (key == 0)
+      {
+        V old = zeroValue;
+        zeroValue = value;
+        if (hasZeroKey)
+          return old;
+        hasZeroKey = true;
+        modCount++;
+        return null;
+      }
+    int i = find(key);
+    if (i >= 0)
+      {
+        V old = (V) values[i];
+        values[i] = value;
+        return old;
+      }
+    insert(key, value);
+    return null;
+  }
+
+  /**
+   * Removes the mapping of a key.
+   *
+   * @param key the key
+   * @return the value of the key, or null if it was not mapped
+   */
+  public V remove(long key)
+  {
+    if (key == 0)
+      {
+        if (! hasZeroKey)
+          return null;
+        V old = zeroValue;
+        hasZeroKey = false;
+        zeroValue = null;
+        modCount++;
+        return old;
+      }
+    int i = find(key);
+    if (i < 0)
+      return null;
+    V old = (V) values[i];
+    removeAt(i);
+    return old;
+  }
+
+  /**
+   * Removes all mappings from this map.  The capacity is kept.
+   */
+  public void clear()
+  {
+    if (size() != 0)
+      {
+        modCount++;
+        java.util.Arrays.fill(keys, 0);
+        java.util.Arrays.fill(values, null);
+        used = 0;
+        hasZeroKey = false;
+        zeroValue = null;
+      }
+  }
+
+  /**
+   * Makes sure that the map can hold the given number of mappings
+   * without being resized.
+   *
+   * @param capacity the number of mappings
+   */
+  public void ensureCapacity(int capacity)
+  {
+    if (capacity > threshold)
+      {
+        int slots = slotsFor(capacity);
+        if (slots > keys.length)
+          rehash(slots);
+      }
+  }
+
+  /**
+   * Returns the keys of this map, in no particular order.
+   *
+   * @return a new array of the keys
+   */
+  public long[] keys()
+  {
+    long[] a = new long[size()];
+    int n = 0;
+    if (hasZeroKey)
+      a[n++] = 0;
+    long[] ks = keys;
+    for (int i = 0; i < ks.length; i++)
+      if (ks[i] != 0)
+        a[n++] = ks[i];
+    return a;
+  }
+
+  /**
+   * Returns a cursor over the mappings of this map.  It is positioned
+   * before the first mapping; the mappings come in no particular order.
+   *
+   * @return a new cursor
+   */
+  public Cursor cursor()
+  {
+    return new Cursor();
+  }
+
+  /**
+   * Returns true if the object is a LongObjectHashMap with the same mappings.
+   *
+   * @param o the object to compare with
+   * @return true if the maps are equal
+   */
+  public boolean equals(Object o)
+  {
+    if (o == this)
+      return true;
+    if (! (o instanceof LongObjectHashMap))
+      return false;
+    LongObjectHashMap<?> m = (LongObjectHashMap<?>) o;
+    if (m.size() != size() || m.hasZeroKey != hasZeroKey
+        || (hasZeroKey && ! (equals(zeroValue, m.zeroValue))))
+      return false;
+    long[] ks = keys;
+    for (int i = 0; i < ks.length; i++)
+      if (ks[i] != 0)
+        {
+          int j = m.find(ks[i]);
+          if (j < 0 || ! (equals((V) values[i], m.values[j])))
+            return false;
+        }
+    return true;
+  }
+
+  /**
+   * Returns the hash code of this map, which is the same as that of
+   * <code>asMap()</code>.
+   *
+   * @return the sum of the hash codes of the mappings
+   */
+  public int hashCode()
+  {
+    int h = 0;
+    if (hasZeroKey)
+      h += (zeroValue == null ? 0 : zeroValue.hashCode());
+    long[] ks = keys;
+    for (int i = 0; i < ks.length; i++)
+      {
+        long key = ks[i];
+        if (key != 0)
+          {
+            V value = (V) values[i];
+            h += (int) (key ^ (key >>> 32))
+              ^ (value == null ? 0 : value.hashCode());
+          }
+      }
+    return h;
+  }
+
+  /**
+   * Returns a string such as <code>{1=2, 3=4}</code>.
+   *
+   * @return a string representation of this map
+   */
+  public String toString()
+  {
+    StringBuilder sb = new StringBuilder("{");
+    Cursor c = cursor();
+    boolean first = true;
+    while (c.next())
+      {
+        if (! first)
+          sb.append(", ");
+        sb.append(c.key()).append('=').append(c.value());
+        first = false;
+      }
+    return sb.append('}').toString();
+  }
+
+  /**
+   * Returns a copy of this map.  The values are not cloned.
+   *
+   * @return the clone
+   */
+  public Object clone()
+  {
+    LongObjectHashMap<V> copy = null;
+    try
+      {
+        copy = (LongObjectHashMap<V>) super.clone();
+      }
+    catch (CloneNotSupportedException x)
+      {
+        // This is impossible.
+      }
+    copy.keys = (long[]) keys.clone();
+    copy.values = (Object[]) values.clone();
+    copy.view = null;
+    copy.modCount = 0;
+    return copy;
+  }
+
+  /**
+   * Returns a view of this map as a <code>Map&lt;Long, V&gt;</code>.
+   * The view is backed by this map, so changes in one show up in the
+   * other, and it supports all optional operations.
+   * Its methods box and unbox the keys, and its entries read and
+   * write the map by key.
+   *
+   * @return the map view
+   */
+  public Map<Long, V> asMap()
+  {
+    if (view == null)
+      view = new AbstractMap<Long, V>()
+        {
+          private Set<Map.Entry<Long, V>> entries;
+
+          public int size()
+          {
+            return LongObjectHashMap.this.size();
+          }
+
+          public boolean containsKey(Object key)
+          {
+            return key instanceof Long
+              && LongObjectHashMap.this.containsKey(((Long) key).longValue());
+          }
+
+          public V get(Object key)
+          {
+            if (! containsKey(key))
+              return null;
+            long k = ((Long) key).longValue();
+            return LongObjectHashMap.this.get(k);
+          }
+
+          public V put(Long key, V value)
+          {
+            long k = key.longValue();
+            boolean had = LongObjectHashMap.this.containsKey(k);
+            V old = LongObjectHashMap.this.put(k, value);
+            return had ? old : null;
+          }
+
+          public V remove(Object key)
+          {
+            if (! containsKey(key))
+              return null;
+            long k = ((Long) key).longValue();
+            return LongObjectHashMap.this.remove(k);
+          }
+
+          public void clear()
+          {
+            LongObjectHashMap.this.clear();
+          }
+
+          public Set<Map.Entry<Long, V>> entrySet()
+          {
+            if (entries == null)
+              entries = new AbstractSet<Map.Entry<Long, V>>()
+                {
+                  public int size()
+                  {
+                    return LongObjectHashMap.this.size();
+                  }
+
+                  public Iterator<Map.Entry<Long, V>> iterator()
+                  {
+                    return new EntryIterator();
+                  }
+
+                  public void clear()
+                  {
+                    LongObjectHashMap.this.clear();
+                  }
+                };
+            return entries;
+          }
+        };
+    return view;
+  }
+
+  /**
+   * Returns the slot of a key other than 0, or -1 if it is not in the
+   * table.
+   */
+  private int find(long key)
+  {
+    long[] ks = keys;
+    int mask = ks.length - 1;
+    int i = slot(key);
+    long cur;
+    while ((cur = ks[i]) != 0)
+      {
+        if (cur == key)
+          return i;
+        i = (i + 1) & mask;
+      }
+    return -1;
+  }
+
+  /**
+   * Returns the home slot of a key.  The upper bits of the product
+   * with {@link #PHI} depend on all bits of the key, so they are the
+   * ones used.
+   */
+  private int slot(long key)
+  {
+    return (int) ((key * PHI) >>> shift);
+  }
+
+  /**
+   * Returns the first free slot in the probe sequence of a key.
+   */
+  private int freeSlot(long key)
+  {
+    long[] ks = keys;
+    int mask = ks.length - 1;
+    int i = slot(key);
+    while (ks[i] != 0)
+      i = (i + 1) & mask;
+    return i;
+  }
+
+  /**
+   * Adds a mapping for a key other than 0 that is not in the table.
+   */
+  private void insert(long key, V value)
+  {
+    modCount++;
+    if (used >= threshold)
+      rehash(keys.length << 1);
+    int i = freeSlot(key);
+    keys[i] = key;
+    values[i] = value;
+    used++;
+  }
+
+  /**
+   * Removes the mapping in the given slot and moves the entries that
+   * follow it in the same cluster back, so that each remains reachable
+   * from its home slot.  Entries before the hole never move, which the
+   * iterators rely upon.
+   *
+   * @param hole the slot to empty
+   */
+  private void removeAt(int hole)
+  {
+    modCount++;
+    used--;
+    long[] ks = keys;
+    Object[] vs = values;
+    int mask = ks.length - 1;
+    int i = (hole + 1) & mask;
+    long key;
+    while ((key = ks[i]) != 0)
+      {
+        int home = slot(key);
+        // Move the entry unless its home lies cyclically in (hole, i].
+        if (hole <= i ? (home <= hole || home > i)
+                      : (home <= hole && home > i))
+          {
+            ks[hole] = key;
+            vs[hole] = vs[i];
+            hole = i;
+          }
+        i = (i + 1) & mask;
+      }
+    ks[hole] = 0;
+    vs[hole] = null;
+  }
+
+  /**
+   * Returns the number of slots needed to hold the given number of
+   * mappings at this map's load factor: a power of two, at least 4.
+   */
+  private int slotsFor(int count)
+  {
+    long wanted = (long) Math.ceil(count / (double) loadFactor);
+    int slots = 4;
+    while (slots < wanted && slots < MAXIMUM_CAPACITY)
+      slots <<= 1;
+    return slots;
+  }
+
+  /**
+   * Creates an empty table with the given number of slots.
+   */
+  private void allocate(int slots)
+  {
+    keys = new long[slots];
+    values = new Object[slots];
+    shift = Integer.numberOfLeadingZeros(slots) + 33;
+    threshold = slots == MAXIMUM_CAPACITY ? slots - 1
+                : Math.max((int) (slots * loadFactor), 1);
+  }
+
+  /**
+   * Moves all mappings into a table with the given number of slots.  A
+   * table that cannot grow any more fills up until only one slot is
+   * left free, which keeps every probe sequence finite.
+   *
+   * @throws IllegalStateException if the table is completely full
+   */
+  private void rehash(int slots)
+  {
+    if (slots > MAXIMUM_CAPACITY)
+      {
+        if (used >= MAXIMUM_CAPACITY - 1)
+          throw new IllegalStateException("LongObjectHashMap is full");
+        threshold = MAXIMUM_CAPACITY - 1;
+        return;
+      }
+    long[] old = keys;
+    Object[] oldValues = values;
+    allocate(slots);
+    for (int j = 0; j < old.length; j++)
+      {
+        long key = old[j];
+        if (key != 0)
+          {
+            int i = freeSlot(key);
+            keys[i] = key;
+            values[i] = oldValues[j];
+          }
+      }
+  }
+
+  /**
+   * Compares two objects, either of which may be null.
+   */
+  private static boolean equals(Object o1, Object o2)
+  {
+    return o1 == o2 || (o1 != null && o1.equals(o2));
+  }
+
+  /**
+   * Walks over the mappings of the map without allocating.  Call
+   * {@link #next()} to move to each mapping in turn:
+   *
+   * <pre>
+   * LongObjectHashMap.Cursor c = map.cursor();
+   * while (c.next())
+   *   use(c.key(), c.value());
+   * </pre>
+   *
+   * <p>The key 0 comes first if it is mapped.  The table is then walked
+   * upwards from just after a free slot, so that no cluster wraps around
+   * the end of the walk.  Removing the current mapping only moves entries
+   * that come later in its cluster, and only backwards, possibly into the
+   * hole itself; the cursor therefore looks at the same slot again after
+   * a removal and neither skips nor repeats a mapping.
+   */
+  public final class Cursor
+  {
+    private int knownMod = modCount;
+
+    /** The number of mappings not yet visited. */
+    private int remaining = size();
+
+    /** True until the key 0 has been visited. */
+    private boolean zeroPending = hasZeroKey;
+
+    /** The slot at which the walk of the table started. */
+    private final int start;
+
+    /** The offset from start of the next slot to look at. */
+    private int next;
+
+    /** The slot of the current mapping, -2 for the key 0, or -1. */
+    private int current = -1;
+
+    Cursor()
+    {
+      long[] ks = keys;
+      int i = 0;
+      if (used != 0)
+        while (ks[i] != 0)
+          i++;
+      start = i;
+    }
+
+    /**
+     * Moves to the next mapping.
+     *
+     * @return false if there are no more mappings
+     * @throws ConcurrentModificationException if the map was modified
+     *         other than through this cursor
+     */
+    public boolean next()
+    {
+      if (knownMod != modCount)
+        throw new ConcurrentModificationException();
+      if (remaining == 0)
+        {
+          current = -1;
+          return false;
+        }
+      remaining--;
+      if (zeroPending)
+        {
+          zeroPending = false;
+          current = -2;
+          return true;
+        }
+      long[] ks = keys;
+      int mask = ks.length - 1;
+      int i;
+      do
+        i = (start + next++) & mask;
+      while (ks[i] == 0);
+      current = i;
+      return true;
+    }
+
+    /**
+     * Returns the key of the current mapping.
+     *
+     * @throws IllegalStateException if there is no current mapping
+     */
+    public long key()
+    {
+      check();
+      return current == -2 ? 0 : keys[current];
+    }
+
+    /**
+     * Returns the value of the current mapping.
+     *
+     * @throws IllegalStateException if there is no current mapping
+     */
+    public V value()
+    {
+      check();
+      return current == -2 ? zeroValue : (V) values[current];
+    }
+
+    /**
+     * Replaces the value of the current mapping.
+     *
+     * @param value the new value
+     * @throws IllegalStateException if there is no current mapping
+     */
+    public void setValue(V value)
+    {
+      check();
+      if (current == -2)
+        zeroValue = value;
+      else
+        values[current] = value;
+    }
+
+    /**
+     * Removes the current mapping.  The cursor then has no current
+     * mapping until the next call of {@link #next()}.
+     *
+     * @throws IllegalStateException if there is no current mapping
+     */
+    public void remove()
+    {
+      check();
+      if (current == -2)
+        {
+          hasZeroKey = false;
+          zeroValue = null;
+          modCount++;
+        }
+      else
+        {
+          removeAt(current);
+          // A later entry of the cluster may have moved into the hole.
+          next--;
+        }
+      current = -1;
+      knownMod = modCount;
+    }
+
+    /**
+     * Throws an exception if there is no current mapping.
+     */
+    private void check()
+    {
+      if (knownMod != modCount)
+        throw new ConcurrentModificationException();
+      if (current == -1)
+        throw new IllegalStateException();
+    }
+  }
+
+  /**
+   * Iterates over the mappings for the entry set of {@link #asMap()}.
+   */
+  private final class EntryIterator
+    implements Iterator<Map.Entry<Long, V>>
+  {
+    private final Cursor cursor = new Cursor();
+
+    public boolean hasNext()
+    {
+      return cursor.remaining > 0;
+    }
+
+    public Map.Entry<Long, V> next()
+    {
+      if (! cursor.next())
+        throw new NoSuchElementException();
+      return new Entry(cursor.key());
+    }
+
+    public void remove()
+    {
+      cursor.remove();
+    }
+  }
+
+  /**
+   * An entry of the map view.  It reads and writes the map by key, so it
+   * stays valid while the key is mapped.
+   */
+  private final class Entry implements Map.Entry<Long, V>
+  {
+    private final long key;
+
+    Entry(long key)
+    {
+      this.key = key;
+    }
+
+    public Long getKey()
+    {
+      return Long.valueOf(key);
+    }
+
+    public V getValue()
+    {
+      return get(key);
+    }
+
+    public V setValue(V value)
+    {
+      return put(key, value);
+    }
+
+    public boolean equals(Object o)
+    {
+      if (! (o instanceof Map.Entry))
+        return false;
+      Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
+      return getKey().equals(e.getKey())
+        && LongObjectHashMap.equals(getValue(), e.getValue());
+    }
+
+    public int hashCode()
+    {
+      V value = get(key);
+      return (int) (key ^ (key >>> 32))
+        ^ (value == null ? 0 : value.hashCode());
+    }
+
+    public String toString()
+    {
+      return key + "=" + get(key);
+    }
+  }
+}
@@ -41,6 +41,7 @@ import java.io.Serializable;
 class CharIndexedCharSequence implements CharIndexed, Serializable
 {
   private CharSequence s;
+  private int base;             // index in s of position 0
   private int anchor;
   private int len;
 
@@ -51,10 +52,42 @@ class CharIndexedCharSequence implements CharIndexed, Serializable
     anchor = index;
   }
 
+    CharIndexedCharSequence (CharSequence s, int start, int end)
+  {
+    reset (s, start, end);
+  }
+
+    /**
+     * Makes this the characters start to end of s, with the anchor at
+     * the first of them, and forgets the last match and the hitEnd
+     * information.
+     */
+  void reset (CharSequence s, int start, int end)
+  {
+    this.s = s;
+    base = start;
+    len = end - start;
+    anchor = 0;
+    hasLastMatch = false;
+    rightmostTriedPosition = 0;
+  }
+
+    /** Returns the character sequence this reads from. */
+  CharSequence getSequence ()
+  {
+    return s;
+  }
+
+    /** Returns the index in the character sequence of position 0. */
+  int getBase ()
+  {
+    return base;
+  }
+
   public char charAt (int index)
   {
     int pos = anchor + index;
-    return ((pos < len) && (pos >= 0)) ? s.charAt (pos) : OUT_OF_BOUNDS;
+    return ((pos < len) && (pos >= 0)) ? s.charAt (base + pos) : OUT_OF_BOUNDS;
   }
 
   public boolean isValid ()
@@ -76,7 +109,10 @@ class CharIndexedCharSequence implements CharIndexed, Serializable
   {
     if (length > (anchor + index))
       length = anchor + index;
-    return new CharIndexedCharSequence (s, anchor + index - length);
+    CharIndexedCharSequence behind =
+      new CharIndexedCharSequence (s, base, base + len);
+    behind.anchor = anchor + index - length;
+    return behind;
   }
 
   public int length ()
@@ -84,15 +120,19 @@ class CharIndexedCharSequence implements CharIndexed, Serializable
     return len - anchor;
   }
 
+  // The last match is copied into the same object every time.
   private REMatch lastMatch;
+  private boolean hasLastMatch;
   public void setLastMatch (REMatch match)
   {
-    lastMatch = (REMatch) match.clone ();
+    if (lastMatch == null || !lastMatch.copyFrom (match))
+      lastMatch = (REMatch) match.clone ();
     lastMatch.anchor = anchor;
+    hasLastMatch = true;
   }
   public REMatch getLastMatch ()
   {
-    return lastMatch;
+    return hasLastMatch ? lastMatch : null;
   }
 
   private int rightmostTriedPosition = 0;
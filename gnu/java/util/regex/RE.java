@@ -37,6 +37,7 @@ exception statement from your version. */
 
 package gnu.java.util.regex;
 
+import gnu.classpath.SystemProperties;
 import gnu.java.lang.CPStringBuilder;
 
 import java.io.InputStream;
@@ -155,6 +156,18 @@ public class RE extends REToken
   private int minimumLength;
   private int maximumLength;
 
+  // Set the system property gnu.java.util.regex.linear to "false" to
+  // match every expression with the backtracking matcher.
+  private static final boolean LINEAR =
+    !"false".equals (SystemProperties.getProperty ("gnu.java.util.regex.linear"));
+
+  // This expression compiled for the Pike VM, and what is known about
+  // where it can start to match, made on first use by getMatchImpl.
+  // Either is null if it cannot be made.
+  private transient REProgram program;
+  private transient REPrefilter prefilter;
+  private transient boolean programCompiled;
+
   /**
    * Compilation flag. Do  not  differentiate  case.   Subsequent
    * searches  using  this  RE will be case insensitive.
@@ -1979,6 +1992,26 @@ public class RE extends REToken
     return numSubs;
   }
 
+  // Returns the first token of this expression, for REProgram.
+  REToken getFirstToken ()
+  {
+    return firstToken;
+  }
+
+  // Returns the compiled form of this expression, or null if it must be
+  // matched by backtracking.
+  private REProgram getProgram ()
+  {
+    if (!programCompiled)
+      {
+        if (LINEAR)
+          program = REProgram.compile (this, numSubs);
+        prefilter = REPrefilter.compile (this);
+        programCompiled = true;
+      }
+    return program;
+  }
+
   // Overrides REToken.setUncle
   void setUncle (REToken uncle)
   {
@@ -2174,11 +2207,53 @@ public class RE extends REToken
                          buffer);
   }
 
+  /**
+   * Returns the first match found in the input, beginning the search
+   * at the specified index, and using the specified execution flags,
+   * like {@link #getMatch(Object,int,int)}.  If the given match has
+   * room for the subexpressions of this RE, it is filled in and
+   * returned instead of a new match, so that a loop over the matches
+   * in an input need not make garbage.  It should not be used again
+   * while its contents are still needed.
+   *
+   * @param input The input text.
+   * @param index The offset index at which the search should be begin.
+   * @param eflags The logical OR of any execution flags above.
+   * @param match A match returned by an earlier call, or null.
+   * @return An REMatch instance referencing the match, or null if none.
+   */
+  public REMatch getMatchInto (CharIndexed input, int index, int eflags,
+                               REMatch match)
+  {
+    return getMatchImpl (makeCharIndexed (input, index), index, eflags,
+                         null, match);
+  }
+
   REMatch getMatchImpl (CharIndexed input, int anchor, int eflags,
                         CPStringBuilder buffer)
+  {
+    return getMatchImpl (input, anchor, eflags, buffer, null);
+  }
+
+  private REMatch getMatchImpl (CharIndexed input, int anchor, int eflags,
+                                CPStringBuilder buffer, REMatch reuse)
   {
     boolean tryEntireMatch = ((eflags & REG_TRY_ENTIRE_MATCH) != 0);
     boolean doMove = ((eflags & REG_FIX_STARTING_POSITION) == 0);
+    REProgram prog = getProgram ();
+    REPrefilter filter = doMove ? prefilter : null;
+    // Create a new REMatch to hold results, or clear the old one
+    REMatch mymatch;
+    if (reuse != null && reuse.start.length == numSubs + 1)
+      {
+        mymatch = reuse;
+        mymatch.init (anchor, eflags);
+      }
+    else
+      mymatch = new REMatch (numSubs, anchor, eflags);
+    if (prog != null)
+      return getMatchLinear (prog, filter, input, mymatch, buffer,
+                             tryEntireMatch, doMove, mymatch == reuse);
     RE re = (tryEntireMatch ? (RE) this.clone () : this);
     if (tryEntireMatch)
       {
@@ -2186,10 +2261,28 @@ public class RE extends REToken
         reEnd.setFake (true);
         re.chain (reEnd);
       }
-    // Create a new REMatch to hold results
-    REMatch mymatch = new REMatch (numSubs, anchor, eflags);
+    int skip = (filter == null) ? 0 : filter.findRequired (input);
     do
       {
+        if (filter != null && skip >= 0)
+          skip = filter.findStart (input, 0, mymatch.offset == mymatch.anchor);
+        if (skip != 0)
+          {
+            // Skip the positions where no match can start, up to the
+            // end of input if there is none.
+            int n = (skip < 0) ? ~skip : skip;
+            skipChars (input, n, buffer);
+            anchor += n;
+            mymatch.clear (anchor);
+            if (skip < 0)
+              {
+                // No match can start at the end either.
+                input.setHitEnd (mymatch);
+                mymatch.clear (++anchor);
+                input.move1 (1);
+                break;
+              }
+          }
         /* The following potimization is commented out because
            the matching should be tried even if the length of
            input is obviously too short in order that
@@ -2245,6 +2338,65 @@ public class RE extends REToken
     return null;
   }
 
+  // Moves the input n characters on, appending them to buffer.
+  private static void skipChars (CharIndexed input, int n,
+                                 CPStringBuilder buffer)
+  {
+    if (buffer != null)
+      for (int i = 0; i < n; i++)
+        buffer.append (input.charAt (i));
+    input.move1 (n);
+  }
+
+  // Does the same as the loop in getMatchImpl, but with the Pike VM,
+  // and leaves the input and the match in the same state.  The scratch
+  // space of the VM is kept in the match if it is going to be reused.
+  private REMatch getMatchLinear (REProgram prog, REPrefilter filter,
+                                  CharIndexed input, REMatch mymatch,
+                                  CPStringBuilder buffer,
+                                  boolean tryEntireMatch, boolean doMove,
+                                  boolean reused)
+  {
+    int anchor = mymatch.anchor;
+    REProgram.State state = reused ? mymatch.state : null;
+    if (state == null || state.program != prog)
+      {
+        state = prog.newState ();
+        if (reused)
+          mymatch.state = state;
+      }
+    int start = prog.execute (input, mymatch, doMove, tryEntireMatch, filter,
+                              state);
+    if (start >= 0)
+      {
+        if (start > 0)
+          skipChars (input, start, buffer);
+        mymatch.end[0] = mymatch.index;
+        mymatch.finish (input);
+        input.setLastMatch (mymatch);
+        return mymatch;
+      }
+
+    // Leave the input where the loop in getMatchImpl would have.
+    int tried = doMove ? state.last + 1 : 1;
+    if (buffer != null)
+      for (int i = 0; i < tried; i++)
+        if (input.charAt (i) != CharIndexed.OUT_OF_BOUNDS)
+          buffer.append (input.charAt (i));
+    if (doMove)
+      input.move1 (tried);
+    mymatch.clear (anchor + tried);
+
+    // Special handling at end of input for e.g. "$"
+    if (minimumLength == 0
+        && prog.execute (input, mymatch, false, false, null, state) >= 0)
+      {
+        mymatch.finish (input);
+        return mymatch;
+      }
+    return null;
+  }
+
   /**
    * Returns an REMatchEnumeration that can be used to iterate over the
    * matches found in the input text.
@@ -2672,4 +2824,27 @@ public class RE extends REToken
     else
       return new CharIndexedString (input.toString (), index);
   }
+  /**
+   * Returns a CharIndexed for the characters from start to end of the
+   * input, with the anchor at the first of them.  If reuse was returned
+   * by an earlier call of this method, it is reset and returned instead
+   * of a new object.
+   *
+   * @param input The input text.
+   * @param start The index of the first character.
+   * @param end The index after the last character.
+   * @param reuse A CharIndexed to use again, or null.
+   * @return the CharIndexed.
+   */
+  public static CharIndexed makeCharIndexed (CharSequence input, int start,
+                                             int end, CharIndexed reuse)
+  {
+    if (reuse instanceof CharIndexedCharSequence)
+      {
+        ((CharIndexedCharSequence) reuse).reset (input, start, end);
+        return reuse;
+      }
+    return new CharIndexedCharSequence (input, start, end);
+  }
+
 }
@@ -54,6 +54,10 @@ public final class REMatch implements Serializable, Cloneable
 {
   private String matchedText;
   private CharIndexed matchedCharIndexed;
+  // If matchedText has not been made yet, the sequence it is taken from
+  // and its start there.
+  private CharSequence matchedSequence;
+  private int matchedStart;
 
   // These variables are package scope for fast access within the engine
   int eflags;                   // execution flags this match was made using
@@ -85,6 +89,10 @@ public final class REMatch implements Serializable, Cloneable
 
   BacktrackStack backtrackStack;
 
+  // Scratch space of the Pike VM, kept here so that it can be used again
+  // when this match is passed to RE.getMatchInto.
+  transient REProgram.State state;
+
   public Object clone ()
   {
     try
@@ -94,6 +102,7 @@ public final class REMatch implements Serializable, Cloneable
         copy.start = (int[]) start.clone ();
         copy.start1 = (int[]) start1.clone ();
         copy.end = (int[]) end.clone ();
+        copy.state = null;
 
         return copy;
     }
@@ -117,20 +126,74 @@ public final class REMatch implements Serializable, Cloneable
     start = new int[subs + 1];
     start1 = new int[subs + 1];
     end = new int[subs + 1];
+    init (anchor, eflags);
+  }
+
+    /**
+     * Makes this a new match, as the constructor does, keeping the arrays.
+     */
+  void init (int anchor, int eflags)
+  {
     this.anchor = anchor;
     this.eflags = eflags;
+    matchedText = null;
+    matchedCharIndexed = null;
+    matchedSequence = null;
+    empty = false;
     clear (anchor);
   }
 
+    /**
+     * Copies the positions of another match with as many groups into
+     * this one, without sharing its arrays.
+     *
+     * @return false if the other match has a different number of groups
+     */
+  boolean copyFrom (REMatch other)
+  {
+    int n = start.length;
+    if (other.start.length != n)
+      return false;
+    System.arraycopy (other.start, 0, start, 0, n);
+    System.arraycopy (other.start1, 0, start1, 0, n);
+    System.arraycopy (other.end, 0, end, 0, n);
+    matchedText = other.matchedText;
+    matchedCharIndexed = other.matchedCharIndexed;
+    matchedSequence = other.matchedSequence;
+    matchedStart = other.matchedStart;
+    eflags = other.eflags;
+    offset = other.offset;
+    anchor = other.anchor;
+    index = other.index;
+    empty = other.empty;
+    backtrackStack = other.backtrackStack;
+    return true;
+  }
+
   void finish (CharIndexed text)
   {
     start[0] = 0;
-    CPStringBuilder sb = new CPStringBuilder ();
-    int i;
-    for (i = 0; i < end[0]; i++)
-      sb.append (text.charAt (i));
-    matchedText = sb.toString ();
     matchedCharIndexed = text;
+    matchedSequence = null;
+    if (text instanceof CharIndexedCharSequence
+        && ((CharIndexedCharSequence) text).getSequence () instanceof String
+        && end[0] <= text.length ())
+      {
+        // The string cannot change, so take the text from it only
+        // when it is asked for.
+        CharIndexedCharSequence cs = (CharIndexedCharSequence) text;
+        matchedText = null;
+        matchedSequence = cs.getSequence ();
+        matchedStart = cs.getBase () + cs.getAnchor ();
+      }
+    else
+      {
+        CPStringBuilder sb = new CPStringBuilder ();
+        for (int i = 0; i < end[0]; i++)
+          sb.append (text.charAt (i));
+        matchedText = sb.toString ();
+      }
+    int i;
     for (i = 0; i < start.length; i++)
       {
         // If any subexpressions didn't terminate, they don't count
@@ -167,6 +230,10 @@ public final class REMatch implements Serializable, Cloneable
      */
   public String toString ()
   {
+    if (matchedText == null && matchedSequence != null)
+      matchedText = matchedSequence.subSequence (matchedStart,
+                                                 matchedStart + end[0])
+        .toString ();
     return matchedText;
   }
 
@@ -215,8 +282,9 @@ public final class REMatch implements Serializable, Cloneable
       throw new IndexOutOfBoundsException ("No group " + sub);
     if (start[sub] == -1)
       return null;
-    if (start[sub] >= 0 && end[sub] <= matchedText.length ())
-      return (matchedText.substring (start[sub], end[sub]));
+    String text = toString ();
+    if (start[sub] >= 0 && end[sub] <= text.length ())
+      return (text.substring (start[sub], end[sub]));
     else
       {
         // This case occurs with RETokenLookAhead or RETokenLookBehind.
@@ -0,0 +1,255 @@
+/* gnu/java/util/regex/REPrefilter.java
+   Copyright (C) 2026 Free Software Foundation, Inc.
+
+This file is part of GNU Classpath.
+
+GNU Classpath is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; either version 2, or (at your option)
+any later version.
+
+GNU Classpath is distributed in the hope that it will be useful, but
+WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with GNU Classpath; see the file COPYING.  If not, write to the
+Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+02110-1301 USA.
+
+Linking this library statically or dynamically with other modules is
+making a combined work based on this library.  Thus, the terms and
+conditions of the GNU General Public License cover the whole
+combination.
+
+As a special exception, the copyright holders of this library give you
+permission to link this library with independent modules to produce an
+executable, regardless of the license terms of these independent
+modules, and to copy and distribute the resulting executable under
+terms of your choice, provided that you also meet, for each linked
+independent module, the terms and conditions of the license of that
+module.  An independent module is a module which is not derived from
+or based on this library.  If you modify this library, you may extend
+this exception to your version of the library, but you are not
+obligated to do so.  If you do not wish to do so, delete this
+exception statement from your version. */
+
+package gnu.java.util.regex;
+
+/**
+ * Finds the positions at which a regular expression can start to match,
+ * so that the matchers need not be tried at every position of the
+ * input.
+ *
+ * <p>What is known about a match is taken from the token chain when the
+ * expression is first used:
+ * <ul>
+ * <li>whether it is anchored at the start of input by <code>^</code> or
+ * <code>\A</code>, so that only the first position can match;</li>
+ * <li>the literal every match starts with, which is searched for with
+ * the Boyer-Moore-Horspool algorithm, or else a token that the first
+ * character of every match must be accepted by;</li>
+ * <li>the longest other literal every match contains.  If it does not
+ * occur in the input, there is no match at all, which is found out with
+ * a single scan of the input.</li>
+ * </ul>
+ *
+ * <p>Positions are relative to the cursor of the input, and the end of
+ * input is where {@link CharIndexed#charAt(int)} returns
+ * {@link CharIndexed#OUT_OF_BOUNDS}.  When there is nothing to be found
+ * the methods return the complement, <code>~end</code>, of the position
+ * of the end of input.  A prefilter has no mutable state and can be used
+ * by several threads at once.
+ *
+ * @see RE#getMatchImpl
+ */
+final class REPrefilter
+{
+  /** True if only the first position can match. */
+  private final boolean anchored;
+
+  /** The literal that starts every match, or null. */
+  private final char[] prefix;
+  private final int[] prefixShift;
+
+  /** The token that accepts the first character of a match, or null. */
+  private final REToken first;
+
+  /** A literal that every match contains, or null. */
+  private final char[] required;
+  private final int[] requiredShift;
+
+  private REPrefilter (boolean anchored, char[] prefix, REToken first,
+                       char[] required)
+  {
+    this.anchored = anchored;
+    this.prefix = prefix;
+    this.prefixShift = (prefix == null) ? null : shiftTable (prefix);
+    this.first = first;
+    this.required = required;
+    this.requiredShift = (required == null) ? null : shiftTable (required);
+  }
+
+  /**
+   * Looks at the token chain of a regular expression.
+   *
+   * @param re the top level expression
+   * @return the prefilter, or null if nothing is known that would help
+   */
+  static REPrefilter compile (RE re)
+  {
+    boolean anchored = false;
+    REToken lead = null;
+    REToken token = re.getFirstToken ();
+    // Zero width tokens before the first character do not move it.
+    for (; token != null; token = token.next)
+      {
+        if (token instanceof RETokenStart)
+          anchored |= ((RETokenStart) token).isInputStart ();
+        else if (!(token instanceof RETokenWordBoundary))
+          break;
+      }
+    if (token != null)
+      lead = leadingToken (token);
+
+    char[] prefix = null;
+    REToken first = null;
+    if (lead instanceof RETokenChar && !((RETokenChar) lead).isInsensitive ())
+      prefix = literal ((RETokenChar) lead);
+    else
+      first = lead;
+
+    // Every top level literal must occur in a match, after its start.
+    RETokenChar longest = null;
+    for (token = re.getFirstToken (); token != null; token = token.next)
+      {
+        if (token instanceof RETokenChar && token != lead)
+          {
+            RETokenChar chars = (RETokenChar) token;
+            if (!chars.isInsensitive ()
+                && (longest == null || chars.length () > longest.length ()))
+              longest = chars;
+          }
+      }
+    char[] required = (longest == null) ? null : literal (longest);
+
+    if (!anchored && prefix == null && first == null && required == null)
+      return null;
+    return new REPrefilter (anchored, prefix, first, required);
+  }
+
+  /**
+   * Returns the token that consumes the first character of every match
+   * of token, or null if there is no such token.
+   */
+  private static REToken leadingToken (REToken token)
+  {
+    while (token != null)
+      {
+        if (token instanceof RETokenChar || token.isSingleChar ())
+          return token;
+        if (token instanceof RE)
+          token = ((RE) token).getFirstToken ();
+        else if (token instanceof RETokenRepeated
+                 && ((RETokenRepeated) token).getMin () > 0)
+          token = ((RETokenRepeated) token).getToken ();
+        else
+          return null;
+      }
+    return null;
+  }
+
+  private static char[] literal (RETokenChar chars)
+  {
+    char[] s = new char[chars.length ()];
+    for (int i = 0; i < s.length; i++)
+      s[i] = chars.charAt (i);
+    return s;
+  }
+
+  /**
+   * Returns the Horspool shift table of a literal.  Characters are
+   * hashed to their low eight bits, and a shift is kept only if it is
+   * no longer than those of all characters with the same hash.
+   */
+  private static int[] shiftTable (char[] s)
+  {
+    int last = s.length - 1;
+    int[] shift = new int[256];
+    for (int i = 0; i < 256; i++)
+      shift[i] = s.length;
+    for (int i = 0; i < last; i++)
+      shift[s[i] & 0xff] = last - i;
+    return shift;
+  }
+
+  /**
+   * Returns the first position at or after from where a match can start,
+   * or <code>~end</code> if there is none before the end of input.
+   *
+   * @param initial true if from is the position the search started at
+   */
+  int findStart (CharIndexed input, int from, boolean initial)
+  {
+    if (anchored)
+      return initial ? from : ~end (input, from);
+    if (prefix != null)
+      return search (input, from, prefix, prefixShift);
+    if (first != null)
+      {
+        for (int i = from;; i++)
+          {
+            char c = input.charAt (i);
+            if (c == CharIndexed.OUT_OF_BOUNDS)
+              return ~i;
+            if (first.matchesChar (c))
+              return i;
+          }
+      }
+    return from;
+  }
+
+  /**
+   * Returns the position of the first occurrence of the literal that
+   * every match contains, or <code>~end</code> if it does not occur and
+   * there can be no match.  Returns 0 if no such literal is known.
+   */
+  int findRequired (CharIndexed input)
+  {
+    if (required == null)
+      return 0;
+    return search (input, 0, required, requiredShift);
+  }
+
+  private static int search (CharIndexed input, int from, char[] s,
+                             int[] shift)
+  {
+    int last = s.length - 1;
+    char lastChar = s[last];
+    int i = from;
+    while (true)
+      {
+        char c = input.charAt (i + last);
+        if (c == CharIndexed.OUT_OF_BOUNDS)
+          return ~end (input, i);
+        if (c == lastChar)
+          {
+            int j = last - 1;
+            while (j >= 0 && input.charAt (i + j) == s[j])
+              j--;
+            if (j < 0)
+              return i;
+          }
+        i += shift[c & 0xff];
+      }
+  }
+
+  private static int end (CharIndexed input, int from)
+  {
+    int i = from;
+    while (input.charAt (i) != CharIndexed.OUT_OF_BOUNDS)
+      i++;
+    return i;
+  }
+}
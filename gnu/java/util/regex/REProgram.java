@@ -0,0 +1,679 @@
+/* gnu/java/util/regex/REProgram.java
+   Copyright (C) 2026 Free Software Foundation, Inc.
+
+This file is part of GNU Classpath.
+
+GNU Classpath is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; either version 2, or (at your option)
+any later version.
+
+GNU Classpath is distributed in the hope that it will be useful, but
+WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with GNU Classpath; see the file COPYING.  If not, write to the
+Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+02110-1301 USA.
+
+Linking this library statically or dynamically with other modules is
+making a combined work based on this library.  Thus, the terms and
+conditions of the GNU General Public License cover the whole
+combination.
+
+As a special exception, the copyright holders of this library give you
+permission to link this library with independent modules to produce an
+executable, regardless of the license terms of these independent
+modules, and to copy and distribute the resulting executable under
+terms of your choice, provided that you also meet, for each linked
+independent module, the terms and conditions of the license of that
+module.  An independent module is a module which is not derived from
+or based on this library.  If you modify this library, you may extend
+this exception to your version of the library, but you are not
+obligated to do so.  If you do not wish to do so, delete this
+exception statement from your version. */
+
+package gnu.java.util.regex;
+
+import java.util.List;
+
+/**
+ * A regular expression compiled into a program for a Pike VM.
+ *
+ * <p>The backtracking matcher built from the REToken chain can take time
+ * exponential in the length of the input, for example for
+ * <code>(a|aa)*b</code>.  Expressions without back references,
+ * look-ahead, look-behind, independent groups and possessive
+ * quantifiers are instead compiled into a small instruction set and run
+ * by simulating all paths through the program in lock step, one input
+ * character at a time.  Each instruction is live in at most one thread
+ * per position, so matching takes time proportional to the length of
+ * the input times the length of the program, and never recurses.
+ *
+ * <p>The threads are kept in priority order, the order in which the
+ * backtracking matcher would try the alternatives, and a match cuts off
+ * all threads of lower priority.  The VM therefore finds the same match
+ * and the same groups as the backtracking matcher: the leftmost match,
+ * preferring earlier alternatives and honouring greedy and reluctant
+ * quantifiers.  To keep that guarantee simple, a quantified expression
+ * that can match the empty string is not compiled, because the
+ * backtracking matcher gives empty iterations special treatment.
+ *
+ * @see RE#getMatchImpl
+ */
+final class REProgram
+{
+  /** Accept; the thread has matched. */
+  private static final int MATCH = 0;
+
+  /** Consume the character in arg. */
+  private static final int CHAR = 1;
+
+  /** Consume a character that matches character arg of a RETokenChar. */
+  private static final int CHAR_TOKEN = 2;
+
+  /** Consume a character accepted by the single character token. */
+  private static final int CLASS = 3;
+
+  /** Continue only if the zero width token matches here. */
+  private static final int ASSERT = 4;
+
+  /** Record the current position in slot arg. */
+  private static final int SAVE = 5;
+
+  /** Continue at arg, and with lower priority at alt. */
+  private static final int SPLIT = 6;
+
+  /** Continue at arg. */
+  private static final int JUMP = 7;
+
+  /**
+   * The largest program compiled.  Counted repetitions are expanded, so
+   * <code>(a|b){1000}</code> is better left to the backtracking matcher.
+   */
+  private static final int MAX_LENGTH = 10000;
+
+  /** Used to check for the end of input in REG_TRY_ENTIRE_MATCH mode. */
+  private static final RETokenEnd END = new RETokenEnd (0, null);
+
+  private final int[] ops;
+  private final int[] args;
+  private final int[] alts;
+  private final REToken[] tokens;
+
+  /** Two slots, start and end, for the whole match and every group. */
+  private final int numSlots;
+
+  private REProgram (Compiler c, int numSubs)
+  {
+    int n = c.length;
+    ops = new int[n];
+    args = new int[n];
+    alts = new int[n];
+    tokens = new REToken[n];
+    System.arraycopy (c.ops, 0, ops, 0, n);
+    System.arraycopy (c.args, 0, args, 0, n);
+    System.arraycopy (c.alts, 0, alts, 0, n);
+    System.arraycopy (c.tokens, 0, tokens, 0, n);
+    numSlots = 2 * (numSubs + 1);
+  }
+
+  /**
+   * Compiles the token chain of a regular expression.
+   *
+   * @param re the top level expression
+   * @param numSubs the number of groups in the expression
+   * @return the program, or null if the expression uses anything the VM
+   * cannot do
+   */
+  static REProgram compile (RE re, int numSubs)
+  {
+    Compiler c = new Compiler ();
+    if (!c.compileChain (re.getFirstToken ()))
+      return null;
+    c.emit (MATCH, 0, 0, null);
+    if (c.length > MAX_LENGTH)
+      return null;
+    return new REProgram (c, numSubs);
+  }
+
+  /**
+   * Translates tokens into instructions.
+   */
+  private static final class Compiler
+  {
+    int[] ops = new int[16];
+    int[] args = new int[16];
+    int[] alts = new int[16];
+    REToken[] tokens = new REToken[16];
+    int length;
+
+    int emit (int op, int arg, int alt, REToken token)
+    {
+      if (length == ops.length)
+        {
+          int n = length * 2;
+          int[] o = new int[n];
+          int[] a = new int[n];
+          int[] b = new int[n];
+          REToken[] t = new REToken[n];
+          System.arraycopy (ops, 0, o, 0, length);
+          System.arraycopy (args, 0, a, 0, length);
+          System.arraycopy (alts, 0, b, 0, length);
+          System.arraycopy (tokens, 0, t, 0, length);
+          ops = o;
+          args = a;
+          alts = b;
+          tokens = t;
+        }
+      ops[length] = op;
+      args[length] = arg;
+      alts[length] = alt;
+      tokens[length] = token;
+      return length++;
+    }
+
+    boolean compileChain (REToken token)
+    {
+      for (; token != null; token = token.next)
+        {
+          if (!compileToken (token) || length > MAX_LENGTH)
+            return false;
+        }
+      return true;
+    }
+
+    boolean compileToken (REToken token)
+    {
+      if (token instanceof RE)
+        {
+          // A group.  Its chain ends with an RETokenEndSub, or with
+          // an alternation of branches that each end with one.
+          if (token.subIndex > 0)
+            emit (SAVE, 2 * token.subIndex, 0, null);
+          return compileChain (((RE) token).getFirstToken ());
+        }
+      if (token instanceof RETokenEndSub)
+        {
+          if (token.subIndex > 0)
+            emit (SAVE, 2 * token.subIndex + 1, 0, null);
+          return true;
+        }
+      if (token instanceof RETokenChar)
+        {
+          RETokenChar chars = (RETokenChar) token;
+          for (int i = 0; i < chars.length (); i++)
+            {
+              if (chars.isInsensitive ())
+                emit (CHAR_TOKEN, i, 0, token);
+              else
+                emit (CHAR, chars.charAt (i), 0, token);
+            }
+          return true;
+        }
+      if (token.isSingleChar ())
+        {
+          emit (CLASS, 0, 0, token);
+          return true;
+        }
+      if (token instanceof RETokenStart || token instanceof RETokenEnd
+          || token instanceof RETokenWordBoundary)
+        {
+          emit (ASSERT, 0, 0, token);
+          return true;
+        }
+      if (token instanceof RETokenOneOf)
+        return compileAlternation (((RETokenOneOf) token).getOptions ());
+      if (token instanceof RETokenRepeated)
+        return compileRepeated ((RETokenRepeated) token);
+      // Back references, look-around and independent groups.
+      return false;
+    }
+
+    private boolean compileAlternation (List < REToken > options)
+    {
+      int n = options.size ();
+      if (n == 0)
+        return false;
+      int[] jumps = new int[n - 1];
+      for (int i = 0; i < n - 1; i++)
+        {
+          int split = emit (SPLIT, length + 1, 0, null);
+          if (!compileToken (options.get (i)))
+            return false;
+          jumps[i] = emit (JUMP, 0, 0, null);
+          alts[split] = length;
+        }
+      if (!compileToken (options.get (n - 1)))
+        return false;
+      for (int i = 0; i < n - 1; i++)
+        args[jumps[i]] = length;
+      return true;
+    }
+
+    private boolean compileRepeated (RETokenRepeated repeated)
+    {
+      REToken body = repeated.getToken ();
+      if (repeated.isPossessive () || body.getMinimumLength () == 0)
+        return false;
+      int min = repeated.getMin ();
+      int max = repeated.getMax ();
+      boolean stingy = repeated.isStingy ();
+      for (int i = 0; i < min; i++)
+        {
+          if (!compileToken (body) || length > MAX_LENGTH)
+            return false;
+        }
+      if (max == Integer.MAX_VALUE)
+        {
+          int split = emit (SPLIT, 0, 0, null);
+          if (!compileToken (body))
+            return false;
+          emit (JUMP, split, 0, null);
+          branch (split, split + 1, length, stingy);
+          return true;
+        }
+      int count = max - min;
+      if (count > MAX_LENGTH)
+        return false;
+      int[] splits = new int[count];
+      for (int i = 0; i < count; i++)
+        {
+          splits[i] = emit (SPLIT, 0, 0, null);
+          if (!compileToken (body) || length > MAX_LENGTH)
+            return false;
+        }
+      for (int i = 0; i < count; i++)
+        branch (splits[i], splits[i] + 1, length, stingy);
+      return true;
+    }
+
+    /**
+     * Fills in a SPLIT between another iteration and leaving the loop,
+     * preferring to leave if the quantifier is reluctant.
+     */
+    private void branch (int split, int again, int out, boolean stingy)
+    {
+      args[split] = stingy ? out : again;
+      alts[split] = stingy ? again : out;
+    }
+  }
+
+  /**
+   * The scratch space of one match attempt.
+   */
+  static final class State
+  {
+    /** The program this is for. */
+    final REProgram program;
+
+    /** Program counters of the current and the next list of threads. */
+    int[] pcs;
+    int[] nextPcs;
+
+    /** The slots of the threads, numSlots per thread. */
+    int[] slots;
+    int[] nextSlots;
+
+    /** The generation in which each instruction was last added. */
+    final int[] marks;
+
+    /** The work stack of addThread. */
+    final int[] stack;
+
+    /** The slots of the thread being followed by addThread. */
+    final int[] work;
+
+    /** The slots of the best match so far. */
+    final int[] best;
+
+    /** The input seen through the start of a thread. */
+    final ShiftedInput view = new ShiftedInput ();
+
+    /** The number of threads in the current list. */
+    int count;
+
+    /** The number of threads in the next list. */
+    int nextCount;
+
+    /** The position of the last character looked at. */
+    int rightmost;
+
+    /** The position at which the last run stopped. */
+    int last;
+
+    State (REProgram program)
+    {
+      this.program = program;
+      int n = program.ops.length;
+      pcs = new int[n];
+      nextPcs = new int[n];
+      slots = new int[n * program.numSlots];
+      nextSlots = new int[n * program.numSlots];
+      marks = new int[n];
+      stack = new int[3 * n + 1];
+      work = new int[program.numSlots];
+      best = new int[program.numSlots];
+    }
+  }
+
+  /**
+   * Creates the scratch space needed to run this program.
+   */
+  State newState ()
+  {
+    return new State (this);
+  }
+
+  /**
+   * Runs the program on the input from its cursor.  On success the
+   * match is stored in mymatch the way the backtracking matcher would,
+   * with positions relative to the start of the match, and the start of
+   * the match, relative to the cursor, is returned.  The input is not
+   * moved.  Otherwise -1 is returned.  Either way, the rightmost
+   * position looked at is reported with CharIndexed.setHitEnd.
+   *
+   * @param input the input, with the cursor at the first position to try
+   * @param mymatch a cleared match whose offset is the cursor position
+   * @param search true to try every position from the cursor on, false to
+   * try only the cursor position
+   * @param entire true if the match must extend to the end of input
+   * @param filter used while searching to skip the positions at which
+   * no match can start, or null
+   * @param state scratch space from {@link #newState()}
+   * @return the start of the match, or -1
+   */
+  int execute (CharIndexed input, REMatch mymatch, boolean search,
+               boolean entire, REPrefilter filter, State state)
+  {
+    int ns = numSlots;
+    int base = mymatch.offset;
+    int[] marks = state.marks;
+    for (int i = 0; i < marks.length; i++)
+      marks[i] = 0;
+    state.view.input = input;
+    state.count = 0;
+    state.rightmost = -1;
+
+    boolean matched = false;
+    int pos = 0;
+    if (filter != null && search)
+      {
+        int required = filter.findRequired (input);
+        if (required < 0)
+          pos = ~required;
+      }
+    else
+      filter = null;
+    while (true)
+      {
+        if (!matched && (search || pos == 0))
+          {
+            if (filter != null && state.count == 0)
+              {
+                // No thread is alive, so go straight to the next
+                // position where a match can start, or to the end.
+                int next = filter.findStart (input, pos, pos == 0);
+                pos = (next < 0) ? ~next : next;
+              }
+            // A new thread starting here, with the lowest priority.
+            int[] work = state.work;
+            for (int i = 0; i < ns; i++)
+              work[i] = -1;
+            work[0] = pos;
+            if (pos > state.rightmost)
+              state.rightmost = pos;
+            addThread (0, pos, mymatch, base, state, false);
+          }
+        else if (state.count == 0)
+          break;
+
+        char c = input.charAt (pos);
+        boolean atEnd = (c == CharIndexed.OUT_OF_BOUNDS);
+        state.nextCount = 0;
+
+        int[] pcs = state.pcs;
+        int[] slots = state.slots;
+        int count = state.count;
+        for (int t = 0; t < count; t++)
+          {
+            int pc = pcs[t];
+            boolean ok;
+            switch (ops[pc])
+              {
+              case MATCH:
+                if (entire && !check (END, pos, mymatch, base, state))
+                  continue;
+                System.arraycopy (slots, t * ns, state.best, 0, ns);
+                state.best[1] = pos;
+                matched = true;
+                // Threads of lower priority can only give worse matches.
+                count = t;
+                continue;
+              }
+            if (pos > state.rightmost)
+              state.rightmost = pos;
+            switch (ops[pc])
+              {
+              case CHAR:
+                ok = !atEnd && c == args[pc];
+                break;
+              case CHAR_TOKEN:
+                ok = !atEnd
+                  && ((RETokenChar) tokens[pc]).charMatches (args[pc], c);
+                break;
+              default:
+                ok = !atEnd && tokens[pc].matchesChar (c);
+                break;
+              }
+            if (ok)
+              {
+                System.arraycopy (slots, t * ns, state.work, 0, ns);
+                addThread (pc + 1, pos + 1, mymatch, base, state, true);
+              }
+          }
+
+        // Swap the lists.
+        int[] tmp = state.pcs;
+        state.pcs = state.nextPcs;
+        state.nextPcs = tmp;
+        tmp = state.slots;
+        state.slots = state.nextSlots;
+        state.nextSlots = tmp;
+        state.count = state.nextCount;
+
+        if (atEnd)
+          break;
+        pos++;
+      }
+    state.last = pos;
+
+    if (state.rightmost >= 0)
+      {
+        mymatch.index = state.rightmost;
+        input.setHitEnd (mymatch);
+      }
+    if (!matched)
+      return -1;
+
+    int[] best = state.best;
+    int start = best[0];
+    mymatch.clear (base + start);
+    for (int i = 0; i < ns / 2; i++)
+      {
+        int s = best[2 * i];
+        int e = best[2 * i + 1];
+        mymatch.start[i] = mymatch.start1[i] = (s < 0) ? -1 : s - start;
+        mymatch.end[i] = (e < 0) ? -1 : e - start;
+      }
+    mymatch.start[0] = mymatch.start1[0] = 0;
+    mymatch.index = best[1] - start;
+    return start;
+  }
+
+  /**
+   * Adds the thread in state.work at pc to a list, following all
+   * instructions that do not consume input, in priority order.  An
+   * instruction already in the list is not added again, since the thread
+   * that got there first has the higher priority.
+   *
+   * @param next true to add to the next list, false for the current one
+   */
+  private void addThread (int pc, int pos, REMatch mymatch, int base,
+                          State state, boolean next)
+  {
+    int ns = numSlots;
+    int[] marks = state.marks;
+    int[] stack = state.stack;
+    int[] work = state.work;
+    int[] pcs = next ? state.nextPcs : state.pcs;
+    int[] slots = next ? state.nextSlots : state.slots;
+    int count = next ? state.nextCount : state.count;
+    // Generation pos + 1 is the list for position pos.
+    int gen = pos + 1;
+    int sp = 0;
+    stack[sp++] = pc;
+    while (sp > 0)
+      {
+        pc = stack[--sp];
+        if (pc < 0)
+          {
+            // Undo a SAVE on the way back.
+            int slot = ~pc;
+            work[slot] = stack[--sp];
+            continue;
+          }
+        while (marks[pc] != gen)
+          {
+            marks[pc] = gen;
+            int op = ops[pc];
+            if (op == JUMP)
+              pc = args[pc];
+            else if (op == SPLIT)
+              {
+                stack[sp++] = alts[pc];
+                pc = args[pc];
+              }
+            else if (op == SAVE)
+              {
+                int slot = args[pc];
+                stack[sp++] = work[slot];
+                stack[sp++] = ~slot;
+                work[slot] = pos;
+                pc++;
+              }
+            else if (op == ASSERT)
+              {
+                if (pos > state.rightmost)
+                  state.rightmost = pos;
+                if (!check (tokens[pc], pos, mymatch, base, state))
+                  break;
+                pc++;
+              }
+            else
+              {
+                pcs[count] = pc;
+                System.arraycopy (work, 0, slots, count * ns, ns);
+                count++;
+                break;
+              }
+          }
+      }
+    if (next)
+      state.nextCount = count;
+    else
+      state.count = count;
+  }
+
+  /**
+   * Tests a zero width token at a position.  The token sees the input
+   * with the cursor at that position and an empty match starting there,
+   * so that anchors such as ^ under REG_ANCHORINDEX compare the position
+   * itself, not the start of the thread's match, against the anchor.
+   */
+  private static boolean check (REToken token, int pos, REMatch mymatch,
+                                int base, State state)
+  {
+    ShiftedInput view = state.view;
+    view.shift = pos;
+    mymatch.offset = base + pos;
+    mymatch.index = 0;
+    boolean ok = token.matchThis (view, mymatch) != null;
+    mymatch.offset = base;
+    return ok;
+  }
+
+  /**
+   * The input as seen from a later cursor position, for zero width
+   * tokens.
+   */
+  private static final class ShiftedInput implements CharIndexed
+  {
+    CharIndexed input;
+    int shift;
+
+    public char charAt (int index)
+    {
+      return input.charAt (shift + index);
+    }
+
+    public boolean move (int index)
+    {
+      shift += index;
+      return isValid ();
+    }
+
+    public boolean move1 (int index)
+    {
+      shift += index;
+      return length () >= 0;
+    }
+
+    public boolean isValid ()
+    {
+      return charAt (0) != OUT_OF_BOUNDS;
+    }
+
+    public CharIndexed lookBehind (int index, int length)
+    {
+      return input.lookBehind (shift + index, length);
+    }
+
+    public int length ()
+    {
+      return input.length () - shift;
+    }
+
+    public void setLastMatch (REMatch match)
+    {
+      input.setLastMatch (match);
+    }
+
+    public REMatch getLastMatch ()
+    {
+      return input.getLastMatch ();
+    }
+
+    public void setHitEnd (REMatch match)
+    {
+      // The VM keeps track of this itself.
+    }
+
+    public boolean hitEnd ()
+    {
+      return input.hitEnd ();
+    }
+
+    public int getAnchor ()
+    {
+      return input.getAnchor () + shift;
+    }
+
+    public void setAnchor (int anchor)
+    {
+      shift = anchor - input.getAnchor ();
+    }
+  }
+}
@@ -169,6 +169,26 @@ abstract class REToken implements Serializable, Cloneable
     return false;
   }
 
+    /** Returns true if this token matches exactly one character, and
+      * whether it does depends on nothing but that character.  Such
+      * a token implements matchesChar.
+      */
+  boolean isSingleChar ()
+  {
+    return false;
+  }
+
+    /** Returns true if the character is accepted by this token, which
+      * must be one for which isSingleChar returns true.  The character
+      * is never CharIndexed.OUT_OF_BOUNDS.
+      */
+  boolean matchesChar (char ch)
+  {
+    throw new
+      UnsupportedOperationException
+      ("This token does not match a single character");
+  }
+
   int findFixedLengthMatches (CharIndexed input, REMatch mymatch, int max)
   {
     throw new
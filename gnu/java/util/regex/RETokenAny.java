@@ -87,6 +87,16 @@ final class RETokenAny extends REToken
     return true;
   }
 
+  boolean isSingleChar ()
+  {
+    return true;
+  }
+
+  boolean matchesChar (char ch)
+  {
+    return matchOneChar (ch);
+  }
+
   boolean returnsFixedLengthMatches ()
   {
     return true;
@@ -63,6 +63,40 @@ final class RETokenChar extends REToken
     return ch.length;
   }
 
+    /** Returns the number of characters in this token. */
+  int length ()
+  {
+    return ch.length;
+  }
+
+    /** Returns the i-th character of this token. */
+  char charAt (int i)
+  {
+    return ch[i];
+  }
+
+    /** Returns true if this token ignores case. */
+  boolean isInsensitive ()
+  {
+    return insens;
+  }
+
+    /** Returns true if c matches the i-th character of this token. */
+  boolean charMatches (int i, char c)
+  {
+    return charEquals (c, ch[i]);
+  }
+
+  boolean isSingleChar ()
+  {
+    return ch.length == 1;
+  }
+
+  boolean matchesChar (char c)
+  {
+    return charEquals (c, ch[0]);
+  }
+
   REMatch matchThis (CharIndexed input, REMatch mymatch)
   {
     if (matchOneString (input, mymatch.index))
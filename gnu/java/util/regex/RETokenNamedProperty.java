@@ -145,6 +145,16 @@ final class RETokenNamedProperty extends REToken
     return retval;
   }
 
+  boolean isSingleChar ()
+  {
+    return true;
+  }
+
+  boolean matchesChar (char ch)
+  {
+    return matchOneChar (ch);
+  }
+
   boolean returnsFixedLengthMatches ()
   {
     return true;
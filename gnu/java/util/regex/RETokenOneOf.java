@@ -134,6 +134,74 @@ final class RETokenOneOf extends REToken
     return max;
   }
 
+    /** Returns the alternatives of this token. */
+  List < REToken > getOptions ()
+  {
+    return options;
+  }
+
+  boolean isSingleChar ()
+  {
+    if (!matchesOneChar && options.isEmpty ())
+      return false;
+  for (REToken t:options)
+      {
+        if (!t.isSingleChar ())
+          return false;
+      }
+    if (addition != null)
+      {
+      for (Object obj:addition)
+          {
+            if (obj instanceof REToken && !((REToken) obj).isSingleChar ())
+              return false;
+          }
+      }
+    return true;
+  }
+
+  boolean matchesChar (char ch)
+  {
+    boolean b = false;
+  for (REToken t:options)
+      {
+        if (t.matchesChar (ch))
+          {
+            b = true;
+            break;
+          }
+      }
+    if (negative)
+      b = !b;
+    if (addition == null)
+      return b;
+
+    // Evaluate the nested classes, see matchOneChar.
+    boolean[] stack = new boolean[addition.size () + 1];
+    int sp = 0;
+    stack[sp++] = b;
+  for (Object obj:addition)
+      {
+        if (obj instanceof REToken)
+          stack[sp++] = ((REToken) obj).matchesChar (ch);
+        else if (obj instanceof Boolean)
+          stack[sp++] = ((Boolean) obj).booleanValue ();
+        else if (obj.equals ("|"))
+          {
+            sp--;
+            stack[sp - 1] = stack[sp - 1] || stack[sp];
+          }
+        else if (obj.equals ("&"))
+          {
+            sp--;
+            stack[sp - 1] = stack[sp - 1] && stack[sp];
+          }
+        else
+          throw new RuntimeException ("Invalid object found");
+      }
+    return stack[sp - 1];
+  }
+
   boolean match (CharIndexed input, REMatch mymatch)
   {
     setHitEnd (input, mymatch);
@@ -165,6 +165,16 @@ final class RETokenPOSIX extends REToken
     return retval;
   }
 
+  boolean isSingleChar ()
+  {
+    return true;
+  }
+
+  boolean matchesChar (char ch)
+  {
+    return matchOneChar (ch);
+  }
+
   boolean returnsFixedLengthMatches ()
   {
     return true;
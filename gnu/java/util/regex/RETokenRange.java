@@ -91,6 +91,16 @@ final class RETokenRange extends REToken
     return matches;
   }
 
+  boolean isSingleChar ()
+  {
+    return true;
+  }
+
+  boolean matchesChar (char ch)
+  {
+    return matchOneChar (ch);
+  }
+
   boolean returnsFixedLengthMatches ()
   {
     return true;
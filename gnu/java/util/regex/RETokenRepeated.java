@@ -91,6 +91,24 @@ final class RETokenRepeated extends REToken
     return possessive;
   }
 
+    /** Returns the token being repeated. */
+  REToken getToken ()
+  {
+    return token;
+  }
+
+    /** Returns the minimum number of repetitions. */
+  int getMin ()
+  {
+    return min;
+  }
+
+    /** Returns the maximum number of repetitions. */
+  int getMax ()
+  {
+    return max;
+  }
+
     /**
      * The minimum length of a repeated token is the minimum length
      * of the token multiplied by the minimum number of times it must
@@ -64,6 +64,12 @@ class RETokenStart extends REToken
     return 0;
   }
 
+    /** Returns true if this token does not match after line terminators. */
+  boolean isInputStart ()
+  {
+    return newline == null && !check_java_line_terminators;
+  }
+
   @Override
     REMatch matchThis (CharIndexed input, REMatch mymatch)
   {
@@ -96,7 +102,7 @@ class RETokenStart extends REToken
     if (newline != null)
       {
         int len = newline.length ();
-        if (mymatch.offset >= len)
+        if (mymatch.offset + mymatch.index >= len)
           {
             boolean found = true;
             char z;
@@ -125,7 +131,8 @@ class RETokenStart extends REToken
       return null;
 
     if ((mymatch.eflags & RE.REG_ANCHORINDEX) > 0)
-      return (mymatch.anchor == mymatch.offset) ? mymatch : null;
+      return (mymatch.anchor == mymatch.offset + mymatch.index)
+        ? mymatch : null;
     else
       return ((mymatch.index == 0) && (mymatch.offset == 0)) ? mymatch : null;
   }
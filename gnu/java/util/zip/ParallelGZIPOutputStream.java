@@ -0,0 +1,463 @@
+/* gnu.java.util.zip.ParallelGZIPOutputStream -- Multi-threaded gzip
+   Copyright (C) 2026 Free Software Foundation, Inc.
+
+This file is part of GNU Classpath.
+
+GNU Classpath is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; either version 2, or (at your option)
+any later version.
+
+GNU Classpath is distributed in the hope that it will be useful, but
+WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with GNU Classpath; see the file COPYING.  If not, write to the
+Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+02110-1301 USA.
+
+Linking this library statically or dynamically with other modules is
+making a combined work based on this library.  Thus, the terms and
+conditions of the GNU General Public License cover the whole
+combination.
+
+As a special exception, the copyright holders of this library give you
+permission to link this library with independent modules to produce an
+executable, regardless of the license terms of these independent
+modules, and to copy and distribute the resulting executable under
+terms of your choice, provided that you also meet, for each linked
+independent module, the terms and conditions of the license of that
+module.  An independent module is a module which is not derived from
+or based on this library.  If you modify this library, you may extend
+this exception to your version of the library, but you are not
+obligated to do so.  If you do not wish to do so, delete this
+exception statement from your version. */
+
+
+package gnu.java.util.zip;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.LinkedList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * A gzip output stream that compresses on several threads, in the way
+ * pigz does.  The input is cut into blocks which are deflated
+ * independently, each with the last 32 KiB of the previous block as its
+ * preset dictionary so that little compression is lost.  All blocks but
+ * the last end with a sync flush, so their output can simply be
+ * concatenated; the CRC-32 of the blocks is combined in order.  The
+ * result is a single ordinary gzip member that
+ * {@link java.util.zip.GZIPInputStream} and other gzip readers accept.
+ *
+ * This class is not thread-safe; only the compression itself runs on
+ * other threads.
+ */
+public class ParallelGZIPOutputStream extends FilterOutputStream
+{
+  /** The default size of the blocks compressed by one task. */
+  public static final int DEFAULT_BLOCK_SIZE = 128 * 1024;
+
+  /** The size of the deflate window, and so of the useful dictionary. */
+  private static final int DICTIONARY_SIZE = 32 * 1024;
+
+  private final ExecutorService executor;
+  private final boolean ownExecutor;
+  private final int level;
+  private final int blockSize;
+
+  /** How many blocks may be queued before write() waits for output. */
+  private final int maxPending;
+
+  /** Blocks submitted but not yet written, in order. */
+  private final LinkedList<Future<Block>> pending
+    = new LinkedList<Future<Block>>();
+
+  private byte[] block;
+  private int blockLength;
+
+  /** The previous block, whose tail is the next block's dictionary. */
+  private byte[] previous;
+  private int previousLength;
+
+  private int crc;
+  private long totalIn;
+  private boolean finished;
+  private boolean closed;
+
+  /**
+   * Creates a stream compressing with the default level and block size on
+   * a pool of one thread per processor.
+   */
+  public ParallelGZIPOutputStream(OutputStream out) throws IOException
+  {
+    this(out, null, Deflater.DEFAULT_COMPRESSION, DEFAULT_BLOCK_SIZE);
+  }
+
+  /**
+   * Creates a stream.
+   *
+   * @param out the stream to write the gzip data to.
+   * @param executor the executor running the compression tasks, or null
+   * for a pool of one thread per processor owned by this stream.  An
+   * executor passed in is not shut down by {@link #close()}.
+   * @param level the compression level, as for {@link Deflater}.
+   * @param blockSize the number of input bytes compressed by one task.
+   * @throws IllegalArgumentException if level or blockSize is invalid.
+   * @throws IOException if writing the gzip header fails.
+   */
+  public ParallelGZIPOutputStream(OutputStream out, ExecutorService executor,
+                                  int level, int blockSize)
+    throws IOException
+  {
+    super(out);
+    if ((level < Deflater.NO_COMPRESSION || level > Deflater.BEST_COMPRESSION)
+        && level != Deflater.DEFAULT_COMPRESSION)
+      throw new IllegalArgumentException("invalid level " + level);
+    if (blockSize < DICTIONARY_SIZE)
+      throw new IllegalArgumentException("block size less than "
+                                         + DICTIONARY_SIZE);
+    int threads = Runtime.getRuntime().availableProcessors();
+    if (executor == null)
+      {
+        executor = new ThreadPoolExecutor(threads, threads,
+                                          60, TimeUnit.SECONDS,
+                                          new LinkedBlockingQueue<Runnable>(),
+                                          new DaemonThreadFactory());
+        ownExecutor = true;
+      }
+    else
+      ownExecutor = false;
+    this.executor = executor;
+    this.level = level;
+    this.blockSize = blockSize;
+    this.maxPending = 2 * threads;
+    block = new byte[blockSize];
+
+    int mod_time = (int) (System.currentTimeMillis() / 1000L);
+    byte[] gzipHeader =
+      {
+        /* The two magic bytes */
+        (byte) GZIPInputStream.GZIP_MAGIC,
+        (byte) (GZIPInputStream.GZIP_MAGIC >> 8),
+        /* The compression type */
+        (byte) Deflater.DEFLATED,
+        /* The flags (not set) */
+        0,
+        /* The modification time */
+        (byte) mod_time, (byte) (mod_time >> 8),
+        (byte) (mod_time >> 16), (byte) (mod_time >> 24),
+        /* The extra flags */
+        0,
+        /* The OS type (unknown) */
+        (byte) 255
+      };
+    out.write(gzipHeader);
+  }
+
+  public void write(int b) throws IOException
+  {
+    checkOpen();
+    block[blockLength++] = (byte) b;
+    if (blockLength == blockSize)
+      submit(false);
+  }
+
+  public void write(byte[] buf, int off, int len) throws IOException
+  {
+    if (0 > off || off > off + len || off + len > buf.length)
+      throw new ArrayIndexOutOfBoundsException();
+    checkOpen();
+    while (len > 0)
+      {
+        int n = Math.min(len, blockSize - blockLength);
+        System.arraycopy(buf, off, block, blockLength, n);
+        blockLength += n;
+        off += n;
+        len -= n;
+        if (blockLength == blockSize)
+          submit(false);
+      }
+  }
+
+  /**
+   * Compresses the data written so far, writes it out and flushes the
+   * underlying stream.  Flushing often makes the blocks small and costs
+   * compression.
+   */
+  public void flush() throws IOException
+  {
+    checkOpen();
+    if (blockLength > 0)
+      submit(false);
+    drain(0);
+    out.flush();
+  }
+
+  /**
+   * Writes all remaining data and the gzip trailer without closing the
+   * underlying stream.  No more data may be written afterwards.
+   */
+  public void finish() throws IOException
+  {
+    if (finished)
+      return;
+    checkOpen();
+    submit(true);
+    drain(0);
+    finished = true;
+
+    int totalin = (int) totalIn;
+    byte[] gzipFooter =
+      {
+        (byte) crc, (byte) (crc >> 8),
+        (byte) (crc >> 16), (byte) (crc >> 24),
+        (byte) totalin, (byte) (totalin >> 8),
+        (byte) (totalin >> 16), (byte) (totalin >> 24)
+      };
+    out.write(gzipFooter);
+  }
+
+  /**
+   * Finishes the stream, shuts down the executor if this stream created
+   * it, and closes the underlying stream.
+   */
+  public void close() throws IOException
+  {
+    if (closed)
+      return;
+    try
+      {
+        finish();
+      }
+    finally
+      {
+        closed = true;
+        if (ownExecutor)
+          executor.shutdown();
+        out.close();
+      }
+  }
+
+  private void checkOpen() throws IOException
+  {
+    if (closed)
+      throw new IOException("stream closed");
+    if (finished)
+      throw new IOException("stream finished");
+  }
+
+  /**
+   * Queues the current block for compression and starts a new one.
+   */
+  private void submit(boolean last) throws IOException
+  {
+    byte[] dict = null;
+    int dictOffset = 0;
+    int dictLength = 0;
+    if (previous != null && level != Deflater.NO_COMPRESSION)
+      {
+        dict = previous;
+        dictLength = Math.min(previousLength, DICTIONARY_SIZE);
+        dictOffset = previousLength - dictLength;
+      }
+    pending.add(executor.submit(new Block(block, blockLength, dict,
+                                          dictOffset, dictLength, last,
+                                          level)));
+    previous = block;
+    previousLength = blockLength;
+    block = new byte[blockSize];
+    blockLength = 0;
+    drain(maxPending);
+  }
+
+  /**
+   * Writes out finished blocks in order until at most max are pending.
+   */
+  private void drain(int max) throws IOException
+  {
+    while (pending.size() > max)
+      {
+        Block b;
+        try
+          {
+            b = pending.getFirst().get();
+          }
+        catch (InterruptedException e)
+          {
+            InterruptedIOException ioe = new InterruptedIOException();
+            ioe.initCause(e);
+            throw ioe;
+          }
+        catch (ExecutionException e)
+          {
+            IOException ioe = new IOException("compression failed");
+            ioe.initCause(e.getCause());
+            throw ioe;
+          }
+        pending.removeFirst();
+        out.write(b.output, 0, b.outputLength);
+        crc = crc32Combine(crc, b.crc, b.length);
+        totalIn += b.length;
+      }
+  }
+
+  /**
+   * Returns the CRC-32 of two concatenated pieces of data from their own
+   * CRCs, as zlib's crc32_combine(): appending len2 zero bits is a
+   * linear operator on the CRC, applied by repeated squaring.
+   */
+  private static int crc32Combine(int crc1, int crc2, long len2)
+  {
+    if (len2 <= 0)
+      return crc1;
+
+    int[] even = new int[32];
+    int[] odd = new int[32];
+
+    /* The operator for one zero bit. */
+    odd[0] = 0xedb88320;
+    int row = 1;
+    for (int n = 1; n < 32; n++)
+      {
+        odd[n] = row;
+        row <<= 1;
+      }
+
+    /* Two zero bits, then four. */
+    gf2MatrixSquare(even, odd);
+    gf2MatrixSquare(odd, even);
+
+    /* Apply len2 zero bytes to crc1; the first square gives one byte. */
+    do
+      {
+        gf2MatrixSquare(even, odd);
+        if ((len2 & 1) != 0)
+          crc1 = gf2MatrixTimes(even, crc1);
+        len2 >>= 1;
+        if (len2 == 0)
+          break;
+
+        gf2MatrixSquare(odd, even);
+        if ((len2 & 1) != 0)
+          crc1 = gf2MatrixTimes(odd, crc1);
+        len2 >>= 1;
+      }
+    while (len2 != 0);
+
+    return crc1 ^ crc2;
+  }
+
+  private static int gf2MatrixTimes(int[] mat, int vec)
+  {
+    int sum = 0;
+    for (int i = 0; vec != 0; i++, vec >>>= 1)
+      if ((vec & 1) != 0)
+        sum ^= mat[i];
+    return sum;
+  }
+
+  private static void gf2MatrixSquare(int[] square, int[] mat)
+  {
+    for (int n = 0; n < 32; n++)
+      square[n] = gf2MatrixTimes(mat, mat[n]);
+  }
+
+  /**
+   * One block: compressed on a pool thread, then written out in order.
+   */
+  private static final class Block implements Callable<Block>
+  {
+    private final byte[] input;
+    private final int length;
+    private final byte[] dict;
+    private final int dictOffset;
+    private final int dictLength;
+    private final boolean last;
+    private final int level;
+
+    byte[] output;
+    int outputLength;
+    int crc;
+
+    Block(byte[] input, int length, byte[] dict, int dictOffset,
+          int dictLength, boolean last, int level)
+    {
+      this.input = input;
+      this.length = length;
+      this.dict = dict;
+      this.dictOffset = dictOffset;
+      this.dictLength = dictLength;
+      this.last = last;
+      this.level = level;
+    }
+
+    public Block call()
+    {
+      CRC32 sum = new CRC32();
+      sum.update(input, 0, length);
+      crc = (int) sum.getValue();
+
+      Deflater def = new Deflater(level, true);
+      try
+        {
+          if (dict != null)
+            def.setDictionary(dict, dictOffset, dictLength);
+          def.setInput(input, 0, length);
+          if (last)
+            def.finish();
+
+          /* Leave room for incompressible data, which grows slightly. */
+          output = new byte[length + (length >> 10) + 64];
+          int flush = last ? Deflater.NO_FLUSH : Deflater.SYNC_FLUSH;
+          for (;;)
+            {
+              int n = def.deflate(output, outputLength,
+                                  output.length - outputLength, flush);
+              outputLength += n;
+              if (last ? def.finished()
+                  : outputLength < output.length && def.needsInput())
+                break;
+              if (outputLength == output.length)
+                {
+                  byte[] grown = new byte[output.length * 2];
+                  System.arraycopy(output, 0, grown, 0, outputLength);
+                  output = grown;
+                }
+            }
+        }
+      finally
+        {
+          def.end();
+        }
+      return this;
+    }
+  }
+
+  private static final class DaemonThreadFactory implements ThreadFactory
+  {
+    private int count;
+
+    public synchronized Thread newThread(Runnable r)
+    {
+      Thread t = new Thread(r, "ParallelGZIPOutputStream-" + ++count);
+      t.setDaemon(true);
+      return t;
+    }
+  }
+}
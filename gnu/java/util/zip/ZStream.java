@@ -0,0 +1,373 @@
+/* gnu.java.util.zip.ZStream -- Deflate streams using zlib
+   Copyright (C) 2026 Free Software Foundation, Inc.
+
+This file is part of GNU Classpath.
+
+GNU Classpath is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; either version 2, or (at your option)
+any later version.
+
+GNU Classpath is distributed in the hope that it will be useful, but
+WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with GNU Classpath; see the file COPYING.  If not, write to the
+Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+02110-1301 USA.
+
+Linking this library statically or dynamically with other modules is
+making a combined work based on this library.  Thus, the terms and
+conditions of the GNU General Public License cover the whole
+combination.
+
+As a special exception, the copyright holders of this library give you
+permission to link this library with independent modules to produce an
+executable, regardless of the license terms of these independent
+modules, and to copy and distribute the resulting executable under
+terms of your choice, provided that you also meet, for each linked
+independent module, the terms and conditions of the license of that
+module.  An independent module is a module which is not derived from
+or based on this library.  If you modify this library, you may extend
+this exception to your version of the library, but you are not
+obligated to do so.  If you do not wish to do so, delete this
+exception statement from your version. */
+
+package gnu.java.util.zip;
+
+import gnu.classpath.Configuration;
+import gnu.classpath.Pointer;
+import gnu.classpath.SystemProperties;
+
+import java.util.logging.Logger;
+import java.util.zip.DataFormatException;
+
+/**
+ * A compression or decompression stream backed by zlib.  This is the
+ * native engine behind {@link java.util.zip.Deflater} and
+ * {@link java.util.zip.Inflater}; it is used only when
+ * {@link #isAvailable()} returns <code>true</code>, otherwise those
+ * classes fall back to their pure Java implementation.
+ *
+ * The native engine can be switched off at run time by setting the
+ * system property <code>gnu.java.util.zip.native</code> to
+ * <code>false</code>.
+ *
+ * Instances are not thread-safe; callers synchronize as they would for
+ * the pure Java engine.
+ */
+public final class ZStream
+{
+  /** Compress as much input as possible; used while input arrives. */
+  public static final int NO_FLUSH = 0;
+
+  /** Flush all pending output and align to a byte boundary. */
+  public static final int SYNC_FLUSH = 2;
+
+  /** Like SYNC_FLUSH, and reset the history so inflating can restart. */
+  public static final int FULL_FLUSH = 3;
+
+  /** Compress all remaining input and terminate the stream. */
+  public static final int FINISH = 4;
+
+  /* Bits set by the native code in the flags field. */
+  private static final int FINISHED = 1;
+  private static final int NEEDS_DICTIONARY = 2;
+  private static final int PARAMS_SET = 4;
+
+  private static final byte[] EMPTY = new byte[0];
+
+  private static final Logger log = Logger.getLogger(ZStream.class.getName());
+
+  private static final boolean AVAILABLE = Configuration.WANT_NATIVE_ZLIB
+    && ! "false".equals(SystemProperties.getProperty("gnu.java.util.zip.native"))
+    && initializeLibrary();
+
+  private Pointer native_ptr;
+  private final boolean deflate;
+
+  private byte[] input = EMPTY;
+  private int inputOffset;
+  private int inputLength;
+
+  private long bytesRead;
+  private long bytesWritten;
+
+  private int level;
+  private int strategy;
+  private boolean paramsChanged;
+
+  /* Updated by the native code after each deflate or inflate call. */
+  private int consumed;
+  private int flags;
+
+  /**
+   * Creates a new stream.
+   *
+   * @param deflate <code>true</code> for a compressing stream,
+   * <code>false</code> for a decompressing one.
+   * @param level the compression level, 0 to 9; ignored when inflating.
+   * @param strategy the compression strategy, using the constants of
+   * {@link java.util.zip.Deflater}; ignored when inflating.
+   * @param nowrap <code>true</code> for raw deflate data without the zlib
+   * header and checksum.
+   * @throws IllegalStateException if the native engine is not available.
+   */
+  public ZStream(boolean deflate, int level, int strategy, boolean nowrap)
+  {
+    if (! AVAILABLE)
+      throw new IllegalStateException("zlib not available");
+    this.deflate = deflate;
+    this.level = level;
+    this.strategy = strategy;
+    natInitialize(deflate, level, strategy, nowrap);
+  }
+
+  /**
+   * @return <code>true</code> if the zlib-based native library was
+   *         successfully loaded and is not disabled.
+   */
+  public static boolean isAvailable()
+  {
+    return AVAILABLE;
+  }
+
+  private static boolean initializeLibrary()
+  {
+    boolean result;
+    try
+      {
+        System.loadLibrary("javautilzip");
+        natInitializeLibrary();
+        result = true;
+      }
+    catch (Throwable x)
+      {
+        result = false;
+        if (Configuration.DEBUG)
+          {
+            log.info("Unable to use native zlib: " + x);
+            log.info("Will use a pure Java implementation instead");
+          }
+      }
+    return result;
+  }
+
+  /**
+   * Sets the input for the next call to deflate or inflate.  Any input
+   * left over from the previous call is discarded.
+   */
+  public void setInput(byte[] buf, int off, int len)
+  {
+    if (0 > off || off > off + len || off + len > buf.length)
+      throw new ArrayIndexOutOfBoundsException();
+    input = buf;
+    inputOffset = off;
+    inputLength = len;
+  }
+
+  /**
+   * @return the number of input bytes not yet consumed.
+   */
+  public int getRemaining()
+  {
+    return inputLength;
+  }
+
+  public boolean needsInput()
+  {
+    return inputLength == 0;
+  }
+
+  /**
+   * @return <code>true</code> once the end of the stream was written or
+   * read.
+   */
+  public boolean finished()
+  {
+    return (flags & FINISHED) != 0;
+  }
+
+  /**
+   * @return <code>true</code> if inflating stopped because the stream
+   * needs a preset dictionary.
+   */
+  public boolean needsDictionary()
+  {
+    return (flags & NEEDS_DICTIONARY) != 0;
+  }
+
+  /**
+   * @return the total number of input bytes consumed.
+   */
+  public long getBytesRead()
+  {
+    return bytesRead;
+  }
+
+  /**
+   * @return the total number of output bytes produced.
+   */
+  public long getBytesWritten()
+  {
+    return bytesWritten;
+  }
+
+  /**
+   * @return the checksum of the data processed so far, or the checksum
+   * of the wanted dictionary if {@link #needsDictionary()} is true.
+   */
+  public int getAdler()
+  {
+    checkOpen();
+    return natGetAdler();
+  }
+
+  /**
+   * Changes the compression level and strategy.  The change takes effect
+   * at the next call to {@link #deflate}.
+   */
+  public void setParams(int level, int strategy)
+  {
+    if (this.level != level || this.strategy != strategy)
+      {
+        this.level = level;
+        this.strategy = strategy;
+        paramsChanged = true;
+      }
+  }
+
+  /**
+   * Compresses input into the given buffer.
+   *
+   * @param flush one of {@link #NO_FLUSH}, {@link #SYNC_FLUSH},
+   * {@link #FULL_FLUSH} or {@link #FINISH}.
+   * @return the number of bytes written to buf; when this is less than
+   * len a requested flush has completed.
+   */
+  public int deflate(byte[] buf, int off, int len, int flush)
+  {
+    if (0 > off || off > off + len || off + len > buf.length)
+      throw new ArrayIndexOutOfBoundsException();
+    checkOpen();
+    int count = 0;
+    if (paramsChanged)
+      {
+        /* zlib compresses the input seen so far with the old parameters
+         * first, which fails without changing them if buf fills up.  */
+        count = natDeflate(input, inputOffset, inputLength, buf, off, len,
+                           NO_FLUSH, level, strategy, true);
+        update(count);
+        if ((flags & PARAMS_SET) == 0)
+          return count;
+        paramsChanged = false;
+        off += count;
+        len -= count;
+      }
+    int more = natDeflate(input, inputOffset, inputLength, buf, off, len,
+                          flush, level, strategy, false);
+    update(more);
+    return count + more;
+  }
+
+  /**
+   * Decompresses input into the given buffer.
+   *
+   * @return the number of bytes written to buf.
+   * @throws DataFormatException if the input is not valid deflate data.
+   */
+  public int inflate(byte[] buf, int off, int len) throws DataFormatException
+  {
+    if (0 > off || off > off + len || off + len > buf.length)
+      throw new ArrayIndexOutOfBoundsException();
+    checkOpen();
+    int count = natInflate(input, inputOffset, inputLength, buf, off, len);
+    update(count);
+    return count;
+  }
+
+  private void update(int count)
+  {
+    inputOffset += consumed;
+    inputLength -= consumed;
+    bytesRead += consumed;
+    bytesWritten += count;
+  }
+
+  /**
+   * Sets the preset dictionary.  When deflating this must be called
+   * before the first call to {@link #deflate}; when inflating, only when
+   * {@link #needsDictionary()} is true.
+   *
+   * @throws IllegalArgumentException if the dictionary does not match the
+   * one the inflated stream asks for.
+   */
+  public void setDictionary(byte[] buf, int off, int len)
+  {
+    if (0 > off || off > off + len || off + len > buf.length)
+      throw new ArrayIndexOutOfBoundsException();
+    checkOpen();
+    natSetDictionary(buf, off, len);
+    flags &= ~NEEDS_DICTIONARY;
+  }
+
+  /**
+   * Resets the stream so that a new set of input data can be processed.
+   * The level, strategy and wrapping mode are kept.
+   */
+  public void reset()
+  {
+    checkOpen();
+    natReset();
+    input = EMPTY;
+    inputOffset = inputLength = 0;
+    bytesRead = bytesWritten = 0;
+    flags = 0;
+  }
+
+  /**
+   * Frees the native state.  The stream can no longer be used afterwards.
+   * Calling this more than once has no effect.
+   */
+  public void end()
+  {
+    if (native_ptr != null)
+      {
+        natEnd();
+        native_ptr = null;
+      }
+    input = EMPTY;
+    inputOffset = inputLength = 0;
+  }
+
+  protected void finalize()
+  {
+    end();
+  }
+
+  private void checkOpen()
+  {
+    if (native_ptr == null)
+      throw new IllegalStateException("stream ended");
+  }
+
+  // Native methods .........................................................
+
+  public static native void natInitializeLibrary();
+
+  private native void natInitialize(boolean deflate, int level, int strategy,
+                                    boolean nowrap);
+  private native void natEnd();
+  private native void natReset();
+  private native int natGetAdler();
+  private native void natSetDictionary(byte[] buf, int off, int len);
+  private native int natDeflate(byte[] in, int inOff, int inLen,
+                                byte[] out, int outOff, int outLen,
+                                int flush, int level, int strategy,
+                                boolean setParams);
+  private native int natInflate(byte[] in, int inOff, int inLen,
+                                byte[] out, int outOff, int outLen)
+    throws DataFormatException;
+}
@@ -179,6 +179,54 @@ public abstract class BaseCipher
       }
   }
 
+  public void encryptBlocks(byte[] in, int inOffset, byte[] out,
+                            int outOffset, int count)
+      throws IllegalStateException
+  {
+    synchronized (lock)
+      {
+        if (currentKey == null)
+          throw new IllegalStateException();
+        encrypt(in, inOffset, out, outOffset, currentKey, currentBlockSize,
+                count);
+      }
+  }
+
+  public void decryptBlocks(byte[] in, int inOffset, byte[] out,
+                            int outOffset, int count)
+      throws IllegalStateException
+  {
+    synchronized (lock)
+      {
+        if (currentKey == null)
+          throw new IllegalStateException();
+        decrypt(in, inOffset, out, outOffset, currentKey, currentBlockSize,
+                count);
+      }
+  }
+
+  /**
+   * Encrypts count blocks one by one.  Ciphers which can do better should
+   * override this method.
+   */
+  public void encrypt(byte[] in, int i, byte[] out, int j, Object k, int bs,
+                      int count)
+  {
+    for (int n = 0; n < count; n++, i += bs, j += bs)
+      encrypt(in, i, out, j, k, bs);
+  }
+
+  /**
+   * Decrypts count blocks one by one.  Ciphers which can do better should
+   * override this method.
+   */
+  public void decrypt(byte[] in, int i, byte[] out, int j, Object k, int bs,
+                      int count)
+  {
+    for (int n = 0; n < count; n++, i += bs, j += bs)
+      decrypt(in, i, out, j, k, bs);
+  }
+
   public boolean selfTest()
   {
     int ks;
@@ -0,0 +1,524 @@
+/* BitslicedAES.java -- Constant-time AES
+   Copyright (C) 2026 Free Software Foundation, Inc.
+
+This file is a part of GNU Classpath.
+
+GNU Classpath is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; either version 2 of the License, or (at
+your option) any later version.
+
+GNU Classpath is distributed in the hope that it will be useful, but
+WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with GNU Classpath; if not, write to the Free Software
+Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301
+USA
+
+Linking this library statically or dynamically with other modules is
+making a combined work based on this library.  Thus, the terms and
+conditions of the GNU General Public License cover the whole
+combination.
+
+As a special exception, the copyright holders of this library give you
+permission to link this library with independent modules to produce an
+executable, regardless of the license terms of these independent
+modules, and to copy and distribute the resulting executable under
+terms of your choice, provided that you also meet, for each linked
+independent module, the terms and conditions of the license of that
+module.  An independent module is a module which is not derived from
+or based on this library.  If you modify this library, you may extend
+this exception to your version of the library, but you are not
+obligated to do so.  If you do not wish to do so, delete this
+exception statement from your version.  */
+
+
+
+package gnu.javax.crypto.cipher;
+
+/**
+ * A bitsliced implementation of AES with 128-bit blocks, which does not
+ * look up tables with data or key dependent indices and therefore does
+ * not leak the key through cache timing.  Four blocks are processed at a
+ * time: the 64 bytes are transposed into eight <code>long</code>s, the
+ * <i>n</i>th of which holds bit <i>n</i> of every byte, and the S-box is
+ * computed with the circuit of Boyar and Peralta.  Inside each block the
+ * bytes are kept in row order, so that ShiftRows and MixColumns become
+ * rotations of nibbles and of 16-bit lanes.
+ * <p>
+ * References:
+ * <ol>
+ * <li>Joan Boyar and Ren&eacute; Peralta, <a
+ * href="http://eprint.iacr.org/2011/332">A depth-16 circuit for the AES
+ * S-box</a>.</li>
+ * <li>Emilia K&auml;sper and Peter Schwabe, <a
+ * href="http://eprint.iacr.org/2009/129">Faster and Timing-Attack Resistant
+ * AES-GCM</a>.</li>
+ * </ol>
+ */
+final class BitslicedAES
+{
+  /** Masks of the rows of the state in each 16-bit lane. */
+  private static final long ROW0 = 0x000F000F000F000FL;
+  private static final long ROW1 = 0x00F000F000F000F0L;
+  private static final long ROW2 = 0x0F000F000F000F00L;
+  private static final long ROW3 = 0xF000F000F000F000L;
+
+  /** Trivial constructor to enforce Singleton pattern. */
+  private BitslicedAES()
+  {
+    super();
+  }
+
+  /**
+   * Returns the bitsliced form of the round keys, eight <code>long</code>s
+   * per round.
+   *
+   * @param Ke the encryption round keys, as computed by
+   *          {@link Rijndael#makeKey}.
+   * @return the round keys for {@link #encrypt} and {@link #decrypt}.
+   */
+  static long[] expandKey(int[][] Ke)
+  {
+    long[] result = new long[8 * Ke.length];
+    byte[] k = new byte[64];
+    long[] q = new long[8];
+    for (int r = 0; r < Ke.length; r++)
+      {
+        for (int i = 0; i < 16; i++)
+          k[i] = (byte)(Ke[r][i >>> 2] >>> (24 - 8 * (i & 3)));
+        for (int i = 16; i < 64; i++)
+          k[i] = k[i - 16];
+        load(k, 0, 4, q);
+        System.arraycopy(q, 0, result, 8 * r, 8);
+      }
+    return result;
+  }
+
+  /**
+   * Applies the S-box to each byte of a word, for the key schedule.
+   */
+  static int subWord(int w)
+  {
+    long[] q = new long[8];
+    for (int b = 0; b < 8; b++)
+      for (int i = 0; i < 4; i++)
+        q[b] |= (long)((w >>> (8 * i + b)) & 1) << i;
+    sbox(q);
+    int result = 0;
+    for (int b = 0; b < 8; b++)
+      for (int i = 0; i < 4; i++)
+        result |= (int)((q[b] >>> i) & 1) << (8 * i + b);
+    return result;
+  }
+
+  /**
+   * Encrypts count consecutive blocks.
+   *
+   * @param in the plaintext.
+   * @param i index of <code>in</code> of the first block.
+   * @param out the ciphertext.
+   * @param j index of <code>out</code> for the first block.
+   * @param sk the round keys from {@link #expandKey}.
+   * @param count the number of blocks.
+   */
+  static void encrypt(byte[] in, int i, byte[] out, int j, long[] sk,
+                      int count)
+  {
+    int rounds = sk.length / 8 - 1;
+    long[] q = new long[8];
+    while (count > 0)
+      {
+        int n = Math.min(count, 4);
+        load(in, i, n, q);
+        addRoundKey(q, sk, 0);
+        for (int r = 1; r < rounds; r++)
+          {
+            sbox(q);
+            shiftRows(q);
+            mixColumns(q);
+            addRoundKey(q, sk, r);
+          }
+        sbox(q);
+        shiftRows(q);
+        addRoundKey(q, sk, rounds);
+        store(q, out, j, n);
+        i += 16 * n;
+        j += 16 * n;
+        count -= n;
+      }
+  }
+
+  /**
+   * Decrypts count consecutive blocks.
+   *
+   * @param in the ciphertext.
+   * @param i index of <code>in</code> of the first block.
+   * @param out the plaintext.
+   * @param j index of <code>out</code> for the first block.
+   * @param sk the round keys from {@link #expandKey}.
+   * @param count the number of blocks.
+   */
+  static void decrypt(byte[] in, int i, byte[] out, int j, long[] sk,
+                      int count)
+  {
+    int rounds = sk.length / 8 - 1;
+    long[] q = new long[8];
+    while (count > 0)
+      {
+        int n = Math.min(count, 4);
+        load(in, i, n, q);
+        addRoundKey(q, sk, rounds);
+        for (int r = rounds - 1; r > 0; r--)
+          {
+            invShiftRows(q);
+            invSbox(q);
+            addRoundKey(q, sk, r);
+            invMixColumns(q);
+          }
+        invShiftRows(q);
+        invSbox(q);
+        addRoundKey(q, sk, 0);
+        store(q, out, j, n);
+        i += 16 * n;
+        j += 16 * n;
+        count -= n;
+      }
+  }
+
+  /**
+   * Loads n blocks into the bit planes q.  Byte 4*c+r of block b, which
+   * is in row r and column c of the state, goes to bit 16*b+4*r+c of
+   * each plane.
+   */
+  private static void load(byte[] in, int off, int n, long[] q)
+  {
+    for (int k = 0; k < 8; k++)
+      {
+        long w = 0;
+        for (int lane = 0; lane < 2 * n; lane++)
+          {
+            int row = ((lane & 1) << 1) | (k >>> 2);
+            int col = k & 3;
+            w |= (long)(in[off + 16 * (lane >>> 1) + 4 * col + row] & 0xFF)
+                 << (8 * lane);
+          }
+        q[k] = w;
+      }
+    transpose(q);
+  }
+
+  /**
+   * Stores n blocks from the bit planes q; the inverse of {@link #load}.
+   */
+  private static void store(long[] q, byte[] out, int off, int n)
+  {
+    transpose(q);
+    for (int k = 0; k < 8; k++)
+      {
+        long w = q[k];
+        for (int lane = 0; lane < 2 * n; lane++)
+          {
+            int row = ((lane & 1) << 1) | (k >>> 2);
+            int col = k & 3;
+            out[off + 16 * (lane >>> 1) + 4 * col + row] =
+              (byte)(w >>> (8 * lane));
+          }
+      }
+  }
+
+  /**
+   * Transposes the 8x8 bit matrices formed by the corresponding bytes of
+   * the eight words: afterwards bit k of byte j of q[b] is what was bit b
+   * of byte j of q[k].
+   */
+  private static void transpose(long[] q)
+  {
+    swap(q, 0, 1, 0x5555555555555555L, 1);
+    swap(q, 2, 3, 0x5555555555555555L, 1);
+    swap(q, 4, 5, 0x5555555555555555L, 1);
+    swap(q, 6, 7, 0x5555555555555555L, 1);
+    swap(q, 0, 2, 0x3333333333333333L, 2);
+    swap(q, 1, 3, 0x3333333333333333L, 2);
+    swap(q, 4, 6, 0x3333333333333333L, 2);
+    swap(q, 5, 7, 0x3333333333333333L, 2);
+    swap(q, 0, 4, 0x0F0F0F0F0F0F0F0FL, 4);
+    swap(q, 1, 5, 0x0F0F0F0F0F0F0F0FL, 4);
+    swap(q, 2, 6, 0x0F0F0F0F0F0F0F0FL, 4);
+    swap(q, 3, 7, 0x0F0F0F0F0F0F0F0FL, 4);
+  }
+
+  /**
+   * Exchanges the bits of q[a] selected by mask &lt;&lt; n with the bits
+   * of q[b] selected by mask.
+   */
+  private static void swap(long[] q, int a, int b, long mask, int n)
+  {
+    long t = ((q[a] >>> n) ^ q[b]) & mask;
+    q[b] ^= t;
+    q[a] ^= t << n;
+  }
+
+  private static void addRoundKey(long[] q, long[] sk, int r)
+  {
+    int off = 8 * r;
+    for (int b = 0; b < 8; b++)
+      q[b] ^= sk[off + b];
+  }
+
+  /** Rotates each row left by its index; column c takes column c+r. */
+  private static void shiftRows(long[] q)
+  {
+    for (int b = 0; b < 8; b++)
+      {
+        long x = q[b];
+        q[b] = (x & ROW0)
+             | ((x >>> 1) & 0x0070007000700070L) | ((x << 3) & 0x0080008000800080L)
+             | ((x >>> 2) & 0x0300030003000300L) | ((x << 2) & 0x0C000C000C000C00L)
+             | ((x >>> 3) & 0x1000100010001000L) | ((x << 1) & 0xE000E000E000E000L);
+      }
+  }
+
+  private static void invShiftRows(long[] q)
+  {
+    for (int b = 0; b < 8; b++)
+      {
+        long x = q[b];
+        q[b] = (x & ROW0)
+             | ((x << 1) & 0x00E000E000E000E0L) | ((x >>> 3) & 0x0010001000100010L)
+             | ((x >>> 2) & 0x0300030003000300L) | ((x << 2) & 0x0C000C000C000C00L)
+             | ((x << 3) & 0x8000800080008000L) | ((x >>> 1) & 0x7000700070007000L);
+      }
+  }
+
+  /** Moves row r+1 of each column to row r. */
+  private static long rotateRows1(long x)
+  {
+    return ((x >>> 4) & (ROW0 | ROW1 | ROW2)) | ((x << 12) & ROW3);
+  }
+
+  /** Moves row r+2 of each column to row r. */
+  private static long rotateRows2(long x)
+  {
+    return ((x >>> 8) & (ROW0 | ROW1)) | ((x << 8) & (ROW2 | ROW3));
+  }
+
+  /**
+   * Computes 2*a[r] + 3*a[r+1] + a[r+2] + a[r+3] for each row r, as
+   * 2*b[r] + a[r+1] + b[r+2] with b[r] = a[r] + a[r+1].
+   */
+  private static void mixColumns(long[] q)
+  {
+    long a0 = q[0], a1 = q[1], a2 = q[2], a3 = q[3];
+    long a4 = q[4], a5 = q[5], a6 = q[6], a7 = q[7];
+    long r0 = rotateRows1(a0), r1 = rotateRows1(a1);
+    long r2 = rotateRows1(a2), r3 = rotateRows1(a3);
+    long r4 = rotateRows1(a4), r5 = rotateRows1(a5);
+    long r6 = rotateRows1(a6), r7 = rotateRows1(a7);
+    long b0 = a0 ^ r0, b1 = a1 ^ r1, b2 = a2 ^ r2, b3 = a3 ^ r3;
+    long b4 = a4 ^ r4, b5 = a5 ^ r5, b6 = a6 ^ r6, b7 = a7 ^ r7;
+    q[0] = b7 ^ r0 ^ rotateRows2(b0);
+    q[1] = b0 ^ b7 ^ r1 ^ rotateRows2(b1);
+    q[2] = b1 ^ r2 ^ rotateRows2(b2);
+    q[3] = b2 ^ b7 ^ r3 ^ rotateRows2(b3);
+    q[4] = b3 ^ b7 ^ r4 ^ rotateRows2(b4);
+    q[5] = b4 ^ r5 ^ rotateRows2(b5);
+    q[6] = b5 ^ r6 ^ rotateRows2(b6);
+    q[7] = b6 ^ r7 ^ rotateRows2(b7);
+  }
+
+  /**
+   * InvMixColumns is MixColumns applied to a[r] + 4*(a[r] + a[r+2]).
+   */
+  private static void invMixColumns(long[] q)
+  {
+    long c0 = q[0] ^ rotateRows2(q[0]), c1 = q[1] ^ rotateRows2(q[1]);
+    long c2 = q[2] ^ rotateRows2(q[2]), c3 = q[3] ^ rotateRows2(q[3]);
+    long c4 = q[4] ^ rotateRows2(q[4]), c5 = q[5] ^ rotateRows2(q[5]);
+    long c6 = q[6] ^ rotateRows2(q[6]), c7 = q[7] ^ rotateRows2(q[7]);
+    // Multiply by 4, i.e. shift the polynomial up by two and reduce the
+    // two bits that fall out with x^8 = x^4 + x^3 + x + 1.
+    q[0] ^= c6;
+    q[1] ^= c6 ^ c7;
+    q[2] ^= c0 ^ c7;
+    q[3] ^= c1 ^ c6;
+    q[4] ^= c2 ^ c6 ^ c7;
+    q[5] ^= c3 ^ c7;
+    q[6] ^= c4;
+    q[7] ^= c5;
+    mixColumns(q);
+  }
+
+  /**
+   * The S-box circuit of Boyar and Peralta: a top linear layer, a shared
+   * inversion in GF(2^4) and GF(2^8), and a bottom linear layer which
+   * includes the affine transformation.
+   */
+  private static void sbox(long[] q)
+  {
+    long x0 = q[7], x1 = q[6], x2 = q[5], x3 = q[4];
+    long x4 = q[3], x5 = q[2], x6 = q[1], x7 = q[0];
+
+    long y14 = x3 ^ x5;
+    long y13 = x0 ^ x6;
+    long y9 = x0 ^ x3;
+    long y8 = x0 ^ x5;
+    long t0 = x1 ^ x2;
+    long y1 = t0 ^ x7;
+    long y4 = y1 ^ x3;
+    long y12 = y13 ^ y14;
+    long y2 = y1 ^ x0;
+    long y5 = y1 ^ x6;
+    long y3 = y5 ^ y8;
+    long t1 = x4 ^ y12;
+    long y15 = t1 ^ x5;
+    long y20 = t1 ^ x1;
+    long y6 = y15 ^ x7;
+    long y10 = y15 ^ t0;
+    long y11 = y20 ^ y9;
+    long y7 = x7 ^ y11;
+    long y17 = y10 ^ y11;
+    long y19 = y10 ^ y8;
+    long y16 = t0 ^ y11;
+    long y21 = y13 ^ y16;
+    long y18 = x0 ^ y16;
+
+    long t2 = y12 & y15;
+    long t3 = y3 & y6;
+    long t4 = t3 ^ t2;
+    long t5 = y4 & x7;
+    long t6 = t5 ^ t2;
+    long t7 = y13 & y16;
+    long t8 = y5 & y1;
+    long t9 = t8 ^ t7;
+    long t10 = y2 & y7;
+    long t11 = t10 ^ t7;
+    long t12 = y9 & y11;
+    long t13 = y14 & y17;
+    long t14 = t13 ^ t12;
+    long t15 = y8 & y10;
+    long t16 = t15 ^ t12;
+    long t17 = t4 ^ t14;
+    long t18 = t6 ^ t16;
+    long t19 = t9 ^ t14;
+    long t20 = t11 ^ t16;
+    long t21 = t17 ^ y20;
+    long t22 = t18 ^ y19;
+    long t23 = t19 ^ y21;
+    long t24 = t20 ^ y18;
+
+    long t25 = t21 ^ t22;
+    long t26 = t21 & t23;
+    long t27 = t24 ^ t26;
+    long t28 = t25 & t27;
+    long t29 = t28 ^ t22;
+    long t30 = t23 ^ t24;
+    long t31 = t22 ^ t26;
+    long t32 = t31 & t30;
+    long t33 = t32 ^ t24;
+    long t34 = t23 ^ t33;
+    long t35 = t27 ^ t33;
+    long t36 = t24 & t35;
+    long t37 = t36 ^ t34;
+    long t38 = t27 ^ t36;
+    long t39 = t29 & t38;
+    long t40 = t25 ^ t39;
+
+    long t41 = t40 ^ t37;
+    long t42 = t29 ^ t33;
+    long t43 = t29 ^ t40;
+    long t44 = t33 ^ t37;
+    long t45 = t42 ^ t41;
+    long z0 = t44 & y15;
+    long z1 = t37 & y6;
+    long z2 = t33 & x7;
+    long z3 = t43 & y16;
+    long z4 = t40 & y1;
+    long z5 = t29 & y7;
+    long z6 = t42 & y11;
+    long z7 = t45 & y17;
+    long z8 = t41 & y10;
+    long z9 = t44 & y12;
+    long z10 = t37 & y3;
+    long z11 = t33 & y4;
+    long z12 = t43 & y13;
+    long z13 = t40 & y5;
+    long z14 = t29 & y2;
+    long z15 = t42 & y9;
+    long z16 = t45 & y14;
+    long z17 = t41 & y8;
+
+    long t46 = z15 ^ z16;
+    long t47 = z10 ^ z11;
+    long t48 = z5 ^ z13;
+    long t49 = z9 ^ z10;
+    long t50 = z2 ^ z12;
+    long t51 = z2 ^ z5;
+    long t52 = z7 ^ z8;
+    long t53 = z0 ^ z3;
+    long t54 = z6 ^ z7;
+    long t55 = z16 ^ z17;
+    long t56 = z12 ^ t48;
+    long t57 = t50 ^ t53;
+    long t58 = z4 ^ t46;
+    long t59 = z3 ^ t54;
+    long t60 = t46 ^ t57;
+    long t61 = z14 ^ t57;
+    long t62 = t52 ^ t58;
+    long t63 = t49 ^ t58;
+    long t64 = z4 ^ t59;
+    long t65 = t61 ^ t62;
+    long t66 = z1 ^ t63;
+    long s0 = t59 ^ t63;
+    long s6 = t56 ^ ~t62;
+    long s7 = t48 ^ ~t60;
+    long t67 = t64 ^ t65;
+    long s3 = t53 ^ t66;
+    long s4 = t51 ^ t66;
+    long s5 = t47 ^ t65;
+    long s1 = t64 ^ ~s3;
+    long s2 = t55 ^ ~t67;
+
+    q[7] = s0;
+    q[6] = s1;
+    q[5] = s2;
+    q[4] = s3;
+    q[3] = s4;
+    q[2] = s5;
+    q[1] = s6;
+    q[0] = s7;
+  }
+
+  /**
+   * The inverse S-box.  The S-box is an inversion followed by an affine
+   * map A, so the inverse S-box is the S-box between two applications of
+   * the inverse of A, which undo the affine map on either side.
+   */
+  private static void invSbox(long[] q)
+  {
+    invAffine(q);
+    sbox(q);
+    invAffine(q);
+  }
+
+  /**
+   * Computes the inverse of the S-box's affine map: bit i becomes the
+   * sum of bits i+2, i+5 and i+7, plus the constant 0x05.
+   */
+  private static void invAffine(long[] q)
+  {
+    long q0 = q[0], q1 = q[1], q2 = q[2], q3 = q[3];
+    long q4 = q[4], q5 = q[5], q6 = q[6], q7 = q[7];
+    q[0] = ~(q2 ^ q5 ^ q7);
+    q[1] = q3 ^ q6 ^ q0;
+    q[2] = ~(q4 ^ q7 ^ q1);
+    q[3] = q5 ^ q0 ^ q2;
+    q[4] = q6 ^ q1 ^ q3;
+    q[5] = q7 ^ q2 ^ q4;
+    q[6] = q0 ^ q3 ^ q5;
+    q[7] = q1 ^ q4 ^ q6;
+  }
+}
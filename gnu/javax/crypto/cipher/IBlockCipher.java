@@ -183,6 +183,36 @@ public interface IBlockCipher
   void decryptBlock(byte[] in, int inOffset, byte[] out, int outOffset)
       throws IllegalStateException;
 
+  /**
+   * Encrypts a number of consecutive blocks of plaintext. This gives the same
+   * result as calling {@link #encryptBlock} once per block, but may be faster.
+   *
+   * @param in the plaintext.
+   * @param inOffset index of <code>in</code> from which to start considering
+   *          data.
+   * @param out the ciphertext.
+   * @param outOffset index of <code>out</code> from which to store result.
+   * @param count the number of blocks.
+   * @exception IllegalStateException if the instance is not initialised.
+   */
+  void encryptBlocks(byte[] in, int inOffset, byte[] out, int outOffset,
+                     int count) throws IllegalStateException;
+
+  /**
+   * Decrypts a number of consecutive blocks of ciphertext. This gives the same
+   * result as calling {@link #decryptBlock} once per block, but may be faster.
+   *
+   * @param in the ciphertext.
+   * @param inOffset index of <code>in</code> from which to start considering
+   *          data.
+   * @param out the plaintext.
+   * @param outOffset index of <code>out</code> from which to store result.
+   * @param count the number of blocks.
+   * @exception IllegalStateException if the instance is not initialised.
+   */
+  void decryptBlocks(byte[] in, int inOffset, byte[] out, int outOffset,
+                     int count) throws IllegalStateException;
+
   /**
    * A <i>correctness</i> test that consists of basic symmetric encryption /
    * decryption test(s) for all supported block and key sizes, as well as one
@@ -112,6 +112,44 @@ interface IBlockCipherSpi
   void decrypt(byte[] in, int inOffset, byte[] out, int outOffset, Object k,
                int bs);
 
+  /**
+   * Encrypts a number of consecutive blocks of plaintext.
+   *
+   * @param in the plaintext.
+   * @param inOffset index of <code>in</code> from which to start considering
+   *          data.
+   * @param out the ciphertext.
+   * @param outOffset index of <code>out</code> from which to store the
+   *          result.
+   * @param k the session key to use.
+   * @param bs the block size to use.
+   * @param count the number of blocks.
+   * @exception IllegalArgumentException if the block size is invalid.
+   * @exception ArrayIndexOutOfBoundsException if there is not enough room in
+   *              either the plaintext or ciphertext buffers.
+   */
+  void encrypt(byte[] in, int inOffset, byte[] out, int outOffset, Object k,
+               int bs, int count);
+
+  /**
+   * Decrypts a number of consecutive blocks of ciphertext.
+   *
+   * @param in the ciphertext.
+   * @param inOffset index of <code>in</code> from which to start considering
+   *          data.
+   * @param out the plaintext.
+   * @param outOffset index of <code>out</code> from which to store the
+   *          result.
+   * @param k the session key to use.
+   * @param bs the block size to use.
+   * @param count the number of blocks.
+   * @exception IllegalArgumentException if the block size is invalid.
+   * @exception ArrayIndexOutOfBoundsException if there is not enough room in
+   *              either the plaintext or ciphertext buffers.
+   */
+  void decrypt(byte[] in, int inOffset, byte[] out, int outOffset, Object k,
+               int bs, int count);
+
   /**
    * A <i>correctness</i> test that consists of basic symmetric encryption /
    * decryption test(s) for all supported block and key sizes, as well as one
@@ -39,6 +39,7 @@ exception statement from your version.  */
 package gnu.javax.crypto.cipher;
 
 import gnu.java.security.Configuration;
+import gnu.java.security.Properties;
 import gnu.java.security.Registry;
 import gnu.java.security.util.Util;
 
@@ -53,6 +54,10 @@ import java.util.logging.Logger;
  * (128-, 192- and 256-bit), variable key-size (128-, 192- and 256-bit)
  * symmetric key block cipher.
  * <p>
+ * With 128-bit blocks, it uses the bitsliced {@link BitslicedAES} instead of
+ * lookup tables for keys set up while {@link Properties#useConstantTimeAES}
+ * is <code>true</code>.
+ * <p>
  * References:
  * <ol>
  * <li><a href="http://www.esat.kuleuven.ac.be/~rijmen/rijndael/">The Rijndael
@@ -408,157 +413,165 @@ public final class Rijndael
       log.fine("PT=" + Util.toString(out, outOffset - bs, bs));
   }
 
-  private static void aesEncrypt(byte[] in, int i, byte[] out, int j, Object key)
+  private static void aesEncrypt(byte[] in, int i, byte[] out, int j,
+                                 int[][] Ke, int count)
   {
-    int[][] Ke = (int[][])((Object[]) key)[0]; // extract encryption round keys
     int ROUNDS = Ke.length - 1;
-    int[] Ker = Ke[0];
-    // plaintext to ints + key
-    int t0 = (in[i++]         << 24
-           | (in[i++] & 0xFF) << 16
-           | (in[i++] & 0xFF) <<  8
-           | (in[i++] & 0xFF)      ) ^ Ker[0];
-    int t1 = (in[i++]         << 24
-           | (in[i++] & 0xFF) << 16
-           | (in[i++] & 0xFF) <<  8
-           | (in[i++] & 0xFF)      ) ^ Ker[1];
-    int t2 = (in[i++]         << 24
-           | (in[i++] & 0xFF) << 16
-           | (in[i++] & 0xFF) <<  8
-           | (in[i++] & 0xFF)      ) ^ Ker[2];
-    int t3 = (in[i++]         << 24
-           | (in[i++] & 0xFF) << 16
-           | (in[i++] & 0xFF) <<  8
-           | (in[i++] & 0xFF)      ) ^ Ker[3];
-    int a0, a1, a2, a3;
-    for (int r = 1; r < ROUNDS; r++) // apply round transforms
+    int[] Ker;
+    for (; count > 0; count--)
       {
-        Ker = Ke[r];
-        a0 = (T1[(t0 >>> 24)       ]
-            ^ T2[(t1 >>> 16) & 0xFF]
-            ^ T3[(t2 >>>  8) & 0xFF]
-            ^ T4[ t3         & 0xFF]) ^ Ker[0];
-        a1 = (T1[(t1 >>> 24)       ]
-            ^ T2[(t2 >>> 16) & 0xFF]
-            ^ T3[(t3 >>>  8) & 0xFF]
-            ^ T4[ t0         & 0xFF]) ^ Ker[1];
-        a2 = (T1[(t2 >>> 24)       ]
-            ^ T2[(t3 >>> 16) & 0xFF]
-            ^ T3[(t0 >>>  8) & 0xFF]
-            ^ T4[ t1         & 0xFF]) ^ Ker[2];
-        a3 = (T1[(t3 >>> 24)       ]
-            ^ T2[(t0 >>> 16) & 0xFF]
-            ^ T3[(t1 >>>  8) & 0xFF]
-            ^ T4[ t2         & 0xFF]) ^ Ker[3];
-        t0 = a0;
-        t1 = a1;
-        t2 = a2;
-        t3 = a3;
+        Ker = Ke[0];
+        // plaintext to ints + key
+        int t0 = (in[i++]         << 24
+               | (in[i++] & 0xFF) << 16
+               | (in[i++] & 0xFF) <<  8
+               | (in[i++] & 0xFF)      ) ^ Ker[0];
+        int t1 = (in[i++]         << 24
+               | (in[i++] & 0xFF) << 16
+               | (in[i++] & 0xFF) <<  8
+               | (in[i++] & 0xFF)      ) ^ Ker[1];
+        int t2 = (in[i++]         << 24
+               | (in[i++] & 0xFF) << 16
+               | (in[i++] & 0xFF) <<  8
+               | (in[i++] & 0xFF)      ) ^ Ker[2];
+        int t3 = (in[i++]         << 24
+               | (in[i++] & 0xFF) << 16
+               | (in[i++] & 0xFF) <<  8
+               | (in[i++] & 0xFF)      ) ^ Ker[3];
+        int a0, a1, a2, a3;
+        for (int r = 1; r < ROUNDS; r++) // apply round transforms
+          {
+            Ker = Ke[r];
+            a0 = (T1[(t0 >>> 24)       ]
+                ^ T2[(t1 >>> 16) & 0xFF]
+                ^ T3[(t2 >>>  8) & 0xFF]
+                ^ T4[ t3         & 0xFF]) ^ Ker[0];
+            a1 = (T1[(t1 >>> 24)       ]
+                ^ T2[(t2 >>> 16) & 0xFF]
+                ^ T3[(t3 >>>  8) & 0xFF]
+                ^ T4[ t0         & 0xFF]) ^ Ker[1];
+            a2 = (T1[(t2 >>> 24)       ]
+                ^ T2[(t3 >>> 16) & 0xFF]
+                ^ T3[(t0 >>>  8) & 0xFF]
+                ^ T4[ t1         & 0xFF]) ^ Ker[2];
+            a3 = (T1[(t3 >>> 24)       ]
+                ^ T2[(t0 >>> 16) & 0xFF]
+                ^ T3[(t1 >>>  8) & 0xFF]
+                ^ T4[ t2         & 0xFF]) ^ Ker[3];
+            t0 = a0;
+            t1 = a1;
+            t2 = a2;
+            t3 = a3;
+            if (Configuration.DEBUG)
+              log.fine("CT" + r + "=" + Util.toString(t0) + Util.toString(t1)
+                       + Util.toString(t2) + Util.toString(t3));
+          }
+        // last round is special
+        Ker = Ke[ROUNDS];
+        int tt = Ker[0];
+        out[j++] = (byte)(S[(t0 >>> 24)       ] ^ (tt >>> 24));
+        out[j++] = (byte)(S[(t1 >>> 16) & 0xFF] ^ (tt >>> 16));
+        out[j++] = (byte)(S[(t2 >>>  8) & 0xFF] ^ (tt >>>  8));
+        out[j++] = (byte)(S[ t3         & 0xFF] ^  tt        );
+        tt = Ker[1];
+        out[j++] = (byte)(S[(t1 >>> 24)       ] ^ (tt >>> 24));
+        out[j++] = (byte)(S[(t2 >>> 16) & 0xFF] ^ (tt >>> 16));
+        out[j++] = (byte)(S[(t3 >>>  8) & 0xFF] ^ (tt >>>  8));
+        out[j++] = (byte)(S[ t0         & 0xFF] ^  tt        );
+        tt = Ker[2];
+        out[j++] = (byte)(S[(t2 >>> 24)       ] ^ (tt >>> 24));
+        out[j++] = (byte)(S[(t3 >>> 16) & 0xFF] ^ (tt >>> 16));
+        out[j++] = (byte)(S[(t0 >>>  8) & 0xFF] ^ (tt >>>  8));
+        out[j++] = (byte)(S[ t1         & 0xFF] ^  tt        );
+        tt = Ker[3];
+        out[j++] = (byte)(S[(t3 >>> 24)       ] ^ (tt >>> 24));
+        out[j++] = (byte)(S[(t0 >>> 16) & 0xFF] ^ (tt >>> 16));
+        out[j++] = (byte)(S[(t1 >>>  8) & 0xFF] ^ (tt >>>  8));
+        out[j++] = (byte)(S[ t2         & 0xFF] ^  tt        );
         if (Configuration.DEBUG)
-          log.fine("CT" + r + "=" + Util.toString(t0) + Util.toString(t1)
-                   + Util.toString(t2) + Util.toString(t3));
+          log.fine("CT=" + Util.toString(out, j - 16, 16));
       }
-    // last round is special
-    Ker = Ke[ROUNDS];
-    int tt = Ker[0];
-    out[j++] = (byte)(S[(t0 >>> 24)       ] ^ (tt >>> 24));
-    out[j++] = (byte)(S[(t1 >>> 16) & 0xFF] ^ (tt >>> 16));
-    out[j++] = (byte)(S[(t2 >>>  8) & 0xFF] ^ (tt >>>  8));
-    out[j++] = (byte)(S[ t3         & 0xFF] ^  tt        );
-    tt = Ker[1];
-    out[j++] = (byte)(S[(t1 >>> 24)       ] ^ (tt >>> 24));
-    out[j++] = (byte)(S[(t2 >>> 16) & 0xFF] ^ (tt >>> 16));
-    out[j++] = (byte)(S[(t3 >>>  8) & 0xFF] ^ (tt >>>  8));
-    out[j++] = (byte)(S[ t0         & 0xFF] ^  tt        );
-    tt = Ker[2];
-    out[j++] = (byte)(S[(t2 >>> 24)       ] ^ (tt >>> 24));
-    out[j++] = (byte)(S[(t3 >>> 16) & 0xFF] ^ (tt >>> 16));
-    out[j++] = (byte)(S[(t0 >>>  8) & 0xFF] ^ (tt >>>  8));
-    out[j++] = (byte)(S[ t1         & 0xFF] ^  tt        );
-    tt = Ker[3];
-    out[j++] = (byte)(S[(t3 >>> 24)       ] ^ (tt >>> 24));
-    out[j++] = (byte)(S[(t0 >>> 16) & 0xFF] ^ (tt >>> 16));
-    out[j++] = (byte)(S[(t1 >>>  8) & 0xFF] ^ (tt >>>  8));
-    out[j++] = (byte)(S[ t2         & 0xFF] ^  tt        );
-    if (Configuration.DEBUG)
-      log.fine("CT=" + Util.toString(out, j - 16, 16));
   }
 
-  private static void aesDecrypt(byte[] in, int i, byte[] out, int j, Object key)
+  private static void aesDecrypt(byte[] in, int i, byte[] out, int j,
+                                 int[][] Kd, int count)
   {
-    int[][] Kd = (int[][])((Object[]) key)[1]; // extract decryption round keys
     int ROUNDS = Kd.length - 1;
-    int[] Kdr = Kd[0];
-    // ciphertext to ints + key
-    int t0 = (in[i++]         << 24
-           | (in[i++] & 0xFF) << 16
-           | (in[i++] & 0xFF) <<  8
-           | (in[i++] & 0xFF)      ) ^ Kdr[0];
-    int t1 = (in[i++]         << 24
-           | (in[i++] & 0xFF) << 16
-           | (in[i++] & 0xFF) <<  8
-           | (in[i++] & 0xFF)      ) ^ Kdr[1];
-    int t2 = (in[i++]         << 24
-           | (in[i++] & 0xFF) << 16
-           | (in[i++] & 0xFF) <<  8
-           | (in[i++] & 0xFF)      ) ^ Kdr[2];
-    int t3 = (in[i++]         << 24
-           | (in[i++] & 0xFF) << 16
-           | (in[i++] & 0xFF) <<  8
-           | (in[i++] & 0xFF)      ) ^ Kdr[3];
-
-    int a0, a1, a2, a3;
-    for (int r = 1; r < ROUNDS; r++) // apply round transforms
+    int[] Kdr;
+    for (; count > 0; count--)
       {
-        Kdr = Kd[r];
-        a0 = (T5[(t0 >>> 24)       ]
-            ^ T6[(t3 >>> 16) & 0xFF]
-            ^ T7[(t2 >>>  8) & 0xFF]
-            ^ T8[ t1         & 0xFF]) ^ Kdr[0];
-        a1 = (T5[(t1 >>> 24)       ]
-            ^ T6[(t0 >>> 16) & 0xFF]
-            ^ T7[(t3 >>>  8) & 0xFF]
-            ^ T8[ t2         & 0xFF]) ^ Kdr[1];
-        a2 = (T5[(t2 >>> 24)       ]
-            ^ T6[(t1 >>> 16) & 0xFF]
-            ^ T7[(t0 >>>  8) & 0xFF]
-            ^ T8[ t3         & 0xFF]) ^ Kdr[2];
-        a3 = (T5[(t3 >>> 24)       ]
-            ^ T6[(t2 >>> 16) & 0xFF]
-            ^ T7[(t1 >>>  8) & 0xFF]
-            ^ T8[ t0         & 0xFF]) ^ Kdr[3];
-        t0 = a0;
-        t1 = a1;
-        t2 = a2;
-        t3 = a3;
+        Kdr = Kd[0];
+        // ciphertext to ints + key
+        int t0 = (in[i++]         << 24
+               | (in[i++] & 0xFF) << 16
+               | (in[i++] & 0xFF) <<  8
+               | (in[i++] & 0xFF)      ) ^ Kdr[0];
+        int t1 = (in[i++]         << 24
+               | (in[i++] & 0xFF) << 16
+               | (in[i++] & 0xFF) <<  8
+               | (in[i++] & 0xFF)      ) ^ Kdr[1];
+        int t2 = (in[i++]         << 24
+               | (in[i++] & 0xFF) << 16
+               | (in[i++] & 0xFF) <<  8
+               | (in[i++] & 0xFF)      ) ^ Kdr[2];
+        int t3 = (in[i++]         << 24
+               | (in[i++] & 0xFF) << 16
+               | (in[i++] & 0xFF) <<  8
+               | (in[i++] & 0xFF)      ) ^ Kdr[3];
+
+        int a0, a1, a2, a3;
+        for (int r = 1; r < ROUNDS; r++) // apply round transforms
+          {
+            Kdr = Kd[r];
+            a0 = (T5[(t0 >>> 24)       ]
+                ^ T6[(t3 >>> 16) & 0xFF]
+                ^ T7[(t2 >>>  8) & 0xFF]
+                ^ T8[ t1         & 0xFF]) ^ Kdr[0];
+            a1 = (T5[(t1 >>> 24)       ]
+                ^ T6[(t0 >>> 16) & 0xFF]
+                ^ T7[(t3 >>>  8) & 0xFF]
+                ^ T8[ t2         & 0xFF]) ^ Kdr[1];
+            a2 = (T5[(t2 >>> 24)       ]
+                ^ T6[(t1 >>> 16) & 0xFF]
+                ^ T7[(t0 >>>  8) & 0xFF]
+                ^ T8[ t3         & 0xFF]) ^ Kdr[2];
+            a3 = (T5[(t3 >>> 24)       ]
+                ^ T6[(t2 >>> 16) & 0xFF]
+                ^ T7[(t1 >>>  8) & 0xFF]
+                ^ T8[ t0         & 0xFF]) ^ Kdr[3];
+            t0 = a0;
+            t1 = a1;
+            t2 = a2;
+            t3 = a3;
+            if (Configuration.DEBUG)
+              log.fine("PT" + r + "=" + Util.toString(t0) + Util.toString(t1)
+                       + Util.toString(t2) + Util.toString(t3));
+          }
+        // last round is special
+        Kdr = Kd[ROUNDS];
+        int tt = Kdr[0];
+        out[j++] = (byte)(Si[(t0 >>> 24)       ] ^ (tt >>> 24));
+        out[j++] = (byte)(Si[(t3 >>> 16) & 0xFF] ^ (tt >>> 16));
+        out[j++] = (byte)(Si[(t2 >>>  8) & 0xFF] ^ (tt >>>  8));
+        out[j++] = (byte)(Si[ t1         & 0xFF] ^  tt        );
+        tt = Kdr[1];
+        out[j++] = (byte)(Si[(t1 >>> 24)       ] ^ (tt >>> 24));
+        out[j++] = (byte)(Si[(t0 >>> 16) & 0xFF] ^ (tt >>> 16));
+        out[j++] = (byte)(Si[(t3 >>>  8) & 0xFF] ^ (tt >>>  8));
+        out[j++] = (byte)(Si[ t2         & 0xFF] ^  tt        );
+        tt = Kdr[2];
+        out[j++] = (byte)(Si[(t2 >>> 24)       ] ^ (tt >>> 24));
+        out[j++] = (byte)(Si[(t1 >>> 16) & 0xFF] ^ (tt >>> 16));
+        out[j++] = (byte)(Si[(t0 >>>  8) & 0xFF] ^ (tt >>>  8));
+        out[j++] = (byte)(Si[ t3         & 0xFF] ^  tt        );
+        tt = Kdr[3];
+        out[j++] = (byte)(Si[(t3 >>> 24)       ] ^ (tt >>> 24));
+        out[j++] = (byte)(Si[(t2 >>> 16) & 0xFF] ^ (tt >>> 16));
+        out[j++] = (byte)(Si[(t1 >>>  8) & 0xFF] ^ (tt >>>  8));
+        out[j++] = (byte)(Si[ t0         & 0xFF] ^  tt        );
         if (Configuration.DEBUG)
-          log.fine("PT" + r + "=" + Util.toString(t0) + Util.toString(t1)
-                   + Util.toString(t2) + Util.toString(t3));
+          log.fine("PT=" + Util.toString(out, j - 16, 16));
       }
-    // last round is special
-    Kdr = Kd[ROUNDS];
-    int tt = Kdr[0];
-    out[j++] = (byte)(Si[(t0 >>> 24)       ] ^ (tt >>> 24));
-    out[j++] = (byte)(Si[(t3 >>> 16) & 0xFF] ^ (tt >>> 16));
-    out[j++] = (byte)(Si[(t2 >>>  8) & 0xFF] ^ (tt >>>  8));
-    out[j++] = (byte)(Si[ t1         & 0xFF] ^  tt        );
-    tt = Kdr[1];
-    out[j++] = (byte)(Si[(t1 >>> 24)       ] ^ (tt >>> 24));
-    out[j++] = (byte)(Si[(t0 >>> 16) & 0xFF] ^ (tt >>> 16));
-    out[j++] = (byte)(Si[(t3 >>>  8) & 0xFF] ^ (tt >>>  8));
-    out[j++] = (byte)(Si[ t2         & 0xFF] ^  tt        );
-    tt = Kdr[2];
-    out[j++] = (byte)(Si[(t2 >>> 24)       ] ^ (tt >>> 24));
-    out[j++] = (byte)(Si[(t1 >>> 16) & 0xFF] ^ (tt >>> 16));
-    out[j++] = (byte)(Si[(t0 >>>  8) & 0xFF] ^ (tt >>>  8));
-    out[j++] = (byte)(Si[ t3         & 0xFF] ^  tt        );
-    tt = Kdr[3];
-    out[j++] = (byte)(Si[(t3 >>> 24)       ] ^ (tt >>> 24));
-    out[j++] = (byte)(Si[(t2 >>> 16) & 0xFF] ^ (tt >>> 16));
-    out[j++] = (byte)(Si[(t1 >>>  8) & 0xFF] ^ (tt >>>  8));
-    out[j++] = (byte)(Si[ t0         & 0xFF] ^  tt        );
-    if (Configuration.DEBUG)
-      log.fine("PT=" + Util.toString(out, j - 16, 16));
   }
 
   public Object clone()
@@ -608,6 +621,7 @@ public final class Rijndael
     if (! (bs == 16 || bs == 24 || bs == 32))
       throw new IllegalArgumentException();
     int ROUNDS = getRounds(k.length, bs);
+    boolean ct = bs == DEFAULT_BLOCK_SIZE && Properties.useConstantTimeAES();
     int BC = bs / 4;
     int[][] Ke = new int[ROUNDS + 1][BC]; // encryption round keys
     int[][] Kd = new int[ROUNDS + 1][BC]; // decryption round keys
@@ -633,10 +647,14 @@ public final class Rijndael
       {
         // extrapolate using phi (the round key evolution function)
         tt = tk[KC - 1];
-        tk[0] ^= (S[(tt >>> 16) & 0xFF] & 0xFF) << 24
-               ^ (S[(tt >>>  8) & 0xFF] & 0xFF) << 16
-               ^ (S[ tt         & 0xFF] & 0xFF) <<  8
-               ^ (S[(tt >>> 24)       ] & 0xFF) ^ rcon[rconpointer++] << 24;
+        if (ct)
+          tk[0] ^= Integer.rotateLeft(BitslicedAES.subWord(tt), 8)
+                 ^ rcon[rconpointer++] << 24;
+        else
+          tk[0] ^= (S[(tt >>> 16) & 0xFF] & 0xFF) << 24
+                 ^ (S[(tt >>>  8) & 0xFF] & 0xFF) << 16
+                 ^ (S[ tt         & 0xFF] & 0xFF) <<  8
+                 ^ (S[(tt >>> 24)       ] & 0xFF) ^ rcon[rconpointer++] << 24;
         if (KC != 8)
           for (i = 1, j = 0; i < KC;)
             tk[i++] ^= tk[j++];
@@ -645,10 +663,13 @@ public final class Rijndael
             for (i = 1, j = 0; i < KC / 2;)
               tk[i++] ^= tk[j++];
             tt = tk[KC / 2 - 1];
-            tk[KC / 2] ^= (S[ tt         & 0xFF] & 0xFF)
-                        ^ (S[(tt >>>  8) & 0xFF] & 0xFF) << 8
-                        ^ (S[(tt >>> 16) & 0xFF] & 0xFF) << 16
-                        ^  S[(tt >>> 24) & 0xFF]         << 24;
+            if (ct)
+              tk[KC / 2] ^= BitslicedAES.subWord(tt);
+            else
+              tk[KC / 2] ^= (S[ tt         & 0xFF] & 0xFF)
+                          ^ (S[(tt >>>  8) & 0xFF] & 0xFF) << 8
+                          ^ (S[(tt >>> 16) & 0xFF] & 0xFF) << 16
+                          ^  S[(tt >>> 24) & 0xFF]         << 24;
             for (j = KC / 2, i = j + 1; i < KC;)
               tk[i++] ^= tk[j++];
           }
@@ -659,6 +680,10 @@ public final class Rijndael
             Kd[ROUNDS - (t / BC)][t % BC] = tk[j];
           }
       }
+    // the bitsliced code decrypts with the encryption round keys, and
+    // does not need the table driven inverse MixColumn
+    if (ct)
+      return new Object[] { Ke, null, BitslicedAES.expandKey(Ke) };
     for (int r = 1; r < ROUNDS; r++) // inverse MixColumn where needed
       for (j = 0; j < BC; j++)
         {
@@ -672,23 +697,43 @@ public final class Rijndael
   }
 
   public void encrypt(byte[] in, int i, byte[] out, int j, Object k, int bs)
+  {
+    encrypt(in, i, out, j, k, bs, 1);
+  }
+
+  public void decrypt(byte[] in, int i, byte[] out, int j, Object k, int bs)
+  {
+    decrypt(in, i, out, j, k, bs, 1);
+  }
+
+  public void encrypt(byte[] in, int i, byte[] out, int j, Object k, int bs,
+                      int count)
   {
     if (! (bs == 16 || bs == 24 || bs == 32))
       throw new IllegalArgumentException();
-    if (bs == DEFAULT_BLOCK_SIZE)
-      aesEncrypt(in, i, out, j, k);
+    Object[] sKey = (Object[]) k;
+    if (sKey.length > 2)
+      BitslicedAES.encrypt(in, i, out, j, (long[]) sKey[2], count);
+    else if (bs == DEFAULT_BLOCK_SIZE)
+      aesEncrypt(in, i, out, j, (int[][]) sKey[0], count);
     else
-      rijndaelEncrypt(in, i, out, j, k, bs);
+      for (int n = 0; n < count; n++, i += bs, j += bs)
+        rijndaelEncrypt(in, i, out, j, k, bs);
   }
 
-  public void decrypt(byte[] in, int i, byte[] out, int j, Object k, int bs)
+  public void decrypt(byte[] in, int i, byte[] out, int j, Object k, int bs,
+                      int count)
   {
     if (! (bs == 16 || bs == 24 || bs == 32))
       throw new IllegalArgumentException();
-    if (bs == DEFAULT_BLOCK_SIZE)
-      aesDecrypt(in, i, out, j, k);
+    Object[] sKey = (Object[]) k;
+    if (sKey.length > 2)
+      BitslicedAES.decrypt(in, i, out, j, (long[]) sKey[2], count);
+    else if (bs == DEFAULT_BLOCK_SIZE)
+      aesDecrypt(in, i, out, j, (int[][]) sKey[1], count);
     else
-      rijndaelDecrypt(in, i, out, j, k, bs);
+      for (int n = 0; n < count; n++, i += bs, j += bs)
+        rijndaelDecrypt(in, i, out, j, k, bs);
   }
 
   public boolean selfTest()
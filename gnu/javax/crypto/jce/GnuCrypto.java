@@ -104,6 +104,9 @@ public final class GnuCrypto
         put("Cipher.CAST5",
             gnu.javax.crypto.jce.cipher.Cast5Spi.class.getName());
         put("Cipher.CAST5 ImplementedIn", "Software");
+        put("Cipher.CHACHA20-POLY1305",
+            gnu.javax.crypto.jce.cipher.ChaCha20Poly1305Spi.class.getName());
+        put("Cipher.CHACHA20-POLY1305 ImplementedIn", "Software");
 
         // PBES2 ciphers.
         put("Cipher.PBEWithHMacHavalAndAES",
@@ -42,6 +42,8 @@ import gnu.java.security.Registry;
 import gnu.javax.crypto.cipher.CipherFactory;
 import gnu.javax.crypto.cipher.IBlockCipher;
 import gnu.javax.crypto.jce.spec.BlockCipherParameterSpec;
+import gnu.javax.crypto.mac.IMac;
+import gnu.javax.crypto.mode.IAuthenticatedMode;
 import gnu.javax.crypto.mode.IMode;
 import gnu.javax.crypto.mode.ModeFactory;
 import gnu.javax.crypto.pad.IPad;
@@ -56,16 +58,19 @@ import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
 import java.security.spec.AlgorithmParameterSpec;
 import java.security.spec.InvalidParameterSpecException;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
 
+import javax.crypto.AEADBadTagException;
 import javax.crypto.BadPaddingException;
 import javax.crypto.Cipher;
 import javax.crypto.CipherSpi;
 import javax.crypto.IllegalBlockSizeException;
 import javax.crypto.NoSuchPaddingException;
 import javax.crypto.ShortBufferException;
+import javax.crypto.spec.GCMParameterSpec;
 import javax.crypto.spec.IvParameterSpec;
 
 /**
@@ -84,6 +89,14 @@ import javax.crypto.spec.IvParameterSpec;
  * and the initialization vector, the subclass should override those methods.
  * Otherwise a subclass need only call the {@link #CipherAdapter(String)}
  * constructor with the name of the cipher.
+ * <p>
+ * In an authenticated mode, such as GCM, the additional data is passed to
+ * the mode by {@link #engineUpdateAAD(byte[],int,int)}, and the final call
+ * appends the tag when encrypting.  When decrypting, the ciphertext is held
+ * back until the final call, which checks the tag before it returns any
+ * plaintext.  After an authenticated encryption the cipher must be
+ * initialized again with a new nonce; reusing the last key and nonce is
+ * refused.
  */
 class CipherAdapter
     extends CipherSpi
@@ -104,6 +117,18 @@ class CipherAdapter
   protected int partLen;
   /** The length of blocks we are processing. */
   protected int blockLen;
+  /** The tag length of an authenticated mode. */
+  protected int tagLen;
+  /** Ciphertext held back until its tag has been checked. */
+  protected byte[] held;
+  /** The number of bytes in {@link #held}. */
+  protected int heldLen;
+  /** The encoded key given to the last initialization. */
+  private byte[] encodedKey;
+  /** The key and nonce of the last authenticated encryption, or null. */
+  private byte[] spentKey, spentIV;
+  /** Whether an authenticated encryption needs a new nonce to go on. */
+  private boolean spent;
 
   /**
    * Protected constructor to be called by subclasses. The cipher name argument
@@ -137,6 +162,25 @@ class CipherAdapter
     attributes.put(IBlockCipher.CIPHER_BLOCK_SIZE, Integer.valueOf(blockLen));
   }
 
+  /**
+   * Creates a new cipher adapter for a mode that has no separate underlying
+   * block cipher, such as ChaCha20-Poly1305, and so also serves as the
+   * cipher.  Subclasses using this constructor should override
+   * {@link #engineSetMode(String)}.
+   *
+   * @param mode The mode to use.
+   */
+  protected CipherAdapter(IMode mode)
+  {
+    cipher = mode;
+    this.mode = mode;
+    blockLen = mode.defaultBlockSize();
+    attributes = new HashMap();
+    attributes.put(IBlockCipher.CIPHER_BLOCK_SIZE, Integer.valueOf(blockLen));
+    if (mode instanceof IAuthenticatedMode)
+      attributes.put(IMode.MODE_BLOCK_SIZE, Integer.valueOf(1));
+  }
+
   protected void engineSetMode(String modeName) throws NoSuchAlgorithmException
   {
     if (modeName.length() >= 3
@@ -161,6 +205,9 @@ class CipherAdapter
     mode = ModeFactory.getInstance(modeName, cipher, blockLen);
     if (mode == null)
       throw new NoSuchAlgorithmException(modeName);
+    // An authenticated mode streams, so there are no partial blocks to keep.
+    if (mode instanceof IAuthenticatedMode)
+      attributes.put(IMode.MODE_BLOCK_SIZE, Integer.valueOf(1));
   }
 
   protected void engineSetPadding(String padName) throws NoSuchPaddingException
@@ -184,6 +231,12 @@ class CipherAdapter
 
   protected int engineGetOutputSize(int inputLen)
   {
+    if (mode instanceof IAuthenticatedMode)
+      {
+        if (((Integer) attributes.get(IMode.STATE)).intValue() == IMode.DECRYPTION)
+          return Math.max(0, heldLen + inputLen - tagLen);
+        return inputLen + tagLen;
+      }
     final int blockSize = mode.currentBlockSize();
     return ((inputLen + partLen) / blockSize) * blockSize;
   }
@@ -259,6 +312,7 @@ class CipherAdapter
     if (! key.getFormat().equalsIgnoreCase("RAW"))
       throw new InvalidKeyException("bad key format " + key.getFormat());
     byte[] kb = key.getEncoded();
+    encodedKey = kb;
     int kbLength = kb.length;
     if (keyLen == 0)
       {
@@ -305,6 +359,7 @@ class CipherAdapter
                             SecureRandom random) throws InvalidKeyException,
       InvalidAlgorithmParameterException
   {
+    attributes.remove(IMac.TRUNCATED_SIZE);
     if (params == null)
       {
         // All cipher modes require parameters (like an IV) except ECB. When
@@ -317,7 +372,9 @@ class CipherAdapter
               {
               case Cipher.ENCRYPT_MODE:
               case Cipher.WRAP_MODE:
-                byte[] iv = new byte[blockLen];
+                // Authenticated modes take the usual 96-bit nonce.
+                byte[] iv = new byte[mode instanceof IAuthenticatedMode ? 12
+                                                                        : blockLen];
                 random.nextBytes(iv);
                 attributes.put(IMode.IV, iv);
                 break;
@@ -341,10 +398,27 @@ class CipherAdapter
         attributes.put(IMode.IV, bcps.getIV());
         keyLen = bcps.getKeySize();
       }
+    else if (params instanceof GCMParameterSpec)
+      {
+        if (! (mode instanceof IAuthenticatedMode))
+          throw new InvalidAlgorithmParameterException(
+              "GCM parameters for mode: " + mode.name());
+        GCMParameterSpec gcm = (GCMParameterSpec) params;
+        if (gcm.getTLen() % 8 != 0 || gcm.getTLen() < 8 || gcm.getTLen() > 128)
+          throw new InvalidAlgorithmParameterException(
+              "bad tag length: " + gcm.getTLen());
+        attributes.put(IMode.IV, gcm.getIV());
+        attributes.put(IMac.TRUNCATED_SIZE, Integer.valueOf(gcm.getTLen() / 8));
+        blockLen = cipher.defaultBlockSize();
+        attributes.put(IBlockCipher.CIPHER_BLOCK_SIZE, Integer.valueOf(blockLen));
+        keyLen = 0;
+      }
     else if (params instanceof IvParameterSpec)
       {
-        // The size of the IV must match the block size
-        if (((IvParameterSpec) params).getIV().length != cipher.defaultBlockSize())
+        // The size of the IV must match the block size, except for the
+        // nonce of an authenticated mode
+        if (! (mode instanceof IAuthenticatedMode)
+            && ((IvParameterSpec) params).getIV().length != cipher.defaultBlockSize())
           {
             throw new InvalidAlgorithmParameterException();
           }
@@ -354,7 +428,23 @@ class CipherAdapter
         attributes.put(IBlockCipher.CIPHER_BLOCK_SIZE, Integer.valueOf(blockLen));
         keyLen = 0;
       }
-    engineInitHandler(opmode, key, random);
+    if (opmode == Cipher.ENCRYPT_MODE && mode instanceof IAuthenticatedMode
+        && spentIV != null
+        && Arrays.equals((byte[]) attributes.get(IMode.IV), spentIV)
+        && key.getFormat().equalsIgnoreCase("RAW")
+        && Arrays.equals(key.getEncoded(), spentKey))
+      throw new InvalidAlgorithmParameterException(
+          "cannot reuse the key and nonce of the last encryption in "
+          + mode.name());
+    try
+      {
+        engineInitHandler(opmode, key, random);
+      }
+    catch (IllegalArgumentException iae)
+      {
+        // The mode rejected the parameters, such as a nonce of the wrong size.
+        throw new InvalidAlgorithmParameterException(iae.getMessage());
+      }
   }
 
   protected void engineInit(int opmode, Key key, AlgorithmParameters params,
@@ -373,10 +463,25 @@ class CipherAdapter
     engineInit(opmode, key, spec, random);
   }
 
+  protected void engineUpdateAAD(byte[] src, int offset, int len)
+  {
+    if (! (mode instanceof IAuthenticatedMode))
+      throw new IllegalStateException(mode.name()
+                                      + " is not an authenticated mode");
+    checkNotSpent();
+    ((IAuthenticatedMode) mode).update(src, offset, len);
+  }
+
   protected byte[] engineUpdate(byte[] input, int inOff, int inLen)
   {
+    checkNotSpent();
     if (inLen == 0) // nothing to process
       return new byte[0];
+    if (isHolding())
+      {
+        hold(input, inOff, inLen);
+        return new byte[0];
+      }
     final int blockSize = mode.currentBlockSize();
     int blockCount = (partLen + inLen) / blockSize;
 
@@ -402,8 +507,14 @@ class CipherAdapter
   protected int engineUpdate(byte[] in, int inOff, int inLen, byte[] out,
                              int outOff) throws ShortBufferException
   {
+    checkNotSpent();
     if (inLen == 0) // nothing to process
       return 0;
+    if (isHolding())
+      {
+        hold(in, inOff, inLen);
+        return 0;
+      }
     final int blockSize = mode.currentBlockSize();
     int blockCount = (partLen + inLen) / blockSize;
 
@@ -435,12 +546,9 @@ class CipherAdapter
           System.arraycopy(in, inOff, buf, partLen, inLen);
         inOff = 0;
       }
-    for (int i = 0; i < blockCount; i++) // update blockCount * blockSize
-      {
-        mode.update(buf, inOff, out, outOff);
-        inOff += blockSize;
-        outOff += blockSize;
-      }
+    // update blockCount * blockSize in one go
+    mode.update(buf, inOff, out, outOff, blockCount);
+    inOff += result;
     partLen += inLen - result;
     if (partLen > 0) // cache remaining bytes from buf
       System.arraycopy(buf, inOff, partBlock, 0, partLen);
@@ -450,6 +558,19 @@ class CipherAdapter
   protected byte[] engineDoFinal(byte[] input, int off, int len)
       throws IllegalBlockSizeException, BadPaddingException
   {
+    if (mode instanceof IAuthenticatedMode)
+      {
+        byte[] out = new byte[engineGetOutputSize(len)];
+        try
+          {
+            authenticatedDoFinal(input, off, len, out, 0);
+          }
+        catch (ShortBufferException x) // should not happen
+          {
+            throw new Error(x);
+          }
+        return out;
+      }
     final byte[] result;
     final byte[] buf = engineUpdate(input, off, len);
     if (pad != null)
@@ -509,6 +630,8 @@ class CipherAdapter
                               int outOff) throws BadPaddingException,
       IllegalBlockSizeException, ShortBufferException
   {
+    if (mode instanceof IAuthenticatedMode)
+      return authenticatedDoFinal(in, inOff, inLen, out, outOff);
     byte[] buf = engineDoFinal(in, inOff, inLen);
     if (out.length + outOff < buf.length)
       throw new ShortBufferException();
@@ -516,10 +639,129 @@ class CipherAdapter
     return buf.length;
   }
 
+  /**
+   * Finishes a message in an authenticated mode, appending the tag when
+   * encrypting and checking it when decrypting.  The plaintext is only
+   * stored if the tag is right.
+   */
+  private int authenticatedDoFinal(byte[] in, int inOff, int inLen,
+                                   byte[] out, int outOff)
+      throws AEADBadTagException, ShortBufferException
+  {
+    checkNotSpent();
+    IAuthenticatedMode aead = (IAuthenticatedMode) mode;
+    if (out.length - outOff < engineGetOutputSize(inLen))
+      throw new ShortBufferException();
+    int result;
+    if (((Integer) attributes.get(IMode.STATE)).intValue() == IMode.ENCRYPTION)
+      {
+        if (inLen > 0)
+          aead.update(in, inOff, out, outOff, inLen);
+        byte[] tag = aead.digest();
+        System.arraycopy(tag, 0, out, outOff + inLen, tag.length);
+        // Starting over with the same nonce would repeat the keystream,
+        // so leave the mode uninitialized until a new nonce is given.
+        mode.reset();
+        heldLen = 0;
+        spentKey = encodedKey;
+        spentIV = (byte[]) ((byte[]) attributes.get(IMode.IV)).clone();
+        spent = true;
+        return inLen + tag.length;
+      }
+    else
+      {
+        if (heldLen > 0)
+          {
+            hold(in, inOff, inLen);
+            in = held;
+            inOff = 0;
+            inLen = heldLen;
+          }
+        result = inLen - tagLen;
+        if (result < 0)
+          {
+            resetQuietly();
+            throw new AEADBadTagException("input shorter than the tag");
+          }
+        // Copy the received tag, in case the output overlaps it.
+        byte[] expected = new byte[tagLen];
+        System.arraycopy(in, inOff + result, expected, 0, tagLen);
+        if (result > 0)
+          aead.update(in, inOff, out, outOff, result);
+        byte[] tag = aead.digest();
+        int diff = 0;
+        for (int i = 0; i < tagLen; i++)
+          diff |= tag[i] ^ expected[i];
+        if (diff != 0)
+          {
+            Arrays.fill(out, outOff, outOff + result, (byte) 0);
+            resetQuietly();
+            throw new AEADBadTagException("tag mismatch");
+          }
+      }
+    resetQuietly();
+    return result;
+  }
+
+  /**
+   * Throws an IllegalStateException if an authenticated encryption has
+   * finished and the cipher has not been given a new nonce since.
+   */
+  private void checkNotSpent()
+  {
+    if (spent)
+      throw new IllegalStateException("cipher must be initialized with a "
+                                      + "new nonce after encrypting in "
+                                      + mode.name());
+  }
+
+  /**
+   * Tells whether ciphertext is being held back for an authenticated mode.
+   */
+  private boolean isHolding()
+  {
+    return mode instanceof IAuthenticatedMode
+        && ((Integer) attributes.get(IMode.STATE)).intValue() == IMode.DECRYPTION;
+  }
+
+  /**
+   * Appends bytes to the ciphertext held back for an authenticated mode.
+   */
+  private void hold(byte[] in, int inOff, int inLen)
+  {
+    if (held == null || held.length - heldLen < inLen)
+      {
+        byte[] newHeld = new byte[Math.max(2 * heldLen, heldLen + inLen)];
+        if (heldLen > 0)
+          System.arraycopy(held, 0, newHeld, 0, heldLen);
+        held = newHeld;
+      }
+    System.arraycopy(in, inOff, held, heldLen, inLen);
+    heldLen += inLen;
+  }
+
+  private void resetQuietly()
+  {
+    try
+      {
+        reset();
+      }
+    catch (InvalidKeyException ike)
+      {
+        // Should not happen; if we initialized it with the current
+        // parameters before, we should be able to do it again.
+        throw new Error(ike);
+      }
+  }
+
   private void reset() throws InvalidKeyException
   {
     mode.reset();
     mode.init(attributes);
+    spent = false;
+    heldLen = 0;
+    if (mode instanceof IAuthenticatedMode)
+      tagLen = ((IAuthenticatedMode) mode).macSize();
     if (pad != null)
       {
         pad.reset();
@@ -0,0 +1,334 @@
+/* BaseAuthenticatedMode.java --
+   Copyright (C) 2026 Free Software Foundation, Inc.
+
+This file is a part of GNU Classpath.
+
+GNU Classpath is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; either version 2 of the License, or (at
+your option) any later version.
+
+GNU Classpath is distributed in the hope that it will be useful, but
+WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with GNU Classpath; if not, write to the Free Software
+Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301
+USA
+
+Linking this library statically or dynamically with other modules is
+making a combined work based on this library.  Thus, the terms and
+conditions of the GNU General Public License cover the whole
+combination.
+
+As a special exception, the copyright holders of this library give you
+permission to link this library with independent modules to produce an
+executable, regardless of the license terms of these independent
+modules, and to copy and distribute the resulting executable under
+terms of your choice, provided that you also meet, for each linked
+independent module, the terms and conditions of the license of that
+module.  An independent module is a module which is not derived from
+or based on this library.  If you modify this library, you may extend
+this exception to your version of the library, but you are not
+obligated to do so.  If you do not wish to do so, delete this
+exception statement from your version.  */
+
+
+
+package gnu.javax.crypto.mode;
+
+import java.security.InvalidKeyException;
+import java.util.Map;
+
+/**
+ * The basis of the one-pass authenticated modes, GCM and ChaCha20-Poly1305,
+ * which both encrypt with a keystream and authenticate with a polynomial MAC
+ * over 16-byte blocks.  The MAC input is the additional data, padded with
+ * zeroes to a multiple of 16 bytes, then the ciphertext, padded the same way,
+ * and then the lengths of both.  This class keeps track of the two phases and
+ * of the partial MAC block; a concrete mode supplies the keystream, the MAC
+ * block function and the final tag computation.
+ * <p>
+ * The mode block size only says how many bytes one call to
+ * {@link #update(byte[],int,byte[],int)} processes; any size from 1 to
+ * {@link #defaultBlockSize()} may be chosen.  The additional data has to be
+ * passed in through {@link #update(byte[],int,int)} before the first byte of
+ * the message.
+ */
+abstract class BaseAuthenticatedMode
+    implements IAuthenticatedMode
+{
+  /** The size of the blocks the MAC works on, in bytes. */
+  static final int MAC_BLOCK_SIZE = 16;
+  /** The direction state (encrypting or decrypting). */
+  protected int state;
+  /** Whether we're initialized or not. */
+  protected boolean init;
+  /** The number of bytes one update processes. */
+  protected int modeBlockSize;
+  /** The tag size, in bytes. */
+  protected int tagSize;
+  /** Whether the message has started, which ends the additional data. */
+  private boolean inText;
+  /** The length of the additional data, in bytes. */
+  private long aadLength;
+  /** The length of the message, in bytes. */
+  private long textLength;
+  /** A partial MAC block. */
+  private final byte[] macBlock = new byte[MAC_BLOCK_SIZE];
+  /** The number of bytes in {@link #macBlock}. */
+  private int macLength;
+
+  public void init(Map attrib) throws InvalidKeyException
+  {
+    byte[] key = (byte[]) attrib.get(KEY_MATERIAL);
+    if (key == null)
+      throw new IllegalArgumentException("no key provided");
+    byte[] nonce = (byte[]) attrib.get(IV);
+    if (nonce == null)
+      throw new IllegalArgumentException("no nonce provided");
+    Integer st = (Integer) attrib.get(STATE);
+    if (st != null)
+      {
+        state = st.intValue();
+        if (state != ENCRYPTION && state != DECRYPTION)
+          throw new IllegalArgumentException("invalid state");
+      }
+    else
+      state = ENCRYPTION;
+    Integer bs = (Integer) attrib.get(MODE_BLOCK_SIZE);
+    modeBlockSize = bs != null ? bs.intValue() : defaultBlockSize();
+    if (modeBlockSize < 1 || modeBlockSize > defaultBlockSize())
+      throw new IllegalArgumentException("mode block size out of range");
+    Integer ts = (Integer) attrib.get(TRUNCATED_SIZE);
+    tagSize = ts != null ? ts.intValue() : MAC_BLOCK_SIZE;
+    if (tagSize < 1 || tagSize > MAC_BLOCK_SIZE)
+      throw new IllegalArgumentException("tag size out of range");
+
+    setup(key, nonce);
+    inText = false;
+    aadLength = 0;
+    textLength = 0;
+    macLength = 0;
+    init = true;
+  }
+
+  public int currentBlockSize()
+  {
+    if (! init)
+      throw new IllegalStateException("not initialized");
+    return modeBlockSize;
+  }
+
+  public void encryptBlock(byte[] in, int inOff, byte[] out, int outOff)
+  {
+    encryptBlocks(in, inOff, out, outOff, 1);
+  }
+
+  public void decryptBlock(byte[] in, int inOff, byte[] out, int outOff)
+  {
+    decryptBlocks(in, inOff, out, outOff, 1);
+  }
+
+  public void encryptBlocks(byte[] in, int inOff, byte[] out, int outOff,
+                            int count)
+  {
+    if (! init)
+      throw new IllegalStateException("not initialized");
+    if (state != ENCRYPTION)
+      throw new IllegalStateException("not encrypting");
+    int len = count * modeBlockSize;
+    startText();
+    crypt(in, inOff, out, outOff, len);
+    authenticate(out, outOff, len);
+    textLength += len;
+  }
+
+  public void decryptBlocks(byte[] in, int inOff, byte[] out, int outOff,
+                            int count)
+  {
+    if (! init)
+      throw new IllegalStateException("not initialized");
+    if (state != DECRYPTION)
+      throw new IllegalStateException("not decrypting");
+    int len = count * modeBlockSize;
+    startText();
+    authenticate(in, inOff, len);
+    crypt(in, inOff, out, outOff, len);
+    textLength += len;
+  }
+
+  public void update(byte[] in, int inOff, byte[] out, int outOff)
+  {
+    update(in, inOff, out, outOff, 1);
+  }
+
+  public void update(byte[] in, int inOff, byte[] out, int outOff, int count)
+  {
+    switch (state)
+      {
+      case ENCRYPTION:
+        encryptBlocks(in, inOff, out, outOff, count);
+        break;
+      case DECRYPTION:
+        decryptBlocks(in, inOff, out, outOff, count);
+        break;
+      default:
+        throw new IllegalStateException("impossible state " + state);
+      }
+  }
+
+  /**
+   * Forgets the current message.  The key schedule is kept, so that
+   * initializing again with the same key only has to process the nonce.
+   */
+  public void reset()
+  {
+    init = false;
+    macLength = 0;
+  }
+
+  public int macSize()
+  {
+    return tagSize;
+  }
+
+  public void update(byte b)
+  {
+    update(new byte[] { b }, 0, 1);
+  }
+
+  public void update(byte[] buf, int off, int len)
+  {
+    if (! init)
+      throw new IllegalStateException("not initialized");
+    if (inText)
+      throw new IllegalStateException("additional data after the message");
+    authenticate(buf, off, len);
+    aadLength += len;
+  }
+
+  public byte[] digest()
+  {
+    byte[] tag = new byte[tagSize];
+    digest(tag, 0);
+    return tag;
+  }
+
+  /**
+   * Computes the tag of the additional data and the message processed so far
+   * and resets this instance.
+   *
+   * @param out the array to store the tag in.
+   * @param outOffset where the tag starts in <code>out</code>.
+   */
+  public void digest(byte[] out, int outOffset)
+  {
+    if (! init)
+      throw new IllegalStateException("not initialized");
+    if (outOffset < 0 || outOffset + tagSize > out.length)
+      throw new IndexOutOfBoundsException();
+    startText();
+    flushMacBlock();
+    byte[] tag = new byte[MAC_BLOCK_SIZE];
+    finish(aadLength, textLength, tag);
+    System.arraycopy(tag, 0, out, outOffset, tagSize);
+    reset();
+  }
+
+  /**
+   * Ends the additional data, and the MAC block that holds its last bytes.
+   */
+  private void startText()
+  {
+    if (! inText)
+      {
+        flushMacBlock();
+        inText = true;
+      }
+  }
+
+  /**
+   * Feeds bytes to the MAC, keeping an incomplete block for later.
+   */
+  private void authenticate(byte[] b, int off, int len)
+  {
+    if (macLength > 0)
+      {
+        int n = Math.min(len, MAC_BLOCK_SIZE - macLength);
+        System.arraycopy(b, off, macBlock, macLength, n);
+        macLength += n;
+        off += n;
+        len -= n;
+        if (macLength < MAC_BLOCK_SIZE)
+          return;
+        absorb(macBlock, 0, 1);
+        macLength = 0;
+      }
+    int blocks = len / MAC_BLOCK_SIZE;
+    if (blocks > 0)
+      {
+        absorb(b, off, blocks);
+        off += blocks * MAC_BLOCK_SIZE;
+        len -= blocks * MAC_BLOCK_SIZE;
+      }
+    if (len > 0)
+      {
+        System.arraycopy(b, off, macBlock, 0, len);
+        macLength = len;
+      }
+  }
+
+  /**
+   * Pads an incomplete MAC block with zeroes and feeds it to the MAC.
+   */
+  private void flushMacBlock()
+  {
+    if (macLength > 0)
+      {
+        for (int i = macLength; i < MAC_BLOCK_SIZE; i++)
+          macBlock[i] = 0;
+        absorb(macBlock, 0, 1);
+        macLength = 0;
+      }
+  }
+
+  public abstract Object clone();
+
+  /**
+   * Sets up the key and the nonce for a new message.
+   *
+   * @param key the key material.
+   * @param nonce the nonce.
+   * @throws InvalidKeyException if the key is not suitable.
+   */
+  protected abstract void setup(byte[] key, byte[] nonce)
+      throws InvalidKeyException;
+
+  /**
+   * Exclusive-ors the next <code>len</code> bytes of the keystream into the
+   * input.
+   */
+  protected abstract void crypt(byte[] in, int inOff, byte[] out, int outOff,
+                                int len);
+
+  /**
+   * Feeds whole 16-byte blocks to the MAC.
+   *
+   * @param b the data.
+   * @param off where the first block starts.
+   * @param blocks the number of blocks.
+   */
+  protected abstract void absorb(byte[] b, int off, int blocks);
+
+  /**
+   * Feeds the lengths to the MAC and computes the full 16-byte tag.
+   *
+   * @param aadLength the length of the additional data, in bytes.
+   * @param textLength the length of the message, in bytes.
+   * @param tag receives the tag.
+   */
+  protected abstract void finish(long aadLength, long textLength, byte[] tag);
+}
@@ -110,6 +110,25 @@ public abstract class BaseMode
       }
   }
 
+  public void update(byte[] in, int inOffset, byte[] out, int outOffset,
+                     int count) throws IllegalStateException
+  {
+    synchronized (lock)
+      {
+        switch (state)
+          {
+          case ENCRYPTION:
+            encryptBlocks(in, inOffset, out, outOffset, count);
+            break;
+          case DECRYPTION:
+            decryptBlocks(in, inOffset, out, outOffset, count);
+            break;
+          default:
+            throw new IllegalStateException();
+          }
+      }
+  }
+
   public String name()
   {
     return new CPStringBuilder(name).append('(').append(cipher.name()).append(')')
@@ -252,6 +271,26 @@ public abstract class BaseMode
 
   public abstract void decryptBlock(byte[] in, int i, byte[] out, int o);
 
+  /**
+   * Encrypts count blocks one by one.  Modes which can hand several blocks
+   * to the underlying cipher at once should override this method.
+   */
+  public void encryptBlocks(byte[] in, int i, byte[] out, int o, int count)
+  {
+    for (int n = 0; n < count; n++, i += modeBlockSize, o += modeBlockSize)
+      encryptBlock(in, i, out, o);
+  }
+
+  /**
+   * Decrypts count blocks one by one.  Modes which can hand several blocks
+   * to the underlying cipher at once should override this method.
+   */
+  public void decryptBlocks(byte[] in, int i, byte[] out, int o, int count)
+  {
+    for (int n = 0; n < count; n++, i += modeBlockSize, o += modeBlockSize)
+      decryptBlock(in, i, out, o);
+  }
+
   private boolean testSymmetry(int ks, int bs)
   {
     try
@@ -59,10 +59,15 @@ public class CBC
     extends BaseMode
     implements Cloneable
 {
+  /** How many blocks are decrypted together by {@link #decryptBlocks}. */
+  private static final int BULK_BLOCKS = 32;
+
   /** The last (de|en)crypted block */
   private byte[] lastBlock;
   /** An intermediate buffer. */
   private byte[] scratch;
+  /** A copy of the ciphertext being decrypted by {@link #decryptBlocks}. */
+  private byte[] saved;
 
   /**
    * Package-private constructor for the factory class.
@@ -101,6 +106,7 @@ public class CBC
   {
     lastBlock = null;
     scratch = null;
+    saved = null;
   }
 
   public void encryptBlock(byte[] in, int i, byte[] out, int o)
@@ -120,4 +126,32 @@ public class CBC
       out[o + k] = (byte)(lastBlock[k] ^ scratch[k]);
     System.arraycopy(buf, 0, lastBlock, 0, cipherBlockSize);
   }
+
+  /**
+   * Decryption, unlike encryption, does not depend on the previous output,
+   * so all the blocks can be decrypted by the cipher in one go before they
+   * are XORed with the preceding ciphertext.
+   */
+  public void decryptBlocks(byte[] in, int i, byte[] out, int o, int count)
+  {
+    if (saved == null)
+      saved = new byte[BULK_BLOCKS * cipherBlockSize];
+    while (count > 0)
+      {
+        int blocks = Math.min(count, BULK_BLOCKS);
+        int n = blocks * cipherBlockSize;
+        // keep the ciphertext, which out may overwrite
+        System.arraycopy(in, i, saved, 0, n);
+        cipher.decryptBlocks(saved, 0, out, o, blocks);
+        for (int k = 0; k < cipherBlockSize; k++)
+          out[o + k] ^= lastBlock[k];
+        for (int k = cipherBlockSize; k < n; k++)
+          out[o + k] ^= saved[k - cipherBlockSize];
+        System.arraycopy(saved, n - cipherBlockSize, lastBlock, 0,
+                         cipherBlockSize);
+        i += n;
+        o += n;
+        count -= blocks;
+      }
+  }
 }
@@ -78,8 +78,11 @@ public class CTR
     extends BaseMode
     implements Cloneable
 {
+  /** How many counter blocks are encrypted together by the bulk methods. */
+  private static final int BULK_BLOCKS = 32;
+
   private int off;
-  private byte[] counter, enc;
+  private byte[] counter, enc, stream;
 
   /**
    * Trivial package-private constructor for use by the Factory class.
@@ -111,14 +114,14 @@ public class CTR
   {
     if (modeBlockSize > cipherBlockSize)
       throw new IllegalArgumentException("mode size exceeds cipher block size");
-    off = 0;
     counter = new byte[cipherBlockSize];
     int i = cipherBlockSize - 1;
     int j = iv.length - 1;
     while (i >= 0 && j >= 0)
       counter[i--] = iv[j--];
     enc = new byte[cipherBlockSize];
-    cipher.encryptBlock(counter, 0, enc, 0);
+    // the key stream is generated when it is first needed
+    off = cipherBlockSize;
   }
 
   public void teardown()
@@ -127,16 +130,29 @@ public class CTR
       Arrays.fill(counter, (byte) 0);
     if (enc != null)
       Arrays.fill(enc, (byte) 0);
+    if (stream != null)
+      Arrays.fill(stream, (byte) 0);
+    stream = null;
   }
 
   public void encryptBlock(byte[] in, int i, byte[] out, int o)
   {
-    ctr(in, i, out, o);
+    ctr(in, i, out, o, modeBlockSize);
   }
 
   public void decryptBlock(byte[] in, int i, byte[] out, int o)
   {
-    ctr(in, i, out, o);
+    ctr(in, i, out, o, modeBlockSize);
+  }
+
+  public void encryptBlocks(byte[] in, int i, byte[] out, int o, int count)
+  {
+    ctr(in, i, out, o, count * modeBlockSize);
+  }
+
+  public void decryptBlocks(byte[] in, int i, byte[] out, int o, int count)
+  {
+    ctr(in, i, out, o, count * modeBlockSize);
   }
 
   public Iterator blockSizes()
@@ -144,25 +160,59 @@ public class CTR
     return new Sequence(1, cipherBlockSize).iterator();
   }
 
-  private void ctr(byte[] in, int inOffset, byte[] out, int outOffset)
+  private void ctr(byte[] in, int inOffset, byte[] out, int outOffset,
+                   int len)
   {
-    for (int i = 0; i < modeBlockSize; i++)
+    // use up what is left of the current key stream block
+    while (len > 0 && off < cipherBlockSize)
       {
         out[outOffset++] = (byte)(in[inOffset++] ^ enc[off++]);
-        if (off == cipherBlockSize)
+        len--;
+      }
+    // encrypt whole runs of counter blocks at once
+    if (len >= cipherBlockSize)
+      {
+        if (stream == null)
+          stream = new byte[BULK_BLOCKS * cipherBlockSize];
+        while (len >= cipherBlockSize)
           {
-            int j;
-            for (j = cipherBlockSize - 1; j >= 0; j--)
+            int blocks = Math.min(len / cipherBlockSize, BULK_BLOCKS);
+            int n = blocks * cipherBlockSize;
+            for (int k = 0; k < n; k += cipherBlockSize)
               {
-                counter[j]++;
-                if ((counter[j] & 0xFF) != 0)
-                  break;
+                System.arraycopy(counter, 0, stream, k, cipherBlockSize);
+                nextCounter();
               }
-            if (j == 0)
-              counter[cipherBlockSize - 1]++;
-            off = 0;
+            cipher.encryptBlocks(stream, 0, stream, 0, blocks);
+            for (int k = 0; k < n; k++)
+              out[outOffset++] = (byte)(in[inOffset++] ^ stream[k]);
+            len -= n;
+          }
+      }
+    // and the rest byte by byte
+    while (len > 0)
+      {
+        if (off == cipherBlockSize)
+          {
             cipher.encryptBlock(counter, 0, enc, 0);
+            nextCounter();
+            off = 0;
           }
+        out[outOffset++] = (byte)(in[inOffset++] ^ enc[off++]);
+        len--;
+      }
+  }
+
+  private void nextCounter()
+  {
+    int j;
+    for (j = cipherBlockSize - 1; j >= 0; j--)
+      {
+        counter[j]++;
+        if ((counter[j] & 0xFF) != 0)
+          break;
       }
+    if (j == 0)
+      counter[cipherBlockSize - 1]++;
   }
 }
@@ -0,0 +1,420 @@
+/* ChaCha20Poly1305.java --
+   Copyright (C) 2026 Free Software Foundation, Inc.
+
+This file is a part of GNU Classpath.
+
+GNU Classpath is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; either version 2 of the License, or (at
+your option) any later version.
+
+GNU Classpath is distributed in the hope that it will be useful, but
+WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with GNU Classpath; if not, write to the Free Software
+Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301
+USA
+
+Linking this library statically or dynamically with other modules is
+making a combined work based on this library.  Thus, the terms and
+conditions of the GNU General Public License cover the whole
+combination.
+
+As a special exception, the copyright holders of this library give you
+permission to link this library with independent modules to produce an
+executable, regardless of the license terms of these independent
+modules, and to copy and distribute the resulting executable under
+terms of your choice, provided that you also meet, for each linked
+independent module, the terms and conditions of the license of that
+module.  An independent module is a module which is not derived from
+or based on this library.  If you modify this library, you may extend
+this exception to your version of the library, but you are not
+obligated to do so.  If you do not wish to do so, delete this
+exception statement from your version.  */
+
+
+
+package gnu.javax.crypto.mode;
+
+import gnu.java.security.Registry;
+import gnu.java.security.util.Util;
+
+import java.security.InvalidKeyException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * The ChaCha20-Poly1305 <i>Authenticated Encryption with Additional Data</i>
+ * (<b>AEAD</b>) scheme of RFC 8439.  The message is encrypted with the ChaCha20
+ * stream cipher, and the additional data and the ciphertext are authenticated
+ * with Poly1305, keyed with the first 32 bytes of the ChaCha20 keystream.
+ * <p>
+ * There is no underlying block cipher, so this class is not made by the
+ * {@link ModeFactory}; the block size is that of the ChaCha20 keystream
+ * blocks, 64 bytes.  The key is 32 bytes long and the nonce 12 bytes.  Both
+ * ChaCha20 and Poly1305, which works on 26-bit limbs, use only additions,
+ * rotations and multiplications, so their timing does not depend on the
+ * data.
+ * <p>
+ * References:
+ * <ol>
+ * <li>Y. Nir and A. Langley, <a href="http://www.ietf.org/rfc/rfc8439.txt">
+ * ChaCha20 and Poly1305 for IETF Protocols</a>, RFC 8439.</li>
+ * </ol>
+ */
+public class ChaCha20Poly1305
+    extends BaseAuthenticatedMode
+{
+  /** The size of the keystream blocks, in bytes. */
+  private static final int BLOCK_SIZE = 64;
+  /** The key size, in bytes. */
+  private static final int KEY_SIZE = 32;
+  /** The nonce size, in bytes. */
+  private static final int NONCE_SIZE = 12;
+  private static final int MASK26 = 0x3FFFFFF;
+  private static Boolean valid;
+  /** The ChaCha20 input block. */
+  private final int[] input = new int[16];
+  /** Unused keystream. */
+  private final byte[] keystream = new byte[BLOCK_SIZE];
+  /** The next unused byte in {@link #keystream}. */
+  private int ksOff;
+  /** The Poly1305 key r, and 5 times r, in 26-bit limbs. */
+  private int r0, r1, r2, r3, r4, s1, s2, s3, s4;
+  /** The Poly1305 key s. */
+  private int pad0, pad1, pad2, pad3;
+  /** The Poly1305 accumulator, in 26-bit limbs. */
+  private int h0, h1, h2, h3, h4;
+
+  public ChaCha20Poly1305()
+  {
+    super();
+  }
+
+  public Object clone()
+  {
+    return new ChaCha20Poly1305();
+  }
+
+  public String name()
+  {
+    return Registry.CHACHA20_POLY1305;
+  }
+
+  public int defaultBlockSize()
+  {
+    return BLOCK_SIZE;
+  }
+
+  public int defaultKeySize()
+  {
+    return KEY_SIZE;
+  }
+
+  public Iterator blockSizes()
+  {
+    return Collections.singleton(Integer.valueOf(BLOCK_SIZE)).iterator();
+  }
+
+  public Iterator keySizes()
+  {
+    return Collections.singleton(Integer.valueOf(KEY_SIZE)).iterator();
+  }
+
+  protected void setup(byte[] key, byte[] nonce) throws InvalidKeyException
+  {
+    if (key.length != KEY_SIZE)
+      throw new InvalidKeyException("key must be " + KEY_SIZE + " bytes");
+    if (nonce.length != NONCE_SIZE)
+      throw new IllegalArgumentException("nonce must be " + NONCE_SIZE
+                                         + " bytes");
+    input[0] = 0x61707865;
+    input[1] = 0x3320646E;
+    input[2] = 0x79622D32;
+    input[3] = 0x6B206574;
+    for (int i = 0; i < 8; i++)
+      input[4 + i] = getInt(key, 4 * i);
+    input[12] = 0;
+    for (int i = 0; i < 3; i++)
+      input[13 + i] = getInt(nonce, 4 * i);
+
+    // The one-time Poly1305 key is the start of block 0; the message is
+    // encrypted from block 1.
+    nextKeystream();
+    r0 = getInt(keystream, 0) & MASK26;
+    r1 = (getInt(keystream, 3) >>> 2) & 0x3FFFF03;
+    r2 = (getInt(keystream, 6) >>> 4) & 0x3FFC0FF;
+    r3 = (getInt(keystream, 9) >>> 6) & 0x3F03FFF;
+    r4 = (getInt(keystream, 12) >>> 8) & 0x00FFFFF;
+    s1 = r1 * 5;
+    s2 = r2 * 5;
+    s3 = r3 * 5;
+    s4 = r4 * 5;
+    pad0 = getInt(keystream, 16);
+    pad1 = getInt(keystream, 20);
+    pad2 = getInt(keystream, 24);
+    pad3 = getInt(keystream, 28);
+    h0 = h1 = h2 = h3 = h4 = 0;
+    ksOff = BLOCK_SIZE;
+  }
+
+  protected void crypt(byte[] in, int inOff, byte[] out, int outOff, int len)
+  {
+    while (len > 0)
+      {
+        if (ksOff == BLOCK_SIZE)
+          nextKeystream();
+        int n = Math.min(len, BLOCK_SIZE - ksOff);
+        for (int i = 0; i < n; i++)
+          out[outOff + i] = (byte) (in[inOff + i] ^ keystream[ksOff + i]);
+        ksOff += n;
+        inOff += n;
+        outOff += n;
+        len -= n;
+      }
+  }
+
+  /**
+   * Computes the next keystream block and advances the block counter.
+   */
+  private void nextKeystream()
+  {
+    int x0 = input[0], x1 = input[1], x2 = input[2], x3 = input[3];
+    int x4 = input[4], x5 = input[5], x6 = input[6], x7 = input[7];
+    int x8 = input[8], x9 = input[9], x10 = input[10], x11 = input[11];
+    int x12 = input[12], x13 = input[13], x14 = input[14], x15 = input[15];
+    for (int i = 0; i < 10; i++)
+      {
+        // Column rounds.
+        x0 += x4; x12 = Integer.rotateLeft(x12 ^ x0, 16);
+        x8 += x12; x4 = Integer.rotateLeft(x4 ^ x8, 12);
+        x0 += x4; x12 = Integer.rotateLeft(x12 ^ x0, 8);
+        x8 += x12; x4 = Integer.rotateLeft(x4 ^ x8, 7);
+        x1 += x5; x13 = Integer.rotateLeft(x13 ^ x1, 16);
+        x9 += x13; x5 = Integer.rotateLeft(x5 ^ x9, 12);
+        x1 += x5; x13 = Integer.rotateLeft(x13 ^ x1, 8);
+        x9 += x13; x5 = Integer.rotateLeft(x5 ^ x9, 7);
+        x2 += x6; x14 = Integer.rotateLeft(x14 ^ x2, 16);
+        x10 += x14; x6 = Integer.rotateLeft(x6 ^ x10, 12);
+        x2 += x6; x14 = Integer.rotateLeft(x14 ^ x2, 8);
+        x10 += x14; x6 = Integer.rotateLeft(x6 ^ x10, 7);
+        x3 += x7; x15 = Integer.rotateLeft(x15 ^ x3, 16);
+        x11 += x15; x7 = Integer.rotateLeft(x7 ^ x11, 12);
+        x3 += x7; x15 = Integer.rotateLeft(x15 ^ x3, 8);
+        x11 += x15; x7 = Integer.rotateLeft(x7 ^ x11, 7);
+        // Diagonal rounds.
+        x0 += x5; x15 = Integer.rotateLeft(x15 ^ x0, 16);
+        x10 += x15; x5 = Integer.rotateLeft(x5 ^ x10, 12);
+        x0 += x5; x15 = Integer.rotateLeft(x15 ^ x0, 8);
+        x10 += x15; x5 = Integer.rotateLeft(x5 ^ x10, 7);
+        x1 += x6; x12 = Integer.rotateLeft(x12 ^ x1, 16);
+        x11 += x12; x6 = Integer.rotateLeft(x6 ^ x11, 12);
+        x1 += x6; x12 = Integer.rotateLeft(x12 ^ x1, 8);
+        x11 += x12; x6 = Integer.rotateLeft(x6 ^ x11, 7);
+        x2 += x7; x13 = Integer.rotateLeft(x13 ^ x2, 16);
+        x8 += x13; x7 = Integer.rotateLeft(x7 ^ x8, 12);
+        x2 += x7; x13 = Integer.rotateLeft(x13 ^ x2, 8);
+        x8 += x13; x7 = Integer.rotateLeft(x7 ^ x8, 7);
+        x3 += x4; x14 = Integer.rotateLeft(x14 ^ x3, 16);
+        x9 += x14; x4 = Integer.rotateLeft(x4 ^ x9, 12);
+        x3 += x4; x14 = Integer.rotateLeft(x14 ^ x3, 8);
+        x9 += x14; x4 = Integer.rotateLeft(x4 ^ x9, 7);
+      }
+    putInt(x0 + input[0], keystream, 0);
+    putInt(x1 + input[1], keystream, 4);
+    putInt(x2 + input[2], keystream, 8);
+    putInt(x3 + input[3], keystream, 12);
+    putInt(x4 + input[4], keystream, 16);
+    putInt(x5 + input[5], keystream, 20);
+    putInt(x6 + input[6], keystream, 24);
+    putInt(x7 + input[7], keystream, 28);
+    putInt(x8 + input[8], keystream, 32);
+    putInt(x9 + input[9], keystream, 36);
+    putInt(x10 + input[10], keystream, 40);
+    putInt(x11 + input[11], keystream, 44);
+    putInt(x12 + input[12], keystream, 48);
+    putInt(x13 + input[13], keystream, 52);
+    putInt(x14 + input[14], keystream, 56);
+    putInt(x15 + input[15], keystream, 60);
+    input[12]++;
+    ksOff = 0;
+  }
+
+  protected void absorb(byte[] b, int off, int blocks)
+  {
+    int h0 = this.h0, h1 = this.h1, h2 = this.h2, h3 = this.h3, h4 = this.h4;
+    for (int i = 0; i < blocks; i++, off += 16)
+      {
+        h0 += getInt(b, off) & MASK26;
+        h1 += (getInt(b, off + 3) >>> 2) & MASK26;
+        h2 += (getInt(b, off + 6) >>> 4) & MASK26;
+        h3 += (getInt(b, off + 9) >>> 6) & MASK26;
+        h4 += (getInt(b, off + 12) >>> 8) | (1 << 24);
+
+        long d0 = (long) h0 * r0 + (long) h1 * s4 + (long) h2 * s3
+                  + (long) h3 * s2 + (long) h4 * s1;
+        long d1 = (long) h0 * r1 + (long) h1 * r0 + (long) h2 * s4
+                  + (long) h3 * s3 + (long) h4 * s2;
+        long d2 = (long) h0 * r2 + (long) h1 * r1 + (long) h2 * r0
+                  + (long) h3 * s4 + (long) h4 * s3;
+        long d3 = (long) h0 * r3 + (long) h1 * r2 + (long) h2 * r1
+                  + (long) h3 * r0 + (long) h4 * s4;
+        long d4 = (long) h0 * r4 + (long) h1 * r3 + (long) h2 * r2
+                  + (long) h3 * r1 + (long) h4 * r0;
+
+        long c = d0 >>> 26;
+        h0 = (int) d0 & MASK26;
+        d1 += c;
+        c = d1 >>> 26;
+        h1 = (int) d1 & MASK26;
+        d2 += c;
+        c = d2 >>> 26;
+        h2 = (int) d2 & MASK26;
+        d3 += c;
+        c = d3 >>> 26;
+        h3 = (int) d3 & MASK26;
+        d4 += c;
+        c = d4 >>> 26;
+        h4 = (int) d4 & MASK26;
+        h0 += (int) c * 5;
+        h1 += h0 >>> 26;
+        h0 &= MASK26;
+      }
+    this.h0 = h0;
+    this.h1 = h1;
+    this.h2 = h2;
+    this.h3 = h3;
+    this.h4 = h4;
+  }
+
+  protected void finish(long aadLength, long textLength, byte[] tag)
+  {
+    byte[] lengths = new byte[16];
+    putLong(aadLength, lengths, 0);
+    putLong(textLength, lengths, 8);
+    absorb(lengths, 0, 1);
+
+    // Reduce h fully modulo 2^130 - 5.
+    int c = h1 >>> 26;
+    h1 &= MASK26;
+    h2 += c;
+    c = h2 >>> 26;
+    h2 &= MASK26;
+    h3 += c;
+    c = h3 >>> 26;
+    h3 &= MASK26;
+    h4 += c;
+    c = h4 >>> 26;
+    h4 &= MASK26;
+    h0 += c * 5;
+    c = h0 >>> 26;
+    h0 &= MASK26;
+    h1 += c;
+
+    // Subtract the modulus if h is not less than it, without branching.
+    int g0 = h0 + 5;
+    c = g0 >>> 26;
+    g0 &= MASK26;
+    int g1 = h1 + c;
+    c = g1 >>> 26;
+    g1 &= MASK26;
+    int g2 = h2 + c;
+    c = g2 >>> 26;
+    g2 &= MASK26;
+    int g3 = h3 + c;
+    c = g3 >>> 26;
+    g3 &= MASK26;
+    int g4 = h4 + c - (1 << 26);
+    int mask = (g4 >>> 31) - 1;
+    h0 = (h0 & ~mask) | (g0 & mask);
+    h1 = (h1 & ~mask) | (g1 & mask);
+    h2 = (h2 & ~mask) | (g2 & mask);
+    h3 = (h3 & ~mask) | (g3 & mask);
+    h4 = (h4 & ~mask) | (g4 & mask);
+
+    // The tag is h + s modulo 2^128.
+    long f = ((h0 | (h1 << 26)) & 0xFFFFFFFFL) + (pad0 & 0xFFFFFFFFL);
+    putInt((int) f, tag, 0);
+    f = (((h1 >>> 6) | (h2 << 20)) & 0xFFFFFFFFL) + (pad1 & 0xFFFFFFFFL)
+        + (f >>> 32);
+    putInt((int) f, tag, 4);
+    f = (((h2 >>> 12) | (h3 << 14)) & 0xFFFFFFFFL) + (pad2 & 0xFFFFFFFFL)
+        + (f >>> 32);
+    putInt((int) f, tag, 8);
+    f = (((h3 >>> 18) | (h4 << 8)) & 0xFFFFFFFFL) + (pad3 & 0xFFFFFFFFL)
+        + (f >>> 32);
+    putInt((int) f, tag, 12);
+  }
+
+  private static int getInt(byte[] b, int off)
+  {
+    return (b[off] & 0xFF) | (b[off + 1] & 0xFF) << 8
+           | (b[off + 2] & 0xFF) << 16 | b[off + 3] << 24;
+  }
+
+  private static void putInt(int x, byte[] b, int off)
+  {
+    b[off] = (byte) x;
+    b[off + 1] = (byte) (x >>> 8);
+    b[off + 2] = (byte) (x >>> 16);
+    b[off + 3] = (byte) (x >>> 24);
+  }
+
+  private static void putLong(long x, byte[] b, int off)
+  {
+    putInt((int) x, b, off);
+    putInt((int) (x >>> 32), b, off + 4);
+  }
+
+  /**
+   * Checks the AEAD example of section 2.8.2 of RFC 8439, encrypting the
+   * message in pieces that do not line up with the blocks.
+   */
+  public boolean selfTest()
+  {
+    if (valid == null)
+      {
+        byte[] k = Util.toBytesFromString(
+            "808182838485868788898A8B8C8D8E8F909192939495969798999A9B9C9D9E9F");
+        byte[] iv = Util.toBytesFromString("070000004041424344454647");
+        byte[] a = Util.toBytesFromString("50515253C0C1C2C3C4C5C6C7");
+        byte[] p = ("Ladies and Gentlemen of the class of '99: If I could "
+                    + "offer you only one tip for the future, sunscreen "
+                    + "would be it.").getBytes();
+        byte[] t = Util.toBytesFromString("1AE10B594F09E26A7E902ECBD0600691");
+        try
+          {
+            ChaCha20Poly1305 cp = new ChaCha20Poly1305();
+            Map attr = new HashMap();
+            attr.put(KEY_MATERIAL, k);
+            attr.put(IV, iv);
+            attr.put(MODE_BLOCK_SIZE, Integer.valueOf(1));
+            attr.put(STATE, Integer.valueOf(ENCRYPTION));
+            cp.init(attr);
+            cp.update(a, 0, a.length);
+            byte[] c = new byte[p.length];
+            cp.update(p, 0, c, 0, 7);
+            cp.update(p, 7, c, 7, 70);
+            cp.update(p, 77, c, 77, p.length - 77);
+            boolean ok = Arrays.equals(cp.digest(), t);
+            attr.put(STATE, Integer.valueOf(DECRYPTION));
+            cp.init(attr);
+            cp.update(a, 0, a.length);
+            cp.update(c, 0, c, 0, c.length);
+            valid = Boolean.valueOf(ok && Arrays.equals(c, p)
+                                    && Arrays.equals(cp.digest(), t));
+          }
+        catch (Exception x)
+          {
+            valid = Boolean.FALSE;
+          }
+      }
+    return valid.booleanValue();
+  }
+}
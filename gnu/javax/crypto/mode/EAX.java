@@ -221,6 +221,43 @@ public class EAX
     ctr.update(in, inOff, out, outOff);
   }
 
+  public void encryptBlocks(byte[] in, int inOff, byte[] out, int outOff,
+                            int count)
+  {
+    if (! init)
+      throw new IllegalStateException("not initialized");
+    if (state != ENCRYPTION)
+      throw new IllegalStateException("not encrypting");
+    ctr.update(in, inOff, out, outOff, count);
+    msgOmac.update(out, outOff, count * ctr.currentBlockSize());
+  }
+
+  public void decryptBlocks(byte[] in, int inOff, byte[] out, int outOff,
+                            int count)
+  {
+    if (! init)
+      throw new IllegalStateException("not initialized");
+    if (state != DECRYPTION)
+      throw new IllegalStateException("not decrypting");
+    msgOmac.update(in, inOff, count * ctr.currentBlockSize());
+    ctr.update(in, inOff, out, outOff, count);
+  }
+
+  public void update(byte[] in, int inOff, byte[] out, int outOff, int count)
+  {
+    switch (state)
+      {
+      case ENCRYPTION:
+        encryptBlocks(in, inOff, out, outOff, count);
+        break;
+      case DECRYPTION:
+        decryptBlocks(in, inOff, out, outOff, count);
+        break;
+      default:
+        throw new IllegalStateException("impossible state " + state);
+      }
+  }
+
   public void update(byte[] in, int inOff, byte[] out, int outOff)
   {
     switch (state)
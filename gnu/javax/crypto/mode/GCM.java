@@ -0,0 +1,401 @@
+/* GCM.java --
+   Copyright (C) 2026 Free Software Foundation, Inc.
+
+This file is a part of GNU Classpath.
+
+GNU Classpath is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; either version 2 of the License, or (at
+your option) any later version.
+
+GNU Classpath is distributed in the hope that it will be useful, but
+WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with GNU Classpath; if not, write to the Free Software
+Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301
+USA
+
+Linking this library statically or dynamically with other modules is
+making a combined work based on this library.  Thus, the terms and
+conditions of the GNU General Public License cover the whole
+combination.
+
+As a special exception, the copyright holders of this library give you
+permission to link this library with independent modules to produce an
+executable, regardless of the license terms of these independent
+modules, and to copy and distribute the resulting executable under
+terms of your choice, provided that you also meet, for each linked
+independent module, the terms and conditions of the license of that
+module.  An independent module is a module which is not derived from
+or based on this library.  If you modify this library, you may extend
+this exception to your version of the library, but you are not
+obligated to do so.  If you do not wish to do so, delete this
+exception statement from your version.  */
+
+
+
+package gnu.javax.crypto.mode;
+
+import gnu.java.security.Registry;
+import gnu.java.security.util.Util;
+import gnu.javax.crypto.cipher.CipherFactory;
+import gnu.javax.crypto.cipher.IBlockCipher;
+
+import java.security.InvalidKeyException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * The Galois/Counter Mode, GCM.  GCM is an <i>Authenticated Encryption with
+ * Additional Data</i> (<b>AEAD</b>) scheme for 128-bit block ciphers, which
+ * encrypts in counter mode and authenticates the additional data and the
+ * ciphertext with GHASH, a polynomial hash over GF(2<sup>128</sup>) keyed
+ * with the encryption of the zero block.  Unlike {@link EAX}, both are done
+ * in a single pass over the data.
+ * <p>
+ * GHASH multiplies by the hash key four bits at a time, using a table of
+ * the sixteen 4-bit multiples of the key which is built once per key, and
+ * a second, fixed table for the reduction.  Both are indexed by secret data,
+ * so like the table-based AES this is not constant-time.  The keystream is
+ * made several blocks at a time with
+ * {@link IBlockCipher#encryptBlocks(byte[],int,byte[],int,int)}.
+ * <p>
+ * A 96-bit nonce is used as the counter prefix directly; nonces of any other
+ * length are hashed first.  The tag is 16 bytes long unless the
+ * {@link gnu.javax.crypto.mac.IMac#TRUNCATED_SIZE} attribute asks for less.
+ * <p>
+ * References:
+ * <ol>
+ * <li>Morris Dworkin, <a
+ * href="http://csrc.nist.gov/publications/nistpubs/800-38D/SP-800-38D.pdf">
+ * Recommendation for Block Cipher Modes of Operation: Galois/Counter Mode
+ * (GCM) and GMAC</a>, NIST Special Publication 800-38D.</li>
+ * <li>David A. McGrew and John Viega, <i>The Galois/Counter Mode of
+ * Operation (GCM)</i>; the 4-bit tables are those of section 4.1.</li>
+ * </ol>
+ */
+public class GCM
+    extends BaseAuthenticatedMode
+{
+  /** The number of keystream blocks made at a time. */
+  private static final int KEYSTREAM_BLOCKS = 16;
+  /** The reductions of the four bits shifted out of a product, moved up. */
+  private static final long[] LAST4 = {
+    0x0000L << 48, 0x1C20L << 48, 0x3840L << 48, 0x2460L << 48,
+    0x7080L << 48, 0x6CA0L << 48, 0x48C0L << 48, 0x54E0L << 48,
+    0xE100L << 48, 0xFD20L << 48, 0xD940L << 48, 0xC560L << 48,
+    0x9180L << 48, 0x8DA0L << 48, 0xA9C0L << 48, 0xB5E0L << 48
+  };
+  private static Boolean valid;
+  /** The underlying cipher. */
+  private final IBlockCipher cipher;
+  /** The cipher block size. */
+  private final int cipherBlockSize;
+  /** The high halves of the 4-bit multiples of the hash key. */
+  private final long[] hh = new long[16];
+  /** The low halves of the 4-bit multiples of the hash key. */
+  private final long[] hl = new long[16];
+  /** The key the cipher and the tables are set up with. */
+  private byte[] key;
+  /** The first 12 bytes of the counter block. */
+  private final byte[] prefix = new byte[12];
+  /** The last 4 bytes of the counter block. */
+  private int counter;
+  /** The encrypted pre-counter block, which masks the tag. */
+  private final byte[] tagMask = new byte[16];
+  /** Unused keystream. */
+  private final byte[] keystream = new byte[KEYSTREAM_BLOCKS * 16];
+  /** The next unused byte in {@link #keystream}. */
+  private int ksOff;
+  /** The end of the keystream in {@link #keystream}. */
+  private int ksEnd;
+  /** The high half of the GHASH state. */
+  private long yh;
+  /** The low half of the GHASH state. */
+  private long yl;
+
+  public GCM(IBlockCipher cipher, int cipherBlockSize)
+  {
+    if (cipherBlockSize != 16)
+      throw new IllegalArgumentException("GCM needs a 128-bit block cipher");
+    this.cipher = cipher;
+    this.cipherBlockSize = cipherBlockSize;
+  }
+
+  public Object clone()
+  {
+    return new GCM((IBlockCipher) cipher.clone(), cipherBlockSize);
+  }
+
+  public String name()
+  {
+    return Registry.GCM_MODE + "(" + cipher.name() + ")";
+  }
+
+  public int defaultBlockSize()
+  {
+    return cipherBlockSize;
+  }
+
+  public int defaultKeySize()
+  {
+    return cipher.defaultKeySize();
+  }
+
+  public Iterator blockSizes()
+  {
+    return Collections.singleton(Integer.valueOf(cipherBlockSize)).iterator();
+  }
+
+  public Iterator keySizes()
+  {
+    return cipher.keySizes();
+  }
+
+  protected void setup(byte[] key, byte[] nonce) throws InvalidKeyException
+  {
+    if (nonce.length == 0)
+      throw new IllegalArgumentException("empty nonce");
+    if (this.key == null || ! Arrays.equals(this.key, key))
+      {
+        this.key = null;
+        Map attr = new HashMap();
+        attr.put(KEY_MATERIAL, key);
+        attr.put(CIPHER_BLOCK_SIZE, Integer.valueOf(cipherBlockSize));
+        cipher.reset();
+        cipher.init(attr);
+        byte[] h = new byte[16];
+        cipher.encryptBlock(h, 0, h, 0);
+        makeTables(h);
+        this.key = (byte[]) key.clone();
+      }
+
+    yh = 0L;
+    yl = 0L;
+    if (nonce.length == 12)
+      {
+        System.arraycopy(nonce, 0, prefix, 0, 12);
+        counter = 1;
+      }
+    else
+      {
+        int full = nonce.length & ~15;
+        absorb(nonce, 0, full >>> 4);
+        if (full < nonce.length)
+          {
+            byte[] last = new byte[16];
+            System.arraycopy(nonce, full, last, 0, nonce.length - full);
+            absorb(last, 0, 1);
+          }
+        yl ^= (long) nonce.length << 3;
+        multiplyH();
+        for (int i = 0; i < 8; i++)
+          prefix[i] = (byte) (yh >>> (56 - 8 * i));
+        for (int i = 0; i < 4; i++)
+          prefix[8 + i] = (byte) (yl >>> (56 - 8 * i));
+        counter = (int) yl;
+        yh = 0L;
+        yl = 0L;
+      }
+    System.arraycopy(prefix, 0, tagMask, 0, 12);
+    putInt(counter, tagMask, 12);
+    cipher.encryptBlock(tagMask, 0, tagMask, 0);
+    ksOff = 0;
+    ksEnd = 0;
+  }
+
+  protected void crypt(byte[] in, int inOff, byte[] out, int outOff, int len)
+  {
+    while (len > 0)
+      {
+        if (ksOff == ksEnd)
+          nextKeystream((len + 15) >>> 4);
+        int n = Math.min(len, ksEnd - ksOff);
+        for (int i = 0; i < n; i++)
+          out[outOff + i] = (byte) (in[inOff + i] ^ keystream[ksOff + i]);
+        ksOff += n;
+        inOff += n;
+        outOff += n;
+        len -= n;
+      }
+  }
+
+  /**
+   * Encrypts up to {@link #KEYSTREAM_BLOCKS} counter blocks at once.
+   *
+   * @param blocks the number of blocks still needed.
+   */
+  private void nextKeystream(int blocks)
+  {
+    int n = Math.min(blocks, KEYSTREAM_BLOCKS);
+    for (int i = 0, j = 0; i < n; i++, j += 16)
+      {
+        System.arraycopy(prefix, 0, keystream, j, 12);
+        putInt(++counter, keystream, j + 12);
+      }
+    cipher.encryptBlocks(keystream, 0, keystream, 0, n);
+    ksOff = 0;
+    ksEnd = n * 16;
+  }
+
+  protected void absorb(byte[] b, int off, int blocks)
+  {
+    for (int i = 0; i < blocks; i++, off += 16)
+      {
+        yh ^= getLong(b, off);
+        yl ^= getLong(b, off + 8);
+        multiplyH();
+      }
+  }
+
+  protected void finish(long aadLength, long textLength, byte[] tag)
+  {
+    yh ^= aadLength << 3;
+    yl ^= textLength << 3;
+    multiplyH();
+    for (int i = 0; i < 8; i++)
+      {
+        tag[i] = (byte) (tagMask[i] ^ (yh >>> (56 - 8 * i)));
+        tag[8 + i] = (byte) (tagMask[8 + i] ^ (yl >>> (56 - 8 * i)));
+      }
+  }
+
+  /**
+   * Builds the tables of the 4-bit multiples of the hash key.  In GCM's bit
+   * order, multiplying by x is a right shift, so entry 8 is the key itself
+   * and entries 4, 2 and 1 are it shifted right; the others are sums.
+   */
+  private void makeTables(byte[] h)
+  {
+    long vh = getLong(h, 0);
+    long vl = getLong(h, 8);
+    hh[0] = 0L;
+    hl[0] = 0L;
+    hh[8] = vh;
+    hl[8] = vl;
+    for (int i = 4; i > 0; i >>= 1)
+      {
+        long t = -(vl & 1L) & 0xE100000000000000L;
+        vl = (vh << 63) | (vl >>> 1);
+        vh = (vh >>> 1) ^ t;
+        hh[i] = vh;
+        hl[i] = vl;
+      }
+    for (int i = 2; i <= 8; i <<= 1)
+      for (int j = 1; j < i; j++)
+        {
+          hh[i + j] = hh[i] ^ hh[j];
+          hl[i + j] = hl[i] ^ hl[j];
+        }
+  }
+
+  /**
+   * Multiplies the GHASH state by the hash key, four bits at a time from
+   * the last byte to the first.
+   */
+  private void multiplyH()
+  {
+    long xh = yh;
+    long xl = yl;
+    int b = (int) xl & 0xFF;
+    long zh = hh[b & 0xF];
+    long zl = hl[b & 0xF];
+    int rem;
+    for (int i = 15; i >= 0; i--)
+      {
+        b = (int) ((i >= 8 ? xl >>> ((15 - i) << 3) : xh >>> ((7 - i) << 3)))
+            & 0xFF;
+        if (i != 15)
+          {
+            rem = (int) zl & 0xF;
+            zl = (zh << 60) | (zl >>> 4);
+            zh = (zh >>> 4) ^ LAST4[rem];
+            zh ^= hh[b & 0xF];
+            zl ^= hl[b & 0xF];
+          }
+        rem = (int) zl & 0xF;
+        zl = (zh << 60) | (zl >>> 4);
+        zh = (zh >>> 4) ^ LAST4[rem];
+        zh ^= hh[b >>> 4];
+        zl ^= hl[b >>> 4];
+      }
+    yh = zh;
+    yl = zl;
+  }
+
+  private static long getLong(byte[] b, int off)
+  {
+    return ((long) getInt(b, off) << 32) | (getInt(b, off + 4) & 0xFFFFFFFFL);
+  }
+
+  private static int getInt(byte[] b, int off)
+  {
+    return b[off] << 24 | (b[off + 1] & 0xFF) << 16
+           | (b[off + 2] & 0xFF) << 8 | (b[off + 3] & 0xFF);
+  }
+
+  private static void putInt(int x, byte[] b, int off)
+  {
+    b[off] = (byte) (x >>> 24);
+    b[off + 1] = (byte) (x >>> 16);
+    b[off + 2] = (byte) (x >>> 8);
+    b[off + 3] = (byte) x;
+  }
+
+  /**
+   * Checks test case 4 of the GCM specification, which has additional data
+   * and a message that do not fill their last blocks, one byte at a time and
+   * all at once.
+   */
+  public boolean selfTest()
+  {
+    if (valid == null)
+      {
+        byte[] k = Util.toBytesFromString("FEFFE9928665731C6D6A8F9467308308");
+        byte[] iv = Util.toBytesFromString("CAFEBABEFACEDBADDECAF888");
+        byte[] a = Util.toBytesFromString(
+            "FEEDFACEDEADBEEFFEEDFACEDEADBEEFABADDAD2");
+        byte[] p = Util.toBytesFromString(
+            "D9313225F88406E5A55909C5AFF5269A86A7A9531534F7DA2E4C303D8A318A72"
+            + "1C3C0C95956809532FCF0E2449A6B525B16AEDF5AA0DE657BA637B39");
+        byte[] c = Util.toBytesFromString(
+            "42831EC2217774244B7221B784D0D49CE3AA212F2C02A4E035C17E2329ACA12E"
+            + "21D514B25466931C7D8F6A5AAC84AA051BA30B396A0AAC973D58E091");
+        byte[] t = Util.toBytesFromString("5BC94FBC3221A5DB94FAE95AE7121A47");
+        try
+          {
+            GCM gcm = new GCM(CipherFactory.getInstance(Registry.AES_CIPHER),
+                              16);
+            Map attr = new HashMap();
+            attr.put(KEY_MATERIAL, k);
+            attr.put(IV, iv);
+            attr.put(MODE_BLOCK_SIZE, Integer.valueOf(1));
+            attr.put(STATE, Integer.valueOf(ENCRYPTION));
+            gcm.init(attr);
+            gcm.update(a, 0, a.length);
+            byte[] out = new byte[p.length];
+            for (int i = 0; i < p.length; i++)
+              gcm.update(p, i, out, i);
+            boolean ok = Arrays.equals(out, c) && Arrays.equals(gcm.digest(), t);
+            attr.put(STATE, Integer.valueOf(DECRYPTION));
+            gcm.init(attr);
+            for (int i = 0; i < a.length; i++)
+              gcm.update(a[i]);
+            gcm.update(out, 0, out, 0, out.length);
+            valid = Boolean.valueOf(ok && Arrays.equals(out, p)
+                                    && Arrays.equals(gcm.digest(), t));
+          }
+        catch (Exception x)
+          {
+            valid = Boolean.FALSE;
+          }
+      }
+    return valid.booleanValue();
+  }
+}
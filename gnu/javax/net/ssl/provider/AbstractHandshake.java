@@ -47,6 +47,7 @@ import gnu.java.security.util.ByteArray;
 import gnu.javax.security.auth.callback.CertificateCallback;
 import gnu.javax.security.auth.callback.DefaultCallbackHandler;
 
+import java.io.ByteArrayOutputStream;
 import java.nio.ByteBuffer;
 import java.security.AccessController;
 import java.security.DigestException;
@@ -177,6 +178,14 @@ public abstract class AbstractHandshake
     Arrays.fill(PAD2, SSLHMac.PAD2);
   }
 
+  /**
+   * TLS 1.2; the signature and hash algorithms we accept, as pairs of
+   * hash and signature values, best first.  DSA is only offered with
+   * SHA-1, the hash of DSS.
+   */
+  protected static final byte[] SIGNATURE_ALGORITHMS
+    = new byte[] { 4, 1,  5, 1,  6, 1,  2, 1,  2, 2 };
+
   /**
    * The currently-read handshake messages. There may be zero, or
    * multiple, handshake messages in this buffer.
@@ -192,6 +201,13 @@ public abstract class AbstractHandshake
   protected MessageDigest sha;
   protected MessageDigest md5;
 
+  /**
+   * The handshake messages so far.  TLS 1.2 hashes them with the hash of
+   * the PRF, which is not known before the server hello, and the
+   * certificate verify message signs them whole.
+   */
+  protected final ByteArrayOutputStream handshakeMessages;
+
   protected final SSLEngineImpl engine;
   protected KeyAgreement keyAgreement;
   protected byte[] preMasterSecret;
@@ -208,6 +224,7 @@ public abstract class AbstractHandshake
     this.engine = engine;
     sha = MessageDigest.getInstance("SHA-1");
     md5 = MessageDigest.getInstance("MD5");
+    handshakeMessages = new ByteArrayOutputStream(4096);
     tasks = new LinkedList<DelegatedTask>();
   }
 
@@ -253,10 +270,8 @@ public abstract class AbstractHandshake
                           Util.hexDump((ByteBuffer) handshakeBuffer
                                        .duplicate().position(pos)
                                        .limit(pos+len), " >> "));
-            sha.update((ByteBuffer) handshakeBuffer.duplicate()
-                       .position(pos).limit(pos+len));
-            md5.update((ByteBuffer) handshakeBuffer.duplicate()
-                       .position(pos).limit(pos+len));
+            hashMessages((ByteBuffer) handshakeBuffer.duplicate()
+                         .position(pos).limit(pos+len));
           }
       }
     return status;
@@ -296,8 +311,7 @@ public abstract class AbstractHandshake
         if (Debug.DEBUG)
           logger.logv(Component.SSL_HANDSHAKE, "hashing output:\n{0}",
                       Util.hexDump((ByteBuffer) fragment.duplicate().flip().position(orig), " >> "));
-        sha.update((ByteBuffer) fragment.duplicate().flip().position(orig));
-        md5.update((ByteBuffer) fragment.duplicate().flip().position(orig));
+        hashMessages((ByteBuffer) fragment.duplicate().flip().position(orig));
       }
     return status;
   }
@@ -496,6 +510,72 @@ public abstract class AbstractHandshake
     handshakeOffset = 0;
   }
 
+  /**
+   * Adds handshake messages to the running hashes.
+   *
+   * @param messages The messages; its position is not changed.
+   */
+  protected void hashMessages(ByteBuffer messages)
+  {
+    sha.update(messages.duplicate());
+    md5.update(messages.duplicate());
+    byte[] b = new byte[messages.remaining()];
+    messages.duplicate().get(b);
+    handshakeMessages.write(b, 0, b.length);
+  }
+
+  /**
+   * Hashes the handshake messages so far, as TLS 1.2 does.
+   *
+   * @param algorithm The name of the hash.
+   * @return The hash.
+   */
+  protected byte[] handshakeHash(String algorithm)
+  {
+    try
+      {
+        MessageDigest md = MessageDigest.getInstance(algorithm);
+        return md.digest(handshakeMessages.toByteArray());
+      }
+    catch (NoSuchAlgorithmException nsae)
+      {
+        throw new Error(nsae);
+      }
+  }
+
+  /**
+   * Chooses the hash of a TLS 1.2 signature among those the peer accepts.
+   *
+   * @param accepted The pairs the peer accepts, or null if it didn't say,
+   *  in which case SHA-1 is assumed.
+   * @param alg The signature algorithm of our key.
+   * @return The hash to sign with.
+   */
+  protected static HashAlgorithm chooseHash(SignatureAndHashAlgorithmList accepted,
+                                            SignatureAlgorithm alg)
+  {
+    if (accepted != null)
+      for (int i = 0; i < SIGNATURE_ALGORITHMS.length; i += 2)
+        {
+          if (SIGNATURE_ALGORITHMS[i + 1] != alg.getValue())
+            continue;
+          HashAlgorithm hash = HashAlgorithm.forValue(SIGNATURE_ALGORITHMS[i]);
+          if (accepted.contains(hash, alg))
+            return hash;
+        }
+    return HashAlgorithm.SHA1;
+  }
+
+  /**
+   * Returns the PRF of the session's protocol version and cipher suite.
+   */
+  private static TLSRandom prf(SessionImpl session)
+  {
+    if (session.version.compareTo(ProtocolVersion.TLS_1_2) >= 0)
+      return new TLSRandom(session.suite.prfHash());
+    return new TLSRandom();
+  }
+
   /**
    * Generate a certificate verify message for SSLv3. In SSLv3, a different
    * algorithm was used to generate this value was subtly different than
@@ -569,6 +649,12 @@ Certificate.signature.sha_hash
       ivlen = 8;
     if (session.suite.cipherAlgorithm() == CipherAlgorithm.AES)
       ivlen = 16;
+    if (session.suite.isAEAD())
+      {
+        // The cipher authenticates; the IV is the fixed part of the nonce.
+        maclen = 0;
+        ivlen = session.suite.fixedIvLength();
+      }
     int keylen = session.suite.keyLength();
 
     byte[][] keys = new byte[6][];
@@ -605,7 +691,7 @@ Certificate.signature.sha_hash
                                          + serverRandom.length()),
                                   clientRandom.length());
 
-        prf = new TLSRandom();
+        prf = prf(session);
         HashMap<String,byte[]> attr = new HashMap<String,byte[]>(2);
         attr.put(TLSRandom.SECRET, session.privateData.masterSecret);
         attr.put(TLSRandom.SEED, seed);
@@ -746,7 +832,28 @@ Certificate.signature.sha_hash
                                         SessionImpl session)
   {
     ByteBuffer finishedBuffer = null;
-    if (session.version.compareTo(ProtocolVersion.TLS_1) >= 0)
+    if (session.version.compareTo(ProtocolVersion.TLS_1_2) >= 0)
+      {
+        // TLS 1.2 uses the PRF of the suite, over the hash of the
+        // messages made with the same hash.
+        finishedBuffer = ByteBuffer.allocate(12);
+        TLSRandom prf = prf(session);
+        byte[] hash = handshakeHash(session.suite.prfHash());
+        byte[] seed = new byte[CLIENT_FINISHED.length + hash.length];
+        if (isClient)
+          System.arraycopy(CLIENT_FINISHED, 0, seed, 0, CLIENT_FINISHED.length);
+        else
+          System.arraycopy(SERVER_FINISHED, 0, seed, 0, SERVER_FINISHED.length);
+        System.arraycopy(hash, 0, seed, CLIENT_FINISHED.length, hash.length);
+        HashMap<String, Object> params = new HashMap<String, Object>(2);
+        params.put(TLSRandom.SECRET, session.privateData.masterSecret);
+        params.put(TLSRandom.SEED, seed);
+        prf.init(params);
+        byte[] buf = new byte[12];
+        prf.nextBytes(buf, 0, buf.length);
+        finishedBuffer.put(buf).position(0);
+      }
+    else if (session.version.compareTo(ProtocolVersion.TLS_1) >= 0)
       {
         finishedBuffer = ByteBuffer.allocate(12);
         TLSRandom prf = new TLSRandom();
@@ -909,7 +1016,7 @@ Certificate.signature.sha_hash
         serverRandom.buffer().get(seed,
                                   MASTER_SECRET.length + clientRandom.length(),
                                   serverRandom.length());
-        TLSRandom prf = new TLSRandom();
+        TLSRandom prf = prf(session);
         HashMap<String,byte[]> attr = new HashMap<String,byte[]>(2);
         attr.put(TLSRandom.SECRET, preMasterSecret);
         attr.put(TLSRandom.SEED, seed);
@@ -940,6 +1047,24 @@ Certificate.signature.sha_hash
     try
       {
         CipherSuite s = engine.session().suite;
+        if (s.isAEAD())
+          {
+            // Authenticated ciphers are keyed again for every record,
+            // with a nonce made of the IV and the sequence number.
+            inParams = new InputSecurityParameters(s.cipher(),
+              new SecretKeySpec(keys[isClient ? 3 : 2],
+                                s.cipherAlgorithm().toString()),
+              keys[isClient ? 5 : 4],
+              compression == CompressionMethod.ZLIB ? new Inflater() : null,
+              engine.session(), s);
+            outParams = new OutputSecurityParameters(s.cipher(),
+              new SecretKeySpec(keys[isClient ? 2 : 3],
+                                s.cipherAlgorithm().toString()),
+              keys[isClient ? 4 : 5],
+              compression == CompressionMethod.ZLIB ? new Deflater() : null,
+              engine.session(), s);
+            return;
+          }
         Cipher inCipher = s.cipher();
         Mac inMac = s.mac(engine.session().version);
         Inflater inflater = (compression == CompressionMethod.ZLIB
@@ -51,6 +51,12 @@ import java.nio.ByteOrder;
 struct
 {
   ClientCertificateType certificate_types&lt;1..2^8-1&gt;;
+  select (version)
+  {
+    case tls12:
+      SignatureAndHashAlgorithm
+        supported_signature_algorithms&lt;2..2^16-2&gt;;
+  };
   DistinguishedName certificate_authorities&lt;3..2^16-1&gt;;
 } CertificateRequest;
 </pre>
@@ -62,13 +68,21 @@ public class CertificateRequest implements Handshake.Body
   // -------------------------------------------------------------------------
 
   protected ByteBuffer buffer;
+  protected final ProtocolVersion version;
 
   // Constructor.
   // -------------------------------------------------------------------------
 
   public CertificateRequest(final ByteBuffer buffer)
+  {
+    this(buffer, null);
+  }
+
+  public CertificateRequest(final ByteBuffer buffer,
+                            final ProtocolVersion version)
   {
     this.buffer = buffer.duplicate().order(ByteOrder.BIG_ENDIAN);
+    this.version = version;
   }
 
   // Instance methods.
@@ -76,7 +90,7 @@ public class CertificateRequest implements Handshake.Body
 
   public int length ()
   {
-    int o1 = (buffer.get (0) & 0xFF) + 1;
+    int o1 = authoritiesOffset ();
     return o1 + (buffer.getShort (o1) & 0xFFFF) + 2;
   }
 
@@ -85,12 +99,38 @@ public class CertificateRequest implements Handshake.Body
     return new ClientCertificateTypeList(buffer.duplicate());
   }
 
-  public X500PrincipalList authorities ()
+  /**
+   * Returns the signature algorithms the server accepts, or null before
+   * TLS 1.2.
+   */
+  public SignatureAndHashAlgorithmList signatureAlgorithms ()
   {
+    if (!hasSignatureAlgorithms ())
+      return null;
     int offset = (buffer.get (0) & 0xFF) + 1;
+    return new SignatureAndHashAlgorithmList
+      (((ByteBuffer) buffer.duplicate().position(offset)).slice());
+  }
+
+  public X500PrincipalList authorities ()
+  {
+    int offset = authoritiesOffset ();
     return new X500PrincipalList (((ByteBuffer) buffer.position(offset)).slice());
   }
 
+  protected boolean hasSignatureAlgorithms ()
+  {
+    return version != null && version.compareTo (ProtocolVersion.TLS_1_2) >= 0;
+  }
+
+  protected int authoritiesOffset ()
+  {
+    int offset = (buffer.get (0) & 0xFF) + 1;
+    if (hasSignatureAlgorithms ())
+      offset += (buffer.getShort (offset) & 0xFFFF) + 2;
+    return offset;
+  }
+
   public String toString()
   {
     return toString (null);
@@ -107,6 +147,12 @@ public class CertificateRequest implements Handshake.Body
     if (prefix != null) out.print (prefix);
     out.println ("  types =");
     out.println (types ().toString (subprefix));
+    if (hasSignatureAlgorithms ())
+      {
+        if (prefix != null) out.print (prefix);
+        out.println ("  signature algorithms =");
+        out.println (signatureAlgorithms ().toString (subprefix));
+      }
     if (prefix != null) out.print (prefix);
     out.println("  authorities =");
     out.println (authorities ().toString (subprefix));
@@ -120,7 +166,10 @@ public class CertificateRequest implements Handshake.Body
     RSA_SIGN     (1),
     DSS_SIGN     (2),
     RSA_FIXED_DH (3),
-    DSS_FIXED_DH (4);
+    DSS_FIXED_DH (4),
+    ECDSA_SIGN       (64),
+    RSA_FIXED_ECDH   (65),
+    ECDSA_FIXED_ECDH (66);
 
     private final int value;
 
@@ -143,6 +192,9 @@ public class CertificateRequest implements Handshake.Body
         case 2: return DSS_SIGN;
         case 3: return RSA_FIXED_DH;
         case 4: return DSS_FIXED_DH;
+        case 64: return ECDSA_SIGN;
+        case 65: return RSA_FIXED_ECDH;
+        case 66: return ECDSA_FIXED_ECDH;
         default: throw new IllegalArgumentException("unknown client certificate type: " + value);
         }
     }
@@ -55,7 +55,12 @@ public class CertificateRequestBuilder extends CertificateRequest
 {
   public CertificateRequestBuilder()
   {
-    super(ByteBuffer.allocate(1024));
+    this(null);
+  }
+
+  public CertificateRequestBuilder(final ProtocolVersion version)
+  {
+    super(ByteBuffer.allocate(1024), version);
   }
 
   /* (non-Javadoc)
@@ -75,6 +80,18 @@ public class CertificateRequestBuilder extends CertificateRequest
       b.put((byte) type.getValue());
   }
 
+  /**
+   * Sets the signature algorithms, in TLS 1.2 and later.  This must be
+   * called after {@link #setTypes} and before {@link #setAuthorities}.
+   */
+  public void setSignatureAlgorithms(SignatureAndHashAlgorithmList algorithms)
+  {
+    ByteBuffer b = algorithms.buffer();
+    int typesLen = 1 + (buffer.get(0) & 0xFF);
+    ensureCapacity(typesLen + b.remaining() + 2);
+    ((ByteBuffer) buffer.duplicate().position(typesLen)).put(b);
+  }
+
   public void setAuthorities(List<X500Principal> authorities)
   {
     ByteArrayOutputStream out = new ByteArrayOutputStream(1024);
@@ -93,11 +110,11 @@ public class CertificateRequestBuilder extends CertificateRequest
           }
       }
     byte[] auths = out.toByteArray();
-    int typesLen = 1 + (buffer.get(0) & 0xFF);
-    int len = typesLen + auths.length + 2;
+    int offset = authoritiesOffset();
+    int len = offset + auths.length + 2;
     ensureCapacity(len);
-    buffer.putShort(typesLen, (short) auths.length);
-    ((ByteBuffer) buffer.duplicate().position(typesLen + 2)).put(auths);
+    buffer.putShort(offset, (short) auths.length);
+    ((ByteBuffer) buffer.duplicate().position(offset + 2)).put(auths);
   }
 
   public void ensureCapacity(final int capacity)
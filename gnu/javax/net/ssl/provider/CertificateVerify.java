@@ -53,11 +53,23 @@ public class CertificateVerify extends Signature implements Handshake.Body
     super(buffer, sigAlg);
   }
 
+  public CertificateVerify(final ByteBuffer buffer, final SignatureAlgorithm sigAlg,
+                           final ProtocolVersion version)
+  {
+    super(buffer, sigAlg, version);
+  }
+
   public CertificateVerify(final byte[] sigVal, final SignatureAlgorithm sigAlg)
   {
     super(sigVal, sigAlg);
   }
 
+  public CertificateVerify(final byte[] sigVal, final SignatureAlgorithm sigAlg,
+                           final HashAlgorithm hash)
+  {
+    super(sigVal, sigAlg, hash);
+  }
+
   // Instance method.
   // -------------------------------------------------------------------------
 
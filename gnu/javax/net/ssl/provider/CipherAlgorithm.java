@@ -43,5 +43,5 @@ package gnu.javax.net.ssl.provider;
  */
 public enum CipherAlgorithm
 {
-  NULL, RC4, DES, DESede, CAST5, AES
+  NULL, RC4, DES, DESede, CAST5, AES, ChaCha20
 }
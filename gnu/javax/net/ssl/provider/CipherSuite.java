@@ -48,6 +48,7 @@ import java.nio.ByteBuffer;
 import java.security.AccessController;
 import java.security.NoSuchAlgorithmException;
 import java.security.NoSuchProviderException;
+import java.security.spec.AlgorithmParameterSpec;
 
 import java.util.HashMap;
 import java.util.LinkedList;
@@ -57,6 +58,8 @@ import javax.crypto.Cipher;
 import javax.crypto.Mac;
 import javax.crypto.NoSuchPaddingException;
 import javax.crypto.NullCipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.IvParameterSpec;
 
 public final class CipherSuite implements Constructed
 {
@@ -390,6 +393,131 @@ public final class CipherSuite implements Constructed
                     MacAlgorithm.SHA, 32, 0x00, 0x95,
                     "TLS_RSA_PSK_WITH_AES_256_CBC_SHA", true);
 
+  // AES-GCM suites, from RFC 5288 and RFC 5487.  Like all AEAD suites
+  // they are only used with TLS 1.2.
+  public static final CipherSuite TLS_RSA_WITH_AES_128_GCM_SHA256 =
+    new CipherSuite (CipherAlgorithm.AES,
+                     KeyExchangeAlgorithm.RSA, false,
+                     SignatureAlgorithm.RSA,
+                     MacAlgorithm.SHA256, 16, 0x00, 0x9C,
+                     "TLS_RSA_WITH_AES_128_GCM_SHA256");
+  public static final CipherSuite TLS_RSA_WITH_AES_256_GCM_SHA384 =
+    new CipherSuite (CipherAlgorithm.AES,
+                     KeyExchangeAlgorithm.RSA, false,
+                     SignatureAlgorithm.RSA,
+                     MacAlgorithm.SHA384, 32, 0x00, 0x9D,
+                     "TLS_RSA_WITH_AES_256_GCM_SHA384");
+  public static final CipherSuite TLS_DHE_RSA_WITH_AES_128_GCM_SHA256 =
+    new CipherSuite (CipherAlgorithm.AES,
+                     KeyExchangeAlgorithm.DHE_RSA, true,
+                     SignatureAlgorithm.RSA,
+                     MacAlgorithm.SHA256, 16, 0x00, 0x9E,
+                     "TLS_DHE_RSA_WITH_AES_128_GCM_SHA256");
+  public static final CipherSuite TLS_DHE_RSA_WITH_AES_256_GCM_SHA384 =
+    new CipherSuite (CipherAlgorithm.AES,
+                     KeyExchangeAlgorithm.DHE_RSA, true,
+                     SignatureAlgorithm.RSA,
+                     MacAlgorithm.SHA384, 32, 0x00, 0x9F,
+                     "TLS_DHE_RSA_WITH_AES_256_GCM_SHA384");
+  public static final CipherSuite TLS_DH_RSA_WITH_AES_128_GCM_SHA256 =
+    new CipherSuite (CipherAlgorithm.AES,
+                     KeyExchangeAlgorithm.DH_RSA, false,
+                     SignatureAlgorithm.ANONYMOUS,
+                     MacAlgorithm.SHA256, 16, 0x00, 0xA0,
+                     "TLS_DH_RSA_WITH_AES_128_GCM_SHA256");
+  public static final CipherSuite TLS_DH_RSA_WITH_AES_256_GCM_SHA384 =
+    new CipherSuite (CipherAlgorithm.AES,
+                     KeyExchangeAlgorithm.DH_RSA, false,
+                     SignatureAlgorithm.ANONYMOUS,
+                     MacAlgorithm.SHA384, 32, 0x00, 0xA1,
+                     "TLS_DH_RSA_WITH_AES_256_GCM_SHA384");
+  public static final CipherSuite TLS_DHE_DSS_WITH_AES_128_GCM_SHA256 =
+    new CipherSuite (CipherAlgorithm.AES,
+                     KeyExchangeAlgorithm.DHE_DSS, true,
+                     SignatureAlgorithm.DSA,
+                     MacAlgorithm.SHA256, 16, 0x00, 0xA2,
+                     "TLS_DHE_DSS_WITH_AES_128_GCM_SHA256");
+  public static final CipherSuite TLS_DHE_DSS_WITH_AES_256_GCM_SHA384 =
+    new CipherSuite (CipherAlgorithm.AES,
+                     KeyExchangeAlgorithm.DHE_DSS, true,
+                     SignatureAlgorithm.DSA,
+                     MacAlgorithm.SHA384, 32, 0x00, 0xA3,
+                     "TLS_DHE_DSS_WITH_AES_256_GCM_SHA384");
+  public static final CipherSuite TLS_DH_DSS_WITH_AES_128_GCM_SHA256 =
+    new CipherSuite (CipherAlgorithm.AES,
+                     KeyExchangeAlgorithm.DH_DSS, false,
+                     SignatureAlgorithm.ANONYMOUS,
+                     MacAlgorithm.SHA256, 16, 0x00, 0xA4,
+                     "TLS_DH_DSS_WITH_AES_128_GCM_SHA256");
+  public static final CipherSuite TLS_DH_DSS_WITH_AES_256_GCM_SHA384 =
+    new CipherSuite (CipherAlgorithm.AES,
+                     KeyExchangeAlgorithm.DH_DSS, false,
+                     SignatureAlgorithm.ANONYMOUS,
+                     MacAlgorithm.SHA384, 32, 0x00, 0xA5,
+                     "TLS_DH_DSS_WITH_AES_256_GCM_SHA384");
+  public static final CipherSuite TLS_PSK_WITH_AES_128_GCM_SHA256 =
+    new CipherSuite (CipherAlgorithm.AES,
+                     KeyExchangeAlgorithm.PSK, false,
+                     SignatureAlgorithm.ANONYMOUS,
+                     MacAlgorithm.SHA256, 16, 0x00, 0xA8,
+                     "TLS_PSK_WITH_AES_128_GCM_SHA256");
+  public static final CipherSuite TLS_PSK_WITH_AES_256_GCM_SHA384 =
+    new CipherSuite (CipherAlgorithm.AES,
+                     KeyExchangeAlgorithm.PSK, false,
+                     SignatureAlgorithm.ANONYMOUS,
+                     MacAlgorithm.SHA384, 32, 0x00, 0xA9,
+                     "TLS_PSK_WITH_AES_256_GCM_SHA384");
+  public static final CipherSuite TLS_DHE_PSK_WITH_AES_128_GCM_SHA256 =
+    new CipherSuite (CipherAlgorithm.AES,
+                     KeyExchangeAlgorithm.DHE_PSK, true,
+                     SignatureAlgorithm.ANONYMOUS,
+                     MacAlgorithm.SHA256, 16, 0x00, 0xAA,
+                     "TLS_DHE_PSK_WITH_AES_128_GCM_SHA256");
+  public static final CipherSuite TLS_DHE_PSK_WITH_AES_256_GCM_SHA384 =
+    new CipherSuite (CipherAlgorithm.AES,
+                     KeyExchangeAlgorithm.DHE_PSK, true,
+                     SignatureAlgorithm.ANONYMOUS,
+                     MacAlgorithm.SHA384, 32, 0x00, 0xAB,
+                     "TLS_DHE_PSK_WITH_AES_256_GCM_SHA384");
+  public static final CipherSuite TLS_RSA_PSK_WITH_AES_128_GCM_SHA256 =
+    new CipherSuite (CipherAlgorithm.AES,
+                     KeyExchangeAlgorithm.RSA_PSK, false,
+                     SignatureAlgorithm.ANONYMOUS,
+                     MacAlgorithm.SHA256, 16, 0x00, 0xAC,
+                     "TLS_RSA_PSK_WITH_AES_128_GCM_SHA256");
+  public static final CipherSuite TLS_RSA_PSK_WITH_AES_256_GCM_SHA384 =
+    new CipherSuite (CipherAlgorithm.AES,
+                     KeyExchangeAlgorithm.RSA_PSK, false,
+                     SignatureAlgorithm.ANONYMOUS,
+                     MacAlgorithm.SHA384, 32, 0x00, 0xAD,
+                     "TLS_RSA_PSK_WITH_AES_256_GCM_SHA384");
+
+  // ChaCha20-Poly1305 suites, from RFC 7905.
+  public static final CipherSuite TLS_DHE_RSA_WITH_CHACHA20_POLY1305_SHA256 =
+    new CipherSuite (CipherAlgorithm.ChaCha20,
+                     KeyExchangeAlgorithm.DHE_RSA, true,
+                     SignatureAlgorithm.RSA,
+                     MacAlgorithm.SHA256, 32, 0xCC, 0xAA,
+                     "TLS_DHE_RSA_WITH_CHACHA20_POLY1305_SHA256");
+  public static final CipherSuite TLS_PSK_WITH_CHACHA20_POLY1305_SHA256 =
+    new CipherSuite (CipherAlgorithm.ChaCha20,
+                     KeyExchangeAlgorithm.PSK, false,
+                     SignatureAlgorithm.ANONYMOUS,
+                     MacAlgorithm.SHA256, 32, 0xCC, 0xAB,
+                     "TLS_PSK_WITH_CHACHA20_POLY1305_SHA256");
+  public static final CipherSuite TLS_DHE_PSK_WITH_CHACHA20_POLY1305_SHA256 =
+    new CipherSuite (CipherAlgorithm.ChaCha20,
+                     KeyExchangeAlgorithm.DHE_PSK, true,
+                     SignatureAlgorithm.ANONYMOUS,
+                     MacAlgorithm.SHA256, 32, 0xCC, 0xAD,
+                     "TLS_DHE_PSK_WITH_CHACHA20_POLY1305_SHA256");
+  public static final CipherSuite TLS_RSA_PSK_WITH_CHACHA20_POLY1305_SHA256 =
+    new CipherSuite (CipherAlgorithm.ChaCha20,
+                     KeyExchangeAlgorithm.RSA_PSK, false,
+                     SignatureAlgorithm.ANONYMOUS,
+                     MacAlgorithm.SHA256, 32, 0xCC, 0xAE,
+                     "TLS_RSA_PSK_WITH_CHACHA20_POLY1305_SHA256");
+
   // Ciphersuites from the OpenPGP extension draft.
   // These disappeared from a more recent draft.
 /*  public static final CipherSuite TLS_DHE_DSS_WITH_CAST_128_CBC_SHA =
@@ -491,6 +619,7 @@ public final class CipherSuite implements Constructed
   private final boolean exportable;
   private final boolean isStream;
   private final boolean isCBCMode;
+  private final boolean isAEAD;
   private final int keyLength;
   private final byte[] id;
   private final String name;
@@ -523,6 +652,43 @@ public final class CipherSuite implements Constructed
                        final int id2,
                        final String name,
                        final boolean isCBCMode)
+  {
+    this (cipherAlgorithm, keyExchangeAlgorithm, ephemeralDH,
+          signatureAlgorithm, macAlgorithm, keyLength, id1, id2, name,
+          isCBCMode, false);
+  }
+
+  /**
+   * Creates a suite with an authenticated cipher, AES in GCM mode or
+   * ChaCha20-Poly1305, which protects records without a MAC. The MAC
+   * algorithm names the hash of the PRF instead.
+   */
+  private CipherSuite (final CipherAlgorithm cipherAlgorithm,
+                       final KeyExchangeAlgorithm keyExchangeAlgorithm,
+                       final boolean ephemeralDH,
+                       final SignatureAlgorithm signatureAlgorithm,
+                       final MacAlgorithm prfAlgorithm,
+                       final int keyLength,
+                       final int id1,
+                       final int id2,
+                       final String name)
+  {
+    this (cipherAlgorithm, keyExchangeAlgorithm, ephemeralDH,
+          signatureAlgorithm, prfAlgorithm, keyLength, id1, id2, name,
+          false, true);
+  }
+
+  private CipherSuite (final CipherAlgorithm cipherAlgorithm,
+                       final KeyExchangeAlgorithm keyExchangeAlgorithm,
+                       final boolean ephemeralDH,
+                       final SignatureAlgorithm signatureAlgorithm,
+                       final MacAlgorithm macAlgorithm,
+                       final int keyLength,
+                       final int id1,
+                       final int id2,
+                       final String name,
+                       final boolean isCBCMode,
+                       final boolean isAEAD)
   {
     this.cipherAlgorithm = cipherAlgorithm;
     this.keyExchangeAlgorithm = keyExchangeAlgorithm;
@@ -533,6 +699,7 @@ public final class CipherSuite implements Constructed
     this.isStream = (cipherAlgorithm == CipherAlgorithm.NULL
                      || cipherAlgorithm == CipherAlgorithm.RC4);
     this.isCBCMode = isCBCMode;
+    this.isAEAD = isAEAD;
     this.keyLength = keyLength;
     this.id = new byte[] { (byte) id1, (byte) id2 };
     this.name = name.intern();
@@ -554,6 +721,7 @@ public final class CipherSuite implements Constructed
     exportable = false;
     isStream = false;
     isCBCMode = false;
+    isAEAD = false;
     keyLength = 0;
     this.id = id;
     name = null;
@@ -605,6 +773,10 @@ public final class CipherSuite implements Constructed
     String alg = null;
     if (isCBCMode)
       alg = cipherAlgorithm + "/CBC/NoPadding";
+    else if (isAEAD && cipherAlgorithm == CipherAlgorithm.AES)
+      alg = "AES/GCM/NoPadding";
+    else if (isAEAD)
+      alg = "ChaCha20-Poly1305";
     else
       alg = cipherAlgorithm.toString();
     GetSecurityPropertyAction gspa =
@@ -632,7 +804,7 @@ public final class CipherSuite implements Constructed
   {
     if (macAlgorithm == null)
       throw new NoSuchAlgorithmException(toString() + ": unresolved cipher suite");
-    if (macAlgorithm == MacAlgorithm.NULL)
+    if (macAlgorithm == MacAlgorithm.NULL || isAEAD)
       return null;
 
     String macAlg = null;
@@ -766,6 +938,29 @@ public final class CipherSuite implements Constructed
       case 0x93: return TLS_RSA_PSK_WITH_3DES_EDE_CBC_SHA;
       case 0x94: return TLS_RSA_PSK_WITH_AES_128_CBC_SHA;
       case 0x95: return TLS_RSA_PSK_WITH_AES_256_CBC_SHA;
+      case 0x9C: return TLS_RSA_WITH_AES_128_GCM_SHA256;
+      case 0x9D: return TLS_RSA_WITH_AES_256_GCM_SHA384;
+      case 0x9E: return TLS_DHE_RSA_WITH_AES_128_GCM_SHA256;
+      case 0x9F: return TLS_DHE_RSA_WITH_AES_256_GCM_SHA384;
+      case 0xA0: return TLS_DH_RSA_WITH_AES_128_GCM_SHA256;
+      case 0xA1: return TLS_DH_RSA_WITH_AES_256_GCM_SHA384;
+      case 0xA2: return TLS_DHE_DSS_WITH_AES_128_GCM_SHA256;
+      case 0xA3: return TLS_DHE_DSS_WITH_AES_256_GCM_SHA384;
+      case 0xA4: return TLS_DH_DSS_WITH_AES_128_GCM_SHA256;
+      case 0xA5: return TLS_DH_DSS_WITH_AES_256_GCM_SHA384;
+      case 0xA8: return TLS_PSK_WITH_AES_128_GCM_SHA256;
+      case 0xA9: return TLS_PSK_WITH_AES_256_GCM_SHA384;
+      case 0xAA: return TLS_DHE_PSK_WITH_AES_128_GCM_SHA256;
+      case 0xAB: return TLS_DHE_PSK_WITH_AES_256_GCM_SHA384;
+      case 0xAC: return TLS_RSA_PSK_WITH_AES_128_GCM_SHA256;
+      case 0xAD: return TLS_RSA_PSK_WITH_AES_256_GCM_SHA384;
+      }
+    else if (id[0] == (byte) 0xCC) switch (id[1] & 0xFF)
+      {
+      case 0xAA: return TLS_DHE_RSA_WITH_CHACHA20_POLY1305_SHA256;
+      case 0xAB: return TLS_PSK_WITH_CHACHA20_POLY1305_SHA256;
+      case 0xAD: return TLS_DHE_PSK_WITH_CHACHA20_POLY1305_SHA256;
+      case 0xAE: return TLS_RSA_PSK_WITH_CHACHA20_POLY1305_SHA256;
       }
     return this;
   }
@@ -845,4 +1040,46 @@ public final class CipherSuite implements Constructed
     return isCBCMode;
   }
 
+  /**
+   * Tells whether this suite uses an authenticated cipher, which both
+   * encrypts and authenticates records, in place of a cipher and a MAC.
+   * These suites are only defined for TLS 1.2 and later.
+   */
+  public boolean isAEAD()
+  {
+    return isAEAD;
+  }
+
+  /**
+   * Returns the name of the hash of the TLS 1.2 PRF of this suite, which
+   * is SHA-256 unless the suite names another.
+   */
+  String prfHash()
+  {
+    if (macAlgorithm == MacAlgorithm.SHA384)
+      return "SHA-384";
+    return "SHA-256";
+  }
+
+  /**
+   * Returns the length of the part of an AEAD nonce that is derived with
+   * the keys.  GCM takes four bytes from the keys and sends the other
+   * eight with each record; ChaCha20-Poly1305 derives the whole nonce,
+   * and masks it with the record's sequence number.
+   */
+  int fixedIvLength()
+  {
+    return (cipherAlgorithm == CipherAlgorithm.AES) ? 4 : 12;
+  }
+
+  /**
+   * Returns the cipher parameters for an AEAD nonce.
+   */
+  AlgorithmParameterSpec aeadParameters(byte[] nonce)
+  {
+    if (cipherAlgorithm == CipherAlgorithm.AES)
+      return new GCMParameterSpec(128, nonce);
+    return new IvParameterSpec(nonce);
+  }
+
 }
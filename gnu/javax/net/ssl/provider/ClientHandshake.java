@@ -141,6 +141,7 @@ public class ClientHandshake extends AbstractHandshake
   private DelegatedTask keyExchange;
   private CertLoader certLoader;
   private GenCertVerify genCertVerify;
+  private SignatureAndHashAlgorithmList serverSignatureAlgorithms;
 
   public ClientHandshake(SSLEngineImpl engine) throws NoSuchAlgorithmException
   {
@@ -186,6 +187,10 @@ public class ClientHandshake extends AbstractHandshake
           serverRandom = hello.random().copy();
           engine.session().suite = hello.cipherSuite();
           engine.session().version = hello.version();
+          if (engine.session().suite.isAEAD()
+              && engine.session().version.compareTo(ProtocolVersion.TLS_1_2) < 0)
+            throw new AlertException(new Alert(Alert.Level.FATAL,
+                                               Alert.Description.ILLEGAL_PARAMETER));
           compression = hello.compressionMethod();
           Session.ID serverId = new Session.ID(hello.sessionId());
           if (continued != null
@@ -323,8 +328,7 @@ public class ClientHandshake extends AbstractHandshake
 
           if (s.signatureAlgorithm() != SignatureAlgorithm.ANONYMOUS)
             {
-              byte[] signature = skex.signature().signature();
-              paramsVerifier = new ParamsVerifier(paramsBuffer, signature);
+              paramsVerifier = new ParamsVerifier(paramsBuffer, skex.signature());
               tasks.add(paramsVerifier);
             }
 
@@ -373,6 +377,8 @@ public class ClientHandshake extends AbstractHandshake
           for (ClientCertificateType t : types)
             typeList.add(t.name());
 
+          serverSignatureAlgorithms = req.signatureAlgorithms();
+
           X500PrincipalList issuers = req.authorities();
           LinkedList<X500Principal> issuerList = new LinkedList<X500Principal>();
           for (X500Principal p : issuers)
@@ -522,7 +528,7 @@ outer_loop:
               hello.setSessionId(sid.id());
               sentVersion = chooseVersion();
               hello.setVersion(sentVersion);
-              hello.setCipherSuites(getSuites());
+              hello.setCipherSuites(getSuites(sentVersion));
               hello.setCompressionMethods(getCompressionMethods());
               Random r = hello.random();
               r.setGmtUnixTime(Util.unixTime());
@@ -530,9 +536,9 @@ outer_loop:
               engine.session().random().nextBytes(nonce);
               r.setRandomBytes(nonce);
               clientRandom = r.copy();
+              List<Extension> extensions = new LinkedList<Extension>();
               if (enableExtensions())
                 {
-                  List<Extension> extensions = new LinkedList<Extension>();
                   MaxFragmentLength fraglen = maxFragmentLength();
                   if (fraglen != null)
                     {
@@ -558,7 +564,16 @@ outer_loop:
                                                    new TruncatedHMAC()));
                       truncatedHMacSent = true;
                     }
+                }
 
+              // A TLS 1.2 server has to know which signatures we accept,
+              // so we say so even if the other extensions are disabled.
+              if (sentVersion.compareTo(ProtocolVersion.TLS_1_2) >= 0)
+                extensions.add(new Extension(Extension.Type.SIGNATURE_ALGORITHMS,
+                                             new SignatureAndHashAlgorithmList(SIGNATURE_ALGORITHMS)));
+
+              if (!extensions.isEmpty())
+                {
                   ExtensionList elist = new ExtensionList(extensions);
                   hello.setExtensions(elist.buffer());
                 }
@@ -732,7 +747,8 @@ outer_loop:
               assert(genCertVerify != null);
               assert(genCertVerify.hasRun());
               CertificateVerify verify = new CertificateVerify(genCertVerify.signed(),
-                                                               engine.session().suite.signatureAlgorithm());
+                                                               genCertVerify.signatureAlgorithm(),
+                                                               genCertVerify.hashAlgorithm());
 
               outBuffer = verify.buffer();
               fragment.putInt((Handshake.Type.CERTIFICATE_VERIFY.getValue() << 24)
@@ -846,13 +862,16 @@ outer_loop:
     return version;
   }
 
-  private List<CipherSuite> getSuites() throws SSLException
+  private List<CipherSuite> getSuites(ProtocolVersion version)
+    throws SSLException
   {
+    // AEAD suites need TLS 1.2; don't offer them otherwise.
+    boolean aead = version.compareTo(ProtocolVersion.TLS_1_2) >= 0;
     List<CipherSuite> suites = new LinkedList<CipherSuite>();
     for (String s : engine.getEnabledCipherSuites())
       {
         CipherSuite suite = CipherSuite.forName(s);
-        if (suite != null)
+        if (suite != null && (aead || !suite.isAEAD()))
           suites.add(suite);
       }
     if (suites.isEmpty())
@@ -925,10 +944,10 @@ outer_loop:
   class ParamsVerifier extends DelegatedTask
   {
     private final ByteBuffer paramsBuffer;
-    private final byte[] signature;
+    private final Signature signature;
     private boolean verified;
 
-    ParamsVerifier(ByteBuffer paramsBuffer, byte[] signature)
+    ParamsVerifier(ByteBuffer paramsBuffer, Signature signature)
     {
       this.paramsBuffer = paramsBuffer;
       this.signature = signature;
@@ -938,12 +957,16 @@ outer_loop:
       throws InvalidKeyException, NoSuchAlgorithmException,
              SSLPeerUnverifiedException, SignatureException
     {
-      java.security.Signature s
-        = java.security.Signature.getInstance(engine.session().suite
-                                              .signatureAlgorithm().algorithm());
+      String alg;
+      HashAlgorithm hash = signature.hashAlgorithm();
+      if (hash != null)
+        alg = signature.signatureAlgorithm().algorithm(hash);
+      else
+        alg = engine.session().suite.signatureAlgorithm().algorithm();
+      java.security.Signature s = java.security.Signature.getInstance(alg);
       s.initVerify(engine.session().getPeerCertificates()[0]);
       s.update(paramsBuffer);
-      verified = s.verify(signature);
+      verified = s.verify(signature.signature());
       synchronized (this)
         {
           notifyAll();
@@ -1107,6 +1130,8 @@ outer_loop:
   {
     private final MessageDigest md5, sha;
     private byte[] signed;
+    private SignatureAlgorithm sigAlg;
+    private HashAlgorithm hash;
 
     GenCertVerify(MessageDigest md5, MessageDigest sha)
     {
@@ -1125,6 +1150,24 @@ outer_loop:
     public void implRun()
       throws InvalidKeyException, NoSuchAlgorithmException, SignatureException
     {
+      sigAlg = engine.session().suite.signatureAlgorithm();
+      if (engine.session().version.compareTo(ProtocolVersion.TLS_1_2) >= 0)
+        {
+          // TLS 1.2 signs the messages so far with a hash the server
+          // accepts, and the algorithm is that of our key.
+          if (privateKey instanceof java.security.interfaces.DSAPrivateKey)
+            sigAlg = SignatureAlgorithm.DSA;
+          else
+            sigAlg = SignatureAlgorithm.RSA;
+          hash = chooseHash(serverSignatureAlgorithms, sigAlg);
+          java.security.Signature sig =
+            java.security.Signature.getInstance(sigAlg.algorithm(hash));
+          sig.initSign(privateKey);
+          sig.update(handshakeMessages.toByteArray());
+          signed = sig.sign();
+          return;
+        }
+
       byte[] toSign;
       if (engine.session().version == ProtocolVersion.SSL_3)
         {
@@ -1149,5 +1192,15 @@ outer_loop:
     {
       return signed;
     }
+
+    SignatureAlgorithm signatureAlgorithm()
+    {
+      return sigAlg;
+    }
+
+    HashAlgorithm hashAlgorithm()
+    {
+      return hash;
+    }
   }
 }
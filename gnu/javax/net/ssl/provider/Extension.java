@@ -144,6 +144,9 @@ public final class Extension implements Builder, Constructed
         case STATUS_REQUEST:
           return new CertificateStatusRequest(valueBuffer());
 
+        case SIGNATURE_ALGORITHMS:
+          return new SignatureAndHashAlgorithmList(valueBuffer());
+
         case SRP:
         case CERT_TYPE:
       }
@@ -209,7 +212,8 @@ public final class Extension implements Builder, Constructed
     TRUNCATED_HMAC         (4),
     STATUS_REQUEST         (5),
     SRP                    (6),
-    CERT_TYPE              (7);
+    CERT_TYPE              (7),
+    SIGNATURE_ALGORITHMS   (13);
 
     private final int value;
 
@@ -230,6 +234,7 @@ public final class Extension implements Builder, Constructed
           case 5: return STATUS_REQUEST;
           case 6: return SRP;
           case 7: return CERT_TYPE;
+          case 13: return SIGNATURE_ALGORITHMS;
           default: return null;
         }
     }
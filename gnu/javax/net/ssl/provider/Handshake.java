@@ -142,16 +142,17 @@ public final class Handshake implements Constructed
         return new Certificate (bodyBuffer, CertificateType.X509);
 
       case SERVER_KEY_EXCHANGE:
-        return new ServerKeyExchange (bodyBuffer, suite);
+        return new ServerKeyExchange (bodyBuffer, suite, version);
 
       case CERTIFICATE_REQUEST:
-        return new CertificateRequest (bodyBuffer);
+        return new CertificateRequest (bodyBuffer, version);
 
       case SERVER_HELLO_DONE:
         return new ServerHelloDone ();
 
       case CERTIFICATE_VERIFY:
-        return new CertificateVerify (bodyBuffer, suite.signatureAlgorithm ());
+        return new CertificateVerify (bodyBuffer, suite.signatureAlgorithm (),
+                                      version);
 
       case CLIENT_KEY_EXCHANGE:
         return new ClientKeyExchange (bodyBuffer, suite, version);
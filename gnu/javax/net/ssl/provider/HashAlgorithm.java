@@ -0,0 +1,100 @@
+/* HashAlgorithm.java -- Hash algorithms of TLS 1.2 signatures.
+   Copyright (C) 2026  Free Software Foundation, Inc.
+
+This file is a part of GNU Classpath.
+
+GNU Classpath is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; either version 2 of the License, or (at
+your option) any later version.
+
+GNU Classpath is distributed in the hope that it will be useful, but
+WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with GNU Classpath; if not, write to the Free Software
+Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301
+USA
+
+Linking this library statically or dynamically with other modules is
+making a combined work based on this library.  Thus, the terms and
+conditions of the GNU General Public License cover the whole
+combination.
+
+As a special exception, the copyright holders of this library give you
+permission to link this library with independent modules to produce an
+executable, regardless of the license terms of these independent
+modules, and to copy and distribute the resulting executable under
+terms of your choice, provided that you also meet, for each linked
+independent module, the terms and conditions of the license of that
+module.  An independent module is a module which is not derived from
+or based on this library.  If you modify this library, you may extend
+this exception to your version of the library, but you are not
+obligated to do so.  If you do not wish to do so, delete this
+exception statement from your version.  */
+
+
+package gnu.javax.net.ssl.provider;
+
+/**
+ * The hash algorithms of the TLS 1.2 <code>SignatureAndHashAlgorithm</code>
+ * structure, which names the hash a signature was made with.
+ *
+ * <pre>
+enum {
+  none(0), md5(1), sha1(2), sha224(3), sha256(4), sha384(5),
+  sha512(6), (255)
+} HashAlgorithm;</pre>
+ */
+public enum HashAlgorithm
+{
+  NONE   (0, null),
+  MD5    (1, "MD5"),
+  SHA1   (2, "SHA-1"),
+  SHA224 (3, "SHA-224"),
+  SHA256 (4, "SHA-256"),
+  SHA384 (5, "SHA-384"),
+  SHA512 (6, "SHA-512");
+
+  private final int value;
+  private final String algorithm;
+
+  private HashAlgorithm(int value, String algorithm)
+  {
+    this.value = value;
+    this.algorithm = algorithm;
+  }
+
+  public static HashAlgorithm forValue(final int value)
+  {
+    switch (value)
+      {
+        case 0: return NONE;
+        case 1: return MD5;
+        case 2: return SHA1;
+        case 3: return SHA224;
+        case 4: return SHA256;
+        case 5: return SHA384;
+        case 6: return SHA512;
+        default: throw new IllegalArgumentException("unknown hash algorithm: " + value);
+      }
+  }
+
+  public int getValue()
+  {
+    return value;
+  }
+
+  /**
+   * Returns the JCA name of this hash, which can be used to get a
+   * {@link java.security.MessageDigest} for it.
+   *
+   * @return The algorithm name.
+   */
+  public String algorithm()
+  {
+    return algorithm;
+  }
+}
@@ -40,19 +40,20 @@ package gnu.javax.net.ssl.provider;
 
 import gnu.classpath.debug.Component;
 import gnu.classpath.debug.SystemLogger;
-import gnu.java.security.util.ByteArray;
 import gnu.java.security.util.ByteBufferOutputStream;
 
 import java.nio.BufferOverflowException;
 import java.nio.ByteBuffer;
 
-import java.util.Arrays;
+import java.security.GeneralSecurityException;
 import java.util.zip.DataFormatException;
 import java.util.zip.Inflater;
 
+import javax.crypto.BadPaddingException;
 import javax.crypto.Cipher;
 import javax.crypto.IllegalBlockSizeException;
 import javax.crypto.Mac;
+import javax.crypto.SecretKey;
 import javax.crypto.ShortBufferException;
 
 import javax.net.ssl.SSLException;
@@ -67,6 +68,22 @@ public class InputSecurityParameters
   private final CipherSuite suite;
   private long sequence;
 
+  /** The length of the tag of an authenticated cipher. */
+  private static final int TAG_LENGTH = 16;
+
+  // Authenticated ciphers only: the key, the fixed part of the nonce, and
+  // scratch space for the nonce and the additional data of each record.
+  private final SecretKey key;
+  private final byte[] iv;
+  private final byte[] nonce = new byte[12];
+  private final byte[] aad = new byte[13];
+
+  // Scratch space for the explicit IV and the MAC of each record, and
+  // for records that do not fit the caller's buffer.
+  private final ByteBuffer ivBuffer;
+  private final byte[] macValue;
+  private ByteBuffer scratch;
+
   public InputSecurityParameters (final Cipher cipher, final Mac mac,
                                   final Inflater inflater,
                                   final SessionImpl session,
@@ -78,6 +95,40 @@ public class InputSecurityParameters
     this.session = session;
     this.suite = suite;
     sequence = 0;
+    key = null;
+    iv = null;
+    if (cipher != null && !suite.isStreamCipher())
+      ivBuffer = ByteBuffer.allocate(cipher.getBlockSize());
+    else
+      ivBuffer = null;
+    macValue = mac != null ? new byte[mac.getMacLength()] : null;
+  }
+
+  /**
+   * Creates parameters for an authenticated cipher, which needs no MAC.
+   *
+   * @param cipher The cipher.
+   * @param key The key of the cipher.
+   * @param iv The fixed part of the nonce.
+   * @param inflater The inflater, or null.
+   * @param session The session.
+   * @param suite The cipher suite.
+   */
+  public InputSecurityParameters (final Cipher cipher, final SecretKey key,
+                                  final byte[] iv, final Inflater inflater,
+                                  final SessionImpl session,
+                                  final CipherSuite suite)
+  {
+    this.cipher = cipher;
+    this.mac = null;
+    this.key = key;
+    this.iv = iv;
+    this.inflater = inflater;
+    this.session = session;
+    this.suite = suite;
+    sequence = 0;
+    ivBuffer = null;
+    macValue = null;
   }
 
   /**
@@ -128,37 +179,72 @@ public class InputSecurityParameters
     throws DataFormatException, IllegalBlockSizeException,
            MacException, SSLException, ShortBufferException
   {
-    boolean badPadding = false;
-    ByteBuffer fragment;
+    if (key != null)
+      return open(record, output, offset, length, outputStream);
+
+    ByteBuffer input = record.fragment();
+    int ivlen = 0;
+    if (session.version.compareTo(ProtocolVersion.TLS_1_1) >= 0
+        && !suite.isStreamCipher())
+      ivlen = cipher.getBlockSize();
+    int n = record.length() - ivlen;
+    if (n < 0)
+      throw new MacException();
+
+    // Decrypt the explicit IV out of the way, then the rest of the
+    // record straight into the first output buffer if it fits, or into
+    // our scratch buffer if not.  Without a cipher, the record is read
+    // where it is.
+    ByteBuffer target;
+    int base;
+    boolean inPlace = false;
     if (cipher != null)
       {
-        ByteBuffer input = record.fragment();
-        fragment = ByteBuffer.allocate(input.remaining());
-        cipher.update(input, fragment);
+        if (ivlen > 0)
+          {
+            input.limit(ivlen);
+            ivBuffer.clear();
+            cipher.update(input, ivBuffer);
+            input.limit(record.length());
+          }
+        if (inflater == null && outputStream == null && length > 0
+            && output[offset].remaining() >= n)
+          {
+            target = output[offset];
+            inPlace = true;
+          }
+        else
+          target = scratch(n);
+        base = target.position();
+        cipher.update(input, target);
+        target.position(base);
       }
     else
-      fragment = record.fragment();
+      {
+        target = input;
+        base = input.position();
+      }
 
     if (Debug.DEBUG_DECRYPTION)
       logger.logv(Component.SSL_RECORD_LAYER, "decrypted fragment:\n{0}",
-                  Util.hexDump((ByteBuffer) fragment.duplicate().position(0), " >> "));
+                  Util.hexDump((ByteBuffer) target.duplicate().limit(base + n), " >> "));
 
-    int fragmentLength = record.length();
     int maclen = 0;
     if (mac != null)
       maclen = mac.getMacLength();
-    fragmentLength -= maclen;
 
-    int padlen = 0;
+    boolean badPadding = maclen > n;
     int padRemoveLen = 0;
-    if (!suite.isStreamCipher ())
+    if (!suite.isStreamCipher () && !badPadding)
       {
-        padlen = fragment.get(record.length() - 1) & 0xFF;
+        int padlen = target.get(base + n - 1) & 0xFF;
         padRemoveLen = padlen + 1;
         if (Debug.DEBUG)
           logger.logv(Component.SSL_RECORD_LAYER, "padlen:{0}", padlen);
 
-        if (record.version() == ProtocolVersion.SSL_3)
+        if (padRemoveLen + maclen > n)
+          badPadding = true;
+        else if (record.version() == ProtocolVersion.SSL_3)
           {
             // In SSLv3, the padding length must not be larger than
             // the cipher's block size.
@@ -169,30 +255,23 @@ public class InputSecurityParameters
           {
             // In TLSv1 and later, the padding must be `padlen' copies of the
             // value `padlen'.
-            byte[] pad = new byte[padlen];
-            ((ByteBuffer) fragment.duplicate().position(record.length() - padlen - 1)).get(pad);
-            for (int i = 0; i < pad.length; i++)
-              if ((pad[i] & 0xFF) != padlen)
-                badPadding = true;
-            if (Debug.DEBUG)
-              logger.logv(Component.SSL_RECORD_LAYER, "TLSv1.x padding\n{0}",
-                          new ByteArray(pad));
+            int bad = 0;
+            for (int i = base + n - padRemoveLen; i < base + n - 1; i++)
+              bad |= (target.get(i) & 0xFF) ^ padlen;
+            if (bad != 0)
+              badPadding = true;
           }
 
         if (Debug.DEBUG)
           logger.logv(Component.SSL_RECORD_LAYER, "padding bad? {0}",
                       badPadding);
-        if (!badPadding)
-          fragmentLength = fragmentLength - padRemoveLen;
+        if (badPadding)
+          padRemoveLen = 0;
       }
-
-    int ivlen = 0;
-    if (session.version.compareTo(ProtocolVersion.TLS_1_1) >= 0
-        && !suite.isStreamCipher())
-      ivlen = cipher.getBlockSize();
+    int contentLength = Math.max(n - maclen - padRemoveLen, 0);
 
     // Compute and check the MAC.
-    if (mac != null)
+    if (mac != null && maclen <= n)
       {
         mac.update((byte) (sequence >>> 56));
         mac.update((byte) (sequence >>> 48));
@@ -209,122 +288,215 @@ public class InputSecurityParameters
             mac.update((byte) version.major());
             mac.update((byte) version.minor());
           }
-        mac.update((byte) ((fragmentLength - ivlen) >>> 8));
-        mac.update((byte)  (fragmentLength - ivlen));
-        ByteBuffer content =
-          (ByteBuffer) fragment.duplicate().position(ivlen).limit(fragmentLength);
-        mac.update(content);
-        byte[] mac1 = mac.doFinal ();
-        byte[] mac2 = new byte[maclen];
-        mac.reset();
-        ((ByteBuffer) fragment.duplicate().position(fragmentLength)).get(mac2);
-        if (Debug.DEBUG)
+        mac.update((byte) (contentLength >>> 8));
+        mac.update((byte)  contentLength);
+        int lim = target.limit();
+        target.limit(base + contentLength);
+        mac.update(target);
+        target.limit(lim).position(base);
+        mac.doFinal(macValue, 0);
+        int diff = 0;
+        for (int i = 0; i < maclen; i++)
+          diff |= macValue[i] ^ target.get(base + contentLength + i);
+        if (Debug.DEBUG_DECRYPTION)
           logger.logv(Component.SSL_RECORD_LAYER, "mac1:{0} mac2:{1}",
-                      Util.toHexString(mac1, ':'), Util.toHexString(mac2, ':'));
-        if (!Arrays.equals (mac1, mac2))
+                      Util.toHexString(macValue, ':'),
+                      Util.hexDump((ByteBuffer) target.duplicate()
+                                   .position(base + contentLength)
+                                   .limit(base + contentLength + maclen)));
+        if (diff != 0)
           badPadding = true;
       }
 
     // We always say "bad MAC" and not "bad padding," because saying
     // the latter will leak information to an attacker.
     if (badPadding)
-      throw new MacException ();
+      {
+        if (inPlace)
+          clear(target, base, n);
+        throw new MacException ();
+      }
 
-    // Inflate the compressed bytes.
-    int produced = 0;
+    int produced;
+    if (inPlace)
+      {
+        target.position(base + contentLength);
+        produced = contentLength;
+      }
+    else
+      {
+        target.limit(base + contentLength);
+        produced = produce(target, output, offset, length, outputStream);
+      }
+    sequence++;
+    return produced;
+  }
+
+  /**
+   * Opens a record sealed by an authenticated cipher.  The nonce is made
+   * from the fixed IV and either the explicit nonce that starts the
+   * record (GCM) or the sequence number (ChaCha20-Poly1305), and the
+   * record header is authenticated along with the fragment.  The content
+   * is decrypted straight into the first output buffer when it fits.
+   */
+  private int open(Record record, ByteBuffer[] output, int offset, int length,
+                   ByteBufferOutputStream outputStream)
+    throws DataFormatException, MacException, SSLException
+  {
+    ByteBuffer input = record.fragment();
+    int explicit = suite.cipherAlgorithm() == CipherAlgorithm.AES ? 8 : 0;
+    int contentLength = record.length() - explicit - TAG_LENGTH;
+    if (contentLength < 0)
+      throw new MacException();
+
+    ByteBuffer target = null;
+    if (inflater == null && outputStream == null)
+      {
+        int room = 0;
+        for (int i = offset; i < offset + length; i++)
+          room += output[i].remaining();
+        // Fail before touching any state, so that the caller may try
+        // again with more room.
+        if (room < contentLength)
+          throw new BufferOverflowException();
+        if (output[offset].remaining() >= contentLength)
+          target = output[offset];
+      }
+    boolean inPlace = target != null;
+    if (!inPlace)
+      target = scratch(contentLength);
+    int base = target.position();
+
+    System.arraycopy(iv, 0, nonce, 0, iv.length);
+    if (explicit > 0)
+      input.get(nonce, iv.length, explicit);
+    else
+      for (int i = 0; i < 8; i++)
+        nonce[4 + i] ^= (byte) (sequence >>> (56 - 8 * i));
+    for (int i = 0; i < 8; i++)
+      aad[i] = (byte) (sequence >>> (56 - 8 * i));
+    aad[8] = (byte) record.getContentType().getValue();
+    aad[9] = (byte) record.version().major();
+    aad[10] = (byte) record.version().minor();
+    aad[11] = (byte) (contentLength >>> 8);
+    aad[12] = (byte) contentLength;
+
+    try
+      {
+        cipher.init(Cipher.DECRYPT_MODE, key, suite.aeadParameters(nonce));
+        cipher.updateAAD(aad);
+        cipher.doFinal(input, target);
+      }
+    catch (BadPaddingException bpe)
+      {
+        // The tag did not match.
+        if (inPlace)
+          clear(target, base, contentLength);
+        throw new MacException();
+      }
+    catch (GeneralSecurityException gse)
+      {
+        throw new SSLException(gse);
+      }
+
+    int produced;
+    if (inPlace)
+      produced = contentLength;
+    else
+      {
+        target.flip();
+        produced = produce(target, output, offset, length, outputStream);
+      }
+    sequence++;
+    return produced;
+  }
+
+  /**
+   * Decompresses the content of a record if needed, and puts it into the
+   * output buffers or the output stream.
+   */
+  private int produce(ByteBuffer content, ByteBuffer[] output, int offset,
+                      int length, ByteBufferOutputStream outputStream)
+    throws DataFormatException
+  {
+    ByteBuffer outbuf = content;
     if (inflater != null)
       {
-        ByteBufferOutputStream out = new ByteBufferOutputStream(fragmentLength);
+        ByteBufferOutputStream out
+          = new ByteBufferOutputStream(content.remaining());
         byte[] inbuffer = new byte[1024];
         byte[] outbuffer = new byte[1024];
         boolean done = false;
-        if (record.version().compareTo(ProtocolVersion.TLS_1_1) >= 0
-            && !suite.isStreamCipher())
-          fragment.position (cipher.getBlockSize());
-        else
-          fragment.position(0);
-        fragment.limit(fragmentLength);
-
         while (!done)
           {
             int l;
             if (inflater.needsInput())
               {
-                l = Math.min(inbuffer.length, fragment.remaining());
-                fragment.get(inbuffer, 0, l);
-                inflater.setInput(inbuffer);
+                l = Math.min(inbuffer.length, content.remaining());
+                content.get(inbuffer, 0, l);
+                inflater.setInput(inbuffer, 0, l);
               }
 
             l = inflater.inflate(outbuffer);
             out.write(outbuffer, 0, l);
-            done = !fragment.hasRemaining() && inflater.finished();
+            done = !content.hasRemaining() && inflater.finished();
           }
+        outbuf = out.buffer();
+      }
 
-        ByteBuffer outbuf = out.buffer();
-        if (outputStream != null)
-          {
-            byte[] buf = new byte[1024];
-            while (outbuf.hasRemaining())
-              {
-                int l = Math.min(outbuf.remaining(), buf.length);
-                outbuf.get(buf, 0, l);
-                outputStream.write(buf, 0, l);
-                produced += l;
-              }
-          }
-        else
+    int produced = 0;
+    if (outputStream != null)
+      {
+        byte[] buf = new byte[1024];
+        while (outbuf.hasRemaining())
           {
-            int i = offset;
-            while (outbuf.hasRemaining() && i < offset + length)
-              {
-                int l = Math.min(output[i].remaining(), outbuf.remaining());
-                ByteBuffer b = (ByteBuffer)
-                  outbuf.duplicate().limit(outbuf.position() + l);
-                output[i++].put(b);
-                outbuf.position(outbuf.position() + l);
-                produced += l;
-              }
-            if (outbuf.hasRemaining())
-              throw new BufferOverflowException();
+            int l = Math.min(outbuf.remaining(), buf.length);
+            outbuf.get(buf, 0, l);
+            outputStream.write(buf, 0, l);
+            produced += l;
           }
       }
     else
       {
-        ByteBuffer outbuf = (ByteBuffer)
-          fragment.duplicate().position(0).limit(record.length() - maclen - padRemoveLen);
-        if (record.version().compareTo(ProtocolVersion.TLS_1_1) >= 0
-            && !suite.isStreamCipher())
-          outbuf.position(cipher.getBlockSize());
-        if (outputStream != null)
+        int i = offset;
+        int lim = outbuf.limit();
+        while (outbuf.hasRemaining() && i < offset + length)
           {
-            byte[] buf = new byte[1024];
-            while (outbuf.hasRemaining())
-              {
-                int l = Math.min(outbuf.remaining(), buf.length);
-                outbuf.get(buf, 0, l);
-                outputStream.write(buf, 0, l);
-                produced += l;
-              }
-          }
-        else
-          {
-            int i = offset;
-            while (outbuf.hasRemaining() && i < offset + length)
-              {
-                int l = Math.min(output[i].remaining(), outbuf.remaining());
-                ByteBuffer b = (ByteBuffer) outbuf.duplicate().limit(outbuf.position() + l);
-                output[i++].put(b);
-                outbuf.position(outbuf.position() + l);
-                produced += l;
-              }
-            if (outbuf.hasRemaining())
-              throw new BufferOverflowException();
+            int l = Math.min(output[i].remaining(), outbuf.remaining());
+            outbuf.limit(outbuf.position() + l);
+            output[i++].put(outbuf);
+            outbuf.limit(lim);
+            produced += l;
           }
+        if (outbuf.hasRemaining())
+          throw new BufferOverflowException();
       }
+    return produced;
+  }
 
-    sequence++;
+  /**
+   * Returns the scratch buffer, cleared, with room for at least
+   * <code>size</code> bytes.  It is only needed when a record does not
+   * fit the caller's buffer, so it is made on demand.
+   */
+  private ByteBuffer scratch(final int size)
+  {
+    if (scratch == null || scratch.capacity() < size)
+      scratch = ByteBuffer.allocate(Math.max(size, scratch == null
+                                                   ? 0 : 2 * scratch.capacity()));
+    scratch.clear();
+    return scratch;
+  }
 
-    return produced;
+  /**
+   * Zeroes plaintext that failed to verify, so that none of it is left
+   * in the caller's buffer.
+   */
+  private static void clear(final ByteBuffer buffer, final int from,
+                            final int count)
+  {
+    for (int i = from; i < from + count; i++)
+      buffer.put(i, (byte) 0);
   }
 
   CipherSuite cipherSuite ()
@@ -67,7 +67,7 @@ public class Jessie extends Provider
   public Jessie()
   {
     super("Jessie", VERSION_DOUBLE,
-          "Implementing TLSv1.1, with SSLv3, TLSv1.0 compatibility modes; "
+          "Implementing TLSv1.2, with SSLv3, TLSv1.0, TLSv1.1 compatibility modes; "
           + "X.509 Key Manager Factory; "
           + "X.509 Trust Manager Factory; "
           + "SSLv3 MD5 and SHA Mac.");
@@ -76,12 +76,13 @@ public class Jessie extends Provider
       {
         public Object run()
         {
-          put("SSLContext.TLSv1.1", SSLContextImpl.class.getName());
-          put("Alg.Alias.SSLContext.SSLv3",   "TLSv1.1");
-          put("Alg.Alias.SSLContext.TLSv1",   "TLSv1.1");
-          put("Alg.Alias.SSLContext.TLSv1.0", "TLSv1.1");
-          put("Alg.Alias.SSLContext.TLS",     "TLSv1.1");
-          put("Alg.Alias.SSLContext.SSL",     "TLSv1.1");
+          put("SSLContext.TLSv1.2", SSLContextImpl.class.getName());
+          put("Alg.Alias.SSLContext.SSLv3",   "TLSv1.2");
+          put("Alg.Alias.SSLContext.TLSv1",   "TLSv1.2");
+          put("Alg.Alias.SSLContext.TLSv1.0", "TLSv1.2");
+          put("Alg.Alias.SSLContext.TLSv1.1", "TLSv1.2");
+          put("Alg.Alias.SSLContext.TLS",     "TLSv1.2");
+          put("Alg.Alias.SSLContext.SSL",     "TLSv1.2");
 
           put("KeyManagerFactory.JessieX509",   X509KeyManagerFactory.class.getName());
           put("TrustManagerFactory.JessieX509", X509TrustManagerFactory.class.getName());
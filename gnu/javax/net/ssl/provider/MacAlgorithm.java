@@ -39,9 +39,11 @@ exception statement from your version.  */
 package gnu.javax.net.ssl.provider;
 
 /**
- * An enumeration of MAC algorithms we support.
+ * An enumeration of MAC algorithms we support.  The suites with an
+ * authenticated cipher use no MAC; for them this names the hash of the
+ * TLS 1.2 PRF instead.
  */
 public enum MacAlgorithm
 {
-  NULL, MD5, SHA;
+  NULL, MD5, SHA, SHA256, SHA384;
 }
@@ -44,14 +44,18 @@ import gnu.java.security.util.ByteBufferOutputStream;
 
 import java.nio.ByteBuffer;
 
+import java.security.GeneralSecurityException;
 import java.util.zip.DataFormatException;
 import java.util.zip.Deflater;
 
 import javax.crypto.Cipher;
 import javax.crypto.IllegalBlockSizeException;
 import javax.crypto.Mac;
+import javax.crypto.SecretKey;
 import javax.crypto.ShortBufferException;
 
+import javax.net.ssl.SSLException;
+
 public class OutputSecurityParameters
 {
   private static final SystemLogger logger = SystemLogger.SYSTEM;
@@ -62,6 +66,28 @@ public class OutputSecurityParameters
   private final CipherSuite suite;
   private long sequence;
 
+  /** The length of the tag of an authenticated cipher. */
+  private static final int TAG_LENGTH = 16;
+
+  /** The largest plaintext a record may carry. */
+  static final int MAX_PLAINTEXT = 16384;
+
+  private static final ByteBuffer EMPTY = ByteBuffer.allocate(0);
+
+  // Authenticated ciphers only: the key, the fixed part of the nonce, and
+  // scratch space for the nonce and the additional data of each record.
+  private final SecretKey key;
+  private final byte[] iv;
+  private final byte[] nonce = new byte[12];
+  private final byte[] aad = new byte[13];
+
+  // Scratch space for the explicit IV, the MAC and the padding of each
+  // record, and for the result of encrypt.
+  private final ByteBuffer ivBuffer;
+  private final ByteBuffer macBuffer;
+  private final ByteBuffer padBuffer;
+  private final int[] result = new int[2];
+
   static final boolean enableCBCProtection;
 
   static
@@ -83,23 +109,71 @@ public class OutputSecurityParameters
     this.session = session;
     this.suite = suite;
     sequence = 0;
+    key = null;
+    iv = null;
+    if (cipher != null && !suite.isStreamCipher())
+      {
+        ivBuffer = ByteBuffer.allocate(cipher.getBlockSize());
+        padBuffer = ByteBuffer.allocate(256);
+      }
+    else
+      {
+        ivBuffer = null;
+        padBuffer = null;
+      }
+    macBuffer = mac != null ? ByteBuffer.allocate(mac.getMacLength()) : null;
+  }
+
+  /**
+   * Creates parameters for an authenticated cipher, which needs no MAC.
+   *
+   * @param cipher The cipher.
+   * @param key The key of the cipher.
+   * @param iv The fixed part of the nonce.
+   * @param deflater The deflater, or null.
+   * @param session The session.
+   * @param suite The cipher suite.
+   */
+  public OutputSecurityParameters (final Cipher cipher, final SecretKey key,
+                                   final byte[] iv, final Deflater deflater,
+                                   SessionImpl session, CipherSuite suite)
+  {
+    this.cipher = cipher;
+    this.mac = null;
+    this.key = key;
+    this.iv = iv;
+    this.deflater = deflater;
+    this.session = session;
+    this.suite = suite;
+    sequence = 0;
+    ivBuffer = null;
+    macBuffer = null;
+    padBuffer = null;
   }
 
   /**
    * Encrypt a record, storing the result in the given output buffer.
+   * The record is written at the output's position; the plaintext is
+   * read, MACed and encrypted from the input buffers in place, and the
+   * IV, MAC and padding come from scratch space kept here, so that
+   * nothing is allocated per record.
    *
    * @return The number of bytes taken from the input, and the number stored
    * into `output;' that is, the size of the encrypted fragment, plus the
-   * encoding for the record.
+   * encoding for the record.  The array is reused by the next call.
    */
   public int[] encrypt (final ByteBuffer[] input, int offset, int length,
                         final ContentType contentType, final ByteBuffer output)
-    throws DataFormatException, IllegalBlockSizeException, ShortBufferException
+    throws DataFormatException, IllegalBlockSizeException, ShortBufferException,
+           SSLException
   {
     if (offset < 0 || offset >= input.length
         || length <= 0 || offset + length > input.length)
       throw new IndexOutOfBoundsException();
 
+    if (key != null)
+      return seal(input, offset, length, contentType, output);
+
     if (Debug.DEBUG)
       for (int i = offset; i < offset+length; i++)
         logger.logv(Component.SSL_RECORD_LAYER, "encrypting record [{0}]: {1}",
@@ -110,89 +184,56 @@ public class OutputSecurityParameters
       maclen = session.isTruncatedMac() ? 10 : mac.getMacLength ();
 
     int ivlen = 0;
-    byte[] iv = null;
     if (session.version.compareTo(ProtocolVersion.TLS_1_1) >= 0
         && !suite.isStreamCipher())
       {
         ivlen = cipher.getBlockSize();
-        iv = new byte[ivlen];
-        session.random().nextBytes(iv);
+        session.random().nextBytes(ivBuffer.array());
       }
 
+    int bs = 0;
     int padaddlen = 0;
-    if (!suite.isStreamCipher()
-        && session.version.compareTo(ProtocolVersion.TLS_1) >= 0)
+    if (!suite.isStreamCipher())
       {
-        padaddlen = (session.random().nextInt(255 / cipher.getBlockSize())
-                     * cipher.getBlockSize());
+        bs = cipher.getBlockSize();
+        if (session.version.compareTo(ProtocolVersion.TLS_1) >= 0)
+          padaddlen = session.random().nextInt(255 / bs) * bs;
       }
 
-    int fragmentLength = 0;
-    ByteBuffer[] fragments = null;
-    // Compress the content, if needed.
+    // Leave room for the header, the IV, the MAC and the largest pad.
+    int limit = Math.min(output.remaining() - 5 - maclen - ivlen
+                         - padaddlen - bs, MAX_PLAINTEXT);
+    if (limit < 0)
+      throw new ShortBufferException();
+
+    ByteBuffer[] fragments = input;
+    int contentLength = 0;
     if (deflater != null)
       {
-        ByteBufferOutputStream deflated = new ByteBufferOutputStream();
-
-        byte[] inbuf = new byte[1024];
-        byte[] outbuf = new byte[1024];
-        int written = 0;
-
-        // Here we use the guarantee that the deflater won't increase the
-        // output size by more than 1K -- we resign ourselves to only deflate
-        // as much data as we have space for *uncompressed*,
-        int limit = output.remaining() - (maclen + ivlen + padaddlen) - 1024;
-
-        for (int i = offset; i < length && written < limit; i++)
-          {
-            ByteBuffer in = input[i];
-            while (in.hasRemaining() && written < limit)
-              {
-                int l = Math.min(in.remaining(), inbuf.length);
-                l = Math.min(limit - written, l);
-                in.get(inbuf, 0, l);
-                deflater.setInput(inbuf, 0, l);
-                l = deflater.deflate(outbuf);
-                deflated.write(outbuf, 0, l);
-                written += l;
-              }
-          }
-        deflater.finish();
-        while (!deflater.finished())
-          {
-            int l = deflater.deflate(outbuf);
-            deflated.write(outbuf, 0, l);
-            written += l;
-          }
-        fragments = new ByteBuffer[] { deflated.buffer() };
-        fragmentLength = ((int) deflater.getBytesWritten()) + maclen + ivlen;
-        deflater.reset();
+        fragments = deflate(input, offset, length, limit);
         offset = 0;
         length = 1;
+        contentLength = fragments[0].remaining();
       }
     else
       {
-        int limit = output.remaining() - (maclen + ivlen + padaddlen);
-        fragments = input;
-        for (int i = offset; i < length && fragmentLength < limit; i++)
-          {
-            int l = Math.min(limit - fragmentLength, fragments[i].remaining());
-            fragmentLength += l;
-          }
-        fragmentLength += maclen + ivlen;
+        for (int i = offset; i < offset + length && contentLength < limit; i++)
+          contentLength += Math.min(limit - contentLength,
+                                    input[i].remaining());
+        result[0] = contentLength;
       }
+    int fragmentLength = ivlen + contentLength + maclen;
 
     // Compute padding...
     int padlen = 0;
-    byte[] pad = null;
     if (!suite.isStreamCipher())
       {
-        int bs = cipher.getBlockSize();
         padlen = bs - (fragmentLength % bs);
         if (Debug.DEBUG)
           logger.logv(Component.SSL_RECORD_LAYER,
                       "framentLen:{0} padlen:{1} blocksize:{2}",
                       fragmentLength, padlen, bs);
+        byte[] pad = padBuffer.array();
         if (session.version.compareTo(ProtocolVersion.TLS_1) >= 0)
           {
             // TLS 1.0 and later uses a random amount of padding, up to
@@ -201,7 +242,6 @@ public class OutputSecurityParameters
             padlen += padaddlen;
             while (padlen > 255)
               padlen -= bs;
-            pad = new byte[padlen];
             for (int i = 0; i < padlen; i++)
               pad[i] = (byte) (padlen - 1);
           }
@@ -209,15 +249,13 @@ public class OutputSecurityParameters
           {
             // SSL 3 uses a pad only as large as the block size, but the
             // pad may contain any values.
-            pad = new byte[padlen];
             session.random().nextBytes(pad);
             pad[padlen - 1] = (byte) (padlen - 1);
           }
-        fragmentLength += pad.length;
+        fragmentLength += padlen;
       }
 
     // If there is a MAC, compute it.
-    byte[] macValue = null;
     if (mac != null)
       {
         mac.update((byte) (sequence >>> 56));
@@ -234,68 +272,208 @@ public class OutputSecurityParameters
             mac.update((byte) session.version.major ());
             mac.update((byte) session.version.minor ());
           }
-        int toWrite = fragmentLength - maclen - ivlen - padlen;
-        mac.update((byte) (toWrite >>> 8));
-        mac.update((byte)  toWrite);
+        mac.update((byte) (contentLength >>> 8));
+        mac.update((byte)  contentLength);
         int written = 0;
-        for (int i = offset; i < length && written < toWrite; i++)
+        for (int i = offset; i < offset + length && written < contentLength; i++)
           {
-            ByteBuffer fragment = fragments[i].duplicate();
-            int l = Math.min(fragment.remaining(), toWrite - written);
-            fragment.limit(fragment.position() + l);
+            ByteBuffer fragment = fragments[i];
+            int pos = fragment.position();
+            int lim = fragment.limit();
+            int l = Math.min(fragment.remaining(), contentLength - written);
+            fragment.limit(pos + l);
             mac.update(fragment);
+            fragment.limit(lim).position(pos);
+            written += l;
           }
-        macValue = mac.doFinal();
+        mac.doFinal(macBuffer.array(), 0);
       }
 
-    Record outrecord = new Record(output);
-    outrecord.setContentType(contentType);
-    outrecord.setVersion(session.version);
-    outrecord.setLength(fragmentLength);
-
-    int consumed = 0;
-    ByteBuffer outfragment = outrecord.fragment();
+    int start = output.position();
+    output.put(start, (byte) contentType.getValue());
+    output.put(start + 1, (byte) session.version.major());
+    output.put(start + 2, (byte) session.version.minor());
+    output.put(start + 3, (byte) (fragmentLength >>> 8));
+    output.put(start + 4, (byte) fragmentLength);
+    output.position(start + 5);
 
     if (cipher != null)
       {
-        if (iv != null)
-          cipher.update(ByteBuffer.wrap(iv), outfragment);
-        int toWrite = fragmentLength - maclen - ivlen - padlen;
-        for (int i = offset; i < offset + length && consumed < toWrite; i++)
-          {
-            ByteBuffer fragment = fragments[i].slice();
-            int l = Math.min(fragment.remaining(), toWrite - consumed);
-            fragment.limit(fragment.position() + l);
-            cipher.update(fragment, outfragment);
-            fragments[i].position(fragments[i].position() + l);
-            consumed += l;
-          }
-        if (macValue != null)
-          cipher.update(ByteBuffer.wrap(macValue), outfragment);
-        if (pad != null)
-          cipher.update(ByteBuffer.wrap(pad), outfragment);
+        if (ivlen > 0)
+          cipher.update(scratch(ivBuffer, ivlen), output);
+        copy(fragments, offset, length, contentLength, output);
+        if (maclen > 0)
+          cipher.update(scratch(macBuffer, maclen), output);
+        if (padlen > 0)
+          cipher.update(scratch(padBuffer, padlen), output);
       }
     else
       {
         // iv and pad are only used if we have a block cipher.
-        int toWrite = fragmentLength - maclen;
-        for (int i = offset; i < offset + length && consumed < toWrite; i++)
+        copy(fragments, offset, length, contentLength, output);
+        if (maclen > 0)
+          output.put(scratch(macBuffer, maclen));
+      }
+
+    output.position(start + fragmentLength + 5);
+    sequence++;
+
+    result[1] = fragmentLength + 5;
+    return result;
+  }
+
+  /**
+   * Seals a record with an authenticated cipher.  The nonce is made from
+   * the fixed IV and the sequence number, which GCM also sends in front
+   * of the ciphertext, and the record header is authenticated along with
+   * the content.  The tag follows the ciphertext.
+   */
+  private int[] seal (final ByteBuffer[] input, int offset, int length,
+                      final ContentType contentType, final ByteBuffer output)
+    throws DataFormatException, ShortBufferException, SSLException
+  {
+    int explicit = suite.cipherAlgorithm() == CipherAlgorithm.AES ? 8 : 0;
+    int limit = Math.min(output.remaining() - 5 - explicit - TAG_LENGTH,
+                         MAX_PLAINTEXT);
+    if (limit < 0)
+      throw new ShortBufferException();
+
+    ByteBuffer[] sources = input;
+    int contentLength = 0;
+    if (deflater != null)
+      {
+        sources = deflate(input, offset, length, limit);
+        offset = 0;
+        length = 1;
+        contentLength = sources[0].remaining();
+      }
+    else
+      {
+        for (int i = offset; i < offset + length && contentLength < limit; i++)
+          contentLength += Math.min(limit - contentLength,
+                                    input[i].remaining());
+        result[0] = contentLength;
+      }
+
+    int fragmentLength = explicit + contentLength + TAG_LENGTH;
+    int start = output.position();
+    output.put(start, (byte) contentType.getValue());
+    output.put(start + 1, (byte) session.version.major());
+    output.put(start + 2, (byte) session.version.minor());
+    output.put(start + 3, (byte) (fragmentLength >>> 8));
+    output.put(start + 4, (byte) fragmentLength);
+    output.position(start + 5);
+
+    System.arraycopy(iv, 0, nonce, 0, iv.length);
+    for (int i = 0; i < 8; i++)
+      {
+        byte b = (byte) (sequence >>> (56 - 8 * i));
+        if (explicit > 0)
+          nonce[4 + i] = b;
+        else
+          nonce[4 + i] ^= b;
+        aad[i] = b;
+      }
+    if (explicit > 0)
+      output.put(nonce, 4, explicit);
+    aad[8] = (byte) contentType.getValue();
+    aad[9] = (byte) session.version.major();
+    aad[10] = (byte) session.version.minor();
+    aad[11] = (byte) (contentLength >>> 8);
+    aad[12] = (byte) contentLength;
+
+    try
+      {
+        cipher.init(Cipher.ENCRYPT_MODE, key, suite.aeadParameters(nonce));
+        cipher.updateAAD(aad);
+        copy(sources, offset, length, contentLength, output);
+        cipher.doFinal(EMPTY, output);
+      }
+    catch (ShortBufferException sbe)
+      {
+        throw sbe;
+      }
+    catch (GeneralSecurityException gse)
+      {
+        throw new SSLException(gse);
+      }
+
+    output.position(start + fragmentLength + 5);
+    sequence++;
+
+    result[1] = fragmentLength + 5;
+    return result;
+  }
+
+  /**
+   * Moves <code>count</code> bytes from the given buffers to the output,
+   * through the cipher if there is one.  The input buffers are advanced
+   * past the bytes taken, and their limits are left as they were.
+   */
+  private void copy (final ByteBuffer[] input, final int offset,
+                     final int length, final int count,
+                     final ByteBuffer output)
+    throws ShortBufferException
+  {
+    int written = 0;
+    for (int i = offset; i < offset + length && written < count; i++)
+      {
+        ByteBuffer fragment = input[i];
+        int lim = fragment.limit();
+        int l = Math.min(fragment.remaining(), count - written);
+        fragment.limit(fragment.position() + l);
+        if (cipher != null)
+          cipher.update(fragment, output);
+        else
+          output.put(fragment);
+        fragment.limit(lim);
+        written += l;
+      }
+  }
+
+  /**
+   * Compresses as much of the input as fits, uncompressed, within
+   * <code>limit</code> bytes less the 1K the deflater may add.  The number
+   * of bytes taken from the input is stored in the result.
+   */
+  private ByteBuffer[] deflate (final ByteBuffer[] input, final int offset,
+                                final int length, final int limit)
+  {
+    ByteBufferOutputStream deflated = new ByteBufferOutputStream();
+    byte[] inbuf = new byte[1024];
+    byte[] outbuf = new byte[1024];
+    int inLimit = Math.max(0, limit - 1024);
+    int consumed = 0;
+    for (int i = offset; i < offset + length && consumed < inLimit; i++)
+      {
+        ByteBuffer in = input[i];
+        while (in.hasRemaining() && consumed < inLimit)
           {
-            ByteBuffer fragment = fragments[i];
-            int l = Math.min(fragment.remaining(), toWrite - consumed);
-            fragment.limit(fragment.position() + l);
-            outfragment.put(fragment);
+            int l = Math.min(in.remaining(), inbuf.length);
+            l = Math.min(inLimit - consumed, l);
+            in.get(inbuf, 0, l);
             consumed += l;
+            deflater.setInput(inbuf, 0, l);
+            while (!deflater.needsInput())
+              deflated.write(outbuf, 0, deflater.deflate(outbuf));
           }
-        if (macValue != null)
-          outfragment.put(macValue);
       }
+    deflater.finish();
+    while (!deflater.finished())
+      deflated.write(outbuf, 0, deflater.deflate(outbuf));
+    deflater.reset();
+    result[0] = consumed;
+    return new ByteBuffer[] { deflated.buffer() };
+  }
 
-    // Advance the output buffer's position.
-    output.position(output.position() + outrecord.length() + 5);
-    sequence++;
-
-    return new int[] { consumed, fragmentLength + 5 };
+  /**
+   * Returns the first <code>length</code> bytes of a scratch buffer.
+   */
+  private static ByteBuffer scratch (final ByteBuffer buffer, final int length)
+  {
+    buffer.clear();
+    buffer.limit(length);
+    return buffer;
   }
 
   CipherSuite suite()
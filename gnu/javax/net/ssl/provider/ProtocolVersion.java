@@ -51,6 +51,7 @@ public final class ProtocolVersion
   public static final ProtocolVersion SSL_3 = new ProtocolVersion(3, 0);
   public static final ProtocolVersion TLS_1 = new ProtocolVersion(3, 1);
   public static final ProtocolVersion TLS_1_1 = new ProtocolVersion(3, 2);
+  public static final ProtocolVersion TLS_1_2 = new ProtocolVersion(3, 3);
 
   private final int major;
   private final int minor;
@@ -82,6 +83,8 @@ public final class ProtocolVersion
       return TLS_1;
     if (name.equalsIgnoreCase("TLSv1.1"))
       return TLS_1_1;
+    if (name.equalsIgnoreCase("TLSv1.2"))
+      return TLS_1_2;
     throw new IllegalArgumentException ("unknown protocol name: " + name);
   }
 
@@ -94,6 +97,7 @@ public final class ProtocolVersion
           case 0: return SSL_3;
           case 1: return TLS_1;
           case 2: return TLS_1_1;
+          case 3: return TLS_1_2;
           }
       }
     return new ProtocolVersion(major, minor);
@@ -192,6 +196,10 @@ public final class ProtocolVersion
       {
         return "TLSv1.1";
       }
+    else if (this == TLS_1_2)
+      {
+        return "TLSv1.2";
+      }
     else
       {
         return "Unsupported; major=" + major + " minor=" + minor;
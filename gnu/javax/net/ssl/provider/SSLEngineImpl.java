@@ -41,7 +41,6 @@ package gnu.javax.net.ssl.provider;
 import gnu.classpath.debug.Component;
 import gnu.classpath.debug.SystemLogger;
 
-import gnu.java.security.util.ByteBufferOutputStream;
 import gnu.javax.net.ssl.Session;
 import gnu.javax.net.ssl.SSLRecordHandler;
 
@@ -97,6 +96,18 @@ public final class SSLEngineImpl extends SSLEngine
    */
   private final ByteBuffer alertBuffer;
 
+  /**
+   * Scratch space for the records we make and read ourselves, so that
+   * wrap and unwrap do not allocate per call.  The single-element array
+   * passes a control message to the record layer; the handshake buffers
+   * are made when a handshake starts and dropped when it ends.
+   */
+  private final ByteBuffer alertOut;
+  private final ByteBuffer changeCipherSpecOut;
+  private final ByteBuffer[] systemMessage;
+  private ByteBuffer handshakeOut;
+  private ByteBuffer systemIn;
+
   private Mode mode;
 
   private enum Mode { SERVER, CLIENT }
@@ -130,6 +141,9 @@ public final class SSLEngineImpl extends SSLEngine
     createSessions = true;
     initialHandshakeDone = false;
     alertBuffer = ByteBuffer.wrap (new byte[2]);
+    alertOut = ByteBuffer.allocate(2);
+    changeCipherSpecOut = ByteBuffer.allocate(1);
+    systemMessage = new ByteBuffer[1];
     mode = null;
     lastAlert = null;
     handshakeStatus = SSLEngineResult.HandshakeStatus.NOT_HANDSHAKING;
@@ -137,6 +151,7 @@ public final class SSLEngineImpl extends SSLEngine
 
     // Set up default protocols and suites.
     enabledProtocols = new String[] {
+      ProtocolVersion.TLS_1_2.toString(),
       ProtocolVersion.TLS_1_1.toString(),
       ProtocolVersion.TLS_1.toString(),
       ProtocolVersion.SSL_3.toString()
@@ -147,6 +162,13 @@ public final class SSLEngineImpl extends SSLEngine
   static String[] defaultSuites()
   {
     return new String[] {
+      CipherSuite.TLS_DHE_RSA_WITH_AES_256_GCM_SHA384.toString(),
+      CipherSuite.TLS_DHE_RSA_WITH_AES_128_GCM_SHA256.toString(),
+      CipherSuite.TLS_DHE_RSA_WITH_CHACHA20_POLY1305_SHA256.toString(),
+      CipherSuite.TLS_DHE_DSS_WITH_AES_256_GCM_SHA384.toString(),
+      CipherSuite.TLS_DHE_DSS_WITH_AES_128_GCM_SHA256.toString(),
+      CipherSuite.TLS_RSA_WITH_AES_256_GCM_SHA384.toString(),
+      CipherSuite.TLS_RSA_WITH_AES_128_GCM_SHA256.toString(),
       CipherSuite.TLS_DHE_DSS_WITH_AES_256_CBC_SHA.toString(),
       CipherSuite.TLS_DHE_RSA_WITH_AES_256_CBC_SHA.toString(),
       CipherSuite.TLS_DH_DSS_WITH_AES_256_CBC_SHA.toString(),
@@ -351,7 +373,8 @@ public final class SSLEngineImpl extends SSLEngine
   {
     return new String[] { ProtocolVersion.SSL_3.toString(),
                           ProtocolVersion.TLS_1.toString(),
-                          ProtocolVersion.TLS_1_1.toString() };
+                          ProtocolVersion.TLS_1_1.toString(),
+                          ProtocolVersion.TLS_1_2.toString() };
   }
 
   @Override
@@ -472,7 +495,6 @@ public final class SSLEngineImpl extends SSLEngine
         throw new AlertException(lastAlert);
       }
 
-    ByteBufferOutputStream sysMsg = null;
     ByteBuffer msg = null;
 
     int produced = 0;
@@ -488,8 +510,14 @@ public final class SSLEngineImpl extends SSLEngine
               msg = record.fragment();
             else
               {
-                sysMsg = new ByteBufferOutputStream();
-                insec.decrypt(record, sysMsg);
+                if (systemIn == null
+                    || systemIn.capacity() < session.getPacketBufferSize())
+                  systemIn = ByteBuffer.allocate(session.getPacketBufferSize());
+                systemIn.clear();
+                systemMessage[0] = systemIn;
+                insec.decrypt(record, systemMessage, 0, 1);
+                systemMessage[0] = null;
+                msg = (ByteBuffer) systemIn.flip();
               }
           }
 
@@ -533,15 +561,6 @@ public final class SSLEngineImpl extends SSLEngine
 
     SSLEngineResult result = null;
 
-    // If we need to handle the output here, do it. Otherwise, the output
-    // has been stored in the supplied output buffers.
-    if (sysMsg != null)
-      {
-        if (Debug.DEBUG)
-          logger.logv(Component.SSL_RECORD_LAYER, "sysmessage {0}", sysMsg);
-        msg = sysMsg.buffer();
-      }
-
     if (type == ContentType.CHANGE_CIPHER_SPEC)
       {
         // We *may* get a partial message, even though the message is only
@@ -638,6 +657,8 @@ public final class SSLEngineImpl extends SSLEngine
           {
             handshake = null;
             handshakeStatus = HandshakeStatus.NOT_HANDSHAKING;
+            handshakeOut = null;
+            systemIn = null;
           }
       }
     else if (type == ContentType.APPLICATION_DATA)
@@ -688,7 +709,8 @@ public final class SSLEngineImpl extends SSLEngine
     if (lastAlert != null)
       {
         type = ContentType.ALERT;
-        sysMessage = ByteBuffer.allocate(2);
+        sysMessage = alertOut;
+        sysMessage.clear();
         Alert alert = new Alert(sysMessage);
         alert.setDescription(lastAlert.description());
         alert.setLevel(lastAlert.level());
@@ -698,7 +720,8 @@ public final class SSLEngineImpl extends SSLEngine
     else if (changeCipherSpec)
       {
         type = ContentType.CHANGE_CIPHER_SPEC;
-        sysMessage = ByteBuffer.allocate(1);
+        sysMessage = changeCipherSpecOut;
+        sysMessage.clear();
         sysMessage.put(0, (byte) 1);
       }
     else if (getHandshakeStatus() == SSLEngineResult.HandshakeStatus.NEED_WRAP)
@@ -712,7 +735,17 @@ public final class SSLEngineImpl extends SSLEngine
             sink.put((byte) ContentType.HANDSHAKE.getValue());
             sink.putShort((short) session.version.rawValue());
             sink.putShort((short) 0);
-            handshakeStatus = handshake.handleOutput(sink);
+            int limit = sink.limit();
+            sink.limit(Math.min(limit, sink.position()
+                                + OutputSecurityParameters.MAX_PLAINTEXT));
+            try
+              {
+                handshakeStatus = handshake.handleOutput(sink);
+              }
+            finally
+              {
+                sink.limit(limit);
+              }
             int produced = sink.position() - orig;
             sink.putShort(orig + 3, (short) (produced - 5));
             if (Debug.DEBUG)
@@ -732,8 +765,19 @@ public final class SSLEngineImpl extends SSLEngine
             return result;
           }
 
-        // Rough guideline; XXX.
-        sysMessage = ByteBuffer.allocate(sink.remaining() - 2048);
+        // Rough guideline; XXX.  A record holds at most MAX_PLAINTEXT
+        // bytes, and encrypt only takes one record's worth; the
+        // handshake keeps whatever doesn't fit for the next wrap.
+        int room = Math.min(sink.remaining() - 2048,
+                            OutputSecurityParameters.MAX_PLAINTEXT);
+        if (room <= 0)
+          return new SSLEngineResult(Status.BUFFER_OVERFLOW,
+                                     handshakeStatus, 0, 0);
+        if (handshakeOut == null || handshakeOut.capacity() < room)
+          handshakeOut = ByteBuffer.allocate
+            (Math.max(room, session.getPacketBufferSize()));
+        sysMessage = handshakeOut;
+        sysMessage.clear().limit(room);
         type = ContentType.HANDSHAKE;
         try
           {
@@ -762,8 +806,9 @@ public final class SSLEngineImpl extends SSLEngine
           {
             if (Debug.DEBUG)
               logger.logv(Component.SSL_RECORD_LAYER, "encrypt system message {0} to {1}", sysMessage, sink);
-            inout = outsec.encrypt(new ByteBuffer[] { sysMessage }, 0, 1,
-                                   type, sink);
+            systemMessage[0] = sysMessage;
+            inout = outsec.encrypt(systemMessage, 0, 1, type, sink);
+            systemMessage[0] = null;
             produced = inout[1];
           }
         else
@@ -797,10 +842,9 @@ public final class SSLEngineImpl extends SSLEngine
       }
     catch (ShortBufferException sbe)
       {
-        // We don't expect this to happen, except for bugs; signal an
-        // internal error.
-        lastAlert = new Alert(Alert.Level.FATAL, Alert.Description.INTERNAL_ERROR);
-        return new SSLEngineResult(SSLEngineResult.Status.OK, handshakeStatus, 0, 0);
+        // The sink is too small for even a short record.
+        return new SSLEngineResult(SSLEngineResult.Status.BUFFER_OVERFLOW,
+                                   handshakeStatus, 0, 0);
       }
     catch (IllegalBlockSizeException ibse)
       {
@@ -836,6 +880,8 @@ public final class SSLEngineImpl extends SSLEngine
       {
         handshake = null; // done with it.
         handshakeStatus = HandshakeStatus.NOT_HANDSHAKING;
+        handshakeOut = null;
+        systemIn = null;
       }
     return result;
   }
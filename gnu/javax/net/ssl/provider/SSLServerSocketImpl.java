@@ -64,7 +64,8 @@ public class SSLServerSocketImpl extends SSLServerSocket
     enabledCipherSuites = SSLEngineImpl.defaultSuites();
     enabledProtocols = new String[] { ProtocolVersion.SSL_3.toString(),
                                       ProtocolVersion.TLS_1.toString(),
-                                      ProtocolVersion.TLS_1_1.toString() };
+                                      ProtocolVersion.TLS_1_1.toString(),
+                                      ProtocolVersion.TLS_1_2.toString() };
     needClientAuth = false;
     wantClientAuth = false;
     clientMode = false;
@@ -117,7 +118,8 @@ public class SSLServerSocketImpl extends SSLServerSocket
   {
     return new String[] { ProtocolVersion.SSL_3.toString(),
                           ProtocolVersion.TLS_1.toString(),
-                          ProtocolVersion.TLS_1_1.toString() };
+                          ProtocolVersion.TLS_1_1.toString(),
+                          ProtocolVersion.TLS_1_2.toString() };
   }
 
   /* (non-Javadoc)
@@ -149,6 +149,7 @@ class ServerHandshake extends AbstractHandshake
   private CertVerifier certVerifier;
   private CertLoader certLoader;
   private DelegatedTask keyExchangeTask;
+  private SignatureAndHashAlgorithmList clientSignatureAlgorithms = null;
 
   ServerHandshake (boolean writeHelloRequest, final SSLEngineImpl engine)
     throws NoSuchAlgorithmException
@@ -237,6 +238,9 @@ class ServerHandshake extends AbstractHandshake
           continue;
         if (!kexes.contains(suite.keyExchangeAlgorithm()))
           continue;
+        // Authenticated ciphers came with TLS 1.2.
+        if (suite.isAEAD() && version.compareTo(ProtocolVersion.TLS_1_2) < 0)
+          continue;
         suites.add(suite);
       }
     for (CipherSuite suite : clientSuites)
@@ -376,6 +380,11 @@ class ServerHandshake extends AbstractHandshake
                       engine.session().putValue("gnu.javax.net.ssl.RequestedServerNames", names);
                       break;
 
+                    case SIGNATURE_ALGORITHMS:
+                      clientSignatureAlgorithms
+                        = (SignatureAndHashAlgorithmList) e.value();
+                      break;
+
                     default:
                       logger.log(Level.INFO, "skipping unsupported extension {0}", e);
                     }
@@ -599,7 +608,7 @@ class ServerHandshake extends AbstractHandshake
             CertificateVerify verify = (CertificateVerify) handshake.body();
             try
               {
-                verifyClient(verify.signature());
+                verifyClient(verify);
                 if (certVerifier != null && certVerifier.verified())
                   engine.session().setPeerVerified(true);
               }
@@ -1013,7 +1022,8 @@ output_loop:
               if (paramBuffer != null)
                 {
                   ServerKeyExchangeBuilder ske
-                    = new ServerKeyExchangeBuilder(engine.session().suite);
+                    = new ServerKeyExchangeBuilder(engine.session().suite,
+                                                   engine.session().version);
                   ske.setParams(paramBuffer);
                   if (sigBuffer != null)
                     ske.setSignature(sigBuffer);
@@ -1047,7 +1057,8 @@ output_loop:
             // server hello.
             case WRITE_CERTIFICATE_REQUEST:
             {
-              CertificateRequestBuilder req = new CertificateRequestBuilder();
+              CertificateRequestBuilder req
+                = new CertificateRequestBuilder(engine.session().version);
 
               List<ClientCertificateType> types
                 = new ArrayList<ClientCertificateType>(4);
@@ -1056,6 +1067,9 @@ output_loop:
               types.add(ClientCertificateType.DSS_SIGN);
               types.add(ClientCertificateType.DSS_FIXED_DH);
               req.setTypes(types);
+              if (req.hasSignatureAlgorithms())
+                req.setSignatureAlgorithms
+                  (new SignatureAndHashAlgorithmList(SIGNATURE_ALGORITHMS));
 
               X509Certificate[] anchors
                 = engine.contextImpl.trustManager.getAcceptedIssuers();
@@ -1189,8 +1203,7 @@ output_loop:
   @Override void handleV2Hello(ByteBuffer hello)
   {
     int len = hello.getShort(0) & 0x7FFF;
-    md5.update((ByteBuffer) hello.duplicate().position(2).limit(len+2));
-    sha.update((ByteBuffer) hello.duplicate().position(2).limit(len+2));
+    hashMessages((ByteBuffer) hello.duplicate().position(2).limit(len+2));
     helloV2 = true;
   }
 
@@ -1198,8 +1211,15 @@ output_loop:
     throws NoSuchAlgorithmException, InvalidKeyException, SignatureException
   {
     SignatureAlgorithm alg = engine.session().suite.signatureAlgorithm();
-    java.security.Signature sig
-      = java.security.Signature.getInstance(alg.algorithm());
+    HashAlgorithm hash = null;
+    java.security.Signature sig;
+    if (engine.session().version.compareTo(ProtocolVersion.TLS_1_2) >= 0)
+      {
+        hash = chooseHash(clientSignatureAlgorithms, alg);
+        sig = java.security.Signature.getInstance(alg.algorithm(hash));
+      }
+    else
+      sig = java.security.Signature.getInstance(alg.algorithm());
     PrivateKey key = engine.contextImpl.keyManager.getPrivateKey(keyAlias);
     if (Debug.DEBUG_KEY_EXCHANGE)
       logger.logv(Component.SSL_HANDSHAKE, "server key: {0}", key);
@@ -1208,12 +1228,41 @@ output_loop:
     sig.update(serverRandom.buffer());
     sig.update(serverParams);
     byte[] sigVal = sig.sign();
-    Signature signature = new Signature(sigVal, engine.session().suite.signatureAlgorithm());
+    Signature signature = new Signature(sigVal, alg, hash);
     return signature.buffer();
   }
 
-  private void verifyClient(byte[] sigValue) throws SSLException, SignatureException
+  private void verifyClient(Signature signature)
+    throws SSLException, SignatureException
   {
+    byte[] sigValue = signature.signature();
+    if (engine.session().version.compareTo(ProtocolVersion.TLS_1_2) >= 0)
+      {
+        // TLS 1.2 signs the messages themselves, with the hash the client
+        // names.
+        try
+          {
+            java.security.Signature sig = java.security.Signature.getInstance
+              (signature.signatureAlgorithm().algorithm(signature.hashAlgorithm()));
+            sig.initVerify(clientCert);
+            sig.update(handshakeMessages.toByteArray());
+            if (!sig.verify(sigValue))
+              throw new SignatureException("client signature did not verify");
+          }
+        catch (IllegalArgumentException iae)
+          {
+            throw new SignatureException(iae.getMessage());
+          }
+        catch (InvalidKeyException ike)
+          {
+            throw new SSLException(ike);
+          }
+        catch (NoSuchAlgorithmException nsae)
+          {
+            throw new SSLException(nsae);
+          }
+        return;
+      }
     MessageDigest md5copy = null;
     MessageDigest shacopy = null;
     try
@@ -70,12 +70,20 @@ public class ServerKeyExchange implements Handshake.Body
 
   protected ByteBuffer buffer;
   protected final CipherSuite suite;
+  protected final ProtocolVersion version;
 
   public ServerKeyExchange(final ByteBuffer buffer, final CipherSuite suite)
+  {
+    this(buffer, suite, null);
+  }
+
+  public ServerKeyExchange(final ByteBuffer buffer, final CipherSuite suite,
+                           final ProtocolVersion version)
   {
     suite.getClass();
     this.buffer = buffer.duplicate().order(ByteOrder.BIG_ENDIAN);
     this.suite = suite;
+    this.version = version;
   }
 
   public int length ()
@@ -136,7 +144,7 @@ public class ServerKeyExchange implements Handshake.Body
       return null;
     ServerKeyExchangeParams params = params();
     ByteBuffer sigbuf = ((ByteBuffer) buffer.position(params.length ())).slice ();
-    return new Signature (sigbuf, suite.signatureAlgorithm ());
+    return new Signature (sigbuf, suite.signatureAlgorithm (), version);
   }
 
   public String toString()
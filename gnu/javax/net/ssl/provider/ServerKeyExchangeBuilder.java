@@ -50,7 +50,13 @@ public class ServerKeyExchangeBuilder extends ServerKeyExchange
 {
   public ServerKeyExchangeBuilder(final CipherSuite suite)
   {
-    super(ByteBuffer.allocate(1024), suite);
+    this(suite, null);
+  }
+
+  public ServerKeyExchangeBuilder(final CipherSuite suite,
+                                  final ProtocolVersion version)
+  {
+    super(ByteBuffer.allocate(1024), suite, version);
   }
 
   /* (non-Javadoc)
@@ -63,6 +63,15 @@ case dsa:
     opaque sha_hash[20];
   };
 } Signature;</pre>
+ *
+ * <p>From TLS 1.2 on the signature is made over the whole content rather
+ * than over fixed hashes, and begins with the algorithms used:
+ *
+ * <pre>
+struct {
+  SignatureAndHashAlgorithm algorithm;
+  opaque signature&lt;0..2^16-1&gt;;
+} DigitallySigned;</pre>
  */
 public class Signature implements Builder, Constructed
 {
@@ -73,18 +82,59 @@ public class Signature implements Builder, Constructed
   private final ByteBuffer buffer;
   private final SignatureAlgorithm alg;
 
+  /**
+   * The length of the algorithm prefix, which is two in TLS 1.2 and
+   * later, and zero before.
+   */
+  private final int offset;
+
   // Constructor.
   // -------------------------------------------------------------------------
 
   public Signature (final ByteBuffer buffer, final SignatureAlgorithm alg)
+  {
+    this (buffer, alg, null);
+  }
+
+  /**
+   * Reads a signature sent with the given protocol version.  In TLS 1.2
+   * the signature algorithm is taken from the message.
+   */
+  public Signature (final ByteBuffer buffer, final SignatureAlgorithm alg,
+                    final ProtocolVersion version)
   {
     this.buffer = buffer;
-    this.alg = alg;
+    if (version != null && version.compareTo(ProtocolVersion.TLS_1_2) >= 0)
+      {
+        offset = 2;
+        this.alg = SignatureAlgorithm.forValue(buffer.get(1) & 0xFF);
+      }
+    else
+      {
+        offset = 0;
+        this.alg = alg;
+      }
   }
 
   public Signature (final byte[] sigValue, final SignatureAlgorithm alg)
   {
-    buffer = ByteBuffer.allocate(sigValue.length + 2);
+    this (sigValue, alg, null);
+  }
+
+  /**
+   * Creates a signature made over the given hash, as in TLS 1.2, or in
+   * the format of earlier versions if <code>hash</code> is null.
+   */
+  public Signature (final byte[] sigValue, final SignatureAlgorithm alg,
+                    final HashAlgorithm hash)
+  {
+    offset = (hash != null) ? 2 : 0;
+    buffer = ByteBuffer.allocate(sigValue.length + offset + 2);
+    if (hash != null)
+      {
+        buffer.put((byte) hash.getValue());
+        buffer.put((byte) alg.getValue());
+      }
     buffer.putShort((short) sigValue.length);
     buffer.put(sigValue);
     buffer.position(0);
@@ -98,7 +148,26 @@ public class Signature implements Builder, Constructed
   {
     if (alg.equals (SignatureAlgorithm.ANONYMOUS))
       return 0;
-    return (buffer.getShort (0) & 0xFFFF) + 2;
+    return (buffer.getShort (offset) & 0xFFFF) + offset + 2;
+  }
+
+  /**
+   * Returns the signature algorithm.
+   */
+  public SignatureAlgorithm signatureAlgorithm ()
+  {
+    return alg;
+  }
+
+  /**
+   * Returns the hash the signature was made over, or null before TLS 1.2,
+   * where the hashes are fixed.
+   */
+  public HashAlgorithm hashAlgorithm ()
+  {
+    if (offset == 0)
+      return null;
+    return HashAlgorithm.forValue (buffer.get (0) & 0xFF);
   }
 
   public ByteBuffer buffer()
@@ -110,9 +179,9 @@ public class Signature implements Builder, Constructed
   {
     if (alg.equals (SignatureAlgorithm.ANONYMOUS))
       return new byte[0];
-    int length = buffer.getShort (0) & 0xFFFF;
+    int length = buffer.getShort (offset) & 0xFFFF;
     byte[] buf = new byte[length];
-    ((ByteBuffer) buffer.duplicate().position(2)).get(buf);
+    ((ByteBuffer) buffer.duplicate().position(offset + 2)).get(buf);
     return buf;
   }
 
@@ -125,8 +194,8 @@ public class Signature implements Builder, Constructed
   {
     if (alg.equals (SignatureAlgorithm.ANONYMOUS))
       return;
-    buffer.putShort (0, (short) length);
-    buffer.position (2);
+    buffer.putShort (offset, (short) length);
+    buffer.position (offset + 2);
     buffer.put (signature, offset, length);
   }
 
@@ -59,4 +59,38 @@ public enum SignatureAlgorithm
       }
     return null;
   }
+
+  /**
+   * Returns the JCA name of this signature algorithm made over the
+   * given hash, as TLS 1.2 signs.
+   *
+   * @param hash The hash algorithm.
+   * @return The algorithm name, such as <code>SHA256withRSA</code>.
+   */
+  public String algorithm(HashAlgorithm hash)
+  {
+    if (this == ANONYMOUS)
+      return null;
+    return hash.name() + "with" + name();
+  }
+
+  /**
+   * Returns the value of this algorithm in the TLS 1.2
+   * <code>SignatureAndHashAlgorithm</code> structure.
+   */
+  public int getValue()
+  {
+    return ordinal();
+  }
+
+  public static SignatureAlgorithm forValue(final int value)
+  {
+    switch (value)
+      {
+        case 0: return ANONYMOUS;
+        case 1: return RSA;
+        case 2: return DSA;
+        default: throw new IllegalArgumentException("unknown signature algorithm: " + value);
+      }
+  }
 }
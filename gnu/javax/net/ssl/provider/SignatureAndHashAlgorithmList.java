@@ -0,0 +1,142 @@
+/* SignatureAndHashAlgorithmList.java -- TLS 1.2 signature algorithm lists.
+   Copyright (C) 2026  Free Software Foundation, Inc.
+
+This file is a part of GNU Classpath.
+
+GNU Classpath is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; either version 2 of the License, or (at
+your option) any later version.
+
+GNU Classpath is distributed in the hope that it will be useful, but
+WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with GNU Classpath; if not, write to the Free Software
+Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301
+USA
+
+Linking this library statically or dynamically with other modules is
+making a combined work based on this library.  Thus, the terms and
+conditions of the GNU General Public License cover the whole
+combination.
+
+As a special exception, the copyright holders of this library give you
+permission to link this library with independent modules to produce an
+executable, regardless of the license terms of these independent
+modules, and to copy and distribute the resulting executable under
+terms of your choice, provided that you also meet, for each linked
+independent module, the terms and conditions of the license of that
+module.  An independent module is a module which is not derived from
+or based on this library.  If you modify this library, you may extend
+this exception to your version of the library, but you are not
+obligated to do so.  If you do not wish to do so, delete this
+exception statement from your version.  */
+
+
+package gnu.javax.net.ssl.provider;
+
+import gnu.javax.net.ssl.provider.Extension.Value;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * A list of the signature and hash algorithm pairs a peer accepts, sent
+ * in the TLS 1.2 <code>signature_algorithms</code> hello extension and
+ * in the certificate request.
+ *
+ * <pre>
+struct {
+  HashAlgorithm hash;
+  SignatureAlgorithm signature;
+} SignatureAndHashAlgorithm;
+
+SignatureAndHashAlgorithm
+  supported_signature_algorithms&lt;2..2^16-2&gt;;</pre>
+ */
+public class SignatureAndHashAlgorithmList extends Value
+{
+  private final ByteBuffer buffer;
+
+  public SignatureAndHashAlgorithmList(final ByteBuffer buffer)
+  {
+    this.buffer = buffer.duplicate().order(ByteOrder.BIG_ENDIAN);
+  }
+
+  /**
+   * Creates a list of the given pairs, each of them a hash value
+   * followed by a signature value.
+   */
+  public SignatureAndHashAlgorithmList(final byte[] pairs)
+  {
+    buffer = ByteBuffer.allocate(pairs.length + 2);
+    buffer.putShort(0, (short) pairs.length);
+    ((ByteBuffer) buffer.duplicate().position(2)).put(pairs);
+  }
+
+  public int length()
+  {
+    return (buffer.getShort(0) & 0xFFFF) + 2;
+  }
+
+  public ByteBuffer buffer()
+  {
+    return (ByteBuffer) buffer.duplicate().position(0).limit(length());
+  }
+
+  public int size()
+  {
+    return (buffer.getShort(0) & 0xFFFF) >>> 1;
+  }
+
+  /**
+   * Tells whether this list has the given pair.
+   */
+  public boolean contains(final HashAlgorithm hash,
+                          final SignatureAlgorithm signature)
+  {
+    int n = size();
+    for (int i = 0; i < n; i++)
+      if ((buffer.get(2 + 2 * i) & 0xFF) == hash.getValue()
+          && (buffer.get(3 + 2 * i) & 0xFF) == signature.getValue())
+        return true;
+    return false;
+  }
+
+  public String toString()
+  {
+    return toString(null);
+  }
+
+  public String toString(final String prefix)
+  {
+    StringWriter str = new StringWriter();
+    PrintWriter out = new PrintWriter(str);
+    if (prefix != null) out.print(prefix);
+    out.print("[");
+    out.print(size());
+    out.println("] {");
+    int n = size();
+    for (int i = 0; i < n; i++)
+      {
+        if (prefix != null) out.print(prefix);
+        out.print("  { ");
+        out.print(buffer.get(2 + 2 * i) & 0xFF);
+        out.print(", ");
+        out.print(buffer.get(3 + 2 * i) & 0xFF);
+        out.print(" }");
+        if (i < n - 1)
+          out.print(",");
+        out.println();
+      }
+    if (prefix != null) out.print(prefix);
+    out.print("};");
+    return str.toString();
+  }
+}
@@ -81,6 +81,21 @@ class TLSRandom implements IRandom
     init = false;
   }
 
+  /**
+   * Creates the PRF of TLS 1.2, which is P_hash alone for the hash of the
+   * cipher suite, instead of P_MD5 and P_SHA-1 together.
+   *
+   * @param hash The name of the hash, such as "SHA-256".
+   */
+  TLSRandom(String hash)
+  {
+    hmac_sha = new TLSHMac(HashFactory.getInstance(hash));
+    hmac_md5 = null;
+    buffer = new byte[hmac_sha.macSize()];
+    idx = 0;
+    init = false;
+  }
+
   // Instance methods.
   // -------------------------------------------------------------------------
 
@@ -101,7 +116,19 @@ class TLSRandom implements IRandom
     HashMap sha_attr = new HashMap();
     HashMap md5_attr = new HashMap();
     byte[] secret = (byte[]) attributes.get(SECRET);
-    if (secret != null)
+    if (secret != null && hmac_md5 == null)
+      {
+        sha_attr.put(IMac.MAC_KEY_MATERIAL, secret);
+        try
+          {
+            hmac_sha.init(sha_attr);
+          }
+        catch (InvalidKeyException ike)
+          {
+            throw new Error(ike.toString());
+          }
+      }
+    else if (secret != null)
       {
         int l = (secret.length >>> 1) + (secret.length & 1);
         byte[] s1 = Util.trim(secret, 0, l);
@@ -136,9 +163,12 @@ class TLSRandom implements IRandom
     // else re-use
 
     // A(0) is the seed, A(1) = HMAC_hash(secret, A(0)).
-    hmac_md5.update(seed, 0, seed.length);
-    md5_a = hmac_md5.digest();
-    hmac_md5.reset();
+    if (hmac_md5 != null)
+      {
+        hmac_md5.update(seed, 0, seed.length);
+        md5_a = hmac_md5.digest();
+        hmac_md5.reset();
+      }
     hmac_sha.update(seed, 0, seed.length);
     sha_a = hmac_sha.digest();
     hmac_sha.reset();
@@ -216,10 +246,24 @@ class TLSRandom implements IRandom
    *   A(i) = HMAC_hash(secret, A(i-1))
    *
    * For simplicity, we compute an 80-byte block on each call, which
-   * corresponds to five iterations of MD5, and four of SHA-1.
+   * corresponds to five iterations of MD5, and four of SHA-1.  The TLS 1.2
+   * PRF is P_hash alone, of which we compute one iteration at a time.
    */
   private synchronized void fillBuffer()
   {
+    if (hmac_md5 == null)
+      {
+        hmac_sha.update(sha_a, 0, sha_a.length);
+        hmac_sha.update(seed, 0, seed.length);
+        byte[] b = hmac_sha.digest();
+        hmac_sha.reset();
+        System.arraycopy(b, 0, buffer, 0, buffer.length);
+        hmac_sha.update(sha_a, 0, sha_a.length);
+        sha_a = hmac_sha.digest();
+        hmac_sha.reset();
+        idx = 0;
+        return;
+      }
     int len = hmac_md5.macSize();
     for (int i = 0; i < buffer.length; i += len)
       {
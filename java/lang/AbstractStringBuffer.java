@@ -1028,6 +1028,14 @@ abstract class AbstractStringBuffer
   {
     int len = other.count;
     int index = other.offset;
+    if (other.value == null)
+      {
+        byte[] b = other.latin1;
+        while (--len >= 0)
+          if (value[toffset++] != (char) (b[index++] & 0xff))
+            return false;
+        return true;
+      }
     while (--len >= 0)
       if (value[toffset++] != other.value[index++])
         return false;
@@ -39,6 +39,7 @@ exception statement from your version. */
 
 package java.lang;
 
+import gnu.java.lang.BoxCache;
 import gnu.java.lang.CharData;
 
 import java.io.Serializable;
@@ -1918,7 +1919,8 @@ public final class Character implements Serializable, Comparable<Character>
 
   // This caches some Character values, and is used by boxing
   // conversions via valueOf().  We must cache at least 0..127;
-  // this constant controls how much we actually cache.
+  // this constant controls how much we always cache.  Cache holds
+  // the values above that which the user asked for.
   private static final int MAX_CACHE = 127;
   private static final Character[] charCache = new Character[MAX_CACHE + 1];
   static
@@ -1927,6 +1929,25 @@ public final class Character implements Serializable, Comparable<Character>
        charCache[i] = new Character(i);
   }
 
+  /**
+   * Caches the Characters above MAX_CACHE, up to the bound given by the
+   * gnu.java.lang.Character.cache.high system property (see
+   * {@link BoxCache}).  It is set up the first time such a value is
+   * boxed, so Character itself does not need the system properties.
+   */
+  private static final class Cache
+  {
+    static final BoxCache<Character> cache
+      = new BoxCache<Character>("Character", MAX_CACHE + 1, MAX_VALUE);
+    static final int high = cache.getHigh();
+    static
+    {
+      if (! cache.isLazy())
+        for (int i = MAX_CACHE + 1; i <= high; i++)
+          cache.put(i, new Character((char) i));
+    }
+  }
+
   /**
    * Lu = Letter, Uppercase (Informative).
    *
@@ -3996,10 +4017,12 @@ public final class Character implements Serializable, Comparable<Character>
    */
   public static Character valueOf(char val)
   {
-    if (val > MAX_CACHE)
-      return new Character(val);
-    else
+    if (val <= MAX_CACHE)
       return charCache[val - MIN_VALUE];
+    if (val > Cache.high)
+      return new Character(val);
+    Character result = Cache.cache.get(val);
+    return result != null ? result : Cache.cache.put(val, new Character(val));
   }
 
   /**
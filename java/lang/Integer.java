@@ -39,6 +39,8 @@ exception statement from your version. */
 
 package java.lang;
 
+import gnu.java.lang.BoxCache;
+
 /**
  * Instances of class <code>Integer</code> represent primitive
  * <code>int</code> values.
@@ -90,7 +92,8 @@ public final class Integer extends Number implements Comparable<Integer>
 
   // This caches some Integer values, and is used by boxing
   // conversions via valueOf().  We must cache at least -128..127;
-  // these constants control how much we actually cache.
+  // these constants control how much we always cache.  Cache holds
+  // the values above that which the user asked for.
   private static final int MIN_CACHE = -128;
   private static final int MAX_CACHE = 127;
   private static final Integer[] intCache = new Integer[MAX_CACHE - MIN_CACHE + 1];
@@ -100,6 +103,25 @@ public final class Integer extends Number implements Comparable<Integer>
       intCache[i - MIN_CACHE] = new Integer(i);
   }
 
+  /**
+   * Caches the Integers above MAX_CACHE, up to the bound given by the
+   * gnu.java.lang.Integer.cache.high system property (see
+   * {@link BoxCache}).  It is set up the first time such a value is
+   * boxed, so Integer itself does not need the system properties.
+   */
+  private static final class Cache
+  {
+    static final BoxCache<Integer> cache
+      = new BoxCache<Integer>("Integer", MAX_CACHE + 1, Integer.MAX_VALUE);
+    static final int high = cache.getHigh();
+    static
+    {
+      if (! cache.isLazy())
+        for (int i = MAX_CACHE + 1; i <= high; i++)
+          cache.put(i, new Integer(i));
+    }
+  }
+
   /**
    * The immutable value of this Integer.
    *
@@ -367,10 +389,12 @@ public final class Integer extends Number implements Comparable<Integer>
    */
   public static Integer valueOf(int val)
   {
-    if (val < MIN_CACHE || val > MAX_CACHE)
-      return new Integer(val);
-    else
+    if (val >= MIN_CACHE && val <= MAX_CACHE)
       return intCache[val - MIN_CACHE];
+    if (val < MIN_CACHE || val > Cache.high)
+      return new Integer(val);
+    Integer result = Cache.cache.get(val);
+    return result != null ? result : Cache.cache.put(val, new Integer(val));
   }
 
   /**
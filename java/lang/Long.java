@@ -39,6 +39,8 @@ exception statement from your version. */
 
 package java.lang;
 
+import gnu.java.lang.BoxCache;
+
 /**
  * Instances of class <code>Long</code> represent primitive
  * <code>long</code> values.
@@ -90,7 +92,8 @@ public final class Long extends Number implements Comparable<Long>
 
   // This caches some Long values, and is used by boxing
   // conversions via valueOf().  We cache at least -128..127;
-  // these constants control how much we actually cache.
+  // these constants control how much we always cache.  Cache holds
+  // the values above that which the user asked for.
   private static final int MIN_CACHE = -128;
   private static final int MAX_CACHE = 127;
   private static final Long[] longCache = new Long[MAX_CACHE - MIN_CACHE + 1];
@@ -100,6 +103,25 @@ public final class Long extends Number implements Comparable<Long>
       longCache[i - MIN_CACHE] = new Long(i);
   }
 
+  /**
+   * Caches the Longs above MAX_CACHE, up to the bound given by the
+   * gnu.java.lang.Long.cache.high system property (see
+   * {@link BoxCache}).  It is set up the first time such a value is
+   * boxed, so Long itself does not need the system properties.
+   */
+  private static final class Cache
+  {
+    static final BoxCache<Long> cache
+      = new BoxCache<Long>("Long", MAX_CACHE + 1, Integer.MAX_VALUE);
+    static final int high = cache.getHigh();
+    static
+    {
+      if (! cache.isLazy())
+        for (int i = MAX_CACHE + 1; i <= high; i++)
+          cache.put(i, new Long(i));
+    }
+  }
+
   /**
    * The immutable value of this Long.
    *
@@ -365,10 +387,12 @@ public final class Long extends Number implements Comparable<Long>
    */
   public static Long valueOf(long val)
   {
-    if (val < MIN_CACHE || val > MAX_CACHE)
-      return new Long(val);
-    else
+    if (val >= MIN_CACHE && val <= MAX_CACHE)
       return longCache[((int)val) - MIN_CACHE];
+    if (val < MIN_CACHE || val > Cache.high)
+      return new Long(val);
+    Long result = Cache.cache.get((int) val);
+    return result != null ? result : Cache.cache.put((int) val, new Long(val));
   }
 
   /**
@@ -38,6 +38,8 @@ exception statement from your version. */
 
 package java.lang;
 
+import gnu.java.lang.BoxCache;
+
 /**
  * Instances of class <code>Short</code> represent primitive
  * <code>short</code> values.
@@ -86,7 +88,8 @@ public final class Short extends Number implements Comparable<Short>
 
   // This caches some Short values, and is used by boxing conversions
   // via valueOf().  We must cache at least -128..127; these constants
-  // control how much we actually cache.
+  // control how much we always cache.  Cache holds
+  // the values above that which the user asked for.
   private static final int MIN_CACHE = -128;
   private static final int MAX_CACHE = 127;
   private static Short[] shortCache = new Short[MAX_CACHE - MIN_CACHE + 1];
@@ -96,6 +99,25 @@ public final class Short extends Number implements Comparable<Short>
       shortCache[i - MIN_CACHE] = new Short(i);
   }
 
+  /**
+   * Caches the Shorts above MAX_CACHE, up to the bound given by the
+   * gnu.java.lang.Short.cache.high system property (see
+   * {@link BoxCache}).  It is set up the first time such a value is
+   * boxed, so Short itself does not need the system properties.
+   */
+  private static final class Cache
+  {
+    static final BoxCache<Short> cache
+      = new BoxCache<Short>("Short", MAX_CACHE + 1, Short.MAX_VALUE);
+    static final int high = cache.getHigh();
+    static
+    {
+      if (! cache.isLazy())
+        for (int i = MAX_CACHE + 1; i <= high; i++)
+          cache.put(i, new Short((short) i));
+    }
+  }
+
   /**
    * The immutable value of this Short.
    *
@@ -219,10 +241,12 @@ public final class Short extends Number implements Comparable<Short>
    */
   public static Short valueOf(short val)
   {
-    if (val < MIN_CACHE || val > MAX_CACHE)
-      return new Short(val);
-    else
+    if (val >= MIN_CACHE && val <= MAX_CACHE)
       return shortCache[val - MIN_CACHE];
+    if (val < MIN_CACHE || val > Cache.high)
+      return new Short(val);
+    Short result = Cache.cache.get(val);
+    return result != null ? result : Cache.cache.put(val, new Short(val));
   }
 
   /**
@@ -101,6 +101,15 @@ public final class String
    */
   private static final long serialVersionUID = -6849794470754667710L;
 
+  /**
+   * True if Strings whose characters are all below 256 are stored in
+   * {@link #latin1}, one byte per character.  The VM decides this, as it
+   * must cope with a null {@link #value} if it reads Strings natively.
+   * This is declared first so that it is set before any other String is
+   * created while this class is initialized; until then it is false.
+   */
+  private static final boolean COMPACT_STRINGS = VMString.compactStrings();
+
   /**
    * Stores unicode multi-character uppercase expansion table.
    * @see #toUpperCase(Locale)
@@ -118,14 +127,24 @@ public final class String
           = zeroBasedStringValue(CharData.UPPER_SPECIAL);
 
   /**
-   * Characters which make up the String.
+   * Characters which make up the String, or null if the String is stored
+   * in {@link #latin1}.
    * Package access is granted for use by StringBuffer.
    */
   final char[] value;
 
   /**
-   * Holds the number of characters in value.  This number is generally
-   * the same as value.length, but can be smaller because substrings and
+   * The low bytes of the characters which make up the String if they are
+   * all below 256 and {@link #COMPACT_STRINGS} is set, or null if the
+   * String is stored in {@link #value}.  Exactly one of the two is set.
+   * Package access is granted for use by StringBuffer.
+   */
+  final byte[] latin1;
+
+  /**
+   * Holds the number of characters in value or latin1.  This number is
+   * generally the same as the array length, but can be smaller because
+   * substrings and
    * StringBuffers can share arrays. Package visible for use by trusted code.
    */
   final int count;
@@ -137,7 +156,7 @@ public final class String
   private int cachedHashCode;
 
   /**
-   * Holds the starting position for characters in value[].  Since
+   * Holds the starting position for characters in value[] or latin1[].  Since
    * substring()'s are common, the use of offset allows the operation
    * to perform in O(1). Package access is granted for use by StringBuffer.
    */
@@ -197,6 +216,7 @@ public final class String
   public String()
   {
     value = "".value;
+    latin1 = "".latin1;
     offset = 0;
     count = 0;
   }
@@ -211,6 +231,7 @@ public final class String
   public String(String str)
   {
     value = str.value;
+    latin1 = str.latin1;
     offset = str.offset;
     count = str.count;
     cachedHashCode = str.cachedHashCode;
@@ -282,13 +303,23 @@ public final class String
     if (ascii.length - offset < count)
       throw new StringIndexOutOfBoundsException("offset + count: "
                                                 + (offset + count));
-    value = new char[count];
     this.offset = 0;
     this.count = count;
-    hibyte <<= 8;
-    offset += count;
-    while (--count >= 0)
-      value[count] = (char) (hibyte | (ascii[--offset] & 0xff));
+    hibyte = (hibyte & 0xff) << 8;
+    if (COMPACT_STRINGS && hibyte == 0)
+      {
+        value = null;
+        latin1 = new byte[count];
+        VMSystem.arraycopy(ascii, offset, latin1, 0, count);
+      }
+    else
+      {
+        value = new char[count];
+        latin1 = null;
+        offset += count;
+        while (--count >= 0)
+          value[count] = (char) (hibyte | (ascii[--offset] & 0xff));
+      }
   }
 
   /**
@@ -390,14 +421,29 @@ public final class String
    */
   public String(byte[] data, int offset, int count, Charset encoding)
   {
-    if (offset < 0)
-      throw new StringIndexOutOfBoundsException("offset: " + offset);
-    if (count < 0)
-      throw new StringIndexOutOfBoundsException("count: " + count);
-    // equivalent to: offset + count < 0 || offset + count > data.length
-    if (data.length - offset < count)
-      throw new StringIndexOutOfBoundsException("offset + count: "
-                                                + (offset + count));
+    this(decode(data, offset, count, encoding));
+  }
+
+  /**
+   * Decodes a part of a byte array.  ISO-8859-1, and US-ASCII or UTF-8
+   * input without bytes above 127, are copied straight into a compact
+   * String.
+   *
+   * @throws NullPointerException if data or encoding is null
+   * @throws StringIndexOutOfBoundsException if offset or count is incorrect
+   */
+  private static String decode(byte[] data, int offset, int count,
+                               Charset encoding)
+  {
+    checkBounds(data.length, offset, count);
+    if (COMPACT_STRINGS)
+      {
+        String name = encoding.name();
+        if (name.equals("ISO-8859-1")
+            || ((name.equals("UTF-8") || name.equals("US-ASCII"))
+                && isAscii(data, offset, count)))
+          return new String(data, offset, count, false);
+      }
     try
       {
         CharsetDecoder csd = encoding.newDecoder();
@@ -405,17 +451,12 @@ public final class String
         csd.onUnmappableCharacter(CodingErrorAction.REPLACE);
         CharBuffer cbuf = csd.decode(ByteBuffer.wrap(data, offset, count));
         if(cbuf.hasArray())
-          {
-            value = cbuf.array();
-            this.offset = cbuf.position();
-            this.count = cbuf.remaining();
-          } else {
-            // Doubt this will happen. But just in case.
-            value = new char[cbuf.remaining()];
-            cbuf.get(value);
-            this.offset = 0;
-            this.count = value.length;
-          }
+          return new String(cbuf.array(), cbuf.position(), cbuf.remaining(),
+                            true);
+        // Doubt this will happen. But just in case.
+        char[] v = new char[cbuf.remaining()];
+        cbuf.get(v);
+        return new String(v, 0, v.length, true);
       }
     catch(CharacterCodingException e)
       {
@@ -487,49 +528,31 @@ public final class String
    */
   public String(byte[] data, int offset, int count)
   {
-    if (offset < 0)
-      throw new StringIndexOutOfBoundsException("offset: " + offset);
-    if (count < 0)
-      throw new StringIndexOutOfBoundsException("count: " + count);
-    // equivalent to: offset + count < 0 || offset + count > data.length
-    if (data.length - offset < count)
-      throw new StringIndexOutOfBoundsException("offset + count: "
-                                                + (offset + count));
-    int o, c;
-    char[] v;
-    String encoding;
+    this(decodeDefault(data, offset, count));
+  }
+
+  /**
+   * Decodes a part of a byte array with the platform's default charset.
+   *
+   * @throws NullPointerException if data is null
+   * @throws StringIndexOutOfBoundsException if offset or count is incorrect
+   */
+  private static String decodeDefault(byte[] data, int offset, int count)
+  {
+    checkBounds(data.length, offset, count);
     try
         {
-          encoding = System.getProperty("file.encoding");
-          CharsetDecoder csd = Charset.forName(encoding).newDecoder();
-          csd.onMalformedInput(CodingErrorAction.REPLACE);
-          csd.onUnmappableCharacter(CodingErrorAction.REPLACE);
-          CharBuffer cbuf = csd.decode(ByteBuffer.wrap(data, offset, count));
-          if(cbuf.hasArray())
-            {
-              v = cbuf.array();
-              o = cbuf.position();
-              c = cbuf.remaining();
-            } else {
-              // Doubt this will happen. But just in case.
-              v = new char[cbuf.remaining()];
-              cbuf.get(v);
-              o = 0;
-              c = v.length;
-            }
+          String encoding = System.getProperty("file.encoding");
+          return decode(data, offset, count, Charset.forName(encoding));
         } catch(Exception ex){
             // If anything goes wrong (System property not set,
             // NIO provider not available, etc)
             // Default to the 'safe' encoding ISO8859_1
-            v = new char[count];
-            o = 0;
-            c = count;
+            char[] v = new char[count];
             for (int i=0;i<count;i++)
               v[i] = (char)data[offset+i];
+            return new String(v, 0, count, true);
         }
-    this.value = v;
-    this.offset = o;
-    this.count = c;
   }
 
   /**
@@ -565,16 +588,23 @@ public final class String
       {
         offset = 0;
         count = buffer.count;
+        if (COMPACT_STRINGS && canCompress(buffer.value, 0, count))
+          {
+            value = null;
+            latin1 = compress(buffer.value, 0, count);
+          }
         // Share unless buffer is 3/4 empty.
-        if ((count << 2) < buffer.value.length)
+        else if ((count << 2) < buffer.value.length)
           {
             value = new char[count];
+            latin1 = null;
             VMSystem.arraycopy(buffer.value, 0, value, 0, count);
           }
         else
           {
             buffer.shared = true;
             value = buffer.value;
+            latin1 = null;
           }
       }
   }
@@ -593,6 +623,8 @@ public final class String
 
   /**
    * Special constructor which can share an array when safe to do so.
+   * If the characters are all below 256 and compact Strings are enabled,
+   * they are copied into {@link #latin1} instead.
    *
    * @param data the characters to copy
    * @param offset the location to start from
@@ -603,28 +635,54 @@ public final class String
    */
   String(char[] data, int offset, int count, boolean dont_copy)
   {
-    if (offset < 0)
-      throw new StringIndexOutOfBoundsException("offset: " + offset);
-    if (count < 0)
-      throw new StringIndexOutOfBoundsException("count: " + count);
-    // equivalent to: offset + count < 0 || offset + count > data.length
-    if (data.length - offset < count)
-      throw new StringIndexOutOfBoundsException("offset + count: "
-                                                + (offset + count));
-    if (dont_copy)
+    checkBounds(data.length, offset, count);
+    if (COMPACT_STRINGS && canCompress(data, offset, count))
+      {
+        value = null;
+        latin1 = compress(data, offset, count);
+        this.offset = 0;
+      }
+    else if (dont_copy)
       {
         value = data;
+        latin1 = null;
         this.offset = offset;
       }
     else
       {
         value = new char[count];
+        latin1 = null;
         VMSystem.arraycopy(data, offset, value, 0, count);
         this.offset = 0;
       }
     this.count = count;
   }
 
+  /**
+   * Creates a compact String, sharing the array when safe to do so.
+   *
+   * @param data the low bytes of the characters
+   * @param offset the location to start from
+   * @param count the number of characters to use
+   * @param dont_copy true if the array is trusted, and need not be copied
+   */
+  private String(byte[] data, int offset, int count, boolean dont_copy)
+  {
+    value = null;
+    if (dont_copy)
+      {
+        latin1 = data;
+        this.offset = offset;
+      }
+    else
+      {
+        latin1 = new byte[count];
+        VMSystem.arraycopy(data, offset, latin1, 0, count);
+        this.offset = 0;
+      }
+    this.count = count;
+  }
+
   /**
    * Creates a new String containing the characters represented in the
    * given subarray of Unicode code points.
@@ -663,8 +721,17 @@ public final class String
         pos += Character.toChars(codePoints[i], temp, pos);
       }
     this.count = pos;
-    this.value = new char[pos];
-    System.arraycopy(temp, 0, value, 0, pos);
+    if (COMPACT_STRINGS && canCompress(temp, 0, pos))
+      {
+        this.value = null;
+        this.latin1 = compress(temp, 0, pos);
+      }
+    else
+      {
+        this.value = new char[pos];
+        this.latin1 = null;
+        System.arraycopy(temp, 0, value, 0, pos);
+      }
     this.offset = 0;
   }
 
@@ -690,7 +757,10 @@ public final class String
   {
     if (index < 0 || index >= count)
       throw new StringIndexOutOfBoundsException(index);
-    return value[offset + index];
+    char[] v = value;
+    if (v != null)
+      return v[offset + index];
+    return (char) (latin1[offset + index] & 0xff);
   }
 
   /**
@@ -750,8 +820,20 @@ public final class String
   {
     if (srcBegin < 0 || srcBegin > srcEnd || srcEnd > count)
       throw new StringIndexOutOfBoundsException();
-    VMSystem.arraycopy(value, srcBegin + offset,
-                     dst, dstBegin, srcEnd - srcBegin);
+    if (value != null)
+      VMSystem.arraycopy(value, srcBegin + offset,
+                         dst, dstBegin, srcEnd - srcBegin);
+    else
+      {
+        int len = srcEnd - srcBegin;
+        if (dstBegin < 0 || len > dst.length - dstBegin)
+          throw new ArrayIndexOutOfBoundsException();
+        byte[] b = latin1;
+        int i = srcBegin + offset;
+        int end = srcEnd + offset;
+        while (i < end)
+          dst[dstBegin++] = (char) (b[i++] & 0xff);
+      }
   }
 
   /**
@@ -778,8 +860,12 @@ public final class String
       throw new StringIndexOutOfBoundsException();
     int i = srcEnd - srcBegin;
     srcBegin += offset;
-    while (--i >= 0)
-      dst[dstBegin++] = (byte) value[srcBegin++];
+    if (value == null)
+      while (--i >= 0)
+        dst[dstBegin++] = latin1[srcBegin++];
+    else
+      while (--i >= 0)
+        dst[dstBegin++] = (byte) value[srcBegin++];
   }
 
   /**
@@ -817,13 +903,26 @@ public final class String
    */
   public byte[] getBytes(Charset enc)
   {
+    if (value == null)
+      {
+        byte[] bytes = encodeLatin1(enc.name());
+        if (bytes != null)
+          return bytes;
+      }
     try
       {
         CharsetEncoder cse = enc.newEncoder();
         cse.onMalformedInput(CodingErrorAction.REPLACE);
         cse.onUnmappableCharacter(CodingErrorAction.REPLACE);
-        ByteBuffer bbuf = cse.encode(CharBuffer.wrap(value, offset, count));
-        if(bbuf.hasArray())
+        CharBuffer cbuf;
+        if (value != null)
+          cbuf = CharBuffer.wrap(value, offset, count);
+        else
+          cbuf = CharBuffer.wrap(toCharArray());
+        ByteBuffer bbuf = cse.encode(cbuf);
+        // The encoder may hand back a buffer with room to spare.
+        if (bbuf.hasArray() && bbuf.arrayOffset() == 0
+            && bbuf.remaining() == bbuf.array().length)
           return bbuf.array();
 
         // Doubt this will happen. But just in case.
@@ -838,6 +937,58 @@ public final class String
       }
   }
 
+  /**
+   * Encodes a compact String without a CharsetEncoder if the charset is
+   * ISO-8859-1, UTF-8, or US-ASCII and all characters are below 128.
+   *
+   * @param enc the canonical name of the charset
+   * @return the bytes, or null if the charset is not handled here
+   */
+  private byte[] encodeLatin1(String enc)
+  {
+    byte[] b = latin1;
+    int end = offset + count;
+    if (enc.equals("ISO-8859-1"))
+      {
+        byte[] bytes = new byte[count];
+        VMSystem.arraycopy(b, offset, bytes, 0, count);
+        return bytes;
+      }
+    if (enc.equals("UTF-8"))
+      {
+        int len = count;
+        for (int i = offset; i < end; i++)
+          if (b[i] < 0)
+            len++;
+        byte[] bytes = new byte[len];
+        if (len == count)
+          {
+            VMSystem.arraycopy(b, offset, bytes, 0, count);
+            return bytes;
+          }
+        int j = 0;
+        for (int i = offset; i < end; i++)
+          {
+            int c = b[i] & 0xff;
+            if (c < 0x80)
+              bytes[j++] = (byte) c;
+            else
+              {
+                bytes[j++] = (byte) (0xc0 | (c >> 6));
+                bytes[j++] = (byte) (0x80 | (c & 0x3f));
+              }
+          }
+        return bytes;
+      }
+    if (enc.equals("US-ASCII") && isAscii(b, offset, count))
+      {
+        byte[] bytes = new byte[count];
+        VMSystem.arraycopy(b, offset, bytes, 0, count);
+        return bytes;
+      }
+    return null;
+  }
+
   /**
    * Converts the Unicode characters in this String to a byte array. Uses the
    * encoding of the platform's default charset, so the result may be longer
@@ -858,8 +1009,8 @@ public final class String
               // For now, default to the 'safe' encoding.
               byte[] bytes = new byte[count];
               for(int i=0;i<count;i++)
-                  bytes[i] = (byte)((value[offset+i] <= 0xFF)?
-                                    value[offset+i]:'?');
+                  bytes[i] = (byte)((at(offset+i) <= 0xFF)?
+                                    at(offset+i):'?');
               return bytes;
       }
   }
@@ -880,14 +1031,33 @@ public final class String
     String str2 = (String) anObject;
     if (count != str2.count)
       return false;
-    if (value == str2.value && offset == str2.offset)
+    if (value == str2.value && latin1 == str2.latin1 && offset == str2.offset)
       return true;
     int i = count;
     int x = offset;
     int y = str2.offset;
-    while (--i >= 0)
-      if (value[x++] != str2.value[y++])
-        return false;
+    if (value != null && str2.value != null)
+      {
+        char[] v1 = value;
+        char[] v2 = str2.value;
+        while (--i >= 0)
+          if (v1[x++] != v2[y++])
+            return false;
+      }
+    else if (value == null && str2.value == null)
+      {
+        byte[] b1 = latin1;
+        byte[] b2 = str2.latin1;
+        while (--i >= 0)
+          if (b1[x++] != b2[y++])
+            return false;
+      }
+    else
+      {
+        while (--i >= 0)
+          if (at(x++) != str2.at(y++))
+            return false;
+      }
     return true;
   }
 
@@ -911,7 +1081,7 @@ public final class String
         int i = count;
         int x = offset + count;
         while (--i >= 0)
-          if (value[--x] != buffer.value[i])
+          if (at(--x) != buffer.value[i])
             return false;
         return true;
       }
@@ -932,7 +1102,7 @@ public final class String
     if (seq.length() != count)
       return false;
     for (int i = 0; i < count; ++i)
-      if (value[offset + i] != seq.charAt(i))
+      if (at(offset + i) != seq.charAt(i))
         return false;
     return true;
   }
@@ -963,8 +1133,8 @@ public final class String
     int y = anotherString.offset;
     while (--i >= 0)
       {
-        char c1 = value[x++];
-        char c2 = anotherString.value[y++];
+        char c1 = at(x++);
+        char c2 = anotherString.at(y++);
         // Note that checking c1 != c2 is redundant, but avoids method calls.
         if (c1 != c2
             && Character.toUpperCase(c1) != Character.toUpperCase(c2)
@@ -993,11 +1163,36 @@ public final class String
     int i = Math.min(count, anotherString.count);
     int x = offset;
     int y = anotherString.offset;
-    while (--i >= 0)
+    if (value != null && anotherString.value != null)
       {
-        int result = value[x++] - anotherString.value[y++];
-        if (result != 0)
-          return result;
+        char[] v1 = value;
+        char[] v2 = anotherString.value;
+        while (--i >= 0)
+          {
+            int result = v1[x++] - v2[y++];
+            if (result != 0)
+              return result;
+          }
+      }
+    else if (value == null && anotherString.value == null)
+      {
+        byte[] b1 = latin1;
+        byte[] b2 = anotherString.latin1;
+        while (--i >= 0)
+          {
+            int result = (b1[x++] & 0xff) - (b2[y++] & 0xff);
+            if (result != 0)
+              return result;
+          }
+      }
+    else
+      {
+        while (--i >= 0)
+          {
+            int result = at(x++) - anotherString.at(y++);
+            if (result != 0)
+              return result;
+          }
       }
     return count - anotherString.count;
   }
@@ -1023,8 +1218,8 @@ public final class String
     int y = str.offset;
     while (--i >= 0)
       {
-        int result = Character.toLowerCase(Character.toUpperCase(value[x++]))
-          - Character.toLowerCase(Character.toUpperCase(str.value[y++]));
+        int result = Character.toLowerCase(Character.toUpperCase(at(x++)))
+          - Character.toLowerCase(Character.toUpperCase(str.at(y++)));
         if (result != 0)
           return result;
       }
@@ -1074,10 +1269,19 @@ public final class String
       return false;
     toffset += offset;
     ooffset += other.offset;
+    if (! ignoreCase && value == null && other.value == null)
+      {
+        byte[] b1 = latin1;
+        byte[] b2 = other.latin1;
+        while (--len >= 0)
+          if (b1[toffset++] != b2[ooffset++])
+            return false;
+        return true;
+      }
     while (--len >= 0)
       {
-        char c1 = value[toffset++];
-        char c2 = other.value[ooffset++];
+        char c1 = at(toffset++);
+        char c2 = other.at(ooffset++);
         // Note that checking c1 != c2 is redundant when ignoreCase is true,
         // but it avoids method calls.
         if (c1 != c2
@@ -1150,8 +1354,18 @@ public final class String
     // Compute the hash code using a local variable to be reentrant.
     int hashCode = 0;
     int limit = count + offset;
-    for (int i = offset; i < limit; i++)
-      hashCode = hashCode * 31 + value[i];
+    if (value != null)
+      {
+        char[] v = value;
+        for (int i = offset; i < limit; i++)
+          hashCode = hashCode * 31 + v[i];
+      }
+    else
+      {
+        byte[] b = latin1;
+        for (int i = offset; i < limit; i++)
+          hashCode = hashCode * 31 + (b[i] & 0xff);
+      }
     return cachedHashCode = hashCode;
   }
 
@@ -1183,6 +1397,17 @@ public final class String
     if (fromIndex < 0)
       fromIndex = 0;
     int i = fromIndex + offset;
+    if (value == null)
+      {
+        if (ch > 0xff)
+          return -1;
+        byte[] b = latin1;
+        byte c = (byte) ch;
+        for ( ; fromIndex < count; fromIndex++)
+          if (b[i++] == c)
+            return fromIndex;
+        return -1;
+      }
     for ( ; fromIndex < count; fromIndex++)
       if (value[i++] == ch)
         return fromIndex;
@@ -1217,6 +1442,17 @@ public final class String
     if (fromIndex >= count)
       fromIndex = count - 1;
     int i = fromIndex + offset;
+    if (value == null)
+      {
+        if (ch > 0xff)
+          return -1;
+        byte[] b = latin1;
+        byte c = (byte) ch;
+        for ( ; fromIndex >= 0; fromIndex--)
+          if (b[i--] == c)
+            return fromIndex;
+        return -1;
+      }
     for ( ; fromIndex >= 0; fromIndex--)
       if (value[i--] == ch)
         return fromIndex;
@@ -1322,6 +1558,9 @@ public final class String
       return this;
     int len = endIndex - beginIndex;
     // Package constructor avoids an array copy.
+    if (value == null)
+      return new String(latin1, beginIndex + offset, len,
+                        (len << 2) >= latin1.length);
     return new String(value, beginIndex + offset, len,
                       (len << 2) >= value.length);
   }
@@ -1357,9 +1596,16 @@ public final class String
       return this;
     if (count == 0)
       return str;
+    if (value == null && str.value == null)
+      {
+        byte[] newStr = new byte[count + str.count];
+        VMSystem.arraycopy(latin1, offset, newStr, 0, count);
+        VMSystem.arraycopy(str.latin1, str.offset, newStr, count, str.count);
+        return new String(newStr, 0, newStr.length, true);
+      }
     char[] newStr = new char[count + str.count];
-    VMSystem.arraycopy(value, offset, newStr, 0, count);
-    VMSystem.arraycopy(str.value, str.offset, newStr, count, str.count);
+    getChars(0, count, newStr, 0);
+    str.getChars(0, str.count, newStr, count);
     // Package constructor avoids an array copy.
     return new String(newStr, 0, newStr.length, true);
   }
@@ -1376,17 +1622,31 @@ public final class String
   {
     if (oldChar == newChar)
       return this;
+    if (value == null && newChar <= 0xff)
+      {
+        int x = indexOf(oldChar);
+        if (x < 0)
+          return this;
+        byte[] newStr = new byte[count];
+        VMSystem.arraycopy(latin1, offset, newStr, 0, count);
+        byte o = (byte) oldChar;
+        byte n = (byte) newChar;
+        for ( ; x < count; x++)
+          if (newStr[x] == o)
+            newStr[x] = n;
+        return new String(newStr, 0, count, true);
+      }
     int i = count;
     int x = offset - 1;
     while (--i >= 0)
-      if (value[++x] == oldChar)
+      if (at(++x) == oldChar)
         break;
     if (i < 0)
       return this;
     char[] newStr = toCharArray();
     newStr[x - offset] = newChar;
     while (--i >= 0)
-      if (value[++x] == oldChar)
+      if (at(++x) == oldChar)
         newStr[x - offset] = newChar;
     // Package constructor avoids an array copy.
     return new String(newStr, 0, count, true);
@@ -1521,7 +1781,7 @@ public final class String
     int x = offset - 1;
     while (--i >= 0)
       {
-        char ch = value[++x];
+        char ch = at(++x);
         if ((ch == '\u0049') || ch != Character.toLowerCase(ch))
           break;
       }
@@ -1531,10 +1791,10 @@ public final class String
     // Now we perform the conversion. Fortunately, there are no multi-character
     // lowercase expansions in Unicode 3.0.0.
     char[] newStr = new char[count];
-    VMSystem.arraycopy(value, offset, newStr, 0, x - offset);
+    getChars(0, x - offset, newStr, 0);
     do
       {
-        char ch = value[x];
+        char ch = at(x);
         // Hardcoded special case.
         if (ch != '\u0049')
           {
@@ -1577,7 +1837,7 @@ public final class String
         int x = offset - 1;
         while (--i >= 0)
           {
-            char ch = value[++x];
+            char ch = at(++x);
             if (ch != Character.toLowerCase(ch))
               break;
           }
@@ -1587,10 +1847,10 @@ public final class String
         // Now we perform the conversion. Fortunately, there are no
         // multi-character lowercase expansions in Unicode 3.0.0.
         char[] newStr = new char[count];
-        VMSystem.arraycopy(value, offset, newStr, 0, x - offset);
+        getChars(0, x - offset, newStr, 0);
         do
           {
-            char ch = value[x];
+            char ch = at(x);
             // Hardcoded special case.
             newStr[x - offset] = Character.toLowerCase(ch);
             x++;
@@ -1628,7 +1888,7 @@ public final class String
     int x = i + offset;
     while (--i >= 0)
       {
-        char ch = value[--x];
+        char ch = at(--x);
         expand += upperCaseExpansion(ch);
         unchanged = (unchanged && expand == 0
                      && ch != '\u0069'
@@ -1642,10 +1902,10 @@ public final class String
     if (expand == 0)
       {
         char[] newStr = new char[count];
-        VMSystem.arraycopy(value, offset, newStr, 0, count - (x - offset));
+        getChars(0, count - (x - offset), newStr, 0);
         while (--i >= 0)
           {
-            char ch = value[x];
+            char ch = at(x);
             // Hardcoded special case.
             if (ch != '\u0069')
               {
@@ -1666,7 +1926,7 @@ public final class String
     int j = 0;
     while (--i >= 0)
       {
-        char ch = value[x++];
+        char ch = at(x++);
         // Hardcoded special case.
         if (ch == '\u0069')
           {
@@ -1716,7 +1976,7 @@ public final class String
         int x = i + offset;
         while (--i >= 0)
           {
-            char ch = value[--x];
+            char ch = at(--x);
             expand += upperCaseExpansion(ch);
             unchanged = (unchanged && expand == 0
                          && ch == Character.toUpperCase(ch));
@@ -1729,10 +1989,10 @@ public final class String
         if (expand == 0)
           {
             char[] newStr = new char[count];
-            VMSystem.arraycopy(value, offset, newStr, 0, count - (x - offset));
+            getChars(0, count - (x - offset), newStr, 0);
             while (--i >= 0)
               {
-                char ch = value[x];
+                char ch = at(x);
                 newStr[x - offset] = Character.toUpperCase(ch);
                 x++;
               }
@@ -1745,7 +2005,7 @@ public final class String
         int j = 0;
         while (--i >= 0)
           {
-            char ch = value[x++];
+            char ch = at(x++);
             expand = upperCaseExpansion(ch);
             if (expand > 0)
               {
@@ -1785,17 +2045,17 @@ public final class String
   public String trim()
   {
     int limit = count + offset;
-    if (count == 0 || (value[offset] > '\u0020'
-                       && value[limit - 1] > '\u0020'))
+    if (count == 0 || (at(offset) > '\u0020'
+                       && at(limit - 1) > '\u0020'))
       return this;
     int begin = offset;
     do
       if (begin == limit)
         return "";
-    while (value[begin++] <= '\u0020');
+    while (at(begin++) <= '\u0020');
 
     int end = limit;
-    while (value[--end] <= '\u0020')
+    while (at(--end) <= '\u0020')
       ;
     return substring(begin - offset - 1, end - offset + 1);
   }
@@ -1819,7 +2079,7 @@ public final class String
   public char[] toCharArray()
   {
     char[] copy = new char[count];
-    VMSystem.arraycopy(value, offset, copy, 0, count);
+    getChars(0, count, copy, 0);
     return copy;
   }
 
@@ -2030,13 +2290,13 @@ public final class String
     int count = 0;
     while (start < end)
       {
-        char base = value[start];
+        char base = at(start);
         if (base < Character.MIN_HIGH_SURROGATE
             || base > Character.MAX_HIGH_SURROGATE
             || start == end
             || start == count
-            || value[start + 1] < Character.MIN_LOW_SURROGATE
-            || value[start + 1] > Character.MAX_LOW_SURROGATE)
+            || at(start + 1) < Character.MIN_LOW_SURROGATE
+            || at(start + 1) > Character.MAX_LOW_SURROGATE)
           {
             // Nothing.
           }
@@ -2101,6 +2361,70 @@ public final class String
     return upperSpecial[mid + 1];
   }
 
+  /**
+   * Returns the character at an index of {@link #value} or {@link #latin1},
+   * that is, including {@link #offset}.
+   */
+  private char at(int index)
+  {
+    char[] v = value;
+    if (v != null)
+      return v[index];
+    return (char) (latin1[index] & 0xff);
+  }
+
+  /**
+   * Checks the bounds of a part of an array.
+   *
+   * @throws StringIndexOutOfBoundsException if offset or count is incorrect
+   */
+  private static void checkBounds(int length, int offset, int count)
+  {
+    if (offset < 0)
+      throw new StringIndexOutOfBoundsException("offset: " + offset);
+    if (count < 0)
+      throw new StringIndexOutOfBoundsException("count: " + count);
+    // equivalent to: offset + count < 0 || offset + count > length
+    if (length - offset < count)
+      throw new StringIndexOutOfBoundsException("offset + count: "
+                                                + (offset + count));
+  }
+
+  /**
+   * Checks whether all characters of a part of an array are below 256.
+   */
+  private static boolean canCompress(char[] data, int offset, int count)
+  {
+    int end = offset + count;
+    for (int i = offset; i < end; i++)
+      if (data[i] > 0xff)
+        return false;
+    return true;
+  }
+
+  /**
+   * Copies the low bytes of a part of a char array into a new array.
+   */
+  private static byte[] compress(char[] data, int offset, int count)
+  {
+    byte[] b = new byte[count];
+    for (int i = 0; i < count; i++)
+      b[i] = (byte) data[offset + i];
+    return b;
+  }
+
+  /**
+   * Checks whether all bytes of a part of an array are below 128.
+   */
+  private static boolean isAscii(byte[] data, int offset, int count)
+  {
+    int end = offset + count;
+    for (int i = offset; i < end; i++)
+      if (data[i] < 0)
+        return false;
+    return true;
+  }
+
   /**
    * Returns the value array of the given string if it is zero based or a
    * copy of it that is zero based (stripping offset and making length equal
@@ -2111,14 +2435,10 @@ public final class String
   {
     char[] value;
 
-    if (s.offset == 0 && s.count == s.value.length)
+    if (s.value != null && s.offset == 0 && s.count == s.value.length)
       value = s.value;
     else
-      {
-        int count = s.count;
-        value = new char[count];
-        VMSystem.arraycopy(s.value, s.offset, value, 0, count);
-      }
+      value = s.toCharArray();
 
     return value;
   }
@@ -2185,8 +2505,16 @@ public final class String
     if (index < 0 || index > count)
       throw new IndexOutOfBoundsException();
 
+    if (value == null)
+      {
+        // Every character of a compact String is a code point.
+        int result = index + codePointOffset;
+        if (result < 0 || result > count)
+          throw new IndexOutOfBoundsException();
+        return result;
+      }
     return Character.offsetByCodePoints(value, offset, count, offset + index,
-                                        codePointOffset);
+                                        codePointOffset) - offset;
   }
 
   /**
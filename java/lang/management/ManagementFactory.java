@@ -41,6 +41,7 @@ import gnu.classpath.SystemProperties;
 
 import gnu.java.lang.management.ClassLoadingMXBeanImpl;
 import gnu.java.lang.management.CompilationMXBeanImpl;
+import gnu.java.lang.management.DirectBufferPoolMXBeanImpl;
 import gnu.java.lang.management.GarbageCollectorMXBeanImpl;
 import gnu.java.lang.management.OperatingSystemMXBeanImpl;
 import gnu.java.lang.management.MemoryMXBeanImpl;
@@ -49,6 +50,8 @@ import gnu.java.lang.management.MemoryPoolMXBeanImpl;
 import gnu.java.lang.management.RuntimeMXBeanImpl;
 import gnu.java.lang.management.ThreadMXBeanImpl;
 
+import gnu.java.nio.DirectBufferPool;
+
 import java.io.IOException;
 
 import java.lang.reflect.InvocationHandler;
@@ -536,6 +539,8 @@ public class ManagementFactory
               }
             platformServer.registerMBean(LogManager.getLoggingMXBean(),
                                          new ObjectName(LogManager.LOGGING_MXBEAN_NAME));
+            platformServer.registerMBean(new DirectBufferPoolMXBeanImpl(),
+                                         new ObjectName(DirectBufferPool.MXBEAN_NAME));
           }
         catch (InstanceAlreadyExistsException e)
           {
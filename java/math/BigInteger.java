@@ -144,6 +144,20 @@ public class BigInteger extends Number implements Comparable<BigInteger>
   private static final int TRUNCATE = 3;
   private static final int ROUND = 4;
 
+  /** Divisors of at least this many words are divided with the
+   * recursive method of Burnikel and Ziegler, if the quotient has at
+   * least BURNIKEL_ZIEGLER_OFFSET words too. */
+  private static final int BURNIKEL_ZIEGLER_THRESHOLD = 80;
+  private static final int BURNIKEL_ZIEGLER_OFFSET = 40;
+
+  /** Numbers of at least this many words are converted to and from
+   * strings by splitting them at a power of the radix. */
+  private static final int RADIX_CONVERSION_THRESHOLD = 30;
+
+  /** Cache for radixPower(int, int), indexed by radix. */
+  private static final BigInteger[][] radixPowers =
+    new BigInteger[Character.MAX_RADIX + 1][];
+
   /** When checking the probability of primes, it is most efficient to
    * first check the factoring of small primes, so we'll use this array.
    */
@@ -1014,6 +1028,17 @@ public class BigInteger extends Number implements Comparable<BigInteger>
         rlen = 1;
         ywords[0] = MPN.divmod_1(xwords, xwords, xlen, ywords[0]);
       }
+    else if (ylen >= BURNIKEL_ZIEGLER_THRESHOLD
+             && xlen - ylen >= BURNIKEL_ZIEGLER_OFFSET)
+      {
+        BigInteger[] qr = divideBurnikelZiegler(magnitude(xwords, 0, xlen),
+                                                magnitude(ywords, 0, ylen),
+                                                ylen);
+        qlen = qr[0].getWords(xwords);
+        // Leave room for the sign word of the remainder.
+        ywords = new int[ylen + 1];
+        rlen = qr[1].getWords(ywords);
+      }
     else  // abs(x) > abs(y)
       {
         // Normalize the denominator, i.e. make its most significant bit set by
@@ -1038,6 +1063,8 @@ public class BigInteger extends Number implements Comparable<BigInteger>
         MPN.divide(xwords, xlen, ywords, ylen);
         rlen = ylen;
         MPN.rshift0 (ywords, xwords, 0, rlen, nshift);
+        while (rlen > 1 && ywords[rlen - 1] == 0)
+          rlen--;
 
         qlen = xlen + 1 - ylen;
         if (quotient != null)
@@ -1194,6 +1221,177 @@ public class BigInteger extends Number implements Comparable<BigInteger>
     return result;
   }
 
+  /**
+   * Divides a by b with the recursive algorithm of Burnikel and
+   * Ziegler, "Fast Recursive Division", MPI-I-98-1-022 (1998), which
+   * takes about twice the time of a multiplication of the same size,
+   * rather than the quadratic time of MPN.divide.  The dividend is cut
+   * into blocks of n words, with n a little above the length of b, and
+   * divided block by block with divide2n1n.
+   *
+   * @param a the non-negative dividend
+   * @param b the positive divisor
+   * @param blen the number of words of b
+   * @return the quotient and the remainder
+   */
+  private static BigInteger[] divideBurnikelZiegler(BigInteger a, BigInteger b,
+                                                    int blen)
+  {
+    // n = j*2**k, with j at most the threshold, so that halving n
+    // k times gives blocks for MPN.divide.
+    int k = 32 - Integer.numberOfLeadingZeros(blen / BURNIKEL_ZIEGLER_THRESHOLD);
+    int m = 1 << k;
+    int j = (blen + m - 1) / m;
+    int n = j * m;
+    int bits = 32 * n;
+
+    // Normalize b to exactly n words with the top bit set.
+    int sigma = bits - b.bitLength();
+    b = shift(b, sigma);
+    a = shift(a, sigma);
+
+    // The top block must be less than half a block, so that the first
+    // two blocks are less than b times a block.
+    int t = Math.max((a.bitLength() + bits) / bits, 2);
+    BigInteger z = shift(a, -(t - 2) * bits);
+    int[] q = new int[(t - 1) * n + 1];
+    BigInteger[] qr;
+    for (int i = t - 2; ; i--)
+      {
+        qr = divide2n1n(z, b, n);
+        // The quotient block is less than 2**(32*n); leave out its sign
+        // word, which would overwrite the block above.
+        if (qr[0].words == null)
+          q[i * n] = qr[0].ival;
+        else
+          System.arraycopy(qr[0].words, 0, q, i * n, Math.min(qr[0].ival, n));
+        if (i == 0)
+          break;
+        z = add(shift(qr[1], bits), block(a, (i - 1) * n, n), 1);
+      }
+    qr[0] = make(q, q.length);
+    qr[1] = shift(qr[1], -sigma);
+    return qr;
+  }
+
+  /**
+   * Divides a by b, where b has n words with the top bit set and
+   * a &lt; b * 2**(32*n), by two divisions of three half blocks by two.
+   *
+   * @return the quotient and the remainder
+   */
+  private static BigInteger[] divide2n1n(BigInteger a, BigInteger b, int n)
+  {
+    if (n % 2 != 0 || n < BURNIKEL_ZIEGLER_THRESHOLD)
+      return divideBasecase(a, b, n);
+
+    int half = n / 2;
+    BigInteger[] qr1 = divide3n2n(shift(a, -32 * half), b, half);
+    BigInteger a4 = block(a, 0, half);
+    BigInteger[] qr2 = divide3n2n(add(shift(qr1[1], 32 * half), a4, 1), b,
+                                  half);
+    qr2[0] = add(shift(qr1[0], 32 * half), qr2[0], 1);
+    return qr2;
+  }
+
+  /**
+   * Divides a by b, where b has 2*n words with the top bit set and
+   * a &lt; b * 2**(32*n).  The quotient is estimated from the top
+   * halves, which is at most two too large.
+   *
+   * @return the quotient and the remainder
+   */
+  private static BigInteger[] divide3n2n(BigInteger a, BigInteger b, int n)
+  {
+    BigInteger a12 = shift(a, -32 * n);
+    BigInteger a3 = block(a, 0, n);
+    BigInteger b1 = shift(b, -32 * n);
+    BigInteger b2 = block(b, 0, n);
+
+    BigInteger q;
+    BigInteger r1;
+    if (compareTo(shift(a12, -32 * n), b1) < 0)
+      {
+        BigInteger[] qr = divide2n1n(a12, b1, n);
+        q = qr[0];
+        r1 = qr[1];
+      }
+    else
+      {
+        // q = 2**(32*n) - 1, and r1 = a12 - q*b1.
+        q = add(shift(ONE, 32 * n), ONE, -1);
+        r1 = add(add(a12, shift(b1, 32 * n), -1), b1, 1);
+      }
+
+    BigInteger r = add(add(shift(r1, 32 * n), a3, 1), times(q, b2), -1);
+    while (r.isNegative())
+      {
+        r = add(r, b, 1);
+        q = add(q, ONE, -1);
+      }
+    return new BigInteger[] { q, r };
+  }
+
+  /**
+   * Divides a by b with MPN.divide, where b has n words with the top
+   * bit set and a &lt; b * 2**(32*n).
+   *
+   * @return the quotient and the remainder
+   */
+  private static BigInteger[] divideBasecase(BigInteger a, BigInteger b, int n)
+  {
+    if (compareTo(a, b) < 0)
+      return new BigInteger[] { ZERO, a };
+    int alen = a.words == null ? 1 : a.ival;
+    int nx = Math.max(alen, n + 1);
+    int[] zds = new int[nx + 1];
+    a.getWords(zds);
+    MPN.divide(zds, nx, b.words, n);
+    return new BigInteger[] { magnitude(zds, n, nx + 1 - n),
+                              magnitude(zds, 0, n) };
+  }
+
+  /**
+   * Returns the non-negative BigInteger whose words are
+   * words[offset:offset+len-1].
+   */
+  private static BigInteger magnitude(int[] words, int offset, int len)
+  {
+    int[] result = new int[len + 1];
+    System.arraycopy(words, offset, result, 0, len);
+    return make(result, len + 1);
+  }
+
+  /**
+   * Returns words offset to offset+n-1 of the non-negative x.
+   */
+  private static BigInteger block(BigInteger x, int offset, int n)
+  {
+    if (x.words == null)
+      return offset == 0 ? x : ZERO;
+    if (offset == 0 && x.ival <= n)
+      return x;
+    int len = Math.min(n, x.ival - offset);
+    if (len <= 0)
+      return ZERO;
+    return magnitude(x.words, offset, len);
+  }
+
+  /**
+   * Copies the words of this non-negative BigInteger into words, which
+   * must be long enough, and returns how many there are.
+   */
+  private int getWords(int[] words)
+  {
+    if (this.words == null)
+      {
+        words[0] = ival;
+        return 1;
+      }
+    System.arraycopy(this.words, 0, words, 0, ival);
+    return ival;
+  }
+
   public BigInteger mod(BigInteger m)
   {
     if (USING_NATIVE)
@@ -1438,6 +1636,12 @@ public class BigInteger extends Number implements Comparable<BigInteger>
       return modInverse(m).modPow(exponent.negate(), m);
     if (exponent.isOne())
       return mod(m);
+    if (m.isOne())
+      return ZERO;
+    if (exponent.isZero())
+      return ONE;
+    if ((m.words == null ? m.ival : m.words[0]) % 2 != 0)
+      return montgomeryModPow(exponent, m);
 
     // To do this naively by first raising this to the power of exponent
     // and then performing modulo m would be extremely expensive, especially
@@ -1461,6 +1665,118 @@ public class BigInteger extends Number implements Comparable<BigInteger>
     return s;
   }
 
+  /**
+   * Computes this**exponent mod m for an odd modulus m &gt; 1 and a
+   * positive exponent, without dividing.  The powers are kept in
+   * Montgomery form (x*R mod m, R = 2**(32*len)), where a modular
+   * product is a multiplication followed by {@link MPN#redc}, and the
+   * exponent is scanned from the top in windows of a few bits (see
+   * {@link #modPowWindow}), so that only the odd powers of this up
+   * to 2**window need to be precomputed.
+   */
+  private BigInteger montgomeryModPow(BigInteger exponent, BigInteger m)
+  {
+    int[] mod = new int[m.words == null ? 1 : m.ival];
+    m.getAbsolute(mod);
+    int len = mod.length;
+    while (len > 1 && mod[len - 1] == 0)
+      len--;
+    int minv = MPN.mont_inverse(mod[0]);
+
+    // Bring this into Montgomery form.  It is the only division needed.
+    int[] base = new int[mod.length];
+    shift(mod(m), 32 * len).mod(m).getAbsolute(base);
+
+    int[] ewords;
+    if (exponent.words == null)
+      ewords = new int[] { exponent.ival };
+    else
+      ewords = exponent.words;
+    int ebits = exponent.bitLength();
+    int window = modPowWindow(ebits);
+
+    // table[i] holds this**(2*i+1) in Montgomery form.
+    int[] t = new int[2 * len];
+    int[][] table = new int[1 << (window - 1)][];
+    table[0] = base;
+    if (window > 1)
+      {
+        int[] square = new int[len];
+        MPN.mont_mul(square, base, base, mod, len, minv, t);
+        for (int i = 1; i < table.length; i++)
+          {
+            table[i] = new int[len];
+            MPN.mont_mul(table[i], table[i - 1], square, mod, len, minv, t);
+          }
+      }
+
+    // The exponent's top bit is set, so the first window starts the
+    // result and it never has to be one.
+    int[] result = null;
+    int i = ebits - 1;
+    while (i >= 0)
+      {
+        if ((ewords[i >> 5] & (1 << i)) == 0)
+          {
+            MPN.mont_mul(result, result, result, mod, len, minv, t);
+            i--;
+            continue;
+          }
+
+        // Take the longest window i..low that ends in a one bit.
+        int low = Math.max(i - window + 1, 0);
+        while ((ewords[low >> 5] & (1 << low)) == 0)
+          low++;
+        int bits = 0;
+        for (int j = i; j >= low; j--)
+          bits = (bits << 1) | ((ewords[j >> 5] >>> j) & 1);
+
+        if (result == null)
+          {
+            result = new int[len];
+            System.arraycopy(table[bits >> 1], 0, result, 0, len);
+          }
+        else
+          {
+            for (int j = i; j >= low; j--)
+              MPN.mont_mul(result, result, result, mod, len, minv, t);
+            MPN.mont_mul(result, result, table[bits >> 1], mod, len, minv,
+                         t);
+          }
+        i = low - 1;
+      }
+
+    // Leave Montgomery form: reduce result * R / R.
+    System.arraycopy(result, 0, t, 0, len);
+    for (int j = len; j < 2 * len; j++)
+      t[j] = 0;
+    int[] words = new int[len + 1];
+    MPN.redc(words, t, mod, len, minv);
+    return make(words, len + 1);
+  }
+
+  /**
+   * Returns the number of exponent bits that modPow handles at once.
+   * Larger windows save multiplications but need a table of
+   * 2**(window-1) powers; these bounds are where the next size pays off.
+   */
+  private static int modPowWindow(int ebits)
+  {
+    if (ebits <= 7)
+      return 1;
+    if (ebits <= 25)
+      return 2;
+    if (ebits <= 81)
+      return 3;
+    if (ebits <= 241)
+      return 4;
+    if (ebits <= 673)
+      return 5;
+    if (ebits <= 1793)
+      return 6;
+    return 7;
+  }
+
   /** Calculate Greatest Common Divisor for non-negative ints. */
   private static int gcd(int a, int b)
   {
@@ -1770,8 +2086,9 @@ public class BigInteger extends Number implements Comparable<BigInteger>
     else
       {
         boolean neg = isNegative();
+        boolean pow2 = (radix & (radix - 1)) == 0;
         int[] work;
-        if (neg || radix != 16)
+        if (neg || ! pow2)
           {
             work = new int[ival];
             getAbsolute(work);
@@ -1780,46 +2097,147 @@ public class BigInteger extends Number implements Comparable<BigInteger>
           work = words;
         int len = ival;
 
-        if (radix == 16)
+        if (pow2)
           {
             if (neg)
               buffer.append('-');
             int buf_start = buffer.length();
-            for (int i = len;  --i >= 0; )
+            int bits = Integer.numberOfTrailingZeros(radix);
+            for (int pos = (32 * len - 1) / bits * bits;  pos >= 0;
+                 pos -= bits)
               {
-                int word = work[i];
-                for (int j = 8;  --j >= 0; )
-                  {
-                    int hex_digit = (word >> (4 * j)) & 0xF;
-                    // Suppress leading zeros:
-                    if (hex_digit > 0 || buffer.length() > buf_start)
-                      buffer.append(Character.forDigit(hex_digit, 16));
-                  }
+                int i = pos >> 5;
+                long word = work[i] & 0xffffffffL;
+                if (i + 1 < len)
+                  word |= (long) work[i + 1] << 32;
+                int digit = (int) (word >>> (pos & 31)) & (radix - 1);
+                // Suppress leading zeros:
+                if (digit > 0 || buffer.length() > buf_start)
+                  buffer.append(Character.forDigit(digit, radix));
               }
           }
         else
           {
-            int i = buffer.length();
-            for (;;)
-              {
-                int digit = MPN.divmod_1(work, work, len, radix);
-                buffer.append(Character.forDigit(digit, radix));
-                while (len > 0 && work[len-1] == 0) len--;
-                if (len == 0)
-                  break;
-              }
             if (neg)
               buffer.append('-');
-            /* Reverse buffer. */
-            int j = buffer.length() - 1;
-            while (i < j)
+            if (len < RADIX_CONVERSION_THRESHOLD
+                || radix > Character.MAX_RADIX)
+              formatBasecase(work, len, radix, 0, buffer);
+            else
+              format(magnitude(work, 0, len), radix, 0, buffer);
+          }
+      }
+  }
+
+  /**
+   * Appends the non-negative x to buffer, with leading zeros up to at
+   * least digits characters.  Large numbers are split at a power of the
+   * radix with about half as many words, so that most of the work is
+   * done by a few large divisions instead of one division by a small
+   * number for every few digits.
+   */
+  private static void format(BigInteger x, int radix, int digits,
+                             CPStringBuilder buffer)
+  {
+    int len = x.words == null ? 1 : x.ival;
+    if (len < RADIX_CONVERSION_THRESHOLD)
+      {
+        int[] work = new int[len];
+        x.getWords(work);
+        formatBasecase(work, len, radix, digits, buffer);
+        return;
+      }
+
+    int e = 0;
+    while (radixPower(radix, e + 1).bitLength() <= 16 * len)
+      e++;
+    BigInteger[] qr = x.divideAndRemainder(radixPower(radix, e));
+    int lowDigits = MPN.chars_per_word(radix) << e;
+    format(qr[0], radix, digits - lowDigits, buffer);
+    format(qr[1], radix, lowDigits, buffer);
+  }
+
+  /**
+   * Appends the unsigned number in work[0:len-1] to buffer, with leading
+   * zeros up to at least digits characters.  The digits are taken off
+   * a word's worth at a time.  Destroys work.
+   */
+  private static void formatBasecase(int[] work, int len, int radix,
+                                     int digits, CPStringBuilder buffer)
+  {
+    int chunk = MPN.chars_per_word(radix);
+    int bigBase = (int) radixPower(radix);
+    int start = buffer.length();
+    while (len > 0 && work[len - 1] == 0)
+      len--;
+    while (len > 0)
+      {
+        long r = MPN.divmod_1(work, work, len, bigBase) & 0xffffffffL;
+        while (len > 0 && work[len - 1] == 0)
+          len--;
+        for (int i = 0;  i < chunk && (len > 0 || r != 0);  i++)
+          {
+            buffer.append(Character.forDigit((int) (r % radix), radix));
+            r /= radix;
+          }
+      }
+    while (buffer.length() - start < digits)
+      buffer.append('0');
+    if (buffer.length() == start)
+      buffer.append('0');
+
+    /* Reverse buffer. */
+    int i = start;
+    int j = buffer.length() - 1;
+    while (i < j)
+      {
+        char tmp = buffer.charAt(i);
+        buffer.setCharAt(i, buffer.charAt(j));
+        buffer.setCharAt(j, tmp);
+        i++;  j--;
+      }
+  }
+
+  /**
+   * Returns radix**MPN.chars_per_word(radix), the largest power of the
+   * radix that the radix conversions handle in one word.
+   */
+  private static long radixPower(int radix)
+  {
+    long bigBase = radix;
+    for (int i = MPN.chars_per_word(radix);  --i > 0; )
+      bigBase *= radix;
+    return bigBase;
+  }
+
+  /**
+   * Returns radixPower(radix)**(2**e), from a cache that grows as
+   * needed.
+   */
+  private static BigInteger radixPower(int radix, int e)
+  {
+    synchronized (radixPowers)
+      {
+        BigInteger[] powers = radixPowers[radix];
+        if (powers == null || powers.length <= e)
+          {
+            BigInteger[] grown = new BigInteger[e + 1];
+            int have = 0;
+            if (powers != null)
+              {
+                have = powers.length;
+                System.arraycopy(powers, 0, grown, 0, have);
+              }
+            else
               {
-                char tmp = buffer.charAt(i);
-                buffer.setCharAt(i, buffer.charAt(j));
-                buffer.setCharAt(j, tmp);
-                i++;  j--;
+                grown[0] = valueOf(radixPower(radix));
+                have = 1;
               }
+            for (int i = have;  i <= e;  i++)
+              grown[i] = times(grown[i - 1], grown[i - 1]);
+            radixPowers[radix] = powers = grown;
           }
+        return powers[e];
       }
   }
 
@@ -1920,6 +2338,12 @@ public class BigInteger extends Number implements Comparable<BigInteger>
                                     boolean negative, int radix)
   {
     int chars_per_word = MPN.chars_per_word(radix);
+    if ((radix & (radix - 1)) != 0 && radix <= Character.MAX_RADIX
+        && byte_len >= RADIX_CONVERSION_THRESHOLD * chars_per_word)
+      {
+        BigInteger result = valueOf(digits, 0, byte_len, radix);
+        return negative ? neg(result) : result;
+      }
     int[] words = new int[byte_len / chars_per_word + 1];
     int size = MPN.set_str(words, digits, byte_len, radix);
     if (size == 0)
@@ -1931,6 +2355,38 @@ public class BigInteger extends Number implements Comparable<BigInteger>
     return make(words, size);
   }
 
+  /**
+   * Returns the number whose digits are digits[offset:offset+len-1],
+   * for a radix which is not a power of two.  Long inputs are split in
+   * two, and the high part is multiplied by a power of the radix, so
+   * that the work goes into a few large multiplications.
+   */
+  private static BigInteger valueOf(byte[] digits, int offset, int len,
+                                    int radix)
+  {
+    int chunk = MPN.chars_per_word(radix);
+    if (len < RADIX_CONVERSION_THRESHOLD * chunk)
+      {
+        byte[] part = new byte[len];
+        System.arraycopy(digits, offset, part, 0, len);
+        int[] words = new int[len / chunk + 2];
+        int size = MPN.set_str(words, part, len, radix);
+        if (size == 0)
+          return ZERO;
+        if (words[size-1] < 0)
+          words[size++] = 0;
+        return make(words, size);
+      }
+
+    int e = 0;
+    while ((chunk << (e + 2)) <= len)
+      e++;
+    int lowLen = chunk << e;
+    BigInteger high = valueOf(digits, offset, len - lowLen, radix);
+    BigInteger low = valueOf(digits, offset + len - lowLen, lowLen, radix);
+    return add(times(high, radixPower(radix, e)), low, 1);
+  }
+
   public double doubleValue()
   {
     if (USING_NATIVE)
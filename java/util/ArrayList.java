@@ -505,6 +505,18 @@ public class ArrayList<E> extends AbstractList<E>
   }
 
 
+  /**
+   * Sort the elements in place.  This is not public, due to Sun's API, but
+   * it lets Collections.sort avoid copying the list to an array and back.
+   *
+   * @param c the Comparator specifying the ordering, or null for natural
+   *        ordering
+   */
+  void sortInternal(Comparator<? super E> c)
+  {
+    Arrays.sort(data, 0, size, c);
+  }
+
   /**
    * Remove from this list all elements contained in the given collection.
    * This is not public, due to Sun's API, but this performs in linear
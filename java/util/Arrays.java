@@ -52,12 +52,12 @@ import java.lang.reflect.Array;
  * <p>
  *
  * Implementations may use their own algorithms, but must obey the general
- * properties; for example, the sort must be stable and n*log(n) complexity.
- * Sun's implementation of sort, and therefore ours, is a tuned quicksort,
- * adapted from Jon L. Bentley and M. Douglas McIlroy's "Engineering a Sort
- * Function", Software-Practice and Experience, Vol. 23(11) P. 1249-1265
- * (November 1993). This algorithm offers n*log(n) performance on many data
- * sets that cause other quicksorts to degrade to quadratic performance.
+ * properties; for example, the sort of objects must be stable and n*log(n)
+ * complexity.  Arrays of primitive values are sorted with a dual-pivot
+ * quicksort, which falls back on heapsort when it would take quadratic
+ * time.  Arrays of objects are sorted with TimSort, a mergesort which makes
+ * use of the runs of elements already in order.  Both sort arrays which are
+ * sorted already in linear time.
  *
  * @author Original author unknown
  * @author Bryce McKinlay
@@ -1209,13 +1209,8 @@ public class Arrays
 
 
 // sort
-  // Thanks to Paul Fisher (rao@gnu.org) for finding this quicksort algorithm
-  // as specified by Sun and porting it to Java. The algorithm is an optimised
-  // quicksort, as described in Jon L. Bentley and M. Douglas McIlroy's
-  // "Engineering a Sort Function", Software-Practice and Experience, Vol.
-  // 23(11) P. 1249-1265 (November 1993). This algorithm gives n*log(n)
-  // performance on many arrays that would take quadratic time with a standard
-  // quicksort.
+  // The sorts of primitive values are in DualPivotQuicksort, those of
+  // objects in TimSort.  The parallel sorts hand the work to a SortJob.
 
   /**
    * Performs a stable sort on the elements, arranging them according to their
@@ -1225,7 +1220,7 @@ public class Arrays
    */
   public static void sort(byte[] a)
   {
-    qsort(a, 0, a.length);
+    DualPivotQuicksort.sort(a, 0, a.length);
   }
 
   /**
@@ -1241,144 +1236,8 @@ public class Arrays
    */
   public static void sort(byte[] a, int fromIndex, int toIndex)
   {
-    if (fromIndex > toIndex)
-      throw new IllegalArgumentException();
-    if (fromIndex < 0)
-      throw new ArrayIndexOutOfBoundsException();
-    qsort(a, fromIndex, toIndex - fromIndex);
-  }
-
-  /**
-   * Finds the index of the median of three array elements.
-   *
-   * @param a the first index
-   * @param b the second index
-   * @param c the third index
-   * @param d the array
-   * @return the index (a, b, or c) which has the middle value of the three
-   */
-  private static int med3(int a, int b, int c, byte[] d)
-  {
-    return (d[a] < d[b]
-            ? (d[b] < d[c] ? b : d[a] < d[c] ? c : a)
-            : (d[b] > d[c] ? b : d[a] > d[c] ? c : a));
-  }
-
-  /**
-   * Swaps the elements at two locations of an array
-   *
-   * @param i the first index
-   * @param j the second index
-   * @param a the array
-   */
-  private static void swap(int i, int j, byte[] a)
-  {
-    byte c = a[i];
-    a[i] = a[j];
-    a[j] = c;
-  }
-
-  /**
-   * Swaps two ranges of an array.
-   *
-   * @param i the first range start
-   * @param j the second range start
-   * @param n the element count
-   * @param a the array
-   */
-  private static void vecswap(int i, int j, int n, byte[] a)
-  {
-    for ( ; n > 0; i++, j++, n--)
-      swap(i, j, a);
-  }
-
-  /**
-   * Performs a recursive modified quicksort.
-   *
-   * @param array the array to sort
-   * @param from the start index (inclusive)
-   * @param count the number of elements to sort
-   */
-  private static void qsort(byte[] array, int from, int count)
-  {
-    // Use an insertion sort on small arrays.
-    if (count <= 7)
-      {
-        for (int i = from + 1; i < from + count; i++)
-          for (int j = i; j > from && array[j - 1] > array[j]; j--)
-            swap(j, j - 1, array);
-        return;
-      }
-
-    // Determine a good median element.
-    int mid = from + count / 2;
-    int lo = from;
-    int hi = from + count - 1;
-
-    if (count > 40)
-      { // big arrays, pseudomedian of 9
-        int s = count / 8;
-        lo = med3(lo, lo + s, lo + 2 * s, array);
-        mid = med3(mid - s, mid, mid + s, array);
-        hi = med3(hi - 2 * s, hi - s, hi, array);
-      }
-    mid = med3(lo, mid, hi, array);
-
-    int a, b, c, d;
-    int comp;
-
-    // Pull the median element out of the fray, and use it as a pivot.
-    swap(from, mid, array);
-    a = b = from;
-    c = d = from + count - 1;
-
-    // Repeatedly move b and c to each other, swapping elements so
-    // that all elements before index b are less than the pivot, and all
-    // elements after index c are greater than the pivot. a and b track
-    // the elements equal to the pivot.
-    while (true)
-      {
-        while (b <= c && (comp = array[b] - array[from]) <= 0)
-          {
-            if (comp == 0)
-              {
-                swap(a, b, array);
-                a++;
-              }
-            b++;
-          }
-        while (c >= b && (comp = array[c] - array[from]) >= 0)
-          {
-            if (comp == 0)
-              {
-                swap(c, d, array);
-                d--;
-              }
-            c--;
-          }
-        if (b > c)
-          break;
-        swap(b, c, array);
-        b++;
-        c--;
-      }
-
-    // Swap pivot(s) back in place, the recurse on left and right sections.
-    hi = from + count;
-    int span;
-    span = Math.min(a - from, b - a);
-    vecswap(from, b - span, span, array);
-
-    span = Math.min(d - c, hi - d - 1);
-    vecswap(b, hi - span, span, array);
-
-    span = b - a;
-    if (span > 1)
-      qsort(array, from, span);
-
-    span = d - c;
-    if (span > 1)
-      qsort(array, hi - span, span);
+    rangeCheck(a.length, fromIndex, toIndex);
+    DualPivotQuicksort.sort(a, fromIndex, toIndex);
   }
 
   /**
@@ -1389,7 +1248,7 @@ public class Arrays
    */
   public static void sort(char[] a)
   {
-    qsort(a, 0, a.length);
+    DualPivotQuicksort.sort(a, 0, a.length);
   }
 
   /**
@@ -1405,144 +1264,8 @@ public class Arrays
    */
   public static void sort(char[] a, int fromIndex, int toIndex)
   {
-    if (fromIndex > toIndex)
-      throw new IllegalArgumentException();
-    if (fromIndex < 0)
-      throw new ArrayIndexOutOfBoundsException();
-    qsort(a, fromIndex, toIndex - fromIndex);
-  }
-
-  /**
-   * Finds the index of the median of three array elements.
-   *
-   * @param a the first index
-   * @param b the second index
-   * @param c the third index
-   * @param d the array
-   * @return the index (a, b, or c) which has the middle value of the three
-   */
-  private static int med3(int a, int b, int c, char[] d)
-  {
-    return (d[a] < d[b]
-            ? (d[b] < d[c] ? b : d[a] < d[c] ? c : a)
-            : (d[b] > d[c] ? b : d[a] > d[c] ? c : a));
-  }
-
-  /**
-   * Swaps the elements at two locations of an array
-   *
-   * @param i the first index
-   * @param j the second index
-   * @param a the array
-   */
-  private static void swap(int i, int j, char[] a)
-  {
-    char c = a[i];
-    a[i] = a[j];
-    a[j] = c;
-  }
-
-  /**
-   * Swaps two ranges of an array.
-   *
-   * @param i the first range start
-   * @param j the second range start
-   * @param n the element count
-   * @param a the array
-   */
-  private static void vecswap(int i, int j, int n, char[] a)
-  {
-    for ( ; n > 0; i++, j++, n--)
-      swap(i, j, a);
-  }
-
-  /**
-   * Performs a recursive modified quicksort.
-   *
-   * @param array the array to sort
-   * @param from the start index (inclusive)
-   * @param count the number of elements to sort
-   */
-  private static void qsort(char[] array, int from, int count)
-  {
-    // Use an insertion sort on small arrays.
-    if (count <= 7)
-      {
-        for (int i = from + 1; i < from + count; i++)
-          for (int j = i; j > from && array[j - 1] > array[j]; j--)
-            swap(j, j - 1, array);
-        return;
-      }
-
-    // Determine a good median element.
-    int mid = from + count / 2;
-    int lo = from;
-    int hi = from + count - 1;
-
-    if (count > 40)
-      { // big arrays, pseudomedian of 9
-        int s = count / 8;
-        lo = med3(lo, lo + s, lo + 2 * s, array);
-        mid = med3(mid - s, mid, mid + s, array);
-        hi = med3(hi - 2 * s, hi - s, hi, array);
-      }
-    mid = med3(lo, mid, hi, array);
-
-    int a, b, c, d;
-    int comp;
-
-    // Pull the median element out of the fray, and use it as a pivot.
-    swap(from, mid, array);
-    a = b = from;
-    c = d = from + count - 1;
-
-    // Repeatedly move b and c to each other, swapping elements so
-    // that all elements before index b are less than the pivot, and all
-    // elements after index c are greater than the pivot. a and b track
-    // the elements equal to the pivot.
-    while (true)
-      {
-        while (b <= c && (comp = array[b] - array[from]) <= 0)
-          {
-            if (comp == 0)
-              {
-                swap(a, b, array);
-                a++;
-              }
-            b++;
-          }
-        while (c >= b && (comp = array[c] - array[from]) >= 0)
-          {
-            if (comp == 0)
-              {
-                swap(c, d, array);
-                d--;
-              }
-            c--;
-          }
-        if (b > c)
-          break;
-        swap(b, c, array);
-        b++;
-        c--;
-      }
-
-    // Swap pivot(s) back in place, the recurse on left and right sections.
-    hi = from + count;
-    int span;
-    span = Math.min(a - from, b - a);
-    vecswap(from, b - span, span, array);
-
-    span = Math.min(d - c, hi - d - 1);
-    vecswap(b, hi - span, span, array);
-
-    span = b - a;
-    if (span > 1)
-      qsort(array, from, span);
-
-    span = d - c;
-    if (span > 1)
-      qsort(array, hi - span, span);
+    rangeCheck(a.length, fromIndex, toIndex);
+    DualPivotQuicksort.sort(a, fromIndex, toIndex);
   }
 
   /**
@@ -1553,7 +1276,7 @@ public class Arrays
    */
   public static void sort(short[] a)
   {
-    qsort(a, 0, a.length);
+    DualPivotQuicksort.sort(a, 0, a.length);
   }
 
   /**
@@ -1569,865 +1292,502 @@ public class Arrays
    */
   public static void sort(short[] a, int fromIndex, int toIndex)
   {
-    if (fromIndex > toIndex)
-      throw new IllegalArgumentException();
-    if (fromIndex < 0)
-      throw new ArrayIndexOutOfBoundsException();
-    qsort(a, fromIndex, toIndex - fromIndex);
+    rangeCheck(a.length, fromIndex, toIndex);
+    DualPivotQuicksort.sort(a, fromIndex, toIndex);
   }
 
   /**
-   * Finds the index of the median of three array elements.
+   * Performs a stable sort on the elements, arranging them according to their
+   * natural order.
    *
-   * @param a the first index
-   * @param b the second index
-   * @param c the third index
-   * @param d the array
-   * @return the index (a, b, or c) which has the middle value of the three
+   * @param a the int array to sort
    */
-  private static int med3(int a, int b, int c, short[] d)
+  public static void sort(int[] a)
   {
-    return (d[a] < d[b]
-            ? (d[b] < d[c] ? b : d[a] < d[c] ? c : a)
-            : (d[b] > d[c] ? b : d[a] > d[c] ? c : a));
+    DualPivotQuicksort.sort(a, 0, a.length);
   }
 
   /**
-   * Swaps the elements at two locations of an array
+   * Performs a stable sort on the elements, arranging them according to their
+   * natural order.
    *
-   * @param i the first index
-   * @param j the second index
-   * @param a the array
+   * @param a the int array to sort
+   * @param fromIndex the first index to sort (inclusive)
+   * @param toIndex the last index to sort (exclusive)
+   * @throws IllegalArgumentException if fromIndex &gt; toIndex
+   * @throws ArrayIndexOutOfBoundsException if fromIndex &lt; 0
+   *         || toIndex &gt; a.length
    */
-  private static void swap(int i, int j, short[] a)
+  public static void sort(int[] a, int fromIndex, int toIndex)
   {
-    short c = a[i];
-    a[i] = a[j];
-    a[j] = c;
+    rangeCheck(a.length, fromIndex, toIndex);
+    DualPivotQuicksort.sort(a, fromIndex, toIndex);
   }
 
   /**
-   * Swaps two ranges of an array.
+   * Performs a stable sort on the elements, arranging them according to their
+   * natural order.
    *
-   * @param i the first range start
-   * @param j the second range start
-   * @param n the element count
-   * @param a the array
+   * @param a the long array to sort
    */
-  private static void vecswap(int i, int j, int n, short[] a)
+  public static void sort(long[] a)
   {
-    for ( ; n > 0; i++, j++, n--)
-      swap(i, j, a);
+    DualPivotQuicksort.sort(a, 0, a.length);
   }
 
   /**
-   * Performs a recursive modified quicksort.
+   * Performs a stable sort on the elements, arranging them according to their
+   * natural order.
    *
-   * @param array the array to sort
-   * @param from the start index (inclusive)
-   * @param count the number of elements to sort
+   * @param a the long array to sort
+   * @param fromIndex the first index to sort (inclusive)
+   * @param toIndex the last index to sort (exclusive)
+   * @throws IllegalArgumentException if fromIndex &gt; toIndex
+   * @throws ArrayIndexOutOfBoundsException if fromIndex &lt; 0
+   *         || toIndex &gt; a.length
    */
-  private static void qsort(short[] array, int from, int count)
+  public static void sort(long[] a, int fromIndex, int toIndex)
   {
-    // Use an insertion sort on small arrays.
-    if (count <= 7)
-      {
-        for (int i = from + 1; i < from + count; i++)
-          for (int j = i; j > from && array[j - 1] > array[j]; j--)
-            swap(j, j - 1, array);
-        return;
-      }
-
-    // Determine a good median element.
-    int mid = from + count / 2;
-    int lo = from;
-    int hi = from + count - 1;
-
-    if (count > 40)
-      { // big arrays, pseudomedian of 9
-        int s = count / 8;
-        lo = med3(lo, lo + s, lo + 2 * s, array);
-        mid = med3(mid - s, mid, mid + s, array);
-        hi = med3(hi - 2 * s, hi - s, hi, array);
-      }
-    mid = med3(lo, mid, hi, array);
-
-    int a, b, c, d;
-    int comp;
-
-    // Pull the median element out of the fray, and use it as a pivot.
-    swap(from, mid, array);
-    a = b = from;
-    c = d = from + count - 1;
-
-    // Repeatedly move b and c to each other, swapping elements so
-    // that all elements before index b are less than the pivot, and all
-    // elements after index c are greater than the pivot. a and b track
-    // the elements equal to the pivot.
-    while (true)
-      {
-        while (b <= c && (comp = array[b] - array[from]) <= 0)
-          {
-            if (comp == 0)
-              {
-                swap(a, b, array);
-                a++;
-              }
-            b++;
-          }
-        while (c >= b && (comp = array[c] - array[from]) >= 0)
-          {
-            if (comp == 0)
-              {
-                swap(c, d, array);
-                d--;
-              }
-            c--;
-          }
-        if (b > c)
-          break;
-        swap(b, c, array);
-        b++;
-        c--;
-      }
-
-    // Swap pivot(s) back in place, the recurse on left and right sections.
-    hi = from + count;
-    int span;
-    span = Math.min(a - from, b - a);
-    vecswap(from, b - span, span, array);
-
-    span = Math.min(d - c, hi - d - 1);
-    vecswap(b, hi - span, span, array);
-
-    span = b - a;
-    if (span > 1)
-      qsort(array, from, span);
-
-    span = d - c;
-    if (span > 1)
-      qsort(array, hi - span, span);
+    rangeCheck(a.length, fromIndex, toIndex);
+    DualPivotQuicksort.sort(a, fromIndex, toIndex);
   }
 
   /**
    * Performs a stable sort on the elements, arranging them according to their
    * natural order.
    *
-   * @param a the int array to sort
+   * @param a the float array to sort
    */
-  public static void sort(int[] a)
+  public static void sort(float[] a)
   {
-    qsort(a, 0, a.length);
+    DualPivotQuicksort.sort(a, 0, a.length);
   }
 
   /**
    * Performs a stable sort on the elements, arranging them according to their
    * natural order.
    *
-   * @param a the int array to sort
+   * @param a the float array to sort
    * @param fromIndex the first index to sort (inclusive)
    * @param toIndex the last index to sort (exclusive)
    * @throws IllegalArgumentException if fromIndex &gt; toIndex
    * @throws ArrayIndexOutOfBoundsException if fromIndex &lt; 0
    *         || toIndex &gt; a.length
    */
-  public static void sort(int[] a, int fromIndex, int toIndex)
+  public static void sort(float[] a, int fromIndex, int toIndex)
   {
-    if (fromIndex > toIndex)
-      throw new IllegalArgumentException();
-    if (fromIndex < 0)
-      throw new ArrayIndexOutOfBoundsException();
-    qsort(a, fromIndex, toIndex - fromIndex);
+    rangeCheck(a.length, fromIndex, toIndex);
+    DualPivotQuicksort.sort(a, fromIndex, toIndex);
   }
 
   /**
-   * Finds the index of the median of three array elements.
+   * Performs a stable sort on the elements, arranging them according to their
+   * natural order.
    *
-   * @param a the first index
-   * @param b the second index
-   * @param c the third index
-   * @param d the array
-   * @return the index (a, b, or c) which has the middle value of the three
+   * @param a the double array to sort
    */
-  private static int med3(int a, int b, int c, int[] d)
+  public static void sort(double[] a)
   {
-    return (d[a] < d[b]
-            ? (d[b] < d[c] ? b : d[a] < d[c] ? c : a)
-            : (d[b] > d[c] ? b : d[a] > d[c] ? c : a));
+    DualPivotQuicksort.sort(a, 0, a.length);
   }
 
   /**
-   * Swaps the elements at two locations of an array
+   * Performs a stable sort on the elements, arranging them according to their
+   * natural order.
    *
-   * @param i the first index
-   * @param j the second index
-   * @param a the array
+   * @param a the double array to sort
+   * @param fromIndex the first index to sort (inclusive)
+   * @param toIndex the last index to sort (exclusive)
+   * @throws IllegalArgumentException if fromIndex &gt; toIndex
+   * @throws ArrayIndexOutOfBoundsException if fromIndex &lt; 0
+   *         || toIndex &gt; a.length
    */
-  private static void swap(int i, int j, int[] a)
+  public static void sort(double[] a, int fromIndex, int toIndex)
   {
-    int c = a[i];
-    a[i] = a[j];
-    a[j] = c;
+    rangeCheck(a.length, fromIndex, toIndex);
+    DualPivotQuicksort.sort(a, fromIndex, toIndex);
   }
 
   /**
-   * Swaps two ranges of an array.
+   * Sort an array of Objects according to their natural ordering. The sort is
+   * guaranteed to be stable, that is, equal elements will not be reordered.
+   * The sort algorithm is TimSort, a mergesort which finds the runs of
+   * elements already in order and merges them.  It takes O(n*log(n)) time at
+   * worst, but only O(n) on arrays which are sorted already or made of a few
+   * sorted pieces.  It needs temporary storage for at most half the elements.
    *
-   * @param i the first range start
-   * @param j the second range start
-   * @param n the element count
-   * @param a the array
+   * @param a the array to be sorted
+   * @throws ClassCastException if any two elements are not mutually
+   *         comparable
+   * @throws NullPointerException if an element is null (since
+   *         null.compareTo cannot work)
+   * @see Comparable
    */
-  private static void vecswap(int i, int j, int n, int[] a)
+  public static void sort(Object[] a)
   {
-    for ( ; n > 0; i++, j++, n--)
-      swap(i, j, a);
+    sort(a, 0, a.length, null);
   }
 
   /**
-   * Compares two integers in natural order, since a - b is inadequate.
+   * Sort an array of Objects according to a Comparator. The sort is
+   * guaranteed to be stable, that is, equal elements will not be reordered.
+   * The sort algorithm is TimSort, a mergesort which finds the runs of
+   * elements already in order and merges them.  It takes O(n*log(n)) time at
+   * worst, but only O(n) on arrays which are sorted already or made of a few
+   * sorted pieces.  It needs temporary storage for at most half the elements.
    *
-   * @param a the first int
-   * @param b the second int
-   * @return &lt; 0, 0, or &gt; 0 accorting to the comparison
+   * @param a the array to be sorted
+   * @param c a Comparator to use in sorting the array; or null to indicate
+   *        the elements' natural order
+   * @throws ClassCastException if any two elements are not mutually
+   *         comparable by the Comparator provided
+   * @throws NullPointerException if a null element is compared with natural
+   *         ordering (only possible when c is null)
    */
-  private static int compare(int a, int b)
+  public static <T> void sort(T[] a, Comparator<? super T> c)
   {
-    return a < b ? -1 : a == b ? 0 : 1;
+    sort(a, 0, a.length, c);
   }
 
   /**
-   * Performs a recursive modified quicksort.
+   * Sort an array of Objects according to their natural ordering. The sort is
+   * guaranteed to be stable, that is, equal elements will not be reordered.
+   * The sort algorithm is TimSort, a mergesort which finds the runs of
+   * elements already in order and merges them.  It takes O(n*log(n)) time at
+   * worst, but only O(n) on arrays which are sorted already or made of a few
+   * sorted pieces.  It needs temporary storage for at most half the elements.
    *
-   * @param array the array to sort
-   * @param from the start index (inclusive)
-   * @param count the number of elements to sort
+   * @param a the array to be sorted
+   * @param fromIndex the index of the first element to be sorted
+   * @param toIndex the index of the last element to be sorted plus one
+   * @throws ClassCastException if any two elements are not mutually
+   *         comparable
+   * @throws NullPointerException if an element is null (since
+   *         null.compareTo cannot work)
+   * @throws ArrayIndexOutOfBoundsException if fromIndex and toIndex
+   *         are not in range.
+   * @throws IllegalArgumentException if fromIndex &gt; toIndex
    */
-  private static void qsort(int[] array, int from, int count)
+  public static void sort(Object[] a, int fromIndex, int toIndex)
   {
-    // Use an insertion sort on small arrays.
-    if (count <= 7)
-      {
-        for (int i = from + 1; i < from + count; i++)
-          for (int j = i; j > from && array[j - 1] > array[j]; j--)
-            swap(j, j - 1, array);
-        return;
-      }
-
-    // Determine a good median element.
-    int mid = from + count / 2;
-    int lo = from;
-    int hi = from + count - 1;
-
-    if (count > 40)
-      { // big arrays, pseudomedian of 9
-        int s = count / 8;
-        lo = med3(lo, lo + s, lo + 2 * s, array);
-        mid = med3(mid - s, mid, mid + s, array);
-        hi = med3(hi - 2 * s, hi - s, hi, array);
-      }
-    mid = med3(lo, mid, hi, array);
-
-    int a, b, c, d;
-    int comp;
-
-    // Pull the median element out of the fray, and use it as a pivot.
-    swap(from, mid, array);
-    a = b = from;
-    c = d = from + count - 1;
-
-    // Repeatedly move b and c to each other, swapping elements so
-    // that all elements before index b are less than the pivot, and all
-    // elements after index c are greater than the pivot. a and b track
-    // the elements equal to the pivot.
-    while (true)
-      {
-        while (b <= c && (comp = compare(array[b], array[from])) <= 0)
-          {
-            if (comp == 0)
-              {
-                swap(a, b, array);
-                a++;
-              }
-            b++;
-          }
-        while (c >= b && (comp = compare(array[c], array[from])) >= 0)
-          {
-            if (comp == 0)
-              {
-                swap(c, d, array);
-                d--;
-              }
-            c--;
-          }
-        if (b > c)
-          break;
-        swap(b, c, array);
-        b++;
-        c--;
-      }
-
-    // Swap pivot(s) back in place, the recurse on left and right sections.
-    hi = from + count;
-    int span;
-    span = Math.min(a - from, b - a);
-    vecswap(from, b - span, span, array);
-
-    span = Math.min(d - c, hi - d - 1);
-    vecswap(b, hi - span, span, array);
-
-    span = b - a;
-    if (span > 1)
-      qsort(array, from, span);
-
-    span = d - c;
-    if (span > 1)
-      qsort(array, hi - span, span);
+    sort(a, fromIndex, toIndex, null);
   }
 
   /**
-   * Performs a stable sort on the elements, arranging them according to their
-   * natural order.
+   * Sort an array of Objects according to a Comparator. The sort is
+   * guaranteed to be stable, that is, equal elements will not be reordered.
+   * The sort algorithm is TimSort, a mergesort which finds the runs of
+   * elements already in order and merges them.  It takes O(n*log(n)) time at
+   * worst, but only O(n) on arrays which are sorted already or made of a few
+   * sorted pieces.  It needs temporary storage for at most half the elements.
    *
-   * @param a the long array to sort
+   * @param a the array to be sorted
+   * @param fromIndex the index of the first element to be sorted
+   * @param toIndex the index of the last element to be sorted plus one
+   * @param c a Comparator to use in sorting the array; or null to indicate
+   *        the elements' natural order
+   * @throws ClassCastException if any two elements are not mutually
+   *         comparable by the Comparator provided
+   * @throws ArrayIndexOutOfBoundsException if fromIndex and toIndex
+   *         are not in range.
+   * @throws IllegalArgumentException if fromIndex &gt; toIndex
+   * @throws NullPointerException if a null element is compared with natural
+   *         ordering (only possible when c is null)
    */
-  public static void sort(long[] a)
+  public static <T> void sort(T[] a, int fromIndex, int toIndex,
+                              Comparator<? super T> c)
   {
-    qsort(a, 0, a.length);
+    rangeCheck(a.length, fromIndex, toIndex);
+    TimSort.sort(a, fromIndex, toIndex, c);
   }
 
   /**
-   * Performs a stable sort on the elements, arranging them according to their
-   * natural order.
+   * Checks that a range lies within an array.
    *
-   * @param a the long array to sort
-   * @param fromIndex the first index to sort (inclusive)
-   * @param toIndex the last index to sort (exclusive)
+   * @param length the length of the array
+   * @param fromIndex the index of the first element of the range
+   * @param toIndex the index of the last element of the range plus one
    * @throws IllegalArgumentException if fromIndex &gt; toIndex
    * @throws ArrayIndexOutOfBoundsException if fromIndex &lt; 0
-   *         || toIndex &gt; a.length
+   *         || toIndex &gt; length
    */
-  public static void sort(long[] a, int fromIndex, int toIndex)
+  private static void rangeCheck(int length, int fromIndex, int toIndex)
   {
     if (fromIndex > toIndex)
-      throw new IllegalArgumentException();
+      throw new IllegalArgumentException("fromIndex " + fromIndex
+                                         + " > toIndex " + toIndex);
     if (fromIndex < 0)
-      throw new ArrayIndexOutOfBoundsException();
-    qsort(a, fromIndex, toIndex - fromIndex);
+      throw new ArrayIndexOutOfBoundsException(fromIndex);
+    if (toIndex > length)
+      throw new ArrayIndexOutOfBoundsException(toIndex);
   }
 
-  /**
-   * Finds the index of the median of three array elements.
-   *
-   * @param a the first index
-   * @param b the second index
-   * @param c the third index
-   * @param d the array
-   * @return the index (a, b, or c) which has the middle value of the three
-   */
-  private static int med3(int a, int b, int c, long[] d)
-  {
-    return (d[a] < d[b]
-            ? (d[b] < d[c] ? b : d[a] < d[c] ? c : a)
-            : (d[b] > d[c] ? b : d[a] > d[c] ? c : a));
-  }
+// parallelSort
 
   /**
-   * Swaps the elements at two locations of an array
+   * Sorts the elements into their natural order, using several threads
+   * for large arrays.  Large arrays of this type are sorted
+   * by counting the values, which is fast enough on one thread.
    *
-   * @param i the first index
-   * @param j the second index
-   * @param a the array
+   * @param a the byte array to sort
+   * @since 1.8
    */
-  private static void swap(int i, int j, long[] a)
+  public static void parallelSort(byte[] a)
   {
-    long c = a[i];
-    a[i] = a[j];
-    a[j] = c;
+    DualPivotQuicksort.sort(a, 0, a.length);
   }
 
   /**
-   * Swaps two ranges of an array.
+   * Sorts a range of elements into their natural order, using several
+   * threads for large ranges.  Large arrays of this type are sorted
+   * by counting the values, which is fast enough on one thread.
    *
-   * @param i the first range start
-   * @param j the second range start
-   * @param n the element count
-   * @param a the array
+   * @param a the byte array to sort
+   * @param fromIndex the first index to sort (inclusive)
+   * @param toIndex the last index to sort (exclusive)
+   * @throws IllegalArgumentException if fromIndex &gt; toIndex
+   * @throws ArrayIndexOutOfBoundsException if fromIndex &lt; 0
+   *         || toIndex &gt; a.length
+   * @since 1.8
    */
-  private static void vecswap(int i, int j, int n, long[] a)
+  public static void parallelSort(byte[] a, int fromIndex, int toIndex)
   {
-    for ( ; n > 0; i++, j++, n--)
-      swap(i, j, a);
+    rangeCheck(a.length, fromIndex, toIndex);
+    DualPivotQuicksort.sort(a, fromIndex, toIndex);
   }
 
   /**
-   * Compares two longs in natural order, since a - b is inadequate.
+   * Sorts the elements into their natural order, using several threads
+   * for large arrays.  Large arrays of this type are sorted
+   * by counting the values, which is fast enough on one thread.
    *
-   * @param a the first long
-   * @param b the second long
-   * @return &lt; 0, 0, or &gt; 0 accorting to the comparison
+   * @param a the char array to sort
+   * @since 1.8
    */
-  private static int compare(long a, long b)
+  public static void parallelSort(char[] a)
   {
-    return a < b ? -1 : a == b ? 0 : 1;
+    DualPivotQuicksort.sort(a, 0, a.length);
   }
 
   /**
-   * Performs a recursive modified quicksort.
+   * Sorts a range of elements into their natural order, using several
+   * threads for large ranges.  Large arrays of this type are sorted
+   * by counting the values, which is fast enough on one thread.
    *
-   * @param array the array to sort
-   * @param from the start index (inclusive)
-   * @param count the number of elements to sort
+   * @param a the char array to sort
+   * @param fromIndex the first index to sort (inclusive)
+   * @param toIndex the last index to sort (exclusive)
+   * @throws IllegalArgumentException if fromIndex &gt; toIndex
+   * @throws ArrayIndexOutOfBoundsException if fromIndex &lt; 0
+   *         || toIndex &gt; a.length
+   * @since 1.8
    */
-  private static void qsort(long[] array, int from, int count)
+  public static void parallelSort(char[] a, int fromIndex, int toIndex)
   {
-    // Use an insertion sort on small arrays.
-    if (count <= 7)
-      {
-        for (int i = from + 1; i < from + count; i++)
-          for (int j = i; j > from && array[j - 1] > array[j]; j--)
-            swap(j, j - 1, array);
-        return;
-      }
-
-    // Determine a good median element.
-    int mid = from + count / 2;
-    int lo = from;
-    int hi = from + count - 1;
-
-    if (count > 40)
-      { // big arrays, pseudomedian of 9
-        int s = count / 8;
-        lo = med3(lo, lo + s, lo + 2 * s, array);
-        mid = med3(mid - s, mid, mid + s, array);
-        hi = med3(hi - 2 * s, hi - s, hi, array);
-      }
-    mid = med3(lo, mid, hi, array);
-
-    int a, b, c, d;
-    int comp;
-
-    // Pull the median element out of the fray, and use it as a pivot.
-    swap(from, mid, array);
-    a = b = from;
-    c = d = from + count - 1;
-
-    // Repeatedly move b and c to each other, swapping elements so
-    // that all elements before index b are less than the pivot, and all
-    // elements after index c are greater than the pivot. a and b track
-    // the elements equal to the pivot.
-    while (true)
-      {
-        while (b <= c && (comp = compare(array[b], array[from])) <= 0)
-          {
-            if (comp == 0)
-              {
-                swap(a, b, array);
-                a++;
-              }
-            b++;
-          }
-        while (c >= b && (comp = compare(array[c], array[from])) >= 0)
-          {
-            if (comp == 0)
-              {
-                swap(c, d, array);
-                d--;
-              }
-            c--;
-          }
-        if (b > c)
-          break;
-        swap(b, c, array);
-        b++;
-        c--;
-      }
-
-    // Swap pivot(s) back in place, the recurse on left and right sections.
-    hi = from + count;
-    int span;
-    span = Math.min(a - from, b - a);
-    vecswap(from, b - span, span, array);
-
-    span = Math.min(d - c, hi - d - 1);
-    vecswap(b, hi - span, span, array);
-
-    span = b - a;
-    if (span > 1)
-      qsort(array, from, span);
-
-    span = d - c;
-    if (span > 1)
-      qsort(array, hi - span, span);
+    rangeCheck(a.length, fromIndex, toIndex);
+    DualPivotQuicksort.sort(a, fromIndex, toIndex);
   }
 
   /**
-   * Performs a stable sort on the elements, arranging them according to their
-   * natural order.
+   * Sorts the elements into their natural order, using several threads
+   * for large arrays.  Large arrays of this type are sorted
+   * by counting the values, which is fast enough on one thread.
    *
-   * @param a the float array to sort
+   * @param a the short array to sort
+   * @since 1.8
    */
-  public static void sort(float[] a)
+  public static void parallelSort(short[] a)
   {
-    qsort(a, 0, a.length);
+    DualPivotQuicksort.sort(a, 0, a.length);
   }
 
   /**
-   * Performs a stable sort on the elements, arranging them according to their
-   * natural order.
+   * Sorts a range of elements into their natural order, using several
+   * threads for large ranges.  Large arrays of this type are sorted
+   * by counting the values, which is fast enough on one thread.
    *
-   * @param a the float array to sort
+   * @param a the short array to sort
    * @param fromIndex the first index to sort (inclusive)
    * @param toIndex the last index to sort (exclusive)
    * @throws IllegalArgumentException if fromIndex &gt; toIndex
    * @throws ArrayIndexOutOfBoundsException if fromIndex &lt; 0
    *         || toIndex &gt; a.length
+   * @since 1.8
    */
-  public static void sort(float[] a, int fromIndex, int toIndex)
+  public static void parallelSort(short[] a, int fromIndex, int toIndex)
   {
-    if (fromIndex > toIndex)
-      throw new IllegalArgumentException();
-    if (fromIndex < 0)
-      throw new ArrayIndexOutOfBoundsException();
-    qsort(a, fromIndex, toIndex - fromIndex);
+    rangeCheck(a.length, fromIndex, toIndex);
+    DualPivotQuicksort.sort(a, fromIndex, toIndex);
   }
 
   /**
-   * Finds the index of the median of three array elements.
+   * Sorts the elements into their natural order, using several threads
+   * for large arrays.
    *
-   * @param a the first index
-   * @param b the second index
-   * @param c the third index
-   * @param d the array
-   * @return the index (a, b, or c) which has the middle value of the three
+   * @param a the int array to sort
+   * @since 1.8
    */
-  private static int med3(int a, int b, int c, float[] d)
+  public static void parallelSort(int[] a)
   {
-    return (Float.compare(d[a], d[b]) < 0
-            ? (Float.compare(d[b], d[c]) < 0 ? b
-               : Float.compare(d[a], d[c]) < 0 ? c : a)
-            : (Float.compare(d[b], d[c]) > 0 ? b
-               : Float.compare(d[a], d[c]) > 0 ? c : a));
+    DualPivotQuicksort.parallelSort(a, 0, a.length);
   }
 
   /**
-   * Swaps the elements at two locations of an array
+   * Sorts a range of elements into their natural order, using several
+   * threads for large ranges.
    *
-   * @param i the first index
-   * @param j the second index
-   * @param a the array
+   * @param a the int array to sort
+   * @param fromIndex the first index to sort (inclusive)
+   * @param toIndex the last index to sort (exclusive)
+   * @throws IllegalArgumentException if fromIndex &gt; toIndex
+   * @throws ArrayIndexOutOfBoundsException if fromIndex &lt; 0
+   *         || toIndex &gt; a.length
+   * @since 1.8
    */
-  private static void swap(int i, int j, float[] a)
+  public static void parallelSort(int[] a, int fromIndex, int toIndex)
   {
-    float c = a[i];
-    a[i] = a[j];
-    a[j] = c;
+    rangeCheck(a.length, fromIndex, toIndex);
+    DualPivotQuicksort.parallelSort(a, fromIndex, toIndex);
   }
 
   /**
-   * Swaps two ranges of an array.
+   * Sorts the elements into their natural order, using several threads
+   * for large arrays.
    *
-   * @param i the first range start
-   * @param j the second range start
-   * @param n the element count
-   * @param a the array
+   * @param a the long array to sort
+   * @since 1.8
    */
-  private static void vecswap(int i, int j, int n, float[] a)
+  public static void parallelSort(long[] a)
   {
-    for ( ; n > 0; i++, j++, n--)
-      swap(i, j, a);
+    DualPivotQuicksort.parallelSort(a, 0, a.length);
   }
 
   /**
-   * Performs a recursive modified quicksort.
+   * Sorts a range of elements into their natural order, using several
+   * threads for large ranges.
    *
-   * @param array the array to sort
-   * @param from the start index (inclusive)
-   * @param count the number of elements to sort
+   * @param a the long array to sort
+   * @param fromIndex the first index to sort (inclusive)
+   * @param toIndex the last index to sort (exclusive)
+   * @throws IllegalArgumentException if fromIndex &gt; toIndex
+   * @throws ArrayIndexOutOfBoundsException if fromIndex &lt; 0
+   *         || toIndex &gt; a.length
+   * @since 1.8
    */
-  private static void qsort(float[] array, int from, int count)
+  public static void parallelSort(long[] a, int fromIndex, int toIndex)
   {
-    // Use an insertion sort on small arrays.
-    if (count <= 7)
-      {
-        for (int i = from + 1; i < from + count; i++)
-          for (int j = i;
-               j > from && Float.compare(array[j - 1], array[j]) > 0;
-               j--)
-            {
-              swap(j, j - 1, array);
-            }
-        return;
-      }
-
-    // Determine a good median element.
-    int mid = from + count / 2;
-    int lo = from;
-    int hi = from + count - 1;
-
-    if (count > 40)
-      { // big arrays, pseudomedian of 9
-        int s = count / 8;
-        lo = med3(lo, lo + s, lo + 2 * s, array);
-        mid = med3(mid - s, mid, mid + s, array);
-        hi = med3(hi - 2 * s, hi - s, hi, array);
-      }
-    mid = med3(lo, mid, hi, array);
-
-    int a, b, c, d;
-    int comp;
-
-    // Pull the median element out of the fray, and use it as a pivot.
-    swap(from, mid, array);
-    a = b = from;
-    c = d = from + count - 1;
-
-    // Repeatedly move b and c to each other, swapping elements so
-    // that all elements before index b are less than the pivot, and all
-    // elements after index c are greater than the pivot. a and b track
-    // the elements equal to the pivot.
-    while (true)
-      {
-        while (b <= c && (comp = Float.compare(array[b], array[from])) <= 0)
-          {
-            if (comp == 0)
-              {
-                swap(a, b, array);
-                a++;
-              }
-            b++;
-          }
-        while (c >= b && (comp = Float.compare(array[c], array[from])) >= 0)
-          {
-            if (comp == 0)
-              {
-                swap(c, d, array);
-                d--;
-              }
-            c--;
-          }
-        if (b > c)
-          break;
-        swap(b, c, array);
-        b++;
-        c--;
-      }
-
-    // Swap pivot(s) back in place, the recurse on left and right sections.
-    hi = from + count;
-    int span;
-    span = Math.min(a - from, b - a);
-    vecswap(from, b - span, span, array);
-
-    span = Math.min(d - c, hi - d - 1);
-    vecswap(b, hi - span, span, array);
-
-    span = b - a;
-    if (span > 1)
-      qsort(array, from, span);
-
-    span = d - c;
-    if (span > 1)
-      qsort(array, hi - span, span);
+    rangeCheck(a.length, fromIndex, toIndex);
+    DualPivotQuicksort.parallelSort(a, fromIndex, toIndex);
   }
 
   /**
-   * Performs a stable sort on the elements, arranging them according to their
-   * natural order.
+   * Sorts the elements into their natural order, using several threads
+   * for large arrays.  The order is that of
+   * {@link Float#compare(float, float)}.
    *
-   * @param a the double array to sort
+   * @param a the float array to sort
+   * @since 1.8
    */
-  public static void sort(double[] a)
+  public static void parallelSort(float[] a)
   {
-    qsort(a, 0, a.length);
+    DualPivotQuicksort.parallelSort(a, 0, a.length);
   }
 
   /**
-   * Performs a stable sort on the elements, arranging them according to their
-   * natural order.
+   * Sorts a range of elements into their natural order, using several
+   * threads for large ranges.  The order is that of
+   * {@link Float#compare(float, float)}.
    *
-   * @param a the double array to sort
+   * @param a the float array to sort
    * @param fromIndex the first index to sort (inclusive)
    * @param toIndex the last index to sort (exclusive)
    * @throws IllegalArgumentException if fromIndex &gt; toIndex
    * @throws ArrayIndexOutOfBoundsException if fromIndex &lt; 0
    *         || toIndex &gt; a.length
+   * @since 1.8
    */
-  public static void sort(double[] a, int fromIndex, int toIndex)
-  {
-    if (fromIndex > toIndex)
-      throw new IllegalArgumentException();
-    if (fromIndex < 0)
-      throw new ArrayIndexOutOfBoundsException();
-    qsort(a, fromIndex, toIndex - fromIndex);
-  }
-
-  /**
-   * Finds the index of the median of three array elements.
-   *
-   * @param a the first index
-   * @param b the second index
-   * @param c the third index
-   * @param d the array
-   * @return the index (a, b, or c) which has the middle value of the three
-   */
-  private static int med3(int a, int b, int c, double[] d)
+  public static void parallelSort(float[] a, int fromIndex, int toIndex)
   {
-    return (Double.compare(d[a], d[b]) < 0
-            ? (Double.compare(d[b], d[c]) < 0 ? b
-               : Double.compare(d[a], d[c]) < 0 ? c : a)
-            : (Double.compare(d[b], d[c]) > 0 ? b
-               : Double.compare(d[a], d[c]) > 0 ? c : a));
+    rangeCheck(a.length, fromIndex, toIndex);
+    DualPivotQuicksort.parallelSort(a, fromIndex, toIndex);
   }
 
   /**
-   * Swaps the elements at two locations of an array
+   * Sorts the elements into their natural order, using several threads
+   * for large arrays.  The order is that of
+   * {@link Double#compare(double, double)}.
    *
-   * @param i the first index
-   * @param j the second index
-   * @param a the array
+   * @param a the double array to sort
+   * @since 1.8
    */
-  private static void swap(int i, int j, double[] a)
+  public static void parallelSort(double[] a)
   {
-    double c = a[i];
-    a[i] = a[j];
-    a[j] = c;
+    DualPivotQuicksort.parallelSort(a, 0, a.length);
   }
 
   /**
-   * Swaps two ranges of an array.
+   * Sorts a range of elements into their natural order, using several
+   * threads for large ranges.  The order is that of
+   * {@link Double#compare(double, double)}.
    *
-   * @param i the first range start
-   * @param j the second range start
-   * @param n the element count
-   * @param a the array
+   * @param a the double array to sort
+   * @param fromIndex the first index to sort (inclusive)
+   * @param toIndex the last index to sort (exclusive)
+   * @throws IllegalArgumentException if fromIndex &gt; toIndex
+   * @throws ArrayIndexOutOfBoundsException if fromIndex &lt; 0
+   *         || toIndex &gt; a.length
+   * @since 1.8
    */
-  private static void vecswap(int i, int j, int n, double[] a)
+  public static void parallelSort(double[] a, int fromIndex, int toIndex)
   {
-    for ( ; n > 0; i++, j++, n--)
-      swap(i, j, a);
+    rangeCheck(a.length, fromIndex, toIndex);
+    DualPivotQuicksort.parallelSort(a, fromIndex, toIndex);
   }
 
   /**
-   * Performs a recursive modified quicksort.
+   * Sorts an array of Objects according to their natural ordering, using
+   * several threads for large arrays.  The sort is stable.  Chunks of the
+   * array are sorted in parallel, as by {@link #sort(Object[])}, and then
+   * merged in parallel, which needs a temporary array as long as this one.
    *
-   * @param array the array to sort
-   * @param from the start index (inclusive)
-   * @param count the number of elements to sort
+   * @param a the array to be sorted
+   * @throws ClassCastException if any two elements are not mutually
+   *         comparable
+   * @throws NullPointerException if an element is null (since
+   *         null.compareTo cannot work)
+   * @since 1.8
    */
-  private static void qsort(double[] array, int from, int count)
+  public static <T extends Comparable<? super T>> void parallelSort(T[] a)
   {
-    // Use an insertion sort on small arrays.
-    if (count <= 7)
-      {
-        for (int i = from + 1; i < from + count; i++)
-          for (int j = i;
-               j > from && Double.compare(array[j - 1], array[j]) > 0;
-               j--)
-            {
-              swap(j, j - 1, array);
-            }
-        return;
-      }
-
-    // Determine a good median element.
-    int mid = from + count / 2;
-    int lo = from;
-    int hi = from + count - 1;
-
-    if (count > 40)
-      { // big arrays, pseudomedian of 9
-        int s = count / 8;
-        lo = med3(lo, lo + s, lo + 2 * s, array);
-        mid = med3(mid - s, mid, mid + s, array);
-        hi = med3(hi - 2 * s, hi - s, hi, array);
-      }
-    mid = med3(lo, mid, hi, array);
-
-    int a, b, c, d;
-    int comp;
-
-    // Pull the median element out of the fray, and use it as a pivot.
-    swap(from, mid, array);
-    a = b = from;
-    c = d = from + count - 1;
-
-    // Repeatedly move b and c to each other, swapping elements so
-    // that all elements before index b are less than the pivot, and all
-    // elements after index c are greater than the pivot. a and b track
-    // the elements equal to the pivot.
-    while (true)
-      {
-        while (b <= c && (comp = Double.compare(array[b], array[from])) <= 0)
-          {
-            if (comp == 0)
-              {
-                swap(a, b, array);
-                a++;
-              }
-            b++;
-          }
-        while (c >= b && (comp = Double.compare(array[c], array[from])) >= 0)
-          {
-            if (comp == 0)
-              {
-                swap(c, d, array);
-                d--;
-              }
-            c--;
-          }
-        if (b > c)
-          break;
-        swap(b, c, array);
-        b++;
-        c--;
-      }
-
-    // Swap pivot(s) back in place, the recurse on left and right sections.
-    hi = from + count;
-    int span;
-    span = Math.min(a - from, b - a);
-    vecswap(from, b - span, span, array);
-
-    span = Math.min(d - c, hi - d - 1);
-    vecswap(b, hi - span, span, array);
-
-    span = b - a;
-    if (span > 1)
-      qsort(array, from, span);
-
-    span = d - c;
-    if (span > 1)
-      qsort(array, hi - span, span);
+    TimSort.parallelSort(a, 0, a.length, null);
   }
 
   /**
-   * Sort an array of Objects according to their natural ordering. The sort is
-   * guaranteed to be stable, that is, equal elements will not be reordered.
-   * The sort algorithm is a mergesort with the merge omitted if the last
-   * element of one half comes before the first element of the other half. This
-   * algorithm gives guaranteed O(n*log(n)) time, at the expense of making a
-   * copy of the array.
+   * Sorts a range of an array of Objects according to their natural
+   * ordering, using several threads for large ranges.  The sort is stable.
    *
    * @param a the array to be sorted
+   * @param fromIndex the index of the first element to be sorted
+   * @param toIndex the index of the last element to be sorted plus one
    * @throws ClassCastException if any two elements are not mutually
    *         comparable
    * @throws NullPointerException if an element is null (since
    *         null.compareTo cannot work)
-   * @see Comparable
+   * @throws ArrayIndexOutOfBoundsException if fromIndex and toIndex
+   *         are not in range.
+   * @throws IllegalArgumentException if fromIndex &gt; toIndex
+   * @since 1.8
    */
-  public static void sort(Object[] a)
+  public static <T extends Comparable<? super T>>
+    void parallelSort(T[] a, int fromIndex, int toIndex)
   {
-    sort(a, 0, a.length, null);
+    rangeCheck(a.length, fromIndex, toIndex);
+    TimSort.parallelSort(a, fromIndex, toIndex, null);
   }
 
   /**
-   * Sort an array of Objects according to a Comparator. The sort is
-   * guaranteed to be stable, that is, equal elements will not be reordered.
-   * The sort algorithm is a mergesort with the merge omitted if the last
-   * element of one half comes before the first element of the other half. This
-   * algorithm gives guaranteed O(n*log(n)) time, at the expense of making a
-   * copy of the array.
+   * Sorts an array of Objects according to a Comparator, using several
+   * threads for large arrays.  The sort is stable.
    *
    * @param a the array to be sorted
    * @param c a Comparator to use in sorting the array; or null to indicate
@@ -2436,43 +1796,16 @@ public class Arrays
    *         comparable by the Comparator provided
    * @throws NullPointerException if a null element is compared with natural
    *         ordering (only possible when c is null)
+   * @since 1.8
    */
-  public static <T> void sort(T[] a, Comparator<? super T> c)
+  public static <T> void parallelSort(T[] a, Comparator<? super T> c)
   {
-    sort(a, 0, a.length, c);
+    TimSort.parallelSort(a, 0, a.length, c);
   }
 
   /**
-   * Sort an array of Objects according to their natural ordering. The sort is
-   * guaranteed to be stable, that is, equal elements will not be reordered.
-   * The sort algorithm is a mergesort with the merge omitted if the last
-   * element of one half comes before the first element of the other half. This
-   * algorithm gives guaranteed O(n*log(n)) time, at the expense of making a
-   * copy of the array.
-   *
-   * @param a the array to be sorted
-   * @param fromIndex the index of the first element to be sorted
-   * @param toIndex the index of the last element to be sorted plus one
-   * @throws ClassCastException if any two elements are not mutually
-   *         comparable
-   * @throws NullPointerException if an element is null (since
-   *         null.compareTo cannot work)
-   * @throws ArrayIndexOutOfBoundsException if fromIndex and toIndex
-   *         are not in range.
-   * @throws IllegalArgumentException if fromIndex &gt; toIndex
-   */
-  public static void sort(Object[] a, int fromIndex, int toIndex)
-  {
-    sort(a, fromIndex, toIndex, null);
-  }
-
-  /**
-   * Sort an array of Objects according to a Comparator. The sort is
-   * guaranteed to be stable, that is, equal elements will not be reordered.
-   * The sort algorithm is a mergesort with the merge omitted if the last
-   * element of one half comes before the first element of the other half. This
-   * algorithm gives guaranteed O(n*log(n)) time, at the expense of making a
-   * copy of the array.
+   * Sorts a range of an array of Objects according to a Comparator, using
+   * several threads for large ranges.  The sort is stable.
    *
    * @param a the array to be sorted
    * @param fromIndex the index of the first element to be sorted
@@ -2486,126 +1819,13 @@ public class Arrays
    * @throws IllegalArgumentException if fromIndex &gt; toIndex
    * @throws NullPointerException if a null element is compared with natural
    *         ordering (only possible when c is null)
+   * @since 1.8
    */
-  public static <T> void sort(T[] a, int fromIndex, int toIndex,
-                              Comparator<? super T> c)
+  public static <T> void parallelSort(T[] a, int fromIndex, int toIndex,
+                                      Comparator<? super T> c)
   {
-    if (fromIndex > toIndex)
-      throw new IllegalArgumentException("fromIndex " + fromIndex
-                                         + " > toIndex " + toIndex);
-    if (fromIndex < 0)
-      throw new ArrayIndexOutOfBoundsException();
-
-    // In general, the code attempts to be simple rather than fast, the
-    // idea being that a good optimising JIT will be able to optimise it
-    // better than I can, and if I try it will make it more confusing for
-    // the JIT. First presort the array in chunks of length 6 with insertion
-    // sort. A mergesort would give too much overhead for this length.
-    for (int chunk = fromIndex; chunk < toIndex; chunk += 6)
-      {
-        int end = Math.min(chunk + 6, toIndex);
-        for (int i = chunk + 1; i < end; i++)
-          {
-            if (Collections.compare(a[i - 1], a[i], c) > 0)
-              {
-                // not already sorted
-                int j = i;
-                T elem = a[j];
-                do
-                  {
-                    a[j] = a[j - 1];
-                    j--;
-                  }
-                while (j > chunk
-                       && Collections.compare(a[j - 1], elem, c) > 0);
-                a[j] = elem;
-              }
-          }
-      }
-
-    int len = toIndex - fromIndex;
-    // If length is smaller or equal 6 we are done.
-    if (len <= 6)
-      return;
-
-    T[] src = a;
-    T[] dest = (T[]) new Object[len];
-    T[] t = null; // t is used for swapping src and dest
-
-    // The difference of the fromIndex of the src and dest array.
-    int srcDestDiff = -fromIndex;
-
-    // The merges are done in this loop
-    for (int size = 6; size < len; size <<= 1)
-      {
-        for (int start = fromIndex; start < toIndex; start += size << 1)
-          {
-            // mid is the start of the second sublist;
-            // end the start of the next sublist (or end of array).
-            int mid = start + size;
-            int end = Math.min(toIndex, mid + size);
-
-            // The second list is empty or the elements are already in
-            // order - no need to merge
-            if (mid >= end
-                || Collections.compare(src[mid - 1], src[mid], c) <= 0)
-              {
-                System.arraycopy(src, start,
-                                 dest, start + srcDestDiff, end - start);
-
-                // The two halves just need swapping - no need to merge
-              }
-            else if (Collections.compare(src[start], src[end - 1], c) > 0)
-              {
-                System.arraycopy(src, start,
-                                 dest, end - size + srcDestDiff, size);
-                System.arraycopy(src, mid,
-                                 dest, start + srcDestDiff, end - mid);
-
-              }
-            else
-              {
-                // Declare a lot of variables to save repeating
-                // calculations.  Hopefully a decent JIT will put these
-                // in registers and make this fast
-                int p1 = start;
-                int p2 = mid;
-                int i = start + srcDestDiff;
-
-                // The main merge loop; terminates as soon as either
-                // half is ended
-                while (p1 < mid && p2 < end)
-                  {
-                    dest[i++] =
-                      src[(Collections.compare(src[p1], src[p2], c) <= 0
-                           ? p1++ : p2++)];
-                  }
-
-                // Finish up by copying the remainder of whichever half
-                // wasn't finished.
-                if (p1 < mid)
-                  System.arraycopy(src, p1, dest, i, mid - p1);
-                else
-                  System.arraycopy(src, p2, dest, i, end - p2);
-              }
-          }
-        // swap src and dest ready for the next merge
-        t = src;
-        src = dest;
-        dest = t;
-        fromIndex += srcDestDiff;
-        toIndex += srcDestDiff;
-        srcDestDiff = -srcDestDiff;
-      }
-
-    // make sure the result ends up back in the right place.  Note
-    // that src and dest may have been swapped above, so src
-    // contains the sorted array.
-    if (src != a)
-      {
-        // Note that fromIndex == 0.
-        System.arraycopy(src, 0, a, srcDestDiff, toIndex);
-      }
+    rangeCheck(a.length, fromIndex, toIndex);
+    TimSort.parallelSort(a, fromIndex, toIndex, c);
   }
 
   /**
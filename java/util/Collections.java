@@ -2075,9 +2075,9 @@ public class Collections
    * Sort a list according to the natural ordering of its elements. The list
    * must be modifiable, but can be of fixed size. The sort algorithm is
    * precisely that used by Arrays.sort(Object[]), which offers guaranteed
-   * nlog(n) performance. This implementation dumps the list into an array,
-   * sorts the array, and then iterates over the list setting each element from
-   * the array.
+   * nlog(n) performance. A java.util.ArrayList is sorted in place; this
+   * implementation dumps any other list into an array, sorts the array, and
+   * then iterates over the list setting each element from the array.
    *
    * @param l the List to sort (<code>null</code> not permitted)
    * @throws ClassCastException if some items are not mutually comparable
@@ -2095,9 +2095,9 @@ public class Collections
    * Sort a list according to a specified Comparator. The list must be
    * modifiable, but can be of fixed size. The sort algorithm is precisely that
    * used by Arrays.sort(Object[], Comparator), which offers guaranteed
-   * nlog(n) performance. This implementation dumps the list into an array,
-   * sorts the array, and then iterates over the list setting each element from
-   * the array.
+   * nlog(n) performance. A java.util.ArrayList is sorted in place; this
+   * implementation dumps any other list into an array, sorts the array, and
+   * then iterates over the list setting each element from the array.
    *
    * @param l the List to sort (<code>null</code> not permitted)
    * @param c the Comparator specifying the ordering for the elements, or
@@ -2112,6 +2112,13 @@ public class Collections
    */
   public static <T> void sort(List<T> l, Comparator<? super T> c)
   {
+    // A subclass may override set(), so only ArrayList itself is sorted
+    // in place.
+    if (l.getClass() == ArrayList.class)
+      {
+        ((ArrayList<T>) l).sortInternal(c);
+        return;
+      }
     T[] a = (T[]) l.toArray();
     Arrays.sort(a, c);
     ListIterator<T> i = l.listIterator();
@@ -0,0 +1,2379 @@
+/* DualPivotQuicksort.java -- Sorts arrays of primitive values
+   Copyright (C) 2026 Free Software Foundation, Inc.
+
+This file is part of GNU Classpath.
+
+GNU Classpath is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; either version 2, or (at your option)
+any later version.
+
+GNU Classpath is distributed in the hope that it will be useful, but
+WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with GNU Classpath; see the file COPYING.  If not, write to the
+Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+02110-1301 USA.
+
+Linking this library statically or dynamically with other modules is
+making a combined work based on this library.  Thus, the terms and
+conditions of the GNU General Public License cover the whole
+combination.
+
+As a special exception, the copyright holders of this library give you
+permission to link this library with independent modules to produce an
+executable, regardless of the license terms of these independent
+modules, and to copy and distribute the resulting executable under
+terms of your choice, provided that you also meet, for each linked
+independent module, the terms and conditions of the license of that
+module.  An independent module is a module which is not derived from
+or based on this library.  If you modify this library, you may extend
+this exception to your version of the library, but you are not
+obligated to do so.  If you do not wish to do so, delete this
+exception statement from your version. */
+
+package java.util;
+
+/**
+ * Sorts arrays of primitive values for {@link Arrays}.
+ *
+ * <p>The algorithm is Vladimir Yaroslavskiy's dual-pivot quicksort: a
+ * range is partitioned around two pivots, taken from a sample of five
+ * elements, into three parts which are sorted recursively.  This makes
+ * fewer comparisons and much fewer cache misses than quicksort with a
+ * single pivot.  Small ranges are sorted with an insertion sort.  Should
+ * the recursion get deeper than a few times the logarithm of the length,
+ * because the pivots keep being bad, the range is sorted with heapsort,
+ * so sorting never takes more than n*log(n) time.  Ranges that are
+ * sorted already, or in descending order, are found out in a single
+ * pass.  Large arrays of bytes, chars and shorts are sorted by counting
+ * the values instead.
+ *
+ * <p>The parallel sorts hand the parts of each partition to a
+ * {@link SortJob} until they are small enough to be sorted by a single
+ * thread.
+ *
+ * <p>These sorts are not stable, which makes no difference for primitive
+ * values.
+ */
+final class DualPivotQuicksort
+{
+  /** Ranges up to this length are sorted with an insertion sort. */
+  private static final int INSERTION_SORT_THRESHOLD = 47;
+
+  /** Longer ranges of chars and shorts are sorted by counting. */
+  private static final int COUNTING_SORT_THRESHOLD = 3200;
+
+  /** Longer ranges of bytes are sorted by counting. */
+  private static final int BYTE_COUNTING_SORT_THRESHOLD = 29;
+
+  /**
+   * This class is non-instantiable.
+   */
+  private DualPivotQuicksort()
+  {
+  }
+
+  /**
+   * Returns how many times a range may be partitioned before it is
+   * sorted with heapsort.
+   */
+  private static int depthLimit(int length)
+  {
+    return 2 * (32 - Integer.numberOfLeadingZeros(length));
+  }
+
+  /**
+   * Sorts a range of an int array.
+   *
+   * @param a the array
+   * @param from the first index to sort (inclusive)
+   * @param to the last index to sort (exclusive)
+   */
+  static void sort(int[] a, int from, int to)
+  {
+    if (!ordered(a, from, to))
+      sort(a, from, to, depthLimit(to - from), new int[4]);
+  }
+
+  /**
+   * Sorts a range of an int array on several threads.  The range is
+   * partitioned in the same way as by {@link #sort(int[], int, int)},
+   * and the parts are sorted in parallel.
+   *
+   * @param a the array
+   * @param from the first index to sort (inclusive)
+   * @param to the last index to sort (exclusive)
+   */
+  static void parallelSort(final int[] a, int from, int to)
+  {
+    if (!SortJob.isParallel(to - from))
+      {
+        sort(a, from, to);
+        return;
+      }
+    if (ordered(a, from, to))
+      return;
+    final int grain = SortJob.grain(to - from);
+    SortJob job = new SortJob()
+    {
+      void process(int[] task)
+      {
+        int from = task[0];
+        int to = task[1];
+        int depth = task[2];
+        int[] bounds = new int[4];
+        if (to - from <= grain || depth == 0)
+          sort(a, from, to, depth, bounds);
+        else
+          {
+            partition(a, from, to, bounds);
+            fork(from, bounds[0], depth - 1);
+            fork(bounds[1], bounds[2], depth - 1);
+            fork(bounds[3], to, depth - 1);
+          }
+      }
+    };
+    job.fork(from, to, depthLimit(to - from));
+    job.run();
+  }
+
+  /**
+   * Sorts a range with dual-pivot quicksort, or with heapsort once the
+   * partitions have been bad too often.
+   *
+   * @param a the array
+   * @param from the first index to sort (inclusive)
+   * @param to the last index to sort (exclusive)
+   * @param depth how many more times the range may be partitioned
+   * @param bounds scratch space for {@link #partition}
+   */
+  private static void sort(int[] a, int from, int to, int depth,
+                           int[] bounds)
+  {
+    while (to - from > INSERTION_SORT_THRESHOLD)
+      {
+        if (--depth < 0)
+          {
+            heapSort(a, from, to);
+            return;
+          }
+        partition(a, from, to, bounds);
+        int leftEnd = bounds[0];
+        int middleStart = bounds[1];
+        int middleEnd = bounds[2];
+        int rightStart = bounds[3];
+        sort(a, from, leftEnd, depth, bounds);
+        sort(a, middleStart, middleEnd, depth, bounds);
+        from = rightStart;
+      }
+    insertionSort(a, from, to);
+  }
+
+  /**
+   * Partitions a range around two pivots.  Afterwards the range consists
+   * of a left part, which is less than the first pivot, the first pivot,
+   * a middle part, the second pivot and a right part, which is greater
+   * than the second pivot.  Elements equal to the pivots are put next to
+   * them when there are many.  The parts that still need sorting are
+   * <code>[from, bounds[0])</code>, <code>[bounds[1], bounds[2])</code>
+   * and <code>[bounds[3], to)</code>.
+   *
+   * @param a the array
+   * @param from the first index (inclusive), at least 48 before to
+   * @param to the last index (exclusive)
+   * @param bounds receives the limits of the three parts
+   */
+  private static void partition(int[] a, int from, int to, int[] bounds)
+  {
+    int left = from;
+    int right = to - 1;
+    int length = to - from;
+
+    // Sort five evenly spaced elements around the middle; the second and
+    // the fourth become the pivots.
+    int seventh = (length >> 3) + (length >> 6) + 1;
+    int e3 = (left + right) >>> 1;
+    int e2 = e3 - seventh;
+    int e1 = e2 - seventh;
+    int e4 = e3 + seventh;
+    int e5 = e4 + seventh;
+    sort2(a, e1, e2);
+    sort2(a, e4, e5);
+    sort2(a, e3, e5);
+    sort2(a, e3, e4);
+    sort2(a, e1, e4);
+    sort2(a, e1, e3);
+    sort2(a, e2, e5);
+    sort2(a, e2, e4);
+    sort2(a, e2, e3);
+
+    if (a[e2] != a[e4])
+      {
+        int pivot1 = a[e2];
+        int pivot2 = a[e4];
+
+        // The elements at the ends take the place of the pivots, which
+        // are put in their final places at the end.  a[e1] and a[e5]
+        // stop the first two loops.
+        a[e2] = a[left];
+        a[e4] = a[right];
+        int less = left;
+        int great = right;
+        while (a[++less] < pivot1)
+          ;
+        while (a[--great] > pivot2)
+          ;
+
+        // [left + 1, less) is less than pivot1, [less, k) is between the
+        // pivots and (great, right) is greater than pivot2.
+        outer:
+        for (int k = less - 1; ++k <= great;)
+          {
+            int ak = a[k];
+            if (ak < pivot1)
+              {
+                a[k] = a[less];
+                a[less] = ak;
+                ++less;
+              }
+            else if (ak > pivot2)
+              {
+                while (a[great] > pivot2)
+                  if (great-- == k)
+                    break outer;
+                if (a[great] < pivot1)
+                  {
+                    a[k] = a[less];
+                    a[less] = a[great];
+                    ++less;
+                  }
+                else
+                  a[k] = a[great];
+                a[great] = ak;
+                --great;
+              }
+          }
+
+        a[left] = a[less - 1];
+        a[less - 1] = pivot1;
+        a[right] = a[great + 1];
+        a[great + 1] = pivot2;
+        bounds[0] = less - 1;
+        bounds[3] = great + 2;
+
+        // A large middle part probably holds many elements equal to the
+        // pivots; move them to its ends so that they are not sorted again.
+        if (less < e1 && e5 < great)
+          {
+            while (a[less] == pivot1)
+              ++less;
+            while (a[great] == pivot2)
+              --great;
+            outer:
+            for (int k = less - 1; ++k <= great;)
+              {
+                int ak = a[k];
+                if (ak == pivot1)
+                  {
+                    a[k] = a[less];
+                    a[less] = ak;
+                    ++less;
+                  }
+                else if (ak == pivot2)
+                  {
+                    while (a[great] == pivot2)
+                      if (great-- == k)
+                        break outer;
+                    if (a[great] == pivot1)
+                      {
+                        a[k] = a[less];
+                        a[less] = a[great];
+                        ++less;
+                      }
+                    else
+                      a[k] = a[great];
+                    a[great] = ak;
+                    --great;
+                  }
+              }
+          }
+        bounds[1] = less;
+        bounds[2] = great + 1;
+      }
+    else
+      {
+        // The pivots are equal, so there are probably many equal
+        // elements.  Partition into less than, equal to and greater than
+        // a single pivot; the equal part is already sorted.
+        int pivot = a[e3];
+        int less = left;
+        int great = right;
+        for (int k = less; k <= great; ++k)
+          {
+            if (a[k] == pivot)
+              continue;
+            int ak = a[k];
+            if (ak < pivot)
+              {
+                a[k] = a[less];
+                a[less] = ak;
+                ++less;
+              }
+            else
+              {
+                while (a[great] > pivot)
+                  --great;
+                if (a[great] < pivot)
+                  {
+                    a[k] = a[less];
+                    a[less] = a[great];
+                    ++less;
+                  }
+                else
+                  a[k] = a[great];
+                a[great] = ak;
+                --great;
+              }
+          }
+        bounds[0] = less;
+        bounds[1] = less;
+        bounds[2] = less;
+        bounds[3] = great + 1;
+      }
+  }
+
+  /**
+   * Swaps two elements if they are out of order.
+   */
+  private static void sort2(int[] a, int i, int j)
+  {
+    int ai = a[i];
+    if (a[j] < ai)
+      {
+        a[i] = a[j];
+        a[j] = ai;
+      }
+  }
+
+  /**
+   * Sorts a small range with an insertion sort.
+   */
+  private static void insertionSort(int[] a, int from, int to)
+  {
+    for (int i = from + 1; i < to; i++)
+      {
+        int ai = a[i];
+        int j = i - 1;
+        while (j >= from && ai < a[j])
+          {
+            a[j + 1] = a[j];
+            j--;
+          }
+        a[j + 1] = ai;
+      }
+  }
+
+  /**
+   * Sorts a range with heapsort, which takes n*log(n) time whatever
+   * the input.
+   */
+  private static void heapSort(int[] a, int from, int to)
+  {
+    int n = to - from;
+    for (int i = (n >>> 1) - 1; i >= 0; i--)
+      siftDown(a, from, i, n);
+    for (int i = n - 1; i > 0; i--)
+      {
+        int max = a[from];
+        a[from] = a[from + i];
+        a[from + i] = max;
+        siftDown(a, from, 0, i);
+      }
+  }
+
+  /**
+   * Moves an element of a heap down until its children are no greater.
+   *
+   * @param a the array
+   * @param from the index of the root of the heap
+   * @param i the position of the element in the heap
+   * @param n the size of the heap
+   */
+  private static void siftDown(int[] a, int from, int i, int n)
+  {
+    int x = a[from + i];
+    int child;
+    while ((child = (i << 1) + 1) < n)
+      {
+        if (child + 1 < n && a[from + child] < a[from + child + 1])
+          child++;
+        if (x >= a[from + child])
+          break;
+        a[from + i] = a[from + child];
+        i = child;
+      }
+    a[from + i] = x;
+  }
+
+  /**
+   * Checks whether a range is already sorted, which makes sorting data
+   * that is mostly sorted already cheap.  A range in strictly descending
+   * order is reversed.  Unsorted ranges are usually found out after a
+   * few elements.
+   *
+   * @return true if the range is now sorted
+   */
+  private static boolean ordered(int[] a, int from, int to)
+  {
+    int k = from + 1;
+    if (k >= to)
+      return true;
+    if (a[k - 1] <= a[k])
+      {
+        while (++k < to && a[k - 1] <= a[k])
+          ;
+        return k == to;
+      }
+    while (++k < to && a[k - 1] > a[k])
+      ;
+    if (k < to)
+      return false;
+    for (int i = from, j = to - 1; i < j; i++, j--)
+      {
+        int ai = a[i];
+        a[i] = a[j];
+        a[j] = ai;
+      }
+    return true;
+  }
+
+  /**
+   * Sorts a range of an long array.
+   *
+   * @param a the array
+   * @param from the first index to sort (inclusive)
+   * @param to the last index to sort (exclusive)
+   */
+  static void sort(long[] a, int from, int to)
+  {
+    if (!ordered(a, from, to))
+      sort(a, from, to, depthLimit(to - from), new int[4]);
+  }
+
+  /**
+   * Sorts a range of an long array on several threads.  The range is
+   * partitioned in the same way as by {@link #sort(long[], int, int)},
+   * and the parts are sorted in parallel.
+   *
+   * @param a the array
+   * @param from the first index to sort (inclusive)
+   * @param to the last index to sort (exclusive)
+   */
+  static void parallelSort(final long[] a, int from, int to)
+  {
+    if (!SortJob.isParallel(to - from))
+      {
+        sort(a, from, to);
+        return;
+      }
+    if (ordered(a, from, to))
+      return;
+    final int grain = SortJob.grain(to - from);
+    SortJob job = new SortJob()
+    {
+      void process(int[] task)
+      {
+        int from = task[0];
+        int to = task[1];
+        int depth = task[2];
+        int[] bounds = new int[4];
+        if (to - from <= grain || depth == 0)
+          sort(a, from, to, depth, bounds);
+        else
+          {
+            partition(a, from, to, bounds);
+            fork(from, bounds[0], depth - 1);
+            fork(bounds[1], bounds[2], depth - 1);
+            fork(bounds[3], to, depth - 1);
+          }
+      }
+    };
+    job.fork(from, to, depthLimit(to - from));
+    job.run();
+  }
+
+  /**
+   * Sorts a range with dual-pivot quicksort, or with heapsort once the
+   * partitions have been bad too often.
+   *
+   * @param a the array
+   * @param from the first index to sort (inclusive)
+   * @param to the last index to sort (exclusive)
+   * @param depth how many more times the range may be partitioned
+   * @param bounds scratch space for {@link #partition}
+   */
+  private static void sort(long[] a, int from, int to, int depth,
+                           int[] bounds)
+  {
+    while (to - from > INSERTION_SORT_THRESHOLD)
+      {
+        if (--depth < 0)
+          {
+            heapSort(a, from, to);
+            return;
+          }
+        partition(a, from, to, bounds);
+        int leftEnd = bounds[0];
+        int middleStart = bounds[1];
+        int middleEnd = bounds[2];
+        int rightStart = bounds[3];
+        sort(a, from, leftEnd, depth, bounds);
+        sort(a, middleStart, middleEnd, depth, bounds);
+        from = rightStart;
+      }
+    insertionSort(a, from, to);
+  }
+
+  /**
+   * Partitions a range around two pivots.  Afterwards the range consists
+   * of a left part, which is less than the first pivot, the first pivot,
+   * a middle part, the second pivot and a right part, which is greater
+   * than the second pivot.  Elements equal to the pivots are put next to
+   * them when there are many.  The parts that still need sorting are
+   * <code>[from, bounds[0])</code>, <code>[bounds[1], bounds[2])</code>
+   * and <code>[bounds[3], to)</code>.
+   *
+   * @param a the array
+   * @param from the first index (inclusive), at least 48 before to
+   * @param to the last index (exclusive)
+   * @param bounds receives the limits of the three parts
+   */
+  private static void partition(long[] a, int from, int to, int[] bounds)
+  {
+    int left = from;
+    int right = to - 1;
+    int length = to - from;
+
+    // Sort five evenly spaced elements around the middle; the second and
+    // the fourth become the pivots.
+    int seventh = (length >> 3) + (length >> 6) + 1;
+    int e3 = (left + right) >>> 1;
+    int e2 = e3 - seventh;
+    int e1 = e2 - seventh;
+    int e4 = e3 + seventh;
+    int e5 = e4 + seventh;
+    sort2(a, e1, e2);
+    sort2(a, e4, e5);
+    sort2(a, e3, e5);
+    sort2(a, e3, e4);
+    sort2(a, e1, e4);
+    sort2(a, e1, e3);
+    sort2(a, e2, e5);
+    sort2(a, e2, e4);
+    sort2(a, e2, e3);
+
+    if (a[e2] != a[e4])
+      {
+        long pivot1 = a[e2];
+        long pivot2 = a[e4];
+
+        // The elements at the ends take the place of the pivots, which
+        // are put in their final places at the end.  a[e1] and a[e5]
+        // stop the first two loops.
+        a[e2] = a[left];
+        a[e4] = a[right];
+        int less = left;
+        int great = right;
+        while (a[++less] < pivot1)
+          ;
+        while (a[--great] > pivot2)
+          ;
+
+        // [left + 1, less) is less than pivot1, [less, k) is between the
+        // pivots and (great, right) is greater than pivot2.
+        outer:
+        for (int k = less - 1; ++k <= great;)
+          {
+            long ak = a[k];
+            if (ak < pivot1)
+              {
+                a[k] = a[less];
+                a[less] = ak;
+                ++less;
+              }
+            else if (ak > pivot2)
+              {
+                while (a[great] > pivot2)
+                  if (great-- == k)
+                    break outer;
+                if (a[great] < pivot1)
+                  {
+                    a[k] = a[less];
+                    a[less] = a[great];
+                    ++less;
+                  }
+                else
+                  a[k] = a[great];
+                a[great] = ak;
+                --great;
+              }
+          }
+
+        a[left] = a[less - 1];
+        a[less - 1] = pivot1;
+        a[right] = a[great + 1];
+        a[great + 1] = pivot2;
+        bounds[0] = less - 1;
+        bounds[3] = great + 2;
+
+        // A large middle part probably holds many elements equal to the
+        // pivots; move them to its ends so that they are not sorted again.
+        if (less < e1 && e5 < great)
+          {
+            while (a[less] == pivot1)
+              ++less;
+            while (a[great] == pivot2)
+              --great;
+            outer:
+            for (int k = less - 1; ++k <= great;)
+              {
+                long ak = a[k];
+                if (ak == pivot1)
+                  {
+                    a[k] = a[less];
+                    a[less] = ak;
+                    ++less;
+                  }
+                else if (ak == pivot2)
+                  {
+                    while (a[great] == pivot2)
+                      if (great-- == k)
+                        break outer;
+                    if (a[great] == pivot1)
+                      {
+                        a[k] = a[less];
+                        a[less] = a[great];
+                        ++less;
+                      }
+                    else
+                      a[k] = a[great];
+                    a[great] = ak;
+                    --great;
+                  }
+              }
+          }
+        bounds[1] = less;
+        bounds[2] = great + 1;
+      }
+    else
+      {
+        // The pivots are equal, so there are probably many equal
+        // elements.  Partition into less than, equal to and greater than
+        // a single pivot; the equal part is already sorted.
+        long pivot = a[e3];
+        int less = left;
+        int great = right;
+        for (int k = less; k <= great; ++k)
+          {
+            if (a[k] == pivot)
+              continue;
+            long ak = a[k];
+            if (ak < pivot)
+              {
+                a[k] = a[less];
+                a[less] = ak;
+                ++less;
+              }
+            else
+              {
+                while (a[great] > pivot)
+                  --great;
+                if (a[great] < pivot)
+                  {
+                    a[k] = a[less];
+                    a[less] = a[great];
+                    ++less;
+                  }
+                else
+                  a[k] = a[great];
+                a[great] = ak;
+                --great;
+              }
+          }
+        bounds[0] = less;
+        bounds[1] = less;
+        bounds[2] = less;
+        bounds[3] = great + 1;
+      }
+  }
+
+  /**
+   * Swaps two elements if they are out of order.
+   */
+  private static void sort2(long[] a, int i, int j)
+  {
+    long ai = a[i];
+    if (a[j] < ai)
+      {
+        a[i] = a[j];
+        a[j] = ai;
+      }
+  }
+
+  /**
+   * Sorts a small range with an insertion sort.
+   */
+  private static void insertionSort(long[] a, int from, int to)
+  {
+    for (int i = from + 1; i < to; i++)
+      {
+        long ai = a[i];
+        int j = i - 1;
+        while (j >= from && ai < a[j])
+          {
+            a[j + 1] = a[j];
+            j--;
+          }
+        a[j + 1] = ai;
+      }
+  }
+
+  /**
+   * Sorts a range with heapsort, which takes n*log(n) time whatever
+   * the input.
+   */
+  private static void heapSort(long[] a, int from, int to)
+  {
+    int n = to - from;
+    for (int i = (n >>> 1) - 1; i >= 0; i--)
+      siftDown(a, from, i, n);
+    for (int i = n - 1; i > 0; i--)
+      {
+        long max = a[from];
+        a[from] = a[from + i];
+        a[from + i] = max;
+        siftDown(a, from, 0, i);
+      }
+  }
+
+  /**
+   * Moves an element of a heap down until its children are no greater.
+   *
+   * @param a the array
+   * @param from the index of the root of the heap
+   * @param i the position of the element in the heap
+   * @param n the size of the heap
+   */
+  private static void siftDown(long[] a, int from, int i, int n)
+  {
+    long x = a[from + i];
+    int child;
+    while ((child = (i << 1) + 1) < n)
+      {
+        if (child + 1 < n && a[from + child] < a[from + child + 1])
+          child++;
+        if (x >= a[from + child])
+          break;
+        a[from + i] = a[from + child];
+        i = child;
+      }
+    a[from + i] = x;
+  }
+
+  /**
+   * Checks whether a range is already sorted, which makes sorting data
+   * that is mostly sorted already cheap.  A range in strictly descending
+   * order is reversed.  Unsorted ranges are usually found out after a
+   * few elements.
+   *
+   * @return true if the range is now sorted
+   */
+  private static boolean ordered(long[] a, int from, int to)
+  {
+    int k = from + 1;
+    if (k >= to)
+      return true;
+    if (a[k - 1] <= a[k])
+      {
+        while (++k < to && a[k - 1] <= a[k])
+          ;
+        return k == to;
+      }
+    while (++k < to && a[k - 1] > a[k])
+      ;
+    if (k < to)
+      return false;
+    for (int i = from, j = to - 1; i < j; i++, j--)
+      {
+        long ai = a[i];
+        a[i] = a[j];
+        a[j] = ai;
+      }
+    return true;
+  }
+
+  /**
+   * Sorts a range of a short array.
+   *
+   * @param a the array
+   * @param from the first index to sort (inclusive)
+   * @param to the last index to sort (exclusive)
+   */
+  static void sort(short[] a, int from, int to)
+  {
+    if (to - from > COUNTING_SORT_THRESHOLD)
+      countingSort(a, from, to);
+    else if (!ordered(a, from, to))
+      sort(a, from, to, depthLimit(to - from), new int[4]);
+  }
+
+  /**
+   * Sorts a range by counting how often each value occurs.
+   */
+  private static void countingSort(short[] a, int from, int to)
+  {
+    int[] count = new int[1 << 16];
+    for (int i = from; i < to; i++)
+      count[a[i] - Short.MIN_VALUE]++;
+    int k = from;
+    for (int v = 0; k < to; v++)
+      for (int n = count[v]; n > 0; n--)
+        a[k++] = (short) (v + Short.MIN_VALUE);
+  }
+
+  /**
+   * Sorts a range with dual-pivot quicksort, or with heapsort once the
+   * partitions have been bad too often.
+   *
+   * @param a the array
+   * @param from the first index to sort (inclusive)
+   * @param to the last index to sort (exclusive)
+   * @param depth how many more times the range may be partitioned
+   * @param bounds scratch space for {@link #partition}
+   */
+  private static void sort(short[] a, int from, int to, int depth,
+                           int[] bounds)
+  {
+    while (to - from > INSERTION_SORT_THRESHOLD)
+      {
+        if (--depth < 0)
+          {
+            heapSort(a, from, to);
+            return;
+          }
+        partition(a, from, to, bounds);
+        int leftEnd = bounds[0];
+        int middleStart = bounds[1];
+        int middleEnd = bounds[2];
+        int rightStart = bounds[3];
+        sort(a, from, leftEnd, depth, bounds);
+        sort(a, middleStart, middleEnd, depth, bounds);
+        from = rightStart;
+      }
+    insertionSort(a, from, to);
+  }
+
+  /**
+   * Partitions a range around two pivots.  Afterwards the range consists
+   * of a left part, which is less than the first pivot, the first pivot,
+   * a middle part, the second pivot and a right part, which is greater
+   * than the second pivot.  Elements equal to the pivots are put next to
+   * them when there are many.  The parts that still need sorting are
+   * <code>[from, bounds[0])</code>, <code>[bounds[1], bounds[2])</code>
+   * and <code>[bounds[3], to)</code>.
+   *
+   * @param a the array
+   * @param from the first index (inclusive), at least 48 before to
+   * @param to the last index (exclusive)
+   * @param bounds receives the limits of the three parts
+   */
+  private static void partition(short[] a, int from, int to, int[] bounds)
+  {
+    int left = from;
+    int right = to - 1;
+    int length = to - from;
+
+    // Sort five evenly spaced elements around the middle; the second and
+    // the fourth become the pivots.
+    int seventh = (length >> 3) + (length >> 6) + 1;
+    int e3 = (left + right) >>> 1;
+    int e2 = e3 - seventh;
+    int e1 = e2 - seventh;
+    int e4 = e3 + seventh;
+    int e5 = e4 + seventh;
+    sort2(a, e1, e2);
+    sort2(a, e4, e5);
+    sort2(a, e3, e5);
+    sort2(a, e3, e4);
+    sort2(a, e1, e4);
+    sort2(a, e1, e3);
+    sort2(a, e2, e5);
+    sort2(a, e2, e4);
+    sort2(a, e2, e3);
+
+    if (a[e2] != a[e4])
+      {
+        short pivot1 = a[e2];
+        short pivot2 = a[e4];
+
+        // The elements at the ends take the place of the pivots, which
+        // are put in their final places at the end.  a[e1] and a[e5]
+        // stop the first two loops.
+        a[e2] = a[left];
+        a[e4] = a[right];
+        int less = left;
+        int great = right;
+        while (a[++less] < pivot1)
+          ;
+        while (a[--great] > pivot2)
+          ;
+
+        // [left + 1, less) is less than pivot1, [less, k) is between the
+        // pivots and (great, right) is greater than pivot2.
+        outer:
+        for (int k = less - 1; ++k <= great;)
+          {
+            short ak = a[k];
+            if (ak < pivot1)
+              {
+                a[k] = a[less];
+                a[less] = ak;
+                ++less;
+              }
+            else if (ak > pivot2)
+              {
+                while (a[great] > pivot2)
+                  if (great-- == k)
+                    break outer;
+                if (a[great] < pivot1)
+                  {
+                    a[k] = a[less];
+                    a[less] = a[great];
+                    ++less;
+                  }
+                else
+                  a[k] = a[great];
+                a[great] = ak;
+                --great;
+              }
+          }
+
+        a[left] = a[less - 1];
+        a[less - 1] = pivot1;
+        a[right] = a[great + 1];
+        a[great + 1] = pivot2;
+        bounds[0] = less - 1;
+        bounds[3] = great + 2;
+
+        // A large middle part probably holds many elements equal to the
+        // pivots; move them to its ends so that they are not sorted again.
+        if (less < e1 && e5 < great)
+          {
+            while (a[less] == pivot1)
+              ++less;
+            while (a[great] == pivot2)
+              --great;
+            outer:
+            for (int k = less - 1; ++k <= great;)
+              {
+                short ak = a[k];
+                if (ak == pivot1)
+                  {
+                    a[k] = a[less];
+                    a[less] = ak;
+                    ++less;
+                  }
+                else if (ak == pivot2)
+                  {
+                    while (a[great] == pivot2)
+                      if (great-- == k)
+                        break outer;
+                    if (a[great] == pivot1)
+                      {
+                        a[k] = a[less];
+                        a[less] = a[great];
+                        ++less;
+                      }
+                    else
+                      a[k] = a[great];
+                    a[great] = ak;
+                    --great;
+                  }
+              }
+          }
+        bounds[1] = less;
+        bounds[2] = great + 1;
+      }
+    else
+      {
+        // The pivots are equal, so there are probably many equal
+        // elements.  Partition into less than, equal to and greater than
+        // a single pivot; the equal part is already sorted.
+        short pivot = a[e3];
+        int less = left;
+        int great = right;
+        for (int k = less; k <= great; ++k)
+          {
+            if (a[k] == pivot)
+              continue;
+            short ak = a[k];
+            if (ak < pivot)
+              {
+                a[k] = a[less];
+                a[less] = ak;
+                ++less;
+              }
+            else
+              {
+                while (a[great] > pivot)
+                  --great;
+                if (a[great] < pivot)
+                  {
+                    a[k] = a[less];
+                    a[less] = a[great];
+                    ++less;
+                  }
+                else
+                  a[k] = a[great];
+                a[great] = ak;
+                --great;
+              }
+          }
+        bounds[0] = less;
+        bounds[1] = less;
+        bounds[2] = less;
+        bounds[3] = great + 1;
+      }
+  }
+
+  /**
+   * Swaps two elements if they are out of order.
+   */
+  private static void sort2(short[] a, int i, int j)
+  {
+    short ai = a[i];
+    if (a[j] < ai)
+      {
+        a[i] = a[j];
+        a[j] = ai;
+      }
+  }
+
+  /**
+   * Sorts a small range with an insertion sort.
+   */
+  private static void insertionSort(short[] a, int from, int to)
+  {
+    for (int i = from + 1; i < to; i++)
+      {
+        short ai = a[i];
+        int j = i - 1;
+        while (j >= from && ai < a[j])
+          {
+            a[j + 1] = a[j];
+            j--;
+          }
+        a[j + 1] = ai;
+      }
+  }
+
+  /**
+   * Sorts a range with heapsort, which takes n*log(n) time whatever
+   * the input.
+   */
+  private static void heapSort(short[] a, int from, int to)
+  {
+    int n = to - from;
+    for (int i = (n >>> 1) - 1; i >= 0; i--)
+      siftDown(a, from, i, n);
+    for (int i = n - 1; i > 0; i--)
+      {
+        short max = a[from];
+        a[from] = a[from + i];
+        a[from + i] = max;
+        siftDown(a, from, 0, i);
+      }
+  }
+
+  /**
+   * Moves an element of a heap down until its children are no greater.
+   *
+   * @param a the array
+   * @param from the index of the root of the heap
+   * @param i the position of the element in the heap
+   * @param n the size of the heap
+   */
+  private static void siftDown(short[] a, int from, int i, int n)
+  {
+    short x = a[from + i];
+    int child;
+    while ((child = (i << 1) + 1) < n)
+      {
+        if (child + 1 < n && a[from + child] < a[from + child + 1])
+          child++;
+        if (x >= a[from + child])
+          break;
+        a[from + i] = a[from + child];
+        i = child;
+      }
+    a[from + i] = x;
+  }
+
+  /**
+   * Checks whether a range is already sorted, which makes sorting data
+   * that is mostly sorted already cheap.  A range in strictly descending
+   * order is reversed.  Unsorted ranges are usually found out after a
+   * few elements.
+   *
+   * @return true if the range is now sorted
+   */
+  private static boolean ordered(short[] a, int from, int to)
+  {
+    int k = from + 1;
+    if (k >= to)
+      return true;
+    if (a[k - 1] <= a[k])
+      {
+        while (++k < to && a[k - 1] <= a[k])
+          ;
+        return k == to;
+      }
+    while (++k < to && a[k - 1] > a[k])
+      ;
+    if (k < to)
+      return false;
+    for (int i = from, j = to - 1; i < j; i++, j--)
+      {
+        short ai = a[i];
+        a[i] = a[j];
+        a[j] = ai;
+      }
+    return true;
+  }
+
+  /**
+   * Sorts a range of a char array.
+   *
+   * @param a the array
+   * @param from the first index to sort (inclusive)
+   * @param to the last index to sort (exclusive)
+   */
+  static void sort(char[] a, int from, int to)
+  {
+    if (to - from > COUNTING_SORT_THRESHOLD)
+      countingSort(a, from, to);
+    else if (!ordered(a, from, to))
+      sort(a, from, to, depthLimit(to - from), new int[4]);
+  }
+
+  /**
+   * Sorts a range by counting how often each value occurs.
+   */
+  private static void countingSort(char[] a, int from, int to)
+  {
+    int[] count = new int[1 << 16];
+    for (int i = from; i < to; i++)
+      count[a[i]]++;
+    int k = from;
+    for (int v = 0; k < to; v++)
+      for (int n = count[v]; n > 0; n--)
+        a[k++] = (char) v;
+  }
+
+  /**
+   * Sorts a range with dual-pivot quicksort, or with heapsort once the
+   * partitions have been bad too often.
+   *
+   * @param a the array
+   * @param from the first index to sort (inclusive)
+   * @param to the last index to sort (exclusive)
+   * @param depth how many more times the range may be partitioned
+   * @param bounds scratch space for {@link #partition}
+   */
+  private static void sort(char[] a, int from, int to, int depth,
+                           int[] bounds)
+  {
+    while (to - from > INSERTION_SORT_THRESHOLD)
+      {
+        if (--depth < 0)
+          {
+            heapSort(a, from, to);
+            return;
+          }
+        partition(a, from, to, bounds);
+        int leftEnd = bounds[0];
+        int middleStart = bounds[1];
+        int middleEnd = bounds[2];
+        int rightStart = bounds[3];
+        sort(a, from, leftEnd, depth, bounds);
+        sort(a, middleStart, middleEnd, depth, bounds);
+        from = rightStart;
+      }
+    insertionSort(a, from, to);
+  }
+
+  /**
+   * Partitions a range around two pivots.  Afterwards the range consists
+   * of a left part, which is less than the first pivot, the first pivot,
+   * a middle part, the second pivot and a right part, which is greater
+   * than the second pivot.  Elements equal to the pivots are put next to
+   * them when there are many.  The parts that still need sorting are
+   * <code>[from, bounds[0])</code>, <code>[bounds[1], bounds[2])</code>
+   * and <code>[bounds[3], to)</code>.
+   *
+   * @param a the array
+   * @param from the first index (inclusive), at least 48 before to
+   * @param to the last index (exclusive)
+   * @param bounds receives the limits of the three parts
+   */
+  private static void partition(char[] a, int from, int to, int[] bounds)
+  {
+    int left = from;
+    int right = to - 1;
+    int length = to - from;
+
+    // Sort five evenly spaced elements around the middle; the second and
+    // the fourth become the pivots.
+    int seventh = (length >> 3) + (length >> 6) + 1;
+    int e3 = (left + right) >>> 1;
+    int e2 = e3 - seventh;
+    int e1 = e2 - seventh;
+    int e4 = e3 + seventh;
+    int e5 = e4 + seventh;
+    sort2(a, e1, e2);
+    sort2(a, e4, e5);
+    sort2(a, e3, e5);
+    sort2(a, e3, e4);
+    sort2(a, e1, e4);
+    sort2(a, e1, e3);
+    sort2(a, e2, e5);
+    sort2(a, e2, e4);
+    sort2(a, e2, e3);
+
+    if (a[e2] != a[e4])
+      {
+        char pivot1 = a[e2];
+        char pivot2 = a[e4];
+
+        // The elements at the ends take the place of the pivots, which
+        // are put in their final places at the end.  a[e1] and a[e5]
+        // stop the first two loops.
+        a[e2] = a[left];
+        a[e4] = a[right];
+        int less = left;
+        int great = right;
+        while (a[++less] < pivot1)
+          ;
+        while (a[--great] > pivot2)
+          ;
+
+        // [left + 1, less) is less than pivot1, [less, k) is between the
+        // pivots and (great, right) is greater than pivot2.
+        outer:
+        for (int k = less - 1; ++k <= great;)
+          {
+            char ak = a[k];
+            if (ak < pivot1)
+              {
+                a[k] = a[less];
+                a[less] = ak;
+                ++less;
+              }
+            else if (ak > pivot2)
+              {
+                while (a[great] > pivot2)
+                  if (great-- == k)
+                    break outer;
+                if (a[great] < pivot1)
+                  {
+                    a[k] = a[less];
+                    a[less] = a[great];
+                    ++less;
+                  }
+                else
+                  a[k] = a[great];
+                a[great] = ak;
+                --great;
+              }
+          }
+
+        a[left] = a[less - 1];
+        a[less - 1] = pivot1;
+        a[right] = a[great + 1];
+        a[great + 1] = pivot2;
+        bounds[0] = less - 1;
+        bounds[3] = great + 2;
+
+        // A large middle part probably holds many elements equal to the
+        // pivots; move them to its ends so that they are not sorted again.
+        if (less < e1 && e5 < great)
+          {
+            while (a[less] == pivot1)
+              ++less;
+            while (a[great] == pivot2)
+              --great;
+            outer:
+            for (int k = less - 1; ++k <= great;)
+              {
+                char ak = a[k];
+                if (ak == pivot1)
+                  {
+                    a[k] = a[less];
+                    a[less] = ak;
+                    ++less;
+                  }
+                else if (ak == pivot2)
+                  {
+                    while (a[great] == pivot2)
+                      if (great-- == k)
+                        break outer;
+                    if (a[great] == pivot1)
+                      {
+                        a[k] = a[less];
+                        a[less] = a[great];
+                        ++less;
+                      }
+                    else
+                      a[k] = a[great];
+                    a[great] = ak;
+                    --great;
+                  }
+              }
+          }
+        bounds[1] = less;
+        bounds[2] = great + 1;
+      }
+    else
+      {
+        // The pivots are equal, so there are probably many equal
+        // elements.  Partition into less than, equal to and greater than
+        // a single pivot; the equal part is already sorted.
+        char pivot = a[e3];
+        int less = left;
+        int great = right;
+        for (int k = less; k <= great; ++k)
+          {
+            if (a[k] == pivot)
+              continue;
+            char ak = a[k];
+            if (ak < pivot)
+              {
+                a[k] = a[less];
+                a[less] = ak;
+                ++less;
+              }
+            else
+              {
+                while (a[great] > pivot)
+                  --great;
+                if (a[great] < pivot)
+                  {
+                    a[k] = a[less];
+                    a[less] = a[great];
+                    ++less;
+                  }
+                else
+                  a[k] = a[great];
+                a[great] = ak;
+                --great;
+              }
+          }
+        bounds[0] = less;
+        bounds[1] = less;
+        bounds[2] = less;
+        bounds[3] = great + 1;
+      }
+  }
+
+  /**
+   * Swaps two elements if they are out of order.
+   */
+  private static void sort2(char[] a, int i, int j)
+  {
+    char ai = a[i];
+    if (a[j] < ai)
+      {
+        a[i] = a[j];
+        a[j] = ai;
+      }
+  }
+
+  /**
+   * Sorts a small range with an insertion sort.
+   */
+  private static void insertionSort(char[] a, int from, int to)
+  {
+    for (int i = from + 1; i < to; i++)
+      {
+        char ai = a[i];
+        int j = i - 1;
+        while (j >= from && ai < a[j])
+          {
+            a[j + 1] = a[j];
+            j--;
+          }
+        a[j + 1] = ai;
+      }
+  }
+
+  /**
+   * Sorts a range with heapsort, which takes n*log(n) time whatever
+   * the input.
+   */
+  private static void heapSort(char[] a, int from, int to)
+  {
+    int n = to - from;
+    for (int i = (n >>> 1) - 1; i >= 0; i--)
+      siftDown(a, from, i, n);
+    for (int i = n - 1; i > 0; i--)
+      {
+        char max = a[from];
+        a[from] = a[from + i];
+        a[from + i] = max;
+        siftDown(a, from, 0, i);
+      }
+  }
+
+  /**
+   * Moves an element of a heap down until its children are no greater.
+   *
+   * @param a the array
+   * @param from the index of the root of the heap
+   * @param i the position of the element in the heap
+   * @param n the size of the heap
+   */
+  private static void siftDown(char[] a, int from, int i, int n)
+  {
+    char x = a[from + i];
+    int child;
+    while ((child = (i << 1) + 1) < n)
+      {
+        if (child + 1 < n && a[from + child] < a[from + child + 1])
+          child++;
+        if (x >= a[from + child])
+          break;
+        a[from + i] = a[from + child];
+        i = child;
+      }
+    a[from + i] = x;
+  }
+
+  /**
+   * Checks whether a range is already sorted, which makes sorting data
+   * that is mostly sorted already cheap.  A range in strictly descending
+   * order is reversed.  Unsorted ranges are usually found out after a
+   * few elements.
+   *
+   * @return true if the range is now sorted
+   */
+  private static boolean ordered(char[] a, int from, int to)
+  {
+    int k = from + 1;
+    if (k >= to)
+      return true;
+    if (a[k - 1] <= a[k])
+      {
+        while (++k < to && a[k - 1] <= a[k])
+          ;
+        return k == to;
+      }
+    while (++k < to && a[k - 1] > a[k])
+      ;
+    if (k < to)
+      return false;
+    for (int i = from, j = to - 1; i < j; i++, j--)
+      {
+        char ai = a[i];
+        a[i] = a[j];
+        a[j] = ai;
+      }
+    return true;
+  }
+
+  /**
+   * Sorts a range of a byte array.
+   *
+   * @param a the array
+   * @param from the first index to sort (inclusive)
+   * @param to the last index to sort (exclusive)
+   */
+  static void sort(byte[] a, int from, int to)
+  {
+    if (to - from > BYTE_COUNTING_SORT_THRESHOLD)
+      countingSort(a, from, to);
+    else
+      insertionSort(a, from, to);
+  }
+
+  /**
+   * Sorts a range by counting how often each value occurs.
+   */
+  private static void countingSort(byte[] a, int from, int to)
+  {
+    int[] count = new int[1 << 8];
+    for (int i = from; i < to; i++)
+      count[a[i] - Byte.MIN_VALUE]++;
+    int k = from;
+    for (int v = 0; k < to; v++)
+      for (int n = count[v]; n > 0; n--)
+        a[k++] = (byte) (v + Byte.MIN_VALUE);
+  }
+
+  /**
+   * Sorts a small range with an insertion sort.
+   */
+  private static void insertionSort(byte[] a, int from, int to)
+  {
+    for (int i = from + 1; i < to; i++)
+      {
+        byte ai = a[i];
+        int j = i - 1;
+        while (j >= from && ai < a[j])
+          {
+            a[j + 1] = a[j];
+            j--;
+          }
+        a[j + 1] = ai;
+      }
+  }
+
+  /**
+   * Sorts a range of a float array into the order of
+   * {@link Float#compare}: NaNs go last, and -0.0 before 0.0.
+   *
+   * @param a the array
+   * @param from the first index to sort (inclusive)
+   * @param to the last index to sort (exclusive)
+   */
+  static void sort(float[] a, int from, int to)
+  {
+    int end = moveNaNs(a, from, to);
+    if (!ordered(a, from, end))
+      sort(a, from, end, depthLimit(end - from), new int[4]);
+    orderZeros(a, from, end);
+  }
+
+  /**
+   * Sorts a range of a float array on several threads, into the same
+   * order as {@link #sort(float[], int, int)}.
+   *
+   * @param a the array
+   * @param from the first index to sort (inclusive)
+   * @param to the last index to sort (exclusive)
+   */
+  static void parallelSort(final float[] a, int from, int to)
+  {
+    if (!SortJob.isParallel(to - from))
+      {
+        sort(a, from, to);
+        return;
+      }
+    int end = moveNaNs(a, from, to);
+    if (!ordered(a, from, end))
+      {
+        final int grain = SortJob.grain(end - from);
+        SortJob job = new SortJob()
+        {
+          void process(int[] task)
+          {
+            int from = task[0];
+            int to = task[1];
+            int depth = task[2];
+            int[] bounds = new int[4];
+            if (to - from <= grain || depth == 0)
+              sort(a, from, to, depth, bounds);
+            else
+              {
+                partition(a, from, to, bounds);
+                fork(from, bounds[0], depth - 1);
+                fork(bounds[1], bounds[2], depth - 1);
+                fork(bounds[3], to, depth - 1);
+              }
+          }
+        };
+        job.fork(from, end, depthLimit(end - from));
+        job.run();
+      }
+    orderZeros(a, from, end);
+  }
+
+  /**
+   * Moves the NaNs in a range to its end.  The rest of the range can then
+   * be sorted with the ordinary comparison operators.
+   *
+   * @return the index of the first NaN, or to if there is none
+   */
+  private static int moveNaNs(float[] a, int from, int to)
+  {
+    int end = to;
+    for (int k = to - 1; k >= from; k--)
+      {
+        float ak = a[k];
+        if (ak != ak)
+          {
+            a[k] = a[--end];
+            a[end] = ak;
+          }
+      }
+    return end;
+  }
+
+  /**
+   * Puts the negative zeros in a sorted range before the positive zeros.
+   * The comparison operators do not tell them apart.
+   */
+  private static void orderZeros(float[] a, int from, int to)
+  {
+    int lo = from;
+    int hi = to;
+    while (lo < hi)
+      {
+        int mid = (lo + hi) >>> 1;
+        if (a[mid] < 0.0f)
+          lo = mid + 1;
+        else
+          hi = mid;
+      }
+    int negative = 0;
+    int end = lo;
+    for (; end < to && a[end] == 0.0f; end++)
+      if (Float.floatToRawIntBits(a[end]) < 0)
+        negative++;
+    if (negative == 0)
+      return;
+    for (int k = lo; k < end; k++)
+      a[k] = (k < lo + negative) ? -0.0f : 0.0f;
+  }
+
+  /**
+   * Sorts a range with dual-pivot quicksort, or with heapsort once the
+   * partitions have been bad too often.
+   *
+   * @param a the array
+   * @param from the first index to sort (inclusive)
+   * @param to the last index to sort (exclusive)
+   * @param depth how many more times the range may be partitioned
+   * @param bounds scratch space for {@link #partition}
+   */
+  private static void sort(float[] a, int from, int to, int depth,
+                           int[] bounds)
+  {
+    while (to - from > INSERTION_SORT_THRESHOLD)
+      {
+        if (--depth < 0)
+          {
+            heapSort(a, from, to);
+            return;
+          }
+        partition(a, from, to, bounds);
+        int leftEnd = bounds[0];
+        int middleStart = bounds[1];
+        int middleEnd = bounds[2];
+        int rightStart = bounds[3];
+        sort(a, from, leftEnd, depth, bounds);
+        sort(a, middleStart, middleEnd, depth, bounds);
+        from = rightStart;
+      }
+    insertionSort(a, from, to);
+  }
+
+  /**
+   * Partitions a range around two pivots.  Afterwards the range consists
+   * of a left part, which is less than the first pivot, the first pivot,
+   * a middle part, the second pivot and a right part, which is greater
+   * than the second pivot.  Elements equal to the pivots are put next to
+   * them when there are many.  The parts that still need sorting are
+   * <code>[from, bounds[0])</code>, <code>[bounds[1], bounds[2])</code>
+   * and <code>[bounds[3], to)</code>.
+   *
+   * @param a the array
+   * @param from the first index (inclusive), at least 48 before to
+   * @param to the last index (exclusive)
+   * @param bounds receives the limits of the three parts
+   */
+  private static void partition(float[] a, int from, int to, int[] bounds)
+  {
+    int left = from;
+    int right = to - 1;
+    int length = to - from;
+
+    // Sort five evenly spaced elements around the middle; the second and
+    // the fourth become the pivots.
+    int seventh = (length >> 3) + (length >> 6) + 1;
+    int e3 = (left + right) >>> 1;
+    int e2 = e3 - seventh;
+    int e1 = e2 - seventh;
+    int e4 = e3 + seventh;
+    int e5 = e4 + seventh;
+    sort2(a, e1, e2);
+    sort2(a, e4, e5);
+    sort2(a, e3, e5);
+    sort2(a, e3, e4);
+    sort2(a, e1, e4);
+    sort2(a, e1, e3);
+    sort2(a, e2, e5);
+    sort2(a, e2, e4);
+    sort2(a, e2, e3);
+
+    if (a[e2] != a[e4])
+      {
+        float pivot1 = a[e2];
+        float pivot2 = a[e4];
+
+        // The elements at the ends take the place of the pivots, which
+        // are put in their final places at the end.  a[e1] and a[e5]
+        // stop the first two loops.
+        a[e2] = a[left];
+        a[e4] = a[right];
+        int less = left;
+        int great = right;
+        while (a[++less] < pivot1)
+          ;
+        while (a[--great] > pivot2)
+          ;
+
+        // [left + 1, less) is less than pivot1, [less, k) is between the
+        // pivots and (great, right) is greater than pivot2.
+        outer:
+        for (int k = less - 1; ++k <= great;)
+          {
+            float ak = a[k];
+            if (ak < pivot1)
+              {
+                a[k] = a[less];
+                a[less] = ak;
+                ++less;
+              }
+            else if (ak > pivot2)
+              {
+                while (a[great] > pivot2)
+                  if (great-- == k)
+                    break outer;
+                if (a[great] < pivot1)
+                  {
+                    a[k] = a[less];
+                    a[less] = a[great];
+                    ++less;
+                  }
+                else
+                  a[k] = a[great];
+                a[great] = ak;
+                --great;
+              }
+          }
+
+        a[left] = a[less - 1];
+        a[less - 1] = pivot1;
+        a[right] = a[great + 1];
+        a[great + 1] = pivot2;
+        bounds[0] = less - 1;
+        bounds[3] = great + 2;
+
+        // A large middle part probably holds many elements equal to the
+        // pivots; move them to its ends so that they are not sorted again.
+        if (less < e1 && e5 < great)
+          {
+            while (a[less] == pivot1)
+              ++less;
+            while (a[great] == pivot2)
+              --great;
+            outer:
+            for (int k = less - 1; ++k <= great;)
+              {
+                float ak = a[k];
+                if (ak == pivot1)
+                  {
+                    a[k] = a[less];
+                    a[less] = ak;
+                    ++less;
+                  }
+                else if (ak == pivot2)
+                  {
+                    while (a[great] == pivot2)
+                      if (great-- == k)
+                        break outer;
+                    if (a[great] == pivot1)
+                      {
+                        a[k] = a[less];
+                        a[less] = a[great];
+                        ++less;
+                      }
+                    else
+                      a[k] = a[great];
+                    a[great] = ak;
+                    --great;
+                  }
+              }
+          }
+        bounds[1] = less;
+        bounds[2] = great + 1;
+      }
+    else
+      {
+        // The pivots are equal, so there are probably many equal
+        // elements.  Partition into less than, equal to and greater than
+        // a single pivot; the equal part is already sorted.
+        float pivot = a[e3];
+        int less = left;
+        int great = right;
+        for (int k = less; k <= great; ++k)
+          {
+            if (a[k] == pivot)
+              continue;
+            float ak = a[k];
+            if (ak < pivot)
+              {
+                a[k] = a[less];
+                a[less] = ak;
+                ++less;
+              }
+            else
+              {
+                while (a[great] > pivot)
+                  --great;
+                if (a[great] < pivot)
+                  {
+                    a[k] = a[less];
+                    a[less] = a[great];
+                    ++less;
+                  }
+                else
+                  a[k] = a[great];
+                a[great] = ak;
+                --great;
+              }
+          }
+        bounds[0] = less;
+        bounds[1] = less;
+        bounds[2] = less;
+        bounds[3] = great + 1;
+      }
+  }
+
+  /**
+   * Swaps two elements if they are out of order.
+   */
+  private static void sort2(float[] a, int i, int j)
+  {
+    float ai = a[i];
+    if (a[j] < ai)
+      {
+        a[i] = a[j];
+        a[j] = ai;
+      }
+  }
+
+  /**
+   * Sorts a small range with an insertion sort.
+   */
+  private static void insertionSort(float[] a, int from, int to)
+  {
+    for (int i = from + 1; i < to; i++)
+      {
+        float ai = a[i];
+        int j = i - 1;
+        while (j >= from && ai < a[j])
+          {
+            a[j + 1] = a[j];
+            j--;
+          }
+        a[j + 1] = ai;
+      }
+  }
+
+  /**
+   * Sorts a range with heapsort, which takes n*log(n) time whatever
+   * the input.
+   */
+  private static void heapSort(float[] a, int from, int to)
+  {
+    int n = to - from;
+    for (int i = (n >>> 1) - 1; i >= 0; i--)
+      siftDown(a, from, i, n);
+    for (int i = n - 1; i > 0; i--)
+      {
+        float max = a[from];
+        a[from] = a[from + i];
+        a[from + i] = max;
+        siftDown(a, from, 0, i);
+      }
+  }
+
+  /**
+   * Moves an element of a heap down until its children are no greater.
+   *
+   * @param a the array
+   * @param from the index of the root of the heap
+   * @param i the position of the element in the heap
+   * @param n the size of the heap
+   */
+  private static void siftDown(float[] a, int from, int i, int n)
+  {
+    float x = a[from + i];
+    int child;
+    while ((child = (i << 1) + 1) < n)
+      {
+        if (child + 1 < n && a[from + child] < a[from + child + 1])
+          child++;
+        if (x >= a[from + child])
+          break;
+        a[from + i] = a[from + child];
+        i = child;
+      }
+    a[from + i] = x;
+  }
+
+  /**
+   * Checks whether a range is already sorted, which makes sorting data
+   * that is mostly sorted already cheap.  A range in strictly descending
+   * order is reversed.  Unsorted ranges are usually found out after a
+   * few elements.
+   *
+   * @return true if the range is now sorted
+   */
+  private static boolean ordered(float[] a, int from, int to)
+  {
+    int k = from + 1;
+    if (k >= to)
+      return true;
+    if (a[k - 1] <= a[k])
+      {
+        while (++k < to && a[k - 1] <= a[k])
+          ;
+        return k == to;
+      }
+    while (++k < to && a[k - 1] > a[k])
+      ;
+    if (k < to)
+      return false;
+    for (int i = from, j = to - 1; i < j; i++, j--)
+      {
+        float ai = a[i];
+        a[i] = a[j];
+        a[j] = ai;
+      }
+    return true;
+  }
+
+  /**
+   * Sorts a range of a double array into the order of
+   * {@link Double#compare}: NaNs go last, and -0.0 before 0.0.
+   *
+   * @param a the array
+   * @param from the first index to sort (inclusive)
+   * @param to the last index to sort (exclusive)
+   */
+  static void sort(double[] a, int from, int to)
+  {
+    int end = moveNaNs(a, from, to);
+    if (!ordered(a, from, end))
+      sort(a, from, end, depthLimit(end - from), new int[4]);
+    orderZeros(a, from, end);
+  }
+
+  /**
+   * Sorts a range of a double array on several threads, into the same
+   * order as {@link #sort(double[], int, int)}.
+   *
+   * @param a the array
+   * @param from the first index to sort (inclusive)
+   * @param to the last index to sort (exclusive)
+   */
+  static void parallelSort(final double[] a, int from, int to)
+  {
+    if (!SortJob.isParallel(to - from))
+      {
+        sort(a, from, to);
+        return;
+      }
+    int end = moveNaNs(a, from, to);
+    if (!ordered(a, from, end))
+      {
+        final int grain = SortJob.grain(end - from);
+        SortJob job = new SortJob()
+        {
+          void process(int[] task)
+          {
+            int from = task[0];
+            int to = task[1];
+            int depth = task[2];
+            int[] bounds = new int[4];
+            if (to - from <= grain || depth == 0)
+              sort(a, from, to, depth, bounds);
+            else
+              {
+                partition(a, from, to, bounds);
+                fork(from, bounds[0], depth - 1);
+                fork(bounds[1], bounds[2], depth - 1);
+                fork(bounds[3], to, depth - 1);
+              }
+          }
+        };
+        job.fork(from, end, depthLimit(end - from));
+        job.run();
+      }
+    orderZeros(a, from, end);
+  }
+
+  /**
+   * Moves the NaNs in a range to its end.  The rest of the range can then
+   * be sorted with the ordinary comparison operators.
+   *
+   * @return the index of the first NaN, or to if there is none
+   */
+  private static int moveNaNs(double[] a, int from, int to)
+  {
+    int end = to;
+    for (int k = to - 1; k >= from; k--)
+      {
+        double ak = a[k];
+        if (ak != ak)
+          {
+            a[k] = a[--end];
+            a[end] = ak;
+          }
+      }
+    return end;
+  }
+
+  /**
+   * Puts the negative zeros in a sorted range before the positive zeros.
+   * The comparison operators do not tell them apart.
+   */
+  private static void orderZeros(double[] a, int from, int to)
+  {
+    int lo = from;
+    int hi = to;
+    while (lo < hi)
+      {
+        int mid = (lo + hi) >>> 1;
+        if (a[mid] < 0.0d)
+          lo = mid + 1;
+        else
+          hi = mid;
+      }
+    int negative = 0;
+    int end = lo;
+    for (; end < to && a[end] == 0.0d; end++)
+      if (Double.doubleToRawLongBits(a[end]) < 0)
+        negative++;
+    if (negative == 0)
+      return;
+    for (int k = lo; k < end; k++)
+      a[k] = (k < lo + negative) ? -0.0d : 0.0d;
+  }
+
+  /**
+   * Sorts a range with dual-pivot quicksort, or with heapsort once the
+   * partitions have been bad too often.
+   *
+   * @param a the array
+   * @param from the first index to sort (inclusive)
+   * @param to the last index to sort (exclusive)
+   * @param depth how many more times the range may be partitioned
+   * @param bounds scratch space for {@link #partition}
+   */
+  private static void sort(double[] a, int from, int to, int depth,
+                           int[] bounds)
+  {
+    while (to - from > INSERTION_SORT_THRESHOLD)
+      {
+        if (--depth < 0)
+          {
+            heapSort(a, from, to);
+            return;
+          }
+        partition(a, from, to, bounds);
+        int leftEnd = bounds[0];
+        int middleStart = bounds[1];
+        int middleEnd = bounds[2];
+        int rightStart = bounds[3];
+        sort(a, from, leftEnd, depth, bounds);
+        sort(a, middleStart, middleEnd, depth, bounds);
+        from = rightStart;
+      }
+    insertionSort(a, from, to);
+  }
+
+  /**
+   * Partitions a range around two pivots.  Afterwards the range consists
+   * of a left part, which is less than the first pivot, the first pivot,
+   * a middle part, the second pivot and a right part, which is greater
+   * than the second pivot.  Elements equal to the pivots are put next to
+   * them when there are many.  The parts that still need sorting are
+   * <code>[from, bounds[0])</code>, <code>[bounds[1], bounds[2])</code>
+   * and <code>[bounds[3], to)</code>.
+   *
+   * @param a the array
+   * @param from the first index (inclusive), at least 48 before to
+   * @param to the last index (exclusive)
+   * @param bounds receives the limits of the three parts
+   */
+  private static void partition(double[] a, int from, int to, int[] bounds)
+  {
+    int left = from;
+    int right = to - 1;
+    int length = to - from;
+
+    // Sort five evenly spaced elements around the middle; the second and
+    // the fourth become the pivots.
+    int seventh = (length >> 3) + (length >> 6) + 1;
+    int e3 = (left + right) >>> 1;
+    int e2 = e3 - seventh;
+    int e1 = e2 - seventh;
+    int e4 = e3 + seventh;
+    int e5 = e4 + seventh;
+    sort2(a, e1, e2);
+    sort2(a, e4, e5);
+    sort2(a, e3, e5);
+    sort2(a, e3, e4);
+    sort2(a, e1, e4);
+    sort2(a, e1, e3);
+    sort2(a, e2, e5);
+    sort2(a, e2, e4);
+    sort2(a, e2, e3);
+
+    if (a[e2] != a[e4])
+      {
+        double pivot1 = a[e2];
+        double pivot2 = a[e4];
+
+        // The elements at the ends take the place of the pivots, which
+        // are put in their final places at the end.  a[e1] and a[e5]
+        // stop the first two loops.
+        a[e2] = a[left];
+        a[e4] = a[right];
+        int less = left;
+        int great = right;
+        while (a[++less] < pivot1)
+          ;
+        while (a[--great] > pivot2)
+          ;
+
+        // [left + 1, less) is less than pivot1, [less, k) is between the
+        // pivots and (great, right) is greater than pivot2.
+        outer:
+        for (int k = less - 1; ++k <= great;)
+          {
+            double ak = a[k];
+            if (ak < pivot1)
+              {
+                a[k] = a[less];
+                a[less] = ak;
+                ++less;
+              }
+            else if (ak > pivot2)
+              {
+                while (a[great] > pivot2)
+                  if (great-- == k)
+                    break outer;
+                if (a[great] < pivot1)
+                  {
+                    a[k] = a[less];
+                    a[less] = a[great];
+                    ++less;
+                  }
+                else
+                  a[k] = a[great];
+                a[great] = ak;
+                --great;
+              }
+          }
+
+        a[left] = a[less - 1];
+        a[less - 1] = pivot1;
+        a[right] = a[great + 1];
+        a[great + 1] = pivot2;
+        bounds[0] = less - 1;
+        bounds[3] = great + 2;
+
+        // A large middle part probably holds many elements equal to the
+        // pivots; move them to its ends so that they are not sorted again.
+        if (less < e1 && e5 < great)
+          {
+            while (a[less] == pivot1)
+              ++less;
+            while (a[great] == pivot2)
+              --great;
+            outer:
+            for (int k = less - 1; ++k <= great;)
+              {
+                double ak = a[k];
+                if (ak == pivot1)
+                  {
+                    a[k] = a[less];
+                    a[less] = ak;
+                    ++less;
+                  }
+                else if (ak == pivot2)
+                  {
+                    while (a[great] == pivot2)
+                      if (great-- == k)
+                        break outer;
+                    if (a[great] == pivot1)
+                      {
+                        a[k] = a[less];
+                        a[less] = a[great];
+                        ++less;
+                      }
+                    else
+                      a[k] = a[great];
+                    a[great] = ak;
+                    --great;
+                  }
+              }
+          }
+        bounds[1] = less;
+        bounds[2] = great + 1;
+      }
+    else
+      {
+        // The pivots are equal, so there are probably many equal
+        // elements.  Partition into less than, equal to and greater than
+        // a single pivot; the equal part is already sorted.
+        double pivot = a[e3];
+        int less = left;
+        int great = right;
+        for (int k = less; k <= great; ++k)
+          {
+            if (a[k] == pivot)
+              continue;
+            double ak = a[k];
+            if (ak < pivot)
+              {
+                a[k] = a[less];
+                a[less] = ak;
+                ++less;
+              }
+            else
+              {
+                while (a[great] > pivot)
+                  --great;
+                if (a[great] < pivot)
+                  {
+                    a[k] = a[less];
+                    a[less] = a[great];
+                    ++less;
+                  }
+                else
+                  a[k] = a[great];
+                a[great] = ak;
+                --great;
+              }
+          }
+        bounds[0] = less;
+        bounds[1] = less;
+        bounds[2] = less;
+        bounds[3] = great + 1;
+      }
+  }
+
+  /**
+   * Swaps two elements if they are out of order.
+   */
+  private static void sort2(double[] a, int i, int j)
+  {
+    double ai = a[i];
+    if (a[j] < ai)
+      {
+        a[i] = a[j];
+        a[j] = ai;
+      }
+  }
+
+  /**
+   * Sorts a small range with an insertion sort.
+   */
+  private static void insertionSort(double[] a, int from, int to)
+  {
+    for (int i = from + 1; i < to; i++)
+      {
+        double ai = a[i];
+        int j = i - 1;
+        while (j >= from && ai < a[j])
+          {
+            a[j + 1] = a[j];
+            j--;
+          }
+        a[j + 1] = ai;
+      }
+  }
+
+  /**
+   * Sorts a range with heapsort, which takes n*log(n) time whatever
+   * the input.
+   */
+  private static void heapSort(double[] a, int from, int to)
+  {
+    int n = to - from;
+    for (int i = (n >>> 1) - 1; i >= 0; i--)
+      siftDown(a, from, i, n);
+    for (int i = n - 1; i > 0; i--)
+      {
+        double max = a[from];
+        a[from] = a[from + i];
+        a[from + i] = max;
+        siftDown(a, from, 0, i);
+      }
+  }
+
+  /**
+   * Moves an element of a heap down until its children are no greater.
+   *
+   * @param a the array
+   * @param from the index of the root of the heap
+   * @param i the position of the element in the heap
+   * @param n the size of the heap
+   */
+  private static void siftDown(double[] a, int from, int i, int n)
+  {
+    double x = a[from + i];
+    int child;
+    while ((child = (i << 1) + 1) < n)
+      {
+        if (child + 1 < n && a[from + child] < a[from + child + 1])
+          child++;
+        if (x >= a[from + child])
+          break;
+        a[from + i] = a[from + child];
+        i = child;
+      }
+    a[from + i] = x;
+  }
+
+  /**
+   * Checks whether a range is already sorted, which makes sorting data
+   * that is mostly sorted already cheap.  A range in strictly descending
+   * order is reversed.  Unsorted ranges are usually found out after a
+   * few elements.
+   *
+   * @return true if the range is now sorted
+   */
+  private static boolean ordered(double[] a, int from, int to)
+  {
+    int k = from + 1;
+    if (k >= to)
+      return true;
+    if (a[k - 1] <= a[k])
+      {
+        while (++k < to && a[k - 1] <= a[k])
+          ;
+        return k == to;
+      }
+    while (++k < to && a[k - 1] > a[k])
+      ;
+    if (k < to)
+      return false;
+    for (int i = from, j = to - 1; i < j; i++, j--)
+      {
+        double ai = a[i];
+        a[i] = a[j];
+        a[j] = ai;
+      }
+    return true;
+  }
+}
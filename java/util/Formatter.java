@@ -50,7 +50,9 @@ import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.PrintStream;
 import java.io.UnsupportedEncodingException;
+import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.math.RoundingMode;
 import java.text.DateFormatSymbols;
 import java.text.DecimalFormatSymbols;
 
@@ -110,7 +112,7 @@ public final class Formatter
 
   // Some state used when actually formatting.
   /**
-   * The format string.
+   * The format string being parsed.
    */
   private String format;
 
@@ -144,6 +146,39 @@ public final class Formatter
   private static final String lineSeparator
     = SystemProperties.getProperty("line.separator");
 
+  /**
+   * The number of compiled format strings kept by {@link #compile}; a
+   * power of two.
+   */
+  private static final int CACHE_SIZE = 256;
+
+  /**
+   * Recently compiled format strings, indexed by the low bits of their
+   * hash codes.  A string evicts whatever shares its slot.  The entries
+   * are immutable, so threads can share the array without locking: the
+   * worst a race can do is make a thread compile a string again.
+   */
+  private static final CompiledFormat[] cache = new CompiledFormat[CACHE_SIZE];
+
+  /**
+   * The number symbols of the locale used most recently.  Creating a
+   * DecimalFormatSymbols is slow, and most programs format numbers for
+   * a single locale.
+   */
+  private static volatile NumberSymbols numberSymbols;
+
+  /**
+   * Powers of ten from 10<sup>0</sup> to 10<sup>18</sup>, for writing out
+   * the digits of a long.
+   */
+  private static final long[] POWERS_OF_TEN = new long[19];
+  static
+  {
+    POWERS_OF_TEN[0] = 1;
+    for (int i = 1; i < POWERS_OF_TEN.length; i++)
+      POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+  }
+
   /**
    * The type of numeric output format for a {@link BigDecimal}.
    */
@@ -153,6 +188,140 @@ public final class Formatter
     SCIENTIFIC
   }
 
+  /**
+   * One piece of a compiled format string: either literal text, or a
+   * format specifier with its argument index, flags, width and precision
+   * already parsed.
+   */
+  private static final class Specifier
+  {
+    /**
+     * The literal text, or for a format specifier its text up to the
+     * conversion, which is used in exception messages.
+     */
+    final String text;
+
+    /**
+     * The conversion in lower case, or 0 for literal text.
+     */
+    final char conversion;
+
+    /**
+     * The conversion as written in the format string.
+     */
+    final char origConversion;
+
+    /**
+     * The date/time conversion following a 't' or 'T', or 0.
+     */
+    final char subConversion;
+
+    /**
+     * The argument index: -1 for the next argument, 0 for the previous
+     * one, otherwise the index counting from 1.
+     */
+    final int argumentIndex;
+
+    /**
+     * The flags, as a mask of FormattableFlags values.
+     */
+    final int flags;
+
+    /**
+     * The width, or -1 if none was given.
+     */
+    final int width;
+
+    /**
+     * The precision, or -1 if none was given.
+     */
+    final int precision;
+
+    /**
+     * Creates a piece of literal text.
+     *
+     * @param text the text.
+     */
+    Specifier(String text)
+    {
+      this(text, -1, 0, -1, -1, (char) 0, (char) 0, (char) 0);
+    }
+
+    /**
+     * Creates a format specifier.
+     */
+    Specifier(String text, int argumentIndex, int flags, int width,
+              int precision, char conversion, char origConversion,
+              char subConversion)
+    {
+      this.text = text;
+      this.argumentIndex = argumentIndex;
+      this.flags = flags;
+      this.width = width;
+      this.precision = precision;
+      this.conversion = conversion;
+      this.origConversion = origConversion;
+      this.subConversion = subConversion;
+    }
+  }
+
+  /**
+   * A format string together with its compiled form.
+   */
+  private static final class CompiledFormat
+  {
+    /**
+     * The format string.
+     */
+    final String format;
+
+    /**
+     * The pieces of the format string, in order.
+     */
+    final Specifier[] specifiers;
+
+    CompiledFormat(String format, Specifier[] specifiers)
+    {
+      this.format = format;
+      this.specifiers = specifiers;
+    }
+  }
+
+  /**
+   * The symbols that a locale uses for numbers.
+   */
+  private static final class NumberSymbols
+  {
+    /**
+     * The locale the symbols belong to.
+     */
+    final Locale locale;
+
+    /**
+     * The character used for zero.
+     */
+    final char zeroDigit;
+
+    /**
+     * The character separating the integer part from the fraction.
+     */
+    final char decimalSeparator;
+
+    /**
+     * The character separating groups of thousands.
+     */
+    final char groupingSeparator;
+
+    NumberSymbols(Locale locale)
+    {
+      DecimalFormatSymbols dfsyms = new DecimalFormatSymbols(locale);
+      this.locale = locale;
+      zeroDigit = dfsyms.getZeroDigit();
+      decimalSeparator = dfsyms.getDecimalSeparator();
+      groupingSeparator = dfsyms.getGroupingSeparator();
+    }
+  }
+
   /**
    * Constructs a new <code>Formatter</code> using the default
    * locale and a {@link StringBuilder} as the output stream.
@@ -475,14 +644,10 @@ public final class Formatter
   private void applyLocalization(CPStringBuilder builder, int flags, int width,
                                  boolean isNegative)
   {
-    DecimalFormatSymbols dfsyms;
-    if (fmtLocale == null)
-      dfsyms = new DecimalFormatSymbols();
-    else
-      dfsyms = new DecimalFormatSymbols(fmtLocale);
+    NumberSymbols syms = numberSymbols();
 
     // First replace each digit.
-    char zeroDigit = dfsyms.getZeroDigit();
+    char zeroDigit = syms.zeroDigit;
     int decimalOffset = -1;
     for (int i = builder.length() - 1; i >= 0; --i)
       {
@@ -500,13 +665,13 @@ public final class Formatter
     if (decimalOffset != -1)
       {
         builder.deleteCharAt(decimalOffset);
-        builder.insert(decimalOffset, dfsyms.getDecimalSeparator());
+        builder.insert(decimalOffset, syms.decimalSeparator);
       }
 
     // Insert the grouping separators.
     if ((flags & FormattableFlags.COMMA) != 0)
       {
-        char groupSeparator = dfsyms.getGroupingSeparator();
+        char groupSeparator = syms.groupingSeparator;
         int groupSize = 3;      // FIXME
         int offset = (decimalOffset == -1) ? builder.length() : decimalOffset;
         // We use '>' because we don't want to insert a separator
@@ -517,9 +682,10 @@ public final class Formatter
 
     if ((flags & FormattableFlags.ZERO) != 0)
       {
-        // Zero fill.  Note that according to the algorithm we do not
-        // insert grouping separators here.
-        for (int i = width - builder.length(); i > 0; --i)
+        // Zero fill, leaving room for the sign.  Note that according to
+        // the algorithm we do not insert grouping separators here.
+        int fill = width - builder.length() - signLength(flags, isNegative);
+        for (int i = fill; i > 0; --i)
           builder.insert(0, zeroDigit);
       }
 
@@ -539,6 +705,54 @@ public final class Formatter
       builder.insert(0, ' ');
   }
 
+  /**
+   * Returns the number of characters that the sign of a number takes up.
+   *
+   * @param flags the formatting flags to use.
+   * @param isNegative true if the value is negative.
+   * @return the length of the sign.
+   */
+  private static int signLength(int flags, boolean isNegative)
+  {
+    if (isNegative)
+      return (flags & FormattableFlags.PAREN) != 0 ? 2 : 1;
+    return (flags & (FormattableFlags.PLUS | FormattableFlags.SPACE)) != 0
+      ? 1 : 0;
+  }
+
+  /**
+   * Returns the number symbols of the formatting locale, or of the
+   * default locale if there is none.
+   *
+   * @return the symbols.
+   */
+  private NumberSymbols numberSymbols()
+  {
+    Locale loc = fmtLocale == null ? Locale.getDefault() : fmtLocale;
+    NumberSymbols syms = numberSymbols;
+    if (syms == null || ! syms.locale.equals(loc))
+      {
+        syms = new NumberSymbols(loc);
+        numberSymbols = syms;
+      }
+    return syms;
+  }
+
+  /**
+   * Emit padding.
+   *
+   * @param c the character to pad with.
+   * @param count the number of characters; nothing is emitted if it is
+   *        not positive.
+   * @throws IOException if the output stream throws an I/O error.
+   */
+  private void pad(char c, int count)
+    throws IOException
+  {
+    for (int i = count; i > 0; --i)
+      out.append(c);
+  }
+
   /**
    * A helper method that handles emitting a String after applying
    * precision, width, justification, and upper case flags.
@@ -737,6 +951,137 @@ public final class Formatter
     genericFormat(lineSeparator, flags, width, precision);
   }
 
+  /**
+   * Returns the flags allowed for an integral conversion of a primitive
+   * value.
+   *
+   * @param radix the radix of the number.
+   * @return the allowed flags mask.
+   */
+  private static int integralFlags(int radix)
+  {
+    int basicFlags = (FormattableFlags.LEFT_JUSTIFY
+                      // We already handled any possible error when
+                      // parsing.
+                      | FormattableFlags.UPPERCASE
+                      | FormattableFlags.ZERO);
+    if (radix == 10)
+      basicFlags |= (FormattableFlags.PLUS
+                     | FormattableFlags.SPACE
+                     | FormattableFlags.COMMA
+                     | FormattableFlags.PAREN);
+    else
+      basicFlags |= FormattableFlags.ALTERNATE;
+    return basicFlags;
+  }
+
+  /**
+   * Emit a Byte, Short, Integer or Long in decimal, octal or hexadecimal
+   * notation.  The digits go straight to the output, without building a
+   * string first.  In octal and hexadecimal a negative value is written
+   * as the unsigned value of the same width, so -1 as a Byte is "ff".
+   *
+   * @param arg the value.
+   * @param flags the formatting flags to use.
+   * @param width the width to use.
+   * @param precision the precision to use.
+   * @param radix the radix of the number.
+   * @param conversion the conversion character.
+   * @throws IOException if the output stream throws an I/O error.
+   */
+  private void integralConversion(Number arg, int flags, int width,
+                                  int precision, int radix, char conversion)
+    throws IOException
+  {
+    noPrecision(precision);
+    if ((flags & FormattableFlags.PLUS) != 0
+        && (flags & FormattableFlags.SPACE) != 0)
+      throw new IllegalFormatFlagsException(getName(flags));
+    if ((flags & (FormattableFlags.LEFT_JUSTIFY | FormattableFlags.ZERO)) != 0
+        && width == -1)
+      throw new MissingFormatWidthException("fixme");
+    checkFlags(flags, integralFlags(radix), conversion);
+
+    long value = arg.longValue();
+    boolean zeroFill = (flags & FormattableFlags.ZERO) != 0;
+    boolean rightJustify = (flags & FormattableFlags.LEFT_JUSTIFY) == 0;
+    int fill;
+    if (radix == 10)
+      {
+        NumberSymbols syms = numberSymbols();
+        char zeroDigit = syms.zeroDigit;
+        boolean isNegative = value < 0;
+        // The negated magnitude, which is right for Long.MIN_VALUE too.
+        long magnitude = isNegative ? value : -value;
+        int digits = 1;
+        while (digits < POWERS_OF_TEN.length
+               && magnitude <= -POWERS_OF_TEN[digits])
+          ++digits;
+        boolean group = (flags & FormattableFlags.COMMA) != 0;
+        fill = (width - digits - (group ? (digits - 1) / 3 : 0)
+                - signLength(flags, isNegative));
+        if (rightJustify && ! zeroFill)
+          pad(' ', fill);
+        if (isNegative)
+          out.append((flags & FormattableFlags.PAREN) != 0 ? '(' : '-');
+        else if ((flags & FormattableFlags.PLUS) != 0)
+          out.append('+');
+        else if ((flags & FormattableFlags.SPACE) != 0)
+          out.append(' ');
+        if (zeroFill)
+          pad(zeroDigit, fill);
+        for (int i = digits - 1; i >= 0; --i)
+          {
+            int digit = (int) -(magnitude / POWERS_OF_TEN[i] % 10);
+            out.append((char) (zeroDigit + digit));
+            if (group && i > 0 && i % 3 == 0)
+              out.append(syms.groupingSeparator);
+          }
+        if (isNegative && (flags & FormattableFlags.PAREN) != 0)
+          out.append(')');
+      }
+    else
+      {
+        int bits;
+        if (arg instanceof Long)
+          bits = 64;
+        else if (arg instanceof Integer)
+          bits = 32;
+        else if (arg instanceof Short)
+          bits = 16;
+        else
+          bits = 8;
+        if (bits < 64)
+          value &= (1L << bits) - 1;
+        int shift = radix == 16 ? 4 : 3;
+        int digits = Math.max((64 - Long.numberOfLeadingZeros(value)
+                               + shift - 1) / shift, 1);
+        boolean upperCase = (flags & FormattableFlags.UPPERCASE) != 0;
+        boolean alternate = (flags & FormattableFlags.ALTERNATE) != 0;
+        fill = width - digits;
+        if (alternate)
+          fill -= radix == 16 ? 2 : 1;
+        if (rightJustify && ! zeroFill)
+          pad(' ', fill);
+        if (alternate)
+          {
+            out.append('0');
+            if (radix == 16)
+              out.append(upperCase ? 'X' : 'x');
+          }
+        if (zeroFill)
+          pad('0', fill);
+        for (int i = digits - 1; i >= 0; --i)
+          {
+            char c = Character.forDigit((int) (value >>> (i * shift))
+                                        & (radix - 1), radix);
+            out.append(upperCase ? Character.toUpperCase(c) : c);
+          }
+      }
+    if (! rightJustify && ! zeroFill)
+      pad(' ', fill);
+  }
+
   /**
    * Helper method to do initial formatting and checking for integral
    * conversions.
@@ -767,23 +1112,13 @@ public final class Formatter
         && (flags & FormattableFlags.SPACE) != 0)
       throw new IllegalFormatFlagsException(getName(flags));
 
-    if ((flags & FormattableFlags.LEFT_JUSTIFY) != 0 && width == -1)
+    if ((flags & (FormattableFlags.LEFT_JUSTIFY | FormattableFlags.ZERO)) != 0
+        && width == -1)
       throw new MissingFormatWidthException("fixme");
 
     // Do the base translation of the value to a string.
     String result;
-    int basicFlags = (FormattableFlags.LEFT_JUSTIFY
-                      // We already handled any possible error when
-                      // parsing.
-                      | FormattableFlags.UPPERCASE
-                      | FormattableFlags.ZERO);
-    if (radix == 10)
-      basicFlags |= (FormattableFlags.PLUS
-                     | FormattableFlags.SPACE
-                     | FormattableFlags.COMMA
-                     | FormattableFlags.PAREN);
-    else
-      basicFlags |= FormattableFlags.ALTERNATE;
+    int basicFlags = integralFlags(radix);
 
     if (arg instanceof BigInteger)
       {
@@ -833,6 +1168,14 @@ public final class Formatter
   {
     assert radix == 8 || radix == 16;
 
+    if (arg instanceof Integer || arg instanceof Long
+        || arg instanceof Short || arg instanceof Byte)
+      {
+        integralConversion((Number) arg, flags, width, precision, radix,
+                           conversion);
+        return;
+      }
+
     CPStringBuilder builder = basicIntegralConversion(arg, flags, width,
                                                       precision, radix,
                                                       conversion);
@@ -869,17 +1212,17 @@ public final class Formatter
     if (resultWidth < width)
       {
         char fill = ((flags & FormattableFlags.ZERO) != 0) ? '0' : ' ';
-        if ((flags & FormattableFlags.LEFT_JUSTIFY) != 0)
+        // Zeros go after the sign and the radix prefix.
+        if (fill == ' ')
           {
-            // Left justify.
-            if (fill == ' ')
+            if ((flags & FormattableFlags.LEFT_JUSTIFY) != 0)
               insertPoint = builder.length();
-          }
-        else
-          {
-            // Right justify.  Insert spaces before the radix prefix
-            // and sign.
-            insertPoint = 0;
+            else
+              {
+                // Right justify.  Insert spaces before the radix prefix
+                // and sign.
+                insertPoint = 0;
+              }
           }
         while (resultWidth++ < width)
           builder.insert(insertPoint, fill);
@@ -911,6 +1254,14 @@ public final class Formatter
                                  int precision, char conversion)
     throws IOException
   {
+    if (arg instanceof Integer || arg instanceof Long
+        || arg instanceof Short || arg instanceof Byte)
+      {
+        integralConversion((Number) arg, flags, width, precision, 10,
+                           conversion);
+        return;
+      }
+
     CPStringBuilder builder = basicIntegralConversion(arg, flags, width,
                                                       precision, 10,
                                                       conversion);
@@ -926,6 +1277,206 @@ public final class Formatter
     genericFormat(builder.toString(), flags, width, precision);
   }
 
+  /**
+   * Emit a Float, Double or BigDecimal in fixed-point notation.  The
+   * value is rounded half up to the precision, starting from the digits
+   * of {@link Double#toString(double)} for a Float or Double, and from
+   * the exact value of a BigDecimal.
+   * The digits go straight to the output.
+   *
+   * @param arg the value.
+   * @param flags the formatting flags to use.
+   * @param width the width to use.
+   * @param precision the precision to use, -1 for the default of 6.
+   * @param conversion the conversion character.
+   * @throws IOException if the output stream throws an I/O error.
+   */
+  private void fixedPointConversion(Object arg, int flags, int width,
+                                    int precision, char conversion)
+    throws IOException
+  {
+    if (arg == null)
+      {
+        genericFormat("null", flags, width, precision);
+        return;
+      }
+    checkFlags(flags,
+               (FormattableFlags.LEFT_JUSTIFY
+                | FormattableFlags.ALTERNATE
+                | FormattableFlags.PLUS
+                | FormattableFlags.SPACE
+                | FormattableFlags.ZERO
+                | FormattableFlags.COMMA
+                | FormattableFlags.PAREN),
+               conversion);
+    if ((flags & FormattableFlags.PLUS) != 0
+        && (flags & FormattableFlags.SPACE) != 0)
+      throw new IllegalFormatFlagsException(getName(flags));
+    if ((flags & (FormattableFlags.LEFT_JUSTIFY | FormattableFlags.ZERO)) != 0
+        && width == -1)
+      throw new MissingFormatWidthException("fixme");
+    if (precision == -1)
+      precision = 6;
+
+    // The value is 0.d1d2d3... * 10^point, where the digits are those
+    // of the string, skipping the decimal point at index dot; dot is the
+    // length of the string if there is none.
+    String digits;
+    int dot;
+    int count;
+    int point;
+    boolean isNegative;
+    if (arg instanceof Double || arg instanceof Float)
+      {
+        double value = ((Number) arg).doubleValue();
+        if (Double.isNaN(value) || Double.isInfinite(value))
+          {
+            nonFiniteFormat(value, flags, width);
+            return;
+          }
+        isNegative = value < 0 || (value == 0 && 1 / value < 0);
+        digits = Double.toString(Math.abs(value));
+        dot = digits.indexOf('.');
+        int exponentStart = digits.indexOf('E');
+        if (exponentStart == -1)
+          {
+            count = digits.length() - 1;
+            point = dot;
+          }
+        else
+          {
+            count = exponentStart - 1;
+            int exponent = 0;
+            boolean negativeExponent = digits.charAt(exponentStart + 1) == '-';
+            for (int i = exponentStart + (negativeExponent ? 2 : 1);
+                 i < digits.length(); ++i)
+              exponent = exponent * 10 + digits.charAt(i) - '0';
+            point = dot + (negativeExponent ? -exponent : exponent);
+          }
+      }
+    else if (arg instanceof BigDecimal)
+      {
+        BigDecimal value = (BigDecimal) arg;
+        isNegative = value.signum() < 0;
+        value = value.setScale(precision, RoundingMode.HALF_UP);
+        digits = value.unscaledValue().abs().toString();
+        dot = digits.length();
+        count = dot;
+        point = count - precision;
+      }
+    else
+      throw new IllegalFormatConversionException(conversion, arg.getClass());
+
+    // Round half up.  The digits from keep on are dropped; when rounding
+    // up, the digit at bump is incremented and those between bump and
+    // keep become 0.  bump is -1 if all kept digits were 9, which makes
+    // a 1 appear in front of them.
+    int keep = point + precision;
+    int bump = Integer.MAX_VALUE;
+    if (keep >= 0 && keep < count
+        && digits.charAt(keep < dot ? keep : keep + 1) >= '5')
+      {
+        bump = keep - 1;
+        while (bump >= 0 && digits.charAt(bump < dot ? bump : bump + 1) == '9')
+          --bump;
+      }
+    int integerDigits = Math.max(point - Math.min(bump, 0), 1);
+
+    NumberSymbols syms = numberSymbols();
+    char zeroDigit = syms.zeroDigit;
+    boolean group = (flags & FormattableFlags.COMMA) != 0;
+    boolean separator = (precision > 0
+                         || (flags & FormattableFlags.ALTERNATE) != 0);
+    int fill = (width - integerDigits - (group ? (integerDigits - 1) / 3 : 0)
+                - (separator ? 1 : 0) - precision
+                - signLength(flags, isNegative));
+    boolean zeroFill = (flags & FormattableFlags.ZERO) != 0;
+    boolean rightJustify = (flags & FormattableFlags.LEFT_JUSTIFY) == 0;
+    if (rightJustify && ! zeroFill)
+      pad(' ', fill);
+    if (isNegative)
+      out.append((flags & FormattableFlags.PAREN) != 0 ? '(' : '-');
+    else if ((flags & FormattableFlags.PLUS) != 0)
+      out.append('+');
+    else if ((flags & FormattableFlags.SPACE) != 0)
+      out.append(' ');
+    if (zeroFill)
+      pad(zeroDigit, fill);
+    for (int i = integerDigits - 1; i >= 0; --i)
+      {
+        char c = fixedPointDigit(digits, dot, count, keep, bump,
+                                 point - 1 - i);
+        out.append((char) (c - '0' + zeroDigit));
+        if (group && i > 0 && i % 3 == 0)
+          out.append(syms.groupingSeparator);
+      }
+    if (separator)
+      out.append(syms.decimalSeparator);
+    for (int i = 0; i < precision; ++i)
+      {
+        char c = fixedPointDigit(digits, dot, count, keep, bump, point + i);
+        out.append((char) (c - '0' + zeroDigit));
+      }
+    if (isNegative && (flags & FormattableFlags.PAREN) != 0)
+      out.append(')');
+    if (! rightJustify && ! zeroFill)
+      pad(' ', fill);
+  }
+
+  /**
+   * Returns a digit of a number being formatted by
+   * {@link #fixedPointConversion}, after rounding.
+   *
+   * @param digits the digits of the number.
+   * @param dot the index of the decimal point in digits.
+   * @param count the number of digits.
+   * @param keep the number of digits kept by rounding.
+   * @param bump the digit incremented by rounding up, -1 for a new
+   *        leading digit, or Integer.MAX_VALUE if rounding down.
+   * @param position the position of the digit, counting from the first
+   *        digit of digits.
+   * @return the digit.
+   */
+  private static char fixedPointDigit(String digits, int dot, int count,
+                                      int keep, int bump, int position)
+  {
+    char digit;
+    if (position < 0 || position >= count || position >= keep)
+      digit = '0';
+    else
+      digit = digits.charAt(position < dot ? position : position + 1);
+    if (position == bump)
+      return (char) (digit + 1);
+    return position > bump && position < keep ? '0' : digit;
+  }
+
+  /**
+   * Emit NaN or an infinity for a floating-point conversion.  These are
+   * padded with spaces even if zero padding was requested.
+   *
+   * @param value the value.
+   * @param flags the formatting flags to use.
+   * @param width the width to use.
+   * @throws IOException if the output stream throws an I/O error.
+   */
+  private void nonFiniteFormat(double value, int flags, int width)
+    throws IOException
+  {
+    String result;
+    if (Double.isNaN(value))
+      result = "NaN";
+    else if (value < 0)
+      result = (flags & FormattableFlags.PAREN) != 0 ? "(Infinity)"
+        : "-Infinity";
+    else if ((flags & FormattableFlags.PLUS) != 0)
+      result = "+Infinity";
+    else if ((flags & FormattableFlags.SPACE) != 0)
+      result = " Infinity";
+    else
+      result = "Infinity";
+    genericFormat(result, flags, width, -1);
+  }
+
   /**
    * Emit a single date or time conversion to a StringBuilder.
    *
@@ -1196,11 +1747,22 @@ public final class Formatter
   private int parseInt()
   {
     int start = index;
-    while (Character.isDigit(format.charAt(index)))
-      advance();
+    long value = 0;
+    char c;
+    while (Character.isDigit(c = format.charAt(index)))
+      {
+        if (value <= Integer.MAX_VALUE)
+          value = value * 10 + Character.digit(c, 10);
+        advance();
+      }
     if (start == index)
       return -1;
-    return Integer.parseInt(format.substring(start, index));
+    if (value > Integer.MAX_VALUE)
+      {
+        // Let parseInt report the overflow.
+        return Integer.parseInt(format.substring(start, index));
+      }
+    return (int) value;
   }
 
   /**
@@ -1289,6 +1851,107 @@ public final class Formatter
     return precision;
   }
 
+  /**
+   * Returns the compiled form of a format string, taking it from the
+   * cache if the string was compiled recently.
+   *
+   * @param fmt the format string.
+   * @return the pieces of the format string.
+   * @throws IllegalFormatException if the format string is invalid.
+   */
+  private Specifier[] compile(String fmt)
+  {
+    int slot = fmt.hashCode() & (CACHE_SIZE - 1);
+    CompiledFormat compiled = cache[slot];
+    if (compiled == null || ! compiled.format.equals(fmt))
+      {
+        compiled = new CompiledFormat(fmt, parse(fmt));
+        cache[slot] = compiled;
+      }
+    return compiled.specifiers;
+  }
+
+  /**
+   * Parses a format string into literal text and format specifiers.
+   *
+   * @param fmt the format string.
+   * @return the pieces of the format string.
+   * @throws IllegalFormatException if the format string is invalid.
+   */
+  private Specifier[] parse(String fmt)
+  {
+    ArrayList<Specifier> specifiers = new ArrayList<Specifier>();
+    format = fmt;
+    length = format.length();
+    int literalStart = 0;
+    for (index = 0; index < length; ++index)
+      {
+        if (format.charAt(index) != '%')
+          continue;
+        if (literalStart < index)
+          specifiers.add(new Specifier(format.substring(literalStart, index)));
+
+        int start = index;
+        advance();
+
+        // We do the needed post-processing of this later, when we
+        // determine whether an argument is actually needed by
+        // this conversion.
+        int argumentIndex = parseArgumentIndex();
+
+        int flags = parseFlags();
+        int width = parseWidth();
+        int precision = parsePrecision();
+        String text = format.substring(start, index);
+        char origConversion = format.charAt(index);
+        char conversion = origConversion;
+        if (Character.isUpperCase(conversion))
+          {
+            flags |= FormattableFlags.UPPERCASE;
+            conversion = Character.toLowerCase(conversion);
+          }
+
+        char subConversion = 0;
+        switch (conversion)
+          {
+          case 'b':
+          case 'h':
+          case 's':
+          case 'c':
+          case 'd':
+          case 'o':
+          case 'x':
+          case 'e':
+          case 'f':
+          case 'g':
+          case 'a':
+            break;
+          case 't':
+            advance();
+            subConversion = format.charAt(index);
+            break;
+          case '%':
+          case 'n':
+            if (argumentIndex != -1)
+              {
+                // FIXME: not sure about this.
+                throw new UnknownFormatConversionException("FIXME");
+              }
+            break;
+          default:
+            throw new UnknownFormatConversionException(String.valueOf(origConversion));
+          }
+        specifiers.add(new Specifier(text, argumentIndex, flags, width,
+                                     precision, conversion, origConversion,
+                                     subConversion));
+        literalStart = index + 1;
+      }
+    if (literalStart < length)
+      specifiers.add(new Specifier(format.substring(literalStart)));
+    format = null;
+    return specifiers.toArray(new Specifier[specifiers.size()]);
+  }
+
   /**
    * Outputs a formatted string based on the supplied specification,
    * <code>fmt</code>, and its arguments using the specified locale.
@@ -1297,6 +1960,9 @@ public final class Formatter
    * operation.  If the locale is <code>null</code>, then no
    * localization is applied.
    *
+   * <p>The format string is parsed only the first time it is seen;
+   * recently used format strings are kept in compiled form.</p>
+   *
    * @param loc the locale to use for this format.
    * @param fmt the format specification.
    * @param args the arguments to apply to the specification.
@@ -1311,6 +1977,8 @@ public final class Formatter
     if (closed)
       throw new FormatterClosedException();
 
+    Specifier[] specifiers = compile(fmt);
+
     // Note the arguments are indexed starting at 1.
     int implicitArgumentIndex = 1;
     int previousArgumentIndex = 0;
@@ -1318,57 +1986,36 @@ public final class Formatter
     try
       {
         fmtLocale = loc;
-        format = fmt;
-        length = format.length();
-        for (index = 0; index < length; ++index)
+        for (int i = 0; i < specifiers.length; ++i)
           {
-            char c = format.charAt(index);
-            if (c != '%')
+            Specifier spec = specifiers[i];
+            char conversion = spec.conversion;
+            if (conversion == 0)
               {
-                out.append(c);
+                out.append(spec.text);
                 continue;
               }
 
-            int start = index;
-            advance();
-
-            // We do the needed post-processing of this later, when we
-            // determine whether an argument is actually needed by
-            // this conversion.
-            int argumentIndex = parseArgumentIndex();
-
-            int flags = parseFlags();
-            int width = parseWidth();
-            int precision = parsePrecision();
-            char origConversion = format.charAt(index);
-            char conversion = origConversion;
-            if (Character.isUpperCase(conversion))
-              {
-                flags |= FormattableFlags.UPPERCASE;
-                conversion = Character.toLowerCase(conversion);
-              }
+            int flags = spec.flags;
+            int width = spec.width;
+            int precision = spec.precision;
+            char origConversion = spec.origConversion;
 
             Object argument = null;
-            if (conversion == '%' || conversion == 'n')
-              {
-                if (argumentIndex != -1)
-                  {
-                    // FIXME: not sure about this.
-                    throw new UnknownFormatConversionException("FIXME");
-                  }
-              }
-            else
+            if (conversion != '%' && conversion != 'n')
               {
+                int argumentIndex = spec.argumentIndex;
                 if (argumentIndex == -1)
                   argumentIndex = implicitArgumentIndex++;
                 else if (argumentIndex == 0)
                   argumentIndex = previousArgumentIndex;
+                previousArgumentIndex = argumentIndex;
                 // Argument indices start at 1 but array indices at 0.
                 --argumentIndex;
                 if (args != null)
                   {
                     if (argumentIndex < 0 || argumentIndex >= args.length)
-                      throw new MissingFormatArgumentException(format.substring(start, index));
+                      throw new MissingFormatArgumentException(spec.text);
                     argument = args[argumentIndex];
                   }
               }
@@ -1404,11 +2051,14 @@ public final class Formatter
               case 'x':
                 hexOrOctalConversion(argument, flags, width, precision, 16,
                                      origConversion);
+                break;
               case 'e':
                 // scientificNotationConversion();
                 break;
               case 'f':
-                // floatingDecimalConversion();
+                checkFlags(flags & FormattableFlags.UPPERCASE, 0, 'f');
+                fixedPointConversion(argument, flags, width, precision,
+                                     origConversion);
                 break;
               case 'g':
                 // smartFloatingConversion();
@@ -1417,10 +2067,8 @@ public final class Formatter
                 // hexFloatingConversion();
                 break;
               case 't':
-                advance();
-                char subConversion = format.charAt(index);
                 dateTimeConversion(argument, flags, width, precision,
-                                   origConversion, subConversion);
+                                   origConversion, spec.subConversion);
                 break;
               case '%':
                 percentFormat(flags, width, precision);
@@ -1428,8 +2076,6 @@ public final class Formatter
               case 'n':
                 newLineFormat(flags, width, precision);
                 break;
-              default:
-                throw new UnknownFormatConversionException(String.valueOf(origConversion));
               }
           }
       }
@@ -37,19 +37,21 @@ exception statement from your version. */
 
 package java.util;
 
-import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
 
 import java.math.BigDecimal;
 import java.math.BigInteger;
 
-import java.nio.ByteBuffer;
 import java.nio.CharBuffer;
+import java.nio.channels.Channels;
 import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
 
 import java.text.DecimalFormat;
 import java.text.DecimalFormatSymbols;
@@ -92,6 +94,8 @@ public class Scanner
   private final static String NEW_LINE =
     System.getProperty ("line.separator");
 
+  private static final Pattern NEW_LINE_PATTERN = Pattern.compile (NEW_LINE);
+
   private IOException lastIOException = null;
 
   /**
@@ -101,9 +105,9 @@ public class Scanner
   private InputStream bIS = null;
 
   /**
-   * Length of the input Buffer, which is the maximum bytes to be read at once.
+   * Number of chars which are read from the source at once.
    */
-  private final int MaxBufferLen = 1000000;
+  private static final int READ_LEN = 8192;
 
   /**
    * Minimum buffer length. If there are less chars in the Buffer than this value reading from
@@ -113,16 +117,36 @@ public class Scanner
 
   /**
    * Maximum number of processed chars in the Buffer. If exeeded, all processed chars from the
-   * beginning of the Buffer will be discarded to save space. The bytes left are copyed into a new
+   * beginning of the Buffer will be discarded to save space. The chars left are copyed into a new
    * Buffer.
    */
   private final int MAX_PREFIX = 10000;
 
+  /**
+   * The chars read from the source so far, less those which have been discarded. Only the first
+   * <code> charBufLen </code> chars are used. Reading appends to the array, or to a bigger copy of
+   * it; chars which have been read are never overwritten, as match results may still refer to
+   * them.
+   */
+  private char[] charBuf = new char[0];
+
+  /**
+   * The number of chars in {@link #charBuf}.
+   */
+  private int charBufLen = 0;
+
+  /**
+   * A view of the chars in {@link #charBuf}. It is replaced whenever chars are added or
+   * discarded.
+   */
+  private CharBuffer window = CharBuffer.wrap (this.charBuf);
+
   /**
    * The Buffer which is used by the Matcher to find given patterns. It is filled up when matcher
-   * hits end or <code> MIN_BUF_LEN </code> is reached.
+   * hits end or <code> MIN_BUF_LEN </code> is reached. Usually it is the {@link #window}, but
+   * while a pattern is searched in a single token it is that token.
    */
-  private String actBuffer = new String ();
+  private CharSequence actBuffer = this.window;
 
   /**
    * The current radix to use by the methods getNextXXX and hasNextXXX.
@@ -147,16 +171,6 @@ public class Scanner
    */
   private int actPos = 0;
 
-  /**
-   * A global buffer to save new allocations by reading from source.
-   */
-  private final byte[] tmpBuffer = new byte[this.MaxBufferLen];
-
-  /**
-   * The charsetName to use with the source.
-   */
-  private String charsetName = null;
-
   /**
    * The Matcher which is used.
    */
@@ -167,12 +181,29 @@ public class Scanner
    */
   private MatchResult actResult = null;
 
+  /**
+   * If {@link #actResult} is still to be made, the text in which the delimiter is to be searched
+   * again, otherwise <code> null </code>. The tokens found without the Matcher only make the
+   * MatchResult when {@link #match()} is called.
+   */
+  private CharSequence actResultText = null;
+
+  private Pattern actResultPattern = null;
+
+  private int actResultPos = 0;
+
   /**
    * A Readable source if a Constructor with a Readable source is called, otherwise it stays
    * <source> null </source>.
    */
   private Readable readableSource = null;
 
+  /**
+   * The Reader to read from. It decodes an InputStream or ReadableByteChannel source, or it is
+   * the Readable source if that is a Reader. Otherwise it stays <source> null </source>.
+   */
+  private Reader reader = null;
+
   /**
    * A ReadableByteChannel source if a Constructor with a ReadableByteChannel source is called,
    * otherwise it stays <source> null </source>.
@@ -205,6 +236,45 @@ public class Scanner
 
   private MatchResult lastResult = null;
 
+  /**
+   * If the last found was found by {@link #myScanNext(boolean, Pattern)}, where it starts in
+   * {@link #charBuf}, otherwise -1. Then {@link #lastFound} is only made when it is needed.
+   */
+  private int lastFoundStart = -1;
+
+  private int lastFoundEnd = 0;
+
+  /**
+   * If {@link #lastResult} is still to be made, the text it is to be made from, otherwise
+   * <code> null </code>.
+   */
+  private CharSequence lastResultText = null;
+
+  private Pattern lastResultPattern = null;
+
+  private int lastResultPos = 0;
+
+  /**
+   * The start of the token found by {@link #myScanNext(boolean, Pattern)} in {@link #charBuf}, or
+   * -1 if no token was found.
+   */
+  private int tokenStart = -1;
+
+  /**
+   * The end of the token found by {@link #myScanNext(boolean, Pattern)} in {@link #charBuf}.
+   */
+  private int tokenEnd = 0;
+
+  /**
+   * The value of the token parsed by {@link #myParseToken(int, long, long)}.
+   */
+  private long tokenValue = 0;
+
+  /**
+   * Indicates that the Matcher searches some other text than the buffer for the moment.
+   */
+  private boolean matcherSwapped = false;
+
   /**
    * To keep track of the current position in the stream for the toString method, each time
    * processed chars are removed the amount is added to processedChars.
@@ -244,6 +314,27 @@ public class Scanner
   private DecimalFormatSymbols dfs =
     new DecimalFormatSymbols (this.actLocale);
 
+  /**
+   * Indicates if {@link #plainLocale} and the symbols after it have been set for the current
+   * format.
+   */
+  private boolean localeChecked = false;
+
+  /**
+   * Indicates if the current format parses integers as a sign and digits, possibly with grouping
+   * separators, so that {@link #myParseToken(int, long, long)} can parse them.
+   */
+  private boolean plainLocale = false;
+
+  private char localeZero = '0';
+
+  private char localeMinus = '-';
+
+  /**
+   * The grouping separator, or -1 if grouping is not used.
+   */
+  private int localeGroup = -1;
+
   /**
    * Constructs a new Scanner with the given File as source.
    * {@link #Scanner(InputStream, String)} is called with <code> null </code> as charsetName.
@@ -299,8 +390,8 @@ public class Scanner
    */
   public Scanner (final InputStream source, final String charsetName)
   {
-    this.bIS = (new BufferedInputStream (source));
-    this.charsetName = charsetName;
+    this.bIS = source;
+    this.reader = myOpenReader (source, charsetName);
     myFillBuffer ();
   }
 
@@ -313,6 +404,10 @@ public class Scanner
   public Scanner (final Readable source)
   {
     this.readableSource = source;
+    if (source instanceof Reader)
+      {
+        this.reader = (Reader) source;
+      }
     myFillBuffer ();
   }
 
@@ -341,8 +436,9 @@ public class Scanner
    */
   public Scanner (final ReadableByteChannel source, final String charsetName)
   {
-    this.charsetName = charsetName;
     this.rbcSource = source;
+    this.reader =
+      myOpenReader (Channels.newInputStream (source), charsetName);
     myFillBuffer ();
   }
 
@@ -354,7 +450,10 @@ public class Scanner
    */
   public Scanner (final String source)  // TESTED
   {
-    this.actBuffer = new String (source);
+    this.charBuf = source.toCharArray ();
+    this.charBufLen = this.charBuf.length;
+    this.window = CharBuffer.wrap (this.charBuf);
+    this.actBuffer = this.window;
     this.myMatcher.reset (this.actBuffer);
   }
 
@@ -565,7 +664,7 @@ public class Scanner
       myBigDecimal (false);
       return true;
     }
-    catch (InputMismatchException nfe)
+    catch (NoSuchElementException nfe)
     {
       return false;
     }
@@ -605,7 +704,7 @@ public class Scanner
       myNextBigInteger (radix, false, BIG_INTEGER);
       return true;
     }
-    catch (InputMismatchException ime)
+    catch (NoSuchElementException ime)
     {
       return false;
     }
@@ -628,7 +727,7 @@ public class Scanner
       myNextBoolean (false);
       return true;
     }
-    catch (InputMismatchException ime)
+    catch (NoSuchElementException ime)
     {
       return false;
     }
@@ -669,7 +768,7 @@ public class Scanner
       myNextByte (radix, false);
       return true;
     }
-    catch (InputMismatchException ime)
+    catch (NoSuchElementException ime)
     {
       return false;
     }
@@ -693,7 +792,7 @@ public class Scanner
       myNextDouble (false);
       return true;
     }
-    catch (InputMismatchException ime)
+    catch (NoSuchElementException ime)
     {
       return false;
     }
@@ -719,7 +818,7 @@ public class Scanner
       // myNextFloat(false);
       return true;
     }
-    catch (InputMismatchException ime)
+    catch (NoSuchElementException ime)
     {
       return false;
     }
@@ -762,7 +861,7 @@ public class Scanner
       myNextInt (radix, false);
       return true;
     }
-    catch (InputMismatchException ime)
+    catch (NoSuchElementException ime)
     {
       return false;
     }
@@ -818,7 +917,7 @@ public class Scanner
       myNextLong (radix, false);
       return true;
     }
-    catch (InputMismatchException ime)
+    catch (NoSuchElementException ime)
     {
       return false;
     }
@@ -861,7 +960,7 @@ public class Scanner
       myNextShort (radix, false);
       return true;
     }
-    catch (InputMismatchException ime)
+    catch (NoSuchElementException ime)
     {
       return false;
     }
@@ -910,6 +1009,13 @@ public class Scanner
    */
   public MatchResult match ()   // TESTED
   {
+    if (this.actResultText != null)
+      {
+        Matcher matcher = this.actResultPattern.matcher (this.actResultText);
+        matcher.find (this.actResultPos);
+        this.actResult = matcher.toMatchResult ();
+        this.actResultText = null;
+      }
     return this.actResult;
   }
 
@@ -928,7 +1034,7 @@ public class Scanner
    */
   public String next () throws NoSuchElementException, IllegalStateException    // TESTED
   {
-    return myCoreNext (true, this.p);
+    return myRequire (myCoreNext (true, this.p));
   }
 
   /**
@@ -1145,7 +1251,7 @@ public class Scanner
    */
   public String nextLine () throws NoSuchElementException, IllegalStateException        // TESTED
   {
-    return myNextLine (true);
+    return myRequire (myNextLine (true));
   }
 
   /**
@@ -1264,8 +1370,10 @@ public class Scanner
 
       this.doSkipp = false;
       this.skipped = true;
+      this.lastFoundPresent = false;
 
       actResult = null;
+      actResultText = null;
 
     if (!found)
       {
@@ -1380,6 +1488,7 @@ public class Scanner
         this.actFormat = NumberFormat.getInstance (this.actLocale);
         this.dfs = new DecimalFormatSymbols (this.actLocale);
         this.df = (DecimalFormat) this.actFormat;
+        this.localeChecked = false;
       }
     return this;
   }
@@ -1534,7 +1643,7 @@ public class Scanner
     InputMismatchException
   {
     BigDecimal rc;
-    String tmp = myCoreNext (delete, this.p);
+    String tmp = myRequire (myCoreNext (delete, this.p));
       try
     {
       tmp = myApplyLocaleBD (tmp);
@@ -1602,10 +1711,34 @@ public class Scanner
             this.actPos = this.lastNextPos;
             this.lastFoundPresent = false;
             this.actResult = this.lastResult;
+            this.actResultText = this.lastResultText;
+            this.actResultPattern = this.lastResultPattern;
+            this.actResultPos = this.lastResultPos;
+          }
+        if (this.lastFound == null && this.lastFoundStart >= 0)
+          {
+            this.lastFound =
+              new String (this.charBuf, this.lastFoundStart,
+                          this.lastFoundEnd - this.lastFoundStart);
           }
         return this.lastFound;
       }
 
+    if (myCanScan (pattern))
+      {
+        myScanNext (delete, pattern);
+        if (this.tokenStart < 0)
+          {
+            return null;
+          }
+        String tmp = myTokenString ();
+        if (!delete)
+          {
+            this.lastFound = tmp;
+          }
+        return tmp;
+      }
+
     boolean found = false;
     int left;
     int endIndex;
@@ -1614,11 +1747,7 @@ public class Scanner
 
     if (this.actPos > this.MAX_PREFIX)
       {
-        // skipp the processed chars so that the size of the buffer don't grow to much even with
-        // huge files
-        this.procesedChars += this.actPos;
-        this.actBuffer = this.actBuffer.substring (this.actPos);
-        this.actPos = 0;
+        myDiscardProcessed ();
         this.myMatcher = pattern.matcher (this.actBuffer);
       }
 
@@ -1643,7 +1772,7 @@ public class Scanner
           {
             endIndex = this.myMatcher.start ();
           }
-        tmp2 = this.actBuffer.substring (this.actPos, endIndex);
+        tmp2 = this.actBuffer.subSequence (this.actPos, endIndex).toString ();
         this.lastNextPos = this.myMatcher.end ();
         /*
          * if the delete flag is set, just set the current position after the end of the matched
@@ -1652,10 +1781,12 @@ public class Scanner
         if (delete)
           {
             this.actPos = this.lastNextPos;
+            this.lastFoundPresent = false;
           }
         else
           {
             this.lastFound = tmp2;
+            this.lastFoundStart = -1;
             this.lastFoundPresent = true;
             this.lastPatternHash = pattern.hashCode ();
           }
@@ -1667,17 +1798,20 @@ public class Scanner
     else if (this.myMatcher.hitEnd ())
       // the end of input is matched
       {
-        tmp2 = this.actBuffer.substring (this.actPos);
+        tmp2 = this.actBuffer.subSequence (this.actPos,
+                                           this.actBuffer.length ()).toString ();
         if (tmp2.length() == 0)
           tmp2 = null;
         this.lastNextPos = this.actBuffer.length ();
         if (delete)
           {
             this.actPos = this.lastNextPos;
+            this.lastFoundPresent = false;
           }
         else
           {
             this.lastFound = tmp2;
+            this.lastFoundStart = -1;
             this.lastFoundPresent = true;
             this.lastPatternHash = pattern.hashCode ();
           }
@@ -1700,12 +1834,14 @@ public class Scanner
     if (delete)
       {
         this.actResult = this.myMatcher.toMatchResult ();
+        this.actResultText = null;
 
         this.matchValid = this.actResult != null;
       }
     else
       {
         this.lastResult = this.myMatcher.toMatchResult ();
+        this.lastResultText = null;
       }
 
     this.skipped = this.doSkipp;
@@ -1715,94 +1851,506 @@ public class Scanner
   }
 
   /**
-   * Used to fill the String buffer from a source. Therfore the 3
-   * possible sources are checked if they are not <code>null</code>
-   * and this not used, otherwise the read method is called on the
-   * source. If a charsetName is set and not <code>null</code> it is
-   * applied to convert to String.
+   * Checks if {@link #myScanNext(boolean, Pattern)} can be used instead of the Matcher to search
+   * for the given pattern in the buffer.
+   *
+   * @param pattern
+   *            pattern to search for.
+   * @return <code> true </code> if the pattern is the default delimiter or the line separator and
+   *         the Matcher has not been set up for a special search.
+   */
+  private boolean myCanScan (final Pattern pattern)
+  {
+    return ((pattern == DEFAULT_PATTERN || pattern == NEW_LINE_PATTERN)
+            && !this.matcherSwapped && !this.doSkipp);
+  }
+
+  /**
+   * Does the search of {@link #myCoreNext(boolean, Pattern)} for the default delimiter or the
+   * line separator, with the same results, but looks at the chars in the buffer directly instead
+   * of running the Matcher. The token found is left in {@link #tokenStart} and {@link #tokenEnd}
+   * and no String is made of it. The MatchResult is only made if {@link #match()} asks for it.
+   *
+   * @param delete
+   *            if true the aktPos is set.
+   * @param pattern
+   *            either {@link #DEFAULT_PATTERN} or {@link #NEW_LINE_PATTERN}.
+   */
+  private void myScanNext (final boolean delete, final Pattern pattern)
+  {
+    int end;
+    int next;
+
+    if (this.actPos > this.MAX_PREFIX)
+      {
+        myDiscardProcessed ();
+        this.myMatcher.reset (this.actBuffer);
+      }
+    if (this.charBufLen - this.actPos < this.MIN_BUF_LEN)
+      {
+        myFillBuffer ();
+      }
+
+    if (pattern == DEFAULT_PATTERN)
+      {
+        // The token ends at the first whitespace, and the delimiter takes all the whitespace
+        // after it. Either may go on after the end of the buffer.
+        end = this.actPos;
+        do
+          {
+            while (end < this.charBufLen
+                   && !Character.isWhitespace (this.charBuf[end]))
+              {
+                end++;
+              }
+          }
+        while (end == this.charBufLen && myFillMore ());
+        next = end;
+        do
+          {
+            while (next < this.charBufLen
+                   && Character.isWhitespace (this.charBuf[next]))
+              {
+                next++;
+              }
+          }
+        while (next == this.charBufLen && next > end && myFillMore ());
+      }
+    else
+      {
+        int sepLen = NEW_LINE.length ();
+        end = this.actPos;
+        while (true)
+          {
+            end = myIndexOfNewLine (end);
+            if (end >= 0)
+              {
+                next = end + sepLen;
+                break;
+              }
+            end = Math.max (this.actPos, this.charBufLen - sepLen + 1);
+            if (!myFillMore ())
+              {
+                end = this.charBufLen;
+                next = end;
+                break;
+              }
+          }
+      }
+    this.needInput = false;
+
+    // Without a delimiter the rest of the input is the token, if there is any.
+    if (next > end || end > this.actPos)
+      {
+        this.tokenStart = this.actPos;
+        this.tokenEnd = end;
+      }
+    else
+      {
+        this.tokenStart = -1;
+      }
+    this.lastNextPos = next;
+    if (delete)
+      {
+        this.actPos = next;
+        this.lastFoundPresent = false;
+        this.actResult = null;
+        this.actResultText = this.window;
+        this.actResultPattern = pattern;
+        this.actResultPos = end;
+        this.matchValid = true;
+      }
+    else
+      {
+        this.lastFound = null;
+        this.lastFoundStart = this.tokenStart;
+        this.lastFoundEnd = end;
+        this.lastFoundPresent = true;
+        this.lastPatternHash = pattern.hashCode ();
+        this.lastResult = null;
+        this.lastResultText = this.window;
+        this.lastResultPattern = pattern;
+        this.lastResultPos = end;
+      }
+    this.last_RegionStart = this.myMatcher.regionStart ();
+    this.last_RegionEnd = this.myMatcher.regionEnd ();
+    this.last_anchor = this.myMatcher.hasAnchoringBounds ();
+    this.last_transparent = this.myMatcher.hasTransparentBounds ();
+
+    this.skipped = false;
+  }
+
+  /**
+   * Searches the line separator in the buffer.
+   *
+   * @param from
+   *            the position in {@link #charBuf} to start at.
+   * @return the position of the line separator, or -1 if it is not in the buffer.
+   */
+  private int myIndexOfNewLine (final int from)
+  {
+    int sepLen = NEW_LINE.length ();
+    char first = NEW_LINE.charAt (0);
+    int last = this.charBufLen - sepLen;
+    for (int i = from; i <= last; i++)
+      {
+        if (this.charBuf[i] == first)
+          {
+            int j = 1;
+            while (j < sepLen && this.charBuf[i + j] == NEW_LINE.charAt (j))
+              {
+                j++;
+              }
+            if (j == sepLen)
+              {
+                return i;
+              }
+          }
+      }
+    return -1;
+  }
+
+  /**
+   * Finds the next token for the current delimiter, like {@link #myPrepareForNext(Pattern,
+   * boolean)} does, if this can be done with {@link #myScanNext(boolean, Pattern)}. Then no
+   * String is made of the token.
+   *
+   * @param delete
+   *            Should the found token be deleted from the input.
+   * @return <code> true </code> if a token was found and left in {@link #tokenStart} and
+   *         {@link #tokenEnd}, <code> false </code> if {@link #myPrepareForNext(Pattern,
+   *         boolean)} has to be called.
+   */
+  private boolean myNextToken (final boolean delete)
+  {
+    if (this.isClosed || !myCanScan (this.p))
+      {
+        return false;
+      }
+    if (shallUseLastFound (this.p))
+      {
+        if (this.lastFoundStart < 0)
+          {
+            return false;
+          }
+        this.tokenStart = this.lastFoundStart;
+        this.tokenEnd = this.lastFoundEnd;
+        if (delete)
+          {
+            this.actPos = this.lastNextPos;
+            this.lastFoundPresent = false;
+            this.actResult = this.lastResult;
+            this.actResultText = this.lastResultText;
+            this.actResultPattern = this.lastResultPattern;
+            this.actResultPos = this.lastResultPos;
+          }
+        return true;
+      }
+    myScanNext (delete, this.p);
+    return this.tokenStart >= 0;
+  }
+
+  /**
+   * Makes a String of the token found by {@link #myScanNext(boolean, Pattern)}.
+   *
+   * @return the token.
+   */
+  private String myTokenString ()
+  {
+    return new String (this.charBuf, this.tokenStart,
+                       this.tokenEnd - this.tokenStart);
+  }
+
+  /**
+   * Parses the token found by {@link #myNextToken(boolean)} as an integral number in the given
+   * range, without making a String of it. Only a minus sign followed by digits is parsed, with
+   * grouping separators if the Locale is applied, which is what the Locale and {@link
+   * Long#parseLong(String, int)} usually get. Anything else, and numbers which are out of range,
+   * are left to the callers, which parse the String and report the errors.
+   *
+   * @param radix
+   *            The radix to use.
+   * @param min
+   *            The least value allowed.
+   * @param max
+   *            The greatest value allowed.
+   * @return <code> true </code> if the value was parsed and left in {@link #tokenValue}.
+   */
+  private boolean myParseToken (final int radix, final long min,
+                                final long max)
+  {
+    boolean localized = this.useLocale && radix == 10;
+    char zero = '0';
+    char minus = '-';
+    int group = -1;
+
+    if (localized)
+      {
+        if (!this.localeChecked)
+          {
+            myCheckLocale ();
+          }
+        if (!this.plainLocale)
+          {
+            return false;
+          }
+        zero = this.localeZero;
+        minus = this.localeMinus;
+        group = this.localeGroup;
+      }
+
+    char[] buf = this.charBuf;
+    int i = this.tokenStart;
+    int end = this.tokenEnd;
+    boolean negative = i < end && buf[i] == minus;
+    if (negative)
+      {
+        i++;
+      }
+    // The value is summed up as a negative number, which goes one further.
+    long limit = negative ? min : -max;
+    long multLimit = limit / radix;
+    long rc = 0;
+    boolean digits = false;
+    for (; i < end; i++)
+      {
+        char ch = buf[i];
+        int digit;
+        if (ch == group)
+          {
+            continue;
+          }
+        if (localized)
+          {
+            digit = ch - zero;
+            if (digit < 0 || digit > 9)
+              {
+                return false;
+              }
+          }
+        else
+          {
+            if (ch >= '0' && ch <= '9')
+              {
+                digit = ch - '0';
+              }
+            else if (ch >= 'a' && ch <= 'z')
+              {
+                digit = ch - 'a' + 10;
+              }
+            else if (ch >= 'A' && ch <= 'Z')
+              {
+                digit = ch - 'A' + 10;
+              }
+            else
+              {
+                return false;
+              }
+            if (digit >= radix)
+              {
+                return false;
+              }
+          }
+        if (rc < multLimit)
+          {
+            return false;
+          }
+        rc *= radix;
+        if (rc < limit + digit)
+          {
+            return false;
+          }
+        rc -= digit;
+        digits = true;
+      }
+
+    // The Locale makes a Double of "-0", which is not an integer.
+    if (!digits || (localized && negative && rc == 0))
+      {
+        return false;
+      }
+    this.tokenValue = negative ? rc : -rc;
+    return true;
+  }
+
+  /**
+   * Checks if the current format parses integers in the plain way {@link #myParseToken(int, long,
+   * long)} does, and takes the symbols it needs. This is the case if there are no prefixes or
+   * suffixes other than a single char negative prefix, and the symbols cannot be mixed up.
+   */
+  private void myCheckLocale ()
+  {
+    DecimalFormatSymbols symbols = this.df.getDecimalFormatSymbols ();
+    char zero = symbols.getZeroDigit ();
+    char minus = symbols.getMinusSign ();
+    String negative = this.df.getNegativePrefix ();
+    int group = -1;
+
+    if (negative.length () == 0)
+      {
+        negative = minus + this.df.getPositivePrefix ();
+      }
+    if (this.df.isGroupingUsed ())
+      {
+        group = symbols.getGroupingSeparator ();
+      }
+
+    this.plainLocale =
+      this.df.getPositivePrefix ().length () == 0
+      && this.df.getPositiveSuffix ().length () == 0
+      && this.df.getNegativeSuffix ().length () == 0
+      && negative.length () == 1
+      && !this.df.isParseIntegerOnly ()
+      && !this.df.isParseBigDecimal ()
+      && this.df.toPattern ().indexOf ('E') < 0
+      && !myIsDigitOrGroup (negative.charAt (0), zero, group)
+      && (group == -1
+          || (group != symbols.getDecimalSeparator () && group != '+'
+              && group != '-' && group != minus
+              && group != negative.charAt (0)
+              && !myIsDigitOrGroup ((char) group, zero, -1)))
+      && symbols.getNaN ().length () > 0
+      && !myIsDigitOrGroup (symbols.getNaN ().charAt (0), zero, group)
+      && symbols.getNaN ().charAt (0) != negative.charAt (0)
+      && symbols.getInfinity ().length () > 0
+      && !myIsDigitOrGroup (symbols.getInfinity ().charAt (0), zero, group);
+    this.localeZero = zero;
+    this.localeMinus = negative.charAt (0);
+    this.localeGroup = group;
+    this.localeChecked = true;
+  }
+
+  /**
+   * Checks if a char is a digit or the grouping separator.
+   *
+   * @param ch the char to check.
+   * @param zero the zero digit.
+   * @param group the grouping separator, or -1.
+   * @return <code> true </code> if it is.
+   */
+  private static boolean myIsDigitOrGroup (final char ch, final char zero,
+                                           final int group)
+  {
+    return (ch >= zero && ch <= zero + 9) || ch == group;
+  }
+
+  /**
+   * Discards the processed chars from the beginning of the buffer, so that the size of the buffer
+   * don't grow to much even with huge files. The chars left are copied into a new array, as match
+   * results may still refer to the old one.
+   */
+  private void myDiscardProcessed ()
+  {
+    int left = this.charBufLen - this.actPos;
+    char[] tmp = new char[left + this.MAX_PREFIX + READ_LEN];
+
+    System.arraycopy (this.charBuf, this.actPos, tmp, 0, left);
+    this.procesedChars += this.actPos;
+    this.charBuf = tmp;
+    this.charBufLen = left;
+    this.actPos = 0;
+    this.window = CharBuffer.wrap (this.charBuf, 0, this.charBufLen);
+    this.actBuffer = this.window;
+  }
+
+  /**
+   * Opens the Reader which decodes an InputStream.
+   *
+   * @param source
+   *            the InputStream to decode.
+   * @param charsetName
+   *            the name of the charset to use, or <code> null </code> for the default charset.
+   * @return the Reader.
+   */
+  private static Reader myOpenReader (final InputStream source,
+                                      final String charsetName)
+  {
+    if (charsetName == null)
+      {
+        return new InputStreamReader (source);
+      }
+    return new InputStreamReader (source, Charset.forName (charsetName));
+  }
+
+  /**
+   * Used to fill the buffer from a source. The chars are read straight into {@link #charBuf},
+   * which is replaced by a bigger copy first if there is not room enough. An InputStream or a
+   * ReadableByteChannel source is read through a Reader which decodes it with the charset given,
+   * so that no char is split between two reads.
    */
   private void myFillBuffer ()
   {
     int len;
-    String tmpStr;
-    CharBuffer cb = null;
-    ByteBuffer bb = null;
+    CharBuffer oldWindow = this.window;
 
-    if (this.bIS != null)
+    if (this.reader != null || this.readableSource != null)
       {
+        if (this.charBuf.length - this.charBufLen < READ_LEN)
+          {
+            char[] tmp =
+              new char[Math.max (2 * this.charBuf.length,
+                                 this.charBufLen + READ_LEN)];
+            System.arraycopy (this.charBuf, 0, tmp, 0, this.charBufLen);
+            this.charBuf = tmp;
+          }
         try
         {
-          len = this.bIS.read (this.tmpBuffer);
-          if (len < 0)
-            {
-              return;
-            }
-          if (this.charsetName != null)
+          this.needInput = true;
+          if (this.reader != null)
             {
-              tmpStr = new String (this.tmpBuffer, 0, len, this.charsetName);
+              do
+                {
+                  len = this.reader.read (this.charBuf, this.charBufLen,
+                                          READ_LEN);
+                }
+              while (len == 0);
             }
           else
             {
-              tmpStr = new String (this.tmpBuffer, 0, len);
+              len = this.readableSource.read (CharBuffer.wrap (this.charBuf,
+                                                               this.charBufLen,
+                                                               READ_LEN));
             }
-          this.actBuffer += tmpStr;
-        }
-        catch (IOException e)
-        {
-          this.lastIOException = e;
-        }
-      }
-    else if (this.readableSource != null)
-      {
-        try
-        {
-          cb = CharBuffer.allocate (1000);
-          this.needInput = true;
-          len = this.readableSource.read (cb);
           if (len < 0)
             {
               return;
             }
           this.needInput = false;
-          tmpStr = new String (cb.array ());
-          this.actBuffer += tmpStr;
+          this.charBufLen += len;
+          this.window = CharBuffer.wrap (this.charBuf, 0, this.charBufLen);
         }
         catch (IOException e)
         {
           this.lastIOException = e;
         }
       }
-    else if (this.rbcSource != null)
+
+    if (this.actBuffer == oldWindow)
       {
-        try
-        {
-          bb = ByteBuffer.allocate (1000);
-          this.needInput = true;
-          len = this.rbcSource.read (bb);
-          this.needInput = false;
-          if (len < 0)
-            {
-              return;
-            }
-          if (this.charsetName != null)
-            {
-              tmpStr = new String (bb.array (), 0, len, this.charsetName);
-            }
-          else
-            {
-              tmpStr = new String (bb.array (), 0, len);
-            }
-          this.actBuffer += tmpStr;
-        }
-        catch (IOException e)
-        {
-          this.lastIOException = e;
-        }
+        this.actBuffer = this.window;
       }
-
     this.myMatcher.reset (this.actBuffer);
   }
 
+  /**
+   * Reads more chars into the buffer for {@link #myScanNext(boolean, Pattern)}, like {@link
+   * #myFillBuffer_loop(Matcher, int, boolean)} does for the Matcher.
+   *
+   * @return <code> true </code> if chars were read.
+   */
+  private boolean myFillMore ()
+  {
+    int tmp = this.charBufLen;
+
+    if (this.reader == null && this.readableSource == null)
+      {
+        return false;
+      }
+    myFillBuffer ();
+    this.needInput = true;
+    return tmp != this.charBufLen;
+  }
+
   /**
    * A loop in which the {@link #myFillBuffer()} is called and checked
    * if the pattern is found in the matcher and if the buffersize
@@ -1852,22 +2400,33 @@ public class Scanner
    *            the horizon whithin the match should be, if 0 then it is ignored.
    * @return Returns the String in the given String that matches the pattern.
    */
-  private String myFindPInStr (final Pattern pattern, final String str,
+  private String myFindPInStr (final Pattern pattern, final CharSequence str,
                                final int horizon)
   {
     String rc = null;
     int curPos = this.actPos;
     Matcher aktMatcher = this.myMatcher;
+    CharSequence aktBuffer = this.actBuffer;
+    CharBuffer aktWindow = this.window;
+    boolean aktSwapped = this.matcherSwapped;
 
     this.myMatcher = pattern.matcher (str);
-    if (horizon > 0)
-      {
-        this.myMatcher.useAnchoringBounds (true);
-        this.myMatcher.useTransparentBounds (true);
-        this.myMatcher.region (this.actPos, this.actPos + horizon);
-      }
-    rc = myCoreNext (true, pattern);
-    this.myMatcher = aktMatcher;
+    this.matcherSwapped = true;
+    try
+    {
+      if (horizon > 0)
+        {
+          this.myMatcher.useAnchoringBounds (true);
+          this.myMatcher.useTransparentBounds (true);
+          this.myMatcher.region (this.actPos, this.actPos + horizon);
+        }
+      rc = myCoreNext (true, pattern);
+    }
+    finally
+    {
+      myRestoreBuffer (aktBuffer, aktWindow, aktMatcher);
+      this.matcherSwapped = aktSwapped;
+    }
 
     this.actPos = curPos;
     this.skipped = true;
@@ -1875,6 +2434,34 @@ public class Scanner
     return rc;
   }
 
+  /**
+   * Sets the buffer and the Matcher back after a search in some other text. If chars have been
+   * read meanwhile, the Matcher is reset to the buffer with them.
+   *
+   * @param buffer
+   *            the buffer before the search.
+   * @param aktWindow
+   *            the window before the search.
+   * @param matcher
+   *            the Matcher before the search.
+   */
+  private void myRestoreBuffer (final CharSequence buffer,
+                                final CharBuffer aktWindow,
+                                final Matcher matcher)
+  {
+    this.myMatcher = matcher;
+    if (buffer == aktWindow && aktWindow != this.window)
+      {
+        this.actBuffer = this.window;
+        this.myMatcher.reset (this.actBuffer);
+      }
+    else
+      {
+        this.actBuffer = buffer;
+      }
+  }
+
+
   /**
    * Used by the {@link #hasNext(Pattern)} and {@link #next(Pattern)}
    * methods. Therfore a substring is taken first to the current
@@ -1894,8 +2481,10 @@ public class Scanner
   {
     String tmpStr;
     Matcher aktMatcher = this.myMatcher;
+    boolean aktSwapped = this.matcherSwapped;
     String result;
-    String currBuffer = this.actBuffer;
+    CharSequence currBuffer = this.actBuffer;
+    CharBuffer currWindow = this.window;
     int currAktPos;
 
     tmpStr = myCoreNext (delete, this.p);
@@ -1903,11 +2492,17 @@ public class Scanner
     this.actBuffer = tmpStr;
     currAktPos = this.actPos;
     this.actPos = 0;
-    result = myCoreNext (delete, pattern);
-    this.actPos = currAktPos;
-
-    this.actBuffer = currBuffer;
-    this.myMatcher = aktMatcher;
+    this.matcherSwapped = true;
+    try
+    {
+      result = myCoreNext (delete, pattern);
+    }
+    finally
+    {
+      this.actPos = currAktPos;
+      myRestoreBuffer (currBuffer, currWindow, aktMatcher);
+      this.matcherSwapped = aktSwapped;
+    }
     this.skipped = true;
 
     return result;
@@ -1932,7 +2527,7 @@ public class Scanner
                                        final String name)
   {
     BigInteger rc;
-    String tmp = myPrepareForNext (this.p, delete);
+    String tmp = myRequire (myPrepareForNext (this.p, delete));
 
     try
     {
@@ -1964,7 +2559,7 @@ public class Scanner
   private boolean myNextBoolean (final boolean delete) throws
     InputMismatchException
   {
-    String tmp = myPrepareForNext (this.p, delete);
+    String tmp = myRequire (myPrepareForNext (this.p, delete));
     if (tmp.equalsIgnoreCase ("true"))
       {
         return true;
@@ -1995,7 +2590,20 @@ public class Scanner
                            final boolean delete) throws InputMismatchException
   {
     byte rc;
-    String tmp = myPrepareForNext (this.p, delete);
+    String tmp;
+
+    if (myNextToken (delete))
+      {
+        if (myParseToken (radix, Byte.MIN_VALUE, Byte.MAX_VALUE))
+          {
+            return (byte) this.tokenValue;
+          }
+        tmp = myTokenString ();
+      }
+    else
+      {
+        tmp = myRequire (myPrepareForNext (this.p, delete));
+      }
 
       try
     {
@@ -2031,7 +2639,7 @@ public class Scanner
     InputMismatchException
   {
     double rc;
-    String tmp = myPrepareForNext (this.p, delete);
+    String tmp = myRequire (myPrepareForNext (this.p, delete));
 
       try
     {
@@ -2065,7 +2673,20 @@ public class Scanner
                          final boolean delete) throws InputMismatchException
   {
     int rc;
-    String tmp = myPrepareForNext (this.p, delete);
+    String tmp;
+
+    if (myNextToken (delete))
+      {
+        if (myParseToken (radix, Integer.MIN_VALUE, Integer.MAX_VALUE))
+          {
+            return (int) this.tokenValue;
+          }
+        tmp = myTokenString ();
+      }
+    else
+      {
+        tmp = myRequire (myPrepareForNext (this.p, delete));
+      }
     try
       {
         tmp = myApplyLocale (tmp, radix);
@@ -2090,7 +2711,7 @@ public class Scanner
    */
   private String myNextLine (final boolean delete)
   {
-    return myPrepareForNext (Pattern.compile (NEW_LINE), delete);
+    return myPrepareForNext (NEW_LINE_PATTERN, delete);
   }
 
   /**
@@ -2107,7 +2728,20 @@ public class Scanner
                            final boolean delete) throws InputMismatchException
   {
     long rc;
-    String tmp = myPrepareForNext (this.p, delete);
+    String tmp;
+
+    if (myNextToken (delete))
+      {
+        if (myParseToken (radix, Long.MIN_VALUE, Long.MAX_VALUE))
+          {
+            return this.tokenValue;
+          }
+        tmp = myTokenString ();
+      }
+    else
+      {
+        tmp = myRequire (myPrepareForNext (this.p, delete));
+      }
 
     try
       {
@@ -2143,7 +2777,20 @@ public class Scanner
     InputMismatchException
   {
     short rc;
-    String tmp = myPrepareForNext (this.p, delete);
+    String tmp;
+
+    if (myNextToken (delete))
+      {
+        if (myParseToken (radix, Short.MIN_VALUE, Short.MAX_VALUE))
+          {
+            return (short) this.tokenValue;
+          }
+        tmp = myTokenString ();
+      }
+    else
+      {
+        tmp = myRequire (myPrepareForNext (this.p, delete));
+      }
 
     try
       {
@@ -2177,6 +2824,12 @@ public class Scanner
 
     String rc;
     Pattern oldPattern = this.p;
+
+    // the default delimiter and the line separator are searched without the Matcher
+    if (myCanScan (aktPattern))
+      {
+        return myCoreNext (delete, aktPattern);
+      }
     useDelimiter (aktPattern);
 
     rc = myCoreNext (delete, aktPattern);
@@ -2186,6 +2839,23 @@ public class Scanner
     return rc;
   }
 
+  /**
+   * Checks that a token was found at all; the search methods return
+   * <code> null </code> at the end of the input.
+   *
+   * @param token the token found, or <code> null </code>.
+   * @return the token.
+   * @throws NoSuchElementException if the token is <code> null </code>.
+   */
+  private String myRequire (final String token) throws NoSuchElementException
+  {
+    if (token == null)
+      {
+        throw new NoSuchElementException ();
+      }
+    return token;
+  }
+
   /**
    * Determinates if the last found can be used, so that after a
    * hasNextXXX the nextXXX has not to search if nothing has
@@ -0,0 +1,238 @@
+/* SortJob.java -- Runs a sort on several threads
+   Copyright (C) 2026 Free Software Foundation, Inc.
+
+This file is part of GNU Classpath.
+
+GNU Classpath is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; either version 2, or (at your option)
+any later version.
+
+GNU Classpath is distributed in the hope that it will be useful, but
+WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with GNU Classpath; see the file COPYING.  If not, write to the
+Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+02110-1301 USA.
+
+Linking this library statically or dynamically with other modules is
+making a combined work based on this library.  Thus, the terms and
+conditions of the GNU General Public License cover the whole
+combination.
+
+As a special exception, the copyright holders of this library give you
+permission to link this library with independent modules to produce an
+executable, regardless of the license terms of these independent
+modules, and to copy and distribute the resulting executable under
+terms of your choice, provided that you also meet, for each linked
+independent module, the terms and conditions of the license of that
+module.  An independent module is a module which is not derived from
+or based on this library.  If you modify this library, you may extend
+this exception to your version of the library, but you are not
+obligated to do so.  If you do not wish to do so, delete this
+exception statement from your version. */
+
+package java.util;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the parallel sorts of {@link Arrays}, in the manner of a fork/join
+ * task.  The work is split into tasks, each described by a few integers,
+ * which are added with {@link #fork}; processing a task may fork further
+ * tasks.  The thread that calls {@link #run} and some helper threads take
+ * tasks from a shared stack until none are left and none are being
+ * processed.  No thread
+ * ever waits for the result of a particular task, so a job cannot
+ * deadlock even when every helper thread is busy with other jobs: the
+ * calling thread then does all the work itself.
+ *
+ * <p>The helpers are daemon threads from a pool shared by all jobs, with
+ * one thread less than there are processors.  Idle threads end after a
+ * second.
+ */
+abstract class SortJob
+{
+  /**
+   * Ranges no longer than this are sorted by a single thread, since
+   * starting other threads costs more than they would save.
+   */
+  static final int MIN_PARALLEL_LENGTH = 1 << 13;
+
+  /** The pool of helper threads, created when first needed. */
+  private static Executor helpers;
+
+  /** The tasks not taken yet. */
+  private final ArrayList<int[]> tasks = new ArrayList<int[]>();
+
+  /** The number of tasks being processed. */
+  private int active;
+
+  /** What the first failed task threw. */
+  private Throwable failure;
+
+  /**
+   * Returns true if a range of the given length is worth sorting on
+   * several threads.
+   */
+  static boolean isParallel(int length)
+  {
+    return length > MIN_PARALLEL_LENGTH
+      && Runtime.getRuntime().availableProcessors() > 1;
+  }
+
+  /**
+   * Returns the length up to which the parts of a range of the given
+   * length are sorted by a single thread.  There are several parts for
+   * each thread, so that threads which finish early can help the others.
+   */
+  static int grain(int length)
+  {
+    int parts = Runtime.getRuntime().availableProcessors() << 2;
+    return Math.max(MIN_PARALLEL_LENGTH, length / parts);
+  }
+
+  /**
+   * Does one task.
+   *
+   * @param task the integers passed to {@link #fork}
+   */
+  abstract void process(int[] task);
+
+  /**
+   * Adds a task for any thread to do.
+   *
+   * @param task the integers describing the task
+   */
+  final void fork(int... task)
+  {
+    synchronized (this)
+      {
+        tasks.add(task);
+        notify();
+      }
+  }
+
+  /**
+   * Does the tasks forked so far and all the tasks they fork, on this
+   * thread and on helper threads, and returns when they are all done.
+   *
+   * @throws RuntimeException or Error if a task threw it
+   */
+  final void run()
+  {
+    int threads = Runtime.getRuntime().availableProcessors() - 1;
+    Executor executor = helpers();
+    Runnable helper = new Runnable()
+    {
+      public void run()
+      {
+        work();
+      }
+    };
+    for (int i = 0; i < threads; i++)
+      executor.execute(helper);
+    work();
+
+    if (failure instanceof RuntimeException)
+      throw (RuntimeException) failure;
+    if (failure instanceof Error)
+      throw (Error) failure;
+  }
+
+  /**
+   * Takes and does tasks until all are done.  Once a task has failed no
+   * more are taken, but this still waits for the others being processed,
+   * so that none touches the array after the job has ended.
+   */
+  private void work()
+  {
+    boolean interrupted = false;
+    while (true)
+      {
+        int[] task;
+        synchronized (this)
+          {
+            while ((tasks.isEmpty() || failure != null) && active > 0)
+              {
+                try
+                  {
+                    wait();
+                  }
+                catch (InterruptedException e)
+                  {
+                    interrupted = true;
+                  }
+              }
+            if (tasks.isEmpty() || failure != null)
+              break;
+            task = tasks.remove(tasks.size() - 1);
+            active++;
+          }
+        try
+          {
+            process(task);
+          }
+        catch (Throwable t)
+          {
+            synchronized (this)
+              {
+                if (failure == null)
+                  failure = t;
+              }
+          }
+        finally
+          {
+            synchronized (this)
+              {
+                active--;
+                if (active == 0)
+                  notifyAll();
+              }
+          }
+      }
+    if (interrupted)
+      Thread.currentThread().interrupt();
+  }
+
+  /**
+   * Returns the pool of helper threads.
+   */
+  private static synchronized Executor helpers()
+  {
+    if (helpers == null)
+      {
+        int threads = Math.max(1,
+                               Runtime.getRuntime().availableProcessors() - 1);
+        ThreadPoolExecutor pool
+          = new ThreadPoolExecutor(threads, threads, 1, TimeUnit.SECONDS,
+                                   new LinkedBlockingQueue<Runnable>(),
+                                   new HelperFactory());
+        pool.allowCoreThreadTimeOut(true);
+        helpers = pool;
+      }
+    return helpers;
+  }
+
+  /**
+   * Makes the helper threads, which must not keep the VM alive.
+   */
+  private static final class HelperFactory implements ThreadFactory
+  {
+    private int count;
+
+    public synchronized Thread newThread(Runnable r)
+    {
+      Thread t = new Thread(r, "SortJob-" + ++count);
+      t.setDaemon(true);
+      return t;
+    }
+  }
+}
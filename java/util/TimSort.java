@@ -0,0 +1,851 @@
+/* TimSort.java -- Stable sort of arrays of objects
+   Copyright (C) 2026 Free Software Foundation, Inc.
+
+This file is part of GNU Classpath.
+
+GNU Classpath is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; either version 2, or (at your option)
+any later version.
+
+GNU Classpath is distributed in the hope that it will be useful, but
+WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with GNU Classpath; see the file COPYING.  If not, write to the
+Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+02110-1301 USA.
+
+Linking this library statically or dynamically with other modules is
+making a combined work based on this library.  Thus, the terms and
+conditions of the GNU General Public License cover the whole
+combination.
+
+As a special exception, the copyright holders of this library give you
+permission to link this library with independent modules to produce an
+executable, regardless of the license terms of these independent
+modules, and to copy and distribute the resulting executable under
+terms of your choice, provided that you also meet, for each linked
+independent module, the terms and conditions of the license of that
+module.  An independent module is a module which is not derived from
+or based on this library.  If you modify this library, you may extend
+this exception to your version of the library, but you are not
+obligated to do so.  If you do not wish to do so, delete this
+exception statement from your version. */
+
+package java.util;
+
+/**
+ * Sorts arrays of objects for {@link Arrays} and {@link Collections}.
+ *
+ * <p>This is Tim Peters' list sort from Python.  The array is scanned for
+ * runs of elements that are already in order; descending runs are
+ * reversed, and short runs are extended with a binary insertion sort to
+ * a minimum length of between 16 and 32.  The runs are kept on a stack
+ * and merged as they are found, so that the lengths on the stack shrink
+ * at least as fast as the Fibonacci numbers, which keeps the merges
+ * balanced.  A merge takes turns from its two runs one element at a time
+ * at first, but when one run keeps winning it gallops: it searches with
+ * exponentially growing steps for where the other run's next element
+ * goes, and copies everything up to there at once.
+ *
+ * <p>So the sort is stable and takes n*log(n) comparisons at worst, but
+ * only n-1 on an array that is sorted already, and few on one made of a
+ * few sorted pieces, such as a sorted array with some elements appended.
+ * A merge needs a temporary array the size of the shorter of its runs,
+ * at most half as long as the range.
+ *
+ * <p>The parallel sort sorts chunks of the range on different threads,
+ * then merges them pairwise, splitting each merge into pieces that can
+ * be done in parallel.
+ */
+final class TimSort<T>
+{
+  /** Shorter ranges are sorted with a binary insertion sort only. */
+  private static final int MIN_MERGE = 32;
+
+  /** How often one run must win in a row before a merge gallops. */
+  private static final int MIN_GALLOP = 7;
+
+  /** The initial length of the temporary array for merges. */
+  private static final int INITIAL_TMP_LENGTH = 256;
+
+  /** Compares objects by their natural ordering. */
+  private static final Comparator<Object> NATURAL = new Comparator<Object>()
+  {
+    public int compare(Object o1, Object o2)
+    {
+      return ((Comparable) o1).compareTo(o2);
+    }
+  };
+
+  private final T[] a;
+  private final Comparator<? super T> c;
+
+  /**
+   * How often one run must win in a row before a merge gallops.  It goes
+   * up when galloping does not pay, and down when it does.
+   */
+  private int minGallop = MIN_GALLOP;
+
+  /** Temporary storage for merges. */
+  private T[] tmp;
+
+  /** The start and length of the runs waiting to be merged. */
+  private final int[] runBase;
+  private final int[] runLength;
+  private int stackSize;
+
+  private TimSort(T[] a, Comparator<? super T> c, int length)
+  {
+    this.a = a;
+    this.c = c;
+    int tmpLength = (length < 2 * INITIAL_TMP_LENGTH
+                     ? length >>> 1 : INITIAL_TMP_LENGTH);
+    tmp = (T[]) new Object[tmpLength];
+
+    // The run lengths grow at least as fast as the Fibonacci numbers from
+    // the bottom of the stack, which bounds its size.
+    int stackLength = (length < 120 ? 5
+                       : length < 1542 ? 10
+                       : length < 119151 ? 24 : 49);
+    runBase = new int[stackLength];
+    runLength = new int[stackLength];
+  }
+
+  /**
+   * Sorts a range of an array.
+   *
+   * @param a the array
+   * @param lo the first index to sort (inclusive)
+   * @param hi the last index to sort (exclusive)
+   * @param c the comparator, or null for the natural ordering
+   * @throws ClassCastException if two elements cannot be compared
+   * @throws IllegalArgumentException if the comparator is found to be
+   *         inconsistent
+   */
+  static <T> void sort(T[] a, int lo, int hi, Comparator<? super T> c)
+  {
+    if (c == null)
+      c = NATURAL;
+    int remaining = hi - lo;
+    if (remaining < 2)
+      return;
+
+    if (remaining < MIN_MERGE)
+      {
+        int runLength = countRunAndMakeAscending(a, lo, hi, c);
+        binarySort(a, lo, hi, lo + runLength, c);
+        return;
+      }
+
+    TimSort<T> ts = new TimSort<T>(a, c, remaining);
+    int minRun = minRunLength(remaining);
+    do
+      {
+        int runLength = countRunAndMakeAscending(a, lo, hi, c);
+        if (runLength < minRun)
+          {
+            int force = Math.min(remaining, minRun);
+            binarySort(a, lo, lo + force, lo + runLength, c);
+            runLength = force;
+          }
+        ts.pushRun(lo, runLength);
+        ts.mergeCollapse();
+        lo += runLength;
+        remaining -= runLength;
+      }
+    while (remaining != 0);
+    ts.mergeForceCollapse();
+  }
+
+  /**
+   * Sorts a range of an array on several threads.
+   *
+   * @param a the array
+   * @param lo the first index to sort (inclusive)
+   * @param hi the last index to sort (exclusive)
+   * @param c the comparator, or null for the natural ordering
+   * @throws ClassCastException if two elements cannot be compared
+   * @throws IllegalArgumentException if the comparator is found to be
+   *         inconsistent
+   */
+  static <T> void parallelSort(final T[] a, int lo, int hi,
+                               Comparator<? super T> c)
+  {
+    int length = hi - lo;
+    if (!SortJob.isParallel(length))
+      {
+        sort(a, lo, hi, c);
+        return;
+      }
+    if (c == null)
+      c = NATURAL;
+    final Comparator<? super T> cmp = c;
+    int grain = SortJob.grain(length);
+
+    SortJob chunks = new SortJob()
+    {
+      void process(int[] task)
+      {
+        sort(a, task[0], task[1], cmp);
+      }
+    };
+    for (int start = lo; start < hi; start += grain)
+      chunks.fork(start, Math.min(hi, start + grain));
+    chunks.run();
+
+    // Merge the sorted chunks pairwise, back and forth between the array
+    // and a temporary one, until there is a single run.
+    T[] src = a;
+    int srcBase = 0;
+    T[] dst = (T[]) new Object[length];
+    int dstBase = lo;
+    for (int width = grain; width < length; width <<= 1)
+      {
+        MergeJob<T> merges = new MergeJob<T>(src, srcBase, dst, dstBase,
+                                             cmp, grain);
+        for (int start = lo; start < hi; start += width << 1)
+          {
+            int mid = Math.min(hi, start + width);
+            int end = Math.min(hi, mid + width);
+            merges.fork(start, mid, mid, end, start);
+          }
+        merges.run();
+
+        T[] t = src;
+        src = dst;
+        dst = t;
+        int b = srcBase;
+        srcBase = dstBase;
+        dstBase = b;
+      }
+    if (src != a)
+      System.arraycopy(src, 0, a, lo, length);
+  }
+
+  /**
+   * Merges pairs of adjacent sorted runs from one array into another.
+   * A task is the two runs and the position of the result,
+   * <code>{lo1, hi1, lo2, hi2, dest}</code>.  Long merges are split in
+   * two: the middle element of the longer run is looked up in the other
+   * run, and the two halves are merged independently.
+   *
+   * Positions are those in the array being sorted; the temporary array
+   * holds position p at index p - base.
+   */
+  private static final class MergeJob<T> extends SortJob
+  {
+    private final T[] src;
+    private final int srcBase;
+    private final T[] dst;
+    private final int dstBase;
+    private final Comparator<? super T> c;
+    private final int grain;
+
+    MergeJob(T[] src, int srcBase, T[] dst, int dstBase,
+             Comparator<? super T> c, int grain)
+    {
+      this.src = src;
+      this.srcBase = srcBase;
+      this.dst = dst;
+      this.dstBase = dstBase;
+      this.c = c;
+      this.grain = grain;
+    }
+
+    void process(int[] task)
+    {
+      int lo1 = task[0];
+      int hi1 = task[1];
+      int lo2 = task[2];
+      int hi2 = task[3];
+      int dest = task[4];
+      while ((hi1 - lo1) + (hi2 - lo2) > grain)
+        {
+          // Elements equal to the key go after it if they are in the
+          // second run, and before it if they are in the first, so that
+          // the merge stays stable.
+          int mid1;
+          int mid2;
+          if (hi1 - lo1 >= hi2 - lo2)
+            {
+              mid1 = (lo1 + hi1) >>> 1;
+              T key = src[mid1 - srcBase];
+              int l = lo2;
+              int h = hi2;
+              while (l < h)
+                {
+                  int m = (l + h) >>> 1;
+                  if (c.compare(src[m - srcBase], key) < 0)
+                    l = m + 1;
+                  else
+                    h = m;
+                }
+              mid2 = l;
+            }
+          else
+            {
+              mid2 = (lo2 + hi2) >>> 1;
+              T key = src[mid2 - srcBase];
+              int l = lo1;
+              int h = hi1;
+              while (l < h)
+                {
+                  int m = (l + h) >>> 1;
+                  if (c.compare(src[m - srcBase], key) <= 0)
+                    l = m + 1;
+                  else
+                    h = m;
+                }
+              mid1 = l;
+            }
+          fork(mid1, hi1, mid2, hi2, dest + (mid1 - lo1) + (mid2 - lo2));
+          hi1 = mid1;
+          hi2 = mid2;
+        }
+
+      int i = lo1 - srcBase;
+      int iEnd = hi1 - srcBase;
+      int j = lo2 - srcBase;
+      int jEnd = hi2 - srcBase;
+      int k = dest - dstBase;
+      while (i < iEnd && j < jEnd)
+        dst[k++] = (c.compare(src[j], src[i]) < 0) ? src[j++] : src[i++];
+      System.arraycopy(src, i, dst, k, iEnd - i);
+      System.arraycopy(src, j, dst, k + iEnd - i, jEnd - j);
+    }
+  }
+
+  /**
+   * Returns the minimum length of a run, which is shorter runs are
+   * extended to.  It is chosen so that the number of runs in a random
+   * array is a power of two or slightly less, which keeps the merges
+   * balanced.
+   */
+  private static int minRunLength(int n)
+  {
+    int r = 0;
+    while (n >= MIN_MERGE)
+      {
+        r |= n & 1;
+        n >>= 1;
+      }
+    return n + r;
+  }
+
+  /**
+   * Returns the length of the run at the start of a range, reversing it
+   * if it is strictly descending.  Descending runs must be strict so
+   * that reversing them keeps the sort stable.
+   */
+  private static <T> int countRunAndMakeAscending(T[] a, int lo, int hi,
+                                                  Comparator<? super T> c)
+  {
+    int runHi = lo + 1;
+    if (runHi == hi)
+      return 1;
+
+    if (c.compare(a[runHi++], a[lo]) < 0)
+      {
+        while (runHi < hi && c.compare(a[runHi], a[runHi - 1]) < 0)
+          runHi++;
+        for (int i = lo, j = runHi - 1; i < j; i++, j--)
+          {
+            T t = a[i];
+            a[i] = a[j];
+            a[j] = t;
+          }
+      }
+    else
+      {
+        while (runHi < hi && c.compare(a[runHi], a[runHi - 1]) >= 0)
+          runHi++;
+      }
+    return runHi - lo;
+  }
+
+  /**
+   * Sorts a range whose first part is sorted already with a binary
+   * insertion sort, which makes few comparisons but moves many elements.
+   *
+   * @param a the array
+   * @param lo the first index to sort (inclusive)
+   * @param hi the last index to sort (exclusive)
+   * @param start the index of the first element not known to be in order
+   * @param c the comparator
+   */
+  private static <T> void binarySort(T[] a, int lo, int hi, int start,
+                                     Comparator<? super T> c)
+  {
+    if (start == lo)
+      start++;
+    for (; start < hi; start++)
+      {
+        T pivot = a[start];
+        int left = lo;
+        int right = start;
+        // Equal elements go after the pivot, to keep the sort stable.
+        while (left < right)
+          {
+            int mid = (left + right) >>> 1;
+            if (c.compare(pivot, a[mid]) < 0)
+              right = mid;
+            else
+              left = mid + 1;
+          }
+        System.arraycopy(a, left, a, left + 1, start - left);
+        a[left] = pivot;
+      }
+  }
+
+  private void pushRun(int base, int length)
+  {
+    runBase[stackSize] = base;
+    runLength[stackSize] = length;
+    stackSize++;
+  }
+
+  /**
+   * Merges runs on the stack until, for the top runs X, Y, Z and W from
+   * the bottom up, X &gt; Y + Z, Y &gt; Z + W and Z &gt; W.  Checking only
+   * the top three runs is not enough for this to hold for the whole
+   * stack.
+   */
+  private void mergeCollapse()
+  {
+    while (stackSize > 1)
+      {
+        int n = stackSize - 2;
+        if ((n > 0 && runLength[n - 1] <= runLength[n] + runLength[n + 1])
+            || (n > 1 && runLength[n - 2] <= runLength[n - 1] + runLength[n]))
+          {
+            if (runLength[n - 1] < runLength[n + 1])
+              n--;
+          }
+        else if (runLength[n] > runLength[n + 1])
+          break;
+        mergeAt(n);
+      }
+  }
+
+  /**
+   * Merges all runs on the stack into one.
+   */
+  private void mergeForceCollapse()
+  {
+    while (stackSize > 1)
+      {
+        int n = stackSize - 2;
+        if (n > 0 && runLength[n - 1] < runLength[n + 1])
+          n--;
+        mergeAt(n);
+      }
+  }
+
+  /**
+   * Merges the runs at positions i and i + 1 of the stack.
+   */
+  private void mergeAt(int i)
+  {
+    int base1 = runBase[i];
+    int length1 = runLength[i];
+    int base2 = runBase[i + 1];
+    int length2 = runLength[i + 1];
+
+    runLength[i] = length1 + length2;
+    if (i == stackSize - 3)
+      {
+        runBase[i + 1] = runBase[i + 2];
+        runLength[i + 1] = runLength[i + 2];
+      }
+    stackSize--;
+
+    // Elements of the first run before the first of the second, and
+    // elements of the second run after the last of the first, are in
+    // place already.
+    int k = gallopRight(a[base2], a, base1, length1, 0, c);
+    base1 += k;
+    length1 -= k;
+    if (length1 == 0)
+      return;
+    length2 = gallopLeft(a[base1 + length1 - 1], a, base2, length2,
+                         length2 - 1, c);
+    if (length2 == 0)
+      return;
+
+    if (length1 <= length2)
+      mergeLo(base1, length1, base2, length2);
+    else
+      mergeHi(base1, length1, base2, length2);
+  }
+
+  /**
+   * Finds the position in a sorted range before which key would be
+   * inserted, before any elements equal to it.  The search starts at
+   * hint and looks at positions hint +- 1, 3, 7, 15... until it has gone
+   * past the key, and then does a binary search.
+   *
+   * @param key the element looked for
+   * @param a the array
+   * @param base the first index of the range
+   * @param length the length of the range, greater than 0
+   * @param hint where to start looking, less than length
+   * @param c the comparator
+   * @return k such that a[base + k - 1] &lt; key &lt;= a[base + k]
+   */
+  private static <T> int gallopLeft(T key, T[] a, int base, int length,
+                                    int hint, Comparator<? super T> c)
+  {
+    int lastOffset = 0;
+    int offset = 1;
+    if (c.compare(key, a[base + hint]) > 0)
+      {
+        // a[base + hint + lastOffset] < key <= a[base + hint + offset]
+        int maxOffset = length - hint;
+        while (offset < maxOffset
+               && c.compare(key, a[base + hint + offset]) > 0)
+          {
+            lastOffset = offset;
+            offset = (offset << 1) + 1;
+            if (offset <= 0)
+              offset = maxOffset;
+          }
+        if (offset > maxOffset)
+          offset = maxOffset;
+        lastOffset += hint;
+        offset += hint;
+      }
+    else
+      {
+        // a[base + hint - offset] < key <= a[base + hint - lastOffset]
+        int maxOffset = hint + 1;
+        while (offset < maxOffset
+               && c.compare(key, a[base + hint - offset]) <= 0)
+          {
+            lastOffset = offset;
+            offset = (offset << 1) + 1;
+            if (offset <= 0)
+              offset = maxOffset;
+          }
+        if (offset > maxOffset)
+          offset = maxOffset;
+        int t = lastOffset;
+        lastOffset = hint - offset;
+        offset = hint - t;
+      }
+
+    // Now a[base + lastOffset] < key <= a[base + offset].
+    lastOffset++;
+    while (lastOffset < offset)
+      {
+        int m = lastOffset + ((offset - lastOffset) >>> 1);
+        if (c.compare(key, a[base + m]) > 0)
+          lastOffset = m + 1;
+        else
+          offset = m;
+      }
+    return offset;
+  }
+
+  /**
+   * Like {@link #gallopLeft}, but finds the position after any elements
+   * equal to key.
+   *
+   * @return k such that a[base + k - 1] &lt;= key &lt; a[base + k]
+   */
+  private static <T> int gallopRight(T key, T[] a, int base, int length,
+                                     int hint, Comparator<? super T> c)
+  {
+    int lastOffset = 0;
+    int offset = 1;
+    if (c.compare(key, a[base + hint]) < 0)
+      {
+        // a[base + hint - offset] <= key < a[base + hint - lastOffset]
+        int maxOffset = hint + 1;
+        while (offset < maxOffset
+               && c.compare(key, a[base + hint - offset]) < 0)
+          {
+            lastOffset = offset;
+            offset = (offset << 1) + 1;
+            if (offset <= 0)
+              offset = maxOffset;
+          }
+        if (offset > maxOffset)
+          offset = maxOffset;
+        int t = lastOffset;
+        lastOffset = hint - offset;
+        offset = hint - t;
+      }
+    else
+      {
+        // a[base + hint + lastOffset] <= key < a[base + hint + offset]
+        int maxOffset = length - hint;
+        while (offset < maxOffset
+               && c.compare(key, a[base + hint + offset]) >= 0)
+          {
+            lastOffset = offset;
+            offset = (offset << 1) + 1;
+            if (offset <= 0)
+              offset = maxOffset;
+          }
+        if (offset > maxOffset)
+          offset = maxOffset;
+        lastOffset += hint;
+        offset += hint;
+      }
+
+    // Now a[base + lastOffset] <= key < a[base + offset].
+    lastOffset++;
+    while (lastOffset < offset)
+      {
+        int m = lastOffset + ((offset - lastOffset) >>> 1);
+        if (c.compare(key, a[base + m]) < 0)
+          offset = m;
+        else
+          lastOffset = m + 1;
+      }
+    return offset;
+  }
+
+  /**
+   * Merges two adjacent runs in place, when the first is no longer than
+   * the second.  The first run is copied to the temporary array and
+   * merged from the front.  mergeAt has made sure that the first element
+   * of the second run goes before the first run, and the last element of
+   * the first run after the second run.
+   */
+  private void mergeLo(int base1, int length1, int base2, int length2)
+  {
+    T[] a = this.a;
+    T[] tmp = ensureCapacity(length1);
+    System.arraycopy(a, base1, tmp, 0, length1);
+    int cursor1 = 0;
+    int cursor2 = base2;
+    int dest = base1;
+
+    a[dest++] = a[cursor2++];
+    if (--length2 == 0)
+      {
+        System.arraycopy(tmp, cursor1, a, dest, length1);
+        return;
+      }
+    if (length1 == 1)
+      {
+        System.arraycopy(a, cursor2, a, dest, length2);
+        a[dest + length2] = tmp[cursor1];
+        return;
+      }
+
+    Comparator<? super T> c = this.c;
+    int minGallop = this.minGallop;
+    outer:
+    while (true)
+      {
+        // How often each run has won in a row.
+        int count1 = 0;
+        int count2 = 0;
+
+        do
+          {
+            if (c.compare(a[cursor2], tmp[cursor1]) < 0)
+              {
+                a[dest++] = a[cursor2++];
+                count2++;
+                count1 = 0;
+                if (--length2 == 0)
+                  break outer;
+              }
+            else
+              {
+                a[dest++] = tmp[cursor1++];
+                count1++;
+                count2 = 0;
+                if (--length1 == 1)
+                  break outer;
+              }
+          }
+        while ((count1 | count2) < minGallop);
+
+        // Gallop until neither run wins often enough any more.
+        do
+          {
+            count1 = gallopRight(a[cursor2], tmp, cursor1, length1, 0, c);
+            if (count1 != 0)
+              {
+                System.arraycopy(tmp, cursor1, a, dest, count1);
+                dest += count1;
+                cursor1 += count1;
+                length1 -= count1;
+                if (length1 <= 1)
+                  break outer;
+              }
+            a[dest++] = a[cursor2++];
+            if (--length2 == 0)
+              break outer;
+
+            count2 = gallopLeft(tmp[cursor1], a, cursor2, length2, 0, c);
+            if (count2 != 0)
+              {
+                System.arraycopy(a, cursor2, a, dest, count2);
+                dest += count2;
+                cursor2 += count2;
+                length2 -= count2;
+                if (length2 == 0)
+                  break outer;
+              }
+            a[dest++] = tmp[cursor1++];
+            if (--length1 == 1)
+              break outer;
+            minGallop--;
+          }
+        while (count1 >= MIN_GALLOP | count2 >= MIN_GALLOP);
+        if (minGallop < 0)
+          minGallop = 0;
+        minGallop += 2;
+      }
+    this.minGallop = (minGallop < 1) ? 1 : minGallop;
+
+    if (length1 == 1)
+      {
+        System.arraycopy(a, cursor2, a, dest, length2);
+        a[dest + length2] = tmp[cursor1];
+      }
+    else if (length1 == 0)
+      throw new IllegalArgumentException("Comparison method violates its "
+                                         + "general contract");
+    else
+      System.arraycopy(tmp, cursor1, a, dest, length1);
+  }
+
+  /**
+   * Like {@link #mergeLo}, but for a first run longer than the second.
+   * The second run is copied to the temporary array and the runs are
+   * merged from the back.
+   */
+  private void mergeHi(int base1, int length1, int base2, int length2)
+  {
+    T[] a = this.a;
+    T[] tmp = ensureCapacity(length2);
+    System.arraycopy(a, base2, tmp, 0, length2);
+    int cursor1 = base1 + length1 - 1;
+    int cursor2 = length2 - 1;
+    int dest = base2 + length2 - 1;
+
+    a[dest--] = a[cursor1--];
+    if (--length1 == 0)
+      {
+        System.arraycopy(tmp, 0, a, dest - (length2 - 1), length2);
+        return;
+      }
+    if (length2 == 1)
+      {
+        dest -= length1;
+        cursor1 -= length1;
+        System.arraycopy(a, cursor1 + 1, a, dest + 1, length1);
+        a[dest] = tmp[cursor2];
+        return;
+      }
+
+    Comparator<? super T> c = this.c;
+    int minGallop = this.minGallop;
+    outer:
+    while (true)
+      {
+        int count1 = 0;
+        int count2 = 0;
+
+        do
+          {
+            if (c.compare(tmp[cursor2], a[cursor1]) < 0)
+              {
+                a[dest--] = a[cursor1--];
+                count1++;
+                count2 = 0;
+                if (--length1 == 0)
+                  break outer;
+              }
+            else
+              {
+                a[dest--] = tmp[cursor2--];
+                count2++;
+                count1 = 0;
+                if (--length2 == 1)
+                  break outer;
+              }
+          }
+        while ((count1 | count2) < minGallop);
+
+        do
+          {
+            count1 = length1 - gallopRight(tmp[cursor2], a, base1, length1,
+                                           length1 - 1, c);
+            if (count1 != 0)
+              {
+                dest -= count1;
+                cursor1 -= count1;
+                length1 -= count1;
+                System.arraycopy(a, cursor1 + 1, a, dest + 1, count1);
+                if (length1 == 0)
+                  break outer;
+              }
+            a[dest--] = tmp[cursor2--];
+            if (--length2 == 1)
+              break outer;
+
+            count2 = length2 - gallopLeft(a[cursor1], tmp, 0, length2,
+                                          length2 - 1, c);
+            if (count2 != 0)
+              {
+                dest -= count2;
+                cursor2 -= count2;
+                length2 -= count2;
+                System.arraycopy(tmp, cursor2 + 1, a, dest + 1, count2);
+                if (length2 <= 1)
+                  break outer;
+              }
+            a[dest--] = a[cursor1--];
+            if (--length1 == 0)
+              break outer;
+            minGallop--;
+          }
+        while (count1 >= MIN_GALLOP | count2 >= MIN_GALLOP);
+        if (minGallop < 0)
+          minGallop = 0;
+        minGallop += 2;
+      }
+    this.minGallop = (minGallop < 1) ? 1 : minGallop;
+
+    if (length2 == 1)
+      {
+        dest -= length1;
+        cursor1 -= length1;
+        System.arraycopy(a, cursor1 + 1, a, dest + 1, length1);
+        a[dest] = tmp[cursor2];
+      }
+    else if (length2 == 0)
+      throw new IllegalArgumentException("Comparison method violates its "
+                                         + "general contract");
+    else
+      System.arraycopy(tmp, 0, a, dest - (length2 - 1), length2);
+  }
+
+  /**
+   * Returns the temporary array, grown to at least the given length.
+   */
+  private T[] ensureCapacity(int minCapacity)
+  {
+    if (tmp.length < minCapacity)
+      {
+        int newSize = Integer.highestOneBit(minCapacity) << 1;
+        if (newSize < 0)
+          newSize = minCapacity;
+        else
+          newSize = Math.min(newSize, a.length >>> 1);
+        tmp = (T[]) new Object[newSize];
+      }
+    return tmp;
+  }
+}
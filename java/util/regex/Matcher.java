@@ -61,6 +61,14 @@ public final class Matcher implements MatchResult
   private int appendPosition;
   private REMatch match;
 
+  // The last successful match, whose arrays are used again by the next
+  // match operation instead of new ones.
+  private REMatch lastMatch;
+
+  // The region seen through opaque bounds, used again for every match
+  // operation on a region.
+  private CharIndexed regionCharIndexed;
+
   /**
    * The start of the region of the input on which to match.
    */
@@ -137,8 +145,7 @@ public final class Matcher implements MatchResult
     throws IllegalStateException
   {
     assertMatchOp();
-    sb.append(input.subSequence(appendPosition,
-                                match.getStartIndex()).toString());
+    sb.append(input, appendPosition, match.getStartIndex());
     sb.append(RE.getReplacement(replacement, match,
         RE.REG_REPLACE_USE_BACKSLASHESCAPE));
     appendPosition = match.getEndIndex();
@@ -150,7 +157,7 @@ public final class Matcher implements MatchResult
    */
   public StringBuffer appendTail (StringBuffer sb)
   {
-    sb.append(input.subSequence(appendPosition, input.length()).toString());
+    sb.append(input, appendPosition, input.length());
     return sb;
   }
 
@@ -183,11 +190,7 @@ public final class Matcher implements MatchResult
   public boolean find ()
   {
     boolean first = (match == null);
-    if (transparentBounds || (regionStart == 0 && regionEnd == input.length()))
-      match = pattern.getRE().getMatch(inputCharIndexed, position, anchoringBounds);
-    else
-      match = pattern.getRE().getMatch(input.subSequence(regionStart, regionEnd),
-                                       position, anchoringBounds);
+    match = getMatch(position, anchoringBounds, false);
     if (match != null)
       {
         int endIndex = match.getEndIndex();
@@ -224,11 +227,7 @@ public final class Matcher implements MatchResult
    */
   public boolean find (int start)
   {
-    if (transparentBounds || (regionStart == 0 && regionEnd == input.length()))
-      match = pattern.getRE().getMatch(inputCharIndexed, start, anchoringBounds);
-    else
-      match = pattern.getRE().getMatch(input.subSequence(regionStart, regionEnd),
-                                       start, anchoringBounds);
+    match = getMatch(start, anchoringBounds, false);
     if (match != null)
       {
         position = match.getEndIndex();
@@ -290,12 +289,7 @@ public final class Matcher implements MatchResult
 
   public boolean lookingAt ()
   {
-    if (transparentBounds || (regionStart == 0 && regionEnd == input.length()))
-      match = pattern.getRE().getMatch(inputCharIndexed, regionStart,
-                                       anchoringBounds|RE.REG_FIX_STARTING_POSITION|RE.REG_ANCHORINDEX);
-    else
-      match = pattern.getRE().getMatch(input.subSequence(regionStart, regionEnd), 0,
-                                       anchoringBounds|RE.REG_FIX_STARTING_POSITION);
+    match = getMatch(0, anchoringBounds|RE.REG_FIX_STARTING_POSITION, true);
     if (match != null)
       {
         if (match.getStartIndex() == 0)
@@ -320,12 +314,8 @@ public final class Matcher implements MatchResult
    */
   public boolean matches ()
   {
-    if (transparentBounds || (regionStart == 0 && regionEnd == input.length()))
-      match = pattern.getRE().getMatch(inputCharIndexed, regionStart,
-                                       anchoringBounds|RE.REG_TRY_ENTIRE_MATCH|RE.REG_FIX_STARTING_POSITION|RE.REG_ANCHORINDEX);
-    else
-      match = pattern.getRE().getMatch(input.subSequence(regionStart, regionEnd), 0,
-                                       anchoringBounds|RE.REG_TRY_ENTIRE_MATCH|RE.REG_FIX_STARTING_POSITION);
+    match = getMatch(0, anchoringBounds|RE.REG_TRY_ENTIRE_MATCH|RE.REG_FIX_STARTING_POSITION,
+                     true);
     if (match != null)
       {
         if (match.getStartIndex() == 0)
@@ -385,7 +375,8 @@ public final class Matcher implements MatchResult
   public Matcher reset (CharSequence input)
   {
     this.input = input;
-    this.inputCharIndexed = RE.makeCharIndexed(input, 0);
+    this.inputCharIndexed = RE.makeCharIndexed(input, 0, input.length(),
+                                               inputCharIndexed);
     return reset();
   }
 
@@ -442,6 +433,41 @@ public final class Matcher implements MatchResult
     return sb.toString();
   }
 
+  /**
+   * Runs a match operation on the whole input, or on the region if its
+   * bounds are opaque, reusing the arrays of the last match.
+   *
+   * @param start the index to start at
+   * @param eflags the execution flags
+   * @param anchored true to start at the start of the region instead
+   * @return the match, or null if there is none
+   */
+  private REMatch getMatch(int start, int eflags, boolean anchored)
+  {
+    RE re = pattern.getRE();
+    REMatch m;
+    if (transparentBounds || (regionStart == 0 && regionEnd == input.length()))
+      {
+        if (anchored)
+          {
+            start = regionStart;
+            eflags |= RE.REG_ANCHORINDEX;
+          }
+        m = re.getMatchInto(inputCharIndexed, start, eflags, lastMatch);
+      }
+    else
+      {
+        if (anchored)
+          start = 0;
+        regionCharIndexed = RE.makeCharIndexed(input, regionStart, regionEnd,
+                                               regionCharIndexed);
+        m = re.getMatchInto(regionCharIndexed, start, eflags, lastMatch);
+      }
+    if (m != null)
+      lastMatch = m;
+    return m;
+  }
+
   private void assertMatchOp()
   {
     if (match == null) throw new IllegalStateException();
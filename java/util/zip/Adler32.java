@@ -37,6 +37,8 @@ exception statement from your version. */
 
 package java.util.zip;
 
+import java.nio.ByteBuffer;
+
 /*
  * Written using on-line Java Platform 1.2 API Specification, as well
  * as "The Java Class Libraries", 2nd edition (Addison-Wesley, 1998).
@@ -100,6 +102,12 @@ public class Adler32 implements Checksum
   /** largest prime smaller than 65536 */
   private static final int BASE = 65521;
 
+  /**
+   * Largest n such that 255n(n+1)/2 + (n+1)(BASE-1) fits in 32 unsigned
+   * bits: the number of bytes we can add before reducing the sums.
+   */
+  private static final int NMAX = 5552;
+
   private int checksum; //we do all in int.
 
   //Note that java doesn't have unsigned integers,
@@ -161,40 +169,88 @@ public class Adler32 implements Checksum
    */
   public void update (byte[] buf, int off, int len)
   {
+    if (0 > off || off > off + len || off + len > buf.length)
+      throw new ArrayIndexOutOfBoundsException();
     //(By Per Bothner)
     int s1 = checksum & 0xffff;
     int s2 = checksum >>> 16;
-
     while (len > 0)
       {
-        // We can defer the modulo operation:
-        // s1 maximally grows from 65521 to 65521 + 255 * 3800
-        // s2 maximally grows by 3800 * median(s1) = 2090079800 < 2^31
-        int n = 3800;
+        // We can defer the modulo operation for NMAX bytes.  s2 may then
+        // exceed 2^31, so it is reduced as an unsigned value.
+        int n = NMAX;
         if (n > len)
           n = len;
         len -= n;
+        while (n >= 8)
+          {
+            s1 += buf[off] & 0xFF;
+            s2 += s1;
+            s1 += buf[off + 1] & 0xFF;
+            s2 += s1;
+            s1 += buf[off + 2] & 0xFF;
+            s2 += s1;
+            s1 += buf[off + 3] & 0xFF;
+            s2 += s1;
+            s1 += buf[off + 4] & 0xFF;
+            s2 += s1;
+            s1 += buf[off + 5] & 0xFF;
+            s2 += s1;
+            s1 += buf[off + 6] & 0xFF;
+            s2 += s1;
+            s1 += buf[off + 7] & 0xFF;
+            s2 += s1;
+            off += 8;
+            n -= 8;
+          }
         while (--n >= 0)
           {
             s1 = s1 + (buf[off++] & 0xFF);
             s2 = s2 + s1;
           }
         s1 %= BASE;
-        s2 %= BASE;
+        s2 = (int) ((s2 & 0xffffffffL) % BASE);
       }
-
-    /*Old implementation, borrowed from somewhere:
-    int n;
-
-    while (len-- > 0) {
-
-      s1 = (s1 + (bs[offset++] & 0xff)) % BASE;
-      s2 = (s2 + s1) % BASE;
-    }*/
-
     checksum = (s2 << 16) | s1;
   }
 
+  /**
+   * Updates the checksum with the remaining bytes of the buffer.  On
+   * return the position of the buffer equals its limit.  Direct and
+   * mapped buffers are read in place.
+   *
+   * @param buffer the buffer which contains the data
+   * @since 1.8
+   */
+  public void update (ByteBuffer buffer)
+  {
+    int pos = buffer.position();
+    int limit = buffer.limit();
+    if (pos >= limit)
+      return;
+    if (buffer.hasArray())
+      update(buffer.array(), buffer.arrayOffset() + pos, limit - pos);
+    else
+      {
+        int s1 = checksum & 0xffff;
+        int s2 = checksum >>> 16;
+        int i = pos;
+        while (i < limit)
+          {
+            int end = Math.min(limit, i + NMAX);
+            for (; i < end; i++)
+              {
+                s1 += buffer.get(i) & 0xFF;
+                s2 += s1;
+              }
+            s1 %= BASE;
+            s2 = (int) ((s2 & 0xffffffffL) % BASE);
+          }
+        checksum = (s2 << 16) | s1;
+      }
+    buffer.position(limit);
+  }
+
   /**
    * Returns the Adler32 data checksum computed so far.
    */
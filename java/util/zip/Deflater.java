@@ -37,6 +37,8 @@ exception statement from your version. */
 
 package java.util.zip;
 
+import gnu.java.util.zip.ZStream;
+
 /**
  * This is the Deflater class.  The deflater class compresses input
  * with the deflate algorithm described in RFC 1951.  It has several
@@ -91,6 +93,30 @@ public class Deflater
    */
   public static final int DEFLATED = 8;
 
+  /**
+   * Flush mode for {@link #deflate(byte[],int,int,int)}: compress as
+   * much as the engine decides, like {@link #deflate(byte[],int,int)}.
+   * @since 1.7
+   */
+  public static final int NO_FLUSH = 0;
+
+  /**
+   * Flush mode for {@link #deflate(byte[],int,int,int)}: flush all
+   * pending output and align it to a byte boundary, so that an inflater
+   * can decode everything written so far.
+   * @since 1.7
+   */
+  public static final int SYNC_FLUSH = 2;
+
+  /**
+   * Flush mode for {@link #deflate(byte[],int,int,int)}: like
+   * SYNC_FLUSH, and the native engine also discards its history so
+   * that decompression can restart at this point.  The pure Java engine
+   * handles this like SYNC_FLUSH.
+   * @since 1.7
+   */
+  public static final int FULL_FLUSH = 3;
+
   /*
    * The Deflater can do the following state transitions:
    *
@@ -158,6 +184,21 @@ public class Deflater
   /** The deflater engine. */
   private DeflaterEngine engine;
 
+  /**
+   * The zlib stream doing the work when the native engine is available.
+   * In that case pending and engine are not used.
+   */
+  private ZStream zstream;
+
+  /** The compression strategy. */
+  private int strategy;
+
+  /**
+   * The flush mode requested through deflate(byte[],int,int,int) while
+   * IS_FLUSHING is set, or NO_FLUSH for the older flush().
+   */
+  private int flushMode = NO_FLUSH;
+
   /**
    * Creates a new deflater with default compression level.
    */
@@ -193,11 +234,19 @@ public class Deflater
     else if (lvl < NO_COMPRESSION || lvl > BEST_COMPRESSION)
       throw new IllegalArgumentException();
 
-    pending = new DeflaterPending();
-    engine = new DeflaterEngine(pending);
     this.noHeader = nowrap;
-    setStrategy(DEFAULT_STRATEGY);
-    setLevel(lvl);
+    if (ZStream.isAvailable())
+      {
+        zstream = new ZStream(true, lvl, DEFAULT_STRATEGY, nowrap);
+        level = lvl;
+      }
+    else
+      {
+        pending = new DeflaterPending();
+        engine = new DeflaterEngine(pending);
+        setStrategy(DEFAULT_STRATEGY);
+        setLevel(lvl);
+      }
     reset();
   }
 
@@ -210,6 +259,12 @@ public class Deflater
   {
     state = (noHeader ? BUSY_STATE : INIT_STATE);
     totalOut = 0;
+    flushMode = NO_FLUSH;
+    if (zstream != null)
+      {
+        zstream.reset();
+        return;
+      }
     pending.reset();
     engine.reset();
   }
@@ -226,6 +281,8 @@ public class Deflater
   {
     engine = null;
     pending = null;
+    if (zstream != null)
+      zstream.end();
     state = CLOSED_STATE;
   }
 
@@ -235,6 +292,8 @@ public class Deflater
    */
   public int getAdler()
   {
+    if (zstream != null)
+      return zstream.getAdler();
     return engine.getAdler();
   }
 
@@ -243,7 +302,7 @@ public class Deflater
    */
   public int getTotalIn()
   {
-    return (int) engine.getTotalIn();
+    return (int) getBytesRead();
   }
 
   /**
@@ -252,6 +311,8 @@ public class Deflater
    */
   public long getBytesRead()
   {
+    if (zstream != null)
+      return zstream.getBytesRead();
     return engine.getTotalIn();
   }
 
@@ -277,7 +338,8 @@ public class Deflater
    */
   protected void finalize()
   {
-    /* Exists solely for compatibility.  We don't have any native state. */
+    /* Exists solely for compatibility.  The native state, if any, is
+     * released by the ZStream itself. */
   }
 
   /**
@@ -306,7 +368,8 @@ public class Deflater
    */
   public boolean finished()
   {
-    return state == FINISHED_STATE && pending.isFlushed();
+    return state == FINISHED_STATE
+      && (zstream != null || pending.isFlushed());
   }
 
   /**
@@ -318,6 +381,8 @@ public class Deflater
    */
   public boolean needsInput()
   {
+    if (zstream != null)
+      return zstream.needsInput();
     return engine.needsInput();
   }
 
@@ -352,7 +417,10 @@ public class Deflater
   {
     if ((state & IS_FINISHING) != 0)
       throw new IllegalStateException("finish()/end() already called");
-    engine.setInput(input, off, len);
+    if (zstream != null)
+      zstream.setInput(input, off, len);
+    else
+      engine.setInput(input, off, len);
   }
 
   /**
@@ -373,7 +441,10 @@ public class Deflater
     if (level != lvl)
       {
         level = lvl;
-        engine.setLevel(lvl);
+        if (zstream != null)
+          zstream.setParams(level, strategy);
+        else
+          engine.setLevel(lvl);
       }
   }
 
@@ -389,7 +460,11 @@ public class Deflater
     if (stgy != DEFAULT_STRATEGY && stgy != FILTERED
         && stgy != HUFFMAN_ONLY)
       throw new IllegalArgumentException();
-    engine.setStrategy(stgy);
+    strategy = stgy;
+    if (zstream != null)
+      zstream.setParams(level, strategy);
+    else
+      engine.setStrategy(stgy);
   }
 
   /**
@@ -421,6 +496,9 @@ public class Deflater
     if (state == CLOSED_STATE)
       throw new IllegalStateException("Deflater closed");
 
+    if (zstream != null)
+      return deflateNative(output, offset, length);
+
     if (state < BUSY_STATE)
       {
         /* output header */
@@ -464,7 +542,18 @@ public class Deflater
               return origLength - length;
             else if (state == FLUSHING_STATE)
               {
-                if (level != NO_COMPRESSION)
+                if (flushMode != NO_FLUSH)
+                  {
+                    /* Write an empty stored block, like zlib does, which
+                     * leaves the output on a byte boundary.
+                     */
+                    pending.writeBits(DeflaterConstants.STORED_BLOCK << 1, 3);
+                    pending.alignToByte();
+                    pending.writeShort(0);
+                    pending.writeShort(0xffff);
+                    flushMode = NO_FLUSH;
+                  }
+                else if (level != NO_COMPRESSION)
                   {
                     /* We have to supply some lookahead.  8 bit lookahead
                      * are needed by the zlib inflater, and we must fill
@@ -528,10 +617,90 @@ public class Deflater
    */
   public void setDictionary(byte[] dict, int offset, int length)
   {
-    if (state != INIT_STATE)
-      throw new IllegalStateException();
+    if (noHeader)
+      {
+        /* There is no header to announce the dictionary in; it only has
+         * to be set before any data.
+         */
+        if (state != BUSY_STATE || totalOut != 0 || getBytesRead() != 0
+            || !needsInput())
+          throw new IllegalStateException();
+      }
+    else
+      {
+        if (state != INIT_STATE)
+          throw new IllegalStateException();
+        state = SETDICT_STATE;
+      }
+
+    if (zstream != null)
+      zstream.setDictionary(dict, offset, length);
+    else
+      {
+        engine.setDictionary(dict, offset, length);
+        if (noHeader)
+          engine.resetAdler();
+      }
+  }
+
+  /**
+   * Deflates the current input block to the given array, using the given
+   * flush mode.  With SYNC_FLUSH or FULL_FLUSH, the flush is complete
+   * once this returns less than <code>length</code>; until then it must
+   * be called again with the same mode.
+   *
+   * @param output the buffer where to write the compressed data.
+   * @param offset the offset into the output array.
+   * @param length the maximum number of bytes that may be written.
+   * @param flush one of NO_FLUSH, SYNC_FLUSH or FULL_FLUSH.
+   * @return the number of bytes written.
+   * @exception IllegalArgumentException if flush is not a valid mode.
+   * @exception IllegalStateException if end() was called.
+   * @since 1.7
+   */
+  public int deflate(byte[] output, int offset, int length, int flush)
+  {
+    if (flush == SYNC_FLUSH || flush == FULL_FLUSH)
+      {
+        if (state == CLOSED_STATE)
+          throw new IllegalStateException("Deflater closed");
+        state |= IS_FLUSHING;
+        flushMode = flush;
+      }
+    else if (flush != NO_FLUSH)
+      throw new IllegalArgumentException("invalid flush mode " + flush);
+    return deflate(output, offset, length);
+  }
+
+  /**
+   * Deflates using the native engine, which writes the header and the
+   * checksum itself.
+   */
+  private int deflateNative(byte[] output, int offset, int length)
+  {
+    if (state < BUSY_STATE)
+      state = BUSY_STATE | (state & (IS_FLUSHING | IS_FINISHING));
+    if (state == FINISHED_STATE)
+      return 0;
 
-    state = SETDICT_STATE;
-    engine.setDictionary(dict, offset, length);
+    int flush;
+    if ((state & IS_FINISHING) != 0)
+      flush = ZStream.FINISH;
+    else if ((state & IS_FLUSHING) != 0)
+      flush = flushMode == FULL_FLUSH ? ZStream.FULL_FLUSH : ZStream.SYNC_FLUSH;
+    else
+      flush = ZStream.NO_FLUSH;
+
+    int count = zstream.deflate(output, offset, length, flush);
+    totalOut += count;
+    if (zstream.finished())
+      state = FINISHED_STATE;
+    else if (state == FLUSHING_STATE && count < length)
+      {
+        /* zlib leaves output space only once the flush is complete */
+        state = BUSY_STATE;
+        flushMode = NO_FLUSH;
+      }
+    return count;
   }
 }
@@ -328,10 +328,16 @@ class DeflaterEngine implements DeflaterConstants
   private boolean findLongestMatch(int curMatch) {
     int chainLength = this.max_chain;
     int niceLength = this.niceLength;
+    /* Keep the arrays and positions in locals; this loop is where the
+     * deflater spends most of its time and interpreters do not hoist
+     * field loads.
+     */
     short[] prev = this.prev;
-    int scan  = this.strstart;
+    byte[] window = this.window;
+    int strstart = this.strstart;
+    int scan  = strstart;
     int match;
-    int best_end = this.strstart + matchLen;
+    int best_end = strstart + matchLen;
     int best_len = Math.max(matchLen, MIN_MATCH - 1);
 
     int limit = Math.max(strstart - MAX_DIST, 0);
@@ -434,6 +440,12 @@ class DeflaterEngine implements DeflaterConstants
 
     int storedLen = strstart - blockStart;
 
+    /* Everything is flushed already; another empty block would make
+     * no progress.
+     */
+    if (flush && !finish && storedLen == 0)
+      return false;
+
     if ((storedLen >= DeflaterConstants.MAX_BLOCK_SIZE)
         /* Block is full */
         || (blockStart < WSIZE && storedLen >= MAX_DIST)
@@ -37,6 +37,8 @@ exception statement from your version. */
 
 package java.util.zip;
 
+import gnu.java.util.zip.ZStream;
+
 /* Written using on-line Java Platform 1.2 API Specification
  * and JCL book.
  * Believed complete and correct.
@@ -160,6 +162,12 @@ public class Inflater
   private InflaterHuffmanTree litlenTree, distTree;
   private Adler32 adler;
 
+  /**
+   * The zlib stream doing the work when the native engine is available.
+   * In that case only nowrap and the counters above are used.
+   */
+  private ZStream zstream;
+
   /**
    * Creates a new inflater.
    */
@@ -178,6 +186,11 @@ public class Inflater
   public Inflater (boolean nowrap)
   {
     this.nowrap = nowrap;
+    if (ZStream.isAvailable())
+      {
+        zstream = new ZStream(false, 0, 0, nowrap);
+        return;
+      }
     this.adler = new Adler32();
     input = new StreamManipulator();
     outputWindow = new OutputWindow();
@@ -208,6 +221,8 @@ public class Inflater
     litlenTree = null;
     distTree = null;
     adler = null;
+    if (zstream != null)
+      zstream.end();
   }
 
   /**
@@ -216,6 +231,8 @@ public class Inflater
    */
   public boolean finished()
   {
+    if (zstream != null)
+      return zstream.finished();
     return mode == FINISHED && outputWindow.getAvailable() == 0;
   }
 
@@ -228,6 +245,8 @@ public class Inflater
    */
   public int getAdler()
   {
+    if (zstream != null)
+      return zstream.getAdler();
     return needsDictionary() ? readAdler : (int) adler.getValue();
   }
 
@@ -239,6 +258,8 @@ public class Inflater
    */
   public int getRemaining()
   {
+    if (zstream != null)
+      return zstream.getRemaining();
     return input.getAvailableBytes();
   }
 
@@ -248,7 +269,7 @@ public class Inflater
    */
   public int getTotalIn()
   {
-    return (int) (totalIn - getRemaining());
+    return (int) getBytesRead();
   }
 
   /**
@@ -258,6 +279,8 @@ public class Inflater
    */
   public long getBytesRead()
   {
+    if (zstream != null)
+      return zstream.getBytesRead();
     return totalIn - getRemaining();
   }
 
@@ -314,6 +337,12 @@ public class Inflater
     /* Check for correct buff, off, len triple */
     if (0 > off || off > off + len || off + len > buf.length)
       throw new ArrayIndexOutOfBoundsException();
+    if (zstream != null)
+      {
+        int count = zstream.inflate(buf, off, len);
+        totalOut += count;
+        return count;
+      }
     int count = 0;
     for (;;)
       {
@@ -342,6 +371,8 @@ public class Inflater
    */
   public boolean needsDictionary ()
   {
+    if (zstream != null)
+      return zstream.needsDictionary();
     return mode == DECODE_DICT && neededBits == 0;
   }
 
@@ -353,6 +384,8 @@ public class Inflater
    */
   public boolean needsInput ()
   {
+    if (zstream != null)
+      return zstream.needsInput();
     return input.needsInput ();
   }
 
@@ -362,8 +395,13 @@ public class Inflater
    */
   public void reset ()
   {
-    mode = nowrap ? DECODE_BLOCKS : DECODE_HEADER;
     totalIn = totalOut = 0;
+    if (zstream != null)
+      {
+        zstream.reset();
+        return;
+      }
+    mode = nowrap ? DECODE_BLOCKS : DECODE_HEADER;
     input.reset();
     outputWindow.reset();
     dynHeader = null;
@@ -406,6 +444,11 @@ public class Inflater
     if (!needsDictionary())
       throw new IllegalStateException();
 
+    if (zstream != null)
+      {
+        zstream.setDictionary(buffer, off, len);
+        return;
+      }
     adler.update(buffer, off, len);
     if ((int) adler.getValue() != readAdler)
       throw new IllegalArgumentException("Wrong adler checksum");
@@ -436,7 +479,10 @@ public class Inflater
    */
   public void setInput (byte[] buf, int off, int len)
   {
-    input.setInput (buf, off, len);
+    if (zstream != null)
+      zstream.setInput (buf, off, len);
+    else
+      input.setInput (buf, off, len);
     totalIn += len;
   }
 
@@ -0,0 +1,453 @@
+/* MappedZipDirectory.java -- Memory-mapped zip archive index
+   Copyright (C) 2026  Free Software Foundation, Inc.
+
+This file is part of GNU Classpath.
+
+GNU Classpath is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; either version 2, or (at your option)
+any later version.
+
+GNU Classpath is distributed in the hope that it will be useful, but
+WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with GNU Classpath; see the file COPYING.  If not, write to the
+Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+02110-1301 USA.
+
+Linking this library statically or dynamically with other modules is
+making a combined work based on this library.  Thus, the terms and
+conditions of the GNU General Public License cover the whole
+combination.
+
+As a special exception, the copyright holders of this library give you
+permission to link this library with independent modules to produce an
+executable, regardless of the license terms of these independent
+modules, and to copy and distribute the resulting executable under
+terms of your choice, provided that you also meet, for each linked
+independent module, the terms and conditions of the license of that
+module.  An independent module is a module which is not derived from
+or based on this library.  If you modify this library, you may extend
+this exception to your version of the library, but you are not
+obligated to do so.  If you do not wish to do so, delete this
+exception statement from your version. */
+
+
+package java.util.zip;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.NoSuchElementException;
+
+/**
+ * A zip archive mapped into memory, used by {@link ZipFile}.  Entries are
+ * looked up through an open-addressed hash table of central directory
+ * offsets, so neither a <code>String</code> nor a <code>ZipEntry</code>
+ * is created for an entry until it is asked for.  Entry data is read
+ * straight from the mapping.
+ *
+ * All accesses to the shared buffer use absolute indexes, so an instance
+ * can be used from several threads at once.
+ */
+final class MappedZipDirectory implements ZipConstants
+{
+  private static final Charset UTF8CHARSET = Charset.forName("UTF-8");
+
+  /** The whole archive, in little-endian order. */
+  private final ByteBuffer buf;
+
+  /** Name of the archive, for error messages. */
+  private final String name;
+
+  /** Offset of the first central directory header. */
+  private final int centralOffset;
+
+  /** Number of entries. */
+  private final int count;
+
+  /**
+   * Central directory offsets of the entries, hashed by name; -1 marks an
+   * empty slot.  The length is a power of two at least twice count.
+   */
+  private final int[] table;
+
+  private MappedZipDirectory(ByteBuffer buf, String name, int centralOffset,
+                             int count)
+  {
+    this.buf = buf;
+    this.name = name;
+    this.centralOffset = centralOffset;
+    this.count = count;
+    int size = 2;
+    while (size < 2 * count)
+      size <<= 1;
+    table = new int[size];
+    Arrays.fill(table, -1);
+  }
+
+  /**
+   * Maps the given archive and indexes its central directory.
+   *
+   * @exception IOException if the archive can't be mapped.
+   * @exception ZipException if the central directory is malformed.
+   */
+  static MappedZipDirectory map(RandomAccessFile raf, String name)
+    throws IOException
+  {
+    long length = raf.length();
+    if (length > Integer.MAX_VALUE)
+      throw new IOException("too large to map: " + name);
+
+    FileChannel channel = raf.getChannel();
+    ByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+    buf.order(ByteOrder.LITTLE_ENDIAN);
+
+    /* Search for the End Of Central Directory.  When a zip comment is
+     * present the directory may start earlier.
+     * Note that a comment has a maximum length of 64K, so that is the
+     * maximum we search backwards.
+     */
+    int pos = (int) length - ENDHDR;
+    int top = Math.max(0, pos - 65536);
+    for (;;)
+      {
+        if (pos < top)
+          throw new ZipException
+            ("central directory not found, probably not a zip file: " + name);
+        if (buf.getInt(pos) == (int) ENDSIG)
+          break;
+        pos--;
+      }
+
+    int count = buf.getShort(pos + ENDTOT) & 0xffff;
+    int centralOffset = buf.getInt(pos + ENDOFF);
+    if (centralOffset < 0 || centralOffset > pos)
+      throw new ZipException("Wrong Central Directory offset: " + name);
+
+    MappedZipDirectory dir = new MappedZipDirectory(buf, name, centralOffset,
+                                                    count);
+    dir.index(pos);
+    return dir;
+  }
+
+  /**
+   * Fills the hash table, checking that every header lies before end.
+   */
+  private void index(int end) throws ZipException
+  {
+    int mask = table.length - 1;
+    int cen = centralOffset;
+    for (int i = 0; i < count; i++)
+      {
+        if (cen + CENHDR > end || buf.getInt(cen) != (int) CENSIG)
+          throw new ZipException("Wrong Central Directory signature: " + name);
+        int nameLen = getShort(cen + CENNAM);
+        int next = cen + CENHDR + nameLen + getShort(cen + CENEXT)
+          + getShort(cen + CENCOM);
+        if (next > end)
+          throw new ZipException("Central Directory entry too long: " + name);
+
+        int slot = mix(hash(cen + CENHDR, nameLen)) & mask;
+        while (table[slot] != -1)
+          slot = (slot + 1) & mask;
+        table[slot] = cen;
+        cen = next;
+      }
+  }
+
+  private int getShort(int pos)
+  {
+    return buf.getShort(pos) & 0xffff;
+  }
+
+  /**
+   * Hashes the name bytes at pos.  For ASCII names this gives the same
+   * value as String.hashCode(), so looking them up needs no encoding.
+   */
+  private int hash(int pos, int len)
+  {
+    int h = 0;
+    for (int i = 0; i < len; i++)
+      h = 31 * h + (buf.get(pos + i) & 0xff);
+    return h;
+  }
+
+  private static int mix(int h)
+  {
+    return h ^ (h >>> 16);
+  }
+
+  /**
+   * Returns the central directory offset of the entry with exactly the
+   * given name, or -1 if there is none.
+   */
+  int find(String name)
+  {
+    byte[] bytes = null;
+    int h;
+    int len = name.length();
+    int i = 0;
+    while (i < len && name.charAt(i) < 0x80)
+      i++;
+    if (i == len)
+      h = name.hashCode();
+    else
+      {
+        bytes = name.getBytes(UTF8CHARSET);
+        len = bytes.length;
+        h = 0;
+        for (i = 0; i < len; i++)
+          h = 31 * h + (bytes[i] & 0xff);
+      }
+
+    int mask = table.length - 1;
+    int slot = mix(h) & mask;
+    int cen;
+    while ((cen = table[slot]) != -1)
+      {
+        if (getShort(cen + CENNAM) == len && matches(cen + CENHDR, name, bytes))
+          return cen;
+        slot = (slot + 1) & mask;
+      }
+    return -1;
+  }
+
+  private boolean matches(int pos, String name, byte[] bytes)
+  {
+    if (bytes != null)
+      {
+        for (int i = 0; i < bytes.length; i++)
+          if (buf.get(pos + i) != bytes[i])
+            return false;
+      }
+    else
+      {
+        for (int i = 0; i < name.length(); i++)
+          if (buf.get(pos + i) != name.charAt(i))
+            return false;
+      }
+    return true;
+  }
+
+  /**
+   * Returns the number of entries.
+   */
+  int size()
+  {
+    return count;
+  }
+
+  /**
+   * Looks up an entry, trying name + '/' as well for directories.
+   *
+   * @return a new entry, or null if there is no such entry.
+   */
+  ZipEntry getEntry(String name)
+  {
+    int cen = find(name);
+    if (cen == -1)
+      {
+        if (name.endsWith("/"))
+          return null;
+        cen = find(name + '/');
+        if (cen == -1)
+          return null;
+        return entryAt(cen, name);
+      }
+    return entryAt(cen, null);
+  }
+
+  /**
+   * Creates the entry for the central directory header at cen.
+   *
+   * @param name the name to give the entry, or null to use the one in
+   * the header.
+   */
+  ZipEntry entryAt(int cen, String name)
+  {
+    int nameLen = getShort(cen + CENNAM);
+    int extraLen = getShort(cen + CENEXT);
+    int commentLen = getShort(cen + CENCOM);
+    int pos = cen + CENHDR;
+
+    if (name == null)
+      name = decode(pos, nameLen);
+    ZipEntry entry = new ZipEntry(name);
+    entry.setGeneralPurposeFlags(getShort(cen + CENFLG));
+    entry.setMethod(getShort(cen + CENHOW));
+    entry.setCrc(buf.getInt(cen + CENCRC) & 0xffffffffL);
+    entry.setSize(buf.getInt(cen + CENLEN) & 0xffffffffL);
+    entry.setCompressedSize(buf.getInt(cen + CENSIZ) & 0xffffffffL);
+    entry.setDOSTime(buf.getInt(cen + CENTIM));
+    pos += nameLen;
+    if (extraLen > 0)
+      {
+        byte[] extra = new byte[extraLen];
+        get(pos, extra);
+        entry.setExtra(extra);
+      }
+    pos += extraLen;
+    if (commentLen > 0)
+      entry.setComment(decode(pos, commentLen));
+    entry.offset = buf.getInt(cen + CENOFF);
+    return entry;
+  }
+
+  private void get(int pos, byte[] dst)
+  {
+    ByteBuffer b = buf.duplicate();
+    b.position(pos);
+    b.get(dst);
+  }
+
+  /**
+   * Decodes UTF-8 bytes, avoiding the decoder for plain ASCII.
+   */
+  private String decode(int pos, int len)
+  {
+    byte[] bytes = new byte[len];
+    get(pos, bytes);
+    for (int i = 0; i < len; i++)
+      if (bytes[i] < 0)
+        return new String(bytes, UTF8CHARSET);
+    return new String(bytes, 0, 0, len);
+  }
+
+  /**
+   * Returns an enumeration creating the entries in directory order.
+   */
+  Enumeration<ZipEntry> entries()
+  {
+    return new Enumeration<ZipEntry>()
+    {
+      private int cen = centralOffset;
+      private int remaining = count;
+
+      public boolean hasMoreElements()
+      {
+        return remaining > 0;
+      }
+
+      public ZipEntry nextElement()
+      {
+        if (remaining == 0)
+          throw new NoSuchElementException();
+        ZipEntry entry = entryAt(cen, null);
+        cen += CENHDR + getShort(cen + CENNAM) + getShort(cen + CENEXT)
+          + getShort(cen + CENCOM);
+        remaining--;
+        return entry;
+      }
+    };
+  }
+
+  /**
+   * Returns a stream reading the raw (possibly compressed) data of the
+   * entry whose central directory header is at cen.
+   *
+   * @exception ZipException if the local header is malformed.
+   */
+  InputStream getRawInputStream(int cen, String name) throws ZipException
+  {
+    int loc = buf.getInt(cen + CENOFF);
+    if (loc < 0 || loc > buf.limit() - LOCHDR
+        || buf.getInt(loc) != (int) LOCSIG)
+      throw new ZipException("Wrong Local header signature: " + name);
+    if (getShort(loc + LOCHOW) != getShort(cen + CENHOW))
+      throw new ZipException("Compression method mismatch: " + name);
+
+    long start = (long) loc + LOCHDR + getShort(loc + LOCNAM)
+      + getShort(loc + LOCEXT);
+    long end = start + (buf.getInt(cen + CENSIZ) & 0xffffffffL);
+    if (end > buf.limit())
+      throw new ZipException("Entry data truncated: " + name);
+
+    ByteBuffer data = buf.duplicate();
+    data.limit((int) end);
+    data.position((int) start);
+    return new BufferInputStream(data);
+  }
+
+  /**
+   * Returns the general purpose flags of the entry at cen.
+   */
+  int getFlags(int cen)
+  {
+    return getShort(cen + CENFLG);
+  }
+
+  /**
+   * Returns the compression method of the entry at cen.
+   */
+  int getMethod(int cen)
+  {
+    return getShort(cen + CENHOW);
+  }
+
+  /**
+   * Returns the uncompressed size of the entry at cen.
+   */
+  long getSize(int cen)
+  {
+    return buf.getInt(cen + CENLEN) & 0xffffffffL;
+  }
+
+  /**
+   * Reads a slice of the mapping.
+   */
+  private static final class BufferInputStream extends InputStream
+  {
+    private final ByteBuffer data;
+
+    BufferInputStream(ByteBuffer data)
+    {
+      this.data = data;
+    }
+
+    public int available()
+    {
+      return data.remaining();
+    }
+
+    public int read()
+    {
+      if (! data.hasRemaining())
+        return -1;
+      return data.get() & 0xff;
+    }
+
+    public int read(byte[] b, int off, int len)
+    {
+      if (0 > off || off > off + len || off + len > b.length)
+        throw new IndexOutOfBoundsException();
+      if (len == 0)
+        return 0;
+      int remaining = data.remaining();
+      if (remaining == 0)
+        return -1;
+      if (len > remaining)
+        len = remaining;
+      data.get(b, off, len);
+      return len;
+    }
+
+    public long skip(long n)
+    {
+      if (n <= 0)
+        return 0;
+      int skip = (int) Math.min(n, data.remaining());
+      data.position(data.position() + skip);
+      return skip;
+    }
+  }
+}
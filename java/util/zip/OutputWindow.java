@@ -89,10 +89,17 @@ class OutputWindow
           }
         else
           {
-            /* We have to copy manually, since the repeat pattern overlaps.
+            /* The repeat pattern overlaps.  Everything from rep_start up
+             * to window_end repeats with period dist, so copy it in chunks
+             * that double each time instead of byte by byte.
              */
-            while (len-- > 0)
-              window[window_end++] = window[rep_start++];
+            while (len > 0)
+              {
+                int chunk = Math.min(len, window_end - rep_start);
+                System.arraycopy(window, rep_start, window, window_end, chunk);
+                window_end += chunk;
+                len -= chunk;
+              }
           }
       }
     else
@@ -39,6 +39,7 @@ exception statement from your version. */
 
 package java.util.zip;
 
+import gnu.classpath.SystemProperties;
 import gnu.java.util.EmptyEnumeration;
 
 import java.io.EOFException;
@@ -84,6 +85,14 @@ public class ZipFile implements ZipConstants
    */
   static final int ENDNRD =  4;
 
+  /**
+   * Whether archives are memory-mapped rather than read into a map of
+   * entries.  Set the system property gnu.java.util.zip.mmap to false to
+   * turn this off.
+   */
+  private static final boolean MAP_ARCHIVES =
+    ! "false".equals(SystemProperties.getProperty("gnu.java.util.zip.mmap"));
+
   // Name of this zip file.
   private final String name;
 
@@ -93,6 +102,10 @@ public class ZipFile implements ZipConstants
   // The entries of this zip file when initialized and not yet closed.
   private LinkedHashMap<String, ZipEntry> entries;
 
+  // The mapped archive, used instead of entries when mapping succeeded.
+  // It is kept after closing so that concurrent readers never see null.
+  private MappedZipDirectory mapped;
+
   private boolean closed = false;
 
 
@@ -229,6 +242,20 @@ public class ZipFile implements ZipConstants
    */
   private void readEntries() throws ZipException, IOException
   {
+    if (MAP_ARCHIVES)
+      {
+        try
+          {
+            mapped = MappedZipDirectory.map(raf, name);
+            return;
+          }
+        catch (IOException _)
+          {
+            /* Read the directory the slow way below; that reports any
+             * real problem with the archive.  */
+          }
+      }
+
     /* Search for the End Of Central Directory.  When a zip comment is
      * present the directory may start earlier.
      * Note that a comment has a maximum length of 64K, so that is the
@@ -327,7 +354,10 @@ public class ZipFile implements ZipConstants
   {
     try
       {
-        return new ZipEntryEnumeration(getEntries().values().iterator());
+        LinkedHashMap<String, ZipEntry> entries = getEntries();
+        if (entries == null)
+          return mapped.entries();
+        return new ZipEntryEnumeration(entries.values().iterator());
       }
     catch (IOException ioe)
       {
@@ -338,6 +368,8 @@ public class ZipFile implements ZipConstants
   /**
    * Checks that the ZipFile is still open and reads entries when necessary.
    *
+   * @return the entries, or null if the archive is mapped.
+   *
    * @exception IllegalStateException when the ZipFile has already been closed.
    * @exception IOException when the entries could not be read.
    */
@@ -347,7 +379,7 @@ public class ZipFile implements ZipConstants
       {
         checkClosed();
 
-        if (entries == null)
+        if (entries == null && mapped == null)
           readEntries();
 
         return entries;
@@ -368,6 +400,8 @@ public class ZipFile implements ZipConstants
     try
       {
         LinkedHashMap<String, ZipEntry> entries = getEntries();
+        if (entries == null)
+          return mapped.getEntry(name);
         ZipEntry entry = entries.get(name);
         // If we didn't find it, maybe it's a directory.
         if (entry == null && !name.endsWith("/"))
@@ -412,9 +446,12 @@ public class ZipFile implements ZipConstants
       {
         checkClosed();
 
-        if (entries == null)
+        if (entries == null && mapped == null)
           readEntries();
 
+        if (mapped != null)
+          return getMappedInputStream(mapped, entry);
+
         zipEntry = entries.get(name);
         if (zipEntry == null)
           return null;
@@ -467,6 +504,44 @@ public class ZipFile implements ZipConstants
       }
   }
 
+  /**
+   * Creates an input stream reading the given entry straight from the
+   * mapped archive.
+   */
+  private static InputStream getMappedInputStream(MappedZipDirectory mapped,
+                                                  ZipEntry entry)
+    throws IOException
+  {
+    String name = entry.getName();
+    int cen = mapped.find(name);
+    if (cen == -1)
+      return null;
+    if ((mapped.getFlags(cen) & 1) != 0)
+      throw new ZipException("Entry is encrypted: " + name);
+
+    InputStream inp = mapped.getRawInputStream(cen, name);
+    int method = mapped.getMethod(cen);
+    switch (method)
+      {
+      case ZipOutputStream.STORED:
+        return inp;
+      case ZipOutputStream.DEFLATED:
+        final Inflater inf = new Inflater(true);
+        final int sz = (int) mapped.getSize(cen);
+        return new InflaterInputStream(inp, inf)
+        {
+          public int available() throws IOException
+          {
+            if (super.available() != 0)
+              return sz - inf.getTotalOut();
+            return 0;
+          }
+        };
+      default:
+        throw new ZipException("Unknown compression method " + method);
+      }
+  }
+
   /**
    * Returns the (path) name of this zip file.
    */
@@ -484,7 +559,10 @@ public class ZipFile implements ZipConstants
   {
     try
       {
-        return getEntries().size();
+        LinkedHashMap<String, ZipEntry> entries = getEntries();
+        if (entries == null)
+          return mapped.size();
+        return entries.size();
       }
     catch (IOException ioe)
       {
@@ -1120,6 +1120,81 @@ public class Cipher
     return cipherSpi.engineUpdate (input, output);
   }
 
+  /**
+   * Supply additional data to be authenticated, but not encrypted, by
+   * a cipher in an authenticated mode such as GCM. All additional data
+   * must be supplied before the first byte of the message is
+   * processed.
+   *
+   * @param src The additional data.
+   * @throws IllegalArgumentException If <i>src</i> is null.
+   * @throws IllegalStateException If this cipher was not initialized
+   *  for encrypting or decrypting, or if the message was already
+   *  started.
+   * @throws UnsupportedOperationException If the underlying cipher
+   *  does not support additional data.
+   * @since 1.7
+   */
+  public final void updateAAD(byte[] src)
+  {
+    if (src == null)
+      throw new IllegalArgumentException("src is null");
+    updateAAD(src, 0, src.length);
+  }
+
+  /**
+   * Supply part of a byte array as additional data to be
+   * authenticated.
+   *
+   * @param src    The additional data.
+   * @param offset The index in <i>src</i> to start.
+   * @param len    The number of bytes to use.
+   * @throws IllegalArgumentException If <i>src</i> is null or the
+   *  offset and length are out of its bounds.
+   * @throws IllegalStateException If this cipher was not initialized
+   *  for encrypting or decrypting, or if the message was already
+   *  started.
+   * @throws UnsupportedOperationException If the underlying cipher
+   *  does not support additional data.
+   * @since 1.7
+   */
+  public final void updateAAD(byte[] src, int offset, int len)
+  {
+    if (src == null || offset < 0 || len < 0 || src.length - offset < len)
+      throw new IllegalArgumentException("bad additional data bounds");
+    if (state != ENCRYPT_MODE && state != DECRYPT_MODE)
+      throw new IllegalStateException
+        ("not initialized for encryption or decryption");
+    if (cipherSpi == null)
+      throw new UnsupportedOperationException();
+    cipherSpi.engineUpdateAAD(src, offset, len);
+  }
+
+  /**
+   * Supply the remaining bytes of a buffer as additional data to be
+   * authenticated.
+   *
+   * @param src The additional data.
+   * @throws IllegalArgumentException If <i>src</i> is null.
+   * @throws IllegalStateException If this cipher was not initialized
+   *  for encrypting or decrypting, or if the message was already
+   *  started.
+   * @throws UnsupportedOperationException If the underlying cipher
+   *  does not support additional data.
+   * @since 1.7
+   */
+  public final void updateAAD(ByteBuffer src)
+  {
+    if (src == null)
+      throw new IllegalArgumentException("src is null");
+    if (state != ENCRYPT_MODE && state != DECRYPT_MODE)
+      throw new IllegalStateException
+        ("not initialized for encryption or decryption");
+    if (cipherSpi == null)
+      throw new UnsupportedOperationException();
+    cipherSpi.engineUpdateAAD(src);
+  }
+
   /**
    * Wrap a key.
    *
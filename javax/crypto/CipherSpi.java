@@ -426,6 +426,52 @@ public abstract class CipherSpi
     return total;
   }
 
+  /**
+   * <p>Continue with the additional data of an authenticated mode,
+   * which is authenticated but not encrypted.</p>
+   *
+   * <p>For compatibility this method is not declared
+   * <code>abstract</code>, and the default implementation will throw an
+   * {@link java.lang.UnsupportedOperationException}.</p>
+   *
+   * @param src    The additional data.
+   * @param offset The index in the array from which to start.
+   * @param len    The number of bytes to use.
+   * @throws java.lang.IllegalStateException If the message was already
+   *         started.
+   * @since 1.7
+   */
+  protected void engineUpdateAAD(byte[] src, int offset, int len)
+  {
+    throw new UnsupportedOperationException();
+  }
+
+  /**
+   * <p>Continue with the remaining bytes of a buffer as the additional
+   * data of an authenticated mode.</p>
+   *
+   * <p>The default implementation passes the bytes on to
+   * {@link #engineUpdateAAD(byte[],int,int)}.</p>
+   *
+   * @param src The additional data.
+   * @since 1.7
+   */
+  protected void engineUpdateAAD(ByteBuffer src)
+  {
+    int len = src.remaining();
+    if (src.hasArray())
+      {
+        engineUpdateAAD(src.array(), src.arrayOffset() + src.position(), len);
+        src.position(src.limit());
+      }
+    else
+      {
+        byte[] buf = new byte[len];
+        src.get(buf);
+        engineUpdateAAD(buf, 0, len);
+      }
+  }
+
   /**
    * <p>Wrap a key.</p>
    *
@@ -0,0 +1,121 @@
+/* GCMParameterSpec -- Parameters for the Galois/Counter Mode.
+   Copyright (C) 2026  Free Software Foundation, Inc.
+
+This file is part of GNU Classpath.
+
+GNU Classpath is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; either version 2, or (at your option)
+any later version.
+
+GNU Classpath is distributed in the hope that it will be useful, but
+WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with GNU Classpath; see the file COPYING.  If not, write to the
+Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+02110-1301 USA.
+
+Linking this library statically or dynamically with other modules is
+making a combined work based on this library.  Thus, the terms and
+conditions of the GNU General Public License cover the whole
+combination.
+
+As a special exception, the copyright holders of this library give you
+permission to link this library with independent modules to produce an
+executable, regardless of the license terms of these independent
+modules, and to copy and distribute the resulting executable under
+terms of your choice, provided that you also meet, for each linked
+independent module, the terms and conditions of the license of that
+module.  An independent module is a module which is not derived from
+or based on this library.  If you modify this library, you may extend
+this exception to your version of the library, but you are not
+obligated to do so.  If you do not wish to do so, delete this
+exception statement from your version. */
+
+
+package javax.crypto.spec;
+
+import java.security.spec.AlgorithmParameterSpec;
+
+/**
+ * The parameters of a cipher in the Galois/Counter Mode: the initialization
+ * vector, which is usually 12 bytes long, and the length of the
+ * authentication tag in bits.
+ *
+ * @since 1.7
+ */
+public class GCMParameterSpec implements AlgorithmParameterSpec
+{
+
+  // Fields.
+  // ------------------------------------------------------------------------
+
+  /** The tag length, in bits. */
+  private final int tLen;
+
+  /** The IV. */
+  private final byte[] iv;
+
+  // Constructors.
+  // ------------------------------------------------------------------------
+
+  /**
+   * Create a new GCM parameter spec from an entire byte array.
+   *
+   * @param tLen The tag length, in bits.
+   * @param src  The IV bytes.
+   * @throws IllegalArgumentException If <i>tLen</i> is negative or
+   *         <i>src</i> is null.
+   */
+  public GCMParameterSpec(int tLen, byte[] src)
+  {
+    this(tLen, src, 0, src == null ? 0 : src.length);
+  }
+
+  /**
+   * Create a new GCM parameter spec from part of a byte array.
+   *
+   * @param tLen   The tag length, in bits.
+   * @param src    The IV bytes.
+   * @param offset The offset into the IV bytes.
+   * @param len    The number of IV bytes.
+   * @throws IllegalArgumentException If <i>tLen</i> is negative, or
+   *         <i>src</i> is null or too short.
+   */
+  public GCMParameterSpec(int tLen, byte[] src, int offset, int len)
+  {
+    if (tLen < 0)
+      throw new IllegalArgumentException("negative tag length");
+    if (src == null || offset < 0 || len < 0 || src.length - offset < len)
+      throw new IllegalArgumentException("bad IV");
+    this.tLen = tLen;
+    this.iv = new byte[len];
+    System.arraycopy(src, offset, this.iv, 0, len);
+  }
+
+  // Instance methods.
+  // ------------------------------------------------------------------------
+
+  /**
+   * Returns the tag length.
+   *
+   * @return The tag length, in bits.
+   */
+  public int getTLen()
+  {
+    return tLen;
+  }
+
+  /**
+   * Returns a copy of the IV.
+   *
+   * @return The IV.
+   */
+  public byte[] getIV()
+  {
+    return (byte[]) iv.clone();
+  }
+}
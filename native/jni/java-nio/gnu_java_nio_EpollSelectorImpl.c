@@ -129,12 +129,13 @@ Java_gnu_java_nio_EpollSelectorImpl_epoll_1create (JNIEnv *env,
 /*
  * Class:     gnu_java_nio_EpollSelectorImpl
  * Method:    epoll_add
- * Signature: (III)V
+ * Signature: (IIIZ)V
  */
 JNIEXPORT void JNICALL
 Java_gnu_java_nio_EpollSelectorImpl_epoll_1add (JNIEnv *env,
                                                 jclass c __attribute__((unused)),
-                                                jint efd, jint fd, jint ops)
+                                                jint efd, jint fd, jint ops,
+                                                jboolean edge)
 {
 #ifdef HAVE_EPOLL_CREATE
   struct epoll_event event;
@@ -149,6 +150,9 @@ Java_gnu_java_nio_EpollSelectorImpl_epoll_1add (JNIEnv *env,
       || (ops & gnu_java_nio_EpollSelectorImpl_OP_WRITE) != 0)
     event.events |= EPOLLOUT;
 
+  if (edge)
+    event.events |= EPOLLET;
+
   event.data.fd = fd;
 
 #ifdef TRACE_EPOLL
@@ -156,7 +160,11 @@ Java_gnu_java_nio_EpollSelectorImpl_epoll_1add (JNIEnv *env,
            __FUNCTION__, event.events, event.data.fd, efd);
 #endif /* TRACE_EPOLL */
 
-  if (epoll_ctl (efd, EPOLL_CTL_ADD, fd, &event) == -1)
+  /* A descriptor number can be reused before the stale registration
+     of its previous owner is dropped; just take over the entry. */
+  if (epoll_ctl (efd, EPOLL_CTL_ADD, fd, &event) == -1
+      && (EEXIST != errno
+          || epoll_ctl (efd, EPOLL_CTL_MOD, fd, &event) == -1))
     {
       if (ENOSYS == errno)
         JCL_ThrowException (env, "java/lang/InternalError",
@@ -168,6 +176,7 @@ Java_gnu_java_nio_EpollSelectorImpl_epoll_1add (JNIEnv *env,
   (void) efd;
   (void) fd;
   (void) ops;
+  (void) edge;
   JCL_ThrowException (env, "java/lang/InternalError", "epoll support not available");
 #endif /* HAVE_EPOLL_CREATE */
 }
@@ -176,12 +185,13 @@ Java_gnu_java_nio_EpollSelectorImpl_epoll_1add (JNIEnv *env,
 /*
  * Class:     gnu_java_nio_EpollSelectorImpl
  * Method:    epoll_modify
- * Signature: (III)V
+ * Signature: (IIIZ)V
  */
 JNIEXPORT void JNICALL
 Java_gnu_java_nio_EpollSelectorImpl_epoll_1modify (JNIEnv *env,
                                                    jclass c __attribute__((unused)),
-                                                   jint efd, jint fd, jint ops)
+                                                   jint efd, jint fd, jint ops,
+                                                   jboolean edge)
 {
 #ifdef HAVE_EPOLL_CREATE
   struct epoll_event event;
@@ -196,6 +206,9 @@ Java_gnu_java_nio_EpollSelectorImpl_epoll_1modify (JNIEnv *env,
       || (ops & gnu_java_nio_EpollSelectorImpl_OP_WRITE) != 0)
     event.events |= EPOLLOUT;
 
+  if (edge)
+    event.events |= EPOLLET;
+
   event.data.fd = fd;
 
 #ifdef TRACE_EPOLL
@@ -215,6 +228,7 @@ Java_gnu_java_nio_EpollSelectorImpl_epoll_1modify (JNIEnv *env,
   (void) efd;
   (void) fd;
   (void) ops;
+  (void) edge;
   JCL_ThrowException (env, "java/lang/InternalError", "epoll support not available");
 #endif /* HAVE_EPOLL_CREATE */
 }
@@ -333,16 +347,16 @@ Java_gnu_java_nio_EpollSelectorImpl_epoll_1wait (JNIEnv *env,
 /*
  * Class:     gnu_java_nio_EpollSelectorImpl
  * Method:    selected_fd
- * Signature: (Ljava/nio/ByteBuffer;)I
+ * Signature: (Ljava/nio/ByteBuffer;I)I
  */
 JNIEXPORT jint JNICALL
 Java_gnu_java_nio_EpollSelectorImpl_selected_1fd (JNIEnv *env,
                                                   jclass c __attribute__((unused)),
-                                                  jobject value)
+                                                  jobject value, jint index)
 {
 #ifdef HAVE_EPOLL_CREATE
   void *p = (*env)->GetDirectBufferAddress (env, value);
-  struct epoll_event *event = (struct epoll_event *) p;
+  struct epoll_event *event;
 
 #ifdef TRACE_EPOLL
   fprintf (stderr, "%s: event: %p\n", __FUNCTION__, p);
@@ -356,6 +370,8 @@ Java_gnu_java_nio_EpollSelectorImpl_selected_1fd (JNIEnv *env,
       return -1;
     }
 
+  event = ((struct epoll_event *) p) + index;
+
 #ifdef TRACE_EPOLL
   fprintf (stderr, "  data.fd: %d\n", event->data.fd);
   fflush (stderr);
@@ -364,6 +380,7 @@ Java_gnu_java_nio_EpollSelectorImpl_selected_1fd (JNIEnv *env,
   return event->data.fd;
 #else
   (void) value;
+  (void) index;
   JCL_ThrowException (env, "java/lang/InternalError", "epoll support not available");
   return -1;
 #endif /* HAVE_EPOLL_CREATE */
@@ -373,16 +390,16 @@ Java_gnu_java_nio_EpollSelectorImpl_selected_1fd (JNIEnv *env,
 /*
  * Class:     gnu_java_nio_EpollSelectorImpl
  * Method:    selected_ops
- * Signature: (Ljava/nio/ByteBuffer;)I
+ * Signature: (Ljava/nio/ByteBuffer;I)I
  */
 JNIEXPORT jint JNICALL
 Java_gnu_java_nio_EpollSelectorImpl_selected_1ops (JNIEnv *env,
                                                    jclass c __attribute__((unused)),
-                                                   jobject value)
+                                                   jobject value, jint index)
 {
 #ifdef HAVE_EPOLL_CREATE
   void *p = (*env)->GetDirectBufferAddress (env, value);
-  struct epoll_event *event = (struct epoll_event *) p;
+  struct epoll_event *event;
   int ret = 0;
 
 #ifdef TRACE_EPOLL
@@ -397,6 +414,8 @@ Java_gnu_java_nio_EpollSelectorImpl_selected_1ops (JNIEnv *env,
       return -1;
     }
 
+  event = ((struct epoll_event *) p) + index;
+
   if ((event->events & EPOLLIN) != 0)
     ret |= gnu_java_nio_EpollSelectorImpl_OP_ACCEPT | gnu_java_nio_EpollSelectorImpl_OP_READ;
   if ((event->events & EPOLLOUT) != 0)
@@ -410,6 +429,7 @@ Java_gnu_java_nio_EpollSelectorImpl_selected_1ops (JNIEnv *env,
   return ret;
 #else
   (void) value;
+  (void) index;
   JCL_ThrowException (env, "java/lang/InternalError", "epoll support not available");
   return -1;
 #endif /* HAVE_EPOLL_CREATE */
@@ -35,6 +35,10 @@ this exception to your version of the library, but you are not
 obligated to do so.  If you do not wish to do so, delete this
 exception statement from your version. */
 
+/* Needed for splice(2) and copy_file_range(2) with glibc. */
+#ifndef _GNU_SOURCE
+#define _GNU_SOURCE
+#endif
 
 #ifdef HAVE_CONFIG_H
 #include <config.h>
@@ -43,6 +47,7 @@ exception statement from your version. */
 #include <config-int.h>
 
 #include <sys/types.h>
+#include <limits.h>
 #ifdef HAVE_SYS_MMAN_H
 #include <sys/mman.h>
 #endif
@@ -75,6 +80,9 @@ exception statement from your version. */
 #if defined(HAVE_SYS_FILIO_H) /* Get FIONREAD on Solaris 2.5 */
 #include <sys/filio.h>
 #endif
+#if defined(HAVE_SYS_SENDFILE_H)
+#include <sys/sendfile.h>
+#endif
 
 #define CONNECT_EXCEPTION "java/net/ConnectException"
 #define IO_EXCEPTION "java/io/IOException"
@@ -89,9 +97,29 @@ exception statement from your version. */
 #define ALIGN_UP(p,s) ((p) + ((s) - ((p) % (s))))
 
 /*
- * Limit to maximum of 16 buffers
+ * Limit on the number of buffers passed to one readv or writev call.
+ * Up to JCL_IOV_STACK buffers are described on the stack; longer
+ * vectors are allocated with malloc.
+ */
+#if defined(IOV_MAX) && IOV_MAX < 1024
+#define JCL_IOV_MAX IOV_MAX
+#else
+#define JCL_IOV_MAX 1024
+#endif
+#define JCL_IOV_STACK 16
+
+/*
+ * Largest number of bytes moved by a single sendfile, splice or
+ * copy_file_range call (Linux caps these at 0x7ffff000 anyway).
+ */
+#define JCL_TRANSFER_MAX 0x7ffff000
+
+/*
+ * True if ERRNO, set by one of the zero-copy calls, only means that the
+ * kernel can't move data between this pair of descriptors directly.
  */
-#define JCL_IOV_MAX 16
+#define JCL_TRANSFER_UNSUPPORTED(e) \
+  ((e) == EINVAL || (e) == ENOSYS || (e) == EXDEV || (e) == EOPNOTSUPP)
 
 #ifdef __cplusplus
 extern "C"
@@ -554,14 +582,49 @@ Java_gnu_java_nio_VMChannel_write__ILjava_nio_ByteBuffer_2 (JNIEnv *env,
 }
 
 
+/*
+ * Allocate the iovec and JCL_buffer arrays for VEC_LEN buffers.  Short
+ * vectors use the caller's stack arrays; longer ones are malloc'd and
+ * must be released with JCL_free_vectors.  Returns -1 and throws
+ * OutOfMemoryError on failure.
+ */
+static int
+JCL_alloc_vectors (JNIEnv *env, jint vec_len,
+                   struct iovec **buffers, struct JCL_buffer **bi_list)
+{
+  if (vec_len <= JCL_IOV_STACK)
+    return 0;
+  *buffers = (struct iovec *) malloc (vec_len * sizeof (struct iovec));
+  *bi_list = (struct JCL_buffer *) malloc (vec_len * sizeof (struct JCL_buffer));
+  if (*buffers == NULL || *bi_list == NULL)
+    {
+      free (*buffers);
+      free (*bi_list);
+      JCL_ThrowException (env, "java/lang/OutOfMemoryError",
+                          "unable to allocate I/O vector");
+      return -1;
+    }
+  return 0;
+}
+
+static void
+JCL_free_vectors (jint vec_len, struct iovec *buffers,
+                  struct JCL_buffer *bi_list)
+{
+  if (vec_len > JCL_IOV_STACK)
+    {
+      free (buffers);
+      free (bi_list);
+    }
+}
+
 /*
  * Implementation of a scattering read.  Will use the appropriate
  * vector based read call (currently readv on Linux).
  * 
  * This has a limit to the number of buffers that will be read.  It
  * will not make muliple readv calls.  This is to ensure that operations 
- * are atomic.  Currently it is limited to 16 buffers.  This is for 
- * compatibiliy with Sun.
+ * are atomic.  Currently it is limited to JCL_IOV_MAX buffers.
  */
 JNIEXPORT jlong JNICALL 
 Java_gnu_java_nio_VMChannel_readScattering (JNIEnv *env, 
@@ -572,10 +635,10 @@ Java_gnu_java_nio_VMChannel_readScattering (JNIEnv *env,
 	jint length)
 {
   jint i;
-/*   jboolean is_error = JNI_FALSE; */
-/*   char *error_msg; */
-  struct iovec buffers[JCL_IOV_MAX];
-  struct JCL_buffer bi_list[JCL_IOV_MAX];
+  struct iovec stack_buffers[JCL_IOV_STACK];
+  struct JCL_buffer stack_bi_list[JCL_IOV_STACK];
+  struct iovec *buffers = stack_buffers;
+  struct JCL_buffer *bi_list = stack_bi_list;
   ssize_t result;
   jint vec_len = length < JCL_IOV_MAX ? length : JCL_IOV_MAX;
   jlong bytes_read = 0;
@@ -583,6 +646,9 @@ Java_gnu_java_nio_VMChannel_readScattering (JNIEnv *env,
 
 /*   NIODBG("fd: %d; bbufs: %p; offset: %d; length: %d", */
 /*          fd, bbufs, offset, length); */
+
+  if (JCL_alloc_vectors (env, vec_len, &buffers, &bi_list) < 0)
+    return -1;
   
   /* Build the vector of buffers to read into */
   for (i = 0; i < vec_len; i++)
@@ -608,42 +674,33 @@ Java_gnu_java_nio_VMChannel_readScattering (JNIEnv *env,
       result = cpnio_readv (fd, buffers, vec_len);
       tmp_errno = errno;
     }
-  while (result == -1 && errno == EINTR && ! JCL_thread_interrupted(env));
-  errno = tmp_errno;
+  while (result == -1 && tmp_errno == EINTR && ! JCL_thread_interrupted(env));
   bytes_read = (jlong) result;
   
-  /* Handle the response */
+  /* Handle the response.  The JNI calls below may change errno, so
+     only tmp_errno is tested. */
   if (result < 0)
     {
-      if (errno == EAGAIN)
+      bytes_read = 0;
+      if (tmp_errno == EAGAIN && is_non_blocking_fd(fd))
         {
-          if (is_non_blocking_fd(fd))
-            {
-              /* Non-blocking */
-              result = 0;
-            }
-          else
-            {
-              /* Read timeout on a socket with SO_RCVTIMEO != 0. */
-              JCL_cleanup_buffers(env, bi_list, vec_len, bbufs, offset, bytes_read);
-              JCL_ThrowException(env, SOCKET_TIMEOUT_EXCEPTION, "read timed out");
-              return -1;
-            }
+          /* Non-blocking */
+          result = 0;
         }
-      else if (errno == EBADF) /* Bad fd */
-        {
-          JCL_cleanup_buffers(env, bi_list, vec_len, bbufs, offset, bytes_read);
-          JCL_ThrowException (env, NON_READABLE_CHANNEL_EXCEPTION, 
-                              strerror(errno));
-          return -1;
-        } 
       else
         {
           JCL_cleanup_buffers(env, bi_list, vec_len, bbufs, offset, bytes_read);
-          JCL_ThrowException (env, IO_EXCEPTION, strerror(errno));
+          if (tmp_errno == EAGAIN)
+            /* Read timeout on a socket with SO_RCVTIMEO != 0. */
+            JCL_ThrowException(env, SOCKET_TIMEOUT_EXCEPTION, "read timed out");
+          else if (tmp_errno == EBADF) /* Bad fd */
+            JCL_ThrowException (env, NON_READABLE_CHANNEL_EXCEPTION, 
+                                strerror(tmp_errno));
+          else
+            JCL_ThrowException (env, IO_EXCEPTION, strerror(tmp_errno));
+          JCL_free_vectors (vec_len, buffers, bi_list);
           return -1;
         }
-      bytes_read = 0;
     }
   else if (result == 0) /* EOF */
     {
@@ -651,6 +708,7 @@ Java_gnu_java_nio_VMChannel_readScattering (JNIEnv *env,
     }
     
   JCL_cleanup_buffers(env, bi_list, vec_len, bbufs, offset, bytes_read);
+  JCL_free_vectors (vec_len, buffers, bi_list);
                   
   return (jlong) result;
 }
@@ -658,12 +716,11 @@ Java_gnu_java_nio_VMChannel_readScattering (JNIEnv *env,
 
 /*
  * Implementation of a gathering write.  Will use the appropriate
- * vector based read call (currently readv on Linux).
+ * vector based write call (currently writev on Linux).
  * 
- * This has a limit to the number of buffers that will be read.  It
- * will not make muliple readv calls.  This is to ensure that operations 
- * are atomic.  Currently it is limited to 16 buffers.  This is for 
- * compatibiliy with Sun.
+ * This has a limit to the number of buffers that will be written.  It
+ * will not make muliple writev calls.  This is to ensure that operations 
+ * are atomic.  Currently it is limited to JCL_IOV_MAX buffers.
  */
 JNIEXPORT jlong JNICALL 
 Java_gnu_java_nio_VMChannel_writeGathering (JNIEnv *env, 
@@ -674,10 +731,10 @@ Java_gnu_java_nio_VMChannel_writeGathering (JNIEnv *env,
 	jint length)
 {
   int i;
-/*   jboolean is_error = JNI_FALSE; */
-/*   char *error_msg; */
-  struct iovec buffers[JCL_IOV_MAX];
-  struct JCL_buffer bi_list[JCL_IOV_MAX];
+  struct iovec stack_buffers[JCL_IOV_STACK];
+  struct JCL_buffer stack_bi_list[JCL_IOV_STACK];
+  struct iovec *buffers = stack_buffers;
+  struct JCL_buffer *bi_list = stack_bi_list;
   ssize_t result;
   jint vec_len = length < JCL_IOV_MAX ? length : JCL_IOV_MAX;
   jlong bytes_written;
@@ -685,8 +742,11 @@ Java_gnu_java_nio_VMChannel_writeGathering (JNIEnv *env,
   
 /*   NIODBG("fd: %d; bbufs: %p; offset: %d; length: %d", */
 /*          fd, bbufs, offset, length); */
+
+  if (JCL_alloc_vectors (env, vec_len, &buffers, &bi_list) < 0)
+    return -1;
   
-  /* Build the vector of buffers to read into */
+  /* Build the vector of buffers to write from */
   for (i = 0; i < vec_len; i++)
     {
       struct JCL_buffer* buf;
@@ -711,35 +771,34 @@ Java_gnu_java_nio_VMChannel_writeGathering (JNIEnv *env,
       tmp_errno = errno;
     }
   while (result == -1 && tmp_errno == EINTR && ! JCL_thread_interrupted(env));
-  errno = tmp_errno;
 
   bytes_written = (jlong) result;
 
+  /* The JNI calls below may change errno, so only tmp_errno is
+     tested. */
   if (result < 0)
     {
       bytes_written = 0;
-      if (errno == EAGAIN) /* Non blocking */
+      if (tmp_errno == EAGAIN) /* Non blocking */
         result = 0;
-      else if (errno == EBADF) /* Bad fd */
-        {
-          JCL_cleanup_buffers(env, bi_list, vec_len, bbufs, offset, 
-                              bytes_written);
-          JCL_ThrowException (env, NON_WRITABLE_CHANNEL_EXCEPTION, 
-                              strerror(errno));
-          return -1;
-        } 
       else
         {
           JCL_cleanup_buffers(env, bi_list, vec_len, bbufs, offset,
                               bytes_written);
-          JCL_ThrowException (env, IO_EXCEPTION, strerror(errno));
+          if (tmp_errno == EBADF) /* Bad fd */
+            JCL_ThrowException (env, NON_WRITABLE_CHANNEL_EXCEPTION, 
+                                strerror(tmp_errno));
+          else
+            JCL_ThrowException (env, IO_EXCEPTION, strerror(tmp_errno));
+          JCL_free_vectors (vec_len, buffers, bi_list);
           return -1;
         }
     }
   else if (result == 0) /* EOF??  Does this happen on a write */
     result = -1;
     
-  JCL_cleanup_buffers(env, bi_list, vec_len, bbufs, offset, bytes_written);    
+  JCL_cleanup_buffers(env, bi_list, vec_len, bbufs, offset, bytes_written);
+  JCL_free_vectors (vec_len, buffers, bi_list);
   return (jlong) result;
 }
 
@@ -2030,6 +2089,226 @@ Java_gnu_java_nio_VMChannel_flush (JNIEnv *env,
 }
 
 
+#if (defined(HAVE_SYS_SENDFILE_H) && defined(HAVE_SENDFILE)) \
+    || defined(HAVE_SPLICE) || defined(HAVE_COPY_FILE_RANGE)
+/*
+ * Tell whether the socket FD has the timeout OPTNAME (SO_RCVTIMEO or
+ * SO_SNDTIMEO) set.  Returns 0 if it has none or is not a socket.
+ */
+static int
+has_socket_timeout (int fd, int optname)
+{
+  struct timeval tv;
+  socklen_t len = sizeof (tv);
+
+  if (getsockopt (fd, SOL_SOCKET, optname, &tv, &len) == -1)
+    return 0;
+  return tv.tv_sec != 0 || tv.tv_usec != 0;
+}
+
+/*
+ * Handle a failed zero-copy transfer.  Returns 0 if the descriptor
+ * WAIT_FD is not ready and has no timeout OPTNAME set, -1 if the
+ * transfer is not supported between these descriptors, and otherwise
+ * throws an exception and returns -1.  A descriptor that is not ready
+ * only throws SocketTimeoutException if it is a blocking socket with
+ * a timeout set.
+ */
+static jlong
+JCL_transfer_error (JNIEnv *env, int wait_fd, int optname)
+{
+  if (errno == EAGAIN)
+    {
+      if (is_non_blocking_fd (wait_fd)
+          || ! has_socket_timeout (wait_fd, optname))
+        return 0;
+      JCL_ThrowException (env, SOCKET_TIMEOUT_EXCEPTION,
+                          "transfer timed out");
+      return -1;
+    }
+  if (JCL_TRANSFER_UNSUPPORTED (errno))
+    return -1;
+  if (errno == EINTR)
+    JCL_ThrowException (env, INTERRUPTED_IO_EXCEPTION, strerror (errno));
+  else
+    JCL_ThrowException (env, IO_EXCEPTION, strerror (errno));
+  return -1;
+}
+#endif
+
+/*
+ * Class:     gnu_java_nio_VMChannel
+ * Method:    transferTo
+ * Signature: (IJJI)J
+ *
+ * Copies up to COUNT bytes, starting at POSITION in the file FD, to
+ * the current position of TARGET_FD without passing the data through
+ * user space.  The file position of FD is not changed.  Returns the
+ * number of bytes moved, zero at end of file or when a non-blocking
+ * target is not ready, or -1 if the kernel can't do the transfer (the
+ * caller then copies the data itself).
+ */
+JNIEXPORT jlong JNICALL
+Java_gnu_java_nio_VMChannel_transferTo (JNIEnv *env,
+                                        jclass c __attribute__((unused)),
+                                        jint fd, jlong position,
+                                        jlong count, jint target_fd)
+{
+#if (defined(HAVE_SYS_SENDFILE_H) && defined(HAVE_SENDFILE)) \
+    || defined(HAVE_SPLICE) || defined(HAVE_COPY_FILE_RANGE)
+  struct stat st;
+  off_t offset;
+  size_t len;
+  ssize_t result;
+  int tmp_errno;
+
+  len = (size_t) (count > JCL_TRANSFER_MAX ? JCL_TRANSFER_MAX : count);
+
+  if (fstat (target_fd, &st) == -1)
+    {
+      JCL_ThrowException (env, IO_EXCEPTION, strerror (errno));
+      return -1;
+    }
+
+#ifdef HAVE_COPY_FILE_RANGE
+  if (S_ISREG (st.st_mode))
+    {
+      offset = (off_t) position;
+      do
+        {
+          result = copy_file_range (fd, &offset, target_fd, NULL, len, 0);
+          tmp_errno = errno;
+        }
+      while (result == -1 && errno == EINTR && ! JCL_thread_interrupted(env));
+      errno = tmp_errno;
+      if (result != -1)
+        return (jlong) result;
+      if (! JCL_TRANSFER_UNSUPPORTED (errno))
+        return JCL_transfer_error (env, target_fd, SO_SNDTIMEO);
+    }
+#endif /* HAVE_COPY_FILE_RANGE */
+
+#ifdef HAVE_SPLICE
+  if (S_ISFIFO (st.st_mode))
+    {
+      offset = (off_t) position;
+      do
+        {
+          result = splice (fd, &offset, target_fd, NULL, len, SPLICE_F_MOVE);
+          tmp_errno = errno;
+        }
+      while (result == -1 && errno == EINTR && ! JCL_thread_interrupted(env));
+      errno = tmp_errno;
+      if (result != -1)
+        return (jlong) result;
+      if (! JCL_TRANSFER_UNSUPPORTED (errno))
+        return JCL_transfer_error (env, target_fd, SO_SNDTIMEO);
+    }
+#endif /* HAVE_SPLICE */
+
+#if defined(HAVE_SYS_SENDFILE_H) && defined(HAVE_SENDFILE)
+  offset = (off_t) position;
+  do
+    {
+      result = sendfile (target_fd, fd, &offset, len);
+      tmp_errno = errno;
+    }
+  while (result == -1 && errno == EINTR && ! JCL_thread_interrupted(env));
+  errno = tmp_errno;
+  if (result != -1)
+    return (jlong) result;
+  return JCL_transfer_error (env, target_fd, SO_SNDTIMEO);
+#else
+  return -1;
+#endif /* HAVE_SYS_SENDFILE_H && HAVE_SENDFILE */
+#else
+  (void) env;
+  (void) fd;
+  (void) position;
+  (void) count;
+  (void) target_fd;
+  return -1;
+#endif
+}
+
+/*
+ * Class:     gnu_java_nio_VMChannel
+ * Method:    transferFrom
+ * Signature: (IIJJ)J
+ *
+ * Copies up to COUNT bytes from the current position of SRC_FD into
+ * the file FD, starting at POSITION, without passing the data through
+ * user space.  The file position of FD is not changed.  Returns the
+ * number of bytes moved, zero at end of stream or when a non-blocking
+ * source is not ready, or -1 if the kernel can't do the transfer.
+ */
+JNIEXPORT jlong JNICALL
+Java_gnu_java_nio_VMChannel_transferFrom (JNIEnv *env,
+                                          jclass c __attribute__((unused)),
+                                          jint src_fd, jint fd,
+                                          jlong position, jlong count)
+{
+#if defined(HAVE_SPLICE) || defined(HAVE_COPY_FILE_RANGE)
+  struct stat st;
+  off_t offset;
+  size_t len;
+  ssize_t result;
+  int tmp_errno;
+
+  len = (size_t) (count > JCL_TRANSFER_MAX ? JCL_TRANSFER_MAX : count);
+
+  if (fstat (src_fd, &st) == -1)
+    {
+      JCL_ThrowException (env, IO_EXCEPTION, strerror (errno));
+      return -1;
+    }
+
+#ifdef HAVE_COPY_FILE_RANGE
+  if (S_ISREG (st.st_mode))
+    {
+      offset = (off_t) position;
+      do
+        {
+          result = copy_file_range (src_fd, NULL, fd, &offset, len, 0);
+          tmp_errno = errno;
+        }
+      while (result == -1 && errno == EINTR && ! JCL_thread_interrupted(env));
+      errno = tmp_errno;
+      if (result != -1)
+        return (jlong) result;
+      return JCL_transfer_error (env, src_fd, SO_RCVTIMEO);
+    }
+#endif /* HAVE_COPY_FILE_RANGE */
+
+#ifdef HAVE_SPLICE
+  if (S_ISFIFO (st.st_mode))
+    {
+      offset = (off_t) position;
+      do
+        {
+          result = splice (src_fd, NULL, fd, &offset, len, SPLICE_F_MOVE);
+          tmp_errno = errno;
+        }
+      while (result == -1 && errno == EINTR && ! JCL_thread_interrupted(env));
+      errno = tmp_errno;
+      if (result != -1)
+        return (jlong) result;
+      return JCL_transfer_error (env, src_fd, SO_RCVTIMEO);
+    }
+#endif /* HAVE_SPLICE */
+
+  /* Sockets and anything else: let the caller copy the data. */
+  return -1;
+#else
+  (void) env;
+  (void) src_fd;
+  (void) fd;
+  (void) position;
+  (void) count;
+  return -1;
+#endif
+}
+
 #ifdef __cplusplus
 }
 #endif
@@ -0,0 +1,432 @@
+/* gnu_java_util_zip_ZStream.c -- Native deflate streams over zlib
+   Copyright (C) 2026  Free Software Foundation, Inc.
+
+This file is a part of GNU Classpath.
+
+GNU Classpath is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; either version 2 of the License, or (at
+your option) any later version.
+
+GNU Classpath is distributed in the hope that it will be useful, but
+WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with GNU Classpath; if not, write to the Free Software
+Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301
+USA
+
+Linking this library statically or dynamically with other modules is
+making a combined work based on this library.  Thus, the terms and
+conditions of the GNU General Public License cover the whole
+combination.
+
+As a special exception, the copyright holders of this library give you
+permission to link this library with independent modules to produce an
+executable, regardless of the license terms of these independent
+modules, and to copy and distribute the resulting executable under
+terms of your choice, provided that you also meet, for each linked
+independent module, the terms and conditions of the license of that
+module.  An independent module is a module which is not derived from
+or based on this library.  If you modify this library, you may extend
+this exception to your version of the library, but you are not
+obligated to do so.  If you do not wish to do so, delete this
+exception statement from your version.  */
+
+#include <stdlib.h>
+#include <string.h>
+
+#ifdef HAVE_CONFIG_H
+#include "config.h"
+#endif /* HAVE_CONFIG_H */
+
+#include "gnu_java_util_zip_ZStream.h"
+#include <jcl.h>
+
+#if defined(HAVE_ZLIB_H)
+#include <zlib.h>
+#endif /* defined(HAVE_ZLIB_H) */
+
+#if defined(WITH_ZLIB)
+#else
+#warning zlib not available or wanted!
+#warning Invocation of natXXX() methods will raise an exception
+#endif
+
+/*
+ * This is the implementation of the native gnu.java.util.zip.ZStream
+ * methods, which use zlib.
+ *
+ * Each ZStream owns a z_stream, allocated by natInitialize and pointed to
+ * by the gnu.classpath.Pointer stored in its "native_ptr" field.  The Java
+ * side keeps track of the input array; every deflate or inflate call passes
+ * the input and output ranges in, and stores the number of input bytes
+ * consumed and the resulting stream flags in the "consumed" and "flags"
+ * fields.  Both arrays are only held (as critical regions) for the duration
+ * of the zlib call.
+ */
+
+/* Keep in sync with ZStream.java. */
+#define ZSTREAM_FINISHED          1
+#define ZSTREAM_NEEDS_DICTIONARY  2
+#define ZSTREAM_PARAMS_SET        4
+
+#define throw_config_exception(env) JCL_ThrowException (env, "java/lang/Error", "zlib was not specified/found by configure")
+
+#if defined(WITH_ZLIB)
+
+static jfieldID native_ptr;
+static jfieldID deflate_id;
+static jfieldID consumed_id;
+static jfieldID flags_id;
+
+static z_stream *
+get_stream (JNIEnv *env, jobject this)
+{
+  return (z_stream *) JCL_GetRawData (env, (*env)->GetObjectField (env, this,
+                                                                   native_ptr));
+}
+
+static void
+throw_zlib_exception (JNIEnv *env, z_stream *strm, int ret)
+{
+  if (ret == Z_MEM_ERROR)
+    JCL_ThrowException (env, "java/lang/OutOfMemoryError",
+                        "zlib out of memory");
+  else
+    JCL_ThrowException (env, "java/lang/InternalError",
+                        strm->msg != NULL ? strm->msg : "zlib stream error");
+}
+
+/*
+ * Points the stream at the input and output ranges, pinning both arrays.
+ * Returns 0, with an exception pending, if the arrays cannot be pinned.
+ */
+static int
+begin_call (JNIEnv *env, z_stream *strm, jbyteArray in, jint inOff,
+            jint inLen, jbyteArray out, jint outOff, jint outLen,
+            jbyte **in_elems, jbyte **out_elems)
+{
+  *in_elems = NULL;
+  *out_elems = (*env)->GetPrimitiveArrayCritical (env, out, NULL);
+  if (*out_elems == NULL)
+    return 0;
+  if (inLen > 0)
+    {
+      *in_elems = (*env)->GetPrimitiveArrayCritical (env, in, NULL);
+      if (*in_elems == NULL)
+        {
+          (*env)->ReleasePrimitiveArrayCritical (env, out, *out_elems, 0);
+          return 0;
+        }
+    }
+  strm->next_in = (Bytef *) (*in_elems != NULL ? *in_elems + inOff : NULL);
+  strm->avail_in = inLen;
+  strm->next_out = (Bytef *) (*out_elems + outOff);
+  strm->avail_out = outLen;
+  return 1;
+}
+
+/*
+ * Releases the arrays pinned by begin_call, records how much input was
+ * consumed and returns the number of bytes produced.
+ */
+static jint
+end_call (JNIEnv *env, jobject this, z_stream *strm, jbyteArray in,
+          jint inLen, jbyteArray out, jint outLen, jbyte *in_elems,
+          jbyte *out_elems, jint flags)
+{
+  if (in_elems != NULL)
+    (*env)->ReleasePrimitiveArrayCritical (env, in, in_elems, JNI_ABORT);
+  (*env)->ReleasePrimitiveArrayCritical (env, out, out_elems, 0);
+  (*env)->SetIntField (env, this, consumed_id, inLen - strm->avail_in);
+  (*env)->SetIntField (env, this, flags_id, flags);
+  return outLen - strm->avail_out;
+}
+
+#endif /* defined(WITH_ZLIB) */
+
+/*
+ * Initialize the native library: look up and cache the ids of the fields
+ * the native methods use.
+ */
+JNIEXPORT void JNICALL
+Java_gnu_java_util_zip_ZStream_natInitializeLibrary (JNIEnv *env,
+                                                     jclass clazz)
+{
+#if defined(WITH_ZLIB)
+  native_ptr = (*env)->GetFieldID (env, clazz, "native_ptr",
+                                   "Lgnu/classpath/Pointer;");
+  if (native_ptr == NULL)
+    return;
+  deflate_id = (*env)->GetFieldID (env, clazz, "deflate", "Z");
+  if (deflate_id == NULL)
+    return;
+  consumed_id = (*env)->GetFieldID (env, clazz, "consumed", "I");
+  if (consumed_id == NULL)
+    return;
+  flags_id = (*env)->GetFieldID (env, clazz, "flags", "I");
+#else /* !defined(WITH_ZLIB) */
+  (void) clazz;
+  throw_config_exception(env);
+#endif /* defined(WITH_ZLIB) */
+}
+
+/*
+ * Allocate and initialize the z_stream for a ZStream.
+ */
+JNIEXPORT void JNICALL
+Java_gnu_java_util_zip_ZStream_natInitialize (JNIEnv *env, jobject this,
+                                              jboolean deflate, jint level,
+                                              jint strategy, jboolean nowrap)
+{
+#if defined(WITH_ZLIB)
+  z_stream *strm;
+  int wbits = nowrap ? -MAX_WBITS : MAX_WBITS;
+  int ret;
+
+  strm = (z_stream *) JCL_malloc (env, sizeof (z_stream));
+  if (strm == NULL)
+    return;
+  memset (strm, 0, sizeof (z_stream));
+
+  if (deflate)
+    ret = deflateInit2 (strm, level, Z_DEFLATED, wbits, 8, strategy);
+  else
+    ret = inflateInit2 (strm, wbits);
+  if (ret != Z_OK)
+    {
+      throw_zlib_exception (env, strm, ret);
+      JCL_free (env, strm);
+      return;
+    }
+
+  (*env)->SetObjectField (env, this, native_ptr,
+                          JCL_NewRawDataObject (env, strm));
+#else /* !defined(WITH_ZLIB) */
+  (void) this;
+  (void) deflate;
+  (void) level;
+  (void) strategy;
+  (void) nowrap;
+  throw_config_exception(env);
+#endif /* defined(WITH_ZLIB) */
+}
+
+/*
+ * Release the z_stream of a ZStream.
+ */
+JNIEXPORT void JNICALL
+Java_gnu_java_util_zip_ZStream_natEnd (JNIEnv *env, jobject this)
+{
+#if defined(WITH_ZLIB)
+  z_stream *strm = get_stream (env, this);
+
+  if ((*env)->GetBooleanField (env, this, deflate_id))
+    deflateEnd (strm);
+  else
+    inflateEnd (strm);
+  JCL_free (env, strm);
+#else /* !defined(WITH_ZLIB) */
+  (void) this;
+  throw_config_exception(env);
+#endif /* defined(WITH_ZLIB) */
+}
+
+JNIEXPORT void JNICALL
+Java_gnu_java_util_zip_ZStream_natReset (JNIEnv *env, jobject this)
+{
+#if defined(WITH_ZLIB)
+  z_stream *strm = get_stream (env, this);
+  int ret;
+
+  if ((*env)->GetBooleanField (env, this, deflate_id))
+    ret = deflateReset (strm);
+  else
+    ret = inflateReset (strm);
+  if (ret != Z_OK)
+    throw_zlib_exception (env, strm, ret);
+#else /* !defined(WITH_ZLIB) */
+  (void) this;
+  throw_config_exception(env);
+#endif /* defined(WITH_ZLIB) */
+}
+
+JNIEXPORT jint JNICALL
+Java_gnu_java_util_zip_ZStream_natGetAdler (JNIEnv *env, jobject this)
+{
+#if defined(WITH_ZLIB)
+  return (jint) get_stream (env, this)->adler;
+#else /* !defined(WITH_ZLIB) */
+  (void) this;
+  throw_config_exception(env);
+  return 0;
+#endif /* defined(WITH_ZLIB) */
+}
+
+JNIEXPORT void JNICALL
+Java_gnu_java_util_zip_ZStream_natSetDictionary (JNIEnv *env, jobject this,
+                                                 jbyteArray buf, jint off,
+                                                 jint len)
+{
+#if defined(WITH_ZLIB)
+  z_stream *strm = get_stream (env, this);
+  jbyte *elems;
+  int ret;
+
+  elems = (*env)->GetPrimitiveArrayCritical (env, buf, NULL);
+  if (elems == NULL)
+    return;
+  if ((*env)->GetBooleanField (env, this, deflate_id))
+    ret = deflateSetDictionary (strm, (Bytef *) (elems + off), len);
+  else
+    ret = inflateSetDictionary (strm, (Bytef *) (elems + off), len);
+  (*env)->ReleasePrimitiveArrayCritical (env, buf, elems, JNI_ABORT);
+
+  switch (ret)
+    {
+    case Z_OK:
+      break;
+    case Z_DATA_ERROR:
+      JCL_ThrowException (env, "java/lang/IllegalArgumentException",
+                          "Wrong adler checksum");
+      break;
+    case Z_STREAM_ERROR:
+      JCL_ThrowException (env, "java/lang/IllegalStateException",
+                          "dictionary not expected");
+      break;
+    default:
+      throw_zlib_exception (env, strm, ret);
+      break;
+    }
+#else /* !defined(WITH_ZLIB) */
+  (void) this;
+  (void) buf;
+  (void) off;
+  (void) len;
+  throw_config_exception(env);
+#endif /* defined(WITH_ZLIB) */
+}
+
+/*
+ * Compress from in into out.  When setParams is true, change the level and
+ * strategy instead, which compresses the pending input with the old
+ * parameters first.
+ *
+ * @return the number of bytes written to out.
+ */
+JNIEXPORT jint JNICALL
+Java_gnu_java_util_zip_ZStream_natDeflate (JNIEnv *env, jobject this,
+                                           jbyteArray in, jint inOff,
+                                           jint inLen, jbyteArray out,
+                                           jint outOff, jint outLen,
+                                           jint flush, jint level,
+                                           jint strategy, jboolean setParams)
+{
+#if defined(WITH_ZLIB)
+  z_stream *strm = get_stream (env, this);
+  jbyte *in_elems, *out_elems;
+  jint flags = 0;
+  int ret;
+
+  if (!begin_call (env, strm, in, inOff, inLen, out, outOff, outLen,
+                   &in_elems, &out_elems))
+    return 0;
+
+  if (setParams)
+    {
+      ret = deflateParams (strm, level, strategy);
+      if (ret == Z_OK)
+        flags = ZSTREAM_PARAMS_SET;
+    }
+  else
+    {
+      ret = deflate (strm, flush);
+      if (ret == Z_STREAM_END)
+        flags = ZSTREAM_FINISHED;
+    }
+
+  outLen = end_call (env, this, strm, in, inLen, out, outLen, in_elems,
+                     out_elems, flags);
+
+  /* Z_BUF_ERROR only means that no progress was possible. */
+  if (ret != Z_OK && ret != Z_STREAM_END && ret != Z_BUF_ERROR)
+    throw_zlib_exception (env, strm, ret);
+  return outLen;
+#else /* !defined(WITH_ZLIB) */
+  (void) this;
+  (void) in;
+  (void) inOff;
+  (void) inLen;
+  (void) out;
+  (void) outOff;
+  (void) outLen;
+  (void) flush;
+  (void) level;
+  (void) strategy;
+  (void) setParams;
+  throw_config_exception(env);
+  return 0;
+#endif /* defined(WITH_ZLIB) */
+}
+
+/*
+ * Decompress from in into out.
+ *
+ * @return the number of bytes written to out.
+ */
+JNIEXPORT jint JNICALL
+Java_gnu_java_util_zip_ZStream_natInflate (JNIEnv *env, jobject this,
+                                           jbyteArray in, jint inOff,
+                                           jint inLen, jbyteArray out,
+                                           jint outOff, jint outLen)
+{
+#if defined(WITH_ZLIB)
+  z_stream *strm = get_stream (env, this);
+  jbyte *in_elems, *out_elems;
+  jint flags = 0;
+  int ret;
+
+  if (!begin_call (env, strm, in, inOff, inLen, out, outOff, outLen,
+                   &in_elems, &out_elems))
+    return 0;
+
+  ret = inflate (strm, Z_PARTIAL_FLUSH);
+  if (ret == Z_STREAM_END)
+    flags = ZSTREAM_FINISHED;
+  else if (ret == Z_NEED_DICT)
+    flags = ZSTREAM_NEEDS_DICTIONARY;
+
+  outLen = end_call (env, this, strm, in, inLen, out, outLen, in_elems,
+                     out_elems, flags);
+
+  switch (ret)
+    {
+    case Z_OK:
+    case Z_STREAM_END:
+    case Z_NEED_DICT:
+    case Z_BUF_ERROR:
+      break;
+    case Z_DATA_ERROR:
+      JCL_ThrowException (env, "java/util/zip/DataFormatException",
+                          strm->msg != NULL ? strm->msg : "invalid data");
+      break;
+    default:
+      throw_zlib_exception (env, strm, ret);
+      break;
+    }
+  return outLen;
+#else /* !defined(WITH_ZLIB) */
+  (void) this;
+  (void) in;
+  (void) inOff;
+  (void) inLen;
+  (void) out;
+  (void) outOff;
+  (void) outLen;
+  throw_config_exception(env);
+  return 0;
+#endif /* defined(WITH_ZLIB) */
+}
@@ -0,0 +1,46 @@
+/*
+ * A single write of more than the largest pooled direct buffer
+ * must still write every byte.
+ */
+
+import java.io.*;
+
+public class LargeWriteTest
+{
+  public static void main(String args[])
+    {
+      try {
+	File f = File.createTempFile("LargeWriteTest", null);
+	try {
+	  byte[] buf = new byte[600 * 1024 + 17];
+	  for (int i = 0; i < buf.length; i++)
+	    buf[i] = (byte) (i * 31);
+
+	  FileOutputStream out = new FileOutputStream(f);
+	  out.write(buf, 0, buf.length);
+	  out.close();
+
+	  if (f.length() != buf.length)
+	    throw new Exception("Wrote " + f.length() + " of "
+				+ buf.length + " bytes");
+
+	  byte[] back = new byte[buf.length];
+	  DataInputStream in = new DataInputStream(new FileInputStream(f));
+	  in.readFully(back);
+	  boolean eof = in.read() == -1;
+	  in.close();
+	  if (!eof)
+	    throw new Exception("File longer than written");
+	  for (int i = 0; i < buf.length; i++)
+	    if (back[i] != buf[i])
+	      throw new Exception("Byte " + i + " differs");
+	} finally {
+	  f.delete();
+	}
+
+	System.out.println("PASSED: Large write");
+      } catch (Exception e) {
+	System.out.println("FAILED: " + e);
+      }
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * FileChannel.transferTo and transferFrom must move every byte between
+ * files and to a connected socket, and refuse an unconnected datagram
+ * channel.
+ */
+
+import java.io.*;
+import java.net.*;
+import java.nio.*;
+import java.nio.channels.*;
+
+public class TransferTest
+{
+  static final int SIZE = 1024 * 1024 + 4099;
+
+  public static void main(String args[])
+    {
+      File a = null, b = null;
+      try {
+	a = File.createTempFile("TransferTest", null);
+	b = File.createTempFile("TransferTest", null);
+	byte[] data = new byte[SIZE];
+	for (int i = 0; i < data.length; i++)
+	  data[i] = (byte) (i * 7 + (i >> 11));
+	FileOutputStream out = new FileOutputStream(a);
+	out.write(data);
+	out.close();
+
+	// File to file, from an offset.
+	FileChannel src = new FileInputStream(a).getChannel();
+	FileChannel dst = new FileOutputStream(b).getChannel();
+	long n = src.transferTo(17, SIZE, dst);
+	dst.close();
+	check("transferTo file", n, SIZE - 17, b, data, 17);
+
+	// File from file, into an offset.
+	src.position(0);
+	dst = new RandomAccessFile(b, "rw").getChannel();
+	dst.truncate(0);
+	dst.write(ByteBuffer.allocate(5));
+	n = dst.transferFrom(src, 5, SIZE);
+	dst.close();
+	if (src.position() != SIZE)
+	  throw new Exception("source position " + src.position());
+	check("transferFrom file", n, SIZE, b, data, -5);
+
+	// File to a connected socket.
+	ServerSocketChannel server = ServerSocketChannel.open();
+	server.socket().bind(new InetSocketAddress(InetAddress.getByName(null), 0));
+	SocketChannel client = SocketChannel.open(server.socket().getLocalSocketAddress());
+	final SocketChannel peer = server.accept();
+	final int[] received = new int[1];
+	Thread reader = new Thread() {
+	    public void run() {
+	      try {
+		ByteBuffer buf = ByteBuffer.allocate(65536);
+		int r;
+		while ((r = peer.read(buf)) >= 0)
+		  {
+		    received[0] += r;
+		    buf.clear();
+		  }
+	      } catch (IOException e) {
+		received[0] = -1;
+	      }
+	    }
+	  };
+	reader.start();
+	long sent = 0;
+	while (sent < SIZE)
+	  sent += src.transferTo(sent, SIZE - sent, client);
+	client.close();
+	reader.join();
+	peer.close();
+	server.close();
+	if (received[0] != SIZE)
+	  throw new Exception("socket received " + received[0]);
+
+	// An unconnected datagram channel.
+	DatagramChannel dc = DatagramChannel.open();
+	try {
+	  src.transferTo(0, 10, dc);
+	  throw new Exception("transferTo an unconnected DatagramChannel");
+	} catch (NotYetConnectedException expected) {
+	}
+	dc.close();
+	src.close();
+
+	System.out.println("PASSED: FileChannel transfers");
+      } catch (Exception e) {
+	System.out.println("FAILED: " + e);
+      } finally {
+	if (a != null)
+	  a.delete();
+	if (b != null)
+	  b.delete();
+      }
+    }
+
+  /*
+   * Check that F holds DATA shifted by SHIFT: from index SHIFT of DATA
+   * if it is positive, or after -SHIFT zero bytes otherwise.
+   */
+  static void check(String what, long n, long expected, File f,
+		    byte[] data, int shift)
+    throws Exception
+    {
+      if (n != expected)
+	throw new Exception(what + " moved " + n + " of " + expected);
+      byte[] back = new byte[(int) f.length()];
+      DataInputStream in = new DataInputStream(new FileInputStream(f));
+      in.readFully(back);
+      in.close();
+      int skip = shift < 0 ? -shift : 0;
+      if (back.length != skip + expected)
+	throw new Exception(what + ": file has " + back.length + " bytes");
+      for (int i = 0; i < skip; i++)
+	if (back[i] != 0)
+	  throw new Exception(what + ": byte " + i + " not zero");
+      int from = shift > 0 ? shift : 0;
+      for (int i = 0; i < expected; i++)
+	if (back[skip + i] != data[from + i])
+	  throw new Exception(what + ": byte " + (skip + i) + " differs");
+    }
+}
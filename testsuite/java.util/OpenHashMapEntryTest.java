@@ -0,0 +1,54 @@
+/*
+ * Entries of an OpenHashMap must stay usable after the map changes,
+ * as those of HashMap do; only iterators are fail-fast.
+ */
+
+import java.util.*;
+
+import gnu.java.util.OpenHashMap;
+
+public class OpenHashMapEntryTest
+{
+  public static void main(String args[])
+    {
+      try {
+	Map<Integer,String> m = new OpenHashMap<Integer,String>();
+	for (int i = 0; i < 100; i++)
+	  m.put(Integer.valueOf(i), "v" + i);
+
+	// After Iterator.remove, the entry keeps its value.
+	Iterator<Map.Entry<Integer,String>> it = m.entrySet().iterator();
+	Map.Entry<Integer,String> gone = it.next();
+	it.remove();
+	if (! ("v" + gone.getKey()).equals(gone.getValue()))
+	  throw new Exception("removed entry lost its value: " + gone);
+	if (m.containsKey(gone.getKey()))
+	  throw new Exception("entry not removed");
+
+	// After a put, which may shift or rehash, entries still work.
+	List<Map.Entry<Integer,String>> kept
+	  = new ArrayList<Map.Entry<Integer,String>>();
+	while (it.hasNext())
+	  kept.add(it.next());
+	for (int i = 100; i < 1000; i++)
+	  m.put(Integer.valueOf(i), "v" + i);
+	for (Map.Entry<Integer,String> e : kept)
+	  {
+	    if (! ("v" + e.getKey()).equals(e.getValue()))
+	      throw new Exception("entry changed: " + e);
+	    e.setValue("w" + e.getKey());
+	    if (! ("w" + e.getKey()).equals(m.get(e.getKey())))
+	      throw new Exception("setValue not written through: " + e);
+	  }
+	Set<Map.Entry<Integer,String>> set
+	  = new HashSet<Map.Entry<Integer,String>>(kept);
+	m.remove(kept.get(0).getKey());
+	if (! set.contains(kept.get(0)))
+	  throw new Exception("entry hash code changed");
+
+	System.out.println("PASSED: OpenHashMap entries");
+      } catch (Exception e) {
+	System.out.println("FAILED: " + e);
+      }
+    }
+}
@@ -0,0 +1,33 @@
+/*
+ * ^ must only match where the match may start, even when it comes
+ * after characters that were already matched in the same attempt.
+ */
+
+import java.util.regex.*;
+
+public class RegexAnchorTest
+{
+  public static void main(String args[])
+    {
+      check("a^", "aa", false, false);
+      check("[a-c](?:^a?[^ab]+?){2}|[a-c]", "cAxxAc", true, false);
+      check("^a", "aa", true, false);
+      check("(?m)a\n^a", "a\na", true, true);
+    }
+
+  static void check(String regex, String input,
+                    boolean lookingAt, boolean matches)
+    {
+      try {
+	boolean l = Pattern.compile(regex).matcher(input).lookingAt();
+	boolean m = Pattern.compile(regex).matcher(input).matches();
+	if (l == lookingAt && m == matches)
+	  System.out.println("PASSED: " + regex);
+	else
+	  System.out.println("FAILED: " + regex + " on " + input
+			     + ": lookingAt=" + l + " matches=" + m);
+      } catch (Exception e) {
+	System.out.println("FAILED: " + regex + ": " + e);
+      }
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * A Scanner reading from a Reader must throw InputMismatchException or
+ * NoSuchElementException, never return null or fail otherwise, once
+ * the tokens run out.
+ */
+
+import java.io.*;
+import java.util.*;
+
+public class ScannerReaderTest
+{
+  public static void main(String args[])
+    {
+      String[] first = { "nextInt", "nextDouble", "nextBoolean",
+			 "nextBigInteger" };
+      for (int i = 0; i < first.length; i++)
+	{
+	  Scanner s = new Scanner(new StringReader("abc\n"));
+	  try {
+	    call(s, first[i]);
+	    System.out.println("FAILED: " + first[i] + " accepted abc");
+	    continue;
+	  } catch (InputMismatchException expected) {
+	  } catch (Exception e) {
+	    System.out.println("FAILED: " + first[i] + ": " + e);
+	    continue;
+	  }
+	  try {
+	    s.nextInt();
+	    System.out.println("FAILED: nextInt after " + first[i]);
+	  } catch (NoSuchElementException expected) {
+	    System.out.println("PASSED: nextInt after " + first[i]);
+	  } catch (Exception e) {
+	    System.out.println("FAILED: nextInt after " + first[i] + ": " + e);
+	  }
+	}
+
+      Scanner s = new Scanner(new StringReader("abc\n"));
+      try {
+	if (! s.hasNext() || ! "abc".equals(s.nextLine()))
+	  throw new Exception("first line not read");
+	String token = s.next();
+	System.out.println("FAILED: next returned " + token);
+      } catch (NoSuchElementException expected) {
+	System.out.println("PASSED: next after the last line");
+      } catch (Exception e) {
+	System.out.println("FAILED: next after the last line: " + e);
+      }
+    }
+
+  static void call(Scanner s, String method)
+    {
+      if (method.equals("nextInt"))
+	s.nextInt();
+      else if (method.equals("nextDouble"))
+	s.nextDouble();
+      else if (method.equals("nextBoolean"))
+	s.nextBoolean();
+      else
+	s.nextBigInteger();
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * A second authenticated encryption with the same Cipher must not
+ * reuse the nonce of the first one.
+ */
+
+import java.security.InvalidAlgorithmParameterException;
+import java.security.Provider;
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+import gnu.javax.crypto.jce.GnuCrypto;
+
+public class AEADNonceReuseTest
+{
+  public static void main(String args[])
+    {
+      try {
+	Provider p = new GnuCrypto();
+	SecretKeySpec key = new SecretKeySpec(new byte[16], "AES");
+	byte[] iv = new byte[12];
+	Cipher c = Cipher.getInstance("AES/GCM/NoPadding", p);
+
+	c.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(128, iv));
+	byte[] ct = c.doFinal(new byte[20]);
+	try {
+	  c.doFinal(new byte[20]);
+	  throw new Exception("second encryption without init");
+	} catch (IllegalStateException expected) {
+	}
+	try {
+	  c.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(128, iv));
+	  throw new Exception("init with the same key and nonce");
+	} catch (InvalidAlgorithmParameterException expected) {
+	}
+
+	iv[11] = 1;
+	c.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(128, iv));
+	c.doFinal(new byte[20]);
+
+	// Decryption may be repeated with the same parameters.
+	iv[11] = 0;
+	c.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(128, iv));
+	if (c.doFinal(ct).length != 20 || c.doFinal(ct).length != 20)
+	  throw new Exception("decryption failed");
+
+	System.out.println("PASSED: AEAD nonce reuse");
+      } catch (Exception e) {
+	System.out.println("FAILED: " + e);
+      }
+    }
+}
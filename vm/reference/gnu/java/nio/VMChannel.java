@@ -67,6 +67,12 @@ public final class VMChannel
 
   private Kind kind;
 
+  /**
+   * The largest number of buffers used by one scattering read or
+   * gathering write.
+   */
+  public static final int IOV_MAX = 1024;
+
   public VMChannel()
   {
     // XXX consider adding security check here, so only Classpath
@@ -148,15 +154,35 @@ public final class VMChannel
 
   /**
    * Reads a byte buffer directly using the supplied file descriptor.
+   * Non-direct buffers are read through a temporary direct buffer
+   * from the {@link DirectBufferPool}; one larger than
+   * {@link DirectBufferPool#MAX_CACHED_SIZE} gets an uncached buffer.
    *
-   * @param dst Direct Byte Buffer to read to.
+   * @param dst Byte Buffer to read to.
    * @return Number of bytes read.
-   * @throws IOException If an error occurs or dst is not a direct buffers.
+   * @throws IOException If an error occurs.
    */
   public int read(ByteBuffer dst)
     throws IOException
   {
-    return read(nfd.getNativeFD(), dst);
+    if (dst.isDirect() || !dst.hasRemaining())
+      return read(nfd.getNativeFD(), dst);
+
+    ByteBuffer tmp = DirectBufferPool.acquire(dst.remaining());
+    try
+      {
+        int n = read(nfd.getNativeFD(), tmp);
+        if (n > 0)
+          {
+            tmp.flip();
+            dst.put(tmp);
+          }
+        return n;
+      }
+    finally
+      {
+        DirectBufferPool.release(tmp);
+      }
   }
 
   private static native int read(int fd, ByteBuffer dst) throws IOException;
@@ -175,23 +201,83 @@ public final class VMChannel
   private static native int read(int fd) throws IOException;
 
   /**
-   * Reads into byte buffers directly using the supplied file descriptor.
-   * Assumes that the buffer list contains DirectBuffers.  Will perform a
-   * scattering read.
+   * Reads into byte buffers using the supplied file descriptor, with a
+   * single scattering read.  Non-direct buffers are read through
+   * temporary direct buffers from the {@link DirectBufferPool}.  At most
+   * {@link #IOV_MAX} buffers are used.
    *
-   * @param dsts An array direct byte buffers.
+   * @param dsts An array of byte buffers.
    * @param offset Index of the first buffer to read to.
    * @param length The number of buffers to read to.
    * @return Number of bytes read.
-   * @throws IOException If an error occurs or the dsts are not direct buffers.
+   * @throws IOException If an error occurs.
    */
   public long readScattering(ByteBuffer[] dsts, int offset, int length)
     throws IOException
   {
     if (offset + length > dsts.length)
       throw new IndexOutOfBoundsException("offset + length > dsts.length");
+    if (length > IOV_MAX)
+      length = IOV_MAX;
+
+    ByteBuffer[] direct = directBuffers(dsts, offset, length, false);
+    if (direct == null)
+      return readScattering(nfd.getNativeFD(), dsts, offset, length);
 
-    return readScattering(nfd.getNativeFD(), dsts, offset, length);
+    boolean completed = false;
+    try
+      {
+        long n = readScattering(nfd.getNativeFD(), direct, 0, length);
+        completed = true;
+        return n;
+      }
+    finally
+      {
+        for (int i = 0; i < length; i++)
+          {
+            ByteBuffer tmp = direct[i];
+            if (tmp == dsts[offset + i])
+              continue;
+            if (completed)
+              {
+                tmp.flip();
+                dsts[offset + i].put(tmp);
+              }
+            DirectBufferPool.release(tmp);
+          }
+      }
+  }
+
+  /**
+   * Return a copy of the LENGTH buffers of BUFS starting at OFFSET, where
+   * every non-direct buffer is replaced by a pooled direct buffer with
+   * as many bytes remaining; or null if all the buffers are direct.  If
+   * COPY is true, the remaining bytes of the replaced buffers are copied
+   * into their replacements.
+   */
+  private static ByteBuffer[] directBuffers(ByteBuffer[] bufs, int offset,
+                                            int length, boolean copy)
+  {
+    ByteBuffer[] result = null;
+    for (int i = 0; i < length; i++)
+      {
+        ByteBuffer buf = bufs[offset + i];
+        if (buf.isDirect())
+          continue;
+        if (result == null)
+          {
+            result = new ByteBuffer[length];
+            System.arraycopy(bufs, offset, result, 0, length);
+          }
+        ByteBuffer tmp = DirectBufferPool.acquire(buf.remaining());
+        if (copy)
+          {
+            tmp.put(buf.duplicate());
+            tmp.flip();
+          }
+        result[i] = tmp;
+      }
+    return result;
   }
 
   private static native long readScattering(int fd, ByteBuffer[] dsts,
@@ -210,8 +296,41 @@ public final class VMChannel
   {
     if (kind != Kind.SOCK_DGRAM)
       throw new SocketException("not a datagram socket");
-    ByteBuffer hostPort = ByteBuffer.allocateDirect(18);
-    int hostlen = receive(nfd.getNativeFD(), dst, hostPort);
+    ByteBuffer hostPort = DirectBufferPool.acquire(18);
+    try
+      {
+        int hostlen;
+        if (dst.isDirect())
+          hostlen = receive(nfd.getNativeFD(), dst, hostPort);
+        else
+          {
+            ByteBuffer tmp = DirectBufferPool.acquire(dst.remaining());
+            try
+              {
+                hostlen = receive(nfd.getNativeFD(), tmp, hostPort);
+                tmp.flip();
+                dst.put(tmp);
+              }
+            finally
+              {
+                DirectBufferPool.release(tmp);
+              }
+          }
+        return toSocketAddress(hostlen, hostPort);
+      }
+    finally
+      {
+        DirectBufferPool.release(hostPort);
+      }
+  }
+
+  /**
+   * Decode the address and port stored by the native receive method.
+   */
+  private static SocketAddress toSocketAddress(int hostlen,
+                                              ByteBuffer hostPort)
+    throws IOException
+  {
     if (hostlen == 0)
       return null;
     if (hostlen == 4) // IPv4
@@ -237,8 +356,11 @@ public final class VMChannel
     throws IOException;
 
   /**
-   * Writes from a direct byte bufer using the supplied file descriptor.
-   * Assumes the buffer is a DirectBuffer.
+   * Writes from a byte bufer using the supplied file descriptor.
+   * Non-direct buffers are written through a temporary direct buffer
+   * from the {@link DirectBufferPool}; one larger than
+   * {@link DirectBufferPool#MAX_CACHED_SIZE} gets an uncached buffer, so
+   * that a blocking write still drains it.
    *
    * @param src The source buffer.
    * @return Number of bytes written.
@@ -246,15 +368,33 @@ public final class VMChannel
    */
   public int write(ByteBuffer src) throws IOException
   {
-    return write(nfd.getNativeFD(), src);
+    if (src.isDirect() || !src.hasRemaining())
+      return write(nfd.getNativeFD(), src);
+
+    int pos = src.position();
+    int n = 0;
+    ByteBuffer tmp = DirectBufferPool.acquire(src.remaining());
+    try
+      {
+        tmp.put(src.duplicate());
+        tmp.flip();
+        n = write(nfd.getNativeFD(), tmp);
+        return n;
+      }
+    finally
+      {
+        src.position(pos + n);
+        DirectBufferPool.release(tmp);
+      }
   }
 
   private native int write(int fd, ByteBuffer src) throws IOException;
 
   /**
-   * Writes from byte buffers directly using the supplied file descriptor.
-   * Assumes the that buffer list constains DirectBuffers.  Will perform
-   * as gathering write.
+   * Writes from byte buffers using the supplied file descriptor, with a
+   * single gathering write.  Non-direct buffers are copied into
+   * temporary direct buffers from the {@link DirectBufferPool}.  At most
+   * {@link #IOV_MAX} buffers are used.
    *
    * @param srcs
    * @param offset
@@ -268,22 +408,45 @@ public final class VMChannel
     if (offset + length > srcs.length)
       throw new IndexOutOfBoundsException("offset + length > srcs.length");
 
-    // A gathering write is limited to 16 buffers; when writing, ensure
-    // that we have at least one buffer with something in it in the 16
-    // buffer window starting at offset.
-    while (!srcs[offset].hasRemaining() && offset < srcs.length)
+    // A gathering write is limited to IOV_MAX buffers; when writing,
+    // ensure that we have at least one buffer with something in it in
+    // the window starting at offset.
+    int end = offset + length;
+    while (offset < end && !srcs[offset].hasRemaining())
       offset++;
 
     // There are no buffers with anything to write.
-    if (offset == srcs.length)
+    if (offset == end)
       return 0;
 
-    // If we advanced `offset' so far that we don't have `length'
-    // buffers left, reset length to only the remaining buffers.
-    if (length > srcs.length - offset)
-      length = srcs.length - offset;
+    length = end - offset;
+    if (length > IOV_MAX)
+      length = IOV_MAX;
+
+    ByteBuffer[] direct = directBuffers(srcs, offset, length, true);
+    if (direct == null)
+      return writeGathering(nfd.getNativeFD(), srcs, offset, length);
 
-    return writeGathering(nfd.getNativeFD(), srcs, offset, length);
+    boolean completed = false;
+    try
+      {
+        long n = writeGathering(nfd.getNativeFD(), direct, 0, length);
+        completed = true;
+        return n;
+      }
+    finally
+      {
+        for (int i = 0; i < length; i++)
+          {
+            ByteBuffer tmp = direct[i];
+            ByteBuffer src = srcs[offset + i];
+            if (tmp == src)
+              continue;
+            if (completed)
+              src.position(src.position() + tmp.position());
+            DirectBufferPool.release(tmp);
+          }
+      }
   }
 
   private native long writeGathering(int fd, ByteBuffer[] srcs,
@@ -304,12 +467,35 @@ public final class VMChannel
     InetAddress addr = dst.getAddress();
     if (addr == null)
       throw new NullPointerException();
+    if (!(addr instanceof Inet4Address) && !(addr instanceof Inet6Address))
+      throw new SocketException("unrecognized inet address type");
+    if (src.isDirect() || !src.hasRemaining())
+      return send(src, addr, dst.getPort());
+
+    int pos = src.position();
+    int n = 0;
+    ByteBuffer tmp = DirectBufferPool.acquire(src.remaining());
+    try
+      {
+        tmp.put(src.duplicate());
+        tmp.flip();
+        n = send(tmp, addr, dst.getPort());
+        return n;
+      }
+    finally
+      {
+        src.position(pos + n);
+        DirectBufferPool.release(tmp);
+      }
+  }
+
+  private int send(ByteBuffer src, InetAddress addr, int port)
+    throws IOException
+  {
     if (addr instanceof Inet4Address)
-      return send(nfd.getNativeFD(), src, addr.getAddress(), dst.getPort());
-    else if (addr instanceof Inet6Address)
-      return send6(nfd.getNativeFD(), src, addr.getAddress(), dst.getPort());
+      return send(nfd.getNativeFD(), src, addr.getAddress(), port);
     else
-      throw new SocketException("unrecognized inet address type");
+      return send6(nfd.getNativeFD(), src, addr.getAddress(), port);
   }
 
   // Send to an IPv4 address.
@@ -611,6 +797,63 @@ public final class VMChannel
 
   private static native boolean flush(int fd, boolean metadata) throws IOException;
 
+  /**
+   * Transfer up to COUNT bytes, starting at POSITION in this file, to
+   * the current position of TARGET, letting the kernel move the data
+   * (with sendfile, splice or copy_file_range) instead of copying it
+   * through a buffer.  The position of this file is not changed.
+   *
+   * @param position The file position to start reading at.
+   * @param count The maximum number of bytes to transfer.
+   * @param target The channel to write the bytes to.
+   * @return The number of bytes transferred, which is zero at end of
+   *  file or if TARGET is non-blocking and not ready; or -1 if the
+   *  platform can't transfer directly between these two channels, in
+   *  which case the caller must copy the bytes itself.
+   * @throws IOException If this channel is not a file, or if the
+   *  transfer fails.
+   */
+  public long transferTo(long position, long count, VMChannel target)
+    throws IOException
+  {
+    if (kind != Kind.FILE)
+      throw new IOException("not a file");
+    return transferTo(nfd.getNativeFD(), position, count,
+                      target.nfd.getNativeFD());
+  }
+
+  private static native long transferTo(int fd, long position, long count,
+                                        int target_fd)
+    throws IOException;
+
+  /**
+   * Transfer up to COUNT bytes from the current position of SRC into
+   * this file, starting at POSITION, without copying the data through
+   * a buffer.  The position of this file is not changed.
+   *
+   * @param src The channel to read the bytes from.
+   * @param position The file position to start writing at.
+   * @param count The maximum number of bytes to transfer.
+   * @return The number of bytes transferred, which is zero at end of
+   *  stream or if SRC is non-blocking and not ready; or -1 if the
+   *  platform can't transfer directly between these two channels, in
+   *  which case the caller must copy the bytes itself.
+   * @throws IOException If this channel is not a file, or if the
+   *  transfer fails.
+   */
+  public long transferFrom(VMChannel src, long position, long count)
+    throws IOException
+  {
+    if (kind != Kind.FILE)
+      throw new IOException("not a file");
+    return transferFrom(src.nfd.getNativeFD(), nfd.getNativeFD(),
+                        position, count);
+  }
+
+  private static native long transferFrom(int src_fd, int fd,
+                                          long position, long count)
+    throws IOException;
+
   // Close.
 
   /**
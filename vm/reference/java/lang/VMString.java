@@ -37,8 +37,7 @@ exception statement from your version. */
 
 package java.lang;
 
-import java.lang.ref.WeakReference;
-import java.util.WeakHashMap;
+import gnu.java.lang.InternTable;
 
 /*
  * This class is a reference version, mainly for compiling a class library
@@ -56,12 +55,35 @@ final class VMString
   /**
    * Holds the references for each intern()'d String. If all references to
    * the string disappear, and the VM properly supports weak references,
-   * the String will be GC'd.
+   * the String will be GC'd.  Strings which are already in the table are
+   * found without locking, so that many threads can intern at once.
+   * The table is only created on the first call of intern(), as String
+   * calls {@link #compactStrings()} while it is being initialized.
    */
-  private static final WeakHashMap internTable = new WeakHashMap();
+  private static final class Table
+  {
+    static final InternTable strings = InternTable.getStringTable();
+  }
 
   private VMString() {} // Prohibits instantiation.
 
+  /**
+   * Tells whether String may keep the characters of a String which are
+   * all below 256 in its <code>latin1</code> byte array instead of its
+   * <code>value</code> char array.  Compact Strings leave
+   * <code>value</code> null, which breaks a VM that reads the fields of
+   * String natively, so this returns false; a VM opts in by returning
+   * true from its own copy once it handles a null <code>value</code>.
+   * This is called while String is initialized, so it must not create
+   * Strings or read system properties.
+   *
+   * @return true if compact Strings may be created
+   */
+  static boolean compactStrings()
+  {
+    return false;
+  }
+
   /**
    * Fetches this String from the intern hashtable. If two Strings are
    * considered equal, by the equals() method, then intern() will return the
@@ -74,20 +96,7 @@ final class VMString
    */
   static String intern(String str)
   {
-    synchronized (internTable)
-      {
-        WeakReference ref = (WeakReference) internTable.get(str);
-        if (ref != null)
-          {
-            String s = (String) ref.get();
-            // If s is null, then no strong references exist to the String;
-            // the weak hash map will soon delete the key.
-            if (s != null)
-              return s;
-          }
-        internTable.put(str, new WeakReference(str));
-      }
-    return str;
+    return Table.strings.intern(str);
   }
 
 } // class VMString